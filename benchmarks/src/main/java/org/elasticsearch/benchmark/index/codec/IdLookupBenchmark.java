@@ -0,0 +1,171 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.index.codec;
+
+import org.apache.lucene.codecs.PostingsFormat;
+import org.apache.lucene.codecs.lucene84.Lucene84Codec;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.lucene.uid.VersionsAndSeqNoResolver;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.codec.bloomfilter.ES85BloomFilterPostingsFormat;
+import org.elasticsearch.index.mapper.IdFieldMapper;
+import org.elasticsearch.index.mapper.SeqNoFieldMapper;
+import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.index.mapper.VersionFieldMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of resolving the current version of a document by id, which is done for every update and delete and for
+ * every index operation with an explicit id, on a shard with many segments with and without a bloom filter on the {@code _id}
+ * field. Ids are random so that the terms index of a segment can't rule out most ids by their prefix, as is the case with
+ * user-provided ids. The update benchmark also includes the cost of resolving the delete of the previous version on flush.
+ */
+@Fork(3)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class IdLookupBenchmark {
+
+    @Param({"true", "false"})
+    private boolean bloomFilter;
+
+    @Param({"10", "60"})
+    private int numSegments;
+
+    @Param({"100000"})
+    private int docsPerSegment;
+
+    private Path path;
+    private Directory directory;
+    private IndexWriter writer;
+    private DirectoryReader reader;
+    private Random random;
+    private String[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        path = Files.createTempDirectory("id_lookup");
+        directory = new MMapDirectory(path);
+        final IndexWriterConfig iwc = new IndexWriterConfig();
+        iwc.setCodec(new IdCodec(bloomFilter));
+        // keep the number of segments stable
+        iwc.setMergePolicy(NoMergePolicy.INSTANCE);
+        writer = new IndexWriter(directory, iwc);
+        random = new Random(42);
+        ids = new String[numSegments * docsPerSegment];
+        for (int segment = 0; segment < numSegments; segment++) {
+            for (int i = 0; i < docsPerSegment; i++) {
+                final String id = UUIDs.randomBase64UUID(random);
+                ids[segment * docsPerSegment + i] = id;
+                writer.addDocument(document(id, 1L));
+            }
+            writer.flush();
+        }
+        writer.commit();
+        reader = DirectoryReader.open(writer);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        IOUtils.close(reader, writer, directory);
+        IOUtils.rm(path);
+    }
+
+    @Benchmark
+    public VersionsAndSeqNoResolver.DocIdAndVersion lookupExistingId() throws IOException {
+        return VersionsAndSeqNoResolver.loadDocIdAndVersion(reader, idTerm(ids[random.nextInt(ids.length)]), true);
+    }
+
+    @Benchmark
+    public VersionsAndSeqNoResolver.DocIdAndVersion lookupMissingId() throws IOException {
+        return VersionsAndSeqNoResolver.loadDocIdAndVersion(reader, idTerm(UUIDs.randomBase64UUID(random)), true);
+    }
+
+    @Benchmark
+    public long updateExistingId() throws IOException {
+        final String id = ids[random.nextInt(ids.length)];
+        final Term idTerm = idTerm(id);
+        final VersionsAndSeqNoResolver.DocIdAndVersion current = VersionsAndSeqNoResolver.loadDocIdAndVersion(reader, idTerm, true);
+        final long version = current == null ? 1L : current.version + 1;
+        return writer.updateDocument(idTerm, document(id, version));
+    }
+
+    private static Term idTerm(String id) {
+        return new Term(IdFieldMapper.NAME, Uid.encodeId(id));
+    }
+
+    private static Document document(String id, long version) {
+        final Document document = new Document();
+        document.add(new Field(IdFieldMapper.NAME, Uid.encodeId(id), IdFieldMapper.Defaults.FIELD_TYPE));
+        document.add(new NumericDocValuesField(VersionFieldMapper.NAME, version));
+        document.add(new NumericDocValuesField(SeqNoFieldMapper.NAME, 0L));
+        document.add(new NumericDocValuesField(SeqNoFieldMapper.PRIMARY_TERM_NAME, 1L));
+        document.add(new StringField("message", "message " + id, Field.Store.NO));
+        return document;
+    }
+
+    private static final class IdCodec extends Lucene84Codec {
+        private final PostingsFormat idPostingsFormat;
+
+        IdCodec(boolean bloomFilter) {
+            final PostingsFormat defaultPostingsFormat = super.getPostingsFormatForField(IdFieldMapper.NAME);
+            idPostingsFormat = bloomFilter ? new ES85BloomFilterPostingsFormat(defaultPostingsFormat) : defaultPostingsFormat;
+        }
+
+        @Override
+        public PostingsFormat getPostingsFormatForField(String field) {
+            if (IdFieldMapper.NAME.equals(field)) {
+                return idPostingsFormat;
+            }
+            return super.getPostingsFormatForField(field);
+        }
+    }
+}
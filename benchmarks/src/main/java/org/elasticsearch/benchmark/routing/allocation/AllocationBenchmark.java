@@ -106,7 +106,11 @@ public class AllocationBenchmark {
         "       10|     10|        2|    50",
         "      100|      1|        2|    50",
         "      100|      3|        2|    50",
-        "      100|     10|        2|    50"
+        "      100|     10|        2|    50",
+
+        // 100k shards on 500 nodes, with many small or fewer larger indices
+        "     5000|     10|        1|   500",
+        "    50000|      1|        1|   500"
     })
     public String indicesShardsReplicasNodes = "10|1|0|1";
 
@@ -178,6 +178,8 @@ public abstract class SocketChannelContext extends ChannelContext<SocketChannel>
     protected void currentFlushOperationComplete() {
         FlushOperation flushOperation = pendingFlushes.pollFirst();
         getSelector().executeListener(flushOperation.getListener(), null);
+        // Completing a flush might lead the handler to produce more bytes to flush, such as the next chunk of a streamed response.
+        pendingFlushes.addAll(channelHandler.pollFlushOperations());
     }
 
     protected FlushOperation getPendingFlush() {
@@ -19,25 +19,49 @@
 
 package org.elasticsearch.http.netty4;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
 import io.netty.handler.codec.http.FullHttpRequest;
 import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.http.HttpPipelinedRequest;
 import org.elasticsearch.http.HttpPipeliningAggregator;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
+import org.elasticsearch.transport.netty4.Netty4Utils;
 
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
 
 /**
  * Implements HTTP pipelining ordering, ensuring that responses are completely served in the same order as their corresponding requests.
+ * Chunked responses are serialized lazily, one chunk at a time while the channel is writable, and any responses that are ready while a
+ * chunked response is being written are held back until it completes.
  */
 public class Netty4HttpPipeliningHandler extends ChannelDuplexHandler {
 
+    /**
+     * The number of bytes after which a chunk of a chunked response is completed and written to the channel.
+     */
+    static final int CHUNK_SIZE_HINT = 128 * 1024;
+
     private final Logger logger;
-    private final HttpPipeliningAggregator<Netty4HttpResponse, ChannelPromise> aggregator;
+    private final BigArrays bigArrays;
+    private final HttpPipeliningAggregator<Netty4RestResponse, ChannelPromise> aggregator;
+
+    // responses that are ready to be written but have to wait for the chunked response that is currently being written
+    private final Queue<Tuple<Netty4RestResponse, ChannelPromise>> queuedWrites = new ArrayDeque<>();
+
+    private Tuple<Netty4ChunkedHttpResponse, ChannelPromise> currentChunkedWrite;
 
     /**
      * Construct a new pipelining handler; this handler should be used downstream of HTTP decoding/aggregation.
@@ -45,9 +69,11 @@ public class Netty4HttpPipeliningHandler extends ChannelDuplexHandler {
      * @param logger        for logging unexpected errors
      * @param maxEventsHeld the maximum number of channel events that will be retained prior to aborting the channel connection; this is
      *                      required as events cannot queue up indefinitely
+     * @param bigArrays     to allocate the chunks of chunked responses from
      */
-    public Netty4HttpPipeliningHandler(Logger logger, final int maxEventsHeld) {
+    public Netty4HttpPipeliningHandler(Logger logger, final int maxEventsHeld, BigArrays bigArrays) {
         this.logger = logger;
+        this.bigArrays = bigArrays;
         this.aggregator = new HttpPipeliningAggregator<>(maxEventsHeld);
     }
 
@@ -60,13 +86,13 @@ public class Netty4HttpPipeliningHandler extends ChannelDuplexHandler {
 
     @Override
     public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise) {
-        assert msg instanceof Netty4HttpResponse : "Invalid message type: " + msg.getClass();
-        Netty4HttpResponse response = (Netty4HttpResponse) msg;
+        assert msg instanceof Netty4RestResponse : "Invalid message type: " + msg.getClass();
+        Netty4RestResponse response = (Netty4RestResponse) msg;
         boolean success = false;
         try {
-            List<Tuple<Netty4HttpResponse, ChannelPromise>> readyResponses = aggregator.write(response, promise);
-            for (Tuple<Netty4HttpResponse, ChannelPromise> readyResponse : readyResponses) {
-                ctx.write(readyResponse.v1(), readyResponse.v2());
+            List<Tuple<Netty4RestResponse, ChannelPromise>> readyResponses = aggregator.write(response, promise);
+            for (Tuple<Netty4RestResponse, ChannelPromise> readyResponse : readyResponses) {
+                doWrite(ctx, readyResponse.v1(), readyResponse.v2());
             }
             success = true;
         } catch (IllegalStateException e) {
@@ -78,15 +104,102 @@ public class Netty4HttpPipeliningHandler extends ChannelDuplexHandler {
         }
     }
 
+    private void doWrite(ChannelHandlerContext ctx, Netty4RestResponse response, ChannelPromise promise) {
+        if (currentChunkedWrite != null) {
+            queuedWrites.add(new Tuple<>(response, promise));
+        } else if (response instanceof Netty4ChunkedHttpResponse) {
+            currentChunkedWrite = new Tuple<>((Netty4ChunkedHttpResponse) response, promise);
+            // writes the status line and headers, the body follows in chunks
+            ctx.write(response);
+            writeChunks(ctx);
+        } else {
+            ctx.write(response, promise);
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isWritable() && currentChunkedWrite != null) {
+            writeChunks(ctx);
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
+    /**
+     * Serializes and writes chunks of the current chunked response for as long as the channel is writable, which means that only the
+     * chunks that the socket is about to drain are held in memory. Writing resumes once the channel becomes writable again.
+     */
+    private void writeChunks(ChannelHandlerContext ctx) {
+        boolean done = false;
+        while (done == false && ctx.channel().isWritable()) {
+            done = writeChunk(ctx);
+        }
+        if (done) {
+            finishChunkedWrite(ctx);
+        } else {
+            ctx.flush();
+        }
+    }
+
+    /**
+     * @return whether the chunked response has been written completely, or failed
+     */
+    private boolean writeChunk(ChannelHandlerContext ctx) {
+        final Netty4ChunkedHttpResponse response = currentChunkedWrite.v1();
+        final ChannelPromise promise = currentChunkedWrite.v2();
+        final ChunkedRestResponseBody body = response.body();
+        final ReleasableBytesReference bytes;
+        final boolean isLastChunk;
+        try {
+            bytes = body.encodeChunk(CHUNK_SIZE_HINT, bigArrays);
+            isLastChunk = body.isDone();
+        } catch (Exception e) {
+            // the status and headers have already been sent so the client can only learn about the failure by the channel being closed
+            logger.warn("failed to serialize chunk of http response", e);
+            promise.tryFailure(e);
+            ctx.channel().close();
+            return true;
+        }
+        final ByteBuf content = Netty4Utils.toByteBuf(bytes);
+        final ChannelFuture future;
+        if (isLastChunk) {
+            future = ctx.write(new DefaultLastHttpContent(content), promise);
+        } else {
+            future = ctx.write(new DefaultHttpContent(content));
+        }
+        future.addListener(f -> {
+            bytes.close();
+            if (f.isSuccess() == false) {
+                promise.tryFailure(f.cause());
+            }
+        });
+        return isLastChunk;
+    }
+
+    private void finishChunkedWrite(ChannelHandlerContext ctx) {
+        currentChunkedWrite = null;
+        Tuple<Netty4RestResponse, ChannelPromise> queuedWrite;
+        while (currentChunkedWrite == null && (queuedWrite = queuedWrites.poll()) != null) {
+            doWrite(ctx, queuedWrite.v1(), queuedWrite.v2());
+        }
+        ctx.flush();
+    }
+
     @Override
     public void close(ChannelHandlerContext ctx, ChannelPromise promise) {
-        List<Tuple<Netty4HttpResponse, ChannelPromise>> inflightResponses = aggregator.removeAllInflightResponses();
+        List<Tuple<Netty4RestResponse, ChannelPromise>> inflightResponses = new ArrayList<>(aggregator.removeAllInflightResponses());
+        inflightResponses.addAll(queuedWrites);
+        queuedWrites.clear();
+        if (currentChunkedWrite != null) {
+            inflightResponses.add(new Tuple<>(currentChunkedWrite.v1(), currentChunkedWrite.v2()));
+            currentChunkedWrite = null;
+        }
 
         if (inflightResponses.isEmpty() == false) {
             ClosedChannelException closedChannelException = new ClosedChannelException();
-            for (Tuple<Netty4HttpResponse, ChannelPromise> inflightResponse : inflightResponses) {
+            for (Tuple<Netty4RestResponse, ChannelPromise> inflightResponse : inflightResponses) {
                 try {
-                    inflightResponse.v2().setFailure(closedChannelException);
+                    inflightResponse.v2().tryFailure(closedChannelException);
                 } catch (RuntimeException e) {
                     logger.error("unexpected error while releasing pipelined http responses", e);
                 }
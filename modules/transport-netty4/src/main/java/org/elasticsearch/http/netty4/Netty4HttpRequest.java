@@ -30,8 +30,11 @@ import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.cookie.Cookie;
 import io.netty.handler.codec.http.cookie.ServerCookieDecoder;
 import io.netty.handler.codec.http.cookie.ServerCookieEncoder;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.http.HttpBodyStream;
 import org.elasticsearch.http.HttpRequest;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.transport.netty4.Netty4Utils;
@@ -52,25 +55,33 @@ public class Netty4HttpRequest implements HttpRequest {
     private final FullHttpRequest request;
     private final boolean pooled;
     private final BytesReference content;
+    @Nullable
+    private final HttpBodyStream bodyStream;
 
     Netty4HttpRequest(FullHttpRequest request, int sequence) {
         this(request, new HttpHeadersMap(request.headers()), sequence, new AtomicBoolean(false), true,
-            Netty4Utils.toBytesReference(request.content()));
+            Netty4Utils.toBytesReference(request.content()),
+            request instanceof Netty4HttpRequestBodyStreamHandler.StreamedHttpRequest
+                ? ((Netty4HttpRequestBodyStreamHandler.StreamedHttpRequest) request).bodyStream() : null);
     }
 
     private Netty4HttpRequest(FullHttpRequest request, HttpHeadersMap headers, int sequence, AtomicBoolean released, boolean pooled,
-                              BytesReference content) {
+                              BytesReference content, @Nullable HttpBodyStream bodyStream) {
         this.request = request;
         this.sequence = sequence;
         this.headers = headers;
         this.content = content;
         this.pooled = pooled;
         this.released = released;
+        this.bodyStream = bodyStream;
     }
 
     @Override
     public RestRequest.Method method() {
-        HttpMethod httpMethod = request.method();
+        return translateRequestMethod(request.method());
+    }
+
+    static RestRequest.Method translateRequestMethod(HttpMethod httpMethod) {
         if (httpMethod == HttpMethod.GET)
             return RestRequest.Method.GET;
 
@@ -117,8 +128,20 @@ public class Netty4HttpRequest implements HttpRequest {
         return content;
     }
 
+    @Override
+    public HttpBodyStream bodyStream() {
+        return bodyStream;
+    }
+
     @Override
     public void release() {
+        if (bodyStream != null) {
+            bodyStream.close();
+        }
+        releaseRequest();
+    }
+
+    private void releaseRequest() {
         if (pooled && released.compareAndSet(false, true)) {
             request.release();
         }
@@ -135,9 +158,10 @@ public class Netty4HttpRequest implements HttpRequest {
             return new Netty4HttpRequest(
                 new DefaultFullHttpRequest(request.protocolVersion(), request.method(), request.uri(), copiedContent, request.headers(),
                     request.trailingHeaders()),
-                headers, sequence, new AtomicBoolean(false), false, Netty4Utils.toBytesReference(copiedContent));
+                headers, sequence, new AtomicBoolean(false), false, Netty4Utils.toBytesReference(copiedContent), bodyStream);
         } finally {
-            release();
+            // the copy takes over the body stream, so only the buffer of this request is released
+            releaseRequest();
         }
     }
 
@@ -180,7 +204,7 @@ public class Netty4HttpRequest implements HttpRequest {
         FullHttpRequest requestWithoutHeader = new DefaultFullHttpRequest(request.protocolVersion(), request.method(), request.uri(),
             request.content(), headersWithoutContentTypeHeader, trailingHeaders);
         return new Netty4HttpRequest(requestWithoutHeader, new HttpHeadersMap(requestWithoutHeader.headers()), sequence, released,
-            pooled, content);
+            pooled, content, bodyStream);
     }
 
     @Override
@@ -188,6 +212,11 @@ public class Netty4HttpRequest implements HttpRequest {
         return new Netty4HttpResponse(this, status, content);
     }
 
+    @Override
+    public Netty4ChunkedHttpResponse createResponse(RestStatus status, ChunkedRestResponseBody content) {
+        return new Netty4ChunkedHttpResponse(this, status, content);
+    }
+
     public FullHttpRequest nettyRequest() {
         return request;
     }
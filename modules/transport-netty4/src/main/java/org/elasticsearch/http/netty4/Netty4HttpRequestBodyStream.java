@@ -0,0 +1,170 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.http.HttpBodyStream;
+import org.elasticsearch.transport.netty4.Netty4Utils;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * A {@link HttpBodyStream} over the {@link HttpContent} messages of a request that the {@link Netty4HttpRequestBodyStreamHandler} passes
+ * on to it. Automatic reads are disabled on the channel while the body is streamed so that content is only read off the network once it
+ * has been requested. All state is only accessed on the event loop of the channel.
+ */
+class Netty4HttpRequestBodyStream implements HttpBodyStream {
+
+    private final Channel channel;
+    // content that has been read off the network as part of a read for an earlier chunk and hasn't been requested yet
+    private final Queue<HttpContent> queuedContent = new ArrayDeque<>();
+
+    private volatile ChunkHandler handler;
+    private boolean requested;
+    private boolean receivedLast;
+    private boolean closed;
+    private Exception failure;
+
+    Netty4HttpRequestBodyStream(Channel channel) {
+        assert channel.eventLoop().inEventLoop();
+        this.channel = channel;
+        channel.config().setAutoRead(false);
+    }
+
+    @Override
+    public void setHandler(ChunkHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public void next() {
+        // always forked to the event loop, even when called on it, so that handling a chunk never recurses into handling the next one
+        channel.eventLoop().execute(this::doNext);
+    }
+
+    @Override
+    public void close() {
+        if (channel.eventLoop().inEventLoop()) {
+            doClose();
+        } else {
+            channel.eventLoop().execute(this::doClose);
+        }
+    }
+
+    private void doNext() {
+        assert handler != null : "handler must be set before requesting chunks";
+        assert requested == false : "next chunk requested twice";
+        if (closed) {
+            return;
+        }
+        final HttpContent content = queuedContent.poll();
+        if (content != null) {
+            deliver(content);
+        } else if (failure != null) {
+            handler.onFailure(failure);
+        } else {
+            requested = true;
+            channel.read();
+        }
+    }
+
+    private void doClose() {
+        if (closed == false) {
+            closed = true;
+            HttpContent content;
+            while ((content = queuedContent.poll()) != null) {
+                content.release();
+            }
+            if (receivedLast == false) {
+                // drain the remainder of the body, which is released as it arrives
+                channel.config().setAutoRead(true);
+            }
+        }
+    }
+
+    /**
+     * Called with the next content of the body as it is read off the network.
+     */
+    void onContent(HttpContent content) {
+        assert channel.eventLoop().inEventLoop();
+        assert receivedLast == false : "received content after the last content";
+        if (content instanceof LastHttpContent) {
+            receivedLast = true;
+            // the request is complete, so subsequent requests on the same connection can be read as usual
+            channel.config().setAutoRead(true);
+        }
+        if (content.decoderResult().isFailure()) {
+            content.release();
+            final Throwable cause = content.decoderResult().cause();
+            onFailure(cause instanceof Exception ? (Exception) cause : new Exception(cause));
+        } else if (closed) {
+            content.release();
+        } else if (requested) {
+            requested = false;
+            deliver(content);
+        } else {
+            queuedContent.add(content);
+        }
+    }
+
+    /**
+     * Called once the data of a read has been decoded, which may not have produced any content if it only held part of a chunk.
+     */
+    void onReadComplete() {
+        assert channel.eventLoop().inEventLoop();
+        if (requested && closed == false) {
+            channel.read();
+        }
+    }
+
+    /**
+     * Called if the channel is closed before the last content of the body has been received.
+     */
+    void onChannelInactive() {
+        assert channel.eventLoop().inEventLoop();
+        onFailure(new ClosedChannelException());
+    }
+
+    private void onFailure(Exception e) {
+        if (closed) {
+            return;
+        }
+        HttpContent content;
+        while ((content = queuedContent.poll()) != null) {
+            content.release();
+        }
+        failure = e;
+        if (requested) {
+            requested = false;
+            handler.onFailure(e);
+        }
+    }
+
+    private void deliver(HttpContent content) {
+        final ReleasableBytesReference chunk =
+            new ReleasableBytesReference(Netty4Utils.toBytesReference(content.content()), content::release);
+        handler.onNext(chunk, content instanceof LastHttpContent);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.elasticsearch.http.HttpBodyStream;
+import org.elasticsearch.rest.RestRequest;
+
+/**
+ * Streams the bodies of requests whose handlers support it rather than leaving them to the aggregator. A streamed request is passed on as
+ * a {@link StreamedHttpRequest} without content as soon as its headers have been received, and its content is fed to the
+ * {@link Netty4HttpRequestBodyStream} it carries. This handler sits in front of the aggregator, which passes already aggregated requests
+ * through, and isn't sharable since it tracks the request that is being streamed on its channel.
+ */
+class Netty4HttpRequestBodyStreamHandler extends ChannelInboundHandlerAdapter {
+
+    private final Netty4HttpServerTransport transport;
+
+    private Netty4HttpRequestBodyStream currentStream;
+
+    Netty4HttpRequestBodyStreamHandler(Netty4HttpServerTransport transport) {
+        this.transport = transport;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (currentStream != null && msg instanceof HttpContent) {
+            final Netty4HttpRequestBodyStream stream = currentStream;
+            if (msg instanceof LastHttpContent) {
+                currentStream = null;
+            }
+            stream.onContent((HttpContent) msg);
+        } else if (msg instanceof HttpRequest && msg instanceof FullHttpRequest == false && shouldStream((HttpRequest) msg)) {
+            final HttpRequest request = (HttpRequest) msg;
+            if (HttpUtil.is100ContinueExpected(request)) {
+                // the aggregator would otherwise take care of this, but it never sees the request
+                ctx.writeAndFlush(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE, Unpooled.EMPTY_BUFFER));
+                request.headers().remove(HttpHeaderNames.EXPECT);
+            }
+            currentStream = new Netty4HttpRequestBodyStream(ctx.channel());
+            ctx.fireChannelRead(new StreamedHttpRequest(request, currentStream));
+        } else {
+            ctx.fireChannelRead(msg);
+        }
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        if (currentStream != null) {
+            currentStream.onReadComplete();
+        }
+        ctx.fireChannelReadComplete();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (currentStream != null) {
+            currentStream.onChannelInactive();
+            currentStream = null;
+        }
+        super.channelInactive(ctx);
+    }
+
+    private boolean shouldStream(HttpRequest request) {
+        if (request.decoderResult().isFailure()) {
+            return false;
+        }
+        if (HttpUtil.isTransferEncodingChunked(request) == false && HttpUtil.getContentLength(request, 0L) <= 0) {
+            return false;
+        }
+        final RestRequest.Method method;
+        try {
+            method = Netty4HttpRequest.translateRequestMethod(request.method());
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return transport.shouldStreamBody(method, request.uri());
+    }
+
+    /**
+     * A request whose body is streamed rather than aggregated, which is passed on with empty content.
+     */
+    static final class StreamedHttpRequest extends DefaultFullHttpRequest {
+
+        private final HttpBodyStream bodyStream;
+
+        StreamedHttpRequest(HttpRequest request, HttpBodyStream bodyStream) {
+            super(request.protocolVersion(), request.method(), request.uri(), Unpooled.EMPTY_BUFFER, request.headers(),
+                new DefaultHttpHeaders());
+            this.bodyStream = bodyStream;
+        }
+
+        HttpBodyStream bodyStream() {
+            return bodyStream;
+        }
+    }
+}
@@ -29,8 +29,6 @@ import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.FixedRecvByteBufAllocator;
 import io.netty.channel.RecvByteBufAllocator;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioChannelOption;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.http.HttpContentCompressor;
 import io.netty.handler.codec.http.HttpContentDecompressor;
@@ -54,7 +52,6 @@ import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.core.internal.io.IOUtils;
-import org.elasticsearch.core.internal.net.NetUtils;
 import org.elasticsearch.http.AbstractHttpServerTransport;
 import org.elasticsearch.http.HttpChannel;
 import org.elasticsearch.http.HttpHandlingSettings;
@@ -62,11 +59,12 @@ import org.elasticsearch.http.HttpReadTimeoutException;
 import org.elasticsearch.http.HttpServerChannel;
 import org.elasticsearch.http.netty4.cors.Netty4CorsHandler;
 import org.elasticsearch.threadpool.ThreadPool;
-import org.elasticsearch.transport.NettyAllocator;
+import org.elasticsearch.transport.NettyNativeTransport;
 import org.elasticsearch.transport.netty4.Netty4Utils;
 
 import java.net.InetSocketAddress;
-import java.net.SocketOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static org.elasticsearch.common.util.concurrent.EsExecutors.daemonThreadFactory;
@@ -133,11 +131,24 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
     public static final Setting<ByteSizeValue> SETTING_HTTP_NETTY_RECEIVE_PREDICTOR_SIZE =
         Setting.byteSizeSetting("http.netty.receive_predictor_size", new ByteSizeValue(64, ByteSizeUnit.KB), Property.NodeScope);
 
+    public static final Setting<Boolean> SETTING_HTTP_NETTY_NATIVE_TRANSPORT =
+        Setting.boolSetting("http.netty.native_transport", false, Property.NodeScope);
+
+    /**
+     * The number of server channels that are bound to each address to accept connections when using the native transport, which are
+     * bound with {@code SO_REUSEPORT} if there is more than one. Note that another process of the same user that binds the same port with
+     * {@code SO_REUSEPORT} will then share the incoming connections.
+     */
+    public static final Setting<Integer> SETTING_HTTP_NETTY_ACCEPTOR_COUNT =
+        Setting.intSetting("http.netty.acceptor_count", 1, 1, Property.NodeScope);
+
     private final ByteSizeValue maxInitialLineLength;
     private final ByteSizeValue maxHeaderSize;
     private final ByteSizeValue maxChunkSize;
 
     private final int workerCount;
+    private final NettyNativeTransport nativeTransport;
+    private final int acceptorCount;
 
     private final int pipeliningMaxEvents;
 
@@ -160,6 +171,9 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
 
         this.maxCompositeBufferComponents = SETTING_HTTP_NETTY_MAX_COMPOSITE_BUFFER_COMPONENTS.get(settings);
         this.workerCount = SETTING_HTTP_WORKER_COUNT.get(settings);
+        this.nativeTransport = NettyNativeTransport.resolve(SETTING_HTTP_NETTY_NATIVE_TRANSPORT.get(settings),
+            SETTING_HTTP_NETTY_NATIVE_TRANSPORT.getKey());
+        this.acceptorCount = nativeTransport.isEnabled() ? SETTING_HTTP_NETTY_ACCEPTOR_COUNT.get(settings) : 1;
 
         this.readTimeoutMillis = Math.toIntExact(SETTING_HTTP_READ_TIMEOUT.get(settings).getMillis());
 
@@ -182,15 +196,15 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
         try {
             serverBootstrap = new ServerBootstrap();
 
-            serverBootstrap.group(new NioEventLoopGroup(workerCount, daemonThreadFactory(settings,
+            serverBootstrap.group(nativeTransport.newEventLoopGroup(workerCount, daemonThreadFactory(settings,
                 HTTP_SERVER_WORKER_THREAD_NAME_PREFIX)));
 
-            // NettyAllocator will return the channel type designed to work with the configuredAllocator
-            serverBootstrap.channel(NettyAllocator.getServerChannelType());
+            // the native transport uses its own channel type, otherwise NettyAllocator returns the one designed to work with its allocator
+            serverBootstrap.channel(nativeTransport.getServerChannelType());
 
             // Set the allocators for both the server channel and the child channels created
-            serverBootstrap.option(ChannelOption.ALLOCATOR, NettyAllocator.getAllocator());
-            serverBootstrap.childOption(ChannelOption.ALLOCATOR, NettyAllocator.getAllocator());
+            serverBootstrap.option(ChannelOption.ALLOCATOR, nativeTransport.getAllocator());
+            serverBootstrap.childOption(ChannelOption.ALLOCATOR, nativeTransport.getAllocator());
 
             serverBootstrap.childHandler(configureServerChannelHandler());
             serverBootstrap.handler(new ServerChannelExceptionHandler(this));
@@ -202,22 +216,21 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
                 // Netty logs a warning if it can't set the option, so try this only on supported platforms
                 if (IOUtils.LINUX || IOUtils.MAC_OS_X) {
                     if (SETTING_HTTP_TCP_KEEP_IDLE.get(settings) >= 0) {
-                        final SocketOption<Integer> keepIdleOption = NetUtils.getTcpKeepIdleSocketOptionOrNull();
+                        final ChannelOption<Integer> keepIdleOption = nativeTransport.keepIdleOption();
                         if (keepIdleOption != null) {
-                            serverBootstrap.childOption(NioChannelOption.of(keepIdleOption), SETTING_HTTP_TCP_KEEP_IDLE.get(settings));
+                            serverBootstrap.childOption(keepIdleOption, SETTING_HTTP_TCP_KEEP_IDLE.get(settings));
                         }
                     }
                     if (SETTING_HTTP_TCP_KEEP_INTERVAL.get(settings) >= 0) {
-                        final SocketOption<Integer> keepIntervalOption = NetUtils.getTcpKeepIntervalSocketOptionOrNull();
+                        final ChannelOption<Integer> keepIntervalOption = nativeTransport.keepIntervalOption();
                         if (keepIntervalOption != null) {
-                            serverBootstrap.childOption(NioChannelOption.of(keepIntervalOption),
-                                SETTING_HTTP_TCP_KEEP_INTERVAL.get(settings));
+                            serverBootstrap.childOption(keepIntervalOption, SETTING_HTTP_TCP_KEEP_INTERVAL.get(settings));
                         }
                     }
                     if (SETTING_HTTP_TCP_KEEP_COUNT.get(settings) >= 0) {
-                        final SocketOption<Integer> keepCountOption = NetUtils.getTcpKeepCountSocketOptionOrNull();
+                        final ChannelOption<Integer> keepCountOption = nativeTransport.keepCountOption();
                         if (keepCountOption != null) {
-                            serverBootstrap.childOption(NioChannelOption.of(keepCountOption), SETTING_HTTP_TCP_KEEP_COUNT.get(settings));
+                            serverBootstrap.childOption(keepCountOption, SETTING_HTTP_TCP_KEEP_COUNT.get(settings));
                         }
                     }
                 }
@@ -239,6 +252,9 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
             final boolean reuseAddress = SETTING_HTTP_TCP_REUSE_ADDRESS.get(settings);
             serverBootstrap.option(ChannelOption.SO_REUSEADDR, reuseAddress);
             serverBootstrap.childOption(ChannelOption.SO_REUSEADDR, reuseAddress);
+            if (acceptorCount > 1) {
+                nativeTransport.enableReusePort(serverBootstrap);
+            }
 
             bindServer();
             success = true;
@@ -255,9 +271,33 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
         Channel channel = future.channel();
         Netty4HttpServerChannel httpServerChannel = new Netty4HttpServerChannel(channel);
         channel.attr(HTTP_SERVER_CHANNEL_KEY).set(httpServerChannel);
+        bindAdditionalAcceptors(channel, httpServerChannel);
         return httpServerChannel;
     }
 
+    /**
+     * Binds further server channels to the address the given channel has been bound to, each of which is registered with another event
+     * loop so that the kernel spreads accepting connections over them. They are closed together with the given channel.
+     */
+    private void bindAdditionalAcceptors(Channel channel, Netty4HttpServerChannel httpServerChannel) throws InterruptedException {
+        final List<Channel> acceptors = new ArrayList<>();
+        try {
+            for (int i = 1; i < acceptorCount; i++) {
+                final Channel acceptor = serverBootstrap.bind(channel.localAddress()).sync().channel();
+                acceptor.attr(HTTP_SERVER_CHANNEL_KEY).set(httpServerChannel);
+                acceptors.add(acceptor);
+            }
+        } catch (InterruptedException | RuntimeException e) {
+            acceptors.forEach(Channel::close);
+            channel.close();
+            throw e;
+        }
+        if (acceptors.isEmpty() == false) {
+            channel.closeFuture().addListener(f -> acceptors.forEach(Channel::close));
+            logger.debug("bound [{}] acceptors to [{}]", acceptors.size() + 1, channel.localAddress());
+        }
+    }
+
     @Override
     protected void stopInternal() {
         if (serverBootstrap != null) {
@@ -307,6 +347,7 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
             ch.pipeline().addLast("decoder", decoder);
             ch.pipeline().addLast("decoder_compress", new HttpContentDecompressor());
             ch.pipeline().addLast("encoder", new HttpResponseEncoder());
+            ch.pipeline().addLast("body_stream", new Netty4HttpRequestBodyStreamHandler(transport));
             final HttpObjectAggregator aggregator = new HttpObjectAggregator(handlingSettings.getMaxContentLength());
             aggregator.setMaxCumulationBufferComponents(transport.maxCompositeBufferComponents);
             ch.pipeline().addLast("aggregator", aggregator);
@@ -316,7 +357,8 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
             if (handlingSettings.isCorsEnabled()) {
                 ch.pipeline().addLast("cors", new Netty4CorsHandler(transport.corsConfig));
             }
-            ch.pipeline().addLast("pipelining", new Netty4HttpPipeliningHandler(logger, transport.pipeliningMaxEvents));
+            ch.pipeline().addLast("pipelining",
+                new Netty4HttpPipeliningHandler(logger, transport.pipeliningMaxEvents, transport.bigArrays));
             ch.pipeline().addLast("handler", requestHandler);
             transport.serverAcceptedChannel(nettyHttpChannel);
         }
@@ -0,0 +1,136 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport;
+
+import io.netty.bootstrap.AbstractBootstrap;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioChannelOption;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.core.internal.net.NetUtils;
+
+import java.net.SocketOption;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Picks the event loops, channel types and socket options for either Netty's NIO transport or its native epoll transport. The native
+ * transport is only available on Linux and saves syscalls and garbage compared to NIO, reads in edge-triggered mode and supports binding
+ * several server channels to the same port with {@code SO_REUSEPORT} so that accepting connections is spread over several event loops.
+ */
+public final class NettyNativeTransport {
+
+    private static final Logger logger = LogManager.getLogger(NettyNativeTransport.class);
+
+    private final boolean enabled;
+
+    private NettyNativeTransport(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns the transport to use given whether the native transport has been requested with the setting with the given key. Falls back
+     * to NIO with a warning if the native transport isn't available on this platform.
+     */
+    public static NettyNativeTransport resolve(boolean requested, String settingKey) {
+        if (requested == false) {
+            return new NettyNativeTransport(false);
+        }
+        if (Epoll.isAvailable()) {
+            return new NettyNativeTransport(true);
+        }
+        logger.warn(new ParameterizedMessage("[{}] is enabled but the native epoll transport is not available, falling back to NIO",
+            settingKey), Epoll.unavailabilityCause());
+        return new NettyNativeTransport(false);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public EventLoopGroup newEventLoopGroup(int threads, ThreadFactory threadFactory) {
+        return enabled ? new EpollEventLoopGroup(threads, threadFactory) : new NioEventLoopGroup(threads, threadFactory);
+    }
+
+    public Class<? extends Channel> getChannelType() {
+        return enabled ? EpollSocketChannel.class : NettyAllocator.getChannelType();
+    }
+
+    public Class<? extends ServerChannel> getServerChannelType() {
+        return enabled ? EpollServerSocketChannel.class : NettyAllocator.getServerChannelType();
+    }
+
+    /**
+     * Returns the allocator for channels of this transport. The native transport reads into and writes from direct buffers, so it
+     * can't use the heap-only allocator that NIO channels use to avoid direct buffers.
+     */
+    public ByteBufAllocator getAllocator() {
+        return enabled ? ByteBufAllocator.DEFAULT : NettyAllocator.getAllocator();
+    }
+
+    /**
+     * Configures the given bootstrap to allow binding several server channels to the same address, one per event loop that accepts
+     * connections. Only supported by the native transport.
+     */
+    public void enableReusePort(AbstractBootstrap<?, ?> bootstrap) {
+        assert enabled : "SO_REUSEPORT is only supported by the native transport";
+        bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+    }
+
+    @Nullable
+    public ChannelOption<Integer> keepIdleOption() {
+        if (enabled) {
+            return EpollChannelOption.TCP_KEEPIDLE;
+        }
+        return nioOption(NetUtils.getTcpKeepIdleSocketOptionOrNull());
+    }
+
+    @Nullable
+    public ChannelOption<Integer> keepIntervalOption() {
+        if (enabled) {
+            return EpollChannelOption.TCP_KEEPINTVL;
+        }
+        return nioOption(NetUtils.getTcpKeepIntervalSocketOptionOrNull());
+    }
+
+    @Nullable
+    public ChannelOption<Integer> keepCountOption() {
+        if (enabled) {
+            return EpollChannelOption.TCP_KEEPCNT;
+        }
+        return nioOption(NetUtils.getTcpKeepCountSocketOptionOrNull());
+    }
+
+    @Nullable
+    private static ChannelOption<Integer> nioOption(@Nullable SocketOption<Integer> option) {
+        return option == null ? null : NioChannelOption.of(option);
+    }
+}
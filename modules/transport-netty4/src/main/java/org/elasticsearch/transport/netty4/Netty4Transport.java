@@ -29,10 +29,9 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
 import io.netty.channel.FixedRecvByteBufAllocator;
 import io.netty.channel.RecvByteBufAllocator;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioChannelOption;
 import io.netty.util.AttributeKey;
 import io.netty.util.concurrent.Future;
 import org.apache.logging.log4j.LogManager;
@@ -53,20 +52,21 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.PageCacheRecycler;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.core.internal.io.IOUtils;
-import org.elasticsearch.core.internal.net.NetUtils;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.threadpool.ThreadPool;
-import org.elasticsearch.transport.NettyAllocator;
+import org.elasticsearch.transport.NettyNativeTransport;
 import org.elasticsearch.transport.TcpTransport;
 import org.elasticsearch.transport.TransportSettings;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.net.SocketOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
+import static org.elasticsearch.common.settings.Setting.boolSetting;
 import static org.elasticsearch.common.settings.Setting.byteSizeSetting;
 import static org.elasticsearch.common.settings.Setting.intSetting;
 import static org.elasticsearch.common.util.concurrent.ConcurrentCollections.newConcurrentMap;
@@ -92,17 +92,25 @@ public class Netty4Transport extends TcpTransport {
         byteSizeSetting("transport.netty.receive_predictor_min", NETTY_RECEIVE_PREDICTOR_SIZE, Property.NodeScope);
     public static final Setting<ByteSizeValue> NETTY_RECEIVE_PREDICTOR_MAX =
         byteSizeSetting("transport.netty.receive_predictor_max", NETTY_RECEIVE_PREDICTOR_SIZE, Property.NodeScope);
+    /**
+     * The number of server channels that are bound to the address of each profile to accept connections when using the native transport,
+     * which are bound with {@code SO_REUSEPORT} if there is more than one. Note that another process of the same user that binds the same
+     * port with {@code SO_REUSEPORT} will then share the incoming connections.
+     */
     public static final Setting<Integer> NETTY_BOSS_COUNT =
         intSetting("transport.netty.boss_count", 1, 1, Property.NodeScope);
-
+    public static final Setting<Boolean> NETTY_NATIVE_TRANSPORT =
+        boolSetting("transport.netty.native_transport", false, Property.NodeScope);
 
     private final RecvByteBufAllocator recvByteBufAllocator;
     private final int workerCount;
+    private final int bossCount;
+    private final NettyNativeTransport nativeTransport;
     private final ByteSizeValue receivePredictorMin;
     private final ByteSizeValue receivePredictorMax;
     private final Map<String, ServerBootstrap> serverBootstraps = newConcurrentMap();
     private volatile Bootstrap clientBootstrap;
-    private volatile NioEventLoopGroup eventLoopGroup;
+    private volatile EventLoopGroup eventLoopGroup;
 
     public Netty4Transport(Settings settings, Version version, ThreadPool threadPool, NetworkService networkService,
                            PageCacheRecycler pageCacheRecycler, NamedWriteableRegistry namedWriteableRegistry,
@@ -110,6 +118,8 @@ public class Netty4Transport extends TcpTransport {
         super(settings, version, threadPool, pageCacheRecycler, circuitBreakerService, namedWriteableRegistry, networkService);
         Netty4Utils.setAvailableProcessors(EsExecutors.NODE_PROCESSORS_SETTING.get(settings));
         this.workerCount = WORKER_COUNT.get(settings);
+        this.bossCount = NETTY_BOSS_COUNT.get(settings);
+        this.nativeTransport = NettyNativeTransport.resolve(NETTY_NATIVE_TRANSPORT.get(settings), NETTY_NATIVE_TRANSPORT.getKey());
 
         // See AdaptiveReceiveBufferSizePredictor#DEFAULT_XXX for default values in netty..., we can use higher ones for us, even fixed one
         this.receivePredictorMin = NETTY_RECEIVE_PREDICTOR_MIN.get(settings);
@@ -127,7 +137,7 @@ public class Netty4Transport extends TcpTransport {
         boolean success = false;
         try {
             ThreadFactory threadFactory = daemonThreadFactory(settings, TRANSPORT_WORKER_THREAD_NAME_PREFIX);
-            eventLoopGroup = new NioEventLoopGroup(workerCount, threadFactory);
+            eventLoopGroup = nativeTransport.newEventLoopGroup(workerCount, threadFactory);
             clientBootstrap = createClientBootstrap(eventLoopGroup);
             if (NetworkService.NETWORK_SERVER.get(settings)) {
                 for (ProfileSettings profileSettings : profileSettings) {
@@ -144,13 +154,13 @@ public class Netty4Transport extends TcpTransport {
         }
     }
 
-    private Bootstrap createClientBootstrap(NioEventLoopGroup eventLoopGroup) {
+    private Bootstrap createClientBootstrap(EventLoopGroup eventLoopGroup) {
         final Bootstrap bootstrap = new Bootstrap();
         bootstrap.group(eventLoopGroup);
 
-        // NettyAllocator will return the channel type designed to work with the configured allocator
-        bootstrap.channel(NettyAllocator.getChannelType());
-        bootstrap.option(ChannelOption.ALLOCATOR, NettyAllocator.getAllocator());
+        // the native transport uses its own channel type, otherwise NettyAllocator returns the one designed to work with its allocator
+        bootstrap.channel(nativeTransport.getChannelType());
+        bootstrap.option(ChannelOption.ALLOCATOR, nativeTransport.getAllocator());
 
         bootstrap.option(ChannelOption.TCP_NODELAY, TransportSettings.TCP_NO_DELAY.get(settings));
         bootstrap.option(ChannelOption.SO_KEEPALIVE, TransportSettings.TCP_KEEP_ALIVE.get(settings));
@@ -158,21 +168,21 @@ public class Netty4Transport extends TcpTransport {
             // Netty logs a warning if it can't set the option, so try this only on supported platforms
             if (IOUtils.LINUX || IOUtils.MAC_OS_X) {
                 if (TransportSettings.TCP_KEEP_IDLE.get(settings) >= 0) {
-                    final SocketOption<Integer> keepIdleOption = NetUtils.getTcpKeepIdleSocketOptionOrNull();
+                    final ChannelOption<Integer> keepIdleOption = nativeTransport.keepIdleOption();
                     if (keepIdleOption != null) {
-                        bootstrap.option(NioChannelOption.of(keepIdleOption), TransportSettings.TCP_KEEP_IDLE.get(settings));
+                        bootstrap.option(keepIdleOption, TransportSettings.TCP_KEEP_IDLE.get(settings));
                     }
                 }
                 if (TransportSettings.TCP_KEEP_INTERVAL.get(settings) >= 0) {
-                    final SocketOption<Integer> keepIntervalOption = NetUtils.getTcpKeepIntervalSocketOptionOrNull();
+                    final ChannelOption<Integer> keepIntervalOption = nativeTransport.keepIntervalOption();
                     if (keepIntervalOption != null) {
-                        bootstrap.option(NioChannelOption.of(keepIntervalOption), TransportSettings.TCP_KEEP_INTERVAL.get(settings));
+                        bootstrap.option(keepIntervalOption, TransportSettings.TCP_KEEP_INTERVAL.get(settings));
                     }
                 }
                 if (TransportSettings.TCP_KEEP_COUNT.get(settings) >= 0) {
-                    final SocketOption<Integer> keepCountOption = NetUtils.getTcpKeepCountSocketOptionOrNull();
+                    final ChannelOption<Integer> keepCountOption = nativeTransport.keepCountOption();
                     if (keepCountOption != null) {
-                        bootstrap.option(NioChannelOption.of(keepCountOption), TransportSettings.TCP_KEEP_COUNT.get(settings));
+                        bootstrap.option(keepCountOption, TransportSettings.TCP_KEEP_COUNT.get(settings));
                     }
                 }
             }
@@ -196,7 +206,7 @@ public class Netty4Transport extends TcpTransport {
         return bootstrap;
     }
 
-    private void createServerBootstrap(ProfileSettings profileSettings, NioEventLoopGroup eventLoopGroup) {
+    private void createServerBootstrap(ProfileSettings profileSettings, EventLoopGroup eventLoopGroup) {
         String name = profileSettings.profileName;
         if (logger.isDebugEnabled()) {
             logger.debug("using profile[{}], worker_count[{}], port[{}], bind_host[{}], publish_host[{}], receive_predictor[{}->{}]",
@@ -208,12 +218,12 @@ public class Netty4Transport extends TcpTransport {
 
         serverBootstrap.group(eventLoopGroup);
 
-        // NettyAllocator will return the channel type designed to work with the configuredAllocator
-        serverBootstrap.channel(NettyAllocator.getServerChannelType());
+        // the native transport uses its own channel type, otherwise NettyAllocator returns the one designed to work with its allocator
+        serverBootstrap.channel(nativeTransport.getServerChannelType());
 
         // Set the allocators for both the server channel and the child channels created
-        serverBootstrap.option(ChannelOption.ALLOCATOR, NettyAllocator.getAllocator());
-        serverBootstrap.childOption(ChannelOption.ALLOCATOR, NettyAllocator.getAllocator());
+        serverBootstrap.option(ChannelOption.ALLOCATOR, nativeTransport.getAllocator());
+        serverBootstrap.childOption(ChannelOption.ALLOCATOR, nativeTransport.getAllocator());
 
         serverBootstrap.childHandler(getServerChannelInitializer(name));
         serverBootstrap.handler(new ServerChannelExceptionHandler());
@@ -224,22 +234,22 @@ public class Netty4Transport extends TcpTransport {
             // Netty logs a warning if it can't set the option, so try this only on supported platforms
             if (IOUtils.LINUX || IOUtils.MAC_OS_X) {
                 if (profileSettings.tcpKeepIdle >= 0) {
-                    final SocketOption<Integer> keepIdleOption = NetUtils.getTcpKeepIdleSocketOptionOrNull();
+                    final ChannelOption<Integer> keepIdleOption = nativeTransport.keepIdleOption();
                     if (keepIdleOption != null) {
-                        serverBootstrap.childOption(NioChannelOption.of(keepIdleOption), profileSettings.tcpKeepIdle);
+                        serverBootstrap.childOption(keepIdleOption, profileSettings.tcpKeepIdle);
                     }
                 }
                 if (profileSettings.tcpKeepInterval >= 0) {
-                    final SocketOption<Integer> keepIntervalOption = NetUtils.getTcpKeepIntervalSocketOptionOrNull();
+                    final ChannelOption<Integer> keepIntervalOption = nativeTransport.keepIntervalOption();
                     if (keepIntervalOption != null) {
-                        serverBootstrap.childOption(NioChannelOption.of(keepIntervalOption), profileSettings.tcpKeepInterval);
+                        serverBootstrap.childOption(keepIntervalOption, profileSettings.tcpKeepInterval);
                     }
 
                 }
                 if (profileSettings.tcpKeepCount >= 0) {
-                    final SocketOption<Integer> keepCountOption = NetUtils.getTcpKeepCountSocketOptionOrNull();
+                    final ChannelOption<Integer> keepCountOption = nativeTransport.keepCountOption();
                     if (keepCountOption != null) {
-                        serverBootstrap.childOption(NioChannelOption.of(keepCountOption), profileSettings.tcpKeepCount);
+                        serverBootstrap.childOption(keepCountOption, profileSettings.tcpKeepCount);
                     }
                 }
             }
@@ -258,6 +268,9 @@ public class Netty4Transport extends TcpTransport {
 
         serverBootstrap.option(ChannelOption.SO_REUSEADDR, profileSettings.reuseAddress);
         serverBootstrap.childOption(ChannelOption.SO_REUSEADDR, profileSettings.reuseAddress);
+        if (acceptorCount() > 1) {
+            nativeTransport.enableReusePort(serverBootstrap);
+        }
         serverBootstrap.validate();
 
         serverBootstraps.put(name, serverBootstrap);
@@ -297,12 +310,44 @@ public class Netty4Transport extends TcpTransport {
 
     @Override
     protected Netty4TcpServerChannel bind(String name, InetSocketAddress address) {
-        Channel channel = serverBootstraps.get(name).bind(address).syncUninterruptibly().channel();
+        final ServerBootstrap serverBootstrap = serverBootstraps.get(name);
+        Channel channel = serverBootstrap.bind(address).syncUninterruptibly().channel();
         Netty4TcpServerChannel esChannel = new Netty4TcpServerChannel(channel);
         channel.attr(SERVER_CHANNEL_KEY).set(esChannel);
+        bindAdditionalAcceptors(serverBootstrap, channel, esChannel);
         return esChannel;
     }
 
+    /**
+     * Returns the number of server channels to bind per address, which is only ever more than one with the native transport.
+     */
+    private int acceptorCount() {
+        return nativeTransport.isEnabled() ? bossCount : 1;
+    }
+
+    /**
+     * Binds further server channels to the address the given channel has been bound to, each of which is registered with another event
+     * loop so that the kernel spreads accepting connections over them. They are closed together with the given channel.
+     */
+    private void bindAdditionalAcceptors(ServerBootstrap serverBootstrap, Channel channel, Netty4TcpServerChannel esChannel) {
+        final List<Channel> acceptors = new ArrayList<>();
+        try {
+            for (int i = 1; i < acceptorCount(); i++) {
+                final Channel acceptor = serverBootstrap.bind(channel.localAddress()).syncUninterruptibly().channel();
+                acceptor.attr(SERVER_CHANNEL_KEY).set(esChannel);
+                acceptors.add(acceptor);
+            }
+        } catch (RuntimeException e) {
+            acceptors.forEach(Channel::close);
+            channel.close();
+            throw e;
+        }
+        if (acceptors.isEmpty() == false) {
+            channel.closeFuture().addListener(f -> acceptors.forEach(Channel::close));
+            logger.debug("bound [{}] acceptors to [{}]", acceptors.size() + 1, channel.localAddress());
+        }
+    }
+
     @Override
     @SuppressForbidden(reason = "debug")
     protected void stopInternal() {
@@ -27,18 +27,26 @@ import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.codec.http.QueryStringDecoder;
+import org.elasticsearch.common.CheckedConsumer;
 import org.elasticsearch.common.Randomness;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.http.HttpPipelinedRequest;
+import org.elasticsearch.rest.BytesRestResponse;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.test.ESTestCase;
 import org.junit.After;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -56,6 +64,7 @@ import java.util.stream.IntStream;
 
 import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_LENGTH;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.core.Is.is;
 
 public class Netty4HttpPipeliningHandlerTests extends ESTestCase {
@@ -90,8 +99,8 @@ public class Netty4HttpPipeliningHandlerTests extends ESTestCase {
 
     public void testThatPipeliningWorksWithFastSerializedRequests() throws InterruptedException {
         final int numberOfRequests = randomIntBetween(2, 128);
-        final EmbeddedChannel embeddedChannel = new EmbeddedChannel(new Netty4HttpPipeliningHandler(logger, numberOfRequests),
-            new WorkEmulatorHandler());
+        final EmbeddedChannel embeddedChannel = new EmbeddedChannel(
+            new Netty4HttpPipeliningHandler(logger, numberOfRequests, BigArrays.NON_RECYCLING_INSTANCE), new WorkEmulatorHandler());
 
         for (int i = 0; i < numberOfRequests; i++) {
             embeddedChannel.writeInbound(createHttpRequest("/" + String.valueOf(i)));
@@ -117,8 +126,8 @@ public class Netty4HttpPipeliningHandlerTests extends ESTestCase {
 
     public void testThatPipeliningWorksWhenSlowRequestsInDifferentOrder() throws InterruptedException {
         final int numberOfRequests = randomIntBetween(2, 128);
-        final EmbeddedChannel embeddedChannel = new EmbeddedChannel(new Netty4HttpPipeliningHandler(logger, numberOfRequests),
-            new WorkEmulatorHandler());
+        final EmbeddedChannel embeddedChannel = new EmbeddedChannel(
+            new Netty4HttpPipeliningHandler(logger, numberOfRequests, BigArrays.NON_RECYCLING_INSTANCE), new WorkEmulatorHandler());
 
         for (int i = 0; i < numberOfRequests; i++) {
             embeddedChannel.writeInbound(createHttpRequest("/" + String.valueOf(i)));
@@ -147,8 +156,8 @@ public class Netty4HttpPipeliningHandlerTests extends ESTestCase {
 
     public void testThatPipeliningClosesConnectionWithTooManyEvents() throws InterruptedException {
         final int numberOfRequests = randomIntBetween(2, 128);
-        final EmbeddedChannel embeddedChannel = new EmbeddedChannel(new Netty4HttpPipeliningHandler(logger, numberOfRequests),
-            new WorkEmulatorHandler());
+        final EmbeddedChannel embeddedChannel = new EmbeddedChannel(
+            new Netty4HttpPipeliningHandler(logger, numberOfRequests, BigArrays.NON_RECYCLING_INSTANCE), new WorkEmulatorHandler());
 
         for (int i = 0; i < 1 + numberOfRequests + 1; i++) {
             embeddedChannel.writeInbound(createHttpRequest("/" + Integer.toString(i)));
@@ -176,7 +185,7 @@ public class Netty4HttpPipeliningHandlerTests extends ESTestCase {
     public void testPipeliningRequestsAreReleased() throws InterruptedException {
         final int numberOfRequests = 10;
         final EmbeddedChannel embeddedChannel =
-            new EmbeddedChannel(new Netty4HttpPipeliningHandler(logger, numberOfRequests + 1));
+            new EmbeddedChannel(new Netty4HttpPipeliningHandler(logger, numberOfRequests + 1, BigArrays.NON_RECYCLING_INSTANCE));
 
         for (int i = 0; i < numberOfRequests; i++) {
             embeddedChannel.writeInbound(createHttpRequest("/" + i));
@@ -208,6 +217,45 @@ public class Netty4HttpPipeliningHandlerTests extends ESTestCase {
         }
     }
 
+    public void testChunkedResponseIsStreamedInOrder() {
+        final EmbeddedChannel embeddedChannel =
+            new EmbeddedChannel(new Netty4HttpPipeliningHandler(logger, 2, BigArrays.NON_RECYCLING_INSTANCE));
+        embeddedChannel.writeInbound(createHttpRequest("/chunked"));
+        embeddedChannel.writeInbound(createHttpRequest("/full"));
+        final HttpPipelinedRequest<FullHttpRequest> chunkedRequest = embeddedChannel.readInbound();
+        final HttpPipelinedRequest<FullHttpRequest> fullRequest = embeddedChannel.readInbound();
+
+        // large enough to be split into several chunks, each of which fills the outbound buffer beyond its high watermark
+        final List<String> lines = new ArrayList<>();
+        for (int i = between(1, 400); i > 0; i--) {
+            lines.add(randomAlphaOfLength(1023) + "\n");
+        }
+        final ChannelPromise chunkedPromise = embeddedChannel.newPromise();
+        embeddedChannel.writeAndFlush(new Netty4HttpRequest(chunkedRequest.getRequest(), chunkedRequest.getSequence())
+            .createResponse(RestStatus.OK, ChunkedRestResponseBody.fromTextChunks(BytesRestResponse.TEXT_CONTENT_TYPE,
+                lines.stream().<CheckedConsumer<Writer, IOException>>map(line -> writer -> writer.write(line)).iterator())),
+            chunkedPromise);
+        final ChannelPromise fullPromise = embeddedChannel.newPromise();
+        embeddedChannel.writeAndFlush(new Netty4HttpRequest(fullRequest.getRequest(), fullRequest.getSequence())
+            .createResponse(RestStatus.OK, new BytesArray("full")), fullPromise);
+
+        final Object headers = embeddedChannel.readOutbound();
+        assertThat(headers, instanceOf(Netty4ChunkedHttpResponse.class));
+        assertTrue(HttpUtil.isTransferEncodingChunked((Netty4ChunkedHttpResponse) headers));
+        final StringBuilder body = new StringBuilder();
+        Object chunk;
+        do {
+            chunk = embeddedChannel.readOutbound();
+            assertThat(chunk, instanceOf(HttpContent.class));
+            body.append(((HttpContent) chunk).content().toString(StandardCharsets.UTF_8));
+        } while (chunk instanceof LastHttpContent == false);
+        assertEquals(String.join("", lines), body.toString());
+        assertTrue(chunkedPromise.isSuccess());
+
+        assertReadHttpMessageHasContent(embeddedChannel, "full");
+        assertTrue(fullPromise.isSuccess());
+        assertTrue(embeddedChannel.isOpen());
+    }
 
     private void assertReadHttpMessageHasContent(EmbeddedChannel embeddedChannel, String expectedContent) {
         FullHttpResponse response = (FullHttpResponse) embeddedChannel.outboundMessages().poll();
@@ -82,7 +82,7 @@ public class HttpReadWriteHandler implements NioChannelHandler {
         if (settings.isCorsEnabled()) {
             handlers.add(new NioCorsHandler(corsConfig));
         }
-        handlers.add(new NioHttpPipeliningHandler(transport.getLogger(), settings.getPipeliningMaxEvents()));
+        handlers.add(new NioHttpPipeliningHandler(transport.getLogger(), settings.getPipeliningMaxEvents(), transport.getBigArrays()));
 
         adaptor = new NettyAdaptor(handlers.toArray(new ChannelHandler[0]));
         adaptor.addCloseListener((v, e) -> nioHttpChannel.close());
@@ -112,15 +112,15 @@ public class HttpReadWriteHandler implements NioChannelHandler {
 
     @Override
     public WriteOperation createWriteOperation(SocketChannelContext context, Object message, BiConsumer<Void, Exception> listener) {
-        assert message instanceof NioHttpResponse : "This channel only supports messages that are of type: "
-            + NioHttpResponse.class + ". Found type: " + message.getClass() + ".";
-        return new HttpWriteOperation(context, (NioHttpResponse) message, listener);
+        assert message instanceof NioRestResponse : "This channel only supports messages that are of type: "
+            + NioRestResponse.class + ". Found type: " + message.getClass() + ".";
+        return new HttpWriteOperation(context, (NioRestResponse) message, listener);
     }
 
     @Override
     public List<FlushOperation> writeToBytes(WriteOperation writeOperation) {
-        assert writeOperation.getObject() instanceof NioHttpResponse : "This channel only supports messages that are of type: "
-            + NioHttpResponse.class + ". Found type: " + writeOperation.getObject().getClass() + ".";
+        assert writeOperation.getObject() instanceof NioRestResponse : "This channel only supports messages that are of type: "
+            + NioRestResponse.class + ". Found type: " + writeOperation.getObject().getClass() + ".";
         assert channelActive : "channelActive should have been called";
         --inFlightRequests;
         assert inFlightRequests >= 0 : "Inflight requests should never drop below zero, found: " + inFlightRequests;
@@ -27,10 +27,10 @@ import java.util.function.BiConsumer;
 public class HttpWriteOperation implements WriteOperation {
 
     private final SocketChannelContext channelContext;
-    private final NioHttpResponse response;
+    private final NioRestResponse response;
     private final BiConsumer<Void, Exception> listener;
 
-    HttpWriteOperation(SocketChannelContext channelContext, NioHttpResponse response, BiConsumer<Void, Exception> listener) {
+    HttpWriteOperation(SocketChannelContext channelContext, NioRestResponse response, BiConsumer<Void, Exception> listener) {
         this.channelContext = channelContext;
         this.response = response;
         this.listener = listener;
@@ -47,7 +47,7 @@ public class HttpWriteOperation implements WriteOperation {
     }
 
     @Override
-    public NioHttpResponse getObject() {
+    public NioRestResponse getObject() {
         return response;
     }
 }
@@ -19,25 +19,47 @@
 
 package org.elasticsearch.http.nio;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
 import io.netty.handler.codec.http.FullHttpRequest;
 import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.http.HttpPipelinedRequest;
 import org.elasticsearch.http.HttpPipeliningAggregator;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
 
 /**
  * Implements HTTP pipelining ordering, ensuring that responses are completely served in the same order as their corresponding requests.
+ * Chunked responses are serialized lazily, the next chunk only once the previous one has been flushed to the socket, and any responses
+ * that are ready while a chunked response is being written are held back until it completes.
  */
 public class NioHttpPipeliningHandler extends ChannelDuplexHandler {
 
+    /**
+     * The number of bytes after which a chunk of a chunked response is completed and written to the channel.
+     */
+    static final int CHUNK_SIZE_HINT = 128 * 1024;
+
     private final Logger logger;
-    private final HttpPipeliningAggregator<NioHttpResponse, NettyListener> aggregator;
+    private final BigArrays bigArrays;
+    private final HttpPipeliningAggregator<NioRestResponse, NettyListener> aggregator;
+
+    // responses that are ready to be written but have to wait for the chunked response that is currently being written
+    private final Queue<Tuple<NioRestResponse, NettyListener>> queuedWrites = new ArrayDeque<>();
+
+    private Tuple<NioChunkedHttpResponse, NettyListener> currentChunkedWrite;
 
     /**
      * Construct a new pipelining handler; this handler should be used downstream of HTTP decoding/aggregation.
@@ -45,9 +67,11 @@ public class NioHttpPipeliningHandler extends ChannelDuplexHandler {
      * @param logger        for logging unexpected errors
      * @param maxEventsHeld the maximum number of channel events that will be retained prior to aborting the channel connection; this is
      *                      required as events cannot queue up indefinitely
+     * @param bigArrays     to allocate the chunks of chunked responses from
      */
-    public NioHttpPipeliningHandler(Logger logger, final int maxEventsHeld) {
+    public NioHttpPipeliningHandler(Logger logger, final int maxEventsHeld, BigArrays bigArrays) {
         this.logger = logger;
+        this.bigArrays = bigArrays;
         this.aggregator = new HttpPipeliningAggregator<>(maxEventsHeld);
     }
 
@@ -60,15 +84,15 @@ public class NioHttpPipeliningHandler extends ChannelDuplexHandler {
 
     @Override
     public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise) {
-        assert msg instanceof NioHttpResponse : "Invalid message type: " + msg.getClass();
-        NioHttpResponse response = (NioHttpResponse) msg;
+        assert msg instanceof NioRestResponse : "Invalid message type: " + msg.getClass();
+        NioRestResponse response = (NioRestResponse) msg;
         boolean success = false;
         try {
             NettyListener listener = NettyListener.fromChannelPromise(promise);
-            List<Tuple<NioHttpResponse, NettyListener>> readyResponses = aggregator.write(response, listener);
+            List<Tuple<NioRestResponse, NettyListener>> readyResponses = aggregator.write(response, listener);
             success = true;
-            for (Tuple<NioHttpResponse, NettyListener> responseToWrite : readyResponses) {
-                ctx.write(responseToWrite.v1(), responseToWrite.v2());
+            for (Tuple<NioRestResponse, NettyListener> responseToWrite : readyResponses) {
+                doWrite(ctx, responseToWrite.v1(), responseToWrite.v2());
             }
         } catch (IllegalStateException e) {
             ctx.channel().close();
@@ -79,15 +103,80 @@ public class NioHttpPipeliningHandler extends ChannelDuplexHandler {
         }
     }
 
+    private void doWrite(ChannelHandlerContext ctx, NioRestResponse response, NettyListener listener) {
+        if (currentChunkedWrite != null) {
+            queuedWrites.add(new Tuple<>(response, listener));
+        } else if (response instanceof NioChunkedHttpResponse) {
+            currentChunkedWrite = new Tuple<>((NioChunkedHttpResponse) response, listener);
+            // writes the status line and headers, the body follows in chunks
+            ctx.write(response);
+            writeNextChunk(ctx);
+        } else {
+            ctx.write(response, listener);
+        }
+    }
+
+    /**
+     * Serializes and writes the next chunk of the current chunked response. Unless it is the last chunk, the chunk after it is written
+     * once this chunk has been flushed to the socket, so that only the chunk that the socket is draining is held in memory.
+     */
+    private void writeNextChunk(ChannelHandlerContext ctx) {
+        final Tuple<NioChunkedHttpResponse, NettyListener> chunkedWrite = currentChunkedWrite;
+        final NettyListener listener = chunkedWrite.v2();
+        final ChunkedRestResponseBody body = chunkedWrite.v1().body();
+        final ReleasableBytesReference bytes;
+        final boolean isLastChunk;
+        try {
+            bytes = body.encodeChunk(CHUNK_SIZE_HINT, bigArrays);
+            isLastChunk = body.isDone();
+        } catch (Exception e) {
+            // the status and headers have already been sent so the client can only learn about the failure by the channel being closed
+            logger.warn("failed to serialize chunk of http response", e);
+            listener.tryFailure(e);
+            ctx.channel().close();
+            return;
+        }
+        final ByteBuf content = ByteBufUtils.toByteBuf(bytes);
+        if (isLastChunk) {
+            listener.addListener(f -> bytes.close());
+            ctx.write(new DefaultLastHttpContent(content), listener);
+            finishChunkedWrite(ctx);
+        } else {
+            ctx.write(new DefaultHttpContent(content)).addListener(f -> {
+                bytes.close();
+                if (f.isSuccess() == false) {
+                    listener.tryFailure(f.cause());
+                } else if (currentChunkedWrite == chunkedWrite) {
+                    writeNextChunk(ctx);
+                }
+            });
+        }
+        ctx.flush();
+    }
+
+    private void finishChunkedWrite(ChannelHandlerContext ctx) {
+        currentChunkedWrite = null;
+        Tuple<NioRestResponse, NettyListener> queuedWrite;
+        while (currentChunkedWrite == null && (queuedWrite = queuedWrites.poll()) != null) {
+            doWrite(ctx, queuedWrite.v1(), queuedWrite.v2());
+        }
+    }
+
     @Override
     public void close(ChannelHandlerContext ctx, ChannelPromise promise) {
-        List<Tuple<NioHttpResponse, NettyListener>> inflightResponses = aggregator.removeAllInflightResponses();
+        List<Tuple<NioRestResponse, NettyListener>> inflightResponses = new ArrayList<>(aggregator.removeAllInflightResponses());
+        inflightResponses.addAll(queuedWrites);
+        queuedWrites.clear();
+        if (currentChunkedWrite != null) {
+            inflightResponses.add(new Tuple<>(currentChunkedWrite.v1(), currentChunkedWrite.v2()));
+            currentChunkedWrite = null;
+        }
 
         if (inflightResponses.isEmpty() == false) {
             ClosedChannelException closedChannelException = new ClosedChannelException();
-            for (Tuple<NioHttpResponse, NettyListener> inflightResponse : inflightResponses) {
+            for (Tuple<NioRestResponse, NettyListener> inflightResponse : inflightResponses) {
                 try {
-                    inflightResponse.v2().setFailure(closedChannelException);
+                    inflightResponse.v2().tryFailure(closedChannelException);
                 } catch (RuntimeException e) {
                     logger.error("unexpected error while releasing pipelined http responses", e);
                 }
@@ -32,6 +32,7 @@ import io.netty.handler.codec.http.cookie.ServerCookieDecoder;
 import io.netty.handler.codec.http.cookie.ServerCookieEncoder;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.http.HttpRequest;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestStatus;
 
@@ -188,6 +189,11 @@ public class NioHttpRequest implements HttpRequest {
         return new NioHttpResponse(this, status, content);
     }
 
+    @Override
+    public NioChunkedHttpResponse createResponse(RestStatus status, ChunkedRestResponseBody content) {
+        return new NioChunkedHttpResponse(this, status, content);
+    }
+
     public FullHttpRequest nettyRequest() {
         return request;
     }
@@ -22,11 +22,9 @@ package org.elasticsearch.http.nio;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import org.elasticsearch.common.bytes.BytesReference;
-import org.elasticsearch.http.HttpPipelinedMessage;
-import org.elasticsearch.http.HttpResponse;
 import org.elasticsearch.rest.RestStatus;
 
-public class NioHttpResponse extends DefaultFullHttpResponse implements HttpResponse, HttpPipelinedMessage {
+public class NioHttpResponse extends DefaultFullHttpResponse implements NioRestResponse {
 
     private final int sequence;
     private final NioHttpRequest request;
@@ -52,6 +50,7 @@ public class NioHttpResponse extends DefaultFullHttpResponse implements HttpResp
         return sequence;
     }
 
+    @Override
     public NioHttpRequest getRequest() {
         return request;
     }
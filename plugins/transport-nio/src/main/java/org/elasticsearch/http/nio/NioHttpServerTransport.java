@@ -115,6 +115,10 @@ public class NioHttpServerTransport extends AbstractHttpServerTransport {
         return logger;
     }
 
+    public BigArrays getBigArrays() {
+        return bigArrays;
+    }
+
     @Override
     protected void doStart() {
         boolean success = false;
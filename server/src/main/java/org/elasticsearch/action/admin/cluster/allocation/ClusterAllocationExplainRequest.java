@@ -19,6 +19,7 @@
 
 package org.elasticsearch.action.admin.cluster.allocation;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionRequestValidationException;
 import org.elasticsearch.action.support.master.MasterNodeRequest;
 import org.elasticsearch.common.Nullable;
@@ -55,6 +56,7 @@ public class ClusterAllocationExplainRequest extends MasterNodeRequest<ClusterAl
     private String currentNode;
     private boolean includeYesDecisions = false;
     private boolean includeDiskInfo = false;
+    private boolean includeDeciderStats = false;
 
     /**
      * Create a new allocation explain request to explain any unassigned shard in the cluster.
@@ -74,6 +76,9 @@ public class ClusterAllocationExplainRequest extends MasterNodeRequest<ClusterAl
         this.currentNode = in.readOptionalString();
         this.includeYesDecisions = in.readBoolean();
         this.includeDiskInfo = in.readBoolean();
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            this.includeDeciderStats = in.readBoolean();
+        }
     }
 
     /**
@@ -99,6 +104,9 @@ public class ClusterAllocationExplainRequest extends MasterNodeRequest<ClusterAl
         out.writeOptionalString(currentNode);
         out.writeBoolean(includeYesDecisions);
         out.writeBoolean(includeDiskInfo);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeBoolean(includeDeciderStats);
+        }
     }
 
     @Override
@@ -223,6 +231,20 @@ public class ClusterAllocationExplainRequest extends MasterNodeRequest<ClusterAl
         return this.includeDiskInfo;
     }
 
+    /**
+     * Set to {@code true} to include how many decisions each allocation decider made and how long it took while explaining the shard.
+     */
+    public void includeDeciderStats(boolean includeDeciderStats) {
+        this.includeDeciderStats = includeDeciderStats;
+    }
+
+    /**
+     * Returns {@code true} if the number and duration of the decisions of each allocation decider should also be returned.
+     */
+    public boolean includeDeciderStats() {
+        return this.includeDeciderStats;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("ClusterAllocationExplainRequest[");
@@ -64,6 +64,12 @@ public class ClusterAllocationExplainRequestBuilder
         return this;
     }
 
+    /** Whether to include the number and duration of the decisions of each allocation decider */
+    public ClusterAllocationExplainRequestBuilder setIncludeDeciderStats(boolean includeDeciderStats) {
+        request.includeDeciderStats(includeDeciderStats);
+        return this;
+    }
+
     /**
      * Requests the explain API to explain an already assigned replica shard currently allocated to
      * the given node.
@@ -106,14 +106,16 @@ public class TransportClusterAllocationExplainAction
         logger.debug("explaining the allocation for [{}], found shard [{}]", request, shardRouting);
 
         ClusterAllocationExplanation cae = explainShard(shardRouting, allocation,
-            request.includeDiskInfo() ? clusterInfo : null, request.includeYesDecisions(), gatewayAllocator, shardAllocator);
+            request.includeDiskInfo() ? clusterInfo : null, request.includeYesDecisions(), request.includeDeciderStats(),
+            gatewayAllocator, shardAllocator);
         listener.onResponse(new ClusterAllocationExplainResponse(cae));
     }
 
     // public for testing
     public static ClusterAllocationExplanation explainShard(ShardRouting shardRouting, RoutingAllocation allocation,
                                                             ClusterInfo clusterInfo, boolean includeYesDecisions,
-                                                            GatewayAllocator gatewayAllocator, ShardsAllocator shardAllocator) {
+                                                            boolean includeDeciderStats, GatewayAllocator gatewayAllocator,
+                                                            ShardsAllocator shardAllocator) {
         allocation.setDebugMode(includeYesDecisions ? DebugMode.ON : DebugMode.EXCLUDE_YES_DECISIONS);
 
         ShardAllocationDecision shardDecision;
@@ -132,7 +134,7 @@ public class TransportClusterAllocationExplainAction
         return new ClusterAllocationExplanation(shardRouting,
             shardRouting.currentNodeId() != null ? allocation.nodes().get(shardRouting.currentNodeId()) : null,
             shardRouting.relocatingNodeId() != null ? allocation.nodes().get(shardRouting.relocatingNodeId()) : null,
-            clusterInfo, shardDecision);
+            clusterInfo, shardDecision, includeDeciderStats ? allocation.deciderStats() : null);
     }
 
     // public for testing
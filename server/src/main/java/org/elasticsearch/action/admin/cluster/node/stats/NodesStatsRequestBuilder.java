@@ -149,4 +149,12 @@ public class NodesStatsRequestBuilder
         return this;
     }
 
+    /**
+     * Should repositories statistics be returned.
+     */
+    public NodesStatsRequestBuilder setRepositories(boolean repositories) {
+        request.repositories(repositories);
+        return this;
+    }
+
 }
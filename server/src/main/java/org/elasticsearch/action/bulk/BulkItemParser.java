@@ -0,0 +1,281 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.SourceToParse;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Parses the index requests of a {@link BulkShardRequest} on the primary ahead of their execution, using additional threads of the
+ * write thread pool. Only parsing happens concurrently: the items are still executed one after the other by
+ * {@link TransportShardBulkAction}, so that sequence numbers are assigned and versions are checked in the order of the request.
+ *
+ * Items are claimed by whoever gets to them first so that each document is parsed at most once ahead of time. The thread that executes
+ * the bulk request never waits for an item that hasn't been claimed yet, it parses such items itself as usual. A pre-parsed document is
+ * only used if the mapping didn't change since it was parsed and if it doesn't require a mapping update, otherwise the document is
+ * parsed again by the regular execution path.
+ *
+ * Documents are only parsed up to a few items ahead of the item that is executed, so that a mapping update does not invalidate the
+ * parsing of the whole remainder of the request and parsed documents do not pile up in memory. Parsing threads return to the pool once
+ * they reach the end of that window and are forked again as the execution moves on.
+ */
+final class BulkItemParser {
+
+    private static final Logger logger = LogManager.getLogger(BulkItemParser.class);
+
+    private static final int UNCLAIMED = 0;
+    private static final int PARSING = 1;
+    private static final int PARSED = 2;
+    private static final int SKIPPED = 3;
+
+    // the number of items that each parsing thread may parse ahead of the item that is executed
+    static final int ITEMS_AHEAD_PER_THREAD = 4;
+
+    private final IndexRequest[] requests;
+    private final MapperService mapperService;
+    private final Executor executor;
+    private final int maxThreads;
+    private final int window;
+    private final AtomicIntegerArray states;
+    private final AtomicInteger nextItem = new AtomicInteger();
+    private final AtomicInteger activeThreads = new AtomicInteger();
+    private final DocumentMapper[] mappers;
+    private final ParsedDocument[] documents;
+    private final long[] parseTimesInNanos;
+    // the index of the first item that has not been executed yet, only written by the executing thread
+    private volatile int executingItem;
+
+    private BulkItemParser(IndexRequest[] requests, MapperService mapperService, int maxThreads, Executor executor) {
+        this.requests = requests;
+        this.mapperService = mapperService;
+        this.executor = executor;
+        this.maxThreads = maxThreads;
+        this.window = maxThreads * ITEMS_AHEAD_PER_THREAD;
+        this.states = new AtomicIntegerArray(requests.length);
+        this.mappers = new DocumentMapper[requests.length];
+        this.documents = new ParsedDocument[requests.length];
+        this.parseTimesInNanos = new long[requests.length];
+    }
+
+    /**
+     * Starts parsing the index requests of the given shard-level bulk request on up to {@code parallelism - 1} threads of the given
+     * executor, or returns {@code null} if the request doesn't benefit from parsing documents concurrently. Each thread parses at most
+     * {@link #ITEMS_AHEAD_PER_THREAD} items ahead of the item that is executed.
+     */
+    @Nullable
+    static BulkItemParser start(BulkShardRequest request, MapperService mapperService, int parallelism, Executor executor) {
+        // items are replaced as they are executed so we capture the index requests upfront
+        final BulkItemRequest[] items = request.items();
+        final IndexRequest[] requests = new IndexRequest[items.length];
+        int numIndexRequests = 0;
+        for (int i = 0; i < items.length; i++) {
+            if (isIndexRequest(items[i])) {
+                requests[i] = (IndexRequest) items[i].request();
+                numIndexRequests++;
+            }
+        }
+        // the executing thread parses at least one document itself
+        final int numForks = Math.min(parallelism - 1, numIndexRequests - 1);
+        if (numForks <= 0 || mapperService.documentMapper() == null) {
+            return null;
+        }
+        final BulkItemParser parser = new BulkItemParser(requests, mapperService, numForks, executor);
+        parser.maybeFork();
+        return parser;
+    }
+
+    /**
+     * Forks parsing threads as long as there are unclaimed items within the window ahead of the executing item.
+     */
+    private void maybeFork() {
+        while (hasItemsToParse()) {
+            final int active = activeThreads.get();
+            if (active >= maxThreads) {
+                return;
+            }
+            if (activeThreads.compareAndSet(active, active + 1)) {
+                executor.execute(new AbstractRunnable() {
+                    @Override
+                    protected void doRun() {
+                        parseItems();
+                    }
+
+                    @Override
+                    public void onRejection(Exception e) {
+                        activeThreads.decrementAndGet();
+                        // the executing thread will parse the documents
+                        cancel();
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        assert false : e;
+                        logger.warn("failed to parse bulk items", e);
+                    }
+                });
+            }
+        }
+    }
+
+    private boolean hasItemsToParse() {
+        final int next = nextItem.get();
+        return next < requests.length && next < executingItem + window;
+    }
+
+    private static boolean isIndexRequest(BulkItemRequest item) {
+        // aborted items are not executed, and updates need to fetch the current document before they can be parsed
+        final DocWriteRequest<?> request = item.request();
+        final BulkItemResponse response = item.getPrimaryResponse();
+        return (response == null || response.isFailed() == false || response.getFailure().isAborted() == false)
+            && (request.opType() == DocWriteRequest.OpType.INDEX || request.opType() == DocWriteRequest.OpType.CREATE);
+    }
+
+    private void parseItems() {
+        try {
+            int i;
+            while ((i = claimNextItem()) >= 0) {
+                final IndexRequest request = requests[i];
+                if (request != null && states.compareAndSet(i, UNCLAIMED, PARSING)) {
+                    final long startTime = System.nanoTime();
+                    try {
+                        final DocumentMapper mapper = mapperService.documentMapper();
+                        documents[i] = mapper.parse(new SourceToParse(request.index(), request.id(), request.source(),
+                            request.getContentType(), request.routing()));
+                        mappers[i] = mapper;
+                        parseTimesInNanos[i] = System.nanoTime() - startTime;
+                    } catch (Exception e) {
+                        // the document is parsed again by the executing thread which takes care of reporting the failure
+                        logger.trace(() -> new ParameterizedMessage("failed to parse document [{}] ahead of execution",
+                            request.id()), e);
+                    }
+                    synchronized (this) {
+                        states.set(i, PARSED);
+                        notifyAll();
+                    }
+                }
+            }
+        } finally {
+            activeThreads.decrementAndGet();
+        }
+        // the execution may have moved on while this thread was returning
+        maybeFork();
+    }
+
+    /**
+     * @return the index of the next item to parse, or {@code -1} if there are no items left within the window ahead of the executing item
+     */
+    private int claimNextItem() {
+        while (true) {
+            final int next = nextItem.get();
+            if (next >= requests.length || next >= executingItem + window) {
+                return -1;
+            }
+            if (nextItem.compareAndSet(next, next + 1)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Returns the pre-parsed document of the item with the given index if it is still valid for the current mapping, waiting for it if
+     * it is being parsed by another thread, or {@code null} if the document has to be parsed by the caller. Each item can only be taken
+     * once. Taking an item moves the window of items that are parsed ahead of time past it.
+     */
+    @Nullable
+    PreParsedDocument take(int index) {
+        executingItem = index + 1;
+        maybeFork();
+        if (states.compareAndSet(index, UNCLAIMED, SKIPPED)) {
+            return null;
+        }
+        if (states.get(index) == PARSING) {
+            synchronized (this) {
+                boolean interrupted = false;
+                while (states.get(index) == PARSING) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        if (states.compareAndSet(index, PARSED, SKIPPED) == false) {
+            return null;
+        }
+        final ParsedDocument document = documents[index];
+        final DocumentMapper mapper = mappers[index];
+        documents[index] = null;
+        mappers[index] = null;
+        if (document == null || mapper != mapperService.documentMapper() || document.dynamicMappingsUpdate() != null) {
+            return null;
+        }
+        return new PreParsedDocument(document, parseTimesInNanos[index]);
+    }
+
+    /**
+     * Stops parsing documents ahead of time, for instance because the remaining items of the request are failed.
+     */
+    void cancel() {
+        nextItem.set(requests.length);
+    }
+
+    /**
+     * A document that was parsed ahead of its execution, along with the time it took to parse it.
+     */
+    static final class PreParsedDocument {
+
+        private final ParsedDocument document;
+        private final long parseTimeInNanos;
+
+        private PreParsedDocument(ParsedDocument document, long parseTimeInNanos) {
+            this.document = document;
+            this.parseTimeInNanos = parseTimeInNanos;
+        }
+
+        ParsedDocument document() {
+            return document;
+        }
+
+        /**
+         * @return the start time of the operation, as if the document had been parsed right before its execution, so that the time
+         * spent parsing the document counts towards the time of the index operation
+         */
+        long startTimeInNanos() {
+            return System.nanoTime() - parseTimeInNanos;
+        }
+    }
+}
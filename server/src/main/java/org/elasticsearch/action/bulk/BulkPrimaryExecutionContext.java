@@ -25,6 +25,7 @@ import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.support.replication.ReplicationResponse;
 import org.elasticsearch.action.support.replication.TransportWriteAction;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.translog.Translog;
@@ -68,6 +69,8 @@ class BulkPrimaryExecutionContext {
 
     private final BulkShardRequest request;
     private final IndexShard primary;
+    @Nullable
+    private final BulkItemParser parser;
     private Translog.Location locationToSync = null;
     private int currentIndex = -1;
 
@@ -78,8 +81,13 @@ class BulkPrimaryExecutionContext {
 
 
     BulkPrimaryExecutionContext(BulkShardRequest request, IndexShard primary) {
+        this(request, primary, null);
+    }
+
+    BulkPrimaryExecutionContext(BulkShardRequest request, IndexShard primary, @Nullable BulkItemParser parser) {
         this.request = request;
         this.primary = primary;
+        this.parser = parser;
         advance();
     }
 
@@ -167,6 +175,23 @@ class BulkPrimaryExecutionContext {
     }
 
 
+    /**
+     * returns the document of the current request if it has been parsed ahead of time and is still valid for the current mapping, or
+     * {@code null} if the document still needs to be parsed
+     */
+    @Nullable
+    public BulkItemParser.PreParsedDocument takePreParsedDocument() {
+        assert assertInvariants(ItemProcessingState.TRANSLATED);
+        return parser == null ? null : parser.take(currentIndex);
+    }
+
+    /** stops parsing the documents of the remaining requests ahead of time */
+    public void cancelParsing() {
+        if (parser != null) {
+            parser.cancel();
+        }
+    }
+
     /** returns the name of the index the current request used */
     public String getConcreteIndex() {
         return getCurrentItem().index();
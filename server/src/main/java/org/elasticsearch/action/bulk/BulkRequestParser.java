@@ -71,13 +71,21 @@ public final class BulkRequestParser {
         this.errorOnType = errorOnType;
     }
 
-    private static int findNextMarker(byte marker, int from, BytesReference data) {
-        final int res = data.indexOf(marker, from);
+    private static int findNextMarker(byte marker, int from, BytesReference data, boolean lastData) {
+        return findNextMarker(marker, from, from, data, lastData);
+    }
+
+    /**
+     * Same as {@link #findNextMarker(byte, int, BytesReference, boolean)}, but starts searching at {@code searchFrom}, which skips the
+     * bytes from {@code from} that are known not to contain the marker.
+     */
+    private static int findNextMarker(byte marker, int from, int searchFrom, BytesReference data, boolean lastData) {
+        final int res = data.indexOf(marker, Math.max(from, searchFrom));
         if (res != -1) {
             assert res >= 0;
             return res;
         }
-        if (from != data.length()) {
+        if (from != data.length() && lastData) {
             throw new IllegalArgumentException("The bulk request must be terminated by a newline [\\n]");
         }
         return res;
@@ -111,29 +119,150 @@ public final class BulkRequestParser {
             BiConsumer<IndexRequest, String> indexRequestConsumer,
             Consumer<UpdateRequest> updateRequestConsumer,
             Consumer<DeleteRequest> deleteRequestConsumer) throws IOException {
-        XContent xContent = xContentType.xContent();
-        int line = 0;
-        int from = 0;
-        byte marker = xContent.streamSeparator();
-        while (true) {
-            int nextMarker = findNextMarker(marker, from, data);
-            if (nextMarker == -1) {
-                break;
+        incrementalParser(defaultIndex, defaultRouting, defaultFetchSourceContext, defaultPipeline, allowExplicitIndex, xContentType,
+            indexRequestConsumer, updateRequestConsumer, deleteRequestConsumer).parse(data, true);
+    }
+
+    /**
+     * Create a parser for a bulk request body that is received in several pieces, assuming the provided default values. Each call to
+     * {@link IncrementalParser#parse} parses the complete items at the start of the data it is given and passes them to the consumers
+     * like {@link #parse} does.
+     */
+    public IncrementalParser incrementalParser(
+            @Nullable String defaultIndex,
+            @Nullable String defaultRouting, @Nullable FetchSourceContext defaultFetchSourceContext,
+            @Nullable String defaultPipeline, boolean allowExplicitIndex,
+            XContentType xContentType,
+            BiConsumer<IndexRequest, String> indexRequestConsumer,
+            Consumer<UpdateRequest> updateRequestConsumer,
+            Consumer<DeleteRequest> deleteRequestConsumer) {
+        return new IncrementalParser(defaultIndex, defaultRouting, defaultFetchSourceContext, defaultPipeline, allowExplicitIndex,
+            xContentType, indexRequestConsumer, updateRequestConsumer, deleteRequestConsumer);
+    }
+
+    /**
+     * Parses a bulk request body piece by piece, keeping track of the line numbers across pieces.
+     */
+    public final class IncrementalParser {
+
+        @Nullable
+        private final String defaultIndex;
+        @Nullable
+        private final String defaultRouting;
+        @Nullable
+        private final FetchSourceContext defaultFetchSourceContext;
+        @Nullable
+        private final String defaultPipeline;
+        private final boolean allowExplicitIndex;
+        private final XContentType xContentType;
+        private final BiConsumer<IndexRequest, String> indexRequestConsumer;
+        private final Consumer<UpdateRequest> updateRequestConsumer;
+        private final Consumer<DeleteRequest> deleteRequestConsumer;
+
+        private int line = 0;
+        // the action line of an item whose source has not been received completely, which starts the data of the next call
+        @Nullable
+        private ItemMetadata pendingItem;
+        private int pendingItemLength;
+        // the number of bytes at the start of the data of the next call that have been searched for a marker without finding one
+        private int searchedBytes;
+
+        private IncrementalParser(
+                @Nullable String defaultIndex,
+                @Nullable String defaultRouting, @Nullable FetchSourceContext defaultFetchSourceContext,
+                @Nullable String defaultPipeline, boolean allowExplicitIndex,
+                XContentType xContentType,
+                BiConsumer<IndexRequest, String> indexRequestConsumer,
+                Consumer<UpdateRequest> updateRequestConsumer,
+                Consumer<DeleteRequest> deleteRequestConsumer) {
+            this.defaultIndex = defaultIndex;
+            this.defaultRouting = defaultRouting;
+            this.defaultFetchSourceContext = defaultFetchSourceContext;
+            this.defaultPipeline = defaultPipeline;
+            this.allowExplicitIndex = allowExplicitIndex;
+            this.xContentType = xContentType;
+            this.indexRequestConsumer = indexRequestConsumer;
+            this.updateRequestConsumer = updateRequestConsumer;
+            this.deleteRequestConsumer = deleteRequestConsumer;
+        }
+
+        /**
+         * Parse the complete items at the start of the provided {@code data}, which continues where the data of the previous call left
+         * off. Unless this is the {@code lastData} of the body, an incomplete item at the end of the data is left unparsed. The parser
+         * remembers how far it got into an incomplete item, so that the next call neither searches the same bytes for the end of the
+         * item again nor parses its action line again.
+         *
+         * @return the number of bytes at the start of the data that have been parsed, the remainder has to be passed to the next call
+         */
+        public int parse(BytesReference data, boolean lastData) throws IOException {
+            XContent xContent = xContentType.xContent();
+            int from = 0;
+            byte marker = xContent.streamSeparator();
+            int searchFrom = searchedBytes;
+            searchedBytes = 0;
+            while (true) {
+                final ItemMetadata item;
+                final int sourceFrom;
+                if (pendingItem != null) {
+                    // the action line at the start of the data has been parsed by the previous call already
+                    item = pendingItem;
+                    sourceFrom = pendingItemLength;
+                    pendingItem = null;
+                } else {
+                    int nextMarker = findNextMarker(marker, from, searchFrom, data, lastData);
+                    if (nextMarker == -1) {
+                        searchedBytes = data.length() - from;
+                        break;
+                    }
+                    line++;
+                    item = parseActionLine(xContent, data.slice(from, nextMarker - from));
+                    sourceFrom = nextMarker + 1;
+                    if (item == null) {
+                        from = sourceFrom;
+                        continue;
+                    }
+                }
+
+                if ("delete".equals(item.action)) {
+                    deleteRequestConsumer.accept(new DeleteRequest(item.index).id(item.id).routing(item.routing)
+                            .version(item.version).versionType(item.versionType)
+                            .setIfSeqNo(item.ifSeqNo).setIfPrimaryTerm(item.ifPrimaryTerm));
+                    from = sourceFrom;
+                } else {
+                    int nextMarker = findNextMarker(marker, sourceFrom, searchFrom, data, lastData);
+                    if (nextMarker == -1) {
+                        if (lastData == false) {
+                            // the source of this item hasn't been received yet, leave the action line to the next call
+                            pendingItem = item;
+                            pendingItemLength = sourceFrom - from;
+                            searchedBytes = data.length() - from;
+                        } else {
+                            from = sourceFrom;
+                        }
+                        break;
+                    }
+                    line++;
+                    addItem(xContent, item, data, sourceFrom, nextMarker);
+                    // move pointers
+                    from = nextMarker + 1;
+                }
             }
-            line++;
+            return from;
+        }
 
-            // now parse the action
+        /**
+         * Parses the given action line, or returns {@code null} if the line is empty.
+         */
+        @Nullable
+        private ItemMetadata parseActionLine(XContent xContent, BytesReference actionLine) throws IOException {
             // EMPTY is safe here because we never call namedObject
-            try (InputStream stream = data.slice(from, nextMarker - from).streamInput();
+            try (InputStream stream = actionLine.streamInput();
                     XContentParser parser = xContent
                             .createParser(NamedXContentRegistry.EMPTY, LoggingDeprecationHandler.INSTANCE, stream)) {
-                // move pointers
-                from = nextMarker + 1;
-
                 // Move to START_OBJECT
                 XContentParser.Token token = parser.nextToken();
                 if (token == null) {
-                    continue;
+                    return null;
                 }
                 if (token != XContentParser.Token.START_OBJECT) {
                     throw new IllegalArgumentException("Malformed action/metadata line [" + line + "], expected "
@@ -145,20 +274,7 @@ public final class BulkRequestParser {
                     throw new IllegalArgumentException("Malformed action/metadata line [" + line + "], expected "
                             + XContentParser.Token.FIELD_NAME + " but found [" + token + "]");
                 }
-                String action = parser.currentName();
-
-                String index = defaultIndex;
-                String type = null;
-                String id = null;
-                String routing = defaultRouting;
-                FetchSourceContext fetchSourceContext = defaultFetchSourceContext;
-                String opType = null;
-                long version = Versions.MATCH_ANY;
-                VersionType versionType = VersionType.INTERNAL;
-                long ifSeqNo = SequenceNumbers.UNASSIGNED_SEQ_NO;
-                long ifPrimaryTerm = UNASSIGNED_PRIMARY_TERM;
-                int retryOnConflict = 0;
-                String pipeline = defaultPipeline;
+                final ItemMetadata item = new ItemMetadata(parser.currentName());
 
                 // at this stage, next token can either be END_OBJECT (and use default index and type, with auto generated id)
                 // or START_OBJECT which will have another set of parameters
@@ -174,33 +290,33 @@ public final class BulkRequestParser {
                                 if (!allowExplicitIndex) {
                                     throw new IllegalArgumentException("explicit index in bulk is not allowed");
                                 }
-                                index = parser.text();
+                                item.index = parser.text();
                             } else if (TYPE.match(currentFieldName, parser.getDeprecationHandler())) {
                                 if (errorOnType) {
-                                    throw new IllegalArgumentException("Action/metadata line [" + line + "] contains an unknown parameter ["
-                                        + currentFieldName + "]");
+                                    throw new IllegalArgumentException("Action/metadata line [" + line
+                                        + "] contains an unknown parameter [" + currentFieldName + "]");
                                 }
-                                type = parser.text();
+                                item.type = parser.text();
                             } else if (ID.match(currentFieldName, parser.getDeprecationHandler())) {
-                                id = parser.text();
+                                item.id = parser.text();
                             } else if (ROUTING.match(currentFieldName, parser.getDeprecationHandler())) {
-                                routing = parser.text();
+                                item.routing = parser.text();
                             } else if (OP_TYPE.match(currentFieldName, parser.getDeprecationHandler())) {
-                                opType = parser.text();
+                                item.opType = parser.text();
                             } else if (VERSION.match(currentFieldName, parser.getDeprecationHandler())) {
-                                version = parser.longValue();
+                                item.version = parser.longValue();
                             } else if (VERSION_TYPE.match(currentFieldName, parser.getDeprecationHandler())) {
-                                versionType = VersionType.fromString(parser.text());
+                                item.versionType = VersionType.fromString(parser.text());
                             } else if (IF_SEQ_NO.match(currentFieldName, parser.getDeprecationHandler())) {
-                                ifSeqNo = parser.longValue();
+                                item.ifSeqNo = parser.longValue();
                             } else if (IF_PRIMARY_TERM.match(currentFieldName, parser.getDeprecationHandler())) {
-                                ifPrimaryTerm = parser.longValue();
+                                item.ifPrimaryTerm = parser.longValue();
                             } else if (RETRY_ON_CONFLICT.match(currentFieldName, parser.getDeprecationHandler())) {
-                                retryOnConflict = parser.intValue();
+                                item.retryOnConflict = parser.intValue();
                             } else if (PIPELINE.match(currentFieldName, parser.getDeprecationHandler())) {
-                                pipeline = parser.text();
+                                item.pipeline = parser.text();
                             } else if (SOURCE.match(currentFieldName, parser.getDeprecationHandler())) {
-                                fetchSourceContext = FetchSourceContext.fromXContent(parser);
+                                item.fetchSourceContext = FetchSourceContext.fromXContent(parser);
                             } else {
                                 throw new IllegalArgumentException("Action/metadata line [" + line + "] contains an unknown parameter ["
                                         + currentFieldName + "]");
@@ -210,7 +326,7 @@ public final class BulkRequestParser {
                                     "], expected a simple value for field [" + currentFieldName + "] but found [" + token + "]");
                         } else if (token == XContentParser.Token.START_OBJECT && SOURCE.match(currentFieldName,
                                 parser.getDeprecationHandler())) {
-                            fetchSourceContext = FetchSourceContext.fromXContent(parser);
+                            item.fetchSourceContext = FetchSourceContext.fromXContent(parser);
                         } else if (token != XContentParser.Token.VALUE_NULL) {
                             throw new IllegalArgumentException("Malformed action/metadata line [" + line
                                     + "], expected a simple value for field [" + currentFieldName + "] but found [" + token + "]");
@@ -218,67 +334,86 @@ public final class BulkRequestParser {
                     }
                 } else if (token != XContentParser.Token.END_OBJECT) {
                     throw new IllegalArgumentException("Malformed action/metadata line [" + line + "], expected "
-                            + XContentParser.Token.START_OBJECT + " or " + XContentParser.Token.END_OBJECT + " but found [" + token + "]");
+                            + XContentParser.Token.START_OBJECT + " or " + XContentParser.Token.END_OBJECT
+                            + " but found [" + token + "]");
                 }
+                return item;
+            }
+        }
 
-                if ("delete".equals(action)) {
-                    deleteRequestConsumer.accept(new DeleteRequest(index).id(id).routing(routing)
-                            .version(version).versionType(versionType).setIfSeqNo(ifSeqNo).setIfPrimaryTerm(ifPrimaryTerm));
+        /**
+         * Passes the index, create or update request of the given item, whose source is the data from {@code from} to the marker at
+         * {@code nextMarker}, to the corresponding consumer.
+         */
+        private void addItem(XContent xContent, ItemMetadata item, BytesReference data, int from, int nextMarker) throws IOException {
+            // we use internalAdd so we don't fork here, this allows us not to copy over the big byte array to small chunks
+            // of index request.
+            if ("index".equals(item.action)) {
+                if (item.opType == null) {
+                    indexRequestConsumer.accept(new IndexRequest(item.index).id(item.id).routing(item.routing)
+                            .version(item.version).versionType(item.versionType)
+                            .setPipeline(item.pipeline).setIfSeqNo(item.ifSeqNo).setIfPrimaryTerm(item.ifPrimaryTerm)
+                            .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType), item.type);
                 } else {
-                    nextMarker = findNextMarker(marker, from, data);
-                    if (nextMarker == -1) {
-                        break;
-                    }
-                    line++;
+                    indexRequestConsumer.accept(new IndexRequest(item.index).id(item.id).routing(item.routing)
+                            .version(item.version).versionType(item.versionType)
+                            .create("create".equals(item.opType)).setPipeline(item.pipeline)
+                            .setIfSeqNo(item.ifSeqNo).setIfPrimaryTerm(item.ifPrimaryTerm)
+                            .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType), item.type);
+                }
+            } else if ("create".equals(item.action)) {
+                indexRequestConsumer.accept(new IndexRequest(item.index).id(item.id).routing(item.routing)
+                        .version(item.version).versionType(item.versionType)
+                        .create(true).setPipeline(item.pipeline).setIfSeqNo(item.ifSeqNo).setIfPrimaryTerm(item.ifPrimaryTerm)
+                        .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType), item.type);
+            } else if ("update".equals(item.action)) {
+                if (item.version != Versions.MATCH_ANY || item.versionType != VersionType.INTERNAL) {
+                    throw new IllegalArgumentException("Update requests do not support versioning. " +
+                            "Please use `if_seq_no` and `if_primary_term` instead");
+                }
+                UpdateRequest updateRequest = new UpdateRequest().index(item.index).id(item.id).routing(item.routing)
+                        .retryOnConflict(item.retryOnConflict)
+                        .setIfSeqNo(item.ifSeqNo).setIfPrimaryTerm(item.ifPrimaryTerm)
+                        .routing(item.routing);
+                // EMPTY is safe here because we never call namedObject
+                try (InputStream dataStream = sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType).streamInput();
+                        XContentParser sliceParser = xContent.createParser(NamedXContentRegistry.EMPTY,
+                                LoggingDeprecationHandler.INSTANCE, dataStream)) {
+                    updateRequest.fromXContent(sliceParser);
+                }
+                if (item.fetchSourceContext != null) {
+                    updateRequest.fetchSource(item.fetchSourceContext);
+                }
+                IndexRequest upsertRequest = updateRequest.upsertRequest();
+                if (upsertRequest != null) {
+                    upsertRequest.setPipeline(defaultPipeline);
+                }
 
-                    // we use internalAdd so we don't fork here, this allows us not to copy over the big byte array to small chunks
-                    // of index request.
-                    if ("index".equals(action)) {
-                        if (opType == null) {
-                            indexRequestConsumer.accept(new IndexRequest(index).id(id).routing(routing)
-                                    .version(version).versionType(versionType)
-                                    .setPipeline(pipeline).setIfSeqNo(ifSeqNo).setIfPrimaryTerm(ifPrimaryTerm)
-                                    .source(sliceTrimmingCarriageReturn(data, from, nextMarker,xContentType), xContentType), type);
-                        } else {
-                            indexRequestConsumer.accept(new IndexRequest(index).id(id).routing(routing)
-                                    .version(version).versionType(versionType)
-                                    .create("create".equals(opType)).setPipeline(pipeline)
-                                    .setIfSeqNo(ifSeqNo).setIfPrimaryTerm(ifPrimaryTerm)
-                                    .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType), type);
-                        }
-                    } else if ("create".equals(action)) {
-                        indexRequestConsumer.accept(new IndexRequest(index).id(id).routing(routing)
-                                .version(version).versionType(versionType)
-                                .create(true).setPipeline(pipeline).setIfSeqNo(ifSeqNo).setIfPrimaryTerm(ifPrimaryTerm)
-                                .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType), type);
-                    } else if ("update".equals(action)) {
-                        if (version != Versions.MATCH_ANY || versionType != VersionType.INTERNAL) {
-                            throw new IllegalArgumentException("Update requests do not support versioning. " +
-                                    "Please use `if_seq_no` and `if_primary_term` instead");
-                        }
-                        UpdateRequest updateRequest = new UpdateRequest().index(index).id(id).routing(routing)
-                                .retryOnConflict(retryOnConflict)
-                                .setIfSeqNo(ifSeqNo).setIfPrimaryTerm(ifPrimaryTerm)
-                                .routing(routing);
-                        // EMPTY is safe here because we never call namedObject
-                        try (InputStream dataStream = sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType).streamInput();
-                                XContentParser sliceParser = xContent.createParser(NamedXContentRegistry.EMPTY,
-                                        LoggingDeprecationHandler.INSTANCE, dataStream)) {
-                            updateRequest.fromXContent(sliceParser);
-                        }
-                        if (fetchSourceContext != null) {
-                            updateRequest.fetchSource(fetchSourceContext);
-                        }
-                        IndexRequest upsertRequest = updateRequest.upsertRequest();
-                        if (upsertRequest != null) {
-                            upsertRequest.setPipeline(defaultPipeline);
-                        }
+                updateRequestConsumer.accept(updateRequest);
+            }
+        }
 
-                        updateRequestConsumer.accept(updateRequest);
-                    }
-                    // move pointers
-                    from = nextMarker + 1;
-                }
+        /**
+         * The action and metadata of an item, as parsed from its action line.
+         */
+        private final class ItemMetadata {
+
+            private final String action;
+            private String index = defaultIndex;
+            private String type = null;
+            private String id = null;
+            private String routing = defaultRouting;
+            private FetchSourceContext fetchSourceContext = defaultFetchSourceContext;
+            private String opType = null;
+            private long version = Versions.MATCH_ANY;
+            private VersionType versionType = VersionType.INTERNAL;
+            private long ifSeqNo = SequenceNumbers.UNASSIGNED_SEQ_NO;
+            private long ifPrimaryTerm = UNASSIGNED_PRIMARY_TERM;
+            private int retryOnConflict = 0;
+            private String pipeline = defaultPipeline;
+
+            private ItemMetadata(String action) {
+                this.action = action;
             }
         }
     }
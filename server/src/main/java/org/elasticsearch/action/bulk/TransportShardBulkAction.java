@@ -151,7 +151,12 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
 
             private final Executor executor = threadPool.executor(ThreadPool.Names.WRITE);
 
-            private final BulkPrimaryExecutionContext context = new BulkPrimaryExecutionContext(request, primary);
+            private final BulkPrimaryExecutionContext context = new BulkPrimaryExecutionContext(request, primary, startParsing());
+
+            private BulkItemParser startParsing() {
+                final int parallelism = primary.indexSettings().getBulkParsingParallelism();
+                return parallelism > 1 ? BulkItemParser.start(request, primary.mapperService(), parallelism, executor) : null;
+            }
 
             @Override
             protected void doRun() throws Exception {
@@ -176,6 +181,7 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
 
                     @Override
                     protected void doRun() {
+                        context.cancelParsing();
                         // Fail all operations after a bulk rejection hit an action that waited for a mapping update and finish the request
                         while (context.hasMoreOperationsToExecute()) {
                             context.setRequestToExecute(context.getCurrent());
@@ -196,6 +202,7 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
             }
 
             private void finishRequest() {
+                context.cancelParsing();
                 ActionListener.completeWith(listener,
                     () -> new WritePrimaryResult<>(
                         context.getBulkShardRequest(), context.buildShardResponse(), context.getLocationToSync(), null,
@@ -266,9 +273,17 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
                 request.ifSeqNo(), request.ifPrimaryTerm());
         } else {
             final IndexRequest request = context.getRequestToExecute();
-            result = primary.applyIndexOperationOnPrimary(version, request.versionType(), new SourceToParse(
-                    request.index(), request.id(), request.source(), request.getContentType(), request.routing()),
-                    request.ifSeqNo(), request.ifPrimaryTerm(), request.getAutoGeneratedTimestamp(), request.isRetry());
+            // documents of update requests are only known once the update has been translated
+            final BulkItemParser.PreParsedDocument parsedDocument = updateResult == null ? context.takePreParsedDocument() : null;
+            if (parsedDocument != null) {
+                result = primary.applyParsedIndexOperationOnPrimary(version, request.versionType(), parsedDocument.document(),
+                    parsedDocument.startTimeInNanos(), request.ifSeqNo(), request.ifPrimaryTerm(), request.getAutoGeneratedTimestamp(),
+                    request.isRetry());
+            } else {
+                result = primary.applyIndexOperationOnPrimary(version, request.versionType(), new SourceToParse(
+                        request.index(), request.id(), request.source(), request.getContentType(), request.routing()),
+                        request.ifSeqNo(), request.ifPrimaryTerm(), request.getAutoGeneratedTimestamp(), request.isRetry());
+            }
         }
         if (result.getResultType() == Engine.Result.Type.MAPPING_UPDATE_REQUIRED) {
 
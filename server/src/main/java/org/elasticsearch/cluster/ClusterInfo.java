@@ -21,6 +21,7 @@ package org.elasticsearch.cluster;
 
 import com.carrotsearch.hppc.cursors.ObjectObjectCursor;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -29,14 +30,16 @@ import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.index.shard.ShardId;
 
 import java.io.IOException;
 import java.util.Map;
 /**
- * ClusterInfo is an object representing a map of nodes to {@link DiskUsage}
- * and a map of shard ids to shard sizes, see
+ * ClusterInfo is an object representing a map of nodes to {@link DiskUsage},
+ * a map of shard ids to shard sizes, see
  * <code>InternalClusterInfoService.shardIdentifierFromRouting(String)</code>
- * for the key used in the shardSizes map
+ * for the key used in the shardSizes map, and a map of shard ids to the
+ * rate at which documents are written to each shard
  */
 public class ClusterInfo implements ToXContentFragment, Writeable {
     private final ImmutableOpenMap<String, DiskUsage> leastAvailableSpaceUsage;
@@ -44,6 +47,7 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
     final ImmutableOpenMap<String, Long> shardSizes;
     public static final ClusterInfo EMPTY = new ClusterInfo();
     final ImmutableOpenMap<ShardRouting, String> routingToDataPath;
+    final ImmutableOpenMap<ShardId, Double> shardWriteLoads;
 
     protected ClusterInfo() {
        this(ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of());
@@ -61,10 +65,27 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
     public ClusterInfo(ImmutableOpenMap<String, DiskUsage> leastAvailableSpaceUsage,
             ImmutableOpenMap<String, DiskUsage> mostAvailableSpaceUsage, ImmutableOpenMap<String, Long> shardSizes,
             ImmutableOpenMap<ShardRouting, String> routingToDataPath) {
+        this(leastAvailableSpaceUsage, mostAvailableSpaceUsage, shardSizes, routingToDataPath, ImmutableOpenMap.of());
+    }
+
+    /**
+     * Creates a new ClusterInfo instance.
+     *
+     * @param leastAvailableSpaceUsage a node id to disk usage mapping for the path that has the least available space on the node.
+     * @param mostAvailableSpaceUsage  a node id to disk usage mapping for the path that has the most available space on the node.
+     * @param shardSizes a shardkey to size in bytes mapping per shard.
+     * @param routingToDataPath the shard routing to datapath mapping
+     * @param shardWriteLoads a shard id to the number of documents written to the shard per second
+     * @see #shardIdentifierFromRouting
+     */
+    public ClusterInfo(ImmutableOpenMap<String, DiskUsage> leastAvailableSpaceUsage,
+            ImmutableOpenMap<String, DiskUsage> mostAvailableSpaceUsage, ImmutableOpenMap<String, Long> shardSizes,
+            ImmutableOpenMap<ShardRouting, String> routingToDataPath, ImmutableOpenMap<ShardId, Double> shardWriteLoads) {
         this.leastAvailableSpaceUsage = leastAvailableSpaceUsage;
         this.shardSizes = shardSizes;
         this.mostAvailableSpaceUsage = mostAvailableSpaceUsage;
         this.routingToDataPath = routingToDataPath;
+        this.shardWriteLoads = shardWriteLoads;
     }
 
     public ClusterInfo(StreamInput in) throws IOException {
@@ -81,6 +102,13 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
         this.shardSizes = sizeBuilder.putAll(sizeMap).build();
         ImmutableOpenMap.Builder<ShardRouting, String> routingBuilder = ImmutableOpenMap.builder();
         this.routingToDataPath = routingBuilder.putAll(routingMap).build();
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            Map<ShardId, Double> writeLoadMap = in.readMap(ShardId::new, StreamInput::readDouble);
+            ImmutableOpenMap.Builder<ShardId, Double> writeLoadBuilder = ImmutableOpenMap.builder();
+            this.shardWriteLoads = writeLoadBuilder.putAll(writeLoadMap).build();
+        } else {
+            this.shardWriteLoads = ImmutableOpenMap.of();
+        }
     }
 
     @Override
@@ -109,6 +137,13 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
             c.key.writeTo(out);
             out.writeString(c.value);
         }
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeVInt(this.shardWriteLoads.size());
+            for (ObjectObjectCursor<ShardId, Double> c : this.shardWriteLoads) {
+                c.key.writeTo(out);
+                out.writeDouble(c.value);
+            }
+        }
     }
 
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
@@ -144,6 +179,12 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
             }
         }
         builder.endObject(); // end "shard_paths"
+        builder.startObject("shard_write_loads"); {
+            for (ObjectObjectCursor<ShardId, Double> c : this.shardWriteLoads) {
+                builder.field(c.key.toString(), c.value);
+            }
+        }
+        builder.endObject(); // end "shard_write_loads"
         return builder;
     }
 
@@ -183,6 +224,14 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
         return shardSize == null ? defaultValue : shardSize;
     }
 
+    /**
+     * Returns the number of documents written to the given shard per second, or <code>null</code> if that metric is not available.
+     * This is the same for all copies of the shard since every document is written to each copy.
+     */
+    public Double getShardWriteLoad(ShardId shardId) {
+        return shardWriteLoads.get(shardId);
+    }
+
     /**
      * Method that incorporates the ShardId for the shard into a string that
      * includes a 'p' or 'r' depending on whether the shard is a primary.
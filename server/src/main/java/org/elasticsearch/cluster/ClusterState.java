@@ -41,6 +41,7 @@ import org.elasticsearch.cluster.routing.RoutingNodes;
 import org.elasticsearch.cluster.routing.RoutingTable;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.bytes.BytesArray;
@@ -141,6 +142,12 @@ public class ClusterState implements ToXContentFragment, Diffable<ClusterState>
     public ClusterState(ClusterName clusterName, long version, String stateUUID, MetaData metaData, RoutingTable routingTable,
                         DiscoveryNodes nodes, ClusterBlocks blocks, ImmutableOpenMap<String, Custom> customs,
                         boolean wasReadFromDiff) {
+        this(clusterName, version, stateUUID, metaData, routingTable, nodes, blocks, customs, wasReadFromDiff, null);
+    }
+
+    private ClusterState(ClusterName clusterName, long version, String stateUUID, MetaData metaData, RoutingTable routingTable,
+                         DiscoveryNodes nodes, ClusterBlocks blocks, ImmutableOpenMap<String, Custom> customs,
+                         boolean wasReadFromDiff, @Nullable RoutingNodes routingNodes) {
         this.version = version;
         this.stateUUID = stateUUID;
         this.clusterName = clusterName;
@@ -150,6 +157,7 @@ public class ClusterState implements ToXContentFragment, Diffable<ClusterState>
         this.blocks = blocks;
         this.customs = customs;
         this.wasReadFromDiff = wasReadFromDiff;
+        this.routingNodes = routingNodes;
     }
 
     public long term() {
@@ -590,6 +598,10 @@ public class ClusterState implements ToXContentFragment, Diffable<ClusterState>
         private ClusterBlocks blocks = ClusterBlocks.EMPTY_CLUSTER_BLOCK;
         private final ImmutableOpenMap.Builder<String, Custom> customs;
         private boolean fromDiff;
+        // read-only routing nodes that are known to match the routing table and nodes they were built from
+        private RoutingNodes routingNodes;
+        private RoutingTable routingNodesTable;
+        private DiscoveryNodes routingNodesNodes;
 
         public Builder(ClusterState state) {
             this.clusterName = state.clusterName;
@@ -601,6 +613,9 @@ public class ClusterState implements ToXContentFragment, Diffable<ClusterState>
             this.blocks = state.blocks();
             this.customs = ImmutableOpenMap.builder(state.customs());
             this.fromDiff = false;
+            this.routingNodes = state.routingNodes;
+            this.routingNodesTable = state.routingTable();
+            this.routingNodesNodes = state.nodes();
         }
 
         public Builder(ClusterName clusterName) {
@@ -626,6 +641,19 @@ public class ClusterState implements ToXContentFragment, Diffable<ClusterState>
             return this;
         }
 
+        /**
+         * Sets the routing table together with read-only routing nodes of exactly this routing table and the nodes of this builder,
+         * which saves building them again when they are needed. They are dropped if the routing table or the nodes change again.
+         */
+        public Builder routingTable(RoutingTable routingTable, RoutingNodes routingNodes) {
+            assert routingNodes.isReadOnly() : "routing nodes of a cluster state must be read-only";
+            this.routingTable = routingTable;
+            this.routingNodes = routingNodes;
+            this.routingNodesTable = routingTable;
+            this.routingNodesNodes = nodes;
+            return this;
+        }
+
         public Builder metaData(MetaData.Builder metaDataBuilder) {
             return metaData(metaDataBuilder.build());
         }
@@ -685,7 +713,10 @@ public class ClusterState implements ToXContentFragment, Diffable<ClusterState>
             if (UNKNOWN_UUID.equals(uuid)) {
                 uuid = UUIDs.randomBase64UUID();
             }
-            return new ClusterState(clusterName, version, uuid, metaData, routingTable, nodes, blocks, customs.build(), fromDiff);
+            // routing nodes depend only on the routing table and nodes, so they can be carried over as long as these stay the same
+            final RoutingNodes routingNodes = routingTable == routingNodesTable && nodes == routingNodesNodes ? this.routingNodes : null;
+            return new ClusterState(clusterName, version, uuid, metaData, routingTable, nodes, blocks, customs.build(), fromDiff,
+                routingNodes);
         }
 
         public static byte[] toBytes(ClusterState state) throws IOException {
@@ -44,11 +44,16 @@ import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.shard.IndexingStats;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.monitor.fs.FsInfo;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.ReceiveTimeoutTransportException;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -63,7 +68,8 @@ import java.util.function.Consumer;
  * ClusterInfoUpdateJob if a node has been added.
  *
  * Every time the timer runs, gathers information about the disk usage and
- * shard sizes across the cluster.
+ * shard sizes across the cluster, and derives the rate at which documents
+ * are written to each shard from the indexing stats of consecutive runs.
  */
 public class InternalClusterInfoService implements ClusterInfoService, LocalNodeMasterListener, ClusterStateListener {
 
@@ -76,12 +82,20 @@ public class InternalClusterInfoService implements ClusterInfoService, LocalNode
         Setting.positiveTimeSetting("cluster.info.update.timeout", TimeValue.timeValueSeconds(15),
             Property.Dynamic, Property.NodeScope);
 
+    /**
+     * The weight of the latest write rate of a shard relative to its previous write load.
+     */
+    static final double WRITE_LOAD_SMOOTHING_FACTOR = 0.5;
+
     private volatile TimeValue updateFrequency;
 
     private volatile ImmutableOpenMap<String, DiskUsage> leastAvailableSpaceUsages;
     private volatile ImmutableOpenMap<String, DiskUsage> mostAvailableSpaceUsages;
     private volatile ImmutableOpenMap<ShardRouting, String> shardRoutingToDataPath;
     private volatile ImmutableOpenMap<String, Long> shardSizes;
+    private volatile ImmutableOpenMap<ShardId, Double> shardWriteLoads;
+    // the indexing stats of each shard copy as of the last refresh, by allocation id, guarded by this
+    private Map<String, IndexingSample> indexingSamples = Collections.emptyMap();
     private volatile boolean isMaster = false;
     private volatile boolean enabled;
     private volatile TimeValue fetchTimeout;
@@ -95,6 +109,7 @@ public class InternalClusterInfoService implements ClusterInfoService, LocalNode
         this.mostAvailableSpaceUsages = ImmutableOpenMap.of();
         this.shardRoutingToDataPath = ImmutableOpenMap.of();
         this.shardSizes = ImmutableOpenMap.of();
+        this.shardWriteLoads = ImmutableOpenMap.of();
         this.clusterService = clusterService;
         this.threadPool = threadPool;
         this.client = client;
@@ -200,7 +215,8 @@ public class InternalClusterInfoService implements ClusterInfoService, LocalNode
 
     @Override
     public ClusterInfo getClusterInfo() {
-        return new ClusterInfo(leastAvailableSpaceUsages, mostAvailableSpaceUsages, shardSizes, shardRoutingToDataPath);
+        return new ClusterInfo(leastAvailableSpaceUsages, mostAvailableSpaceUsages, shardSizes, shardRoutingToDataPath,
+            shardWriteLoads);
     }
 
     /**
@@ -259,6 +275,7 @@ public class InternalClusterInfoService implements ClusterInfoService, LocalNode
         final IndicesStatsRequest indicesStatsRequest = new IndicesStatsRequest();
         indicesStatsRequest.clear();
         indicesStatsRequest.store(true);
+        indicesStatsRequest.indexing(true);
         indicesStatsRequest.indicesOptions(IndicesOptions.STRICT_EXPAND_OPEN_CLOSED);
 
         client.admin().indices().stats(indicesStatsRequest, new LatchedActionListener<>(listener, latch));
@@ -327,6 +344,7 @@ public class InternalClusterInfoService implements ClusterInfoService, LocalNode
                 buildShardLevelInfo(logger, stats, newShardSizes, newShardRoutingToDataPath);
                 shardSizes = newShardSizes.build();
                 shardRoutingToDataPath = newShardRoutingToDataPath.build();
+                updateShardWriteLoads(stats, threadPool.relativeTimeInNanos());
             }
 
             @Override
@@ -344,6 +362,7 @@ public class InternalClusterInfoService implements ClusterInfoService, LocalNode
                     // we empty the usages list, to be safe - we don't know what's going on.
                     shardSizes = ImmutableOpenMap.of();
                     shardRoutingToDataPath = ImmutableOpenMap.of();
+                    clearShardWriteLoads();
                 }
             }
         });
@@ -396,6 +415,79 @@ public class InternalClusterInfoService implements ClusterInfoService, LocalNode
         }
     }
 
+    private synchronized void updateShardWriteLoads(ShardStats[] stats, long nowInNanos) {
+        final Map<String, IndexingSample> newIndexingSamples = new HashMap<>();
+        shardWriteLoads = buildShardWriteLoads(logger, stats, nowInNanos, indexingSamples, shardWriteLoads, newIndexingSamples);
+        indexingSamples = newIndexingSamples;
+    }
+
+    private synchronized void clearShardWriteLoads() {
+        shardWriteLoads = ImmutableOpenMap.of();
+        indexingSamples = Collections.emptyMap();
+    }
+
+    /**
+     * Computes the number of documents written to each shard per second from the number of documents indexed into its copies since the
+     * previous samples were taken. Each new rate is averaged with the previous write load of the shard, so that a single burst of
+     * indexing does not move shards around. Shards that were not sampled before keep their previous write load, if any, which is the
+     * case for copies that just finished relocating. The new samples are added to the given map.
+     */
+    static ImmutableOpenMap<ShardId, Double> buildShardWriteLoads(Logger logger, ShardStats[] stats, long nowInNanos,
+                                                                  Map<String, IndexingSample> previousSamples,
+                                                                  ImmutableOpenMap<ShardId, Double> previousWriteLoads,
+                                                                  Map<String, IndexingSample> newSamples) {
+        final Map<ShardId, Double> rates = new HashMap<>();
+        for (ShardStats s : stats) {
+            final ShardRouting shardRouting = s.getShardRouting();
+            final IndexingStats indexingStats = s.getStats().getIndexing();
+            if (indexingStats == null || shardRouting.allocationId() == null) {
+                continue;
+            }
+            final long indexCount = indexingStats.getTotal().getIndexCount();
+            final String allocationId = shardRouting.allocationId().getId();
+            newSamples.put(allocationId, new IndexingSample(indexCount, nowInNanos));
+            final IndexingSample previousSample = previousSamples.get(allocationId);
+            if (previousSample != null && indexCount >= previousSample.indexCount && nowInNanos > previousSample.timeInNanos) {
+                // every document is written to all copies of a shard, but take the highest rate since the copies are sampled separately
+                final double rate = (indexCount - previousSample.indexCount) * (double) TimeUnit.SECONDS.toNanos(1)
+                    / (nowInNanos - previousSample.timeInNanos);
+                rates.merge(shardRouting.shardId(), rate, Math::max);
+            } else if (previousWriteLoads.containsKey(shardRouting.shardId())) {
+                rates.putIfAbsent(shardRouting.shardId(), null);
+            }
+        }
+        final ImmutableOpenMap.Builder<ShardId, Double> writeLoads = ImmutableOpenMap.builder(rates.size());
+        for (Map.Entry<ShardId, Double> entry : rates.entrySet()) {
+            final Double previousWriteLoad = previousWriteLoads.get(entry.getKey());
+            final double writeLoad;
+            if (entry.getValue() == null) {
+                writeLoad = previousWriteLoad;
+            } else if (previousWriteLoad == null) {
+                writeLoad = entry.getValue();
+            } else {
+                writeLoad = WRITE_LOAD_SMOOTHING_FACTOR * entry.getValue() + (1 - WRITE_LOAD_SMOOTHING_FACTOR) * previousWriteLoad;
+            }
+            if (logger.isTraceEnabled()) {
+                logger.trace("shard: {} write load: {}", entry.getKey(), writeLoad);
+            }
+            writeLoads.put(entry.getKey(), writeLoad);
+        }
+        return writeLoads.build();
+    }
+
+    /**
+     * The number of documents that were indexed into a shard copy at some point in time.
+     */
+    static final class IndexingSample {
+        final long indexCount;
+        final long timeInNanos;
+
+        IndexingSample(long indexCount, long timeInNanos) {
+            this.indexCount = indexCount;
+            this.timeInNanos = timeInNanos;
+        }
+    }
+
     static void fillDiskUsagePerNode(Logger logger, List<NodeStats> nodeStatsArray,
             ImmutableOpenMap.Builder<String, DiskUsage> newLeastAvaiableUsages,
             ImmutableOpenMap.Builder<String, DiskUsage> newMostAvaiableUsages) {
@@ -621,7 +621,12 @@ public class SnapshotsInProgress extends AbstractNamedDiffable<Custom> implement
         FAILED((byte) 3, true, true),
         ABORTED((byte) 4, false, true),
         MISSING((byte) 5, true, true),
-        WAITING((byte) 6, false, false);
+        WAITING((byte) 6, false, false),
+        /**
+         * Shard snapshot that waits for a snapshot of the same shard into the same repository by an earlier snapshot to complete
+         * before it is assigned to a node.
+         */
+        QUEUED((byte) 7, false, false);
 
         private final byte value;
 
@@ -657,6 +662,8 @@ public class SnapshotsInProgress extends AbstractNamedDiffable<Custom> implement
                     return MISSING;
                 case 6:
                     return WAITING;
+                case 7:
+                    return QUEUED;
                 default:
                     throw new IllegalArgumentException("No shard snapshot state for value [" + value + "]");
             }
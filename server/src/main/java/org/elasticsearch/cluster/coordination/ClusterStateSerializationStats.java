@@ -0,0 +1,131 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.cluster.coordination;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+
+/**
+ * Stats about the cluster states and diffs that the elected master has serialized for publishing them to the other nodes. A state
+ * or diff is serialized once for each version of the nodes it is published to.
+ */
+public class ClusterStateSerializationStats implements Writeable, ToXContentFragment {
+
+    public static final ClusterStateSerializationStats EMPTY = new ClusterStateSerializationStats(0L, 0L, 0L, 0L, 0L, 0L);
+
+    private final long fullStateCount;
+    private final long totalFullStateSerializedBytes;
+    private final long fullStateSerializationTimeMillis;
+    private final long diffCount;
+    private final long totalDiffSerializedBytes;
+    private final long diffSerializationTimeMillis;
+
+    /**
+     * @param fullStateCount the number of full cluster states this node has serialized for publication.
+     * @param totalFullStateSerializedBytes the total compressed size of the full cluster states this node has serialized.
+     * @param fullStateSerializationTimeMillis the total time spent serializing and compressing full cluster states.
+     * @param diffCount the number of cluster state diffs this node has serialized for publication.
+     * @param totalDiffSerializedBytes the total compressed size of the cluster state diffs this node has serialized.
+     * @param diffSerializationTimeMillis the total time spent serializing and compressing cluster state diffs.
+     */
+    public ClusterStateSerializationStats(long fullStateCount, long totalFullStateSerializedBytes, long fullStateSerializationTimeMillis,
+                                          long diffCount, long totalDiffSerializedBytes, long diffSerializationTimeMillis) {
+        this.fullStateCount = fullStateCount;
+        this.totalFullStateSerializedBytes = totalFullStateSerializedBytes;
+        this.fullStateSerializationTimeMillis = fullStateSerializationTimeMillis;
+        this.diffCount = diffCount;
+        this.totalDiffSerializedBytes = totalDiffSerializedBytes;
+        this.diffSerializationTimeMillis = diffSerializationTimeMillis;
+    }
+
+    public ClusterStateSerializationStats(StreamInput in) throws IOException {
+        fullStateCount = in.readVLong();
+        totalFullStateSerializedBytes = in.readVLong();
+        fullStateSerializationTimeMillis = in.readVLong();
+        diffCount = in.readVLong();
+        totalDiffSerializedBytes = in.readVLong();
+        diffSerializationTimeMillis = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(fullStateCount);
+        out.writeVLong(totalFullStateSerializedBytes);
+        out.writeVLong(fullStateSerializationTimeMillis);
+        out.writeVLong(diffCount);
+        out.writeVLong(totalDiffSerializedBytes);
+        out.writeVLong(diffSerializationTimeMillis);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("serialized_cluster_states");
+        {
+            builder.startObject("full_states");
+            {
+                builder.field("count", fullStateCount);
+                builder.humanReadableField("compressed_size_in_bytes", "compressed_size",
+                    new ByteSizeValue(totalFullStateSerializedBytes));
+                builder.humanReadableField("serialization_time_in_millis", "serialization_time",
+                    new TimeValue(fullStateSerializationTimeMillis));
+            }
+            builder.endObject();
+            builder.startObject("diffs");
+            {
+                builder.field("count", diffCount);
+                builder.humanReadableField("compressed_size_in_bytes", "compressed_size", new ByteSizeValue(totalDiffSerializedBytes));
+                builder.humanReadableField("serialization_time_in_millis", "serialization_time",
+                    new TimeValue(diffSerializationTimeMillis));
+            }
+            builder.endObject();
+        }
+        builder.endObject();
+        return builder;
+    }
+
+    public long getFullStateCount() { return fullStateCount; }
+
+    public long getTotalFullStateSerializedBytes() { return totalFullStateSerializedBytes; }
+
+    public long getFullStateSerializationTimeMillis() { return fullStateSerializationTimeMillis; }
+
+    public long getDiffCount() { return diffCount; }
+
+    public long getTotalDiffSerializedBytes() { return totalDiffSerializedBytes; }
+
+    public long getDiffSerializationTimeMillis() { return diffSerializationTimeMillis; }
+
+    @Override
+    public String toString() {
+        return "ClusterStateSerializationStats(full=" + fullStateCount
+            + ", full_bytes=" + totalFullStateSerializedBytes
+            + ", full_millis=" + fullStateSerializationTimeMillis
+            + ", diffs=" + diffCount
+            + ", diff_bytes=" + totalDiffSerializedBytes
+            + ", diff_millis=" + diffSerializationTimeMillis
+            + ")";
+    }
+}
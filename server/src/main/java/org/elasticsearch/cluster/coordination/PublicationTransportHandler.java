@@ -32,15 +32,16 @@ import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.compress.Compressor;
-import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.BytesTransportRequest;
+import org.elasticsearch.transport.Compression;
 import org.elasticsearch.transport.TransportChannel;
 import org.elasticsearch.transport.TransportException;
 import org.elasticsearch.transport.TransportRequestOptions;
@@ -80,6 +81,14 @@ public class PublicationTransportHandler {
     private final AtomicLong fullClusterStateReceivedCount = new AtomicLong();
     private final AtomicLong incompatibleClusterStateDiffReceivedCount = new AtomicLong();
     private final AtomicLong compatibleClusterStateDiffReceivedCount = new AtomicLong();
+    private final AtomicLong receivedClusterStateDeserializationTimeNanos = new AtomicLong();
+
+    private final AtomicLong fullClusterStateSerializedCount = new AtomicLong();
+    private final AtomicLong fullClusterStateSerializedBytes = new AtomicLong();
+    private final AtomicLong fullClusterStateSerializationTimeNanos = new AtomicLong();
+    private final AtomicLong clusterStateDiffSerializedCount = new AtomicLong();
+    private final AtomicLong clusterStateDiffSerializedBytes = new AtomicLong();
+    private final AtomicLong clusterStateDiffSerializationTimeNanos = new AtomicLong();
     // -> no need to put a timeout on the options here, because we want the response to eventually be received
     //  and not log an error if it arrives after the timeout
     private final TransportRequestOptions stateRequestOptions = TransportRequestOptions.builder()
@@ -128,7 +137,15 @@ public class PublicationTransportHandler {
         return new PublishClusterStateStats(
             fullClusterStateReceivedCount.get(),
             incompatibleClusterStateDiffReceivedCount.get(),
-            compatibleClusterStateDiffReceivedCount.get());
+            compatibleClusterStateDiffReceivedCount.get(),
+            TimeValue.nsecToMSec(receivedClusterStateDeserializationTimeNanos.get()),
+            new ClusterStateSerializationStats(
+                fullClusterStateSerializedCount.get(),
+                fullClusterStateSerializedBytes.get(),
+                TimeValue.nsecToMSec(fullClusterStateSerializationTimeNanos.get()),
+                clusterStateDiffSerializedCount.get(),
+                clusterStateDiffSerializedBytes.get(),
+                TimeValue.nsecToMSec(clusterStateDiffSerializationTimeNanos.get())));
     }
 
     public interface PublicationContext {
@@ -268,7 +285,7 @@ public class PublicationTransportHandler {
         }
     }
 
-    private static void buildDiffAndSerializeStates(ClusterState clusterState, ClusterState previousState, DiscoveryNodes discoveryNodes,
+    private void buildDiffAndSerializeStates(ClusterState clusterState, ClusterState previousState, DiscoveryNodes discoveryNodes,
                                                     boolean sendFullVersion, Map<Version, BytesReference> serializedStates,
                                                     Map<Version, BytesReference> serializedDiffs) {
         Diff<ClusterState> diff = null;
@@ -276,7 +293,7 @@ public class PublicationTransportHandler {
             try {
                 if (sendFullVersion || !previousState.nodes().nodeExists(node)) {
                     if (serializedStates.containsKey(node.getVersion()) == false) {
-                        serializedStates.put(node.getVersion(), serializeFullClusterState(clusterState, node.getVersion()));
+                        serializedStates.put(node.getVersion(), serializeAndRecordFullClusterState(clusterState, node.getVersion()));
                     }
                 } else {
                     // will send a diff
@@ -284,7 +301,7 @@ public class PublicationTransportHandler {
                         diff = clusterState.diff(previousState);
                     }
                     if (serializedDiffs.containsKey(node.getVersion()) == false) {
-                        serializedDiffs.put(node.getVersion(), serializeDiffClusterState(diff, node.getVersion()));
+                        serializedDiffs.put(node.getVersion(), serializeAndRecordDiffClusterState(diff, node.getVersion()));
                     }
                 }
             } catch (IOException e) {
@@ -298,7 +315,7 @@ public class PublicationTransportHandler {
         BytesReference bytes = serializedStates.get(node.getVersion());
         if (bytes == null) {
             try {
-                bytes = serializeFullClusterState(clusterState, node.getVersion());
+                bytes = serializeAndRecordFullClusterState(clusterState, node.getVersion());
                 serializedStates.put(node.getVersion(), bytes);
             } catch (Exception e) {
                 logger.warn(() -> new ParameterizedMessage("failed to serialize cluster state before publishing it to node {}", node), e);
@@ -317,9 +334,35 @@ public class PublicationTransportHandler {
         sendClusterStateToNode(clusterState, bytes, node, responseActionListener, true, serializedStates);
     }
 
+    private BytesReference serializeAndRecordFullClusterState(ClusterState clusterState, Version nodeVersion) throws IOException {
+        final long startTimeNanos = System.nanoTime();
+        final BytesReference bytes = serializeFullClusterState(clusterState, nodeVersion);
+        fullClusterStateSerializationTimeNanos.addAndGet(System.nanoTime() - startTimeNanos);
+        fullClusterStateSerializedBytes.addAndGet(bytes.length());
+        fullClusterStateSerializedCount.incrementAndGet();
+        return bytes;
+    }
+
+    private BytesReference serializeAndRecordDiffClusterState(Diff<ClusterState> diff, Version nodeVersion) throws IOException {
+        final long startTimeNanos = System.nanoTime();
+        final BytesReference bytes = serializeDiffClusterState(diff, nodeVersion);
+        clusterStateDiffSerializationTimeNanos.addAndGet(System.nanoTime() - startTimeNanos);
+        clusterStateDiffSerializedBytes.addAndGet(bytes.length());
+        clusterStateDiffSerializedCount.incrementAndGet();
+        return bytes;
+    }
+
+    /**
+     * Returns the compressor to publish cluster states to nodes of the given version with. The same bytes are sent to all the nodes
+     * of a version, so this is LZ4, which is much cheaper for the master to produce than DEFLATE, unless the nodes can't read it.
+     */
+    private static Compressor publicationCompressor(Version nodeVersion) {
+        return Compression.Scheme.LZ4.forVersion(nodeVersion).compressor();
+    }
+
     public static BytesReference serializeFullClusterState(ClusterState clusterState, Version nodeVersion) throws IOException {
         final BytesStreamOutput bStream = new BytesStreamOutput();
-        try (StreamOutput stream = CompressorFactory.COMPRESSOR.streamOutput(bStream)) {
+        try (StreamOutput stream = publicationCompressor(nodeVersion).streamOutput(bStream)) {
             stream.setVersion(nodeVersion);
             stream.writeBoolean(true);
             clusterState.writeTo(stream);
@@ -329,7 +372,7 @@ public class PublicationTransportHandler {
 
     public static BytesReference serializeDiffClusterState(Diff diff, Version nodeVersion) throws IOException {
         final BytesStreamOutput bStream = new BytesStreamOutput();
-        try (StreamOutput stream = CompressorFactory.COMPRESSOR.streamOutput(bStream)) {
+        try (StreamOutput stream = publicationCompressor(nodeVersion).streamOutput(bStream)) {
             stream.setVersion(nodeVersion);
             stream.writeBoolean(false);
             diff.writeTo(stream);
@@ -338,7 +381,7 @@ public class PublicationTransportHandler {
     }
 
     private PublishWithJoinResponse handleIncomingPublishRequest(BytesTransportRequest request) throws IOException {
-        final Compressor compressor = CompressorFactory.compressor(request.bytes());
+        final Compressor compressor = Compression.compressor(request.bytes());
         StreamInput in = request.bytes().streamInput();
         try {
             if (compressor != null) {
@@ -349,11 +392,14 @@ public class PublicationTransportHandler {
             // If true we received full cluster state - otherwise diffs
             if (in.readBoolean()) {
                 final ClusterState incomingState;
+                final long startTimeNanos = System.nanoTime();
                 try {
                     incomingState = ClusterState.readFrom(in, transportService.getLocalNode());
                 } catch (Exception e){
                     logger.warn("unexpected error while deserializing an incoming cluster state", e);
                     throw e;
+                } finally {
+                    receivedClusterStateDeserializationTimeNanos.addAndGet(System.nanoTime() - startTimeNanos);
                 }
                 fullClusterStateReceivedCount.incrementAndGet();
                 logger.debug("received full cluster state version [{}] with size [{}]", incomingState.version(),
@@ -369,6 +415,7 @@ public class PublicationTransportHandler {
                     throw new IncompatibleClusterStateVersionException("have no local cluster state");
                 } else {
                     ClusterState incomingState;
+                    final long startTimeNanos = System.nanoTime();
                     try {
                         Diff<ClusterState> diff = ClusterState.readDiffFrom(in, lastSeen.nodes().getLocalNode());
                         incomingState = diff.apply(lastSeen); // might throw IncompatibleClusterStateVersionException
@@ -378,6 +425,8 @@ public class PublicationTransportHandler {
                     } catch (Exception e){
                         logger.warn("unexpected error while deserializing an incoming cluster state", e);
                         throw e;
+                    } finally {
+                        receivedClusterStateDeserializationTimeNanos.addAndGet(System.nanoTime() - startTimeNanos);
                     }
                     compatibleClusterStateDiffReceivedCount.incrementAndGet();
                     logger.debug("received diff cluster state version [{}] with uuid [{}], diff size [{}]",
@@ -19,9 +19,11 @@
 
 package org.elasticsearch.cluster.coordination;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContentObject;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
@@ -35,24 +37,39 @@ public class PublishClusterStateStats implements Writeable, ToXContentObject {
     private final long fullClusterStateReceivedCount;
     private final long incompatibleClusterStateDiffReceivedCount;
     private final long compatibleClusterStateDiffReceivedCount;
+    private final long receivedClusterStateDeserializationTimeMillis;
+    private final ClusterStateSerializationStats serializationStats;
 
     /**
      * @param fullClusterStateReceivedCount the number of times this node has received a full copy of the cluster state from the master.
      * @param incompatibleClusterStateDiffReceivedCount the number of times this node has received a cluster-state diff from the master.
      * @param compatibleClusterStateDiffReceivedCount the number of times that received cluster-state diffs were compatible with
+     * @param receivedClusterStateDeserializationTimeMillis the total time spent reading received cluster states and applying diffs.
+     * @param serializationStats stats about the cluster states this node has serialized while it was the elected master.
      */
     public PublishClusterStateStats(long fullClusterStateReceivedCount,
                                     long incompatibleClusterStateDiffReceivedCount,
-                                    long compatibleClusterStateDiffReceivedCount) {
+                                    long compatibleClusterStateDiffReceivedCount,
+                                    long receivedClusterStateDeserializationTimeMillis,
+                                    ClusterStateSerializationStats serializationStats) {
         this.fullClusterStateReceivedCount = fullClusterStateReceivedCount;
         this.incompatibleClusterStateDiffReceivedCount = incompatibleClusterStateDiffReceivedCount;
         this.compatibleClusterStateDiffReceivedCount = compatibleClusterStateDiffReceivedCount;
+        this.receivedClusterStateDeserializationTimeMillis = receivedClusterStateDeserializationTimeMillis;
+        this.serializationStats = serializationStats;
     }
 
     public PublishClusterStateStats(StreamInput in) throws IOException {
         fullClusterStateReceivedCount = in.readVLong();
         incompatibleClusterStateDiffReceivedCount = in.readVLong();
         compatibleClusterStateDiffReceivedCount = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            receivedClusterStateDeserializationTimeMillis = in.readVLong();
+            serializationStats = new ClusterStateSerializationStats(in);
+        } else {
+            receivedClusterStateDeserializationTimeMillis = 0L;
+            serializationStats = ClusterStateSerializationStats.EMPTY;
+        }
     }
 
     @Override
@@ -60,6 +77,10 @@ public class PublishClusterStateStats implements Writeable, ToXContentObject {
         out.writeVLong(fullClusterStateReceivedCount);
         out.writeVLong(incompatibleClusterStateDiffReceivedCount);
         out.writeVLong(compatibleClusterStateDiffReceivedCount);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeVLong(receivedClusterStateDeserializationTimeMillis);
+            serializationStats.writeTo(out);
+        }
     }
 
     @Override
@@ -69,8 +90,11 @@ public class PublishClusterStateStats implements Writeable, ToXContentObject {
             builder.field("full_states", fullClusterStateReceivedCount);
             builder.field("incompatible_diffs", incompatibleClusterStateDiffReceivedCount);
             builder.field("compatible_diffs", compatibleClusterStateDiffReceivedCount);
+            builder.humanReadableField("deserialization_time_in_millis", "deserialization_time",
+                new TimeValue(receivedClusterStateDeserializationTimeMillis));
         }
         builder.endObject();
+        serializationStats.toXContent(builder, params);
         return builder;
     }
 
@@ -80,11 +104,17 @@ public class PublishClusterStateStats implements Writeable, ToXContentObject {
 
     public long getCompatibleClusterStateDiffReceivedCount() { return compatibleClusterStateDiffReceivedCount; }
 
+    public long getReceivedClusterStateDeserializationTimeMillis() { return receivedClusterStateDeserializationTimeMillis; }
+
+    public ClusterStateSerializationStats getSerializationStats() { return serializationStats; }
+
     @Override
     public String toString() {
         return "PublishClusterStateStats(full=" + fullClusterStateReceivedCount
             + ", incompatible=" + incompatibleClusterStateDiffReceivedCount
             + ", compatible=" + compatibleClusterStateDiffReceivedCount
+            + ", deserialization_millis=" + receivedClusterStateDeserializationTimeMillis
+            + ", serialization=" + serializationStats
             + ")";
     }
 }
@@ -23,8 +23,11 @@ import com.carrotsearch.hppc.IntSet;
 import com.carrotsearch.hppc.cursors.IntCursor;
 import com.carrotsearch.hppc.cursors.IntObjectCursor;
 import org.apache.lucene.util.CollectionUtil;
+import org.elasticsearch.Version;
 import org.elasticsearch.cluster.AbstractDiffable;
 import org.elasticsearch.cluster.Diff;
+import org.elasticsearch.cluster.Diffable;
+import org.elasticsearch.cluster.DiffableUtils;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.routing.RecoverySource.EmptyStoreRecoverySource;
@@ -32,6 +35,7 @@ import org.elasticsearch.cluster.routing.RecoverySource.ExistingStoreRecoverySou
 import org.elasticsearch.cluster.routing.RecoverySource.LocalShardsRecoverySource;
 import org.elasticsearch.cluster.routing.RecoverySource.PeerRecoverySource;
 import org.elasticsearch.cluster.routing.RecoverySource.SnapshotRecoverySource;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Randomness;
 import org.elasticsearch.common.collect.ImmutableOpenIntMap;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -62,7 +66,10 @@ import java.util.Set;
  * represented as {@link ShardRouting}.
  * </p>
  */
-public class IndexRoutingTable extends AbstractDiffable<IndexRoutingTable> implements Iterable<IndexShardRoutingTable> {
+public class IndexRoutingTable implements Diffable<IndexRoutingTable>, Iterable<IndexShardRoutingTable> {
+
+    // the version from which on index routing table diffs only hold the shards that changed rather than the whole table
+    static final Version SHARD_LEVEL_DIFF_VERSION = Version.V_8_0_0;
 
     private final Index index;
     private final ShardShuffler shuffler;
@@ -304,8 +311,16 @@ public class IndexRoutingTable extends AbstractDiffable<IndexRoutingTable> imple
         return builder.build();
     }
 
+    @Override
+    public Diff<IndexRoutingTable> diff(IndexRoutingTable previousState) {
+        return new IndexRoutingTableDiff(previousState, this);
+    }
+
     public static Diff<IndexRoutingTable> readDiffFrom(StreamInput in) throws IOException {
-        return readDiffFrom(IndexRoutingTable::readFrom, in);
+        if (in.getVersion().onOrAfter(SHARD_LEVEL_DIFF_VERSION)) {
+            return new IndexRoutingTableDiff(in);
+        }
+        return AbstractDiffable.readDiffFrom(IndexRoutingTable::readFrom, in);
     }
 
     @Override
@@ -321,6 +336,97 @@ public class IndexRoutingTable extends AbstractDiffable<IndexRoutingTable> imple
         return new Builder(index);
     }
 
+    /**
+     * A diff of an index routing table that only holds the shard routing tables that changed, so that starting or relocating a
+     * single shard of an index with many shards doesn't publish the routing of all its shards. Nodes before
+     * {@link #SHARD_LEVEL_DIFF_VERSION} receive the whole index routing table instead.
+     */
+    private static class IndexRoutingTableDiff implements Diff<IndexRoutingTable> {
+
+        private final Index index;
+
+        // the whole table if the index has been replaced by another one with the same name, or if this diff is to be sent to
+        // nodes that don't read shard-level diffs. Null on nodes that received a shard-level diff.
+        @Nullable
+        private final IndexRoutingTable after;
+
+        // null if the index has been replaced by another one with the same name
+        @Nullable
+        private final Diff<ImmutableOpenIntMap<IndexShardRoutingTable>> shards;
+
+        IndexRoutingTableDiff(IndexRoutingTable before, IndexRoutingTable after) {
+            this.index = after.index;
+            this.after = after;
+            if (before.index.equals(after.index)) {
+                shards = DiffableUtils.diff(before.shards, after.shards, DiffableUtils.getVIntKeySerializer(),
+                    new ShardRoutingTableSerializer(after.index));
+            } else {
+                shards = null;
+            }
+        }
+
+        IndexRoutingTableDiff(StreamInput in) throws IOException {
+            if (in.readBoolean()) {
+                index = new Index(in);
+                after = null;
+                shards = DiffableUtils.readImmutableOpenIntMapDiff(in, DiffableUtils.getVIntKeySerializer(),
+                    new ShardRoutingTableSerializer(index));
+            } else {
+                after = IndexRoutingTable.readFrom(in);
+                index = after.index;
+                shards = null;
+            }
+        }
+
+        @Override
+        public IndexRoutingTable apply(IndexRoutingTable part) {
+            if (shards == null) {
+                return after;
+            }
+            assert part.index.equals(index) : "diff of " + index + " can't be applied to the routing table of " + part.index;
+            return new IndexRoutingTable(index, shards.apply(part.shards));
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            if (out.getVersion().before(SHARD_LEVEL_DIFF_VERSION)) {
+                if (after == null) {
+                    throw new IllegalStateException("can't send a shard-level diff of the routing table of " + index
+                        + " to a node of version [" + out.getVersion() + "]");
+                }
+                // the format of AbstractDiffable: whether the table changed, followed by the whole changed table
+                out.writeBoolean(true);
+                after.writeTo(out);
+            } else if (shards != null) {
+                out.writeBoolean(true);
+                index.writeTo(out);
+                shards.writeTo(out);
+            } else {
+                out.writeBoolean(false);
+                after.writeTo(out);
+            }
+        }
+    }
+
+    private static class ShardRoutingTableSerializer extends DiffableUtils.NonDiffableValueSerializer<Integer, IndexShardRoutingTable> {
+
+        private final Index index;
+
+        ShardRoutingTableSerializer(Index index) {
+            this.index = index;
+        }
+
+        @Override
+        public void write(IndexShardRoutingTable value, StreamOutput out) throws IOException {
+            IndexShardRoutingTable.Builder.writeToThin(value, out);
+        }
+
+        @Override
+        public IndexShardRoutingTable read(StreamInput in, Integer key) throws IOException {
+            return IndexShardRoutingTable.Builder.readFromThin(in, index);
+        }
+    }
+
     public static class Builder {
 
         private final Index index;
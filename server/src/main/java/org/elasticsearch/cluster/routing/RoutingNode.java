@@ -48,6 +48,8 @@ public class RoutingNode implements Iterable<ShardRouting> {
 
     private final LinkedHashSet<ShardRouting> relocatingShards;
 
+    private int modificationCount;
+
     public RoutingNode(String nodeId, DiscoveryNode node, ShardRouting... shards) {
         this(nodeId, node, buildShardRoutingMap(shards));
     }
@@ -68,6 +70,18 @@ public class RoutingNode implements Iterable<ShardRouting> {
         assert invariant();
     }
 
+    /**
+     * Creates a copy of the given routing node that can be modified independently of it.
+     */
+    RoutingNode(RoutingNode routingNode) {
+        this.nodeId = routingNode.nodeId;
+        this.node = routingNode.node;
+        this.shards = new LinkedHashMap<>(routingNode.shards);
+        this.initializingShards = new LinkedHashSet<>(routingNode.initializingShards);
+        this.relocatingShards = new LinkedHashSet<>(routingNode.relocatingShards);
+        assert invariant();
+    }
+
     private static LinkedHashMap<ShardId, ShardRouting> buildShardRoutingMap(ShardRouting... shardRoutings) {
         final LinkedHashMap<ShardId, ShardRouting> shards = new LinkedHashMap<>();
         for (ShardRouting shardRouting : shardRoutings) {
@@ -111,6 +125,18 @@ public class RoutingNode implements Iterable<ShardRouting> {
         return shards.size();
     }
 
+    /**
+     * Returns the number of times that the shards of this node or the recoveries from or to this node changed, which lets callers tell
+     * whether anything that a decision about this node depends on changed since they made the decision.
+     */
+    public int modificationCount() {
+        return modificationCount;
+    }
+
+    void onRecoveriesChanged() {
+        modificationCount++;
+    }
+
     /**
      * Add a new shard to this node
      * @param shard Shard to crate on this Node
@@ -128,6 +154,7 @@ public class RoutingNode implements Iterable<ShardRouting> {
         } else if (shard.relocating()) {
             relocatingShards.add(shard);
         }
+        modificationCount++;
         assert invariant();
     }
 
@@ -153,6 +180,7 @@ public class RoutingNode implements Iterable<ShardRouting> {
         } else if (newShard.relocating()) {
             relocatingShards.add(newShard);
         }
+        modificationCount++;
         assert invariant();
     }
 
@@ -167,6 +195,7 @@ public class RoutingNode implements Iterable<ShardRouting> {
             boolean exist = relocatingShards.remove(shard);
             assert exist : "expected shard " + shard + " to exist in relocatingShards";
         }
+        modificationCount++;
         assert invariant();
     }
 
@@ -72,7 +72,7 @@ public class RoutingNodes implements Iterable<RoutingNode> {
 
     private final Map<ShardId, List<ShardRouting>> assignedShards = new HashMap<>();
 
-    private final boolean readOnly;
+    private boolean readOnly;
 
     private int inactivePrimaryCount = 0;
 
@@ -148,6 +148,55 @@ public class RoutingNodes implements Iterable<RoutingNode> {
         }
     }
 
+    /**
+     * Creates a copy of the given routing nodes, which is much cheaper than building them from the routing table again.
+     */
+    private RoutingNodes(RoutingNodes routingNodes, boolean readOnly) {
+        this.readOnly = readOnly;
+        for (Map.Entry<String, RoutingNode> entry : routingNodes.nodesToShards.entrySet()) {
+            nodesToShards.put(entry.getKey(), new RoutingNode(entry.getValue()));
+        }
+        // shards that were temporarily ignored by an earlier allocation round are plain unassigned shards again
+        for (ShardRouting shard : routingNodes.unassignedShards.unassigned) {
+            unassignedShards.add(shard);
+        }
+        for (ShardRouting shard : routingNodes.unassignedShards.ignored) {
+            unassignedShards.add(shard);
+        }
+        for (Map.Entry<ShardId, List<ShardRouting>> entry : routingNodes.assignedShards.entrySet()) {
+            assignedShards.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        for (Map.Entry<String, Recoveries> entry : routingNodes.recoveriesPerNode.entrySet()) {
+            recoveriesPerNode.put(entry.getKey(), entry.getValue().copy());
+        }
+        this.inactivePrimaryCount = routingNodes.inactivePrimaryCount;
+        this.inactiveShardCount = routingNodes.inactiveShardCount;
+        this.relocatingShards = routingNodes.relocatingShards;
+    }
+
+    /**
+     * Returns a mutable copy of these routing nodes, for instance to compute the next allocation from the read-only routing nodes
+     * of a cluster state without building them from its routing table again.
+     */
+    public RoutingNodes mutableCopy() {
+        return new RoutingNodes(this, false);
+    }
+
+    /**
+     * Makes these routing nodes read-only, so that the routing nodes that an allocation round ended with can be used as the
+     * read-only routing nodes of the cluster state it results in. Temporarily ignored shards become plain unassigned shards again,
+     * as they would be if the routing nodes were built from the resulting routing table.
+     */
+    public void makeReadOnly() {
+        ensureMutable();
+        for (ShardRouting shard : unassignedShards.ignored) {
+            unassignedShards.add(shard);
+        }
+        unassignedShards.ignored.clear();
+        unassignedShards.ignoredPrimaries = 0;
+        readOnly = true;
+    }
+
     private void addRecovery(ShardRouting routing) {
         updateRecoveryCounts(routing, true, findAssignedPrimaryIfPeerRecovery(routing));
     }
@@ -168,6 +217,7 @@ public class RoutingNodes implements Iterable<RoutingNode> {
             "shard is initializing but its primary is not assigned to a node";
 
         Recoveries.getOrAdd(recoveriesPerNode, routing.currentNodeId()).addIncoming(howMany);
+        onRecoveriesChanged(routing.currentNodeId());
 
         if (routing.recoverySource().getType() == RecoverySource.Type.PEER) {
             // add/remove corresponding outgoing recovery on node with primary shard
@@ -175,6 +225,7 @@ public class RoutingNodes implements Iterable<RoutingNode> {
                 throw new IllegalStateException("shard is peer recovering but primary is unassigned");
             }
             Recoveries.getOrAdd(recoveriesPerNode, primary.currentNodeId()).addOutgoing(howMany);
+            onRecoveriesChanged(primary.currentNodeId());
 
             if (increment == false && routing.primary() && routing.relocatingNodeId() != null) {
                 // primary is done relocating, move non-primary recoveries from old primary to new primary
@@ -187,10 +238,18 @@ public class RoutingNodes implements Iterable<RoutingNode> {
                 }
                 recoveriesPerNode.get(routing.relocatingNodeId()).addOutgoing(-numRecoveringReplicas);
                 recoveriesPerNode.get(routing.currentNodeId()).addOutgoing(numRecoveringReplicas);
+                onRecoveriesChanged(routing.relocatingNodeId());
             }
         }
     }
 
+    private void onRecoveriesChanged(String nodeId) {
+        final RoutingNode routingNode = nodesToShards.get(nodeId);
+        if (routingNode != null) {
+            routingNode.onRecoveriesChanged();
+        }
+    }
+
     public int getIncomingRecoveries(String nodeId) {
         return recoveriesPerNode.getOrDefault(nodeId, Recoveries.EMPTY).getIncoming();
     }
@@ -1118,6 +1177,10 @@ public class RoutingNodes implements Iterable<RoutingNode> {
         return true;
     }
 
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
     private void ensureMutable() {
         if (readOnly) {
             throw new IllegalStateException("can't modify RoutingNodes - readonly");
@@ -1185,6 +1248,13 @@ public class RoutingNodes implements Iterable<RoutingNode> {
             return incoming;
         }
 
+        Recoveries copy() {
+            final Recoveries copy = new Recoveries();
+            copy.incoming = incoming;
+            copy.outgoing = outgoing;
+            return copy;
+        }
+
         public static Recoveries getOrAdd(Map<String, Recoveries> map, String key) {
             Recoveries recoveries = map.get(key);
             if (recoveries == null) {
@@ -0,0 +1,140 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing.allocation;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * The number of times that each {@link org.elasticsearch.cluster.routing.allocation.decider.AllocationDecider} was asked for a decision
+ * and the time it took to make these decisions. These are only collected while the {@link RoutingAllocation} is in debug mode, which is
+ * the case when explaining the allocation of a shard.
+ */
+public final class AllocationDeciderStats implements Writeable, ToXContentFragment {
+
+    private final Map<String, DeciderStats> stats;
+
+    public AllocationDeciderStats() {
+        this.stats = new TreeMap<>();
+    }
+
+    public AllocationDeciderStats(StreamInput in) throws IOException {
+        this.stats = new TreeMap<>(in.readMap(StreamInput::readString, DeciderStats::new));
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeMap(stats, StreamOutput::writeString, (o, s) -> s.writeTo(o));
+    }
+
+    /**
+     * Records that the decider with the given name made a decision which took the given time.
+     */
+    public void add(String decider, long timeInNanos) {
+        final DeciderStats deciderStats = stats.computeIfAbsent(decider, k -> new DeciderStats());
+        deciderStats.calls++;
+        deciderStats.timeInNanos += timeInNanos;
+    }
+
+    /**
+     * Returns the number of decisions that the decider with the given name made.
+     */
+    public long getCalls(String decider) {
+        final DeciderStats deciderStats = stats.get(decider);
+        return deciderStats == null ? 0L : deciderStats.calls;
+    }
+
+    /**
+     * Returns the total time that the decider with the given name took to make its decisions.
+     */
+    public long getTimeInNanos(String decider) {
+        final DeciderStats deciderStats = stats.get(decider);
+        return deciderStats == null ? 0L : deciderStats.timeInNanos;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("decider_stats");
+        for (Map.Entry<String, DeciderStats> entry : stats.entrySet()) {
+            builder.startObject(entry.getKey());
+            builder.field("calls", entry.getValue().calls);
+            if (builder.humanReadable()) {
+                builder.field("time", TimeValue.timeValueNanos(entry.getValue().timeInNanos).toString());
+            }
+            builder.field("time_in_nanos", entry.getValue().timeInNanos);
+            builder.endObject();
+        }
+        builder.endObject();
+        return builder;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return stats.equals(((AllocationDeciderStats) o).stats);
+    }
+
+    @Override
+    public int hashCode() {
+        return stats.hashCode();
+    }
+
+    private static final class DeciderStats implements Writeable {
+        private long calls;
+        private long timeInNanos;
+
+        DeciderStats() {
+        }
+
+        DeciderStats(StreamInput in) throws IOException {
+            this.calls = in.readVLong();
+            this.timeInNanos = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(calls);
+            out.writeVLong(timeInNanos);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            DeciderStats that = (DeciderStats) o;
+            return calls == that.calls && timeInNanos == that.timeInNanos;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(calls, timeInNanos);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing.allocation;
+
+import org.elasticsearch.cluster.routing.RecoverySource;
+import org.elasticsearch.cluster.routing.RoutingNode;
+import org.elasticsearch.cluster.routing.RoutingNodes;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.allocation.decider.Decision;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Remembers the decisions of the {@link org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders} about whether a shard
+ * can be allocated to or remain on a node for the duration of a single {@link RoutingAllocation}, since the allocators ask for the same
+ * decisions many times over while they assign and balance the shards.
+ * <p>
+ * The deciders only look at the shard itself, at the shards of and recoveries to and from the node in question and at the other copies
+ * of the shard and their nodes. A cached decision is therefore only returned while none of these changed since it was made, which is
+ * tracked through {@link RoutingNode#modificationCount()} rather than by invalidating entries eagerly whenever the routing nodes change.
+ */
+public final class AllocationDecisionCache {
+
+    /**
+     * The cache is cleared when it reaches this many entries to bound the memory it uses when balancing a large cluster.
+     */
+    static final int MAX_ENTRIES = 1 << 16;
+
+    private final RoutingNodes routingNodes;
+    private final Map<Key, Entry> entries = new HashMap<>();
+
+    AllocationDecisionCache(RoutingNodes routingNodes) {
+        this.routingNodes = routingNodes;
+    }
+
+    /**
+     * Returns the cached decision whether the given shard can be allocated to the given node, or {@code null} if there is no such
+     * decision or something that it depends on changed since it was made.
+     */
+    @Nullable
+    public Decision getCanAllocate(ShardRouting shardRouting, RoutingNode node) {
+        return get(new Key(shardRouting, node.nodeId(), false), node);
+    }
+
+    public void putCanAllocate(ShardRouting shardRouting, RoutingNode node, Decision decision) {
+        put(new Key(shardRouting, node.nodeId(), false), node, decision);
+    }
+
+    /**
+     * Returns the cached decision whether the given shard can remain on the given node, or {@code null} if there is no such decision or
+     * something that it depends on changed since it was made.
+     */
+    @Nullable
+    public Decision getCanRemain(ShardRouting shardRouting, RoutingNode node) {
+        return get(new Key(shardRouting, node.nodeId(), true), node);
+    }
+
+    public void putCanRemain(ShardRouting shardRouting, RoutingNode node, Decision decision) {
+        put(new Key(shardRouting, node.nodeId(), true), node, decision);
+    }
+
+    /**
+     * Drops all cached decisions, which is necessary when something changes that the decisions depend on but that is not tracked by the
+     * routing nodes, for instance whether the allocation ignores disabled allocation.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private Decision get(Key key, RoutingNode node) {
+        if (isCacheable(key.shardRouting) == false) {
+            return null;
+        }
+        final Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.nodeModificationCount != node.modificationCount() || entry.copiesUnchanged(key.shardRouting.shardId()) == false) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.decision;
+    }
+
+    private void put(Key key, RoutingNode node, Decision decision) {
+        if (isCacheable(key.shardRouting) == false) {
+            return;
+        }
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.clear();
+        }
+        final List<ShardRouting> copies = new ArrayList<>(routingNodes.assignedShards(key.shardRouting.shardId()));
+        final int[] copyNodeModificationCounts = new int[copies.size()];
+        for (int i = 0; i < copies.size(); i++) {
+            copyNodeModificationCounts[i] = nodeModificationCount(copies.get(i));
+        }
+        entries.put(key, new Entry(decision, node.modificationCount(), copies, copyNodeModificationCounts));
+    }
+
+    private int nodeModificationCount(ShardRouting shardRouting) {
+        final RoutingNode routingNode = routingNodes.node(shardRouting.currentNodeId());
+        return routingNode == null ? -1 : routingNode.modificationCount();
+    }
+
+    /**
+     * Shards that are recovered from the shards of another index are allocated depending on where those other shards are, which is
+     * not tracked here, so decisions about them are never cached.
+     */
+    private static boolean isCacheable(ShardRouting shardRouting) {
+        return shardRouting.recoverySource() == null || shardRouting.recoverySource().getType() != RecoverySource.Type.LOCAL_SHARDS;
+    }
+
+    private static final class Key {
+        private final ShardRouting shardRouting;
+        private final String nodeId;
+        private final boolean canRemain;
+
+        Key(ShardRouting shardRouting, String nodeId, boolean canRemain) {
+            this.shardRouting = shardRouting;
+            this.nodeId = nodeId;
+            this.canRemain = canRemain;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return canRemain == key.canRemain && shardRouting.equals(key.shardRouting) && nodeId.equals(key.nodeId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(shardRouting, nodeId, canRemain);
+        }
+    }
+
+    private final class Entry {
+        private final Decision decision;
+        private final int nodeModificationCount;
+        private final List<ShardRouting> copies;
+        private final int[] copyNodeModificationCounts;
+
+        Entry(Decision decision, int nodeModificationCount, List<ShardRouting> copies, int[] copyNodeModificationCounts) {
+            this.decision = decision;
+            this.nodeModificationCount = nodeModificationCount;
+            this.copies = copies;
+            this.copyNodeModificationCounts = copyNodeModificationCounts;
+        }
+
+        boolean copiesUnchanged(ShardId shardId) {
+            final List<ShardRouting> currentCopies = routingNodes.assignedShards(shardId);
+            if (currentCopies.size() != copies.size()) {
+                return false;
+            }
+            for (int i = 0; i < copies.size(); i++) {
+                // shard routings are immutable so every change to a copy replaces it with a new instance
+                if (currentCopies.get(i) != copies.get(i) || nodeModificationCount(copies.get(i)) != copyNodeModificationCounts[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
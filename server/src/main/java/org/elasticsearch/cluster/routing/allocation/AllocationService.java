@@ -137,8 +137,11 @@ public class AllocationService {
         final MetaData newMetaData = allocation.updateMetaDataWithRoutingChanges(newRoutingTable);
         assert newRoutingTable.validate(newMetaData); // validates the routing table is coherent with the cluster state metadata
 
+        // the routing nodes are up to date with the new routing table, so they are kept as the routing nodes of the new state
+        // rather than being built from scratch for the next allocation round
+        newRoutingNodes.makeReadOnly();
         final ClusterState.Builder newStateBuilder = ClusterState.builder(oldState)
-            .routingTable(newRoutingTable)
+            .routingTable(newRoutingTable, newRoutingNodes)
             .metaData(newMetaData);
         final RestoreInProgress restoreInProgress = allocation.custom(RestoreInProgress.TYPE);
         if (restoreInProgress != null) {
@@ -460,8 +463,8 @@ public class AllocationService {
     }
 
     private RoutingNodes getMutableRoutingNodes(ClusterState clusterState) {
-        RoutingNodes routingNodes = new RoutingNodes(clusterState, false); // this is a costly operation - only call this once!
-        return routingNodes;
+        // building the routing nodes is a costly operation, so copy the ones the cluster state usually already holds
+        return clusterState.getRoutingNodes().mutableCopy();
     }
 
     /** override this to control time based decisions during allocation */
@@ -30,6 +30,7 @@ import org.elasticsearch.cluster.routing.RoutingTable;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
 import org.elasticsearch.cluster.routing.allocation.decider.Decision;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.snapshots.RestoreService.RestoreInProgressUpdater;
@@ -70,6 +71,10 @@ public class RoutingAllocation {
 
     private boolean hasPendingAsyncFetch = false;
 
+    private final AllocationDecisionCache decisionCache;
+
+    private AllocationDeciderStats deciderStats = null;
+
     private final long currentNanoTime;
 
     private final IndexMetaDataUpdater indexMetaDataUpdater = new IndexMetaDataUpdater();
@@ -97,6 +102,7 @@ public class RoutingAllocation {
         this.customs = clusterState.customs();
         this.clusterInfo = clusterInfo;
         this.currentNanoTime = currentNanoTime;
+        this.decisionCache = new AllocationDecisionCache(routingNodes);
     }
 
     /** returns the nano time captured at the beginning of the allocation. used to make sure all time based decisions are aligned */
@@ -157,6 +163,9 @@ public class RoutingAllocation {
     }
 
     public void ignoreDisable(boolean ignoreDisable) {
+        if (this.ignoreDisable != ignoreDisable) {
+            decisionCache.clear();
+        }
         this.ignoreDisable = ignoreDisable;
     }
 
@@ -166,10 +175,13 @@ public class RoutingAllocation {
 
     public void setDebugMode(DebugMode debug) {
         this.debugDecision = debug;
+        if (debug != DebugMode.OFF && deciderStats == null) {
+            deciderStats = new AllocationDeciderStats();
+        }
     }
 
     public void debugDecision(boolean debug) {
-        this.debugDecision = debug ? DebugMode.ON : DebugMode.OFF;
+        setDebugMode(debug ? DebugMode.ON : DebugMode.OFF);
     }
 
     public boolean debugDecision() {
@@ -180,6 +192,24 @@ public class RoutingAllocation {
         return this.debugDecision;
     }
 
+    /**
+     * Returns the decisions of the {@link AllocationDeciders} that were made during this allocation and are still valid. These are only
+     * used when the decisions are not debugged, since debugged decisions carry explanations that depend on the exact state of the
+     * allocation.
+     */
+    public AllocationDecisionCache decisionCache() {
+        return decisionCache;
+    }
+
+    /**
+     * Returns the number of decisions that each {@link org.elasticsearch.cluster.routing.allocation.decider.AllocationDecider} made
+     * and the time it took, or {@code null} if debug mode was never turned on for this allocation.
+     */
+    @Nullable
+    public AllocationDeciderStats deciderStats() {
+        return deciderStats;
+    }
+
     public void addIgnoreShardForNode(ShardId shardId, String nodeId) {
         if (ignoredShardToNodes == null) {
             ignoredShardToNodes = new HashMap<>();
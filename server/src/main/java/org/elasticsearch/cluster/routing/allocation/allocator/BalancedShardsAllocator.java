@@ -19,10 +19,12 @@
 
 package org.elasticsearch.cluster.routing.allocation.allocator;
 
+import com.carrotsearch.hppc.cursors.ObjectCursor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.IntroSorter;
+import org.elasticsearch.cluster.metadata.AliasOrIndex;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.routing.RoutingNode;
@@ -49,6 +51,7 @@ import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.gateway.PriorityComparator;
+import org.elasticsearch.index.shard.ShardId;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -60,6 +63,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.cluster.routing.ShardRoutingState.RELOCATING;
@@ -72,6 +76,8 @@ import static org.elasticsearch.cluster.routing.ShardRoutingState.RELOCATING;
  * for shards allocated on a {@link RoutingNode}</li>
  * <li><code>cluster.routing.allocation.balance.index</code> - The <b>index balance</b> defines a factor to the number
  * of {@link org.elasticsearch.cluster.routing.ShardRouting}s per index allocated on a specific node</li>
+ * <li><code>cluster.routing.allocation.balance.write_load</code> - The <b>write load balance</b> defines a factor to the
+ * number of documents written per second to the shards allocated on a specific node</li>
  * <li><code>cluster.routing.allocation.balance.threshold</code> - A <b>threshold</b> to set the minimal optimization
  * value of operations that should be performed</li>
  * </ul>
@@ -87,6 +93,8 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         Setting.floatSetting("cluster.routing.allocation.balance.index", 0.55f, 0.0f, Property.Dynamic, Property.NodeScope);
     public static final Setting<Float> SHARD_BALANCE_FACTOR_SETTING =
         Setting.floatSetting("cluster.routing.allocation.balance.shard", 0.45f, 0.0f, Property.Dynamic, Property.NodeScope);
+    public static final Setting<Float> WRITE_LOAD_BALANCE_FACTOR_SETTING =
+        Setting.floatSetting("cluster.routing.allocation.balance.write_load", 0.0f, 0.0f, Property.Dynamic, Property.NodeScope);
     public static final Setting<Float> THRESHOLD_SETTING =
         Setting.floatSetting("cluster.routing.allocation.balance.threshold", 1.0f, 0.0f,
             Property.Dynamic, Property.NodeScope);
@@ -100,14 +108,20 @@ public class BalancedShardsAllocator implements ShardsAllocator {
 
     @Inject
     public BalancedShardsAllocator(Settings settings, ClusterSettings clusterSettings) {
-        setWeightFunction(INDEX_BALANCE_FACTOR_SETTING.get(settings), SHARD_BALANCE_FACTOR_SETTING.get(settings));
+        weightFunction = new WeightFunction(INDEX_BALANCE_FACTOR_SETTING.get(settings), SHARD_BALANCE_FACTOR_SETTING.get(settings),
+            WRITE_LOAD_BALANCE_FACTOR_SETTING.get(settings));
         setThreshold(THRESHOLD_SETTING.get(settings));
         clusterSettings.addSettingsUpdateConsumer(INDEX_BALANCE_FACTOR_SETTING, SHARD_BALANCE_FACTOR_SETTING, this::setWeightFunction);
+        clusterSettings.addSettingsUpdateConsumer(WRITE_LOAD_BALANCE_FACTOR_SETTING, this::setWriteLoadBalance);
         clusterSettings.addSettingsUpdateConsumer(THRESHOLD_SETTING, this::setThreshold);
     }
 
-    private void setWeightFunction(float indexBalance, float shardBalanceFactor) {
-        weightFunction = new WeightFunction(indexBalance, shardBalanceFactor);
+    private synchronized void setWeightFunction(float indexBalance, float shardBalanceFactor) {
+        weightFunction = new WeightFunction(indexBalance, shardBalanceFactor, weightFunction.writeLoadBalance);
+    }
+
+    private synchronized void setWriteLoadBalance(float writeLoadBalance) {
+        weightFunction = new WeightFunction(weightFunction.indexBalance, weightFunction.shardBalance, writeLoadBalance);
     }
 
     private void setThreshold(float threshold) {
@@ -181,6 +195,13 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         return weightFunction.shardBalance;
     }
 
+    /**
+     * Returns the write load related weight factor.
+     */
+    public float getWriteLoadBalance() {
+        return weightFunction.writeLoadBalance;
+    }
+
 
     /**
      * This class is the primary weight function used to create balanced over nodes and shards in the cluster.
@@ -188,6 +209,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
      * <ul>
      * <li><code>index balance</code> - balance property over shards per index</li>
      * <li><code>shard balance</code> - balance property over shards per cluster</li>
+     * <li><code>write load balance</code> - balance property over the documents written per second to the shards per cluster</li>
      * </ul>
      * <p>
      * Each of these properties are expressed as factor such that the properties factor defines the relative
@@ -203,31 +225,63 @@ public class BalancedShardsAllocator implements ShardsAllocator {
      * <li>
      * <code>weight<sub>node</sub>(node, index) = shardBalance * (node.numShards() - avgShardsPerNode)</code>
      * </li>
+     * <li>
+     * <code>weight<sub>load</sub>(node, index) = writeLoadBalance * (node.writeLoad() - avgWriteLoadPerNode) / avgWriteLoadPerShard</code>
+     * </li>
      * </ul>
-     * <code>weight(node, index) = weight<sub>index</sub>(node, index) + weight<sub>node</sub>(node, index)</code>
+     * <code>weight(node, index) = weight<sub>index</sub>(node, index) + weight<sub>node</sub>(node, index)
+     * + weight<sub>load</sub>(node, index)</code>
+     * <p>
+     * The write load of a node is expressed in multiples of the write load of an average shard so that it is comparable to the number of
+     * shards. The write load balance is not part of the normalization of the other factors, which therefore keep their meaning when the
+     * write load of the shards is unknown or the write load balance is {@code 0.0}, which is the default.
+     * </p>
      */
     private static class WeightFunction {
 
         private final float indexBalance;
         private final float shardBalance;
+        private final float writeLoadBalance;
         private final float theta0;
         private final float theta1;
+        private final float theta2;
 
-        WeightFunction(float indexBalance, float shardBalance) {
+        WeightFunction(float indexBalance, float shardBalance, float writeLoadBalance) {
             float sum = indexBalance + shardBalance;
             if (sum <= 0.0f) {
                 throw new IllegalArgumentException("Balance factors must sum to a value > 0 but was: " + sum);
             }
             theta0 = shardBalance / sum;
             theta1 = indexBalance / sum;
+            theta2 = writeLoadBalance / sum;
             this.indexBalance = indexBalance;
             this.shardBalance = shardBalance;
+            this.writeLoadBalance = writeLoadBalance;
         }
 
         float weight(Balancer balancer, ModelNode node, String index) {
             final float weightShard = node.numShards() - balancer.avgShardsPerNode();
             final float weightIndex = node.numShards(index) - balancer.avgShardsPerNode(index);
-            return theta0 * weightShard + theta1 * weightIndex;
+            if (theta2 == 0.0f) {
+                return theta0 * weightShard + theta1 * weightIndex;
+            }
+            return theta0 * weightShard + theta1 * weightIndex + theta2 * balancer.relativeWriteLoad(node);
+        }
+
+        /**
+         * Returns by how much a copy of the given shard changes the weight of the node that it is allocated to. Moving a shard between
+         * two nodes only brings them closer to the balance if this is less than the delta of their weights, which always holds for
+         * deltas above the default threshold unless the write load of the shard is considered.
+         */
+        float shardWeight(Balancer balancer, ShardRouting shard) {
+            if (theta2 == 0.0f) {
+                return 1.0f;
+            }
+            return theta0 + theta1 + theta2 * balancer.relativeShardWriteLoad(shard.shardId());
+        }
+
+        boolean considersWriteLoad() {
+            return theta2 > 0.0f;
         }
     }
 
@@ -244,7 +298,14 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         private final float threshold;
         private final MetaData metaData;
         private final float avgShardsPerNode;
+        // the write load per shard of indices that were not measured yet, and the indices whose write load they took over
+        private final Map<String, Double> forecastShardWriteLoads = new HashMap<>();
+        private final Set<String> supersededIndices = new HashSet<>();
+        private final double avgWriteLoadPerNode;
+        private final double avgWriteLoadPerShard;
         private final NodeSorter sorter;
+        // sorted by weight with respect to the index of the last unassigned shard that an allocation was decided for
+        private final NodeSorter unassignedSorter;
 
         public Balancer(Logger logger, RoutingAllocation allocation, WeightFunction weight, float threshold) {
             this.logger = logger;
@@ -254,8 +315,25 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             this.routingNodes = allocation.routingNodes();
             this.metaData = allocation.metaData();
             avgShardsPerNode = ((float) metaData.getTotalNumberOfShards()) / routingNodes.size();
+            if (weight.considersWriteLoad()) {
+                forecastWriteLoads();
+                double totalWriteLoad = 0.0;
+                for (IndexMetaData indexMetaData : metaData) {
+                    for (int shardId = 0; shardId < indexMetaData.getNumberOfShards(); shardId++) {
+                        // every copy of a shard indexes all of its documents
+                        totalWriteLoad += shardWriteLoad(new ShardId(indexMetaData.getIndex(), shardId))
+                            * (indexMetaData.getNumberOfReplicas() + 1);
+                    }
+                }
+                avgWriteLoadPerNode = totalWriteLoad / routingNodes.size();
+                avgWriteLoadPerShard = totalWriteLoad / metaData.getTotalNumberOfShards();
+            } else {
+                avgWriteLoadPerNode = 0.0;
+                avgWriteLoadPerShard = 0.0;
+            }
             nodes = Collections.unmodifiableMap(buildModelFromAssigned());
             sorter = newNodeSorter();
+            unassignedSorter = newNodeSorter();
         }
 
         /**
@@ -279,6 +357,100 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             return avgShardsPerNode;
         }
 
+        /**
+         * Returns how much the write load of the given node exceeds the average write load per node, in multiples of the average write
+         * load per shard.
+         */
+        float relativeWriteLoad(ModelNode node) {
+            if (avgWriteLoadPerShard <= 0.0) {
+                return 0.0f;
+            }
+            return (float) ((node.writeLoad() - avgWriteLoadPerNode) / avgWriteLoadPerShard);
+        }
+
+        /**
+         * Returns the write load of each copy of the given shard in multiples of the average write load per shard.
+         */
+        float relativeShardWriteLoad(ShardId shardId) {
+            if (avgWriteLoadPerShard <= 0.0) {
+                return 0.0f;
+            }
+            return (float) (shardWriteLoad(shardId) / avgWriteLoadPerShard);
+        }
+
+        /**
+         * Returns the number of documents that are expected to be written per second to each copy of the given shard, or {@code 0.0} if
+         * the write load is not considered.
+         */
+        double shardWriteLoad(ShardId shardId) {
+            if (weight.considersWriteLoad() == false || supersededIndices.contains(shardId.getIndexName())) {
+                return 0.0;
+            }
+            final Double writeLoad = allocation.clusterInfo().getShardWriteLoad(shardId);
+            if (writeLoad != null) {
+                return writeLoad;
+            }
+            return forecastShardWriteLoads.getOrDefault(shardId.getIndexName(), 0.0);
+        }
+
+        /**
+         * Forecasts the write load of the shards of the indices that were not measured yet, most notably of an index that was just
+         * created by rolling over an alias. Such an index is expected to take over the write load of the most recently created older
+         * index with one of its aliases that is still being written to, spread over its own shards. The older index is then no longer
+         * expected to be written to, even though its measured write load only decays over time, so that its write load is not counted
+         * twice.
+         */
+        private void forecastWriteLoads() {
+            for (IndexMetaData indexMetaData : metaData) {
+                if (indexMetaData.getAliases().isEmpty() || isWriteLoadMeasured(indexMetaData)) {
+                    continue;
+                }
+                IndexMetaData source = null;
+                double sourceWriteLoad = 0.0;
+                for (ObjectCursor<String> alias : indexMetaData.getAliases().keys()) {
+                    final AliasOrIndex aliasOrIndex = metaData.getAliasAndIndexLookup().get(alias.value);
+                    if (aliasOrIndex == null) {
+                        continue;
+                    }
+                    for (IndexMetaData other : aliasOrIndex.getIndices()) {
+                        if (other.getCreationDate() >= indexMetaData.getCreationDate()
+                            || (source != null && other.getCreationDate() <= source.getCreationDate())) {
+                            continue;
+                        }
+                        final double writeLoad = measuredIndexWriteLoad(other);
+                        if (writeLoad > 0.0) {
+                            source = other;
+                            sourceWriteLoad = writeLoad;
+                        }
+                    }
+                }
+                if (source != null) {
+                    forecastShardWriteLoads.put(indexMetaData.getIndex().getName(), sourceWriteLoad / indexMetaData.getNumberOfShards());
+                    supersededIndices.add(source.getIndex().getName());
+                }
+            }
+        }
+
+        private boolean isWriteLoadMeasured(IndexMetaData indexMetaData) {
+            for (int shardId = 0; shardId < indexMetaData.getNumberOfShards(); shardId++) {
+                if (allocation.clusterInfo().getShardWriteLoad(new ShardId(indexMetaData.getIndex(), shardId)) != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private double measuredIndexWriteLoad(IndexMetaData indexMetaData) {
+            double writeLoad = 0.0;
+            for (int shardId = 0; shardId < indexMetaData.getNumberOfShards(); shardId++) {
+                final Double shardWriteLoad = allocation.clusterInfo().getShardWriteLoad(new ShardId(indexMetaData.getIndex(), shardId));
+                if (shardWriteLoad != null) {
+                    writeLoad += shardWriteLoad;
+                }
+            }
+            return writeLoad;
+        }
+
         /**
          * Returns a new {@link NodeSorter} that sorts the nodes based on their
          * current weight with respect to the index passed to the sorter. The
@@ -398,7 +570,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                     boolean deltaAboveThreshold = lessThan(currentDelta, threshold) == false;
                     // calculate the delta of the weights of the two nodes if we were to add the shard to the
                     // node in question and move it away from the node that currently holds it.
-                    boolean betterWeightWithShardAdded = nodeWeight + 1.0f < currentWeight;
+                    boolean betterWeightWithShardAdded = nodeWeight + weight.shardWeight(this, shard) < currentWeight;
                     rebalanceConditionsMet = deltaAboveThreshold && betterWeightWithShardAdded;
                     // if the simulated weight delta with the shard moved away is better than the weight delta
                     // with the shard remaining on the current node, and we are allowed to allocate to the
@@ -534,15 +706,11 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                              */
                             logger.trace("Couldn't find shard to relocate from node [{}] to node [{}]",
                                 maxNode.getNodeId(), minNode.getNodeId());
-                        } else if (tryRelocateShard(minNode, maxNode, index)) {
-                            /*
-                             * TODO we could be a bit smarter here, we don't need to fully sort necessarily
-                             * we could just find the place to insert linearly but the win might be minor
-                             * compared to the added complexity
-                             */
-                            weights[lowIdx] = sorter.weight(modelNodes[lowIdx]);
-                            weights[highIdx] = sorter.weight(modelNodes[highIdx]);
-                            sorter.sort(0, relevantNodes);
+                        } else if (tryRelocateShard(minNode, maxNode, index, delta)) {
+                            // only the weights of the two nodes changed, so move them to their new places rather than sorting all
+                            // nodes again, which dominates the cost of balancing clusters with many nodes
+                            final int newLowIdx = sorter.update(lowIdx, 0, relevantNodes);
+                            sorter.update(newLowIdx >= highIdx ? highIdx - 1 : highIdx, 0, relevantNodes);
                             lowIdx = 0;
                             highIdx = relevantNodes - 1;
                             continue;
@@ -585,8 +753,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             final String[] indices = allocation.routingTable().indicesRouting().keys().toArray(String.class);
             final float[] deltas = new float[indices.length];
             for (int i = 0; i < deltas.length; i++) {
-                sorter.reset(indices[i]);
-                deltas[i] = sorter.delta();
+                deltas[i] = sorter.delta(indices[i]);
             }
             new IntroSorter() {
 
@@ -733,7 +900,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         private Map<String, ModelNode> buildModelFromAssigned() {
             Map<String, ModelNode> nodes = new HashMap<>();
             for (RoutingNode rn : routingNodes) {
-                ModelNode node = new ModelNode(rn);
+                ModelNode node = new ModelNode(rn, this::shardWriteLoad);
                 nodes.put(rn.nodeId(), node);
                 for (ShardRouting shard : rn) {
                     assert rn.nodeId().equals(shard.currentNodeId());
@@ -817,6 +984,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                             allocation.clusterInfo(), allocation.metaData(), allocation.routingTable());
                         shard = routingNodes.initializeShard(shard, minNode.getNodeId(), null, shardSize, allocation.changes());
                         minNode.addShard(shard);
+                        unassignedSorter.update(minNode);
                         if (!shard.primary()) {
                             // copy over the same replica shards to the secondary array so they will get allocated
                             // in a subsequent iteration, allowing replicas of other shards to be allocated first
@@ -838,6 +1006,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                                 ShardRouting.UNAVAILABLE_EXPECTED_SHARD_SIZE,
                                 allocation.clusterInfo(), allocation.metaData(), allocation.routingTable());
                             minNode.addShard(shard.initialize(minNode.getNodeId(), null, shardSize));
+                            unassignedSorter.update(minNode);
                             final RoutingNode node = minNode.getRoutingNode();
                             final Decision.Type nodeLevelDecision = deciders.canAllocate(node, allocation).type();
                             if (nodeLevelDecision != Type.YES) {
@@ -899,21 +1068,27 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                 // so if we are not in explain mode, short circuit
                 return AllocateUnassignedDecision.no(AllocationStatus.DECIDERS_NO, null);
             }
-            /* Don't iterate over an identity hashset here the
-             * iteration order is different for each run and makes testing hard */
+            /* visit the nodes by increasing weight so that we can stop at the first node that is heavier than an eligible one,
+             * rather than asking the deciders about every node. Consecutive shards are mostly of the same index, for which the
+             * order is kept up to date in allocateUnassigned() without sorting the nodes again */
+            if (shard.getIndexName().equals(unassignedSorter.index) == false) {
+                unassignedSorter.reset(shard.getIndexName());
+            }
             Map<String, NodeAllocationResult> nodeExplanationMap = explain ? new HashMap<>() : null;
             List<Tuple<String, Float>> nodeWeights = explain ? new ArrayList<>() : null;
-            for (ModelNode node : nodes.values()) {
+            for (int i = 0; i < unassignedSorter.modelNodes.length; i++) {
+                final ModelNode node = unassignedSorter.modelNodes[i];
                 if ((throttledNodes.contains(node) || node.containsShard(shard)) && explain == false) {
                     // decision is NO without needing to check anything further, so short circuit
                     continue;
                 }
 
                 // weight of this index currently on the node
-                float currentWeight = weight.weight(this, node, shard.getIndexName());
-                // moving the shard would not improve the balance, and we are not in explain mode, so short circuit
+                float currentWeight = unassignedSorter.weights[i];
+                // moving the shard would not improve the balance, and neither would moving it to any of the remaining nodes, so short
+                // circuit if we are not in explain mode
                 if (currentWeight > minWeight && explain == false) {
-                    continue;
+                    break;
                 }
 
                 Decision currentDecision = allocation.deciders().canAllocate(shard, node.getRoutingNode(), allocation);
@@ -983,10 +1158,10 @@ public class BalancedShardsAllocator implements ShardsAllocator {
 
         /**
          * Tries to find a relocation from the max node to the minimal node for an arbitrary shard of the given index on the
-         * balance model. Iff this method returns a <code>true</code> the relocation has already been executed on the
-         * simulation model as well as on the cluster.
+         * balance model that reduces the given weight delta between the two nodes. Iff this method returns a <code>true</code> the
+         * relocation has already been executed on the simulation model as well as on the cluster.
          */
-        private boolean tryRelocateShard(ModelNode minNode, ModelNode maxNode, String idx) {
+        private boolean tryRelocateShard(ModelNode minNode, ModelNode maxNode, String idx, float delta) {
             final ModelIndex index = maxNode.getIndex(idx);
             if (index != null) {
                 logger.trace("Try relocating shard of [{}] from [{}] to [{}]", idx, maxNode.getNodeId(), minNode.getNodeId());
@@ -998,6 +1173,10 @@ public class BalancedShardsAllocator implements ShardsAllocator {
 
                 final AllocationDeciders deciders = allocation.deciders();
                 for (ShardRouting shard : shardRoutings) {
+                    if (weight.shardWeight(this, shard) >= delta) {
+                        // moving a shard with a high write load would only swap the weights of the two nodes, or even widen their delta
+                        continue;
+                    }
                     final Decision rebalanceDecision = deciders.canRebalance(shard, allocation);
                     if (rebalanceDecision.type() == Type.NO) {
                         continue;
@@ -1035,10 +1214,13 @@ public class BalancedShardsAllocator implements ShardsAllocator {
     static class ModelNode implements Iterable<ModelIndex> {
         private final Map<String, ModelIndex> indices = new HashMap<>();
         private int numShards = 0;
+        private double writeLoad = 0.0;
         private final RoutingNode routingNode;
+        private final ToDoubleFunction<ShardId> shardWriteLoads;
 
-        ModelNode(RoutingNode routingNode) {
+        ModelNode(RoutingNode routingNode, ToDoubleFunction<ShardId> shardWriteLoads) {
             this.routingNode = routingNode;
+            this.shardWriteLoads = shardWriteLoads;
         }
 
         public ModelIndex getIndex(String indexId) {
@@ -1062,6 +1244,13 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             return index == null ? 0 : index.numShards();
         }
 
+        /**
+         * Returns the number of documents that are expected to be written per second to the shards on this node.
+         */
+        public double writeLoad() {
+            return writeLoad;
+        }
+
         public int highestPrimary(String index) {
             ModelIndex idx = indices.get(index);
             if (idx != null) {
@@ -1078,6 +1267,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             }
             index.addShard(shard);
             numShards++;
+            writeLoad += shardWriteLoads.applyAsDouble(shard.shardId());
         }
 
         public void removeShard(ShardRouting shard) {
@@ -1089,6 +1279,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                 }
             }
             numShards--;
+            writeLoad -= shardWriteLoads.applyAsDouble(shard.shardId());
         }
 
         @Override
@@ -1199,6 +1390,36 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             return function.weight(balancer, node, index);
         }
 
+        /**
+         * Recalculates the weight of the node at the given position after shards were added to or removed from it, and moves it to
+         * its place among the other nodes in the given range, which must be sorted. Returns the new position of the node.
+         */
+        public int update(int i, int from, int to) {
+            weights[i] = weight(modelNodes[i]);
+            while (i > from && compare(i - 1, i) > 0) {
+                swap(i - 1, i);
+                i--;
+            }
+            while (i < to - 1 && compare(i, i + 1) > 0) {
+                swap(i, i + 1);
+                i++;
+            }
+            return i;
+        }
+
+        /**
+         * Recalculates the weight of the given node and moves it to its place among all nodes, which must be sorted.
+         */
+        public void update(ModelNode node) {
+            for (int i = 0; i < modelNodes.length; i++) {
+                if (modelNodes[i] == node) {
+                    update(i, 0, modelNodes.length);
+                    return;
+                }
+            }
+            assert false : "unknown node " + node;
+        }
+
         @Override
         protected void swap(int i, int j) {
             final ModelNode tmpNode = modelNodes[i];
@@ -1224,8 +1445,20 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             return Float.compare(pivotWeight, weights[j]);
         }
 
-        public float delta() {
-            return weights[weights.length - 1] - weights[0];
+        /**
+         * Returns the difference between the highest and the lowest weight of the nodes with respect to the given index. Unlike
+         * {@link #reset(String)} this does not need to sort the nodes.
+         */
+        public float delta(String index) {
+            this.index = index;
+            float minWeight = Float.POSITIVE_INFINITY;
+            float maxWeight = Float.NEGATIVE_INFINITY;
+            for (int i = 0; i < modelNodes.length; i++) {
+                weights[i] = weight(modelNodes[i]);
+                minWeight = Math.min(minWeight, weights[i]);
+                maxWeight = Math.max(maxWeight, weights[i]);
+            }
+            return maxWeight - minWeight;
         }
     }
 }
@@ -25,6 +25,7 @@ import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.routing.RoutingNode;
 import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.allocation.AllocationDeciderStats;
 import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
 
 import java.util.Collection;
@@ -48,7 +49,9 @@ public class AllocationDeciders extends AllocationDecider {
     public Decision canRebalance(ShardRouting shardRouting, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider allocationDecider : allocations) {
+            final long startTimeNanos = startTimeNanos(allocation);
             Decision decision = allocationDecider.canRebalance(shardRouting, allocation);
+            recordTime(allocationDecider, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (!allocation.debugDecision()) {
@@ -68,9 +71,23 @@ public class AllocationDeciders extends AllocationDecider {
         if (allocation.shouldIgnoreShardForNode(shardRouting.shardId(), node.nodeId())) {
             return Decision.NO;
         }
+        if (allocation.debugDecision() == false) {
+            Decision decision = allocation.decisionCache().getCanAllocate(shardRouting, node);
+            if (decision == null) {
+                decision = doCanAllocate(shardRouting, node, allocation);
+                allocation.decisionCache().putCanAllocate(shardRouting, node, decision);
+            }
+            return decision;
+        }
+        return doCanAllocate(shardRouting, node, allocation);
+    }
+
+    private Decision doCanAllocate(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider allocationDecider : allocations) {
+            final long startTimeNanos = startTimeNanos(allocation);
             Decision decision = allocationDecider.canAllocate(shardRouting, node, allocation);
+            recordTime(allocationDecider, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (logger.isTraceEnabled()) {
@@ -98,9 +115,23 @@ public class AllocationDeciders extends AllocationDecider {
             }
             return Decision.NO;
         }
+        if (allocation.debugDecision() == false) {
+            Decision decision = allocation.decisionCache().getCanRemain(shardRouting, node);
+            if (decision == null) {
+                decision = doCanRemain(shardRouting, node, allocation);
+                allocation.decisionCache().putCanRemain(shardRouting, node, decision);
+            }
+            return decision;
+        }
+        return doCanRemain(shardRouting, node, allocation);
+    }
+
+    private Decision doCanRemain(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider allocationDecider : allocations) {
+            final long startTimeNanos = startTimeNanos(allocation);
             Decision decision = allocationDecider.canRemain(shardRouting, node, allocation);
+            recordTime(allocationDecider, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (logger.isTraceEnabled()) {
@@ -123,7 +154,9 @@ public class AllocationDeciders extends AllocationDecider {
     public Decision canAllocate(IndexMetaData indexMetaData, RoutingNode node, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider allocationDecider : allocations) {
+            final long startTimeNanos = startTimeNanos(allocation);
             Decision decision = allocationDecider.canAllocate(indexMetaData, node, allocation);
+            recordTime(allocationDecider, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (!allocation.debugDecision()) {
@@ -142,7 +175,9 @@ public class AllocationDeciders extends AllocationDecider {
     public Decision shouldAutoExpandToNode(IndexMetaData indexMetaData, DiscoveryNode node, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider allocationDecider : allocations) {
+            final long startTimeNanos = startTimeNanos(allocation);
             Decision decision = allocationDecider.shouldAutoExpandToNode(indexMetaData, node, allocation);
+            recordTime(allocationDecider, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (!allocation.debugDecision()) {
@@ -161,7 +196,9 @@ public class AllocationDeciders extends AllocationDecider {
     public Decision canAllocate(ShardRouting shardRouting, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider allocationDecider : allocations) {
+            final long startTimeNanos = startTimeNanos(allocation);
             Decision decision = allocationDecider.canAllocate(shardRouting, allocation);
+            recordTime(allocationDecider, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (!allocation.debugDecision()) {
@@ -180,7 +217,9 @@ public class AllocationDeciders extends AllocationDecider {
     public Decision canAllocate(RoutingNode node, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider allocationDecider : allocations) {
+            final long startTimeNanos = startTimeNanos(allocation);
             Decision decision = allocationDecider.canAllocate(node, allocation);
+            recordTime(allocationDecider, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (!allocation.debugDecision()) {
@@ -199,7 +238,9 @@ public class AllocationDeciders extends AllocationDecider {
     public Decision canRebalance(RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider allocationDecider : allocations) {
+            final long startTimeNanos = startTimeNanos(allocation);
             Decision decision = allocationDecider.canRebalance(allocation);
+            recordTime(allocationDecider, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (!allocation.debugDecision()) {
@@ -223,7 +264,9 @@ public class AllocationDeciders extends AllocationDecider {
         }
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider decider : allocations) {
+            final long startTimeNanos = startTimeNanos(allocation);
             Decision decision = decider.canForceAllocatePrimary(shardRouting, node, allocation);
+            recordTime(decider, startTimeNanos, allocation);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (logger.isTraceEnabled()) {
@@ -242,6 +285,17 @@ public class AllocationDeciders extends AllocationDecider {
         return ret;
     }
 
+    private static long startTimeNanos(RoutingAllocation allocation) {
+        return allocation.deciderStats() == null ? 0L : System.nanoTime();
+    }
+
+    private static void recordTime(AllocationDecider decider, long startTimeNanos, RoutingAllocation allocation) {
+        final AllocationDeciderStats deciderStats = allocation.deciderStats();
+        if (deciderStats != null) {
+            deciderStats.add(decider.getClass().getSimpleName(), System.nanoTime() - startTimeNanos);
+        }
+    }
+
     private void addDecision(Decision.Multi ret, Decision decision, RoutingAllocation allocation) {
         // We never add ALWAYS decisions and only add YES decisions when requested by debug mode (since Multi default is YES).
         if (decision != Decision.ALWAYS
@@ -19,6 +19,8 @@
 
 package org.elasticsearch.common.blobstore;
 
+import org.elasticsearch.common.io.Streams;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.FileAlreadyExistsException;
@@ -49,6 +51,45 @@ public interface BlobContainer {
      */
     InputStream readBlob(String blobName) throws IOException;
 
+    /**
+     * Creates a new {@link InputStream} that can be used to read the given range of bytes of the given blob. Implementations should
+     * override this if they can read a range without reading the bytes that precede it.
+     *
+     * @param   blobName
+     *          The name of the blob to get an {@link InputStream} for.
+     * @param   position
+     *          The position in the blob where the range starts.
+     * @param   length
+     *          The length of the range; the stream ends early if the blob ends before the range does.
+     * @return  The {@code InputStream} to read the range of the blob.
+     * @throws  NoSuchFileException if the blob does not exist
+     * @throws  IOException if the blob can not be read.
+     */
+    default InputStream readBlob(String blobName, long position, long length) throws IOException {
+        final InputStream stream = readBlob(blobName);
+        boolean success = false;
+        try {
+            long toSkip = position;
+            while (toSkip > 0L) {
+                final long skipped = stream.skip(toSkip);
+                if (skipped <= 0L) {
+                    if (stream.read() == -1) {
+                        break;
+                    }
+                    toSkip -= 1L;
+                } else {
+                    toSkip -= skipped;
+                }
+            }
+            success = true;
+            return Streams.limitStream(stream, length);
+        } finally {
+            if (success == false) {
+                stream.close();
+            }
+        }
+    }
+
     /**
      * Reads blob content from the input stream and writes it to the container in a new blob with the given name.
      * This method assumes the container does not already contain a blob of the same blobName.  If a blob by the
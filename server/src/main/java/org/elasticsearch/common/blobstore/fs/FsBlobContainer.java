@@ -34,6 +34,8 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileVisitResult;
@@ -152,6 +154,29 @@ public class FsBlobContainer extends AbstractBlobContainer {
         }
     }
 
+    @Override
+    public InputStream readBlob(String blobName, long position, long length) throws IOException {
+        final SeekableByteChannel channel;
+        try {
+            channel = Files.newByteChannel(path.resolve(blobName));
+        } catch (NoSuchFileException e) {
+            throw new NoSuchFileException("[" + blobName + "] blob not found");
+        }
+        boolean success = false;
+        try {
+            if (position > 0L) {
+                channel.position(position);
+            }
+            final InputStream stream = org.elasticsearch.common.io.Streams.limitStream(Channels.newInputStream(channel), length);
+            success = true;
+            return new BufferedInputStream(stream, blobStore.bufferSizeInBytes());
+        } finally {
+            if (success == false) {
+                channel.close();
+            }
+        }
+    }
+
     @Override
     public void writeBlob(String blobName, InputStream inputStream, long blobSize, boolean failIfAlreadyExists) throws IOException {
         if (failIfAlreadyExists == false) {
@@ -24,6 +24,8 @@ import org.apache.lucene.util.BytesRefIterator;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
+import org.elasticsearch.common.util.concurrent.RefCounted;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
 import java.io.IOException;
@@ -32,20 +34,68 @@ import java.io.OutputStream;
 /**
  * An extension to {@link BytesReference} that requires releasing its content. This
  * class exists to make it explicit when a bytes reference needs to be released, and when not.
+ *
+ * The content is reference counted: it is released once {@link #close()} has been called as many times as {@link #retain()}, plus
+ * one for the initial reference. Slices obtained from {@link #sharedSlice(int, int)} share the reference count of the reference they
+ * have been sliced from, which allows parts of a large buffer to outlive the code that created the buffer.
  */
-public final class ReleasableBytesReference implements Releasable, BytesReference {
+public final class ReleasableBytesReference implements RefCounted, Releasable, BytesReference {
+
+    private static final Releasable NO_OP = () -> {};
 
     private final BytesReference delegate;
-    private final Releasable releasable;
+    private final AbstractRefCounted refCounted;
 
     public ReleasableBytesReference(BytesReference delegate, Releasable releasable) {
+        this(delegate, new RefCountedReleasable(releasable));
+    }
+
+    private ReleasableBytesReference(BytesReference delegate, AbstractRefCounted refCounted) {
         this.delegate = delegate;
-        this.releasable = releasable;
+        this.refCounted = refCounted;
+    }
+
+    /**
+     * Wraps a bytes reference that doesn't need to be released.
+     */
+    public static ReleasableBytesReference wrap(BytesReference reference) {
+        return new ReleasableBytesReference(reference, NO_OP);
+    }
+
+    @Override
+    public void incRef() {
+        refCounted.incRef();
+    }
+
+    @Override
+    public boolean tryIncRef() {
+        return refCounted.tryIncRef();
+    }
+
+    @Override
+    public void decRef() {
+        refCounted.decRef();
+    }
+
+    /**
+     * Increments the reference count and returns this reference, which must then be closed one more time for its content to be released.
+     */
+    public ReleasableBytesReference retain() {
+        incRef();
+        return this;
+    }
+
+    /**
+     * Returns a slice of this reference that shares its reference count without incrementing it, like Netty's {@code ByteBuf#slice}.
+     * The slice is only valid as long as this reference is, unless it is {@link #retain() retained}.
+     */
+    public ReleasableBytesReference sharedSlice(int from, int length) {
+        return new ReleasableBytesReference(delegate.slice(from, length), refCounted);
     }
 
     @Override
     public void close() {
-        Releasables.close(releasable);
+        decRef();
     }
 
     @Override
@@ -127,4 +177,19 @@ public final class ReleasableBytesReference implements Releasable, BytesReferenc
     public int hashCode() {
         return delegate.hashCode();
     }
+
+    private static final class RefCountedReleasable extends AbstractRefCounted {
+
+        private final Releasable releasable;
+
+        RefCountedReleasable(Releasable releasable) {
+            super("bytes-reference");
+            this.releasable = releasable;
+        }
+
+        @Override
+        protected void closeInternal() {
+            Releasables.close(releasable);
+        }
+    }
 }
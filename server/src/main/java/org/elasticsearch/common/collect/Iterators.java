@@ -19,10 +19,19 @@
 
 package org.elasticsearch.common.collect;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 public class Iterators {
+
+    /**
+     * Returns an iterator over the given single element.
+     */
+    public static <T> Iterator<T> single(T element) {
+        return Collections.singletonList(element).iterator();
+    }
+
     public static <T> Iterator<T> concat(Iterator<? extends T>... iterators) {
         if (iterators == null) {
             throw new NullPointerException("iterators");
@@ -0,0 +1,95 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.hash;
+
+/**
+ * Utilities for checksums.
+ */
+public final class Checksums {
+
+    private static final int GF2_DIM = 32;
+
+    private Checksums() {
+    }
+
+    /**
+     * Combines the CRC32 checksums of two consecutive blocks of bytes into the CRC32 checksum of their concatenation, without reading the
+     * bytes again. This makes it possible to compute the checksum of a file whose parts are read concurrently.
+     *
+     * @param crc1    the checksum of the first block
+     * @param crc2    the checksum of the second block
+     * @param length2 the length of the second block
+     * @return the checksum of the first block followed by the second block
+     */
+    public static long combineCrc32(long crc1, long crc2, long length2) {
+        // port of crc32_combine from zlib: appending length2 zero bytes to the first block is a linear operation on its checksum, which
+        // is applied by repeatedly squaring the operator for a single zero bit
+        if (length2 <= 0) {
+            return crc1;
+        }
+        final long[] even = new long[GF2_DIM];
+        final long[] odd = new long[GF2_DIM];
+
+        // operator for one zero bit
+        odd[0] = 0xedb88320L;
+        long row = 1;
+        for (int n = 1; n < GF2_DIM; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        // operator for two zero bits, then four
+        gf2MatrixSquare(even, odd);
+        gf2MatrixSquare(odd, even);
+
+        // apply length2 zero bytes, the first squaring yields the operator for one zero byte
+        do {
+            gf2MatrixSquare(even, odd);
+            if ((length2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(even, crc1);
+            }
+            length2 >>= 1;
+            if (length2 == 0) {
+                break;
+            }
+            gf2MatrixSquare(odd, even);
+            if ((length2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(odd, crc1);
+            }
+            length2 >>= 1;
+        } while (length2 != 0);
+        return crc1 ^ crc2;
+    }
+
+    private static long gf2MatrixTimes(long[] matrix, long vector) {
+        long sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void gf2MatrixSquare(long[] square, long[] matrix) {
+        for (int n = 0; n < GF2_DIM; n++) {
+            square[n] = gf2MatrixTimes(matrix, matrix[n]);
+        }
+    }
+}
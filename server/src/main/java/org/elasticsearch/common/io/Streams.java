@@ -235,6 +235,14 @@ public abstract class Streams {
         };
     }
 
+    /**
+     * Wraps an {@link InputStream} so that at most {@code limit} bytes can be read from it. Closing the returned stream closes the
+     * wrapped one.
+     */
+    public static InputStream limitStream(InputStream stream, long limit) {
+        return new LimitedInputStream(stream, limit);
+    }
+
     /**
      * Wraps the given {@link BytesStream} in a {@link StreamOutput} that simply flushes when
      * close is called.
@@ -254,6 +262,69 @@ public abstract class Streams {
         }
     }
 
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private long remaining;
+        private long mark;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            if (limit < 0L) {
+                throw new IllegalArgumentException("limit must be non-negative");
+            }
+            this.remaining = limit;
+            this.mark = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining == 0L) {
+                return -1;
+            }
+            final int result = in.read();
+            if (result != -1) {
+                remaining -= 1L;
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining == 0L) {
+                return -1;
+            }
+            final int result = in.read(b, off, (int) Math.min(len, remaining));
+            if (result > 0) {
+                remaining -= result;
+            }
+            return result;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            final long skipped = in.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+            in.mark(readlimit);
+            mark = remaining;
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            in.reset();
+            remaining = mark;
+        }
+    }
+
     /**
      * A wrapper around a {@link BytesStream} that makes the close operation a flush. This is
      * needed as sometimes a stream will be closed but the bytes that the stream holds still need
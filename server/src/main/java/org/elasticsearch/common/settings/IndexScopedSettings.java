@@ -104,6 +104,9 @@ public final class IndexScopedSettings extends AbstractScopedSettings {
             MergePolicyConfig.INDEX_MERGE_POLICY_MAX_MERGED_SEGMENT_SETTING,
             MergePolicyConfig.INDEX_MERGE_POLICY_SEGMENTS_PER_TIER_SETTING,
             MergePolicyConfig.INDEX_MERGE_POLICY_RECLAIM_DELETES_WEIGHT_SETTING,
+            MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING,
+            MergePolicyConfig.INDEX_MERGE_POLICY_TIME_SERIES_FIELD_SETTING,
+            MergePolicyConfig.INDEX_MERGE_POLICY_TIME_SERIES_MAX_AGE_SETTING,
             IndexSortConfig.INDEX_SORT_FIELD_SETTING,
             IndexSortConfig.INDEX_SORT_ORDER_SETTING,
             IndexSortConfig.INDEX_SORT_MISSING_SETTING,
@@ -111,6 +114,8 @@ public final class IndexScopedSettings extends AbstractScopedSettings {
             IndexSettings.INDEX_TRANSLOG_DURABILITY_SETTING,
             IndexSettings.INDEX_WARMER_ENABLED_SETTING,
             IndexSettings.INDEX_REFRESH_INTERVAL_SETTING,
+            IndexSettings.INDEX_REFRESH_ADAPTIVE_ENABLED_SETTING,
+            IndexSettings.INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING,
             IndexSettings.MAX_RESULT_WINDOW_SETTING,
             IndexSettings.MAX_INNER_RESULT_WINDOW_SETTING,
             IndexSettings.MAX_TOKEN_COUNT_SETTING,
@@ -127,6 +132,7 @@ public final class IndexScopedSettings extends AbstractScopedSettings {
             IndexSettings.ALLOW_UNMAPPED,
             IndexSettings.INDEX_CHECK_ON_STARTUP,
             IndexSettings.MAX_REFRESH_LISTENERS_PER_SHARD,
+            IndexSettings.BULK_PARSING_PARALLELISM_SETTING,
             IndexSettings.MAX_SLICES_PER_SCROLL,
             IndexSettings.MAX_REGEX_LENGTH_SETTING,
             ShardsLimitAllocationDecider.INDEX_TOTAL_SHARDS_PER_NODE_SETTING,
@@ -165,6 +171,7 @@ public final class IndexScopedSettings extends AbstractScopedSettings {
             IndexSettings.FINAL_PIPELINE,
             MetaDataIndexStateService.VERIFIED_BEFORE_CLOSE_SETTING,
             IndexSettings.ON_HEAP_ID_TERMS_INDEX,
+            IndexSettings.INDEX_BLOOM_FILTER_ID_FIELD_ENABLED_SETTING,
 
             // validate that built-in similarities don't get redefined
             Setting.groupSetting(
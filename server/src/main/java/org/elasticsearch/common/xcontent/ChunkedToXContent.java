@@ -0,0 +1,35 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.xcontent;
+
+import java.util.Iterator;
+
+/**
+ * An object that can be serialized to {@link XContent} in a sequence of chunks rather than in a single call to
+ * {@link ToXContent#toXContent}, so that large responses can be streamed to the client as they are serialized.
+ */
+public interface ChunkedToXContent {
+
+    /**
+     * Returns the chunks that make up the content of this object. Serializing all of them in order to the same {@link XContentBuilder}
+     * produces the full content of this object, including the start and end of its outermost object or array.
+     */
+    Iterator<? extends ToXContent> toXContentChunked(ToXContent.Params params);
+}
@@ -28,6 +28,7 @@ import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.network.CloseableChannel;
 import org.elasticsearch.common.network.NetworkAddress;
 import org.elasticsearch.common.network.NetworkService;
@@ -54,6 +55,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
@@ -64,6 +66,7 @@ import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_MAX_CONT
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_PORT;
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_PUBLISH_HOST;
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_PUBLISH_PORT;
+import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_STREAM_REQUEST_BODIES;
 
 public abstract class AbstractHttpServerTransport extends AbstractLifecycleComponent implements HttpServerTransport {
     private static final Logger logger = LogManager.getLogger(AbstractHttpServerTransport.class);
@@ -79,12 +82,15 @@ public abstract class AbstractHttpServerTransport extends AbstractLifecycleCompo
 
     protected final PortsRange port;
     protected final ByteSizeValue maxContentLength;
+    private final boolean streamRequestBodies;
     private final String[] bindHosts;
     private final String[] publishHosts;
 
     private volatile BoundTransportAddress boundAddress;
     private final AtomicLong totalChannelsAccepted = new AtomicLong();
-    private final Set<HttpChannel> httpChannels = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Map<HttpChannel, ChannelStats> httpChannels = new ConcurrentHashMap<>();
+    // the time between receiving requests and writing their responses
+    private final MeanMetric responseTime = new MeanMetric();
     private final Set<HttpServerChannel> httpServerChannels = Collections.newSetFromMap(new ConcurrentHashMap<>());
 
     private final HttpTracer tracer;
@@ -112,6 +118,7 @@ public abstract class AbstractHttpServerTransport extends AbstractLifecycleCompo
         this.port = SETTING_HTTP_PORT.get(settings);
 
         this.maxContentLength = SETTING_HTTP_MAX_CONTENT_LENGTH.get(settings);
+        this.streamRequestBodies = SETTING_HTTP_STREAM_REQUEST_BODIES.get(settings);
         this.tracer = new HttpTracer(settings, clusterSettings);
     }
 
@@ -131,7 +138,15 @@ public abstract class AbstractHttpServerTransport extends AbstractLifecycleCompo
 
     @Override
     public HttpStats stats() {
-        return new HttpStats(httpChannels.size(), totalChannelsAccepted.get());
+        long inFlightRequests = 0;
+        long maxChannelInFlightRequests = 0;
+        for (ChannelStats channelStats : httpChannels.values()) {
+            final long channelInFlightRequests = channelStats.inFlightRequests.get();
+            inFlightRequests += channelInFlightRequests;
+            maxChannelInFlightRequests = Math.max(maxChannelInFlightRequests, channelInFlightRequests);
+        }
+        return new HttpStats(httpChannels.size(), totalChannelsAccepted.get(), inFlightRequests, maxChannelInFlightRequests,
+            responseTime.count(), responseTime.sum());
     }
 
     protected void bindServer() {
@@ -207,7 +222,7 @@ public abstract class AbstractHttpServerTransport extends AbstractLifecycleCompo
         }
 
         try {
-            CloseableChannel.closeChannels(new ArrayList<>(httpChannels), true);
+            CloseableChannel.closeChannels(new ArrayList<>(httpChannels.keySet()), true);
         } catch (Exception e) {
             logger.warn("unexpected exception while closing http channels", e);
         }
@@ -291,7 +306,7 @@ public abstract class AbstractHttpServerTransport extends AbstractLifecycleCompo
     }
 
     protected void serverAcceptedChannel(HttpChannel httpChannel) {
-        boolean addedOnThisCall = httpChannels.add(httpChannel);
+        boolean addedOnThisCall = httpChannels.putIfAbsent(httpChannel, new ChannelStats()) == null;
         assert addedOnThisCall : "Channel should only be added to http channel set once";
         totalChannelsAccepted.incrementAndGet();
         httpChannel.addCloseListener(ActionListener.wrap(() -> httpChannels.remove(httpChannel)));
@@ -319,6 +334,15 @@ public abstract class AbstractHttpServerTransport extends AbstractLifecycleCompo
         handleIncomingRequest(httpRequest, httpChannel, exception);
     }
 
+    /**
+     * Returns whether the body of a request with the given method and uri should be streamed to the handler of the request as it
+     * arrives rather than being aggregated before the request is dispatched. Http modules that support streaming request bodies call this
+     * once the headers of a request have been received.
+     */
+    public boolean shouldStreamBody(RestRequest.Method method, String uri) {
+        return streamRequestBodies && dispatcher.supportsStreamedBody(method, uri);
+    }
+
     // Visible for testing
     void dispatchRequest(final RestRequest restRequest, final RestChannel channel, final Throwable badRequestCause) {
         final ThreadContext threadContext = threadPool.getThreadContext();
@@ -369,13 +393,13 @@ public abstract class AbstractHttpServerTransport extends AbstractLifecycleCompo
             RestChannel innerChannel;
             ThreadContext threadContext = threadPool.getThreadContext();
             try {
-                innerChannel =
-                    new DefaultRestChannel(httpChannel, httpRequest, restRequest, bigArrays, handlingSettings, threadContext, trace);
+                innerChannel = new DefaultRestChannel(trackResponses(httpChannel), httpRequest, restRequest, bigArrays, handlingSettings,
+                    threadContext, trace);
             } catch (final IllegalArgumentException e) {
                 badRequestCause = ExceptionsHelper.useOrSuppress(badRequestCause, e);
                 final RestRequest innerRequest = RestRequest.requestWithoutParameters(xContentRegistry, httpRequest, httpChannel);
-                innerChannel =
-                    new DefaultRestChannel(httpChannel, httpRequest, innerRequest, bigArrays, handlingSettings, threadContext, trace);
+                innerChannel = new DefaultRestChannel(trackResponses(httpChannel), httpRequest, innerRequest, bigArrays, handlingSettings,
+                    threadContext, trace);
             }
             channel = innerChannel;
         }
@@ -383,6 +407,79 @@ public abstract class AbstractHttpServerTransport extends AbstractLifecycleCompo
         dispatchRequest(restRequest, channel, badRequestCause);
     }
 
+    /**
+     * Returns the given channel wrapped so that the time until the response to a request is written and the number of requests that are
+     * waiting for their response are tracked, unless the channel hasn't been accepted by this transport.
+     */
+    private HttpChannel trackResponses(HttpChannel httpChannel) {
+        final ChannelStats channelStats = httpChannels.get(httpChannel);
+        if (channelStats == null) {
+            return httpChannel;
+        }
+        return new ResponseTrackingHttpChannel(httpChannel, channelStats, responseTime);
+    }
+
+    /**
+     * Stats about a single http channel.
+     */
+    private static final class ChannelStats {
+        // requests that have been received on the channel but whose responses haven't been written yet, which includes pipelined requests
+        private final AtomicLong inFlightRequests = new AtomicLong();
+    }
+
+    private static final class ResponseTrackingHttpChannel implements HttpChannel {
+
+        private final HttpChannel delegate;
+        private final ChannelStats channelStats;
+        private final MeanMetric responseTime;
+        private final long startTimeNanos = System.nanoTime();
+
+        private ResponseTrackingHttpChannel(HttpChannel delegate, ChannelStats channelStats, MeanMetric responseTime) {
+            this.delegate = delegate;
+            this.channelStats = channelStats;
+            this.responseTime = responseTime;
+            channelStats.inFlightRequests.incrementAndGet();
+        }
+
+        @Override
+        public void sendResponse(HttpResponse response, ActionListener<Void> listener) {
+            delegate.sendResponse(response, ActionListener.runBefore(listener, () -> {
+                channelStats.inFlightRequests.decrementAndGet();
+                responseTime.inc(System.nanoTime() - startTimeNanos);
+            }));
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return delegate.getLocalAddress();
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return delegate.getRemoteAddress();
+        }
+
+        @Override
+        public void addCloseListener(ActionListener<Void> listener) {
+            delegate.addCloseListener(listener);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return delegate.isOpen();
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+
     private RestRequest requestWithoutContentTypeHeader(HttpRequest httpRequest, HttpChannel httpChannel, Exception badRequestCause) {
         HttpRequest httpRequestWithoutContentType = httpRequest.removeHeader("Content-Type");
         try {
@@ -31,6 +31,8 @@ import org.elasticsearch.common.network.CloseableChannel;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.rest.AbstractRestChannel;
+import org.elasticsearch.rest.ChunkedRestResponse;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.RestChannel;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestResponse;
@@ -92,23 +94,41 @@ public class DefaultRestChannel extends AbstractRestChannel implements RestChann
         String opaque = null;
         String contentLength = null;
         try {
-            final BytesReference content = restResponse.content();
+            final BytesReference content;
+            final ChunkedRestResponseBody chunkedContent;
+            if (restResponse instanceof ChunkedRestResponse) {
+                final ChunkedRestResponseBody body = ((ChunkedRestResponse) restResponse).chunkedContent();
+                if (canStreamResponse()) {
+                    content = null;
+                    chunkedContent = body;
+                } else {
+                    content = ChunkedRestResponse.materialize(body, bigArrays);
+                    chunkedContent = null;
+                }
+            } else {
+                content = restResponse.content();
+                chunkedContent = null;
+            }
             if (content instanceof Releasable) {
                 toClose.add((Releasable) content);
             }
 
-            BytesReference finalContent = content;
-            try {
-                if (request.method() == RestRequest.Method.HEAD) {
-                    finalContent = BytesArray.EMPTY;
+            final HttpResponse httpResponse;
+            if (chunkedContent != null) {
+                httpResponse = httpRequest.createResponse(restResponse.status(), chunkedContent);
+            } else {
+                BytesReference finalContent = content;
+                try {
+                    if (request.method() == RestRequest.Method.HEAD) {
+                        finalContent = BytesArray.EMPTY;
+                    }
+                } catch (IllegalArgumentException ignored) {
+                    assert restResponse.status() == RestStatus.METHOD_NOT_ALLOWED :
+                        "request HTTP method is unsupported but HTTP status is not METHOD_NOT_ALLOWED(405)";
                 }
-            } catch (IllegalArgumentException ignored) {
-                assert restResponse.status() == RestStatus.METHOD_NOT_ALLOWED :
-                    "request HTTP method is unsupported but HTTP status is not METHOD_NOT_ALLOWED(405)";
+                httpResponse = httpRequest.createResponse(restResponse.status(), finalContent);
             }
 
-            final HttpResponse httpResponse = httpRequest.createResponse(restResponse.status(), finalContent);
-
             // TODO: Ideally we should move the setting of Cors headers into :server
             // NioCorsHandler.setCorsResponseHeaders(nettyRequest, resp, corsConfig);
 
@@ -123,9 +143,11 @@ public class DefaultRestChannel extends AbstractRestChannel implements RestChann
 
             // If our response doesn't specify a content-type header, set one
             setHeaderField(httpResponse, CONTENT_TYPE, restResponse.contentType(), false);
-            // If our response has no content-length, calculate and set one
-            contentLength = String.valueOf(restResponse.content().length());
-            setHeaderField(httpResponse, CONTENT_LENGTH, contentLength, false);
+            // If our response has no content-length, calculate and set one unless the content is streamed in chunks of unknown size
+            if (content != null) {
+                contentLength = String.valueOf(content.length());
+                setHeaderField(httpResponse, CONTENT_LENGTH, contentLength, false);
+            }
 
             addCookies(httpResponse);
 
@@ -178,6 +200,17 @@ public class DefaultRestChannel extends AbstractRestChannel implements RestChann
         }
     }
 
+    // Determine if a chunked response can be streamed, which requires chunked transfer encoding and a response that has a body.
+    // HEAD responses carry the content-length of the full body instead, so their content is serialized up-front.
+    private boolean canStreamResponse() {
+        try {
+            return request.method() != RestRequest.Method.HEAD
+                && request.getHttpRequest().protocolVersion() == HttpRequest.HttpVersion.HTTP_1_1;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
     // Determine if the request connection should be closed on completion.
     private boolean isCloseConnection() {
         try {
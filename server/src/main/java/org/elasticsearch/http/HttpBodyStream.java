@@ -0,0 +1,66 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.http;
+
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.lease.Releasable;
+
+/**
+ * The body of a {@link HttpRequest} that is received chunk by chunk while the request is already being handled, rather than being
+ * aggregated in full before the request is dispatched. Chunks are only read off the network once they have been requested, which pushes
+ * back on the client if the handler can't keep up with it.
+ */
+public interface HttpBodyStream extends Releasable {
+
+    /**
+     * Sets the handler that receives the chunks of the body. Must be set before the first chunk is requested.
+     */
+    void setHandler(ChunkHandler handler);
+
+    /**
+     * Requests the next chunk of the body, which is passed to the handler once it has been received. May be called from any thread, but
+     * only once per chunk.
+     */
+    void next();
+
+    /**
+     * Discards the remainder of the body. Chunks that have been received but not handled yet are released, and so are any further chunks
+     * as they arrive. Implementations should be idempotent.
+     */
+    @Override
+    void close();
+
+    interface ChunkHandler {
+
+        /**
+         * Handles the next chunk of the body, which the handler is responsible for releasing. Called on a network thread, so this must
+         * not block.
+         *
+         * @param chunk  the next chunk of the body, may be empty
+         * @param isLast whether this is the last chunk of the body
+         */
+        void onNext(ReleasableBytesReference chunk, boolean isLast);
+
+        /**
+         * Called if the body can't be received in full, for instance because the channel has been closed.
+         */
+        void onFailure(Exception e);
+    }
+}
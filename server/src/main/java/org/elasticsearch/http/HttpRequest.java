@@ -19,7 +19,11 @@
 
 package org.elasticsearch.http;
 
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.rest.ChunkedRestResponse;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestStatus;
 
@@ -52,6 +56,15 @@ public interface HttpRequest {
 
     BytesReference content();
 
+    /**
+     * Returns the stream that the body of this request is received from if it is streamed to the handler of the request rather than
+     * aggregated in full, in which case {@link #content()} is empty. Returns {@code null} if the body isn't streamed.
+     */
+    @Nullable
+    default HttpBodyStream bodyStream() {
+        return null;
+    }
+
     /**
      * Get all of the headers and values associated with the headers. Modifications of this map are not supported.
      */
@@ -69,8 +82,20 @@ public interface HttpRequest {
     HttpResponse createResponse(RestStatus status, BytesReference content);
 
     /**
-     * Release any resources associated with this request. Implementations should be idempotent. The behavior of {@link #content()}
-     * after this method has been invoked is undefined and implementation specific.
+     * Create an http response from this request and the supplied status and chunked content, which the http module writes to the
+     * channel chunk by chunk. Modules that don't support streaming responses serialize the whole content up-front instead.
+     */
+    default HttpResponse createResponse(RestStatus status, ChunkedRestResponseBody content) {
+        final BytesReference bytes = ChunkedRestResponse.materialize(content, BigArrays.NON_RECYCLING_INSTANCE);
+        final HttpResponse response = createResponse(status, bytes);
+        response.addHeader(DefaultRestChannel.CONTENT_LENGTH, String.valueOf(bytes.length()));
+        return response;
+    }
+
+    /**
+     * Release any resources associated with this request, including the remainder of its {@link #bodyStream() body stream}.
+     * Implementations should be idempotent. The behavior of {@link #content()} after this method has been invoked is undefined and
+     * implementation specific.
      */
     void release();
 
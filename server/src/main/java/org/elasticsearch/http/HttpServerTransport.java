@@ -23,6 +23,7 @@ import org.elasticsearch.common.component.LifecycleComponent;
 import org.elasticsearch.common.transport.BoundTransportAddress;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.rest.RestChannel;
+import org.elasticsearch.rest.RestHandler;
 import org.elasticsearch.rest.RestRequest;
 
 public interface HttpServerTransport extends LifecycleComponent {
@@ -60,5 +61,17 @@ public interface HttpServerTransport extends LifecycleComponent {
          */
         void dispatchBadRequest(RestChannel channel, ThreadContext threadContext, Throwable cause);
 
+        /**
+         * Returns whether the handler of requests with the given method and uri {@link RestHandler#supportsStreamedBody() supports}
+         * receiving their body while it is still arriving. Http modules that can stream request bodies consult this before the body of
+         * a request has been received.
+         *
+         * @param method the method of the request
+         * @param uri    the uri of the request, including the query string
+         */
+        default boolean supportsStreamedBody(RestRequest.Method method, String uri) {
+            return false;
+        }
+
     }
 }
@@ -19,33 +19,66 @@
 
 package org.elasticsearch.http;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 public class HttpStats implements Writeable, ToXContentFragment {
 
     private final long serverOpen;
     private final long totalOpen;
+    private final long inFlightRequests;
+    private final long maxChannelInFlightRequests;
+    private final long totalResponses;
+    private final long responseTimeInNanos;
 
     public HttpStats(long serverOpen, long totalOpened) {
+        this(serverOpen, totalOpened, 0, 0, 0, 0);
+    }
+
+    public HttpStats(long serverOpen, long totalOpened, long inFlightRequests, long maxChannelInFlightRequests, long totalResponses,
+                     long responseTimeInNanos) {
         this.serverOpen = serverOpen;
         this.totalOpen = totalOpened;
+        this.inFlightRequests = inFlightRequests;
+        this.maxChannelInFlightRequests = maxChannelInFlightRequests;
+        this.totalResponses = totalResponses;
+        this.responseTimeInNanos = responseTimeInNanos;
     }
 
     public HttpStats(StreamInput in) throws IOException {
         serverOpen = in.readVLong();
         totalOpen = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            inFlightRequests = in.readVLong();
+            maxChannelInFlightRequests = in.readVLong();
+            totalResponses = in.readVLong();
+            responseTimeInNanos = in.readVLong();
+        } else {
+            inFlightRequests = 0;
+            maxChannelInFlightRequests = 0;
+            totalResponses = 0;
+            responseTimeInNanos = 0;
+        }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVLong(serverOpen);
         out.writeVLong(totalOpen);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeVLong(inFlightRequests);
+            out.writeVLong(maxChannelInFlightRequests);
+            out.writeVLong(totalResponses);
+            out.writeVLong(responseTimeInNanos);
+        }
     }
 
     public long getServerOpen() {
@@ -56,10 +89,45 @@ public class HttpStats implements Writeable, ToXContentFragment {
         return this.totalOpen;
     }
 
+    /**
+     * Returns the number of requests that have been received but whose responses haven't been written yet.
+     */
+    public long getInFlightRequests() {
+        return inFlightRequests;
+    }
+
+    /**
+     * Returns the number of in-flight requests on the channel with the most in-flight requests, which shows how deep the pipeline of
+     * the busiest client is.
+     */
+    public long getMaxChannelInFlightRequests() {
+        return maxChannelInFlightRequests;
+    }
+
+    /**
+     * Returns the number of responses that have been written.
+     */
+    public long getTotalResponses() {
+        return totalResponses;
+    }
+
+    /**
+     * Returns the total time between receiving requests and writing their responses.
+     */
+    public TimeValue getResponseTime() {
+        return new TimeValue(responseTimeInNanos, TimeUnit.NANOSECONDS);
+    }
+
     static final class Fields {
         static final String HTTP = "http";
         static final String CURRENT_OPEN = "current_open";
         static final String TOTAL_OPENED = "total_opened";
+        static final String REQUESTS = "requests";
+        static final String IN_FLIGHT = "in_flight";
+        static final String MAX_CHANNEL_IN_FLIGHT = "max_channel_in_flight";
+        static final String TOTAL_RESPONSES = "total_responses";
+        static final String RESPONSE_TIME = "response_time";
+        static final String RESPONSE_TIME_IN_MILLIS = "response_time_in_millis";
     }
 
     @Override
@@ -67,6 +135,12 @@ public class HttpStats implements Writeable, ToXContentFragment {
         builder.startObject(Fields.HTTP);
         builder.field(Fields.CURRENT_OPEN, serverOpen);
         builder.field(Fields.TOTAL_OPENED, totalOpen);
+        builder.startObject(Fields.REQUESTS);
+        builder.field(Fields.IN_FLIGHT, inFlightRequests);
+        builder.field(Fields.MAX_CHANNEL_IN_FLIGHT, maxChannelInFlightRequests);
+        builder.field(Fields.TOTAL_RESPONSES, totalResponses);
+        builder.humanReadableField(Fields.RESPONSE_TIME_IN_MILLIS, Fields.RESPONSE_TIME, getResponseTime());
+        builder.endObject();
         builder.endObject();
         return builder;
     }
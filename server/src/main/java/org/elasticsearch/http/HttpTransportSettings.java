@@ -103,6 +103,11 @@ public final class HttpTransportSettings {
     public static final Setting<Boolean> SETTING_HTTP_RESET_COOKIES =
         Setting.boolSetting("http.reset_cookies", false, Property.NodeScope);
 
+    // bodies of requests to handlers that support it are passed on as they arrive rather than being aggregated up to max_content_length,
+    // which means that a bulk request may be partially executed before a malformed line further down its body is found
+    public static final Setting<Boolean> SETTING_HTTP_STREAM_REQUEST_BODIES =
+        Setting.boolSetting("http.stream_request_bodies", false, Property.NodeScope);
+
     // A default of 0 means that by default there is no read timeout
     public static final Setting<TimeValue> SETTING_HTTP_READ_TIMEOUT =
         Setting.timeSetting("http.read_timeout", new TimeValue(0), new TimeValue(0), Property.NodeScope);
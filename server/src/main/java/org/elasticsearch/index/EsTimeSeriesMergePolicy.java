@@ -0,0 +1,213 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.PointsReader;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.FilterMergePolicy;
+import org.apache.lucene.index.LogByteSizeMergePolicy;
+import org.apache.lucene.index.MergeTrigger;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.index.SegmentInfo;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.elasticsearch.core.internal.io.IOUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Merge policy for indices whose documents are mostly appended in the order of a timestamp field, such as logs.
+ *
+ * Segments are ordered by the smallest value of the timestamp field they contain and only adjacent segments in that order are merged
+ * together, using the same levels as {@link LogByteSizeMergePolicy}. As a consequence the time ranges of segments don't overlap, which
+ * allows range queries on the timestamp field to skip most segments based on the minimum and maximum values of their points. Segments
+ * whose most recent timestamp is older than a cutoff are not merged anymore unless they are smaller than the floor segment size, which
+ * avoids rewriting large segments of old data.
+ *
+ * The range of the timestamp field of each segment is read from its points index the first time the segment is considered for merging.
+ * Segments without values for the timestamp field are ordered after all other segments and are never considered old.
+ */
+final class EsTimeSeriesMergePolicy extends FilterMergePolicy {
+
+    private static final Logger logger = LogManager.getLogger(EsTimeSeriesMergePolicy.class);
+
+    private static final long[] NO_RANGE = new long[0];
+
+    private final String timestampField;
+    private final LongSupplier currentTimeInMillisSupplier;
+    private final Map<SegmentInfo, long[]> ranges = Collections.synchronizedMap(new WeakHashMap<>());
+    private volatile long maxAgeInMillis = -1;
+
+    EsTimeSeriesMergePolicy(String timestampField) {
+        this(timestampField, System::currentTimeMillis);
+    }
+
+    EsTimeSeriesMergePolicy(String timestampField, LongSupplier currentTimeInMillisSupplier) {
+        super(new LogByteSizeMergePolicy());
+        this.timestampField = timestampField;
+        this.currentTimeInMillisSupplier = currentTimeInMillisSupplier;
+    }
+
+    private LogByteSizeMergePolicy logMergePolicy() {
+        return (LogByteSizeMergePolicy) in;
+    }
+
+    @Override
+    public MergeSpecification findMerges(MergeTrigger mergeTrigger, SegmentInfos infos, MergeContext mergeContext) throws IOException {
+        return in.findMerges(mergeTrigger, sortByTimestamp(infos, true), mergeContext);
+    }
+
+    @Override
+    public MergeSpecification findForcedMerges(SegmentInfos infos, int maxSegmentCount,
+            Map<SegmentCommitInfo, Boolean> segmentsToMerge, MergeContext mergeContext) throws IOException {
+        return in.findForcedMerges(sortByTimestamp(infos, false), maxSegmentCount, segmentsToMerge, mergeContext);
+    }
+
+    @Override
+    public MergeSpecification findForcedDeletesMerges(SegmentInfos infos, MergeContext mergeContext) throws IOException {
+        return in.findForcedDeletesMerges(sortByTimestamp(infos, false), mergeContext);
+    }
+
+    /**
+     * Returns a copy of the given segments sorted by the smallest value of their timestamp field, optionally leaving out segments that
+     * are too old to be merged.
+     */
+    SegmentInfos sortByTimestamp(SegmentInfos infos, boolean excludeOldSegments) throws IOException {
+        final long maxAgeInMillis = this.maxAgeInMillis;
+        final long cutoff = excludeOldSegments && maxAgeInMillis >= 0 ? currentTimeInMillisSupplier.getAsLong() - maxAgeInMillis
+            : Long.MIN_VALUE;
+        final long floorSegmentBytes = (long) (logMergePolicy().getMinMergeMB() * 1024 * 1024);
+        final List<SegmentCommitInfo> segments = new ArrayList<>(infos.size());
+        final Map<SegmentCommitInfo, Long> minTimestamps = new HashMap<>(infos.size());
+        for (SegmentCommitInfo info : infos) {
+            final long[] range = timestampRange(info);
+            if (range != NO_RANGE && range[1] < cutoff && info.sizeInBytes() >= floorSegmentBytes) {
+                continue;
+            }
+            minTimestamps.put(info, range == NO_RANGE ? Long.MAX_VALUE : range[0]);
+            segments.add(info);
+        }
+        // stable, so segments with the same min timestamp keep the order in which they were written
+        segments.sort(Comparator.comparingLong(minTimestamps::get));
+        final SegmentInfos sorted = new SegmentInfos(infos.getIndexCreatedVersionMajor());
+        sorted.addAll(segments);
+        return sorted;
+    }
+
+    private long[] timestampRange(SegmentCommitInfo info) {
+        // the timestamps of a segment never change, deletes and doc-values updates don't affect points
+        return ranges.computeIfAbsent(info.info, segmentInfo -> {
+            try {
+                return readTimestampRange(segmentInfo);
+            } catch (IOException e) {
+                logger.debug(() -> new ParameterizedMessage("failed to read range of [{}] for segment [{}]",
+                    timestampField, segmentInfo.name), e);
+                return NO_RANGE;
+            }
+        });
+    }
+
+    private long[] readTimestampRange(SegmentInfo segmentInfo) throws IOException {
+        final Codec codec = segmentInfo.getCodec();
+        Directory compoundDirectory = null;
+        try {
+            Directory directory = segmentInfo.dir;
+            if (segmentInfo.getUseCompoundFile()) {
+                compoundDirectory = codec.compoundFormat().getCompoundReader(directory, segmentInfo, IOContext.READONCE);
+                directory = compoundDirectory;
+            }
+            final FieldInfos fieldInfos = codec.fieldInfosFormat().read(directory, segmentInfo, "", IOContext.READONCE);
+            final FieldInfo fieldInfo = fieldInfos.fieldInfo(timestampField);
+            if (fieldInfo == null || fieldInfo.getPointDimensionCount() != 1 || fieldInfo.getPointNumBytes() != Long.BYTES) {
+                return NO_RANGE;
+            }
+            final SegmentReadState state = new SegmentReadState(directory, segmentInfo, fieldInfos, false,
+                IOContext.READONCE, Collections.emptyMap());
+            try (PointsReader pointsReader = codec.pointsFormat().fieldsReader(state)) {
+                final PointValues values = pointsReader.getValues(timestampField);
+                if (values == null) {
+                    return NO_RANGE;
+                }
+                return new long[] {
+                    LongPoint.decodeDimension(values.getMinPackedValue(), 0),
+                    LongPoint.decodeDimension(values.getMaxPackedValue(), 0) };
+            }
+        } finally {
+            IOUtils.close(compoundDirectory);
+        }
+    }
+
+    /**
+     * Sets how old the most recent timestamp of a segment may be for the segment to be merged, a negative value means that segments
+     * are merged regardless of their age.
+     */
+    void setMaxAgeInMillis(long maxAgeInMillis) {
+        this.maxAgeInMillis = maxAgeInMillis;
+    }
+
+    long getMaxAgeInMillis() {
+        return maxAgeInMillis;
+    }
+
+    String getTimestampField() {
+        return timestampField;
+    }
+
+    void setFloorSegmentMB(double mbFrac) {
+        logMergePolicy().setMinMergeMB(mbFrac);
+    }
+
+    double getFloorSegmentMB() {
+        return logMergePolicy().getMinMergeMB();
+    }
+
+    void setMaxMergedSegmentMB(double mbFrac) {
+        logMergePolicy().setMaxMergeMB(mbFrac);
+    }
+
+    double getMaxMergedSegmentMB() {
+        return logMergePolicy().getMaxMergeMB();
+    }
+
+    void setMaxMergeAtOnce(int maxMergeAtOnce) {
+        logMergePolicy().setMergeFactor(maxMergeAtOnce);
+    }
+
+    int getMaxMergeAtOnce() {
+        return logMergePolicy().getMergeFactor();
+    }
+}
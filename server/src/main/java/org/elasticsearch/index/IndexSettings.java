@@ -88,6 +88,13 @@ public final class IndexSettings {
     public static final Setting<Boolean> ON_HEAP_ID_TERMS_INDEX =
             Setting.boolSetting("index.force_memory_id_terms_dictionary", false, Property.IndexScope);
 
+    /**
+     * Enables a per-segment bloom filter on the {@code _id} field. This speeds up id lookups, e.g. when indexing documents with an
+     * id that may already exist or when deleting documents by id, on shards that have many segments, at the cost of some disk space.
+     */
+    public static final Setting<Boolean> INDEX_BLOOM_FILTER_ID_FIELD_ENABLED_SETTING =
+            Setting.boolSetting("index.bloom_filter_for_id_field.enabled", false, Property.IndexScope);
+
     /**
      * Index setting describing the maximum value of from + size on a query.
      * The Default maximum value of from + size on a query is 10,000. This was chosen as
@@ -181,6 +188,18 @@ public final class IndexSettings {
     public static final Setting<TimeValue> INDEX_REFRESH_INTERVAL_SETTING =
         Setting.timeSetting("index.refresh_interval", DEFAULT_REFRESH_INTERVAL, new TimeValue(-1, TimeUnit.MILLISECONDS),
             Property.Dynamic, Property.IndexScope);
+    /**
+     * Whether scheduled refreshes of shards that are indexed into but not searched are spread out beyond the refresh interval, up to
+     * {@link #INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING}.
+     */
+    public static final Setting<Boolean> INDEX_REFRESH_ADAPTIVE_ENABLED_SETTING =
+        Setting.boolSetting("index.refresh.adaptive.enabled", false, Property.Dynamic, Property.IndexScope);
+    /**
+     * The maximum interval between two scheduled refreshes of a shard when adaptive refreshes are enabled.
+     */
+    public static final Setting<TimeValue> INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING =
+        Setting.timeSetting("index.refresh.adaptive.max_interval", TimeValue.timeValueSeconds(30), TimeValue.ZERO,
+            Property.Dynamic, Property.IndexScope);
     public static final Setting<ByteSizeValue> INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING =
         Setting.byteSizeSetting("index.translog.flush_threshold_size", new ByteSizeValue(512, ByteSizeUnit.MB),
             /*
@@ -280,6 +299,13 @@ public final class IndexSettings {
     public static final Setting<Integer> MAX_REFRESH_LISTENERS_PER_SHARD = Setting.intSetting("index.max_refresh_listeners",
         1000, 0, Property.Dynamic, Property.IndexScope);
 
+    /**
+     * The maximum number of write threads that parse the documents of a shard-level bulk request concurrently on the primary. Defaults
+     * to {@code 1}, which parses each document on the thread that indexes it.
+     */
+    public static final Setting<Integer> BULK_PARSING_PARALLELISM_SETTING = Setting.intSetting("index.bulk.parsing_parallelism",
+        1, 1, Property.Dynamic, Property.IndexScope);
+
     /**
      * The maximum number of slices allowed in a scroll request
      */
@@ -342,6 +368,8 @@ public final class IndexSettings {
     private volatile Translog.Durability durability;
     private volatile TimeValue syncInterval;
     private volatile TimeValue refreshInterval;
+    private volatile boolean adaptiveRefreshEnabled;
+    private volatile TimeValue adaptiveRefreshMaxInterval;
     private volatile ByteSizeValue flushThresholdSize;
     private volatile ByteSizeValue generationThresholdSize;
     private volatile ByteSizeValue flushAfterMergeThresholdSize;
@@ -352,6 +380,7 @@ public final class IndexSettings {
     private long gcDeletesInMillis = DEFAULT_GC_DELETES.millis();
     private final boolean softDeleteEnabled;
     private volatile long softDeleteRetentionOperations;
+    private final boolean idBloomFilterEnabled;
 
     private volatile long retentionLeaseMillis;
 
@@ -388,6 +417,10 @@ public final class IndexSettings {
      * The maximum number of refresh listeners allows on this shard.
      */
     private volatile int maxRefreshListeners;
+    /**
+     * The maximum number of threads that parse the documents of a shard-level bulk request concurrently.
+     */
+    private volatile int bulkParsingParallelism;
     /**
      * The maximum number of slices allowed in a scroll request.
      */
@@ -475,6 +508,8 @@ public final class IndexSettings {
         defaultFields = scopedSettings.get(DEFAULT_FIELD_SETTING);
         syncInterval = INDEX_TRANSLOG_SYNC_INTERVAL_SETTING.get(settings);
         refreshInterval = scopedSettings.get(INDEX_REFRESH_INTERVAL_SETTING);
+        adaptiveRefreshEnabled = scopedSettings.get(INDEX_REFRESH_ADAPTIVE_ENABLED_SETTING);
+        adaptiveRefreshMaxInterval = scopedSettings.get(INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING);
         flushThresholdSize = scopedSettings.get(INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING);
         generationThresholdSize = scopedSettings.get(INDEX_TRANSLOG_GENERATION_THRESHOLD_SIZE_SETTING);
         flushAfterMergeThresholdSize = scopedSettings.get(INDEX_FLUSH_AFTER_MERGE_THRESHOLD_SIZE_SETTING);
@@ -484,6 +519,7 @@ public final class IndexSettings {
         assert softDeleteEnabled || version.before(Version.V_8_0_0) : "soft deletes must be enabled in version " + version;
         softDeleteRetentionOperations = scopedSettings.get(INDEX_SOFT_DELETES_RETENTION_OPERATIONS_SETTING);
         retentionLeaseMillis = scopedSettings.get(INDEX_SOFT_DELETES_RETENTION_LEASE_PERIOD_SETTING).millis();
+        idBloomFilterEnabled = scopedSettings.get(INDEX_BLOOM_FILTER_ID_FIELD_ENABLED_SETTING);
         warmerEnabled = scopedSettings.get(INDEX_WARMER_ENABLED_SETTING);
         maxResultWindow = scopedSettings.get(MAX_RESULT_WINDOW_SETTING);
         maxInnerResultWindow = scopedSettings.get(MAX_INNER_RESULT_WINDOW_SETTING);
@@ -494,6 +530,7 @@ public final class IndexSettings {
         maxNgramDiff = scopedSettings.get(MAX_NGRAM_DIFF_SETTING);
         maxShingleDiff = scopedSettings.get(MAX_SHINGLE_DIFF_SETTING);
         maxRefreshListeners = scopedSettings.get(MAX_REFRESH_LISTENERS_PER_SHARD);
+        bulkParsingParallelism = scopedSettings.get(BULK_PARSING_PARALLELISM_SETTING);
         maxSlicesPerScroll = scopedSettings.get(MAX_SLICES_PER_SCROLL);
         maxAnalyzedOffset = scopedSettings.get(MAX_ANALYZED_OFFSET_SETTING);
         maxTermsCount = scopedSettings.get(MAX_TERMS_COUNT_SETTING);
@@ -518,6 +555,8 @@ public final class IndexSettings {
             mergePolicyConfig::setMaxMergedSegment);
         scopedSettings.addSettingsUpdateConsumer(MergePolicyConfig.INDEX_MERGE_POLICY_SEGMENTS_PER_TIER_SETTING,
             mergePolicyConfig::setSegmentsPerTier);
+        scopedSettings.addSettingsUpdateConsumer(MergePolicyConfig.INDEX_MERGE_POLICY_TIME_SERIES_MAX_AGE_SETTING,
+            mergePolicyConfig::setTimeSeriesMaxAge);
 
         scopedSettings.addSettingsUpdateConsumer(MergeSchedulerConfig.MAX_THREAD_COUNT_SETTING,
             MergeSchedulerConfig.MAX_MERGE_COUNT_SETTING, mergeSchedulerConfig::setMaxThreadAndMergeCount);
@@ -540,7 +579,10 @@ public final class IndexSettings {
                 INDEX_TRANSLOG_GENERATION_THRESHOLD_SIZE_SETTING,
                 this::setGenerationThresholdSize);
         scopedSettings.addSettingsUpdateConsumer(INDEX_REFRESH_INTERVAL_SETTING, this::setRefreshInterval);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_REFRESH_ADAPTIVE_ENABLED_SETTING, this::setAdaptiveRefreshEnabled);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING, this::setAdaptiveRefreshMaxInterval);
         scopedSettings.addSettingsUpdateConsumer(MAX_REFRESH_LISTENERS_PER_SHARD, this::setMaxRefreshListeners);
+        scopedSettings.addSettingsUpdateConsumer(BULK_PARSING_PARALLELISM_SETTING, this::setBulkParsingParallelism);
         scopedSettings.addSettingsUpdateConsumer(MAX_ANALYZED_OFFSET_SETTING, this::setHighlightMaxAnalyzedOffset);
         scopedSettings.addSettingsUpdateConsumer(MAX_TERMS_COUNT_SETTING, this::setMaxTermsCount);
         scopedSettings.addSettingsUpdateConsumer(MAX_SLICES_PER_SCROLL, this::setMaxSlicesPerScroll);
@@ -576,6 +618,14 @@ public final class IndexSettings {
         this.refreshInterval = timeValue;
     }
 
+    private void setAdaptiveRefreshEnabled(boolean adaptiveRefreshEnabled) {
+        this.adaptiveRefreshEnabled = adaptiveRefreshEnabled;
+    }
+
+    private void setAdaptiveRefreshMaxInterval(TimeValue adaptiveRefreshMaxInterval) {
+        this.adaptiveRefreshMaxInterval = adaptiveRefreshMaxInterval;
+    }
+
     /**
      * Returns the settings for this index. These settings contain the node and index level settings where
      * settings that are specified on both index and node level are overwritten by the index settings.
@@ -730,6 +780,21 @@ public final class IndexSettings {
         return refreshInterval;
     }
 
+    /**
+     * Returns <code>true</code> if scheduled refreshes of shards that are indexed into but not searched may be spread out beyond the
+     * refresh interval.
+     */
+    public boolean isAdaptiveRefreshEnabled() {
+        return adaptiveRefreshEnabled;
+    }
+
+    /**
+     * Returns the maximum interval between two scheduled refreshes of a shard when adaptive refreshes are enabled.
+     */
+    public TimeValue getAdaptiveRefreshMaxInterval() {
+        return adaptiveRefreshMaxInterval;
+    }
+
     /**
      * Returns the transaction log threshold size when to forcefully flush the index and clear the transaction log.
      */
@@ -882,6 +947,17 @@ public final class IndexSettings {
         this.maxRefreshListeners = maxRefreshListeners;
     }
 
+    /**
+     * The maximum number of threads that parse the documents of a shard-level bulk request concurrently.
+     */
+    public int getBulkParsingParallelism() {
+        return bulkParsingParallelism;
+    }
+
+    private void setBulkParsingParallelism(int bulkParsingParallelism) {
+        this.bulkParsingParallelism = bulkParsingParallelism;
+    }
+
     /**
      * The maximum number of slices allowed in a scroll request.
      */
@@ -959,6 +1035,13 @@ public final class IndexSettings {
         return this.softDeleteRetentionOperations;
     }
 
+    /**
+     * Returns <code>true</code> if segments should be written with a bloom filter on the <code>_id</code> field.
+     */
+    public boolean isIdBloomFilterEnabled() {
+        return idBloomFilterEnabled;
+    }
+
     /**
      * Returns true if the this index should be searched throttled ie. using the
      * {@link org.elasticsearch.threadpool.ThreadPool.Names#SEARCH_THROTTLED} thread-pool
@@ -27,6 +27,9 @@ import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+
+import java.util.Locale;
 
 /**
  * A shard in elasticsearch is a Lucene index, and a Lucene index is broken
@@ -91,6 +94,16 @@ import org.elasticsearch.common.unit.ByteSizeValue;
  * </ul>
  *
  * <p>
+ * Indices of timestamped data that is mostly appended in time order can set the static
+ * <code>index.merge.policy.type</code> setting to <code>time_series</code> instead of the default
+ * <code>tiered</code>. This merge policy only merges segments that are adjacent when ordered by the
+ * <code>index.merge.policy.time_series.field</code> field (<code>@timestamp</code> by default) and stops
+ * merging segments whose most recent timestamp is older than the dynamic
+ * <code>index.merge.policy.time_series.max_age</code> setting (<code>7d</code> by default), unless they
+ * are smaller than <code>floor_segment</code>. It uses the <code>floor_segment</code>, <code>max_merge_at_once</code>,
+ * <code>max_merged_segment</code> and <code>index.compound_format</code> settings and ignores the others.
+ *
+ * <p>
  * For normal merging, the policy first computes a "budget" of how many
  * segments are allowed to be in the index. If the index is over-budget,
  * then the policy sorts segments by decreasing size (proportionally considering percent
@@ -117,6 +130,7 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 
 public final class MergePolicyConfig {
     private final EsTieredMergePolicy mergePolicy = new EsTieredMergePolicy();
+    private final EsTimeSeriesMergePolicy timeSeriesMergePolicy; // null unless the time_series merge policy is used
     private final Logger logger;
     private final boolean mergesEnabled;
 
@@ -128,6 +142,7 @@ public final class MergePolicyConfig {
     public static final double          DEFAULT_SEGMENTS_PER_TIER           = 10.0d;
     public static final double          DEFAULT_RECLAIM_DELETES_WEIGHT      = 2.0d;
     public static final double          DEFAULT_DELETES_PCT_ALLOWED         = 33.0d;
+    public static final TimeValue       DEFAULT_TIME_SERIES_MAX_AGE         = TimeValue.timeValueDays(7);
     public static final Setting<Double> INDEX_COMPOUND_FORMAT_SETTING       =
         new Setting<>("index.compound_format", Double.toString(TieredMergePolicy.DEFAULT_NO_CFS_RATIO),
             MergePolicyConfig::parseNoCFSRatio, Property.Dynamic, Property.IndexScope);
@@ -156,6 +171,13 @@ public final class MergePolicyConfig {
     public static final Setting<Double> INDEX_MERGE_POLICY_DELETES_PCT_ALLOWED_SETTING =
         Setting.doubleSetting("index.merge.policy.deletes_pct_allowed", DEFAULT_DELETES_PCT_ALLOWED, 20.0d, 50.0d,
             Property.Dynamic, Property.IndexScope);
+    public static final Setting<Type> INDEX_MERGE_POLICY_TYPE_SETTING =
+        new Setting<>("index.merge.policy.type", Type.TIERED.toString(), Type::fromString, Property.IndexScope);
+    public static final Setting<String> INDEX_MERGE_POLICY_TIME_SERIES_FIELD_SETTING =
+        Setting.simpleString("index.merge.policy.time_series.field", "@timestamp", Property.IndexScope);
+    public static final Setting<TimeValue> INDEX_MERGE_POLICY_TIME_SERIES_MAX_AGE_SETTING =
+        Setting.timeSetting("index.merge.policy.time_series.max_age", DEFAULT_TIME_SERIES_MAX_AGE, TimeValue.MINUS_ONE,
+            Property.Dynamic, Property.IndexScope);
     // don't convert to Setting<> and register... we only set this in tests and register via a plugin
     public static final String INDEX_MERGE_ENABLED = "index.merge.enabled";
 
@@ -185,6 +207,16 @@ public final class MergePolicyConfig {
         mergePolicy.setMaxMergedSegmentMB(maxMergedSegment.getMbFrac());
         mergePolicy.setSegmentsPerTier(segmentsPerTier);
         mergePolicy.setDeletesPctAllowed(deletesPctAllowed);
+        if (indexSettings.getValue(INDEX_MERGE_POLICY_TYPE_SETTING) == Type.TIME_SERIES) {
+            timeSeriesMergePolicy = new EsTimeSeriesMergePolicy(indexSettings.getValue(INDEX_MERGE_POLICY_TIME_SERIES_FIELD_SETTING));
+            timeSeriesMergePolicy.setNoCFSRatio(indexSettings.getValue(INDEX_COMPOUND_FORMAT_SETTING));
+            timeSeriesMergePolicy.setFloorSegmentMB(floorSegment.getMbFrac());
+            timeSeriesMergePolicy.setMaxMergeAtOnce(maxMergeAtOnce);
+            timeSeriesMergePolicy.setMaxMergedSegmentMB(maxMergedSegment.getMbFrac());
+            timeSeriesMergePolicy.setMaxAgeInMillis(indexSettings.getValue(INDEX_MERGE_POLICY_TIME_SERIES_MAX_AGE_SETTING).millis());
+        } else {
+            timeSeriesMergePolicy = null;
+        }
         if (logger.isTraceEnabled()) {
             logger.trace("using [tiered] merge mergePolicy with expunge_deletes_allowed[{}], floor_segment[{}]," +
                     " max_merge_at_once[{}], max_merge_at_once_explicit[{}], max_merged_segment[{}], segments_per_tier[{}]," +
@@ -200,6 +232,9 @@ public final class MergePolicyConfig {
 
     void setMaxMergedSegment(ByteSizeValue maxMergedSegment) {
         mergePolicy.setMaxMergedSegmentMB(maxMergedSegment.getMbFrac());
+        if (timeSeriesMergePolicy != null) {
+            timeSeriesMergePolicy.setMaxMergedSegmentMB(maxMergedSegment.getMbFrac());
+        }
     }
 
     void setMaxMergesAtOnceExplicit(Integer maxMergeAtOnceExplicit) {
@@ -208,10 +243,16 @@ public final class MergePolicyConfig {
 
     void setMaxMergesAtOnce(Integer maxMergeAtOnce) {
         mergePolicy.setMaxMergeAtOnce(maxMergeAtOnce);
+        if (timeSeriesMergePolicy != null) {
+            timeSeriesMergePolicy.setMaxMergeAtOnce(maxMergeAtOnce);
+        }
     }
 
     void setFloorSegmentSetting(ByteSizeValue floorSegementSetting) {
         mergePolicy.setFloorSegmentMB(floorSegementSetting.getMbFrac());
+        if (timeSeriesMergePolicy != null) {
+            timeSeriesMergePolicy.setFloorSegmentMB(floorSegementSetting.getMbFrac());
+        }
     }
 
     void setExpungeDeletesAllowed(Double value) {
@@ -220,12 +261,21 @@ public final class MergePolicyConfig {
 
     void setNoCFSRatio(Double noCFSRatio) {
         mergePolicy.setNoCFSRatio(noCFSRatio);
+        if (timeSeriesMergePolicy != null) {
+            timeSeriesMergePolicy.setNoCFSRatio(noCFSRatio);
+        }
     }
 
     void setDeletesPctAllowed(Double deletesPctAllowed) {
         mergePolicy.setDeletesPctAllowed(deletesPctAllowed);
     }
 
+    void setTimeSeriesMaxAge(TimeValue maxAge) {
+        if (timeSeriesMergePolicy != null) {
+            timeSeriesMergePolicy.setMaxAgeInMillis(maxAge.millis());
+        }
+    }
+
     private int adjustMaxMergeAtOnceIfNeeded(int maxMergeAtOnce, double segmentsPerTier) {
         // fixing maxMergeAtOnce, see TieredMergePolicy#setMaxMergeAtOnce
         if (!(segmentsPerTier >= maxMergeAtOnce)) {
@@ -243,7 +293,10 @@ public final class MergePolicyConfig {
     }
 
     MergePolicy getMergePolicy() {
-        return mergesEnabled ? mergePolicy : NoMergePolicy.INSTANCE;
+        if (mergesEnabled == false) {
+            return NoMergePolicy.INSTANCE;
+        }
+        return timeSeriesMergePolicy != null ? timeSeriesMergePolicy : mergePolicy;
     }
 
     private static double parseNoCFSRatio(String noCFSRatio) {
@@ -265,4 +318,28 @@ public final class MergePolicyConfig {
             }
         }
     }
+
+    /**
+     * The merge policies that can be configured with {@link #INDEX_MERGE_POLICY_TYPE_SETTING}.
+     */
+    public enum Type {
+        TIERED,
+        TIME_SERIES;
+
+        static Type fromString(String type) {
+            switch (type) {
+                case "tiered":
+                    return TIERED;
+                case "time_series":
+                    return TIME_SERIES;
+                default:
+                    throw new IllegalArgumentException("unknown merge policy type [" + type + "], must be one of [tiered, time_series]");
+            }
+        }
+
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
 }
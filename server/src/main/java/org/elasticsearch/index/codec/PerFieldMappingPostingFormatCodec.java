@@ -25,7 +25,9 @@ import org.apache.lucene.codecs.PostingsFormat;
 import org.apache.lucene.codecs.lucene50.Lucene50StoredFieldsFormat;
 import org.apache.lucene.codecs.lucene84.Lucene84Codec;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.index.codec.bloomfilter.ES85BloomFilterPostingsFormat;
 import org.elasticsearch.index.mapper.CompletionFieldMapper;
+import org.elasticsearch.index.mapper.IdFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.MapperService;
 
@@ -36,10 +38,14 @@ import org.elasticsearch.index.mapper.MapperService;
  * allows users to change the low level postings format for individual fields
  * per index in real time via the mapping API. If no specific postings format is
  * configured for a specific field the default postings format is used.
+ * If {@code index.bloom_filter_for_id_field.enabled} is set, the {@code _id}
+ * field additionally gets a bloom filter per segment in order to speed up id
+ * lookups.
  */
 public class PerFieldMappingPostingFormatCodec extends Lucene84Codec {
     private final Logger logger;
     private final MapperService mapperService;
+    private final PostingsFormat idPostingsFormat;
 
     static {
         assert Codec.forName(Lucene.LATEST_CODEC).getClass().isAssignableFrom(PerFieldMappingPostingFormatCodec.class) :
@@ -50,10 +56,18 @@ public class PerFieldMappingPostingFormatCodec extends Lucene84Codec {
         super(compressionMode);
         this.mapperService = mapperService;
         this.logger = logger;
+        if (mapperService.getIndexSettings().isIdBloomFilterEnabled()) {
+            this.idPostingsFormat = new ES85BloomFilterPostingsFormat(super.getPostingsFormatForField(IdFieldMapper.NAME));
+        } else {
+            this.idPostingsFormat = null;
+        }
     }
 
     @Override
     public PostingsFormat getPostingsFormatForField(String field) {
+        if (idPostingsFormat != null && IdFieldMapper.NAME.equals(field)) {
+            return idPostingsFormat;
+        }
         final MappedFieldType fieldType = mapperService.fieldType(field);
         if (fieldType == null) {
             logger.warn("no index mapper found for field: [{}] returning default postings format", field);
@@ -0,0 +1,395 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.codec.bloomfilter;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.FieldsConsumer;
+import org.apache.lucene.codecs.FieldsProducer;
+import org.apache.lucene.codecs.NormsProducer;
+import org.apache.lucene.codecs.PostingsFormat;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.Fields;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RandomAccessInput;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.hash.MurmurHash3;
+import org.elasticsearch.core.internal.io.IOUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link PostingsFormat} that wraps another postings format and additionally writes a bloom filter of the terms of each
+ * field per segment. {@link TermsEnum#seekExact(BytesRef)} consults the bloom filter before seeking the terms dictionary of the
+ * delegate, which allows to skip segments that can't contain a term without touching the terms index. This is mostly useful
+ * for primary key lookups on the {@code _id} field where most segments don't contain the id that is looked up, e.g. when
+ * resolving the current version of a document for an update or a delete.
+ *
+ * The bloom filters are stored in a separate file per segment and are read off-heap.
+ */
+public final class ES85BloomFilterPostingsFormat extends PostingsFormat {
+
+    public static final String NAME = "ES85BloomFilter";
+    static final String BLOOM_CODEC_NAME = "ES85BloomFilter";
+    static final int VERSION_START = 0;
+    static final int VERSION_CURRENT = VERSION_START;
+    static final String BLOOM_FILTER_META_FILE = "bfm";
+    static final String BLOOM_FILTER_INDEX_FILE = "bfi";
+
+    /** the number of bits that are used per document of the segment */
+    static final int BITS_PER_DOC = 10;
+    /** the maximum size of a single bloom filter in bits, larger segments get a higher false positive rate instead */
+    static final int MAX_NUM_BITS = 1 << 28;
+    static final int MAX_NUM_HASH_FUNCTIONS = 7;
+
+    private final PostingsFormat postingsFormat;
+
+    /**
+     * Creates a bloom filter postings format that writes its postings with the given postings format.
+     */
+    public ES85BloomFilterPostingsFormat(PostingsFormat postingsFormat) {
+        super(NAME);
+        this.postingsFormat = postingsFormat;
+    }
+
+    /**
+     * Used by SPI to read existing segments, the delegate postings format is read from the segment.
+     */
+    public ES85BloomFilterPostingsFormat() {
+        this(null);
+    }
+
+    @Override
+    public FieldsConsumer fieldsConsumer(SegmentWriteState state) throws IOException {
+        if (postingsFormat == null) {
+            throw new IllegalStateException("postings format must be specified in order to write segments");
+        }
+        return new FieldsWriter(state);
+    }
+
+    @Override
+    public FieldsProducer fieldsProducer(SegmentReadState state) throws IOException {
+        return new FieldsReader(state);
+    }
+
+    @Override
+    public String toString() {
+        return NAME + "(" + postingsFormat + ")";
+    }
+
+    static String metaFile(String segmentName, String segmentSuffix) {
+        return IndexFileNames.segmentFileName(segmentName, segmentSuffix, BLOOM_FILTER_META_FILE);
+    }
+
+    static String indexFile(String segmentName, String segmentSuffix) {
+        return IndexFileNames.segmentFileName(segmentName, segmentSuffix, BLOOM_FILTER_INDEX_FILE);
+    }
+
+    /**
+     * Returns the number of bits of the bloom filter for a segment with the given number of documents. The result is always
+     * a multiple of {@link Byte#SIZE}.
+     */
+    static int numBits(int maxDoc) {
+        final long numBits = Math.min(MAX_NUM_BITS, Math.max(Byte.SIZE, (long) maxDoc * BITS_PER_DOC));
+        return Math.toIntExact((numBits + Byte.SIZE - 1) / Byte.SIZE * Byte.SIZE);
+    }
+
+    /**
+     * Returns the optimal number of hash functions for the given number of bits per document, that is {@code ln(2) * m / n}.
+     */
+    static int numHashFunctions(int maxDoc, int numBits) {
+        final double bitsPerDoc = (double) numBits / Math.max(1, maxDoc);
+        return (int) Math.max(1, Math.min(MAX_NUM_HASH_FUNCTIONS, Math.round(bitsPerDoc * Math.log(2))));
+    }
+
+    /**
+     * Returns the position of the bit that the given hash function maps the hashed term to. The hash functions are derived
+     * from the two halves of a murmur3 128 bits hash using double hashing, and the upper 32 bits of the result are mapped
+     * to {@code [0, numBits)} with a multiplication and a shift rather than a (much slower) modulo.
+     */
+    static long bitPosition(MurmurHash3.Hash128 hash, int hashFunction, int numBits) {
+        return ((hash.h1 + hashFunction * hash.h2) >>> 32) * numBits >>> 32;
+    }
+
+    static MurmurHash3.Hash128 hash(BytesRef term, MurmurHash3.Hash128 hash) {
+        return MurmurHash3.hash128(term.bytes, term.offset, term.length, 0, hash);
+    }
+
+    private static final class BloomFilterMetadata {
+        final int fieldNumber;
+        final long startFilePointer;
+        final int numBits;
+        final int numHashFunctions;
+
+        BloomFilterMetadata(int fieldNumber, long startFilePointer, int numBits, int numHashFunctions) {
+            this.fieldNumber = fieldNumber;
+            this.startFilePointer = startFilePointer;
+            this.numBits = numBits;
+            this.numHashFunctions = numHashFunctions;
+        }
+
+        int sizeInBytes() {
+            return numBits / Byte.SIZE;
+        }
+    }
+
+    final class FieldsWriter extends FieldsConsumer {
+        private final SegmentWriteState state;
+        private final FieldsConsumer delegateFieldsConsumer;
+        private final IndexOutput indexOut;
+        private final List<BloomFilterMetadata> bloomFilters = new ArrayList<>();
+        private final List<Closeable> toCloses = new ArrayList<>();
+        private boolean closed;
+
+        FieldsWriter(SegmentWriteState state) throws IOException {
+            this.state = state;
+            boolean success = false;
+            try {
+                delegateFieldsConsumer = postingsFormat.fieldsConsumer(state);
+                toCloses.add(delegateFieldsConsumer);
+                indexOut = state.directory.createOutput(indexFile(state.segmentInfo.name, state.segmentSuffix), state.context);
+                toCloses.add(indexOut);
+                CodecUtil.writeIndexHeader(indexOut, BLOOM_CODEC_NAME, VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+                success = true;
+            } finally {
+                if (success == false) {
+                    IOUtils.closeWhileHandlingException(toCloses);
+                }
+            }
+        }
+
+        @Override
+        public void write(Fields fields, NormsProducer norms) throws IOException {
+            delegateFieldsConsumer.write(fields, norms);
+            final int maxDoc = state.segmentInfo.maxDoc();
+            final MurmurHash3.Hash128 hash = new MurmurHash3.Hash128();
+            for (String field : fields) {
+                final Terms terms = fields.terms(field);
+                if (terms == null) {
+                    continue;
+                }
+                final FieldInfo fieldInfo = state.fieldInfos.fieldInfo(field);
+                final int numBits = numBits(maxDoc);
+                final int numHashFunctions = numHashFunctions(maxDoc, numBits);
+                final byte[] buffer = new byte[numBits / Byte.SIZE];
+                final TermsEnum termsEnum = terms.iterator();
+                for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+                    hash(term, hash);
+                    for (int i = 0; i < numHashFunctions; i++) {
+                        final long bit = bitPosition(hash, i, numBits);
+                        buffer[(int) (bit >>> 3)] |= (byte) (1 << (bit & 7));
+                    }
+                }
+                bloomFilters.add(new BloomFilterMetadata(fieldInfo.number, indexOut.getFilePointer(), numBits, numHashFunctions));
+                indexOut.writeBytes(buffer, 0, buffer.length);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                CodecUtil.writeFooter(indexOut);
+            } finally {
+                IOUtils.close(toCloses);
+            }
+            try (IndexOutput metaOut = state.directory.createOutput(metaFile(state.segmentInfo.name, state.segmentSuffix),
+                state.context)) {
+                CodecUtil.writeIndexHeader(metaOut, BLOOM_CODEC_NAME, VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+                metaOut.writeString(postingsFormat.getName());
+                metaOut.writeVInt(bloomFilters.size());
+                for (BloomFilterMetadata bloomFilter : bloomFilters) {
+                    metaOut.writeVInt(bloomFilter.fieldNumber);
+                    metaOut.writeVLong(bloomFilter.startFilePointer);
+                    metaOut.writeVInt(bloomFilter.numBits);
+                    metaOut.writeVInt(bloomFilter.numHashFunctions);
+                }
+                CodecUtil.writeFooter(metaOut);
+            }
+        }
+    }
+
+    static final class FieldsReader extends FieldsProducer {
+        private final FieldsProducer delegateFieldsProducer;
+        private final Map<String, BloomFilterMetadata> bloomFilters;
+        private final IndexInput indexIn;
+
+        FieldsReader(SegmentReadState state) throws IOException {
+            final String metaFile = metaFile(state.segmentInfo.name, state.segmentSuffix);
+            final Map<String, BloomFilterMetadata> bloomFilters = new HashMap<>();
+            final String postingsFormatName;
+            try (ChecksumIndexInput metaIn = state.directory.openChecksumInput(metaFile, state.context)) {
+                Throwable priorE = null;
+                String formatName = null;
+                try {
+                    CodecUtil.checkIndexHeader(metaIn, BLOOM_CODEC_NAME, VERSION_START, VERSION_CURRENT,
+                        state.segmentInfo.getId(), state.segmentSuffix);
+                    formatName = metaIn.readString();
+                    final int numBloomFilters = metaIn.readVInt();
+                    for (int i = 0; i < numBloomFilters; i++) {
+                        final FieldInfo fieldInfo = state.fieldInfos.fieldInfo(metaIn.readVInt());
+                        final BloomFilterMetadata bloomFilter =
+                            new BloomFilterMetadata(fieldInfo.number, metaIn.readVLong(), metaIn.readVInt(), metaIn.readVInt());
+                        bloomFilters.put(fieldInfo.name, bloomFilter);
+                    }
+                } catch (Throwable t) {
+                    priorE = t;
+                } finally {
+                    CodecUtil.checkFooter(metaIn, priorE);
+                }
+                postingsFormatName = formatName;
+            }
+            this.bloomFilters = Map.copyOf(bloomFilters);
+            final List<Closeable> toCloses = new ArrayList<>(2);
+            boolean success = false;
+            try {
+                delegateFieldsProducer = PostingsFormat.forName(postingsFormatName).fieldsProducer(state);
+                toCloses.add(delegateFieldsProducer);
+                indexIn = state.directory.openInput(indexFile(state.segmentInfo.name, state.segmentSuffix), state.context);
+                toCloses.add(indexIn);
+                CodecUtil.checkIndexHeader(indexIn, BLOOM_CODEC_NAME, VERSION_START, VERSION_CURRENT,
+                    state.segmentInfo.getId(), state.segmentSuffix);
+                // only verify the structure of the footer here, the full checksum is verified on checkIntegrity
+                CodecUtil.retrieveChecksum(indexIn);
+                success = true;
+            } finally {
+                if (success == false) {
+                    IOUtils.closeWhileHandlingException(toCloses);
+                }
+            }
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return delegateFieldsProducer.iterator();
+        }
+
+        @Override
+        public Terms terms(String field) throws IOException {
+            final Terms terms = delegateFieldsProducer.terms(field);
+            final BloomFilterMetadata bloomFilter = bloomFilters.get(field);
+            if (terms == null || bloomFilter == null) {
+                return terms;
+            }
+            return new BloomFilterTerms(terms, indexIn, bloomFilter);
+        }
+
+        @Override
+        public int size() {
+            return delegateFieldsProducer.size();
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOUtils.close(delegateFieldsProducer, indexIn);
+        }
+
+        @Override
+        public void checkIntegrity() throws IOException {
+            delegateFieldsProducer.checkIntegrity();
+            CodecUtil.checksumEntireFile(indexIn);
+        }
+
+        @Override
+        public FieldsProducer getMergeInstance() {
+            // merges visit all terms sequentially, so there's nothing to gain from the bloom filters
+            return delegateFieldsProducer.getMergeInstance();
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return delegateFieldsProducer.ramBytesUsed() + RamUsageEstimator.shallowSizeOfInstance(FieldsReader.class)
+                + (long) bloomFilters.size() * RamUsageEstimator.shallowSizeOfInstance(BloomFilterMetadata.class);
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + "(fields=" + bloomFilters.keySet() + ",delegate=" + delegateFieldsProducer + ")";
+        }
+    }
+
+    private static final class BloomFilterTerms extends FilterLeafReader.FilterTerms {
+        private final IndexInput indexIn;
+        private final BloomFilterMetadata bloomFilter;
+
+        BloomFilterTerms(Terms in, IndexInput indexIn, BloomFilterMetadata bloomFilter) {
+            super(in);
+            this.indexIn = indexIn;
+            this.bloomFilter = bloomFilter;
+        }
+
+        @Override
+        public TermsEnum iterator() throws IOException {
+            // slices are cheap to create and each terms enum is used by a single thread only
+            final RandomAccessInput bits = indexIn.randomAccessSlice(bloomFilter.startFilePointer, bloomFilter.sizeInBytes());
+            return new BloomFilterTermsEnum(in.iterator(), bits, bloomFilter.numBits, bloomFilter.numHashFunctions);
+        }
+    }
+
+    private static final class BloomFilterTermsEnum extends FilterLeafReader.FilterTermsEnum {
+        private final RandomAccessInput bits;
+        private final int numBits;
+        private final int numHashFunctions;
+        private final MurmurHash3.Hash128 hash = new MurmurHash3.Hash128();
+
+        BloomFilterTermsEnum(TermsEnum in, RandomAccessInput bits, int numBits, int numHashFunctions) {
+            super(in);
+            this.bits = bits;
+            this.numBits = numBits;
+            this.numHashFunctions = numHashFunctions;
+        }
+
+        @Override
+        public boolean seekExact(BytesRef text) throws IOException {
+            if (mayContain(text) == false) {
+                return false;
+            }
+            return in.seekExact(text);
+        }
+
+        private boolean mayContain(BytesRef term) throws IOException {
+            hash(term, hash);
+            for (int i = 0; i < numHashFunctions; i++) {
+                final long bit = bitPosition(hash, i, numBits);
+                if ((bits.readByte(bit >>> 3) & (1 << (bit & 7))) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -59,6 +59,9 @@ public final class ContentPath {
     }
 
     public String pathAsText(String name) {
+        if (index <= offset) {
+            return name;
+        }
         sb.setLength(0);
         for (int i = offset; i < index; i++) {
             sb.append(path[i]).append(DELIMITER);
@@ -392,7 +392,7 @@ final class DocumentParser {
             if (token == XContentParser.Token.FIELD_NAME) {
                 currentFieldName = parser.currentName();
                 paths = splitAndValidatePath(currentFieldName);
-                if (MapperService.isMetadataField(context.path().pathAsText(currentFieldName))) {
+                if (isMetadataField(context, currentFieldName)) {
                     throw new MapperParsingException("Field [" + currentFieldName + "] is a metadata field and cannot be added inside"
                         + " a document. Use the index API request parameters.");
                 } else if (containsDisabledObjectMapper(mapper, paths)) {
@@ -415,6 +415,15 @@ final class DocumentParser {
         }
     }
 
+    /**
+     * Returns whether the full path of the given field is a metadata field. Metadata fields never contain dots, so this is only
+     * possible if the field itself has the name of a metadata field, which allows to skip building the full path of every field.
+     */
+    private static boolean isMetadataField(ParseContext context, String currentFieldName) {
+        return MapperService.isMetadataField(currentFieldName)
+            && MapperService.isMetadataField(context.path().pathAsText(currentFieldName));
+    }
+
     private static void nested(ParseContext context, ObjectMapper.Nested nested) {
         ParseContext.Document nestedDoc = context.doc();
         ParseContext.Document parentDoc = nestedDoc.getParent();
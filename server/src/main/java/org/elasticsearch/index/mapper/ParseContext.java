@@ -331,7 +331,7 @@ public abstract class ParseContext implements Iterable<ParseContext.Document>{
 
         private boolean docsReversed = false;
 
-        private final Set<String> ignoredFields = new HashSet<>();
+        private Set<String> ignoredFields;
 
         public InternalParseContext(IndexSettings indexSettings, DocumentMapperParser docMapperParser, DocumentMapper docMapper,
                                     SourceToParse source, XContentParser parser) {
@@ -489,12 +489,16 @@ public abstract class ParseContext implements Iterable<ParseContext.Document>{
 
         @Override
         public void addIgnoredField(String field) {
+            if (ignoredFields == null) {
+                // most documents don't have ignored fields
+                ignoredFields = new HashSet<>();
+            }
             ignoredFields.add(field);
         }
 
         @Override
         public Collection<String> getIgnoredFields() {
-            return Collections.unmodifiableCollection(ignoredFields);
+            return ignoredFields == null ? Collections.emptySet() : Collections.unmodifiableCollection(ignoredFields);
         }
     }
 
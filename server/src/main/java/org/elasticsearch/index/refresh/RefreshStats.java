@@ -45,6 +45,16 @@ public class RefreshStats implements Writeable, ToXContentFragment {
      */
     private int listeners;
 
+    /**
+     * Number of scheduled refreshes that have been deferred by adaptive refreshes.
+     */
+    private long deferredTotal;
+
+    /**
+     * The current interval between scheduled refreshes if adaptive refreshes are enabled, the maximum across shards.
+     */
+    private long adaptiveIntervalInMillis;
+
     public RefreshStats() {
     }
 
@@ -56,6 +66,10 @@ public class RefreshStats implements Writeable, ToXContentFragment {
             externalTotalTimeInMillis = in.readVLong();
         }
         listeners = in.readVInt();
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            deferredTotal = in.readVLong();
+            adaptiveIntervalInMillis = in.readVLong();
+        }
     }
 
     @Override
@@ -67,14 +81,25 @@ public class RefreshStats implements Writeable, ToXContentFragment {
             out.writeVLong(externalTotalTimeInMillis);
         }
         out.writeVInt(listeners);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeVLong(deferredTotal);
+            out.writeVLong(adaptiveIntervalInMillis);
+        }
     }
 
     public RefreshStats(long total, long totalTimeInMillis, long externalTotal, long externalTotalTimeInMillis, int listeners) {
+        this(total, totalTimeInMillis, externalTotal, externalTotalTimeInMillis, listeners, 0, 0);
+    }
+
+    public RefreshStats(long total, long totalTimeInMillis, long externalTotal, long externalTotalTimeInMillis, int listeners,
+                        long deferredTotal, long adaptiveIntervalInMillis) {
         this.total = total;
         this.totalTimeInMillis = totalTimeInMillis;
         this.externalTotal = externalTotal;
         this.externalTotalTimeInMillis = externalTotalTimeInMillis;
         this.listeners = listeners;
+        this.deferredTotal = deferredTotal;
+        this.adaptiveIntervalInMillis = adaptiveIntervalInMillis;
     }
 
     public void add(RefreshStats refreshStats) {
@@ -90,6 +115,8 @@ public class RefreshStats implements Writeable, ToXContentFragment {
         this.externalTotal += refreshStats.externalTotal;
         this.externalTotalTimeInMillis += refreshStats.externalTotalTimeInMillis;
         this.listeners += refreshStats.listeners;
+        this.deferredTotal += refreshStats.deferredTotal;
+        this.adaptiveIntervalInMillis = Math.max(this.adaptiveIntervalInMillis, refreshStats.adaptiveIntervalInMillis);
     }
 
     /**
@@ -138,6 +165,20 @@ public class RefreshStats implements Writeable, ToXContentFragment {
         return listeners;
     }
 
+    /**
+     * The number of scheduled refreshes that have been deferred by adaptive refreshes.
+     */
+    public long getDeferredTotal() {
+        return deferredTotal;
+    }
+
+    /**
+     * The current interval between scheduled refreshes if adaptive refreshes are enabled, {@code 0} otherwise.
+     */
+    public TimeValue getAdaptiveInterval() {
+        return new TimeValue(adaptiveIntervalInMillis);
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject("refresh");
@@ -146,6 +187,8 @@ public class RefreshStats implements Writeable, ToXContentFragment {
         builder.field("external_total", externalTotal);
         builder.humanReadableField("external_total_time_in_millis", "external_total_time", getExternalTotalTime());
         builder.field("listeners", listeners);
+        builder.field("deferred_total", deferredTotal);
+        builder.humanReadableField("adaptive_interval_in_millis", "adaptive_interval", getAdaptiveInterval());
         builder.endObject();
         return builder;
     }
@@ -160,11 +203,14 @@ public class RefreshStats implements Writeable, ToXContentFragment {
                 && totalTimeInMillis == rhs.totalTimeInMillis
                 && externalTotal == rhs.externalTotal
                 && externalTotalTimeInMillis == rhs.externalTotalTimeInMillis
-                && listeners == rhs.listeners;
+                && listeners == rhs.listeners
+                && deferredTotal == rhs.deferredTotal
+                && adaptiveIntervalInMillis == rhs.adaptiveIntervalInMillis;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(total, totalTimeInMillis, externalTotal, externalTotalTimeInMillis, listeners);
+        return Objects.hash(total, totalTimeInMillis, externalTotal, externalTotalTimeInMillis, listeners, deferredTotal,
+            adaptiveIntervalInMillis);
     }
 }
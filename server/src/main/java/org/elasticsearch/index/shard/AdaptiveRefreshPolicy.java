@@ -0,0 +1,75 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.unit.TimeValue;
+
+/**
+ * Decides whether a scheduled refresh of a shard that has pending changes can be deferred. Every scheduled refresh that finds changes
+ * that have been written without the shard being searched since the previous refresh doubles the interval until the next refresh, up
+ * to a maximum interval. This creates fewer and larger segments, and therefore less merging, while a shard is only indexed into. As
+ * soon as the shard is searched or refresh listeners are waiting, the interval drops back to the refresh interval.
+ */
+final class AdaptiveRefreshPolicy {
+
+    private final CounterMetric deferred = new CounterMetric();
+    private long intervalInMillis;
+    private long lastRefreshInMillis;
+
+    /**
+     * Returns <code>true</code> if the scheduled refresh that is about to happen should be skipped.
+     *
+     * @param nowInMillis                the current relative time in milliseconds
+     * @param lastSearcherAccessInMillis the relative time in milliseconds at which the shard was last searched
+     * @param listenersWaiting           whether refresh listeners are waiting for the refresh
+     * @param refreshInterval            the interval of scheduled refreshes, which is the minimum interval between two refreshes
+     * @param maxInterval                the maximum interval between two refreshes
+     */
+    synchronized boolean deferRefresh(long nowInMillis, long lastSearcherAccessInMillis, boolean listenersWaiting,
+                                      TimeValue refreshInterval, TimeValue maxInterval) {
+        final long minIntervalInMillis = refreshInterval.millis();
+        final long maxIntervalInMillis = Math.max(minIntervalInMillis, maxInterval.millis());
+        if (listenersWaiting || lastSearcherAccessInMillis >= lastRefreshInMillis) {
+            intervalInMillis = minIntervalInMillis;
+        } else if (nowInMillis - lastRefreshInMillis < Math.min(intervalInMillis, maxIntervalInMillis)) {
+            deferred.inc();
+            return true;
+        } else {
+            intervalInMillis = Math.min(maxIntervalInMillis, Math.max(minIntervalInMillis, intervalInMillis * 2));
+        }
+        lastRefreshInMillis = nowInMillis;
+        return false;
+    }
+
+    /**
+     * Returns the current interval between two scheduled refreshes in milliseconds.
+     */
+    synchronized long getIntervalInMillis() {
+        return intervalInMillis;
+    }
+
+    /**
+     * Returns the number of scheduled refreshes that have been deferred.
+     */
+    long getDeferredCount() {
+        return deferred.count();
+    }
+}
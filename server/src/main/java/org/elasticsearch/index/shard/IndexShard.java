@@ -268,6 +268,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final RefreshListeners refreshListeners;
 
     private final AtomicLong lastSearcherAccess = new AtomicLong();
+    private final AdaptiveRefreshPolicy adaptiveRefreshPolicy = new AdaptiveRefreshPolicy();
     private final AtomicReference<Translog.Location> pendingRefreshLocation = new AtomicReference<>();
     private volatile boolean useRetentionLeasesInPeerRecovery;
 
@@ -739,6 +740,25 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             ifPrimaryTerm, autoGeneratedTimestamp, isRetry, Engine.Operation.Origin.PRIMARY, sourceToParse);
     }
 
+    /**
+     * Same as {@link #applyIndexOperationOnPrimary(long, VersionType, SourceToParse, long, long, long, boolean)} but for a document
+     * that has already been parsed with the current mapping, which allows to parse documents ahead of, and concurrently with, their
+     * execution. The parsed document must not require a mapping update.
+     *
+     * @param startTime the start time of the operation in nanoseconds, which includes the time spent parsing the document
+     */
+    public Engine.IndexResult applyParsedIndexOperationOnPrimary(long version, VersionType versionType, ParsedDocument parsedDocument,
+                                                                 long startTime, long ifSeqNo, long ifPrimaryTerm,
+                                                                 long autoGeneratedTimestamp, boolean isRetry)
+        throws IOException {
+        assert versionType.validateVersionForWrites(version);
+        assert parsedDocument.dynamicMappingsUpdate() == null : "pre-parsed document requires a mapping update";
+        ensureWriteAllowed(Engine.Operation.Origin.PRIMARY);
+        final Engine.Index operation = prepareIndex(parsedDocument, UNASSIGNED_SEQ_NO, getOperationPrimaryTerm(), version, versionType,
+            Engine.Operation.Origin.PRIMARY, startTime, autoGeneratedTimestamp, isRetry, ifSeqNo, ifPrimaryTerm);
+        return index(getEngine(), operation);
+    }
+
     public Engine.IndexResult applyIndexOperationOnReplica(long seqNo, long opPrimaryTerm, long version, long autoGeneratedTimeStamp,
         boolean isRetry, SourceToParse sourceToParse)
         throws IOException {
@@ -782,6 +802,13 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         if (docMapper.getMapping() != null) {
             doc.addDynamicMappingsUpdate(docMapper.getMapping());
         }
+        return prepareIndex(doc, seqNo, primaryTerm, version, versionType, origin, startTime, autoGeneratedIdTimestamp, isRetry,
+            ifSeqNo, ifPrimaryTerm);
+    }
+
+    private static Engine.Index prepareIndex(ParsedDocument doc, long seqNo, long primaryTerm, long version, VersionType versionType,
+                                             Engine.Operation.Origin origin, long startTime, long autoGeneratedIdTimestamp,
+                                             boolean isRetry, long ifSeqNo, long ifPrimaryTerm) {
         Term uid = new Term(IdFieldMapper.NAME, Uid.encodeId(doc.id()));
         return new Engine.Index(uid, doc, seqNo, primaryTerm, version, versionType, origin, startTime, autoGeneratedIdTimestamp, isRetry,
             ifSeqNo, ifPrimaryTerm);
@@ -939,7 +966,9 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             TimeUnit.NANOSECONDS.toMillis(refreshMetric.sum()),
             externalRefreshMetric.count(),
             TimeUnit.NANOSECONDS.toMillis(externalRefreshMetric.sum()),
-            listeners);
+            listeners,
+            adaptiveRefreshPolicy.getDeferredCount(),
+            indexSettings.isAdaptiveRefreshEnabled() ? adaptiveRefreshPolicy.getIntervalInMillis() : 0);
     }
 
     public FlushStats flushStats() {
@@ -2600,7 +2629,10 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return useRetentionLeasesInPeerRecovery;
     }
 
-    private SafeCommitInfo getSafeCommitInfo() {
+    /**
+     * Returns the local checkpoint and the number of documents of the current safe commit of this shard.
+     */
+    public SafeCommitInfo getSafeCommitInfo() {
         final Engine engine = getEngineOrNull();
         return engine == null ? SafeCommitInfo.EMPTY : engine.getSafeCommitInfo();
     }
@@ -3158,6 +3190,12 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                 engine.maybePruneDeletes(); // try to prune the deletes in the engine if we accumulated some
                 setRefreshPending(engine);
                 return false;
+            } else if (indexSettings.isAdaptiveRefreshEnabled()
+                && adaptiveRefreshPolicy.deferRefresh(threadPool.relativeTimeInMillis(), lastSearcherAccess.get(), listenerNeedsRefresh,
+                    indexSettings.getRefreshInterval(), indexSettings.getAdaptiveRefreshMaxInterval())) {
+                // we are indexed into but nobody searched since the last refresh, so we let changes accumulate into larger segments
+                getEngine().maybePruneDeletes();
+                return false;
             } else {
                 if (logger.isTraceEnabled()) {
                     logger.trace("refresh with source [schedule]");
@@ -26,7 +26,9 @@ import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefIterator;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.store.Store;
@@ -34,6 +36,7 @@ import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.transport.Transports;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
@@ -45,6 +48,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 public class MultiFileWriter extends AbstractRefCounted implements Releasable {
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     public MultiFileWriter(Store store, RecoveryState.Index indexState, String tempFilePrefix, Logger logger, Runnable ensureOpen) {
         super("multi_file_writer");
         this.store = store;
@@ -71,7 +76,47 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
         throws IOException {
         assert Transports.assertNotTransportThread("multi_file_writer");
         final FileChunkWriter writer = fileChunkWriters.computeIfAbsent(fileMetaData.name(), name -> new FileChunkWriter());
-        writer.writeChunk(new FileChunk(fileMetaData, content, position, lastChunk));
+        // chunks that arrive out of order outlive the request they were sent with, so they hold on to their bytes until written
+        final ReleasableBytesReference chunkContent = content instanceof ReleasableBytesReference
+            ? ((ReleasableBytesReference) content).retain() : ReleasableBytesReference.wrap(content);
+        writer.writeChunk(new FileChunk(fileMetaData, chunkContent, position, lastChunk));
+    }
+
+    /**
+     * Writes the given file in full from the given stream, which reads it from a snapshot rather than receiving it from the source node.
+     * If this fails the partially written file is discarded, so that the file can be received from the source node instead.
+     */
+    public void writeFileFromSnapshot(StoreFileMetaData fileMetaData, InputStream stream) throws IOException {
+        assert Transports.assertNotTransportThread("multi_file_writer");
+        final String name = fileMetaData.name();
+        final String tempFileName = getTempNameForFile(name);
+        if (tempFileNames.containsKey(tempFileName)) {
+            throw new IllegalStateException("output for file [" + name + "] has already been created");
+        }
+        boolean success = false;
+        try {
+            final IndexOutput indexOutput = openAndPutIndexOutput(name, fileMetaData, store);
+            try {
+                final byte[] buffer = new byte[BUFFER_SIZE];
+                int length;
+                while ((length = stream.read(buffer)) > 0) {
+                    indexOutput.writeBytes(buffer, 0, length);
+                    indexState.addRecoveredFromSnapshotBytesToFile(name, length);
+                }
+                Store.verify(indexOutput);
+            } finally {
+                openIndexOutputs.remove(name);
+                indexOutput.close();
+            }
+            store.directory().sync(Collections.singleton(tempFileName));
+            success = true;
+        } finally {
+            if (success == false) {
+                tempFileNames.remove(tempFileName);
+                store.deleteQuiet(tempFileName);
+                indexState.resetRecoveredBytesOfFile(name);
+            }
+        }
     }
 
     /** Get a temporary name for the provided file name. */
@@ -151,6 +196,9 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
 
     @Override
     protected void closeInternal() {
+        for (FileChunkWriter writer : fileChunkWriters.values()) {
+            writer.releasePendingChunks();
+        }
         fileChunkWriters.clear();
         // clean open index outputs
         Iterator<Map.Entry<String, IndexOutput>> iterator = openIndexOutputs.entrySet().iterator();
@@ -179,17 +227,22 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
         store.renameTempFilesSafe(tempFileNames);
     }
 
-    static final class FileChunk {
+    static final class FileChunk implements Releasable {
         final StoreFileMetaData md;
-        final BytesReference content;
+        final ReleasableBytesReference content;
         final long position;
         final boolean lastChunk;
-        FileChunk(StoreFileMetaData md, BytesReference content, long position, boolean lastChunk) {
+        FileChunk(StoreFileMetaData md, ReleasableBytesReference content, long position, boolean lastChunk) {
             this.md = md;
             this.content = content;
             this.position = position;
             this.lastChunk = lastChunk;
         }
+
+        @Override
+        public void close() {
+            content.close();
+        }
     }
 
     private final class FileChunkWriter {
@@ -210,7 +263,11 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
                     }
                     pendingChunks.remove();
                 }
-                innerWriteFileChunk(chunk.md, chunk.position, chunk.content, chunk.lastChunk);
+                try {
+                    innerWriteFileChunk(chunk.md, chunk.position, chunk.content, chunk.lastChunk);
+                } finally {
+                    chunk.close();
+                }
                 synchronized (this) {
                     assert lastPosition == chunk.position : "last_position " + lastPosition + " != chunk_position " + chunk.position;
                     lastPosition += chunk.content.length();
@@ -222,5 +279,10 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
                 }
             }
         }
+
+        synchronized void releasePendingChunks() {
+            Releasables.close(pendingChunks);
+            pendingChunks.clear();
+        }
     }
 }
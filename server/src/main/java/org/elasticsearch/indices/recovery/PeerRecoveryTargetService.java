@@ -83,6 +83,7 @@ public class PeerRecoveryTargetService implements IndexEventListener {
     public static class Actions {
         public static final String FILES_INFO = "internal:index/shard/recovery/filesInfo";
         public static final String FILE_CHUNK = "internal:index/shard/recovery/file_chunk";
+        public static final String RESTORE_FILE_FROM_SNAPSHOT = "internal:index/shard/recovery/restore_file_from_snapshot";
         public static final String CLEAN_FILES = "internal:index/shard/recovery/clean_files";
         public static final String TRANSLOG_OPS = "internal:index/shard/recovery/translog_ops";
         public static final String PREPARE_TRANSLOG = "internal:index/shard/recovery/prepare_translog";
@@ -96,21 +97,25 @@ public class PeerRecoveryTargetService implements IndexEventListener {
 
     private final RecoverySettings recoverySettings;
     private final ClusterService clusterService;
+    private final SnapshotFilesProvider snapshotFilesProvider;
 
     private final RecoveriesCollection onGoingRecoveries;
 
     public PeerRecoveryTargetService(ThreadPool threadPool, TransportService transportService,
-            RecoverySettings recoverySettings, ClusterService clusterService) {
+            RecoverySettings recoverySettings, ClusterService clusterService, SnapshotFilesProvider snapshotFilesProvider) {
         this.threadPool = threadPool;
         this.transportService = transportService;
         this.recoverySettings = recoverySettings;
         this.clusterService = clusterService;
+        this.snapshotFilesProvider = snapshotFilesProvider;
         this.onGoingRecoveries = new RecoveriesCollection(logger, threadPool);
 
         transportService.registerRequestHandler(Actions.FILES_INFO, ThreadPool.Names.GENERIC, RecoveryFilesInfoRequest::new,
             new FilesInfoRequestHandler());
         transportService.registerRequestHandler(Actions.FILE_CHUNK, ThreadPool.Names.GENERIC, RecoveryFileChunkRequest::new,
             new FileChunkTransportRequestHandler());
+        transportService.registerRequestHandler(Actions.RESTORE_FILE_FROM_SNAPSHOT, ThreadPool.Names.GENERIC,
+            RecoveryRestoreFileFromSnapshotRequest::new, new RestoreFileFromSnapshotRequestHandler());
         transportService.registerRequestHandler(Actions.CLEAN_FILES, ThreadPool.Names.GENERIC,
             RecoveryCleanFilesRequest::new, new CleanFilesRequestHandler());
         transportService.registerRequestHandler(Actions.PREPARE_TRANSLOG, ThreadPool.Names.GENERIC,
@@ -135,7 +140,8 @@ public class PeerRecoveryTargetService implements IndexEventListener {
 
     public void startRecovery(final IndexShard indexShard, final DiscoveryNode sourceNode, final RecoveryListener listener) {
         // create a new recovery status, and process...
-        final long recoveryId = onGoingRecoveries.startRecovery(indexShard, sourceNode, listener, recoverySettings.activityTimeout());
+        final long recoveryId = onGoingRecoveries.startRecovery(indexShard, sourceNode, snapshotFilesProvider, listener,
+            recoverySettings.activityTimeout());
         // we fork off quickly here and go async but this is called from the cluster state applier thread too and that can cause
         // assertions to trip if we executed it on the same thread hence we fork off to the generic threadpool.
         threadPool.generic().execute(new RecoveryRunner(recoveryId));
@@ -380,7 +386,7 @@ public class PeerRecoveryTargetService implements IndexEventListener {
         public void messageReceived(RecoveryPrepareForTranslogOperationsRequest request, TransportChannel channel, Task task) {
             try (RecoveryRef recoveryRef = onGoingRecoveries.getRecoverySafe(request.recoveryId(), request.shardId())) {
                 final ActionListener<TransportResponse> listener = new ChannelActionListener<>(channel, Actions.PREPARE_TRANSLOG, request);
-                recoveryRef.target().prepareForTranslogOperations(request.totalTranslogOps(),
+                recoveryRef.target().prepareForTranslogOperations(request.totalTranslogOps(), request.plan(),
                     ActionListener.map(listener, nullVal -> TransportResponse.Empty.INSTANCE));
             }
         }
@@ -534,6 +540,19 @@ public class PeerRecoveryTargetService implements IndexEventListener {
         }
     }
 
+    class RestoreFileFromSnapshotRequestHandler implements TransportRequestHandler<RecoveryRestoreFileFromSnapshotRequest> {
+
+        @Override
+        public void messageReceived(RecoveryRestoreFileFromSnapshotRequest request, TransportChannel channel, Task task) throws Exception {
+            try (RecoveryRef recoveryRef = onGoingRecoveries.getRecoverySafe(request.recoveryId(), request.shardId())) {
+                final ActionListener<TransportResponse> listener =
+                    new ChannelActionListener<>(channel, Actions.RESTORE_FILE_FROM_SNAPSHOT, request);
+                recoveryRef.target().restoreFileFromSnapshot(request.repository(), request.indexId(), request.snapshotFile(),
+                    ActionListener.map(listener, nullVal -> TransportResponse.Empty.INSTANCE));
+            }
+        }
+    }
+
     class RecoveryRunner extends AbstractRunnable {
 
         final long recoveryId;
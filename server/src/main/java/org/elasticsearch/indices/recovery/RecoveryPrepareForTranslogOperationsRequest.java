@@ -20,6 +20,7 @@
 package org.elasticsearch.indices.recovery;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.index.shard.ShardId;
@@ -32,11 +33,14 @@ class RecoveryPrepareForTranslogOperationsRequest extends TransportRequest {
     private final long recoveryId;
     private final ShardId shardId;
     private final int totalTranslogOps;
+    @Nullable
+    private final RecoveryState.Plan plan;
 
-    RecoveryPrepareForTranslogOperationsRequest(long recoveryId, ShardId shardId, int totalTranslogOps) {
+    RecoveryPrepareForTranslogOperationsRequest(long recoveryId, ShardId shardId, int totalTranslogOps, @Nullable RecoveryState.Plan plan) {
         this.recoveryId = recoveryId;
         this.shardId = shardId;
         this.totalTranslogOps = totalTranslogOps;
+        this.plan = plan;
     }
 
     RecoveryPrepareForTranslogOperationsRequest(StreamInput in) throws IOException {
@@ -47,6 +51,11 @@ class RecoveryPrepareForTranslogOperationsRequest extends TransportRequest {
         if (in.getVersion().before(Version.V_7_4_0)) {
             in.readBoolean(); // was fileBasedRecovery
         }
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            plan = in.readOptionalWriteable(RecoveryState.Plan::new);
+        } else {
+            plan = null;
+        }
     }
 
     public long recoveryId() {
@@ -61,6 +70,11 @@ class RecoveryPrepareForTranslogOperationsRequest extends TransportRequest {
         return totalTranslogOps;
     }
 
+    @Nullable
+    public RecoveryState.Plan plan() {
+        return plan;
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         super.writeTo(out);
@@ -70,5 +84,8 @@ class RecoveryPrepareForTranslogOperationsRequest extends TransportRequest {
         if (out.getVersion().before(Version.V_7_4_0)) {
             out.writeBoolean(true); // was fileBasedRecovery
         }
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeOptionalWriteable(plan);
+        }
     }
 }
@@ -0,0 +1,86 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
+import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.transport.TransportRequest;
+
+import java.io.IOException;
+
+class RecoveryRestoreFileFromSnapshotRequest extends TransportRequest {
+
+    private final long recoveryId;
+    private final ShardId shardId;
+    private final String repository;
+    private final IndexId indexId;
+    private final BlobStoreIndexShardSnapshot.FileInfo snapshotFile;
+
+    RecoveryRestoreFileFromSnapshotRequest(long recoveryId, ShardId shardId, String repository, IndexId indexId,
+                                           BlobStoreIndexShardSnapshot.FileInfo snapshotFile) {
+        this.recoveryId = recoveryId;
+        this.shardId = shardId;
+        this.repository = repository;
+        this.indexId = indexId;
+        this.snapshotFile = snapshotFile;
+    }
+
+    RecoveryRestoreFileFromSnapshotRequest(StreamInput in) throws IOException {
+        super(in);
+        recoveryId = in.readLong();
+        shardId = new ShardId(in);
+        repository = in.readString();
+        indexId = new IndexId(in);
+        snapshotFile = new BlobStoreIndexShardSnapshot.FileInfo(in);
+    }
+
+    public long recoveryId() {
+        return recoveryId;
+    }
+
+    public ShardId shardId() {
+        return shardId;
+    }
+
+    public String repository() {
+        return repository;
+    }
+
+    public IndexId indexId() {
+        return indexId;
+    }
+
+    public BlobStoreIndexShardSnapshot.FileInfo snapshotFile() {
+        return snapshotFile;
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeLong(recoveryId);
+        shardId.writeTo(out);
+        out.writeString(repository);
+        indexId.writeTo(out);
+        snapshotFile.writeTo(out);
+    }
+}
@@ -35,12 +35,14 @@ import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.ActionRunnable;
 import org.elasticsearch.action.StepListener;
+import org.elasticsearch.action.support.GroupedActionListener;
 import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.action.support.ThreadedActionListener;
 import org.elasticsearch.action.support.replication.ReplicationResponse;
 import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.StopWatch;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
@@ -51,10 +53,13 @@ import org.elasticsearch.common.lucene.store.InputStreamIndexInput;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.CancellableThreads;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.FutureUtils;
 import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.RecoveryEngineException;
+import org.elasticsearch.index.engine.SafeCommitInfo;
 import org.elasticsearch.index.seqno.ReplicationTracker;
 import org.elasticsearch.index.seqno.RetentionLease;
 import org.elasticsearch.index.seqno.RetentionLeaseNotFoundException;
@@ -64,6 +69,7 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardClosedException;
 import org.elasticsearch.index.shard.IndexShardRelocatedException;
 import org.elasticsearch.index.shard.IndexShardState;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.index.translog.Translog;
@@ -77,8 +83,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -108,12 +116,24 @@ public class RecoverySourceHandler {
     private final int chunkSizeInBytes;
     private final RecoveryTargetHandler recoveryTarget;
     private final int maxConcurrentFileChunks;
+    @Nullable
+    private final ShardSnapshotsService shardSnapshotsService;
     private final ThreadPool threadPool;
     private final CancellableThreads cancellableThreads = new CancellableThreads();
     private final List<Closeable> resources = new CopyOnWriteArrayList<>();
 
     public RecoverySourceHandler(IndexShard shard, RecoveryTargetHandler recoveryTarget, ThreadPool threadPool,
                                  StartRecoveryRequest request, int fileChunkSizeInBytes, int maxConcurrentFileChunks) {
+        this(shard, recoveryTarget, threadPool, request, fileChunkSizeInBytes, maxConcurrentFileChunks, null);
+    }
+
+    /**
+     * @param shardSnapshotsService if not {@code null}, used to find files that the target can download from a snapshot of the shard
+     *                              rather than receiving them from this node
+     */
+    public RecoverySourceHandler(IndexShard shard, RecoveryTargetHandler recoveryTarget, ThreadPool threadPool,
+                                 StartRecoveryRequest request, int fileChunkSizeInBytes, int maxConcurrentFileChunks,
+                                 @Nullable ShardSnapshotsService shardSnapshotsService) {
         this.shard = shard;
         this.recoveryTarget = recoveryTarget;
         this.threadPool = threadPool;
@@ -122,6 +142,7 @@ public class RecoverySourceHandler {
         this.logger = Loggers.getLogger(getClass(), request.shardId(), "recover to " + request.targetNode().getName());
         this.chunkSizeInBytes = fileChunkSizeInBytes;
         this.maxConcurrentFileChunks = maxConcurrentFileChunks;
+        this.shardSnapshotsService = shardSnapshotsService;
     }
 
     public StartRecoveryRequest getRequest() {
@@ -171,17 +192,20 @@ public class RecoverySourceHandler {
             final Closeable retentionLock = shard.acquireHistoryRetentionLock();
             resources.add(retentionLock);
             final long startingSeqNo;
-            final boolean isSequenceNumberBasedRecovery
+            final boolean hasRetainedHistory
                 = request.startingSeqNo() != SequenceNumbers.UNASSIGNED_SEQ_NO
                 && isTargetSameHistory()
                 && shard.hasCompleteHistoryOperations("peer-recovery", request.startingSeqNo())
                 && ((retentionLeaseRef.get() == null && shard.useRetentionLeasesInPeerRecovery() == false) ||
                    (retentionLeaseRef.get() != null && retentionLeaseRef.get().retainingSequenceNumber() <= request.startingSeqNo()));
-            // NB check hasCompleteHistoryOperations when computing isSequenceNumberBasedRecovery, even if there is a retention lease,
-            // because when doing a rolling upgrade from earlier than 7.4 we may create some leases that are initially unsatisfied. It's
-            // possible there are other cases where we cannot satisfy all leases, because that's not a property we currently expect to hold.
-            // Also it's pretty cheap when soft deletes are enabled, and it'd be a disaster if we tried a sequence-number-based recovery
-            // without having a complete history.
+            // NB check hasCompleteHistoryOperations when computing hasRetainedHistory, even if there is a retention lease, because when
+            // doing a rolling upgrade from earlier than 7.4 we may create some leases that are initially unsatisfied. It's possible there
+            // are other cases where we cannot satisfy all leases, because that's not a property we currently expect to hold. Also it's
+            // pretty cheap when soft deletes are enabled, and it'd be a disaster if we tried a sequence-number-based recovery without
+            // having a complete history.
+            final RecoveryState.Plan plan = planRecovery(hasRetainedHistory);
+            logger.debug("planned recovery {}", plan);
+            final boolean isSequenceNumberBasedRecovery = plan.type() == RecoveryState.Plan.Type.OPERATIONS;
 
             if (isSequenceNumberBasedRecovery && retentionLeaseRef.get() != null) {
                 // all the history we need is retained by an existing retention lease, so we do not need a separate retention lock
@@ -271,7 +295,7 @@ public class RecoverySourceHandler {
             sendFileStep.whenComplete(r -> {
                 assert Transports.assertNotTransportThread(RecoverySourceHandler.this + "[prepareTargetForTranslog]");
                 // For a sequence based recovery, the target can keep its local translog
-                prepareTargetForTranslog(estimateNumberOfHistoryOperations(startingSeqNo), prepareEngineStep);
+                prepareTargetForTranslog(estimateNumberOfHistoryOperations(startingSeqNo), plan, prepareEngineStep);
             }, onFailure);
 
             prepareEngineStep.whenComplete(prepareEngineTime -> {
@@ -337,6 +361,39 @@ public class RecoverySourceHandler {
         return targetHistoryUUID.equals(shard.getHistoryUUID());
     }
 
+    /**
+     * Chooses between an operations-based and a file-based recovery. Even if we retain all the history that the target needs, replaying
+     * it may be more expensive than copying files over again, for instance if the target was offline for a while before a full-cluster
+     * restart. A file-based recovery replays the operations above the local checkpoint of the safe commit as well, so the operations that
+     * it saves are those up to the safe commit's local checkpoint, and these are weighed against the cost of copying the safe commit
+     * using {@link IndexSettings#FILE_BASED_RECOVERY_THRESHOLD_SETTING}, in the same way as peer recovery retention leases expire.
+     */
+    private RecoveryState.Plan planRecovery(boolean hasRetainedHistory) throws IOException {
+        if (hasRetainedHistory == false) {
+            return new RecoveryState.Plan(RecoveryState.Plan.Type.FILES, "history required by target is not retained",
+                RecoveryState.Plan.UNKNOWN, RecoveryState.Plan.UNKNOWN);
+        }
+        final long operationsCost = estimateNumberOfHistoryOperations(request.startingSeqNo());
+        final SafeCommitInfo safeCommitInfo = shard.getSafeCommitInfo();
+        if (request.startingSeqNo() > safeCommitInfo.localCheckpoint) {
+            return new RecoveryState.Plan(RecoveryState.Plan.Type.OPERATIONS, "target is ahead of the safe commit",
+                operationsCost, RecoveryState.Plan.UNKNOWN);
+        }
+        final long filesCost = estimateNumberOfHistoryOperations(safeCommitInfo.localCheckpoint + 1) + Math.round(Math.ceil(
+            safeCommitInfo.docCount * IndexSettings.FILE_BASED_RECOVERY_THRESHOLD_SETTING.get(shard.indexSettings().getSettings())));
+        return choosePlan(operationsCost, filesCost);
+    }
+
+    static RecoveryState.Plan choosePlan(long operationsCost, long filesCost) {
+        if (filesCost < operationsCost) {
+            return new RecoveryState.Plan(RecoveryState.Plan.Type.FILES, "copying files is cheaper than replaying history",
+                operationsCost, filesCost);
+        } else {
+            return new RecoveryState.Plan(RecoveryState.Plan.Type.OPERATIONS, "replaying history is cheaper than copying files",
+                operationsCost, filesCost);
+        }
+    }
+
     private int estimateNumberOfHistoryOperations(long startingSeqNo) throws IOException {
         try (Translog.Snapshot snapshot = shard.newChangesSnapshot("peer-recover", startingSeqNo, Long.MAX_VALUE, false)) {
             return snapshot.totalOperations();
@@ -497,16 +554,29 @@ public class RecoverySourceHandler {
                 logger.trace("recovery [phase1]: recovering_files [{}] with total_size [{}], reusing_files [{}] with total_size [{}]",
                     phase1FileNames.size(), new ByteSizeValue(totalSizeInBytes),
                     phase1ExistingFileNames.size(), new ByteSizeValue(existingTotalSizeInBytes));
+                final StepListener<ShardSnapshotsService.SnapshotFilesToRecover> findSnapshotFilesStep = new StepListener<>();
                 final StepListener<Void> sendFileInfoStep = new StepListener<>();
+                final StepListener<Set<String>> restoreFilesFromSnapshotStep = new StepListener<>();
                 final StepListener<Void> sendFilesStep = new StepListener<>();
                 final StepListener<RetentionLease> createRetentionLeaseStep = new StepListener<>();
                 final StepListener<Void> cleanFilesStep = new StepListener<>();
                 cancellableThreads.checkForCancel();
-                recoveryTarget.receiveFileInfo(phase1FileNames, phase1FileSizes, phase1ExistingFileNames,
+                findSnapshotFiles(phase1Files, findSnapshotFilesStep);
+
+                findSnapshotFilesStep.whenComplete(r -> {
+                    cancellableThreads.checkForCancel();
+                    recoveryTarget.receiveFileInfo(phase1FileNames, phase1FileSizes, phase1ExistingFileNames,
                         phase1ExistingFileSizes, translogOps.getAsInt(), sendFileInfoStep);
+                }, listener::onFailure);
 
-                sendFileInfoStep.whenComplete(r ->
-                    sendFiles(store, phase1Files.toArray(new StoreFileMetaData[0]), translogOps, sendFilesStep), listener::onFailure);
+                sendFileInfoStep.whenComplete(r -> restoreFilesFromSnapshot(findSnapshotFilesStep.result(), restoreFilesFromSnapshotStep),
+                    listener::onFailure);
+
+                restoreFilesFromSnapshotStep.whenComplete(restoredFiles -> {
+                    final StoreFileMetaData[] filesToSend = phase1Files.stream()
+                        .filter(md -> restoredFiles.contains(md.name()) == false).toArray(StoreFileMetaData[]::new);
+                    sendFiles(store, filesToSend, translogOps, sendFilesStep);
+                }, listener::onFailure);
 
                 sendFilesStep.whenComplete(r -> createRetentionLease(startingSeqNo, createRetentionLeaseStep), listener::onFailure);
 
@@ -550,6 +620,67 @@ public class RecoverySourceHandler {
         }
     }
 
+    private void findSnapshotFiles(List<StoreFileMetaData> files,
+                                   ActionListener<ShardSnapshotsService.SnapshotFilesToRecover> listener) {
+        if (shardSnapshotsService == null || files.isEmpty()) {
+            listener.onResponse(null);
+        } else {
+            shardSnapshotsService.findSnapshotFiles(request.shardId(), shard.indexSettings().getUUID(), files, listener);
+        }
+    }
+
+    /**
+     * Asks the target to download the given files from the snapshot they belong to, and completes the listener with the names of those
+     * that it downloaded. A file that the target fails to download is logged and left out, so that it is sent from this node instead.
+     */
+    void restoreFilesFromSnapshot(@Nullable ShardSnapshotsService.SnapshotFilesToRecover snapshotFiles,
+                                  ActionListener<Set<String>> listener) {
+        if (snapshotFiles == null || snapshotFiles.files().isEmpty()) {
+            listener.onResponse(Collections.emptySet());
+            return;
+        }
+        logger.trace("recovery [phase1]: restoring [{}] files with total size [{}] from snapshot [{}] in repository [{}]",
+            snapshotFiles.files().size(), new ByteSizeValue(snapshotFiles.totalSize()), snapshotFiles.snapshotId(),
+            snapshotFiles.repository());
+        final Set<String> restoredFiles = ConcurrentCollections.newConcurrentSet();
+        final Iterator<BlobStoreIndexShardSnapshot.FileInfo> remainingFiles = snapshotFiles.files().iterator();
+        final int concurrency = Math.min(maxConcurrentFileChunks, snapshotFiles.files().size());
+        final GroupedActionListener<Void> restoreListener =
+            new GroupedActionListener<>(ActionListener.map(listener, r -> restoredFiles), concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            restoreNextFileFromSnapshot(snapshotFiles, remainingFiles, restoredFiles, restoreListener);
+        }
+    }
+
+    private void restoreNextFileFromSnapshot(ShardSnapshotsService.SnapshotFilesToRecover snapshotFiles,
+                                             Iterator<BlobStoreIndexShardSnapshot.FileInfo> remainingFiles, Set<String> restoredFiles,
+                                             ActionListener<Void> listener) {
+        final BlobStoreIndexShardSnapshot.FileInfo file;
+        synchronized (remainingFiles) {
+            file = remainingFiles.hasNext() ? remainingFiles.next() : null;
+        }
+        if (file == null) {
+            listener.onResponse(null);
+            return;
+        }
+        try {
+            cancellableThreads.checkForCancel();
+        } catch (Exception e) {
+            listener.onFailure(e);
+            return;
+        }
+        recoveryTarget.restoreFileFromSnapshot(snapshotFiles.repository(), snapshotFiles.indexId(), file, ActionListener.wrap(
+            r -> {
+                restoredFiles.add(file.physicalName());
+                restoreNextFileFromSnapshot(snapshotFiles, remainingFiles, restoredFiles, listener);
+            },
+            e -> {
+                logger.warn(new ParameterizedMessage("failed to restore file [{}] from snapshot [{}] in repository [{}], sending it " +
+                    "from the primary instead", file.physicalName(), snapshotFiles.snapshotId(), snapshotFiles.repository()), e);
+                restoreNextFileFromSnapshot(snapshotFiles, remainingFiles, restoredFiles, listener);
+            }));
+    }
+
     void createRetentionLease(final long startingSeqNo, ActionListener<RetentionLease> listener) {
         runUnderPrimaryPermit(() -> {
                 // Clone the peer recovery retention lease belonging to the source shard. We are retaining history between the the local
@@ -606,7 +737,7 @@ public class RecoverySourceHandler {
         return true;
     }
 
-    void prepareTargetForTranslog(int totalTranslogOps, ActionListener<TimeValue> listener) {
+    void prepareTargetForTranslog(int totalTranslogOps, RecoveryState.Plan plan, ActionListener<TimeValue> listener) {
         StopWatch stopWatch = new StopWatch().start();
         final ActionListener<Void> wrappedListener = ActionListener.wrap(
             nullVal -> {
@@ -620,7 +751,7 @@ public class RecoverySourceHandler {
         // garbage collection (not the JVM's GC!) of tombstone deletes.
         logger.trace("recovery [phase1]: prepare remote engine for translog");
         cancellableThreads.checkForCancel();
-        recoveryTarget.prepareForTranslogOperations(totalTranslogOps, wrappedListener);
+        recoveryTarget.prepareForTranslogOperations(totalTranslogOps, plan, wrappedListener);
     }
 
     /**
@@ -113,6 +113,8 @@ public class RecoveryState implements ToXContentFragment, Writeable {
     private DiscoveryNode sourceNode;
     private DiscoveryNode targetNode;
     private boolean primary;
+    @Nullable
+    private volatile Plan plan;
 
     public RecoveryState(ShardRouting shardRouting, DiscoveryNode targetNode, @Nullable DiscoveryNode sourceNode) {
         assert shardRouting.initializing() : "only allow initializing shard routing to be recovered: " + shardRouting;
@@ -143,6 +145,9 @@ public class RecoveryState implements ToXContentFragment, Writeable {
         translog = new Translog(in);
         verifyIndex = new VerifyIndex(in);
         primary = in.readBoolean();
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            plan = in.readOptionalWriteable(Plan::new);
+        }
     }
 
     @Override
@@ -157,6 +162,9 @@ public class RecoveryState implements ToXContentFragment, Writeable {
         translog.writeTo(out);
         verifyIndex.writeTo(out);
         out.writeBoolean(primary);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeOptionalWriteable(plan);
+        }
     }
 
     public ShardId getShardId() {
@@ -182,6 +190,7 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             case INIT:
                 // reinitializing stop remove all state except for start time
                 this.stage = Stage.INIT;
+                plan = null;
                 getIndex().reset();
                 getVerifyIndex().reset();
                 getTranslog().reset();
@@ -230,6 +239,19 @@ public class RecoveryState implements ToXContentFragment, Writeable {
         return timer;
     }
 
+    /**
+     * Returns the plan that the source node chose for this peer recovery, or {@code null} if it is not known yet or this is not a peer
+     * recovery.
+     */
+    @Nullable
+    public Plan getPlan() {
+        return plan;
+    }
+
+    public void setPlan(Plan plan) {
+        this.plan = plan;
+    }
+
     public RecoverySource getRecoverySource() {
         return recoverySource;
     }
@@ -289,6 +311,13 @@ public class RecoveryState implements ToXContentFragment, Writeable {
         builder.field(Fields.NAME, targetNode.getName());
         builder.endObject();
 
+        final Plan plan = this.plan;
+        if (plan != null) {
+            builder.startObject(Fields.PLAN);
+            plan.toXContent(builder, params);
+            builder.endObject();
+        }
+
         builder.startObject(Fields.INDEX);
         index.toXContent(builder, params);
         builder.endObject();
@@ -327,6 +356,8 @@ public class RecoveryState implements ToXContentFragment, Writeable {
         static final String VERIFY_INDEX = "verify_index";
         static final String RECOVERED = "recovered";
         static final String RECOVERED_IN_BYTES = "recovered_in_bytes";
+        static final String RECOVERED_FROM_SNAPSHOT = "recovered_from_snapshot";
+        static final String RECOVERED_FROM_SNAPSHOT_IN_BYTES = "recovered_from_snapshot_in_bytes";
         static final String CHECK_INDEX_TIME = "check_index_time";
         static final String CHECK_INDEX_TIME_IN_MILLIS = "check_index_time_in_millis";
         static final String LENGTH = "length";
@@ -343,6 +374,10 @@ public class RecoveryState implements ToXContentFragment, Writeable {
         static final String SOURCE_THROTTLE_TIME_IN_MILLIS = "source_throttle_time_in_millis";
         static final String TARGET_THROTTLE_TIME = "target_throttle_time";
         static final String TARGET_THROTTLE_TIME_IN_MILLIS = "target_throttle_time_in_millis";
+        static final String PLAN = "plan";
+        static final String REASON = "reason";
+        static final String ESTIMATED_OPERATIONS_COST = "estimated_operations_cost";
+        static final String ESTIMATED_FILES_COST = "estimated_files_cost";
     }
 
     public static class Timer implements Writeable {
@@ -417,6 +452,94 @@ public class RecoveryState implements ToXContentFragment, Writeable {
         }
     }
 
+    /**
+     * The way in which the source node brings the target up to date in a peer recovery, together with the reason for the choice. Costs
+     * are estimated in units of operations to replay on the target, and copying a document's worth of files is considered to cost
+     * {@link org.elasticsearch.index.IndexSettings#FILE_BASED_RECOVERY_THRESHOLD_SETTING} operations.
+     */
+    public static class Plan implements ToXContentFragment, Writeable {
+        public static final long UNKNOWN = -1L;
+
+        public enum Type {
+            /**
+             * replay the operations that the target is missing on top of its existing copy
+             */
+            OPERATIONS,
+
+            /**
+             * copy the files of a commit that the target is missing and then replay the operations above that commit
+             */
+            FILES
+        }
+
+        private final Type type;
+        private final String reason;
+        private final long operationsCost;
+        private final long filesCost;
+
+        public Plan(Type type, String reason, long operationsCost, long filesCost) {
+            this.type = type;
+            this.reason = reason;
+            this.operationsCost = operationsCost;
+            this.filesCost = filesCost;
+        }
+
+        public Plan(StreamInput in) throws IOException {
+            type = in.readEnum(Type.class);
+            reason = in.readString();
+            operationsCost = in.readZLong();
+            filesCost = in.readZLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeEnum(type);
+            out.writeString(reason);
+            out.writeZLong(operationsCost);
+            out.writeZLong(filesCost);
+        }
+
+        public Type type() {
+            return type;
+        }
+
+        public String reason() {
+            return reason;
+        }
+
+        /**
+         * the estimated cost of an operations-based recovery, or {@link #UNKNOWN} if the source does not retain the operations it needs
+         */
+        public long operationsCost() {
+            return operationsCost;
+        }
+
+        /**
+         * the estimated cost of a file-based recovery, or {@link #UNKNOWN} if it was not estimated
+         */
+        public long filesCost() {
+            return filesCost;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.field(Fields.TYPE, type.name().toLowerCase(Locale.ROOT));
+            builder.field(Fields.REASON, reason);
+            if (operationsCost != UNKNOWN) {
+                builder.field(Fields.ESTIMATED_OPERATIONS_COST, operationsCost);
+            }
+            if (filesCost != UNKNOWN) {
+                builder.field(Fields.ESTIMATED_FILES_COST, filesCost);
+            }
+            return builder;
+        }
+
+        @Override
+        public String toString() {
+            return Strings.toString(this);
+        }
+    }
+
     public static class VerifyIndex extends Timer implements ToXContentFragment, Writeable {
         private volatile long checkIndexTime;
 
@@ -591,6 +714,7 @@ public class RecoveryState implements ToXContentFragment, Writeable {
         private String name;
         private long length;
         private long recovered;
+        private long recoveredFromSnapshot;
         private boolean reused;
 
         public File(String name, long length, boolean reused) {
@@ -605,6 +729,9 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             length = in.readVLong();
             recovered = in.readVLong();
             reused = in.readBoolean();
+            if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+                recoveredFromSnapshot = in.readVLong();
+            }
         }
 
         @Override
@@ -613,6 +740,9 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             out.writeVLong(length);
             out.writeVLong(recovered);
             out.writeBoolean(reused);
+            if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+                out.writeVLong(recoveredFromSnapshot);
+            }
         }
 
         void addRecoveredBytes(long bytes) {
@@ -621,6 +751,16 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             recovered += bytes;
         }
 
+        void addRecoveredFromSnapshotBytes(long bytes) {
+            addRecoveredBytes(bytes);
+            recoveredFromSnapshot += bytes;
+        }
+
+        void resetRecoveredBytes() {
+            recovered = 0;
+            recoveredFromSnapshot = 0;
+        }
+
         /**
          * file name *
          */
@@ -642,6 +782,13 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             return recovered;
         }
 
+        /**
+         * number of bytes of this file that were downloaded from a snapshot rather than copied from the source node
+         */
+        public long recoveredFromSnapshot() {
+            return recoveredFromSnapshot;
+        }
+
         /**
          * returns true if the file is reused from a local copy
          */
@@ -660,6 +807,8 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             builder.humanReadableField(Fields.LENGTH_IN_BYTES, Fields.LENGTH, new ByteSizeValue(length));
             builder.field(Fields.REUSED, reused);
             builder.humanReadableField(Fields.RECOVERED_IN_BYTES, Fields.RECOVERED, new ByteSizeValue(recovered));
+            builder.humanReadableField(Fields.RECOVERED_FROM_SNAPSHOT_IN_BYTES, Fields.RECOVERED_FROM_SNAPSHOT,
+                new ByteSizeValue(recoveredFromSnapshot));
             builder.endObject();
             return builder;
         }
@@ -668,7 +817,8 @@ public class RecoveryState implements ToXContentFragment, Writeable {
         public boolean equals(Object obj) {
             if (obj instanceof File) {
                 File other = (File) obj;
-                return name.equals(other.name) && length == other.length() && reused == other.reused() && recovered == other.recovered();
+                return name.equals(other.name) && length == other.length() && reused == other.reused() && recovered == other.recovered()
+                    && recoveredFromSnapshot == other.recoveredFromSnapshot();
             }
             return false;
         }
@@ -678,6 +828,7 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             int result = name.hashCode();
             result = 31 * result + Long.hashCode(length);
             result = 31 * result + Long.hashCode(recovered);
+            result = 31 * result + Long.hashCode(recoveredFromSnapshot);
             result = 31 * result + (reused ? 1 : 0);
             return result;
         }
@@ -745,6 +896,19 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             file.addRecoveredBytes(bytes);
         }
 
+        public synchronized void addRecoveredFromSnapshotBytesToFile(String name, long bytes) {
+            File file = fileDetails.get(name);
+            file.addRecoveredFromSnapshotBytes(bytes);
+        }
+
+        /**
+         * Discards the bytes recovered so far for the given file, which is recovered again from scratch.
+         */
+        public synchronized void resetRecoveredBytesOfFile(String name) {
+            File file = fileDetails.get(name);
+            file.resetRecoveredBytes();
+        }
+
         public synchronized void addSourceThrottling(long timeInNanos) {
             if (sourceThrottlingInNanos == UNKNOWN) {
                 sourceThrottlingInNanos = timeInNanos;
@@ -850,6 +1014,17 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             return recovered;
         }
 
+        /**
+         * total number of bytes downloaded from a snapshot rather than copied from the source node so far
+         */
+        public synchronized long recoveredFromSnapshotBytes() {
+            long recovered = 0;
+            for (File file : fileDetails.values()) {
+                recovered += file.recoveredFromSnapshot();
+            }
+            return recovered;
+        }
+
         /**
          * total bytes of files to be recovered (potentially not yet done)
          */
@@ -913,6 +1088,8 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             builder.humanReadableField(Fields.TOTAL_IN_BYTES, Fields.TOTAL, new ByteSizeValue(totalBytes()));
             builder.humanReadableField(Fields.REUSED_IN_BYTES, Fields.REUSED, new ByteSizeValue(reusedBytes()));
             builder.humanReadableField(Fields.RECOVERED_IN_BYTES, Fields.RECOVERED, new ByteSizeValue(recoveredBytes()));
+            builder.humanReadableField(Fields.RECOVERED_FROM_SNAPSHOT_IN_BYTES, Fields.RECOVERED_FROM_SNAPSHOT,
+                new ByteSizeValue(recoveredFromSnapshotBytes()));
             builder.field(Fields.PERCENT, String.format(Locale.ROOT, "%1.1f%%", recoveredBytesPercent()));
             builder.endObject();
 
@@ -29,6 +29,7 @@ import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.admin.indices.flush.FlushRequest;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.logging.Loggers;
@@ -44,11 +45,14 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardNotRecoveringException;
 import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.repositories.IndexId;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
@@ -74,6 +78,8 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
     private final MultiFileWriter multiFileWriter;
     private final Store store;
     private final PeerRecoveryTargetService.RecoveryListener listener;
+    @Nullable
+    private final SnapshotFilesProvider snapshotFilesProvider;
 
     private final AtomicBoolean finished = new AtomicBoolean();
 
@@ -93,10 +99,25 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
      * @param listener                          called when recovery is completed/failed
      */
     public RecoveryTarget(IndexShard indexShard, DiscoveryNode sourceNode, PeerRecoveryTargetService.RecoveryListener listener) {
+        this(indexShard, sourceNode, null, listener);
+    }
+
+    /**
+     * Creates a new recovery target object that represents a recovery to the provided shard.
+     *
+     * @param indexShard                        local shard where we want to recover to
+     * @param sourceNode                        source node of the recovery where we recover from
+     * @param snapshotFilesProvider             provides the files of snapshots the source asks to download rather than sending them,
+     *                                          or {@code null} if files can only be received from the source
+     * @param listener                          called when recovery is completed/failed
+     */
+    public RecoveryTarget(IndexShard indexShard, DiscoveryNode sourceNode, @Nullable SnapshotFilesProvider snapshotFilesProvider,
+                          PeerRecoveryTargetService.RecoveryListener listener) {
         super("recovery_status");
         this.cancellableThreads = new CancellableThreads();
         this.recoveryId = idGenerator.incrementAndGet();
         this.listener = listener;
+        this.snapshotFilesProvider = snapshotFilesProvider;
         this.logger = Loggers.getLogger(getClass(), indexShard.shardId());
         this.indexShard = indexShard;
         this.sourceNode = sourceNode;
@@ -116,7 +137,7 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
      * @return a copy of this recovery target
      */
     public RecoveryTarget retryCopy() {
-        return new RecoveryTarget(indexShard, sourceNode, listener);
+        return new RecoveryTarget(indexShard, sourceNode, snapshotFilesProvider, listener);
     }
 
     public long recoveryId() {
@@ -280,8 +301,11 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
     /*** Implementation of {@link RecoveryTargetHandler } */
 
     @Override
-    public void prepareForTranslogOperations(int totalTranslogOps, ActionListener<Void> listener) {
+    public void prepareForTranslogOperations(int totalTranslogOps, RecoveryState.Plan plan, ActionListener<Void> listener) {
         ActionListener.completeWith(listener, () -> {
+            if (plan != null) {
+                state().setPlan(plan);
+            }
             state().getTranslog().totalOperations(totalTranslogOps);
             indexShard().openEngineAndSkipTranslogRecovery();
             return null;
@@ -472,6 +496,20 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
         }
     }
 
+    @Override
+    public void restoreFileFromSnapshot(String repository, IndexId indexId, BlobStoreIndexShardSnapshot.FileInfo snapshotFile,
+                                        ActionListener<Void> listener) {
+        ActionListener.completeWith(listener, () -> {
+            if (snapshotFilesProvider == null) {
+                throw new IllegalStateException("recovering files from snapshots is not supported");
+            }
+            try (InputStream stream = snapshotFilesProvider.openSnapshotFile(repository, indexId, shardId.id(), snapshotFile)) {
+                multiFileWriter.writeFileFromSnapshot(snapshotFile.metadata(), stream);
+            }
+            return null;
+        });
+    }
+
     /** Get a temporary name for the provided file name. */
     public String getTempNameForFile(String origFile) {
         return multiFileWriter.getTempNameForFile(origFile);
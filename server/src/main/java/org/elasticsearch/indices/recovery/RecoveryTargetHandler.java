@@ -22,9 +22,11 @@ import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.index.seqno.ReplicationTracker;
 import org.elasticsearch.index.seqno.RetentionLeases;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.repositories.IndexId;
 
 import java.util.List;
 
@@ -34,8 +36,9 @@ public interface RecoveryTargetHandler {
      * Prepares the target to receive translog operations, after all file have been copied
      *
      * @param totalTranslogOps  total translog operations expected to be sent
+     * @param plan              the plan that the source chose for this recovery
      */
-    void prepareForTranslogOperations(int totalTranslogOps, ActionListener<Void> listener);
+    void prepareForTranslogOperations(int totalTranslogOps, RecoveryState.Plan plan, ActionListener<Void> listener);
 
     /**
      * The finalize request refreshes the engine now that new segments are available, enables garbage collection of tombstone files, updates
@@ -106,4 +109,11 @@ public interface RecoveryTargetHandler {
     void writeFileChunk(StoreFileMetaData fileMetaData, long position, BytesReference content,
                         boolean lastChunk, int totalTranslogOps, ActionListener<Void> listener);
 
+    /**
+     * Downloads the given file of a snapshot of this shard from the given repository to the target store, rather than receiving it from
+     * the source. If this fails the partially downloaded file is discarded so that the source can send the file instead.
+     */
+    void restoreFileFromSnapshot(String repository, IndexId indexId, BlobStoreIndexShardSnapshot.FileInfo snapshotFile,
+                                 ActionListener<Void> listener);
+
 }
@@ -0,0 +1,208 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRunnable;
+import org.elasticsearch.action.support.GroupedActionListener;
+import org.elasticsearch.cluster.metadata.RepositoriesMetaData;
+import org.elasticsearch.cluster.metadata.RepositoryMetaData;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshots;
+import org.elasticsearch.index.snapshots.blobstore.SnapshotFiles;
+import org.elasticsearch.index.store.StoreFileMetaData;
+import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.repositories.RepositoriesService;
+import org.elasticsearch.repositories.Repository;
+import org.elasticsearch.repositories.RepositoryData;
+import org.elasticsearch.repositories.blobstore.BlobStoreRepository;
+import org.elasticsearch.snapshots.SnapshotId;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Finds the snapshots of a shard, in the repositories that are enabled for peer recoveries through
+ * {@link BlobStoreRepository#USE_FOR_PEER_RECOVERY_SETTING}, from which a recovery target can download files instead of receiving them
+ * from the primary.
+ */
+public class ShardSnapshotsService {
+
+    private static final Logger logger = LogManager.getLogger(ShardSnapshotsService.class);
+
+    private final RepositoriesService repositoriesService;
+    private final ClusterService clusterService;
+    private final ThreadPool threadPool;
+
+    public ShardSnapshotsService(RepositoriesService repositoriesService, ClusterService clusterService, ThreadPool threadPool) {
+        this.repositoriesService = repositoriesService;
+        this.clusterService = clusterService;
+        this.threadPool = threadPool;
+    }
+
+    /**
+     * Looks for the snapshot of the given shard which contains the largest amount of the given files, and completes the listener with the
+     * files it contains or with {@code null} if there is no such snapshot. Failures to read a repository are logged and otherwise ignored,
+     * since the files can always be received from the primary instead.
+     */
+    public void findSnapshotFiles(ShardId shardId, String indexUUID, List<StoreFileMetaData> files,
+                                  ActionListener<SnapshotFilesToRecover> listener) {
+        final RepositoriesMetaData repositoriesMetaData = clusterService.state().metaData().custom(RepositoriesMetaData.TYPE);
+        final List<RepositoryMetaData> repositories = repositoriesMetaData == null ? Collections.emptyList() :
+            repositoriesMetaData.repositories().stream()
+                .filter(repository -> BlobStoreRepository.USE_FOR_PEER_RECOVERY_SETTING.get(repository.settings()))
+                .collect(Collectors.toList());
+        if (files.isEmpty() || repositories.isEmpty()) {
+            listener.onResponse(null);
+            return;
+        }
+        final GroupedActionListener<SnapshotFilesToRecover> groupedListener = new GroupedActionListener<>(
+            ActionListener.map(listener, ShardSnapshotsService::largestSnapshotFiles), repositories.size());
+        for (RepositoryMetaData repositoryMetaData : repositories) {
+            final String repositoryName = repositoryMetaData.name();
+            final ActionListener<SnapshotFilesToRecover> repositoryListener = ActionListener.wrap(groupedListener::onResponse, e -> {
+                logger.warn(new ParameterizedMessage("{} failed to look up snapshots of shard in repository [{}]", shardId,
+                    repositoryName), e);
+                groupedListener.onResponse(null);
+            });
+            try {
+                final Repository repository = repositoriesService.repository(repositoryName);
+                if (repository instanceof BlobStoreRepository == false) {
+                    repositoryListener.onResponse(null);
+                    continue;
+                }
+                final BlobStoreRepository blobStoreRepository = (BlobStoreRepository) repository;
+                blobStoreRepository.getRepositoryData(ActionListener.wrap(repositoryData ->
+                    threadPool.generic().execute(ActionRunnable.supply(repositoryListener, () ->
+                        findSnapshotFiles(repositoryName, blobStoreRepository, repositoryData, shardId, indexUUID, files))),
+                    repositoryListener::onFailure));
+            } catch (Exception e) {
+                repositoryListener.onFailure(e);
+            }
+        }
+    }
+
+    @Nullable
+    private static SnapshotFilesToRecover findSnapshotFiles(String repositoryName, BlobStoreRepository repository,
+                                                            RepositoryData repositoryData, ShardId shardId, String indexUUID,
+                                                            List<StoreFileMetaData> files) throws IOException {
+        final IndexId indexId = repositoryData.getIndices().get(shardId.getIndexName());
+        if (indexId == null) {
+            return null;
+        }
+        final Map<String, StoreFileMetaData> filesByName =
+            files.stream().collect(Collectors.toMap(StoreFileMetaData::name, Function.identity()));
+        final BlobStoreIndexShardSnapshots shardSnapshots = repository.getShardSnapshots(repositoryData, indexId, shardId.id());
+        SnapshotFiles bestSnapshot = null;
+        List<BlobStoreIndexShardSnapshot.FileInfo> bestFiles = Collections.emptyList();
+        long bestSize = 0L;
+        // snapshots are listed from the most recent one, which wins any tie
+        for (SnapshotFiles snapshot : shardSnapshots) {
+            final List<BlobStoreIndexShardSnapshot.FileInfo> matchingFiles = new ArrayList<>();
+            long matchingSize = 0L;
+            for (BlobStoreIndexShardSnapshot.FileInfo fileInfo : snapshot.indexFiles()) {
+                final StoreFileMetaData md = filesByName.get(fileInfo.physicalName());
+                if (md != null && fileInfo.isSame(md)) {
+                    matchingFiles.add(fileInfo);
+                    matchingSize += fileInfo.length();
+                }
+            }
+            if (matchingSize > bestSize) {
+                bestSnapshot = snapshot;
+                bestFiles = matchingFiles;
+                bestSize = matchingSize;
+            }
+        }
+        if (bestSnapshot == null) {
+            return null;
+        }
+        final String snapshotName = bestSnapshot.snapshot();
+        final SnapshotId snapshotId = repositoryData.getSnapshotIds().stream()
+            .filter(id -> id.getName().equals(snapshotName)).findFirst().orElse(null);
+        // an index of the same name may have been deleted and re-created since the snapshot was taken
+        if (snapshotId == null || indexUUID.equals(repository.getSnapshotIndexMetaData(snapshotId, indexId).getIndexUUID()) == false) {
+            return null;
+        }
+        return new SnapshotFilesToRecover(repositoryName, indexId, snapshotId, bestFiles);
+    }
+
+    @Nullable
+    private static SnapshotFilesToRecover largestSnapshotFiles(Collection<SnapshotFilesToRecover> candidates) {
+        SnapshotFilesToRecover largest = null;
+        for (SnapshotFilesToRecover candidate : candidates) {
+            if (candidate != null && (largest == null || candidate.totalSize() > largest.totalSize())) {
+                largest = candidate;
+            }
+        }
+        return largest;
+    }
+
+    /**
+     * The files of a shard snapshot that a recovery target can download from the repository.
+     */
+    public static final class SnapshotFilesToRecover {
+
+        private final String repository;
+        private final IndexId indexId;
+        private final SnapshotId snapshotId;
+        private final List<BlobStoreIndexShardSnapshot.FileInfo> files;
+
+        public SnapshotFilesToRecover(String repository, IndexId indexId, SnapshotId snapshotId,
+                                      List<BlobStoreIndexShardSnapshot.FileInfo> files) {
+            this.repository = repository;
+            this.indexId = indexId;
+            this.snapshotId = snapshotId;
+            this.files = Collections.unmodifiableList(files);
+        }
+
+        public String repository() {
+            return repository;
+        }
+
+        public IndexId indexId() {
+            return indexId;
+        }
+
+        public SnapshotId snapshotId() {
+            return snapshotId;
+        }
+
+        public List<BlobStoreIndexShardSnapshot.FileInfo> files() {
+            return files;
+        }
+
+        public long totalSize() {
+            return files.stream().mapToLong(BlobStoreIndexShardSnapshot.FileInfo::length).sum();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
+import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.repositories.RepositoriesService;
+import org.elasticsearch.repositories.Repository;
+import org.elasticsearch.repositories.blobstore.BlobStoreRepository;
+
+import java.io.InputStream;
+
+/**
+ * Gives recovery targets access to the files of shard snapshots, so that they can download them from the repository.
+ */
+public class SnapshotFilesProvider {
+
+    private final RepositoriesService repositoriesService;
+
+    public SnapshotFilesProvider(RepositoriesService repositoriesService) {
+        this.repositoriesService = repositoriesService;
+    }
+
+    /**
+     * Opens a stream over the contents of the given file of a snapshot of the given shard in the given repository.
+     */
+    public InputStream openSnapshotFile(String repositoryName, IndexId indexId, int shardId,
+                                        BlobStoreIndexShardSnapshot.FileInfo fileInfo) {
+        final Repository repository = repositoriesService.repository(repositoryName);
+        if (repository instanceof BlobStoreRepository == false) {
+            throw new IllegalStateException("repository [" + repositoryName + "] does not support recovering files from snapshots");
+        }
+        return ((BlobStoreRepository) repository).openSnapshotFile(indexId, shardId, fileInfo);
+    }
+}
@@ -35,6 +35,7 @@ import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.index.IndexModule;
+import org.elasticsearch.repositories.RepositoriesService;
 import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.threadpool.ExecutorBuilder;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -47,6 +48,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
 
 /**
@@ -92,6 +94,23 @@ public abstract class Plugin implements Closeable {
         return Collections.emptyList();
     }
 
+    /**
+     * Returns components added by this plugin, like {@link #createComponents(Client, ClusterService, ThreadPool, ResourceWatcherService,
+     * ScriptService, NamedXContentRegistry, Environment, NodeEnvironment, NamedWriteableRegistry)} which it delegates to by default.
+     * Plugins that need to access the repositories of the node override this method instead.
+     *
+     * @param repositoriesServiceSupplier A supplier of the service that holds the repositories of the node, which is only available
+     *                                    once all plugin components have been created
+     */
+    public Collection<Object> createComponents(Client client, ClusterService clusterService, ThreadPool threadPool,
+                                               ResourceWatcherService resourceWatcherService, ScriptService scriptService,
+                                               NamedXContentRegistry xContentRegistry, Environment environment,
+                                               NodeEnvironment nodeEnvironment, NamedWriteableRegistry namedWriteableRegistry,
+                                               Supplier<RepositoriesService> repositoriesServiceSupplier) {
+        return createComponents(client, clusterService, threadPool, resourceWatcherService, scriptService, xContentRegistry, environment,
+            nodeEnvironment, namedWriteableRegistry);
+    }
+
     /**
      * Additional node settings loaded by the plugin. Note that settings that are explicit in the nodes settings can't be
      * overwritten with the additional settings. These settings added if they don't exist.
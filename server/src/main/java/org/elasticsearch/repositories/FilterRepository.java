@@ -99,6 +99,16 @@ public class FilterRepository implements Repository {
         return in.getRestoreThrottleTimeInNanos();
     }
 
+    @Override
+    public long getSnapshotUploadedBytes() {
+        return in.getSnapshotUploadedBytes();
+    }
+
+    @Override
+    public long getSnapshotUploadTimeInNanos() {
+        return in.getSnapshotUploadTimeInNanos();
+    }
+
     @Override
     public String startVerification() {
         return in.startVerification();
@@ -357,6 +357,20 @@ public class RepositoriesService extends AbstractLifecycleComponent implements C
         }
     }
 
+    /**
+     * Returns the statistics of the repositories registered on this node
+     */
+    public RepositoriesStats stats() {
+        final Map<String, RepositoriesStats.Stats> stats = new HashMap<>();
+        for (Map.Entry<String, Repository> entry : repositories.entrySet()) {
+            final Repository repository = entry.getValue();
+            stats.put(entry.getKey(), new RepositoriesStats.Stats(repository.getMetadata().type(), repository.getSnapshotUploadedBytes(),
+                repository.getSnapshotUploadTimeInNanos(), repository.getSnapshotThrottleTimeInNanos(),
+                repository.getRestoreThrottleTimeInNanos()));
+        }
+        return new RepositoriesStats(stats);
+    }
+
     /**
      * Returns registered repository
      * <p>
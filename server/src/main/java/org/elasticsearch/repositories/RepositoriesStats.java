@@ -0,0 +1,192 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.repositories;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistics about the snapshots and restores of the repositories registered on a node, as reported by the nodes stats API.
+ */
+public class RepositoriesStats implements Writeable, ToXContentFragment {
+
+    private final Map<String, Stats> repositoryStats;
+
+    public RepositoriesStats(Map<String, Stats> repositoryStats) {
+        this.repositoryStats = Collections.unmodifiableMap(new TreeMap<>(repositoryStats));
+    }
+
+    public RepositoriesStats(StreamInput in) throws IOException {
+        repositoryStats = Collections.unmodifiableMap(new TreeMap<>(in.readMap(StreamInput::readString, Stats::new)));
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeMap(repositoryStats, StreamOutput::writeString, (o, stats) -> stats.writeTo(o));
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("repositories");
+        for (Map.Entry<String, Stats> entry : repositoryStats.entrySet()) {
+            builder.startObject(entry.getKey());
+            entry.getValue().toXContent(builder, params);
+            builder.endObject();
+        }
+        builder.endObject();
+        return builder;
+    }
+
+    /**
+     * The statistics of each repository by repository name.
+     */
+    public Map<String, Stats> getRepositoryStats() {
+        return repositoryStats;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return repositoryStats.equals(((RepositoriesStats) o).repositoryStats);
+    }
+
+    @Override
+    public int hashCode() {
+        return repositoryStats.hashCode();
+    }
+
+    public static class Stats implements Writeable, ToXContentFragment {
+
+        private final String type;
+        private final long snapshotUploadedBytes;
+        private final long snapshotUploadTimeInNanos;
+        private final long snapshotThrottleTimeInNanos;
+        private final long restoreThrottleTimeInNanos;
+
+        public Stats(String type, long snapshotUploadedBytes, long snapshotUploadTimeInNanos, long snapshotThrottleTimeInNanos,
+                     long restoreThrottleTimeInNanos) {
+            this.type = type;
+            this.snapshotUploadedBytes = snapshotUploadedBytes;
+            this.snapshotUploadTimeInNanos = snapshotUploadTimeInNanos;
+            this.snapshotThrottleTimeInNanos = snapshotThrottleTimeInNanos;
+            this.restoreThrottleTimeInNanos = restoreThrottleTimeInNanos;
+        }
+
+        public Stats(StreamInput in) throws IOException {
+            type = in.readString();
+            snapshotUploadedBytes = in.readVLong();
+            snapshotUploadTimeInNanos = in.readVLong();
+            snapshotThrottleTimeInNanos = in.readVLong();
+            restoreThrottleTimeInNanos = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(type);
+            out.writeVLong(snapshotUploadedBytes);
+            out.writeVLong(snapshotUploadTimeInNanos);
+            out.writeVLong(snapshotThrottleTimeInNanos);
+            out.writeVLong(restoreThrottleTimeInNanos);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.field("type", type);
+            builder.humanReadableField("snapshot_uploaded_size_in_bytes", "snapshot_uploaded_size",
+                new ByteSizeValue(snapshotUploadedBytes));
+            builder.humanReadableField("snapshot_upload_time_in_millis", "snapshot_upload_time",
+                new TimeValue(snapshotUploadTimeInNanos, TimeUnit.NANOSECONDS));
+            builder.humanReadableField("snapshot_throttle_time_in_millis", "snapshot_throttle_time",
+                new TimeValue(snapshotThrottleTimeInNanos, TimeUnit.NANOSECONDS));
+            builder.humanReadableField("restore_throttle_time_in_millis", "restore_throttle_time",
+                new TimeValue(restoreThrottleTimeInNanos, TimeUnit.NANOSECONDS));
+            return builder;
+        }
+
+        /**
+         * The type of the repository.
+         */
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * The number of bytes of shard files uploaded by snapshots, see {@link Repository#getSnapshotUploadedBytes()}.
+         */
+        public long getSnapshotUploadedBytes() {
+            return snapshotUploadedBytes;
+        }
+
+        /**
+         * The time spent uploading shard files by snapshots in nanoseconds, see {@link Repository#getSnapshotUploadTimeInNanos()}.
+         */
+        public long getSnapshotUploadTimeInNanos() {
+            return snapshotUploadTimeInNanos;
+        }
+
+        public long getSnapshotThrottleTimeInNanos() {
+            return snapshotThrottleTimeInNanos;
+        }
+
+        public long getRestoreThrottleTimeInNanos() {
+            return restoreThrottleTimeInNanos;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Stats that = (Stats) o;
+            return type.equals(that.type)
+                && snapshotUploadedBytes == that.snapshotUploadedBytes
+                && snapshotUploadTimeInNanos == that.snapshotUploadTimeInNanos
+                && snapshotThrottleTimeInNanos == that.snapshotThrottleTimeInNanos
+                && restoreThrottleTimeInNanos == that.restoreThrottleTimeInNanos;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, snapshotUploadedBytes, snapshotUploadTimeInNanos, snapshotThrottleTimeInNanos,
+                restoreThrottleTimeInNanos);
+        }
+    }
+}
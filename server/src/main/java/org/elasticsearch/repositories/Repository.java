@@ -153,6 +153,17 @@ public interface Repository extends LifecycleComponent {
      */
     long getRestoreThrottleTimeInNanos();
 
+    /**
+     * Returns the number of bytes of shard files uploaded by snapshots
+     */
+    long getSnapshotUploadedBytes();
+
+    /**
+     * Returns the time spent uploading shard files by snapshots in nanoseconds, including throttling. Parts of files that are
+     * uploaded concurrently each count towards this time.
+     */
+    long getSnapshotUploadTimeInNanos();
+
 
     /**
      * Verifies repository on the master node and returns the verification token.
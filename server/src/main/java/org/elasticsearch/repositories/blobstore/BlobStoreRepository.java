@@ -22,6 +22,7 @@ package org.elasticsearch.repositories.blobstore;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.IndexCommit;
 import org.apache.lucene.index.IndexFormatTooNewException;
@@ -50,6 +51,7 @@ import org.elasticsearch.cluster.metadata.RepositoryMetaData;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.routing.allocation.AllocationService;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.CheckedRunnable;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Numbers;
 import org.elasticsearch.common.Strings;
@@ -65,6 +67,7 @@ import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.compress.NotXContentException;
+import org.elasticsearch.common.hash.MessageDigests;
 import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.lucene.Lucene;
@@ -113,13 +116,19 @@ import org.elasticsearch.snapshots.SnapshotShardFailure;
 import org.elasticsearch.snapshots.SnapshotsService;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.io.ByteArrayInputStream;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.NoSuchFileException;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -129,7 +138,7 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.LongStream;
 import java.util.stream.Stream;
@@ -190,6 +199,25 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
      */
     private static final String VIRTUAL_DATA_BLOB_PREFIX = "v__";
 
+    /**
+     * Prefix used for the identifiers of data blobs that are named after a digest that identifies their contents and stored in the
+     * repository-wide {@link #CONTENT_PATH} folder rather than in the folder of the shard, so that a file which is identical in several
+     * shards, e.g. after a shrink or split, is only stored once. See {@link #CONTENT_ADDRESSED_FILES_SETTING} and
+     * {@link #contentBlobName}.
+     */
+    private static final String CONTENT_DATA_BLOB_PREFIX = "c__";
+
+    /**
+     * Infix of the empty marker blobs {@code c__<digest>.ref.<index-uuid>.<shard>} next to each content addressed data blob, one for each
+     * shard folder whose snapshots reference the data blob. A data blob is deleted once the last of its markers is deleted.
+     */
+    private static final String CONTENT_REF_INFIX = ".ref.";
+
+    /**
+     * Name of the folder at the root of the repository that holds the content addressed data blobs and their reference markers.
+     */
+    static final String CONTENT_PATH = "content";
+
     /**
      * When set to true metadata files are stored in compressed format. This setting doesn’t affect index
      * files that are already compressed by default. Changing the setting does not invalidate existing files since reads
@@ -205,8 +233,25 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
     public static final Setting<Boolean> ALLOW_CONCURRENT_MODIFICATION =
         Setting.boolSetting("allow_concurrent_modifications", false, Setting.Property.Deprecated);
 
+    /**
+     * When set to {@code true}, peer recoveries may download files from the snapshots in this repository rather than copying them from the
+     * primary, provided the files in the snapshot are identical to the ones the primary would send.
+     */
+    public static final Setting<Boolean> USE_FOR_PEER_RECOVERY_SETTING =
+        Setting.boolSetting("use_for_peer_recovery", false, Setting.Property.NodeScope);
+
+    /**
+     * When set to {@code true}, files that are snapshotted for the first time in a shard are stored as content addressed data blobs, and
+     * files whose contents are already stored in the repository by another shard are not uploaded again. Snapshots taken with this setting
+     * can only be read by nodes on version {@link SnapshotsService#CONTENT_ADDRESSED_FILES_VERSION} or later.
+     */
+    public static final Setting<Boolean> CONTENT_ADDRESSED_FILES_SETTING =
+        Setting.boolSetting("content_addressed_files", false, Setting.Property.NodeScope);
+
     private final boolean compress;
 
+    private final boolean contentAddressedFiles;
+
     private final RateLimiter snapshotRateLimiter;
 
     private final RateLimiter restoreRateLimiter;
@@ -215,6 +260,10 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
     private final CounterMetric restoreRateLimitingTimeInNanos = new CounterMetric();
 
+    private final CounterMetric snapshotUploadedBytes = new CounterMetric();
+
+    private final CounterMetric snapshotUploadTimeInNanos = new CounterMetric();
+
     private final ChecksumBlobStoreFormat<MetaData> globalMetaDataFormat;
 
     private final ChecksumBlobStoreFormat<IndexMetaData> indexMetaDataFormat;
@@ -279,6 +328,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         this.threadPool = clusterService.getClusterApplierService().threadPool();
         this.clusterService = clusterService;
         this.compress = COMPRESS_SETTING.get(metadata.settings());
+        this.contentAddressedFiles = CONTENT_ADDRESSED_FILES_SETTING.get(metadata.settings());
         snapshotRateLimiter = getRateLimiter(metadata.settings(), "max_snapshot_bytes_per_sec", new ByteSizeValue(40, ByteSizeUnit.MB));
         restoreRateLimiter = getRateLimiter(metadata.settings(), "max_restore_bytes_per_sec", new ByteSizeValue(40, ByteSizeUnit.MB));
         readOnly = metadata.settings().getAsBoolean("readonly", false);
@@ -571,17 +621,27 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                     ActionListener.wrap(v -> writeUpdatedRepoDataStep.onResponse(updatedRepoData), listener::onFailure));
             }, listener::onFailure);
             // Once we have updated the repository, run the clean-ups
-            writeUpdatedRepoDataStep.whenComplete(updatedRepoData -> {
+            final StepListener<Map<String, BlobStoreIndexShardSnapshot.FileInfo>> removedIndicesContentsStep = new StepListener<>();
+            writeUpdatedRepoDataStep.whenComplete(updatedRepoData ->
+                readContentRefsOfRemovedIndices(snapshotId, repositoryData, updatedRepoData, removedIndicesContentsStep),
+                listener::onFailure);
+            // Once we know the contents referenced by the removed indices, run the clean-ups
+            removedIndicesContentsStep.whenComplete(removedIndicesContentRefs -> {
                 // Run unreferenced blobs cleanup in parallel to shard-level snapshot deletion
                 final ActionListener<Void> afterCleanupsListener =
                     new GroupedActionListener<>(ActionListener.wrap(() -> listener.onResponse(null)), 2);
-                asyncCleanupUnlinkedRootAndIndicesBlobs(foundIndices, rootBlobs, updatedRepoData, afterCleanupsListener);
-                asyncCleanupUnlinkedShardLevelBlobs(snapshotId, writeShardMetaDataAndComputeDeletesStep.result(), afterCleanupsListener);
+                asyncCleanupUnlinkedRootAndIndicesBlobs(foundIndices, rootBlobs, writeUpdatedRepoDataStep.result(), afterCleanupsListener);
+                asyncCleanupUnlinkedShardLevelBlobs(snapshotId, writeShardMetaDataAndComputeDeletesStep.result(),
+                    removedIndicesContentRefs, afterCleanupsListener);
             }, listener::onFailure);
         } else {
             // Write the new repository data first (with the removed snapshot), using no shard generations
             final RepositoryData updatedRepoData = repositoryData.removeSnapshot(snapshotId, ShardGenerations.EMPTY);
-            writeIndexGen(updatedRepoData, repositoryStateId, false, ActionListener.wrap(v -> {
+            final StepListener<Map<String, BlobStoreIndexShardSnapshot.FileInfo>> removedIndicesContentsStep = new StepListener<>();
+            writeIndexGen(updatedRepoData, repositoryStateId, false, ActionListener.wrap(
+                v -> readContentRefsOfRemovedIndices(snapshotId, repositoryData, updatedRepoData, removedIndicesContentsStep),
+                listener::onFailure));
+            removedIndicesContentsStep.whenComplete(removedIndicesContentRefs -> {
                 // Run unreferenced blobs cleanup in parallel to shard-level snapshot deletion
                 final ActionListener<Void> afterCleanupsListener =
                     new GroupedActionListener<>(ActionListener.wrap(() -> listener.onResponse(null)), 2);
@@ -589,9 +649,9 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                 final StepListener<Collection<ShardSnapshotMetaDeleteResult>> writeMetaAndComputeDeletesStep = new StepListener<>();
                 writeUpdatedShardMetaDataAndComputeDeletes(snapshotId, repositoryData, false, writeMetaAndComputeDeletesStep);
                 writeMetaAndComputeDeletesStep.whenComplete(deleteResults ->
-                        asyncCleanupUnlinkedShardLevelBlobs(snapshotId, deleteResults, afterCleanupsListener),
+                        asyncCleanupUnlinkedShardLevelBlobs(snapshotId, deleteResults, removedIndicesContentRefs, afterCleanupsListener),
                     afterCleanupsListener::onFailure);
-            }, listener::onFailure));
+            }, listener::onFailure);
         }
     }
 
@@ -603,22 +663,112 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
     }
 
     private void asyncCleanupUnlinkedShardLevelBlobs(SnapshotId snapshotId, Collection<ShardSnapshotMetaDeleteResult> deleteResults,
+                                                     Map<String, BlobStoreIndexShardSnapshot.FileInfo> removedIndicesContentRefs,
                                                      ActionListener<Void> listener) {
         threadPool.executor(ThreadPool.Names.SNAPSHOT).execute(ActionRunnable.wrap(
             listener,
             l -> {
                 try {
                     blobContainer().deleteBlobsIgnoringIfNotExists(resolveFilesToDelete(snapshotId, deleteResults));
-                    l.onResponse(null);
                 } catch (Exception e) {
                     logger.warn(
                         () -> new ParameterizedMessage("[{}] Failed to delete some blobs during snapshot delete", snapshotId),
                         e);
                     throw e;
                 }
+                final Map<String, BlobStoreIndexShardSnapshot.FileInfo> unreferencedContentRefs = new HashMap<>(removedIndicesContentRefs);
+                for (ShardSnapshotMetaDeleteResult deleteResult : deleteResults) {
+                    unreferencedContentRefs.putAll(deleteResult.unreferencedContentRefs);
+                }
+                cleanupUnreferencedContents(snapshotId, unreferencedContentRefs);
+                l.onResponse(null);
             }));
     }
 
+    /**
+     * Reads the content addressed files that the shards of the indices which are only part of the given snapshot reference, keyed by
+     * the names of their reference markers. This has to happen before the folders of these indices are deleted. Repositories that don't
+     * use content addressed files skip this, their leftover markers and contents are cleaned up by a repository cleanup.
+     */
+    private void readContentRefsOfRemovedIndices(SnapshotId snapshotId, RepositoryData repositoryData, RepositoryData updatedRepoData,
+                                                 ActionListener<Map<String, BlobStoreIndexShardSnapshot.FileInfo>> listener) {
+        final Set<IndexId> survivingIndices = new HashSet<>(updatedRepoData.getIndices().values());
+        final List<IndexId> removedIndices = repositoryData.getIndices().values().stream()
+            .filter(indexId -> survivingIndices.contains(indexId) == false).collect(Collectors.toList());
+        if (contentAddressedFiles == false || removedIndices.isEmpty()) {
+            listener.onResponse(Collections.emptyMap());
+            return;
+        }
+        threadPool.executor(ThreadPool.Names.SNAPSHOT).execute(ActionRunnable.supply(listener, () -> {
+            final Map<String, BlobStoreIndexShardSnapshot.FileInfo> contentRefs = new HashMap<>();
+            for (IndexId indexId : removedIndices) {
+                final int shardCount;
+                try {
+                    shardCount = getSnapshotIndexMetaData(snapshotId, indexId).getNumberOfShards();
+                } catch (Exception e) {
+                    logger.warn(() -> new ParameterizedMessage("[{}] [{}] failed to read metadata for index", snapshotId,
+                        indexId.getName()), e);
+                    continue;
+                }
+                for (int i = 0; i < shardCount; i++) {
+                    final int shardId = i;
+                    try {
+                        addContentRefs(contentRefs, indexId, shardId,
+                            loadShardSnapshot(shardContainer(indexId, shardId), snapshotId).indexFiles(), Collections.emptySet());
+                    } catch (Exception e) {
+                        logger.debug(() -> new ParameterizedMessage("[{}] failed to read content addressed files of shard [{}][{}]",
+                            snapshotId, indexId.getName(), shardId), e);
+                    }
+                }
+            }
+            return contentRefs;
+        }));
+    }
+
+    // adds the reference markers of the content addressed files among the given files that are not among the still referenced files
+    private static void addContentRefs(Map<String, BlobStoreIndexShardSnapshot.FileInfo> contentRefs, IndexId indexId, int shardId,
+                                       Collection<BlobStoreIndexShardSnapshot.FileInfo> files, Set<String> stillReferenced) {
+        for (BlobStoreIndexShardSnapshot.FileInfo fileInfo : files) {
+            if (isContentAddressed(fileInfo.name()) && stillReferenced.contains(fileInfo.name()) == false) {
+                contentRefs.put(contentRefBlobName(fileInfo.name(), indexId, shardId), fileInfo);
+            }
+        }
+    }
+
+    /**
+     * Deletes the given reference markers of shards that no longer reference the contents after removing the given snapshot, and then
+     * deletes those of these contents that are not referenced by any other shard. Only the markers of these contents are listed, so the
+     * cost doesn't grow with the size of the repository. Relies on snapshots not running concurrently to the deletion, otherwise a
+     * snapshot could reference contents that are about to be deleted. Failures are only logged since any leftover blobs are cleaned up by
+     * a repository cleanup.
+     */
+    private void cleanupUnreferencedContents(SnapshotId snapshotId, Map<String, BlobStoreIndexShardSnapshot.FileInfo> contentRefs) {
+        if (contentRefs.isEmpty()) {
+            return;
+        }
+        try {
+            final BlobContainer contentContainer = contentContainer();
+            contentContainer.deleteBlobsIgnoringIfNotExists(new ArrayList<>(contentRefs.keySet()));
+            final Map<String, BlobStoreIndexShardSnapshot.FileInfo> contents = new HashMap<>();
+            for (BlobStoreIndexShardSnapshot.FileInfo fileInfo : contentRefs.values()) {
+                contents.put(fileInfo.name(), fileInfo);
+            }
+            final List<String> blobsToDelete = new ArrayList<>();
+            for (BlobStoreIndexShardSnapshot.FileInfo content : contents.values()) {
+                if (contentContainer.listBlobsByPrefix(content.name() + CONTENT_REF_INFIX).isEmpty()) {
+                    for (int part = 0; part < content.numberOfParts(); part++) {
+                        blobsToDelete.add(content.partName(part));
+                    }
+                }
+            }
+            logger.debug("[{}] deleting unreferenced file contents {}", snapshotId, blobsToDelete);
+            contentContainer.deleteBlobsIgnoringIfNotExists(blobsToDelete);
+        } catch (Exception e) {
+            logger.warn(() -> new ParameterizedMessage("[{}] Failed to delete unreferenced file contents during snapshot delete",
+                snapshotId), e);
+        }
+    }
+
     // updates the shard state metadata for shards of a snapshot that is to be deleted. Also computes the files to be cleaned up.
     private void writeUpdatedShardMetaDataAndComputeDeletes(SnapshotId snapshotId, RepositoryData oldRepositoryData,
             boolean useUUIDs, ActionListener<Collection<ShardSnapshotMetaDeleteResult>> onAllShardsCompleted) {
@@ -751,6 +901,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
      * <ul>
      *     <li>Deleting stale indices {@link #cleanupStaleIndices}</li>
      *     <li>Deleting unreferenced root level blobs {@link #cleanupStaleRootFiles}</li>
+     *     <li>Deleting unreferenced content addressed files {@link #cleanupStaleContents}</li>
      * </ul>
      * @param repositoryStateId     Current repository state id
      * @param repositoryMetaVersion version of the updated repository metadata to write
@@ -767,14 +918,17 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             final Set<String> survivingIndexIds =
                 repositoryData.getIndices().values().stream().map(IndexId::getId).collect(Collectors.toSet());
             final List<String> staleRootBlobs = staleRootBlobs(repositoryData, rootBlobs.keySet());
-            if (survivingIndexIds.equals(foundIndices.keySet()) && staleRootBlobs.isEmpty()) {
+            final Map<String, BlobMetaData> staleContentBlobs = staleContentBlobs(repositoryData);
+            if (survivingIndexIds.equals(foundIndices.keySet()) && staleRootBlobs.isEmpty() && staleContentBlobs.isEmpty()) {
                 // Nothing to clean up we return
                 listener.onResponse(new RepositoryCleanupResult(DeleteResult.ZERO));
             } else {
                 // write new index-N blob to ensure concurrent operations will fail
                 writeIndexGen(repositoryData, repositoryStateId, SnapshotsService.useShardGenerations(repositoryMetaVersion),
                     ActionListener.wrap(v -> cleanupStaleBlobs(foundIndices, rootBlobs, repositoryData,
-                        ActionListener.map(listener, RepositoryCleanupResult::new)), listener::onFailure));
+                        ActionListener.map(listener, deleteResult ->
+                            new RepositoryCleanupResult(deleteResult.add(cleanupStaleContents(staleContentBlobs))))),
+                        listener::onFailure));
             }
         } catch (Exception e) {
             listener.onFailure(e);
@@ -833,6 +987,84 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         return Collections.emptyList();
     }
 
+    /**
+     * Finds the reference markers of indices that are no longer part of any snapshot and of shards none of whose snapshots reference the
+     * contents any more, as well as the content addressed data blobs that are not referenced by any other marker. These are left behind
+     * if a snapshot deletion fails halfway, if it runs while {@link #CONTENT_ADDRESSED_FILES_SETTING} is disabled, or if a shard snapshot
+     * fails after referencing its files.
+     */
+    private Map<String, BlobMetaData> staleContentBlobs(RepositoryData repositoryData) throws IOException {
+        final Map<String, IndexId> survivingIndices =
+            repositoryData.getIndices().values().stream().collect(Collectors.toMap(IndexId::getId, Function.identity()));
+        final Map<String, BlobMetaData> blobs = contentContainer().listBlobs();
+        final Map<String, BlobMetaData> staleBlobs = new HashMap<>();
+        final Set<String> referencedContents = new HashSet<>();
+        // the contents referenced by the snapshots of each shard with reference markers, or null if they could not be read
+        final Map<String, Set<String>> shardContents = new HashMap<>();
+        for (Map.Entry<String, BlobMetaData> blob : blobs.entrySet()) {
+            final int refIndex = blob.getKey().indexOf(CONTENT_REF_INFIX);
+            if (refIndex >= 0) {
+                final String content = blob.getKey().substring(0, refIndex);
+                final String shard = blob.getKey().substring(refIndex + CONTENT_REF_INFIX.length());
+                final IndexId indexId = survivingIndices.get(shard.substring(0, shard.lastIndexOf('.')));
+                if (indexId == null) {
+                    staleBlobs.put(blob.getKey(), blob.getValue());
+                    continue;
+                }
+                final Set<String> contents = shardContents.computeIfAbsent(shard, s ->
+                    shardContents(repositoryData, indexId, Integer.parseInt(s.substring(s.lastIndexOf('.') + 1))));
+                if (contents == null || contents.contains(content)) {
+                    referencedContents.add(content);
+                } else {
+                    staleBlobs.put(blob.getKey(), blob.getValue());
+                }
+            }
+        }
+        for (Map.Entry<String, BlobMetaData> blob : blobs.entrySet()) {
+            if (blob.getKey().contains(CONTENT_REF_INFIX) == false && referencedContents.contains(canonicalName(blob.getKey())) == false) {
+                staleBlobs.put(blob.getKey(), blob.getValue());
+            }
+        }
+        return staleBlobs;
+    }
+
+    // the content addressed files referenced by the snapshots of the given shard, or null if they could not be read
+    @Nullable
+    private Set<String> shardContents(RepositoryData repositoryData, IndexId indexId, int shardId) {
+        try {
+            final Set<String> contents = new HashSet<>();
+            for (SnapshotFiles snapshotFiles : getShardSnapshots(repositoryData, indexId, shardId)) {
+                for (BlobStoreIndexShardSnapshot.FileInfo fileInfo : snapshotFiles.indexFiles()) {
+                    if (isContentAddressed(fileInfo.name())) {
+                        contents.add(fileInfo.name());
+                    }
+                }
+            }
+            return contents;
+        } catch (Exception e) {
+            logger.warn(() -> new ParameterizedMessage(
+                "[{}] failed to read the snapshots of shard [{}][{}], keeping its content references",
+                metadata.name(), indexId.getName(), shardId), e);
+            return null;
+        }
+    }
+
+    private DeleteResult cleanupStaleContents(Map<String, BlobMetaData> staleContentBlobs) {
+        if (staleContentBlobs.isEmpty()) {
+            return DeleteResult.ZERO;
+        }
+        try {
+            logger.info("[{}] Found stale content addressed blobs {}. Cleaning them up", metadata.name(), staleContentBlobs.keySet());
+            contentContainer().deleteBlobsIgnoringIfNotExists(new ArrayList<>(staleContentBlobs.keySet()));
+            return new DeleteResult(staleContentBlobs.size(), staleContentBlobs.values().stream().mapToLong(BlobMetaData::length).sum());
+        } catch (IOException e) {
+            logger.warn(() -> new ParameterizedMessage(
+                "[{}] The following content addressed blobs are no longer referenced [{}] but failed to remove them",
+                metadata.name(), staleContentBlobs.keySet()), e);
+        }
+        return DeleteResult.ZERO;
+    }
+
     private DeleteResult cleanupStaleIndices(Map<String, BlobContainer> foundIndices, Set<String> survivingIndexIds) {
         DeleteResult deleteResult = DeleteResult.ZERO;
         try {
@@ -860,6 +1092,21 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         return deleteResult;
     }
 
+    /**
+     * Snapshot finalizations whose changes to the {@link RepositoryData} have not been written yet, in the order in which they were
+     * started. Finalizations may complete writing their snapshot's metadata in any order, but their changes to the shard generations in
+     * the repository must be applied in the order in which they were started, see {@link SnapshotsService}.
+     */
+    private final Deque<PendingFinalization> pendingFinalizations = new ArrayDeque<>();
+
+    // Whether the repository data is currently being updated with a batch of finalizations, guarded by #pendingFinalizations
+    private boolean updatingRepositoryData;
+
+    // All repository generations in (finalizedGenerationsStart, finalizedGenerationsEnd] were written by batches of finalizations of
+    // this repository, guarded by #pendingFinalizations
+    private long finalizedGenerationsStart = RepositoryData.UNKNOWN_REPO_GEN;
+    private long finalizedGenerationsEnd = RepositoryData.UNKNOWN_REPO_GEN;
+
     @Override
     public void finalizeSnapshot(final SnapshotId snapshotId,
                                  final ShardGenerations shardGenerations,
@@ -880,23 +1127,19 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         // If there are older version nodes in the cluster, we don't need to run this cleanup as it will have already happened
         // when writing the index-${N} to each shard directory.
         final boolean writeShardGens = SnapshotsService.useShardGenerations(repositoryMetaVersion);
-        final Consumer<Exception> onUpdateFailure =
-            e -> listener.onFailure(new SnapshotException(metadata.name(), snapshotId, "failed to update snapshot in repository", e));
+        // The repository data is updated with the changes of all concurrently finalized snapshots at once, on top of the repository's
+        // current generation. That generation must be the one each snapshot started from unless it was only moved by the finalizations
+        // of other snapshots since, see #isValidGeneration
+        final PendingFinalization finalization =
+            new PendingFinalization(snapshotId, shardGenerations, repositoryStateId, writeShardGens, listener);
+        synchronized (pendingFinalizations) {
+            pendingFinalizations.add(finalization);
+        }
         final ActionListener<SnapshotInfo> allMetaListener = new GroupedActionListener<>(
             ActionListener.wrap(snapshotInfos -> {
                 assert snapshotInfos.size() == 1 : "Should have only received a single SnapshotInfo but received " + snapshotInfos;
-                final SnapshotInfo snapshotInfo = snapshotInfos.iterator().next();
-                getRepositoryData(ActionListener.wrap(existingRepositoryData -> {
-                    final RepositoryData updatedRepositoryData =
-                        existingRepositoryData.addSnapshot(snapshotId, snapshotInfo.state(), Version.CURRENT, shardGenerations);
-                    writeIndexGen(updatedRepositoryData, repositoryStateId, writeShardGens, ActionListener.wrap(v -> {
-                        if (writeShardGens) {
-                            cleanupOldShardGens(existingRepositoryData, updatedRepositoryData);
-                        }
-                        listener.onResponse(snapshotInfo);
-                    }, onUpdateFailure));
-                }, onUpdateFailure));
-            }, onUpdateFailure), 2 + indices.size());
+                onFinalizationMetaWritten(finalization, snapshotInfos.iterator().next(), null);
+            }, e -> onFinalizationMetaWritten(finalization, null, e)), 2 + indices.size());
         final Executor executor = threadPool.executor(ThreadPool.Names.SNAPSHOT);
 
         // We ignore all FileAlreadyExistsException when writing metadata since otherwise a master failover while in this method will
@@ -905,24 +1148,184 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         // Failing on an already existing index-${repoGeneration} below ensures that the index.latest blob is not updated in a way
         // that decrements the generation it points at
 
-        // Write Global MetaData
-        executor.execute(ActionRunnable.run(allMetaListener,
-            () -> globalMetaDataFormat.write(clusterMetaData, blobContainer(), snapshotId.getUUID(), false)));
+        boolean success = false;
+        try {
+            // Write Global MetaData
+            executor.execute(ActionRunnable.run(allMetaListener,
+                () -> globalMetaDataFormat.write(clusterMetaData, blobContainer(), snapshotId.getUUID(), false)));
+
+            // write the index metadata for each index in the snapshot
+            for (IndexId index : indices) {
+                executor.execute(ActionRunnable.run(allMetaListener, () ->
+                    indexMetaDataFormat.write(clusterMetaData.index(index.getName()), indexContainer(index), snapshotId.getUUID(), false)));
+            }
 
-        // write the index metadata for each index in the snapshot
-        for (IndexId index : indices) {
-            executor.execute(ActionRunnable.run(allMetaListener, () ->
-                indexMetaDataFormat.write(clusterMetaData.index(index.getName()), indexContainer(index), snapshotId.getUUID(), false)));
+            executor.execute(ActionRunnable.supply(allMetaListener, () -> {
+                final SnapshotInfo snapshotInfo = new SnapshotInfo(snapshotId,
+                    indices.stream().map(IndexId::getName).collect(Collectors.toList()),
+                    startTime, failure, threadPool.absoluteTimeInMillis(), totalShards, shardFailures,
+                    includeGlobalState, userMetadata);
+                snapshotFormat.write(snapshotInfo, blobContainer(), snapshotId.getUUID(), false);
+                return snapshotInfo;
+            }));
+            success = true;
+        } finally {
+            if (success == false) {
+                // don't hold up the finalizations queued behind this one if a write could not even be started
+                onFinalizationMetaWritten(finalization, null,
+                    new RepositoryException(metadata.name(), "failed to start writing metadata of snapshot [" + snapshotId + "]"));
+            }
         }
+    }
 
-        executor.execute(ActionRunnable.supply(allMetaListener, () -> {
-            final SnapshotInfo snapshotInfo = new SnapshotInfo(snapshotId,
-                indices.stream().map(IndexId::getName).collect(Collectors.toList()),
-                startTime, failure, threadPool.absoluteTimeInMillis(), totalShards, shardFailures,
-                includeGlobalState, userMetadata);
-            snapshotFormat.write(snapshotInfo, blobContainer(), snapshotId.getUUID(), false);
-            return snapshotInfo;
-        }));
+    private void onFinalizationMetaWritten(PendingFinalization finalization, @Nullable SnapshotInfo snapshotInfo,
+                                           @Nullable Exception failure) {
+        synchronized (pendingFinalizations) {
+            finalization.snapshotInfo = snapshotInfo;
+            finalization.failure = failure;
+        }
+        maybeUpdateRepositoryData();
+    }
+
+    /**
+     * Writes the changes of all finalizations at the head of {@link #pendingFinalizations} whose snapshot metadata has been written to
+     * the repository in a single update of the {@link RepositoryData}, unless an update is already running. The next batch is written
+     * once the running update completes.
+     */
+    private void maybeUpdateRepositoryData() {
+        final List<PendingFinalization> batch = new ArrayList<>();
+        synchronized (pendingFinalizations) {
+            if (updatingRepositoryData) {
+                return;
+            }
+            while (pendingFinalizations.isEmpty() == false && pendingFinalizations.peek().isReady()) {
+                batch.add(pendingFinalizations.poll());
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            updatingRepositoryData = true;
+        }
+        final List<PendingFinalization> finalizations = new ArrayList<>(batch.size());
+        for (PendingFinalization finalization : batch) {
+            if (finalization.failure == null) {
+                finalizations.add(finalization);
+            } else {
+                finalization.onFailure(finalization.failure);
+            }
+        }
+        final Runnable onBatchDone = () -> {
+            synchronized (pendingFinalizations) {
+                assert updatingRepositoryData;
+                updatingRepositoryData = false;
+            }
+            maybeUpdateRepositoryData();
+        };
+        if (finalizations.isEmpty()) {
+            onBatchDone.run();
+            return;
+        }
+        final ActionListener<Void> batchListener = ActionListener.runAfter(ActionListener.wrap(v -> {
+            for (PendingFinalization finalization : finalizations) {
+                finalization.listener.onResponse(finalization.snapshotInfo);
+            }
+        }, e -> {
+            for (PendingFinalization finalization : finalizations) {
+                finalization.onFailure(e);
+            }
+        }), onBatchDone);
+        logger.debug("[{}] updating repository data for [{}] finalized snapshots", metadata.name(), finalizations.size());
+        getRepositoryData(ActionListener.wrap(existingRepositoryData -> {
+            final long expectedGen = existingRepositoryData.getGenId();
+            final List<PendingFinalization> invalidFinalizations = new ArrayList<>();
+            synchronized (pendingFinalizations) {
+                for (PendingFinalization finalization : finalizations) {
+                    if (isValidGeneration(finalization.repositoryStateId, expectedGen) == false) {
+                        invalidFinalizations.add(finalization);
+                    }
+                }
+            }
+            finalizations.removeAll(invalidFinalizations);
+            for (PendingFinalization finalization : invalidFinalizations) {
+                finalization.onFailure(new RepositoryException(metadata.name(),
+                    "concurrent modification of the index-N file, expected current generation [" +
+                        finalization.repositoryStateId + "], actual current generation [" + expectedGen + "]"));
+            }
+            if (finalizations.isEmpty()) {
+                batchListener.onResponse(null);
+                return;
+            }
+            RepositoryData updatedRepositoryData = existingRepositoryData;
+            boolean writeShardGens = true;
+            for (PendingFinalization finalization : finalizations) {
+                updatedRepositoryData = updatedRepositoryData.addSnapshot(finalization.snapshotId, finalization.snapshotInfo.state(),
+                    Version.CURRENT, finalization.shardGenerations);
+                writeShardGens &= finalization.writeShardGens;
+            }
+            final RepositoryData newRepositoryData = updatedRepositoryData;
+            final boolean writeNewShardGens = writeShardGens;
+            writeIndexGen(newRepositoryData, expectedGen, writeNewShardGens, ActionListener.wrap(v -> {
+                synchronized (pendingFinalizations) {
+                    if (finalizedGenerationsEnd != expectedGen) {
+                        finalizedGenerationsStart = expectedGen;
+                    }
+                    finalizedGenerationsEnd = latestKnownRepoGen.get();
+                    assert finalizedGenerationsEnd > expectedGen : "generation [" + finalizedGenerationsEnd
+                        + "] did not move past [" + expectedGen + "] after writing repository data";
+                }
+                if (writeNewShardGens) {
+                    cleanupOldShardGens(existingRepositoryData, newRepositoryData);
+                }
+                batchListener.onResponse(null);
+            }, batchListener::onFailure));
+        }, batchListener::onFailure));
+    }
+
+    /**
+     * Checks whether a snapshot that was started at the given repository generation may be finalized on top of the repository's current
+     * generation. This is the case if the repository did not move since, or if it was only moved by finalizations of snapshots that
+     * were running concurrently with it.
+     *
+     * @param repositoryStateId repository generation the snapshot was started at
+     * @param currentGen        current repository generation
+     */
+    private boolean isValidGeneration(long repositoryStateId, long currentGen) {
+        assert Thread.holdsLock(pendingFinalizations);
+        return repositoryStateId == currentGen || (finalizedGenerationsEnd == currentGen
+            && finalizedGenerationsStart <= repositoryStateId && repositoryStateId < currentGen);
+    }
+
+    /**
+     * A snapshot finalization whose changes to the {@link RepositoryData} have not been written yet.
+     */
+    private final class PendingFinalization {
+
+        private final SnapshotId snapshotId;
+        private final ShardGenerations shardGenerations;
+        private final long repositoryStateId;
+        private final boolean writeShardGens;
+        private final ActionListener<SnapshotInfo> listener;
+
+        // set once the snapshot's metadata has been written, guarded by #pendingFinalizations
+        private SnapshotInfo snapshotInfo;
+        private Exception failure;
+
+        PendingFinalization(SnapshotId snapshotId, ShardGenerations shardGenerations, long repositoryStateId, boolean writeShardGens,
+                            ActionListener<SnapshotInfo> listener) {
+            this.snapshotId = snapshotId;
+            this.shardGenerations = shardGenerations;
+            this.repositoryStateId = repositoryStateId;
+            this.writeShardGens = writeShardGens;
+            this.listener = listener;
+        }
+
+        boolean isReady() {
+            return snapshotInfo != null || failure != null;
+        }
+
+        void onFailure(Exception e) {
+            listener.onFailure(new SnapshotException(metadata.name(), snapshotId, "failed to update snapshot in repository", e));
+        }
     }
 
     // Delete all old shard gen blobs that aren't referenced any longer as a result from moving to updated repository data
@@ -982,10 +1385,29 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         return shardContainer(indexId, shardId.getId());
     }
 
-    private BlobContainer shardContainer(IndexId indexId, int shardId) {
+    public BlobContainer shardContainer(IndexId indexId, int shardId) {
         return blobStore().blobContainer(indicesPath().add(indexId.getId()).add(Integer.toString(shardId)));
     }
 
+    private BlobContainer contentContainer() {
+        return blobStore().blobContainer(basePath().add(CONTENT_PATH));
+    }
+
+    /**
+     * Returns the container that holds the data blobs of the given file of a snapshot of the shard with the given container.
+     */
+    public BlobContainer dataBlobContainer(BlobContainer shardContainer, BlobStoreIndexShardSnapshot.FileInfo fileInfo) {
+        return isContentAddressed(fileInfo.name()) ? contentContainer() : shardContainer;
+    }
+
+    private static boolean isContentAddressed(String blobName) {
+        return blobName.startsWith(CONTENT_DATA_BLOB_PREFIX);
+    }
+
+    private static String contentRefBlobName(String contentBlobName, IndexId indexId, int shardId) {
+        return contentBlobName + CONTENT_REF_INFIX + indexId.getId() + "." + shardId;
+    }
+
     /**
      * Configures RateLimiter based on repository and global settings
      *
@@ -1013,6 +1435,16 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         return restoreRateLimitingTimeInNanos.count();
     }
 
+    @Override
+    public long getSnapshotUploadedBytes() {
+        return snapshotUploadedBytes.count();
+    }
+
+    @Override
+    public long getSnapshotUploadTimeInNanos() {
+        return snapshotUploadTimeInNanos.count();
+    }
+
     protected void assertSnapshotOrGenericThread() {
         assert Thread.currentThread().getName().contains(ThreadPool.Names.SNAPSHOT)
             || Thread.currentThread().getName().contains(ThreadPool.Names.GENERIC) :
@@ -1486,7 +1918,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             }
 
             final List<BlobStoreIndexShardSnapshot.FileInfo> indexCommitPointFiles = new ArrayList<>();
-            final BlockingQueue<BlobStoreIndexShardSnapshot.FileInfo> filesToSnapshot = new LinkedBlockingQueue<>();
+            final List<BlobStoreIndexShardSnapshot.FileInfo> filesToSnapshot = new ArrayList<>();
             store.incRef();
             final Collection<String> fileNames;
             final Store.MetadataSnapshot metadataFromStore;
@@ -1503,6 +1935,9 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             } finally {
                 store.decRef();
             }
+            final boolean useContentAddressedFiles =
+                contentAddressedFiles && repositoryMetaVersion.onOrAfter(SnapshotsService.CONTENT_ADDRESSED_FILES_VERSION);
+            final BlobContainer contentContainer = useContentAddressedFiles ? contentContainer() : null;
             int indexIncrementalFileCount = 0;
             int indexTotalNumberOfFiles = 0;
             long indexIncrementalSize = 0;
@@ -1534,7 +1969,28 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                 indexTotalFileCount += md.length();
                 indexTotalNumberOfFiles++;
 
-                if (existingFileInfo == null) {
+                final String contentBlobName =
+                    existingFileInfo == null && needsWrite && useContentAddressedFiles ? contentBlobName(store, md, shardId) : null;
+                if (contentBlobName != null) {
+                    final BlobStoreIndexShardSnapshot.FileInfo snapshotFileInfo =
+                        new BlobStoreIndexShardSnapshot.FileInfo(contentBlobName, md, chunkSize());
+                    // reference the contents before uploading or reusing them, a snapshot deletion only deletes unreferenced contents
+                    try {
+                        contentContainer.writeBlob(contentRefBlobName(snapshotFileInfo.name(), indexId, shardId.id()),
+                            new ByteArrayInputStream(BytesRef.EMPTY_BYTES), 0L, false);
+                    } catch (IOException e) {
+                        throw new IndexShardSnapshotFailedException(shardId, "Failed to reference file [" + fileName + "]", e);
+                    }
+                    indexCommitPointFiles.add(snapshotFileInfo);
+                    if (contentBlobExists(contentContainer, snapshotFileInfo, shardId)) {
+                        logger.trace("[{}] [{}] contents of [{}] are already stored as [{}]",
+                            shardId, snapshotId, fileName, snapshotFileInfo.name());
+                    } else {
+                        indexIncrementalFileCount++;
+                        indexIncrementalSize += md.length();
+                        filesToSnapshot.add(snapshotFileInfo);
+                    }
+                } else if (existingFileInfo == null) {
                     indexIncrementalFileCount++;
                     indexIncrementalSize += md.length();
                     // create a new FileInfo
@@ -1615,24 +2071,38 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                 snapshotStatus.moveToDone(threadPool.absoluteTimeInMillis(), indexGeneration);
                 listener.onResponse(indexGeneration);
             }, listener::onFailure);
-            if (indexIncrementalFileCount == 0) {
+            // files whose contents are stored in the shard metadata are counted as incremental but are never uploaded
+            if (filesToSnapshot.isEmpty()) {
                 allFilesUploadedListener.onResponse(Collections.emptyList());
                 return;
             }
+            final BlockingQueue<CheckedRunnable<Exception>> uploads = new LinkedBlockingQueue<>();
+            for (BlobStoreIndexShardSnapshot.FileInfo fileInfo : filesToSnapshot) {
+                if (fileInfo.numberOfParts() > 1) {
+                    // the parts of a large file are uploaded concurrently, and its checksum is verified once all of them are uploaded
+                    final MultiPartFileVerifier verifier = new MultiPartFileVerifier(fileInfo);
+                    for (int part = 0; part < fileInfo.numberOfParts(); part++) {
+                        final int partIndex = part;
+                        uploads.add(() -> snapshotFilePart(verifier, partIndex, indexId, shardId, snapshotId, snapshotStatus, store));
+                    }
+                } else {
+                    uploads.add(() -> snapshotFile(fileInfo, indexId, shardId, snapshotId, snapshotStatus, store));
+                }
+            }
             final Executor executor = threadPool.executor(ThreadPool.Names.SNAPSHOT);
             // Start as many workers as fit into the snapshot pool at once at the most
-            final int workers = Math.min(threadPool.info(ThreadPool.Names.SNAPSHOT).getMax(), indexIncrementalFileCount);
-            final ActionListener<Void> filesListener = fileQueueListener(filesToSnapshot, workers, allFilesUploadedListener);
+            final int workers = Math.min(threadPool.info(ThreadPool.Names.SNAPSHOT).getMax(), uploads.size());
+            final ActionListener<Void> filesListener = fileQueueListener(uploads, workers, allFilesUploadedListener);
             for (int i = 0; i < workers; ++i) {
                 executor.execute(ActionRunnable.run(filesListener, () -> {
-                    BlobStoreIndexShardSnapshot.FileInfo snapshotFileInfo = filesToSnapshot.poll(0L, TimeUnit.MILLISECONDS);
-                    if (snapshotFileInfo != null) {
+                    CheckedRunnable<Exception> upload = uploads.poll(0L, TimeUnit.MILLISECONDS);
+                    if (upload != null) {
                         store.incRef();
                         try {
                             do {
-                                snapshotFile(snapshotFileInfo, indexId, shardId, snapshotId, snapshotStatus, store);
-                                snapshotFileInfo = filesToSnapshot.poll(0L, TimeUnit.MILLISECONDS);
-                            } while (snapshotFileInfo != null);
+                                upload.run();
+                                upload = uploads.poll(0L, TimeUnit.MILLISECONDS);
+                            } while (upload != null);
                         } finally {
                             store.decRef();
                         }
@@ -1644,6 +2114,56 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }
     }
 
+    /**
+     * Returns the name of the content addressed data blob of the given file, or {@code null} if the file has no Lucene index header. The
+     * name is a digest of the file's length and its index header and footer rather than of its whole contents, so that it only takes two
+     * small reads to compute. The index header holds the codec name, the random ID of the segment or commit that the file belongs to and
+     * the segment suffix, and the footer holds the checksum of the file, so two files only get the same name if they are copies of each
+     * other. The file name is left out on purpose: a shrink or split copies segment files under new segment names. The contents are
+     * verified against the checksum when they are uploaded.
+     */
+    @Nullable
+    private static String contentBlobName(Store store, StoreFileMetaData md, ShardId shardId) {
+        final MessageDigest digest = MessageDigests.sha256();
+        digest.update(Numbers.longToBytes(md.length()));
+        store.incRef();
+        try (IndexInput indexInput = store.directory().openInput(md.name(), IOContext.READONCE)) {
+            final byte[] header;
+            try {
+                header = CodecUtil.readIndexHeader(indexInput);
+            } catch (CorruptIndexException | IndexFormatTooOldException | IndexFormatTooNewException e) {
+                logger.trace(() -> new ParameterizedMessage("{} file [{}] has no index header", shardId, md.name()), e);
+                return null;
+            }
+            digest.update(header);
+            digest.update(CodecUtil.readFooter(indexInput));
+        } catch (IOException e) {
+            failStoreIfCorrupted(store, e);
+            throw new IndexShardSnapshotFailedException(shardId, "Failed to read header and footer of file [" + md.name() + "]", e);
+        } finally {
+            store.decRef();
+        }
+        return CONTENT_DATA_BLOB_PREFIX + MessageDigests.toHexString(digest.digest());
+    }
+
+    // whether all parts of the given content addressed file were already stored by a snapshot of this or another shard
+    private static boolean contentBlobExists(BlobContainer contentContainer, BlobStoreIndexShardSnapshot.FileInfo fileInfo,
+                                             ShardId shardId) {
+        final Map<String, BlobMetaData> blobs;
+        try {
+            blobs = contentContainer.listBlobsByPrefix(fileInfo.name());
+        } catch (IOException e) {
+            throw new IndexShardSnapshotFailedException(shardId, "Failed to list blobs", e);
+        }
+        for (int part = 0; part < fileInfo.numberOfParts(); part++) {
+            final BlobMetaData blob = blobs.get(fileInfo.partName(part));
+            if (blob == null || blob.length() != fileInfo.partBytes(part)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static boolean assertFileContentsMatchHash(BlobStoreIndexShardSnapshot.FileInfo fileInfo, Store store) {
         try (IndexInput indexInput = store.openVerifyingInput(fileInfo.physicalName(), IOContext.READONCE, fileInfo.metadata())) {
             final byte[] tmp = new byte[Math.toIntExact(fileInfo.metadata().length())];
@@ -1700,23 +2220,12 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                     boolean success = false;
                     try (IndexOutput indexOutput =
                              store.createVerifyingOutput(fileInfo.physicalName(), fileInfo.metadata(), IOContext.DEFAULT)) {
-                        if (fileInfo.name().startsWith(VIRTUAL_DATA_BLOB_PREFIX)) {
-                            final BytesRef hash = fileInfo.metadata().hash();
-                            indexOutput.writeBytes(hash.bytes, hash.offset, hash.length);
-                            recoveryState.getIndex().addRecoveredBytesToFile(fileInfo.physicalName(), hash.length);
-                        } else {
-                            try (InputStream stream = maybeRateLimit(new SlicedInputStream(fileInfo.numberOfParts()) {
-                                @Override
-                                protected InputStream openSlice(long slice) throws IOException {
-                                    return container.readBlob(fileInfo.partName(slice));
-                                }
-                            }, restoreRateLimiter, restoreRateLimitingTimeInNanos)) {
-                                final byte[] buffer = new byte[BUFFER_SIZE];
-                                int length;
-                                while ((length = stream.read(buffer)) > 0) {
-                                    indexOutput.writeBytes(buffer, 0, length);
-                                    recoveryState.getIndex().addRecoveredBytesToFile(fileInfo.physicalName(), length);
-                                }
+                        try (InputStream stream = openSnapshotFile(container, fileInfo)) {
+                            final byte[] buffer = new byte[BUFFER_SIZE];
+                            int length;
+                            while ((length = stream.read(buffer)) > 0) {
+                                indexOutput.writeBytes(buffer, 0, length);
+                                recoveryState.getIndex().addRecoveredBytesToFile(fileInfo.physicalName(), length);
                             }
                         }
                         Store.verify(indexOutput);
@@ -1740,8 +2249,39 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }));
     }
 
-    private static ActionListener<Void> fileQueueListener(BlockingQueue<BlobStoreIndexShardSnapshot.FileInfo> files, int workers,
-                                                          ActionListener<Collection<Void>> listener) {
+    /**
+     * Opens a stream over the contents of the given file of a snapshot of the given shard, rate limited like a restore.
+     */
+    public InputStream openSnapshotFile(IndexId indexId, int shardId, BlobStoreIndexShardSnapshot.FileInfo fileInfo) {
+        return openSnapshotFile(shardContainer(indexId, shardId), fileInfo);
+    }
+
+    private InputStream openSnapshotFile(BlobContainer shardContainer, BlobStoreIndexShardSnapshot.FileInfo fileInfo) {
+        if (fileInfo.name().startsWith(VIRTUAL_DATA_BLOB_PREFIX)) {
+            final BytesRef hash = fileInfo.metadata().hash();
+            return new ByteArrayInputStream(hash.bytes, hash.offset, hash.length);
+        }
+        final BlobContainer container = dataBlobContainer(shardContainer, fileInfo);
+        return maybeRateLimit(new SlicedInputStream(fileInfo.numberOfParts()) {
+            @Override
+            protected InputStream openSlice(long slice) throws IOException {
+                return container.readBlob(fileInfo.partName(slice));
+            }
+        }, restoreRateLimiter, restoreRateLimitingTimeInNanos);
+    }
+
+    /**
+     * Loads the files of all snapshots of the given shard that are referenced by the given repository data, most recent snapshot first.
+     */
+    public BlobStoreIndexShardSnapshots getShardSnapshots(RepositoryData repositoryData, IndexId indexId, int shardId) throws IOException {
+        final BlobContainer shardContainer = shardContainer(indexId, shardId);
+        final String generation = repositoryData.shardGenerations().getShardGen(indexId, shardId);
+        final Set<String> blobs = generation == null ? shardContainer.listBlobs().keySet() : Collections.emptySet();
+        return buildBlobStoreIndexShardSnapshots(blobs, shardContainer, generation).v1();
+    }
+
+    private static <T> ActionListener<Void> fileQueueListener(BlockingQueue<T> files, int workers,
+                                                              ActionListener<Collection<Void>> listener) {
         return ActionListener.delegateResponse(new GroupedActionListener<>(listener, workers), (l, e) -> {
             files.clear(); // Stop uploading the remaining files if we run into any exception
             l.onFailure(e);
@@ -1821,15 +2361,29 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                 newSnapshotsList.add(point);
             }
         }
+        // the content addressed files of the removed snapshot that none of the surviving snapshots of the shard reference
+        final Set<String> survivingContents = new HashSet<>();
+        for (SnapshotFiles snapshotFiles : newSnapshotsList) {
+            for (BlobStoreIndexShardSnapshot.FileInfo fileInfo : snapshotFiles.indexFiles()) {
+                survivingContents.add(fileInfo.name());
+            }
+        }
+        final Map<String, BlobStoreIndexShardSnapshot.FileInfo> unreferencedContentRefs = new HashMap<>();
+        for (SnapshotFiles point : snapshots) {
+            if (point.snapshot().equals(snapshotId.getName())) {
+                addContentRefs(unreferencedContentRefs, indexId, snapshotShardId.id(), point.indexFiles(), survivingContents);
+            }
+        }
         try {
             if (newSnapshotsList.isEmpty()) {
-                return new ShardSnapshotMetaDeleteResult(indexId, snapshotShardId.id(), ShardGenerations.DELETED_SHARD_GEN, blobs);
+                return new ShardSnapshotMetaDeleteResult(indexId, snapshotShardId.id(), ShardGenerations.DELETED_SHARD_GEN, blobs,
+                    unreferencedContentRefs);
             } else {
                 final BlobStoreIndexShardSnapshots updatedSnapshots = new BlobStoreIndexShardSnapshots(newSnapshotsList);
                 writeShardIndexBlob(shardContainer, indexGeneration, updatedSnapshots);
                 final Set<String> survivingSnapshotUUIDs = survivingSnapshots.stream().map(SnapshotId::getUUID).collect(Collectors.toSet());
                 return new ShardSnapshotMetaDeleteResult(indexId, snapshotShardId.id(), indexGeneration,
-                    unusedBlobs(blobs, survivingSnapshotUUIDs, updatedSnapshots));
+                    unusedBlobs(blobs, survivingSnapshotUUIDs, updatedSnapshots), unreferencedContentRefs);
             }
         } catch (IOException e) {
             throw new IndexShardSnapshotFailedException(snapshotShardId,
@@ -1871,7 +2425,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
     /**
      * Loads information about shard snapshot
      */
-    private BlobStoreIndexShardSnapshot loadShardSnapshot(BlobContainer shardContainer, SnapshotId snapshotId) {
+    public BlobStoreIndexShardSnapshot loadShardSnapshot(BlobContainer shardContainer, SnapshotId snapshotId) {
         try {
             return indexShardSnapshotFormat.read(shardContainer, snapshotId.getUUID());
         } catch (NoSuchFileException ex) {
@@ -1931,46 +2485,114 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
      */
     private void snapshotFile(BlobStoreIndexShardSnapshot.FileInfo fileInfo, IndexId indexId, ShardId shardId, SnapshotId snapshotId,
                               IndexShardSnapshotStatus snapshotStatus, Store store) throws IOException {
-        final BlobContainer shardContainer = shardContainer(indexId, shardId);
+        final BlobContainer container = dataBlobContainer(shardContainer(indexId, shardId), fileInfo);
         final String file = fileInfo.physicalName();
         try (IndexInput indexInput = store.openVerifyingInput(file, IOContext.READONCE, fileInfo.metadata())) {
             for (int i = 0; i < fileInfo.numberOfParts(); i++) {
                 final long partBytes = fileInfo.partBytes(i);
-
-                // Make reads abortable by mutating the snapshotStatus object
-                final InputStream inputStream = new FilterInputStream(maybeRateLimit(
-                    new InputStreamIndexInput(indexInput, partBytes), snapshotRateLimiter, snapshotRateLimitingTimeInNanos)) {
-                    @Override
-                    public int read() throws IOException {
-                        checkAborted();
-                        return super.read();
-                    }
-
-                    @Override
-                    public int read(byte[] b, int off, int len) throws IOException {
-                        checkAborted();
-                        return super.read(b, off, len);
-                    }
-
-                    private void checkAborted() {
-                        if (snapshotStatus.isAborted()) {
-                            logger.debug("[{}] [{}] Aborted on the file [{}], exiting", shardId,
-                                snapshotId, fileInfo.physicalName());
-                            throw new IndexShardSnapshotFailedException(shardId, "Aborted");
-                        }
-                    }
-                };
-                shardContainer.writeBlob(fileInfo.partName(i), inputStream, partBytes, true);
+                final InputStream inputStream = abortableInputStream(maybeRateLimit(
+                    new InputStreamIndexInput(indexInput, partBytes), snapshotRateLimiter, snapshotRateLimitingTimeInNanos),
+                    fileInfo, shardId, snapshotId, snapshotStatus);
+                writeSnapshotBlob(container, fileInfo.partName(i), inputStream, partBytes);
             }
             Store.verify(indexInput);
             snapshotStatus.addProcessedFile(fileInfo.length());
         } catch (Exception t) {
             failStoreIfCorrupted(store, t);
+            deleteCorruptedContent(container, fileInfo, shardId, t);
             snapshotStatus.addProcessedFile(0);
             throw t;
         }
     }
 
+    /**
+     * Snapshot a part of a file whose parts are uploaded concurrently, verifying the checksum of the file once its last part is uploaded
+     * @param verifier verifies the checksum of the file to be snapshotted
+     * @param part     the part of the file to be snapshotted
+     */
+    private void snapshotFilePart(MultiPartFileVerifier verifier, int part, IndexId indexId, ShardId shardId, SnapshotId snapshotId,
+                                  IndexShardSnapshotStatus snapshotStatus, Store store) throws IOException {
+        final BlobStoreIndexShardSnapshot.FileInfo fileInfo = verifier.fileInfo();
+        final BlobContainer container = dataBlobContainer(shardContainer(indexId, shardId), fileInfo);
+        final long partBytes = fileInfo.partBytes(part);
+        try (IndexInput indexInput = store.directory().openInput(fileInfo.physicalName(), IOContext.READONCE)) {
+            indexInput.seek(part * fileInfo.partBytes(0));
+            final MultiPartFileVerifier.PartInputStream partStream =
+                verifier.wrapPart(part, new InputStreamIndexInput(indexInput, partBytes));
+            final InputStream inputStream = abortableInputStream(maybeRateLimit(partStream, snapshotRateLimiter,
+                snapshotRateLimitingTimeInNanos), fileInfo, shardId, snapshotId, snapshotStatus);
+            writeSnapshotBlob(container, fileInfo.partName(part), inputStream, partBytes);
+            if (verifier.onPartRead(partStream)) {
+                verifier.verify();
+                snapshotStatus.addProcessedFile(fileInfo.length());
+            }
+        } catch (Exception t) {
+            failStoreIfCorrupted(store, t);
+            deleteCorruptedContent(container, fileInfo, shardId, t);
+            if (verifier.onPartFailed()) {
+                snapshotStatus.addProcessedFile(0);
+            }
+            throw t;
+        }
+    }
+
+    /**
+     * Deletes the uploaded parts of a content addressed file that failed verification. The parts are uploaded under the content's final
+     * name, and snapshots of other shards that have a copy of the file would otherwise reference the corrupted contents without ever
+     * uploading them again.
+     */
+    private static void deleteCorruptedContent(BlobContainer container, BlobStoreIndexShardSnapshot.FileInfo fileInfo, ShardId shardId,
+                                               Exception e) {
+        if (isContentAddressed(fileInfo.name()) && Lucene.isCorruptionException(e)) {
+            final List<String> parts = new ArrayList<>(Math.toIntExact(fileInfo.numberOfParts()));
+            for (int part = 0; part < fileInfo.numberOfParts(); part++) {
+                parts.add(fileInfo.partName(part));
+            }
+            try {
+                container.deleteBlobsIgnoringIfNotExists(parts);
+            } catch (IOException inner) {
+                logger.warn(() -> new ParameterizedMessage("{} failed to delete corrupted contents {}", shardId, parts), inner);
+                e.addSuppressed(inner);
+            }
+        }
+    }
+
+    /**
+     * Make reads abortable by mutating the snapshotStatus object
+     */
+    private static InputStream abortableInputStream(InputStream stream, BlobStoreIndexShardSnapshot.FileInfo fileInfo, ShardId shardId,
+                                                    SnapshotId snapshotId, IndexShardSnapshotStatus snapshotStatus) {
+        return new FilterInputStream(stream) {
+            @Override
+            public int read() throws IOException {
+                checkAborted();
+                return super.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                checkAborted();
+                return super.read(b, off, len);
+            }
+
+            private void checkAborted() {
+                if (snapshotStatus.isAborted()) {
+                    logger.debug("[{}] [{}] Aborted on the file [{}], exiting", shardId,
+                        snapshotId, fileInfo.physicalName());
+                    throw new IndexShardSnapshotFailedException(shardId, "Aborted");
+                }
+            }
+        };
+    }
+
+    private void writeSnapshotBlob(BlobContainer container, String blobName, InputStream inputStream, long length) throws IOException {
+        final long startTimeNanos = System.nanoTime();
+        // a snapshot of another shard may be uploading the same contents concurrently
+        container.writeBlob(blobName, inputStream, length, isContentAddressed(blobName) == false);
+        snapshotUploadTimeInNanos.inc(System.nanoTime() - startTimeNanos);
+        snapshotUploadedBytes.inc(length);
+    }
+
     private static void failStoreIfCorrupted(Store store, Exception e) {
         if (Lucene.isCorruptionException(e)) {
             try {
@@ -1999,11 +2621,16 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         // Blob names in the shard directory that have become unreferenced in the new shard generation
         private final Collection<String> blobsToDelete;
 
-        ShardSnapshotMetaDeleteResult(IndexId indexId, int shardId, String newGeneration, Collection<String> blobsToDelete) {
+        // Content addressed files that are no longer referenced in the new shard generation, keyed by their reference marker blobs
+        private final Map<String, BlobStoreIndexShardSnapshot.FileInfo> unreferencedContentRefs;
+
+        ShardSnapshotMetaDeleteResult(IndexId indexId, int shardId, String newGeneration, Collection<String> blobsToDelete,
+                                      Map<String, BlobStoreIndexShardSnapshot.FileInfo> unreferencedContentRefs) {
             this.indexId = indexId;
             this.shardId = shardId;
             this.newGeneration = newGeneration;
             this.blobsToDelete = blobsToDelete;
+            this.unreferencedContentRefs = unreferencedContentRefs;
         }
     }
 }
@@ -0,0 +1,183 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.repositories.blobstore;
+
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.elasticsearch.common.hash.Checksums;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
+import org.elasticsearch.index.store.Store;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * Verifies the checksum of a Lucene file whose parts are read and uploaded concurrently. The checksum of each part is computed while the
+ * part is read, and the checksums of all parts are combined and checked against the footer of the file once the last part is read, so
+ * that the file is only read once.
+ */
+final class MultiPartFileVerifier {
+
+    private static final int CHECKSUM_LENGTH = Long.BYTES;
+
+    private final BlobStoreIndexShardSnapshot.FileInfo fileInfo;
+    private final long checksumPosition;
+    private final long[] partChecksums;
+    private final byte[] storedChecksum = new byte[CHECKSUM_LENGTH];
+    private final AtomicInteger pendingParts;
+    private final AtomicBoolean failed = new AtomicBoolean();
+
+    MultiPartFileVerifier(BlobStoreIndexShardSnapshot.FileInfo fileInfo) {
+        assert fileInfo.length() >= CHECKSUM_LENGTH : "file [" + fileInfo.physicalName() + "] is too short to have a checksum";
+        this.fileInfo = fileInfo;
+        this.checksumPosition = fileInfo.length() - CHECKSUM_LENGTH;
+        this.partChecksums = new long[Math.toIntExact(fileInfo.numberOfParts())];
+        this.pendingParts = new AtomicInteger(partChecksums.length);
+    }
+
+    BlobStoreIndexShardSnapshot.FileInfo fileInfo() {
+        return fileInfo;
+    }
+
+    /**
+     * Wraps the stream over the given part of the file so that its checksum is computed while it is read. The returned stream supports
+     * re-reading bytes after a reset, which some repositories do when retrying an upload.
+     */
+    PartInputStream wrapPart(int part, InputStream stream) {
+        return new PartInputStream(part, part * fileInfo.partBytes(0), stream);
+    }
+
+    /**
+     * Records that the given part was fully read.
+     *
+     * @return whether all the parts of the file were read, in which case the file must be verified with {@link #verify()}
+     */
+    boolean onPartRead(PartInputStream stream) {
+        assert stream.verifiedPosition == stream.part * fileInfo.partBytes(0) + fileInfo.partBytes(stream.part)
+            : "part [" + stream.part + "] of [" + fileInfo.physicalName() + "] was not fully read";
+        partChecksums[stream.part] = stream.digest.getValue();
+        return pendingParts.decrementAndGet() == 0;
+    }
+
+    /**
+     * Records that reading or uploading a part failed.
+     *
+     * @return whether this is the first failure for this file
+     */
+    boolean onPartFailed() {
+        return failed.compareAndSet(false, true);
+    }
+
+    /**
+     * Verifies that the combined checksum of all the parts matches the checksum stored in the footer of the file.
+     */
+    void verify() throws CorruptIndexException {
+        assert pendingParts.get() == 0 : "not all parts of [" + fileInfo.physicalName() + "] were read";
+        final long partBytes = fileInfo.partBytes(0);
+        long checksum = partChecksums[0];
+        for (int part = 1; part < partChecksums.length; part++) {
+            final long partStart = part * partBytes;
+            final long digestedLength = Math.max(0L, Math.min(partStart + fileInfo.partBytes(part), checksumPosition) - partStart);
+            checksum = Checksums.combineCrc32(checksum, partChecksums[part], digestedLength);
+        }
+        final long stored = new ByteArrayDataInput(storedChecksum).readLong();
+        if (checksum != stored) {
+            throw new CorruptIndexException("verification failed : calculated=" + Store.digestToString(checksum) +
+                " stored=" + Store.digestToString(stored), fileInfo.physicalName());
+        }
+    }
+
+    final class PartInputStream extends FilterInputStream {
+
+        private final int part;
+        private final CRC32 digest = new CRC32();
+        private long position;
+        private long verifiedPosition;
+        private long markedPosition;
+
+        private PartInputStream(int part, long partStart, InputStream in) {
+            super(in);
+            this.part = part;
+            this.position = partStart;
+            this.verifiedPosition = partStart;
+            this.markedPosition = partStart;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b != -1) {
+                onRead(new byte[]{(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int read = super.read(b, off, len);
+            if (read > 0) {
+                onRead(b, off, read);
+            }
+            return read;
+        }
+
+        private void onRead(byte[] b, int off, int len) {
+            if (position + len > verifiedPosition) {
+                // only digest the bytes that were not read before a reset
+                final int alreadyVerified = Math.toIntExact(verifiedPosition - position);
+                long start = position + alreadyVerified;
+                int offset = off + alreadyVerified;
+                final long end = position + len;
+                if (start < checksumPosition) {
+                    final int digested = Math.toIntExact(Math.min(end, checksumPosition) - start);
+                    digest.update(b, offset, digested);
+                    start += digested;
+                    offset += digested;
+                }
+                if (start < end) {
+                    System.arraycopy(b, offset, storedChecksum, Math.toIntExact(start - checksumPosition), Math.toIntExact(end - start));
+                }
+                verifiedPosition = end;
+            }
+            position += len;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            throw new UnsupportedOperationException("skipping would leave bytes of [" + fileInfo.physicalName() + "] unverified");
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+            super.mark(readlimit);
+            markedPosition = position;
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            super.reset();
+            position = markedPosition;
+        }
+    }
+}
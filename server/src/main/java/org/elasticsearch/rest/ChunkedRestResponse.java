@@ -0,0 +1,88 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.util.BigArrays;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A response whose body is streamed to the client in chunks that are serialized as the channel is ready to send them, so that large
+ * responses never need to be held in memory as a whole.
+ */
+public class ChunkedRestResponse extends RestResponse {
+
+    private final RestStatus status;
+    private final ChunkedRestResponseBody body;
+    private BytesReference content;
+
+    public ChunkedRestResponse(RestStatus status, ChunkedRestResponseBody body) {
+        this.status = status;
+        this.body = body;
+    }
+
+    @Override
+    public String contentType() {
+        return body.getResponseContentTypeString();
+    }
+
+    /**
+     * The chunked body of this response.
+     */
+    public ChunkedRestResponseBody chunkedContent() {
+        assert content == null : "the body of this response has already been serialized as a whole";
+        return body;
+    }
+
+    /**
+     * Serializes the whole body of this response into memory. The HTTP layer sends the body chunk by chunk instead, this is only meant
+     * for callers that need the full content of the response at once.
+     */
+    @Override
+    public BytesReference content() {
+        if (content == null) {
+            content = materialize(body, BigArrays.NON_RECYCLING_INSTANCE);
+        }
+        return content;
+    }
+
+    @Override
+    public RestStatus status() {
+        return status;
+    }
+
+    /**
+     * Serializes all remaining chunks of the given body into a single bytes reference that is allocated from the given big arrays.
+     */
+    public static ReleasableBytesReference materialize(ChunkedRestResponseBody body, BigArrays bigArrays) {
+        if (body.isDone()) {
+            return ReleasableBytesReference.wrap(BytesArray.EMPTY);
+        }
+        try {
+            return body.encodeChunk(Integer.MAX_VALUE, bigArrays);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
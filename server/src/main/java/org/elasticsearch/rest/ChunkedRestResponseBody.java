@@ -0,0 +1,167 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest;
+
+import org.elasticsearch.common.CheckedConsumer;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.UTF8StreamWriter;
+import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.xcontent.ChunkedToXContent;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Iterator;
+
+/**
+ * The body of a {@link ChunkedRestResponse}, which is serialized lazily one chunk at a time as the HTTP channel is ready to send more
+ * data rather than being serialized into memory all at once.
+ */
+public interface ChunkedRestResponseBody {
+
+    /**
+     * @return {@code true} once all chunks of this body have been serialized
+     */
+    boolean isDone();
+
+    /**
+     * Serializes the next chunk of this body. Must only be called if {@link #isDone()} returns {@code false}.
+     *
+     * @param sizeHint  the number of bytes after which the chunk is completed; chunks may exceed this size by up to the size of a single
+     *                  unit of the underlying content, such as a row of a table or a hit of a search response
+     * @param bigArrays the big arrays to allocate the chunk from
+     * @return the serialized chunk, which the caller must release once it has been written to the channel
+     */
+    ReleasableBytesReference encodeChunk(int sizeHint, BigArrays bigArrays) throws IOException;
+
+    /**
+     * @return the content type of this body
+     */
+    String getResponseContentTypeString();
+
+    /**
+     * Creates a body that serializes the given chunked content with a builder that is set up like the ones created by
+     * {@link RestChannel#newBuilder()}, respecting the requested format, pretty printing and response filtering.
+     */
+    static ChunkedRestResponseBody fromXContent(ChunkedToXContent chunkedToXContent, ToXContent.Params params,
+                                                RestChannel channel) throws IOException {
+        return new ChunkedRestResponseBody() {
+
+            private final OutputStream out = new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    target.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    target.write(b, off, len);
+                }
+            };
+
+            private final XContentBuilder builder = channel.newBuilder(channel.request().getXContentType(), null, true, out);
+
+            private final Iterator<? extends ToXContent> serialization = chunkedToXContent.toXContentChunked(params);
+
+            private ReleasableBytesStreamOutput target;
+
+            @Override
+            public boolean isDone() {
+                return serialization.hasNext() == false;
+            }
+
+            @Override
+            public ReleasableBytesReference encodeChunk(int sizeHint, BigArrays bigArrays) throws IOException {
+                assert target == null : "already encoding a chunk";
+                final ReleasableBytesStreamOutput chunkStream = new ReleasableBytesStreamOutput(bigArrays);
+                target = chunkStream;
+                boolean success = false;
+                try {
+                    while (serialization.hasNext()) {
+                        serialization.next().toXContent(builder, params);
+                        if (chunkStream.size() >= sizeHint) {
+                            break;
+                        }
+                    }
+                    if (serialization.hasNext() == false) {
+                        builder.close();
+                    } else {
+                        builder.flush();
+                    }
+                    success = true;
+                    return chunkStream.bytes();
+                } finally {
+                    target = null;
+                    if (success == false) {
+                        chunkStream.close();
+                    }
+                }
+            }
+
+            @Override
+            public String getResponseContentTypeString() {
+                return builder.contentType().mediaType();
+            }
+        };
+    }
+
+    /**
+     * Creates a body of plain text that is made up of the text written by each of the given chunks in turn.
+     */
+    static ChunkedRestResponseBody fromTextChunks(String contentType, Iterator<CheckedConsumer<Writer, IOException>> chunkIterator) {
+        return new ChunkedRestResponseBody() {
+
+            @Override
+            public boolean isDone() {
+                return chunkIterator.hasNext() == false;
+            }
+
+            @Override
+            public ReleasableBytesReference encodeChunk(int sizeHint, BigArrays bigArrays) throws IOException {
+                final ReleasableBytesStreamOutput chunkStream = new ReleasableBytesStreamOutput(bigArrays);
+                boolean success = false;
+                try {
+                    final UTF8StreamWriter writer = new UTF8StreamWriter().setOutput(chunkStream);
+                    while (chunkIterator.hasNext()) {
+                        chunkIterator.next().accept(writer);
+                        writer.flush();
+                        if (chunkStream.size() >= sizeHint) {
+                            break;
+                        }
+                    }
+                    success = true;
+                    return chunkStream.bytes();
+                } finally {
+                    if (success == false) {
+                        chunkStream.close();
+                    }
+                }
+            }
+
+            @Override
+            public String getResponseContentTypeString() {
+                return contentType;
+            }
+        };
+    }
+}
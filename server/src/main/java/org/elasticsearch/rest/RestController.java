@@ -42,6 +42,7 @@ import org.elasticsearch.usage.UsageService;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -204,9 +205,23 @@ public class RestController implements HttpServerTransport.Dispatcher {
         }
     }
 
+    @Override
+    public boolean supportsStreamedBody(RestRequest.Method method, String uri) {
+        // the same handler that tryAllHandlers would dispatch the request to
+        Iterator<MethodHandlers> allHandlers = getAllHandlers(null, RestRequest.path(uri));
+        while (allHandlers.hasNext()) {
+            final MethodHandlers handlers = allHandlers.next();
+            final RestHandler handler = handlers == null ? null : handlers.getHandler(method);
+            if (handler != null) {
+                return handler.supportsStreamedBody();
+            }
+        }
+        return false;
+    }
+
     private void dispatchRequest(RestRequest request, RestChannel channel, RestHandler handler) throws Exception {
         final int contentLength = request.contentLength();
-        if (contentLength > 0) {
+        if (contentLength > 0 || request.bodyStream() != null) {
             final XContentType xContentType = request.getXContentType();
             if (xContentType == null) {
                 sendContentTypeErrorMessage(request.getAllHeaderValues("Content-Type"), channel);
@@ -482,6 +497,12 @@ public class RestController implements HttpServerTransport.Dispatcher {
             return delegate.newBuilder(xContentType, responseContentType, useFiltering);
         }
 
+        @Override
+        public XContentBuilder newBuilder(XContentType xContentType, XContentType responseContentType, boolean useFiltering,
+                                          OutputStream outputStream) throws IOException {
+            return delegate.newBuilder(xContentType, responseContentType, useFiltering, outputStream);
+        }
+
         @Override
         public BytesStreamOutput bytesOutput() {
             return delegate.bytesOutput();
@@ -52,6 +52,15 @@ public interface RestHandler {
         return false;
     }
 
+    /**
+     * Indicates if the RestHandler supports receiving the body of a request while it is still arriving, chunk by chunk from
+     * {@link RestRequest#bodyStream()}, rather than in full from {@link RestRequest#content()}. Handlers that return true must handle both
+     * since http modules that don't stream request bodies always provide them in full.
+     */
+    default boolean supportsStreamedBody() {
+        return false;
+    }
+
     /**
      * Indicates if the RestHandler supports working with pooled buffers. If the request handler will not escape the return
      * {@link RestRequest#content()} or any buffers extracted from it then there is no need to make a copies of any pooled buffers in the
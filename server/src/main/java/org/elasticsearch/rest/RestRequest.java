@@ -35,6 +35,7 @@ import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.http.HttpBodyStream;
 import org.elasticsearch.http.HttpChannel;
 import org.elasticsearch.http.HttpRequest;
 
@@ -148,7 +149,7 @@ public class RestRequest implements ToXContent.Params {
         return params;
     }
 
-    private static String path(final String uri) {
+    static String path(final String uri) {
         final int index = uri.indexOf('?');
         if (index >= 0) {
             return uri.substring(0, index);
@@ -221,6 +222,16 @@ public class RestRequest implements ToXContent.Params {
         return httpRequest.content();
     }
 
+    /**
+     * Returns the stream that the body of this request is received from while the request is handled, or {@code null} if the body is
+     * available in full from {@link #content()}. Bodies are only streamed to handlers that {@link RestHandler#supportsStreamedBody()
+     * support it}, and only by http modules that implement it.
+     */
+    @Nullable
+    public HttpBodyStream bodyStream() {
+        return httpRequest.bodyStream();
+    }
+
     /**
      * @return content of the request body or throw an exception if the body or content type is missing
      */
@@ -20,27 +20,31 @@
 package org.elasticsearch.rest.action.cat;
 
 import org.elasticsearch.common.Booleans;
+import org.elasticsearch.common.CheckedConsumer;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.Table;
-import org.elasticsearch.common.io.Streams;
-import org.elasticsearch.common.io.UTF8StreamWriter;
-import org.elasticsearch.common.io.stream.BytesStream;
+import org.elasticsearch.common.collect.Iterators;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.SizeValue;
 import org.elasticsearch.common.unit.TimeValue;
-import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.ChunkedToXContent;
+import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.rest.BytesRestResponse;
+import org.elasticsearch.rest.ChunkedRestResponse;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.RestChannel;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestResponse;
 import org.elasticsearch.rest.RestStatus;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
@@ -60,20 +64,21 @@ public class RestTable {
 
     public static RestResponse buildXContentBuilder(Table table, RestChannel channel) throws Exception {
         RestRequest request = channel.request();
-        XContentBuilder builder = channel.newBuilder();
         List<DisplayHeader> displayHeaders = buildDisplayHeaders(table, request);
-
-        builder.startArray();
         List<Integer> rowOrder = getRowOrder(table, request);
-        for (Integer row : rowOrder) {
-            builder.startObject();
-            for (DisplayHeader header : displayHeaders) {
-                builder.field(header.display, renderValue(request, table.getAsMap().get(header.name).get(row).value));
-            }
-            builder.endObject();
-        }
-        builder.endArray();
-        return new BytesRestResponse(RestStatus.OK, builder);
+
+        // each row is serialized as a chunk of its own so that large tables are streamed to the client as they are rendered
+        final ChunkedToXContent chunkedTable = params -> Iterators.concat(
+            Iterators.<ToXContent>single((builder, p) -> builder.startArray()),
+            rowOrder.stream().<ToXContent>map(row -> (builder, p) -> {
+                builder.startObject();
+                for (DisplayHeader header : displayHeaders) {
+                    builder.field(header.display, renderValue(request, table.getAsMap().get(header.name).get(row).value));
+                }
+                return builder.endObject();
+            }).iterator(),
+            Iterators.<ToXContent>single((builder, p) -> builder.endArray()));
+        return new ChunkedRestResponse(RestStatus.OK, ChunkedRestResponseBody.fromXContent(chunkedTable, request, channel));
     }
 
     public static RestResponse buildTextPlainResponse(Table table, RestChannel channel) throws IOException {
@@ -82,37 +87,40 @@ public class RestTable {
 
         List<DisplayHeader> headers = buildDisplayHeaders(table, request);
         int[] width = buildWidths(table, request, verbose, headers);
-
-        BytesStream bytesOut = Streams.flushOnCloseStream(channel.bytesOutput());
-        UTF8StreamWriter out = new UTF8StreamWriter().setOutput(bytesOut);
         int lastHeader = headers.size() - 1;
+
+        final Iterator<CheckedConsumer<Writer, IOException>> headerChunk;
         if (verbose) {
-            for (int col = 0; col < headers.size(); col++) {
-                DisplayHeader header = headers.get(col);
-                boolean isLastColumn = col == lastHeader;
-                pad(new Table.Cell(header.display, table.findHeaderByName(header.name)), width[col], request, out, isLastColumn);
-                if (!isLastColumn) {
-                    out.append(" ");
+            headerChunk = Iterators.single(out -> {
+                for (int col = 0; col < headers.size(); col++) {
+                    DisplayHeader header = headers.get(col);
+                    boolean isLastColumn = col == lastHeader;
+                    pad(new Table.Cell(header.display, table.findHeaderByName(header.name)), width[col], request, out, isLastColumn);
+                    if (!isLastColumn) {
+                        out.append(" ");
+                    }
                 }
-            }
-            out.append("\n");
+                out.append("\n");
+            });
+        } else {
+            headerChunk = Collections.emptyIterator();
         }
 
         List<Integer> rowOrder = getRowOrder(table, request);
-
-        for (Integer row: rowOrder) {
-            for (int col = 0; col < headers.size(); col++) {
-                DisplayHeader header = headers.get(col);
-                boolean isLastColumn = col == lastHeader;
-                pad(table.getAsMap().get(header.name).get(row), width[col], request, out, isLastColumn);
-                if (!isLastColumn) {
-                    out.append(" ");
+        final Iterator<CheckedConsumer<Writer, IOException>> rowChunks = rowOrder.stream()
+            .<CheckedConsumer<Writer, IOException>>map(row -> out -> {
+                for (int col = 0; col < headers.size(); col++) {
+                    DisplayHeader header = headers.get(col);
+                    boolean isLastColumn = col == lastHeader;
+                    pad(table.getAsMap().get(header.name).get(row), width[col], request, out, isLastColumn);
+                    if (!isLastColumn) {
+                        out.append(" ");
+                    }
                 }
-            }
-            out.append("\n");
-        }
-        out.close();
-        return new BytesRestResponse(RestStatus.OK, BytesRestResponse.TEXT_CONTENT_TYPE, bytesOut.bytes());
+                out.append("\n");
+            }).iterator();
+        return new ChunkedRestResponse(RestStatus.OK,
+            ChunkedRestResponseBody.fromTextChunks(BytesRestResponse.TEXT_CONTENT_TYPE, Iterators.concat(headerChunk, rowChunks)));
     }
 
     static List<Integer> getRowOrder(Table table, RestRequest request) {
@@ -300,11 +308,11 @@ public class RestTable {
         return width;
     }
 
-    public static void pad(Table.Cell cell, int width, RestRequest request, UTF8StreamWriter out) throws IOException {
+    public static void pad(Table.Cell cell, int width, RestRequest request, Writer out) throws IOException {
       pad(cell, width, request, out, false);
     }
 
-    public static void pad(Table.Cell cell, int width, RestRequest request, UTF8StreamWriter out, boolean isLast) throws IOException {
+    public static void pad(Table.Cell cell, int width, RestRequest request, Writer out, boolean isLast) throws IOException {
         String sValue = renderValue(request, cell.value);
         int length = sValue == null ? 0 : sValue.length();
         byte leftOver = (byte) (width - length);
@@ -24,7 +24,14 @@ import org.elasticsearch.action.bulk.BulkShardRequest;
 import org.elasticsearch.action.support.ActiveShardCount;
 import org.elasticsearch.client.Requests;
 import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.http.HttpBodyStream;
+import org.elasticsearch.http.HttpTransportSettings;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.rest.BaseRestHandler;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.action.RestStatusToXContentListener;
@@ -32,6 +39,7 @@ import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static org.elasticsearch.rest.RestRequest.Method.POST;
 import static org.elasticsearch.rest.RestRequest.Method.PUT;
@@ -47,10 +55,22 @@ import static org.elasticsearch.rest.RestRequest.Method.PUT;
  */
 public class RestBulkAction extends BaseRestHandler {
 
+    /**
+     * The size of the batches that the items of a bulk request are executed in if its body is streamed.
+     */
+    public static final Setting<ByteSizeValue> STREAMED_BATCH_SIZE_SETTING = Setting.byteSizeSetting(
+        "rest.action.bulk.streamed_batch_size", new ByteSizeValue(5, ByteSizeUnit.MB), Setting.Property.NodeScope);
+
     private final boolean allowExplicitIndex;
+    private final long streamedBatchSizeInBytes;
+    private final long maxLineLengthInBytes;
+    private final CircuitBreakerService circuitBreakerService;
 
-    public RestBulkAction(Settings settings) {
+    public RestBulkAction(Settings settings, CircuitBreakerService circuitBreakerService) {
         this.allowExplicitIndex = MULTI_ALLOW_EXPLICIT_INDEX.get(settings);
+        this.streamedBatchSizeInBytes = STREAMED_BATCH_SIZE_SETTING.get(settings).getBytes();
+        this.maxLineLengthInBytes = HttpTransportSettings.SETTING_HTTP_MAX_CONTENT_LENGTH.get(settings).getBytes();
+        this.circuitBreakerService = circuitBreakerService;
     }
 
     @Override
@@ -80,6 +100,20 @@ public class RestBulkAction extends BaseRestHandler {
         }
         bulkRequest.timeout(request.paramAsTime("timeout", BulkShardRequest.DEFAULT_TIMEOUT));
         bulkRequest.setRefreshPolicy(request.param("refresh"));
+
+        final HttpBodyStream bodyStream = request.bodyStream();
+        if (bodyStream != null) {
+            // parse and execute the items in batches while the rest of the body is still arriving
+            final Supplier<BulkRequest> batchSupplier = () -> Requests.bulkRequest()
+                .waitForActiveShards(bulkRequest.waitForActiveShards())
+                .timeout(bulkRequest.timeout())
+                .setRefreshPolicy(bulkRequest.getRefreshPolicy());
+            return channel -> new StreamedBulkRequestHandler(client, bodyStream, batchSupplier, streamedBatchSizeInBytes,
+                maxLineLengthInBytes, circuitBreakerService.getBreaker(CircuitBreaker.IN_FLIGHT_REQUESTS), defaultIndex, defaultRouting,
+                defaultFetchSourceContext, defaultPipeline, allowExplicitIndex, request.getXContentType(),
+                new RestStatusToXContentListener<>(channel)).start();
+        }
+
         bulkRequest.add(request.requiredContent(), defaultIndex, defaultRouting,
             defaultFetchSourceContext, defaultPipeline, allowExplicitIndex, request.getXContentType());
 
@@ -91,6 +125,11 @@ public class RestBulkAction extends BaseRestHandler {
         return true;
     }
 
+    @Override
+    public boolean supportsStreamedBody() {
+        return true;
+    }
+
     @Override
     public boolean allowsUnsafeBuffers() {
         return true;
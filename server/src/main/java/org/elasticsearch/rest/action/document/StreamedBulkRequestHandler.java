@@ -0,0 +1,350 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest.action.document;
+
+import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteResponse;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkRequestParser;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.http.HttpBodyStream;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Handles a bulk request whose body is streamed. The items are parsed as the body arrives and are executed in batches of roughly
+ * {@link RestBulkAction#STREAMED_BATCH_SIZE_SETTING the configured size}, so that only a bounded part of the body is held on to while
+ * the rest of it is still being received. Batches are executed one after the other to retain the order of the items: while a batch is
+ * executing the next one is filled, and the body is only read any further once the executing batch has completed, which pushes back on the
+ * client if indexing can't keep up. The responses of all batches are combined into a single response.
+ * <p>
+ * The chunks of the body that are held on to are accounted for in the in-flight requests circuit breaker until they are released, and an
+ * item that spans more than {@code http.max_content_length} fails the request rather than being buffered until it is complete.
+ */
+final class StreamedBulkRequestHandler implements HttpBodyStream.ChunkHandler {
+
+    private final NodeClient client;
+    private final HttpBodyStream bodyStream;
+    private final Supplier<BulkRequest> requestSupplier;
+    private final long batchSizeInBytes;
+    private final long maxLineLengthInBytes;
+    private final CircuitBreaker inFlightRequestsBreaker;
+    private final ActionListener<BulkResponse> listener;
+    private final Supplier<ThreadContext.StoredContext> storedContext;
+    private final BulkRequestParser.IncrementalParser parser;
+    private final long startTimeNanos = System.nanoTime();
+
+    // the received chunks of the body that haven't been parsed in full yet
+    private final List<ReleasableBytesReference> unparsedChunks = new ArrayList<>();
+    private long unparsedBytes;
+    private final List<BulkItemResponse> itemResponses = new ArrayList<>();
+    private long ingestTookInMillis = BulkResponse.NO_INGEST_TOOK;
+    private long receivedBytes;
+    private int batchCount;
+    private Batch currentBatch;
+    // a batch that is complete but has to wait for the executing batch to complete
+    private Batch readyBatch;
+    private boolean batchExecuting;
+    private boolean bodyComplete;
+    private Exception failure;
+    private boolean responded;
+
+    StreamedBulkRequestHandler(NodeClient client, HttpBodyStream bodyStream, Supplier<BulkRequest> requestSupplier,
+                               long batchSizeInBytes, long maxLineLengthInBytes, CircuitBreaker inFlightRequestsBreaker,
+                               @Nullable String defaultIndex, @Nullable String defaultRouting,
+                               @Nullable FetchSourceContext defaultFetchSourceContext, @Nullable String defaultPipeline,
+                               boolean allowExplicitIndex, XContentType xContentType, ActionListener<BulkResponse> listener) {
+        this.client = client;
+        this.bodyStream = bodyStream;
+        this.requestSupplier = requestSupplier;
+        this.batchSizeInBytes = batchSizeInBytes;
+        this.maxLineLengthInBytes = maxLineLengthInBytes;
+        this.inFlightRequestsBreaker = inFlightRequestsBreaker;
+        this.listener = listener;
+        // batches are executed from network threads and response threads, but need the context the request has been dispatched in
+        this.storedContext = client.threadPool().getThreadContext().newRestorableContext(false);
+        this.parser = new BulkRequestParser(true).incrementalParser(defaultIndex, defaultRouting, defaultFetchSourceContext,
+            defaultPipeline, allowExplicitIndex, xContentType,
+            (indexRequest, type) -> currentBatch.request.add(indexRequest),
+            updateRequest -> currentBatch.request.add(updateRequest),
+            deleteRequest -> currentBatch.request.add(deleteRequest));
+        this.currentBatch = new Batch(requestSupplier.get());
+    }
+
+    /**
+     * Starts receiving the body of the request.
+     */
+    void start() {
+        bodyStream.setHandler(this);
+        bodyStream.next();
+    }
+
+    @Override
+    public void onNext(ReleasableBytesReference receivedChunk, boolean isLast) {
+        Batch toExecute = null;
+        boolean requestNext = false;
+        boolean respond = false;
+        synchronized (this) {
+            if (failure != null) {
+                receivedChunk.close();
+                return;
+            }
+            assert readyBatch == null : "received a chunk of the body while a batch is waiting";
+            try {
+                final ReleasableBytesReference chunk = accountInFlight(receivedChunk);
+                receivedBytes += chunk.length();
+                unparsedChunks.add(chunk);
+                unparsedBytes += chunk.length();
+                parseUnparsedChunks(isLast);
+                if (unparsedBytes > maxLineLengthInBytes) {
+                    throw new ElasticsearchStatusException("bulk request contains a line that is larger than [{}] bytes",
+                        RestStatus.REQUEST_ENTITY_TOO_LARGE, maxLineLengthInBytes);
+                }
+                if ((isLast && (currentBatch.request.numberOfActions() > 0 || batchCount == 0))
+                    || currentBatch.request.estimatedSizeInBytes() >= batchSizeInBytes) {
+                    if (isLast && receivedBytes == 0) {
+                        throw new ElasticsearchParseException("request body is required");
+                    }
+                    readyBatch = currentBatch;
+                    batchCount++;
+                    currentBatch = isLast ? null : new Batch(requestSupplier.get());
+                }
+                if (isLast && currentBatch != null) {
+                    // only left with the chunks of a trailing empty line
+                    currentBatch.close();
+                    currentBatch = null;
+                }
+                bodyComplete = isLast;
+                if (readyBatch != null && batchExecuting == false) {
+                    toExecute = readyBatch;
+                    readyBatch = null;
+                    batchExecuting = true;
+                }
+                requestNext = isLast == false && readyBatch == null;
+            } catch (Exception e) {
+                fail(e);
+            }
+            respond = shouldRespond();
+        }
+        if (toExecute != null) {
+            execute(toExecute);
+        }
+        if (requestNext) {
+            bodyStream.next();
+        }
+        if (respond) {
+            respond();
+        }
+    }
+
+    @Override
+    public void onFailure(Exception e) {
+        final boolean respond;
+        synchronized (this) {
+            fail(e);
+            respond = shouldRespond();
+        }
+        if (respond) {
+            respond();
+        }
+    }
+
+    /**
+     * Adds the given chunk to the in-flight requests circuit breaker and returns a chunk that removes it from the breaker again once it
+     * has been released, including any slices of it. Releases the chunk if the breaker trips.
+     */
+    private ReleasableBytesReference accountInFlight(ReleasableBytesReference chunk) {
+        final int length = chunk.length();
+        try {
+            inFlightRequestsBreaker.addEstimateBytesAndMaybeBreak(length, "<http_request>");
+        } catch (CircuitBreakingException e) {
+            chunk.close();
+            throw e;
+        }
+        return new ReleasableBytesReference(chunk, () -> {
+            chunk.close();
+            inFlightRequestsBreaker.addWithoutBreaking(-length);
+        });
+    }
+
+    /**
+     * Parses the complete items from the chunks that have been received so far, and hands the chunks the items have been parsed from
+     * over to the current batch, which retains them until it has been executed since the sources of the items are slices of the chunks.
+     */
+    private void parseUnparsedChunks(boolean isLast) throws Exception {
+        final BytesReference unparsed = unparsedChunks.size() == 1
+            ? unparsedChunks.get(0)
+            : new CompositeBytesReference(unparsedChunks.toArray(new BytesReference[0]));
+        int consumed = parser.parse(unparsed, isLast);
+        final List<ReleasableBytesReference> remaining = new ArrayList<>();
+        for (ReleasableBytesReference chunk : unparsedChunks) {
+            if (consumed >= chunk.length()) {
+                consumed -= chunk.length();
+                currentBatch.chunks.add(chunk);
+            } else if (consumed > 0) {
+                currentBatch.chunks.add(chunk.retain());
+                remaining.add(chunk.sharedSlice(consumed, chunk.length() - consumed));
+                consumed = 0;
+            } else {
+                remaining.add(chunk);
+            }
+        }
+        unparsedChunks.clear();
+        unparsedChunks.addAll(remaining);
+        unparsedBytes = remaining.stream().mapToLong(BytesReference::length).sum();
+    }
+
+    private void execute(Batch batch) {
+        try (ThreadContext.StoredContext ignore = storedContext.get()) {
+            client.bulk(batch.request, new ActionListener<>() {
+                @Override
+                public void onResponse(BulkResponse response) {
+                    onBatchCompleted(batch, response, null);
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    onBatchCompleted(batch, null, e);
+                }
+            });
+        }
+    }
+
+    private void onBatchCompleted(Batch batch, @Nullable BulkResponse response, @Nullable Exception e) {
+        batch.close();
+        Batch toExecute = null;
+        boolean requestNext = false;
+        final boolean respond;
+        synchronized (this) {
+            batchExecuting = false;
+            if (response != null) {
+                for (BulkItemResponse item : response.getItems()) {
+                    // item ids are positions in the request, so they need to be shifted by the number of items in earlier batches
+                    final int id = itemResponses.size();
+                    itemResponses.add(item.isFailed()
+                        ? new BulkItemResponse(id, item.getOpType(), item.getFailure())
+                        : new BulkItemResponse(id, item.getOpType(), item.<DocWriteResponse>getResponse()));
+                }
+                if (response.getIngestTookInMillis() != BulkResponse.NO_INGEST_TOOK) {
+                    ingestTookInMillis = Math.max(ingestTookInMillis, 0L) + response.getIngestTookInMillis();
+                }
+            } else {
+                fail(e);
+            }
+            if (failure == null && readyBatch != null) {
+                toExecute = readyBatch;
+                readyBatch = null;
+                batchExecuting = true;
+                requestNext = bodyComplete == false;
+            }
+            respond = shouldRespond();
+        }
+        if (toExecute != null) {
+            execute(toExecute);
+        }
+        if (requestNext) {
+            bodyStream.next();
+        }
+        if (respond) {
+            respond();
+        }
+    }
+
+    /**
+     * Fails the request, which is responded to once the executing batch, if any, has completed. Batches that haven't been executed yet
+     * are dropped and the remainder of the body is discarded. Items of batches that have already been executed are not rolled back.
+     */
+    private void fail(Exception e) {
+        assert Thread.holdsLock(this);
+        if (failure == null) {
+            failure = e;
+            bodyStream.close();
+        } else {
+            failure.addSuppressed(e);
+        }
+        Releasables.close(unparsedChunks);
+        unparsedChunks.clear();
+        unparsedBytes = 0;
+        Releasables.close(currentBatch, readyBatch);
+        currentBatch = null;
+        readyBatch = null;
+    }
+
+    private boolean shouldRespond() {
+        assert Thread.holdsLock(this);
+        if (responded || batchExecuting || (failure == null && (bodyComplete == false || readyBatch != null))) {
+            return false;
+        }
+        responded = true;
+        return true;
+    }
+
+    private void respond() {
+        final Exception e;
+        final BulkResponse response;
+        synchronized (this) {
+            Releasables.close(unparsedChunks);
+            unparsedChunks.clear();
+            unparsedBytes = 0;
+            e = failure;
+            response = failure == null ? new BulkResponse(itemResponses.toArray(new BulkItemResponse[0]),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTimeNanos), ingestTookInMillis) : null;
+        }
+        if (e != null) {
+            listener.onFailure(e);
+        } else {
+            listener.onResponse(response);
+        }
+    }
+
+    private static final class Batch implements Releasable {
+
+        private final BulkRequest request;
+        private final List<ReleasableBytesReference> chunks = new ArrayList<>();
+
+        private Batch(BulkRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public void close() {
+            Releasables.close(chunks);
+        }
+    }
+}
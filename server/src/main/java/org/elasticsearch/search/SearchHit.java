@@ -27,12 +27,15 @@ import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.ParsingException;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.text.Text;
 import org.elasticsearch.common.xcontent.ConstructingObjectParser;
 import org.elasticsearch.common.xcontent.ObjectParser;
@@ -66,7 +69,6 @@ import static java.util.Collections.emptyMap;
 import static java.util.Collections.singletonMap;
 import static java.util.Collections.unmodifiableMap;
 import static org.elasticsearch.common.lucene.Lucene.readExplanation;
-import static org.elasticsearch.common.lucene.Lucene.writeExplanation;
 import static org.elasticsearch.common.xcontent.ConstructingObjectParser.constructorArg;
 import static org.elasticsearch.common.xcontent.ConstructingObjectParser.optionalConstructorArg;
 import static org.elasticsearch.common.xcontent.XContentParserUtils.ensureExpectedToken;
@@ -118,6 +120,13 @@ public final class SearchHit implements Writeable, ToXContentObject, Iterable<Do
 
     private Map<String, SearchHits> innerHits;
 
+    // the explanation, fields, highlight fields, matched queries and inner hits of a hit read from the wire in their serialized form,
+    // see #decodeDetails
+    @Nullable
+    private BytesReference serializedDetails;
+    private Version serializedDetailsVersion;
+    private boolean propagateShardToInnerHits;
+
     //used only in tests
     public SearchHit(int docId) {
         this(docId, null, null);
@@ -153,60 +162,119 @@ public final class SearchHit implements Writeable, ToXContentObject, Iterable<Do
         if (source.length() == 0) {
             source = null;
         }
-        if (in.readBoolean()) {
-            explanation = readExplanation(in);
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            sortValues = new SearchSortValues(in);
+            // we call the setter here because that also sets the local index parameter
+            shard(in.readOptionalWriteable(SearchShardTarget::new));
+            BytesReference details = in.readBytesReference();
+            if (details.length() == 0) {
+                fields = emptyMap();
+                highlightFields = emptyMap();
+            } else {
+                serializedDetails = details;
+                serializedDetailsVersion = in.getVersion();
+            }
+        } else {
+            if (in.readBoolean()) {
+                explanation = readExplanation(in);
+            }
+            fields = readFields(in);
+            highlightFields = readHighlightFields(in);
+            sortValues = new SearchSortValues(in);
+            matchedQueries = readMatchedQueries(in);
+            // we call the setter here because that also sets the local index parameter
+            shard(in.readOptionalWriteable(SearchShardTarget::new));
+            innerHits = readInnerHits(in);
         }
+    }
+
+    private static Map<String, DocumentField> readFields(StreamInput in) throws IOException {
         int size = in.readVInt();
         if (size == 0) {
-            fields = emptyMap();
+            return emptyMap();
         } else if (size == 1) {
             DocumentField hitField = new DocumentField(in);
-            fields = singletonMap(hitField.getName(), hitField);
+            return singletonMap(hitField.getName(), hitField);
         } else {
             Map<String, DocumentField> fields = new HashMap<>();
             for (int i = 0; i < size; i++) {
                 DocumentField hitField = new DocumentField(in);
                 fields.put(hitField.getName(), hitField);
             }
-            this.fields = unmodifiableMap(fields);
+            return unmodifiableMap(fields);
         }
+    }
 
-        size = in.readVInt();
+    private static Map<String, HighlightField> readHighlightFields(StreamInput in) throws IOException {
+        int size = in.readVInt();
         if (size == 0) {
-            highlightFields = emptyMap();
+            return emptyMap();
         } else if (size == 1) {
             HighlightField field = new HighlightField(in);
-            highlightFields = singletonMap(field.name(), field);
+            return singletonMap(field.name(), field);
         } else {
             Map<String, HighlightField> highlightFields = new HashMap<>();
             for (int i = 0; i < size; i++) {
                 HighlightField field = new HighlightField(in);
                 highlightFields.put(field.name(), field);
             }
-            this.highlightFields = unmodifiableMap(highlightFields);
+            return unmodifiableMap(highlightFields);
         }
+    }
 
-        sortValues = new SearchSortValues(in);
+    private static String[] readMatchedQueries(StreamInput in) throws IOException {
+        int size = in.readVInt();
+        if (size == 0) {
+            return Strings.EMPTY_ARRAY;
+        }
+        String[] matchedQueries = new String[size];
+        for (int i = 0; i < size; i++) {
+            matchedQueries[i] = in.readString();
+        }
+        return matchedQueries;
+    }
 
-        size = in.readVInt();
-        if (size > 0) {
-            matchedQueries = new String[size];
-            for (int i = 0; i < size; i++) {
-                matchedQueries[i] = in.readString();
-            }
+    private static Map<String, SearchHits> readInnerHits(StreamInput in) throws IOException {
+        int size = in.readVInt();
+        if (size == 0) {
+            return null;
         }
-        // we call the setter here because that also sets the local index parameter
-        shard(in.readOptionalWriteable(SearchShardTarget::new));
-        size = in.readVInt();
-        if (size > 0) {
-            innerHits = new HashMap<>(size);
-            for (int i = 0; i < size; i++) {
-                String key = in.readString();
-                SearchHits value = new SearchHits(in);
-                innerHits.put(key, value);
+        Map<String, SearchHits> innerHits = new HashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            String key = in.readString();
+            SearchHits value = new SearchHits(in);
+            innerHits.put(key, value);
+        }
+        return innerHits;
+    }
+
+    /**
+     * Decodes the explanation, fields, highlight fields, matched queries and inner hits of a hit that was read from the wire, if that
+     * didn't happen yet. These are only needed once the hit gets rendered or inspected, which is why reading a hit just keeps their
+     * serialized bytes around: hits that are merged on the coordinating node and dropped, or passed on to another node as they are,
+     * never pay for deserializing them.
+     */
+    private void decodeDetails() {
+        if (serializedDetails == null) {
+            return;
+        }
+        try (StreamInput in = serializedDetails.streamInput()) {
+            in.setVersion(serializedDetailsVersion);
+            if (in.readBoolean()) {
+                explanation = readExplanation(in);
             }
-        } else {
-            innerHits = null;
+            fields = readFields(in);
+            highlightFields = readHighlightFields(in);
+            matchedQueries = readMatchedQueries(in);
+            innerHits = readInnerHits(in);
+        } catch (IOException e) {
+            throw new ElasticsearchParseException("failed to deserialize search hit details", e);
+        }
+        serializedDetails = null;
+        serializedDetailsVersion = null;
+        if (propagateShardToInnerHits) {
+            propagateShardToInnerHits = false;
+            shard(shard);
         }
     }
 
@@ -224,20 +292,67 @@ public final class SearchHit implements Writeable, ToXContentObject, Iterable<Do
         out.writeZLong(seqNo);
         out.writeVLong(primaryTerm);
         out.writeBytesReference(source);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            sortValues.writeTo(out);
+            out.writeOptionalWriteable(shard);
+            if (serializedDetails != null && out.getVersion().equals(serializedDetailsVersion)) {
+                // still in the format we received it in, no need to decode and encode again
+                out.writeBytesReference(serializedDetails);
+            } else if (hasDetails()) {
+                try (BytesStreamOutput details = new BytesStreamOutput()) {
+                    details.setVersion(out.getVersion());
+                    writeExplanation(details);
+                    writeFields(details);
+                    writeHighlightFields(details);
+                    writeMatchedQueries(details);
+                    writeInnerHits(details);
+                    out.writeBytesReference(details.bytes());
+                }
+            } else {
+                out.writeBytesReference(BytesArray.EMPTY);
+            }
+        } else {
+            decodeDetails();
+            writeExplanation(out);
+            writeFields(out);
+            writeHighlightFields(out);
+            sortValues.writeTo(out);
+            writeMatchedQueries(out);
+            out.writeOptionalWriteable(shard);
+            writeInnerHits(out);
+        }
+    }
+
+    private boolean hasDetails() {
+        decodeDetails();
+        return explanation != null
+            || (fields != null && fields.isEmpty() == false)
+            || (highlightFields != null && highlightFields.isEmpty() == false)
+            || matchedQueries.length > 0
+            || (innerHits != null && innerHits.isEmpty() == false);
+    }
+
+    private void writeExplanation(StreamOutput out) throws IOException {
         if (explanation == null) {
             out.writeBoolean(false);
         } else {
             out.writeBoolean(true);
-            writeExplanation(out, explanation);
+            Lucene.writeExplanation(out, explanation);
         }
+    }
+
+    private void writeFields(StreamOutput out) throws IOException {
         if (fields == null) {
             out.writeVInt(0);
         } else {
             out.writeVInt(fields.size());
-            for (DocumentField hitField : getFields().values()) {
+            for (DocumentField hitField : fields.values()) {
                 hitField.writeTo(out);
             }
         }
+    }
+
+    private void writeHighlightFields(StreamOutput out) throws IOException {
         if (highlightFields == null) {
             out.writeVInt(0);
         } else {
@@ -246,8 +361,9 @@ public final class SearchHit implements Writeable, ToXContentObject, Iterable<Do
                 highlightField.writeTo(out);
             }
         }
-        sortValues.writeTo(out);
+    }
 
+    private void writeMatchedQueries(StreamOutput out) throws IOException {
         if (matchedQueries.length == 0) {
             out.writeVInt(0);
         } else {
@@ -256,7 +372,9 @@ public final class SearchHit implements Writeable, ToXContentObject, Iterable<Do
                 out.writeString(matchedFilter);
             }
         }
-        out.writeOptionalWriteable(shard);
+    }
+
+    private void writeInnerHits(StreamOutput out) throws IOException {
         if (innerHits == null) {
             out.writeVInt(0);
         } else {
@@ -404,6 +522,7 @@ public final class SearchHit implements Writeable, ToXContentObject, Iterable<Do
 
     @Override
     public Iterator<DocumentField> iterator() {
+        decodeDetails();
         return fields.values().iterator();
     }
 
@@ -419,15 +538,18 @@ public final class SearchHit implements Writeable, ToXContentObject, Iterable<Do
      * were required to be loaded.
      */
     public Map<String, DocumentField> getFields() {
+        decodeDetails();
         return fields == null ? emptyMap() : fields;
     }
 
     // returns the fields without handling null cases
     public Map<String, DocumentField> fieldsOrNull() {
+        decodeDetails();
         return fields;
     }
 
     public void fields(Map<String, DocumentField> fields) {
+        decodeDetails();
         this.fields = fields;
     }
 
@@ -435,10 +557,12 @@ public final class SearchHit implements Writeable, ToXContentObject, Iterable<Do
      * A map of highlighted fields.
      */
     public Map<String, HighlightField> getHighlightFields() {
+        decodeDetails();
         return highlightFields == null ? emptyMap() : highlightFields;
     }
 
     public void highlightFields(Map<String, HighlightField> highlightFields) {
+        decodeDetails();
         this.highlightFields = highlightFields;
     }
 
@@ -468,10 +592,12 @@ public final class SearchHit implements Writeable, ToXContentObject, Iterable<Do
      * If enabled, the explanation of the search hit.
      */
     public Explanation getExplanation() {
+        decodeDetails();
         return explanation;
     }
 
     public void explanation(Explanation explanation) {
+        decodeDetails();
         this.explanation = explanation;
     }
 
@@ -483,7 +609,10 @@ public final class SearchHit implements Writeable, ToXContentObject, Iterable<Do
     }
 
     public void shard(SearchShardTarget target) {
-        if (innerHits != null) {
+        if (serializedDetails != null) {
+            // the inner hits aren't decoded yet, they pick up the target once they are
+            propagateShardToInnerHits = true;
+        } else if (innerHits != null) {
             for (SearchHits innerHits : innerHits.values()) {
                 for (SearchHit innerHit : innerHits) {
                     innerHit.shard(target);
@@ -506,6 +635,7 @@ public final class SearchHit implements Writeable, ToXContentObject, Iterable<Do
     }
 
     public void matchedQueries(String[] matchedQueries) {
+        decodeDetails();
         this.matchedQueries = matchedQueries;
     }
 
@@ -513,6 +643,7 @@ public final class SearchHit implements Writeable, ToXContentObject, Iterable<Do
      * The set of query and filter names the query matched with. Mainly makes sense for compound filters and queries.
      */
     public String[] getMatchedQueries() {
+        decodeDetails();
         return this.matchedQueries;
     }
 
@@ -520,10 +651,12 @@ public final class SearchHit implements Writeable, ToXContentObject, Iterable<Do
      * @return Inner hits or <code>null</code> if there are none
      */
     public Map<String, SearchHits> getInnerHits() {
+        decodeDetails();
         return innerHits;
     }
 
     public void setInnerHits(Map<String, SearchHits> innerHits) {
+        decodeDetails();
         this.innerHits = innerHits;
     }
 
@@ -557,6 +690,7 @@ public final class SearchHit implements Writeable, ToXContentObject, Iterable<Do
 
     // public because we render hit as part of completion suggestion option
     public XContentBuilder toInnerXContent(XContentBuilder builder, Params params) throws IOException {
+        decodeDetails();
         List<DocumentField> metaFields = new ArrayList<>();
         List<DocumentField> otherFields = new ArrayList<>();
         if (fields != null && !fields.isEmpty()) {
@@ -889,16 +1023,17 @@ public final class SearchHit implements Writeable, ToXContentObject, Iterable<Do
                 && Objects.equals(source, other.source)
                 && Objects.equals(getFields(), other.getFields())
                 && Objects.equals(getHighlightFields(), other.getHighlightFields())
-                && Arrays.equals(matchedQueries, other.matchedQueries)
-                && Objects.equals(explanation, other.explanation)
+                && Arrays.equals(getMatchedQueries(), other.getMatchedQueries())
+                && Objects.equals(getExplanation(), other.getExplanation())
                 && Objects.equals(shard, other.shard)
-                && Objects.equals(innerHits, other.innerHits)
+                && Objects.equals(getInnerHits(), other.getInnerHits())
                 && Objects.equals(index, other.index)
                 && Objects.equals(clusterAlias, other.clusterAlias);
     }
 
     @Override
     public int hashCode() {
+        decodeDetails();
         return Objects.hash(id, nestedIdentity, version, seqNo, primaryTerm, source, fields, getHighlightFields(),
             Arrays.hashCode(matchedQueries), explanation, shard, innerHits, index, clusterAlias);
     }
@@ -587,9 +587,12 @@ public class SnapshotShardsService extends AbstractLifecycleComponent implements
                 }
                 if (changedCount > 0) {
                     logger.trace("changed cluster state triggered by {} snapshot state updates", changedCount);
+                    // completed shard snapshots may allow shard snapshots of later snapshots that were queued behind them to start
+                    final List<SnapshotsInProgress.Entry> updatedEntries =
+                        SnapshotsService.startQueuedShardSnapshots(unmodifiableList(entries), currentState.routingTable());
                     return ClusterTasksResult.<UpdateIndexShardSnapshotStatusRequest>builder().successes(tasks)
                         .build(ClusterState.builder(currentState).putCustom(SnapshotsInProgress.TYPE,
-                            new SnapshotsInProgress(unmodifiableList(entries))).build());
+                            new SnapshotsInProgress(updatedEntries)).build());
                 }
             }
             return ClusterTasksResult.<UpdateIndexShardSnapshotStatusRequest>builder().successes(tasks).build(currentState);
@@ -48,6 +48,7 @@ import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.metadata.RepositoriesMetaData;
+import org.elasticsearch.cluster.metadata.RepositoryMetaData;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.routing.IndexRoutingTable;
@@ -62,6 +63,7 @@ import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
@@ -75,18 +77,22 @@ import org.elasticsearch.repositories.RepositoryData;
 import org.elasticsearch.repositories.RepositoryException;
 import org.elasticsearch.repositories.RepositoryMissingException;
 import org.elasticsearch.repositories.ShardGenerations;
+import org.elasticsearch.repositories.blobstore.BlobStoreRepository;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -105,7 +111,7 @@ import static org.elasticsearch.cluster.SnapshotsInProgress.completed;
  * A typical snapshot creating process looks like this:
  * <ul>
  * <li>On the master node the {@link #createSnapshot(CreateSnapshotRequest, ActionListener)} is called and makes sure that
- * no snapshot is currently running and registers the new snapshot in cluster state</li>
+ * no snapshot deletion is running in the same repository and registers the new snapshot in cluster state</li>
  * <li>When cluster state is updated
  * the {@link #beginSnapshot} method kicks in and initializes
  * the snapshot in the repository and then populates list of shards that needs to be snapshotted in cluster state</li>
@@ -119,6 +125,10 @@ import static org.elasticsearch.cluster.SnapshotsInProgress.completed;
  * notifies all {@link #snapshotCompletionListeners} that snapshot is completed, and finally calls
  * {@link #removeSnapshotFromClusterState(Snapshot, SnapshotInfo, Exception)} to remove snapshot from cluster state</li>
  * </ul>
+ * Several snapshots may run at the same time. A shard that is already being snapshotted into the same repository by an earlier
+ * snapshot is {@link ShardState#QUEUED} and only assigned to a node once the earlier shard snapshot has completed, so that it builds
+ * on the shard generation written by the earlier one. For the same reason snapshots of a repository are finalized in the order in
+ * which they were started. Snapshot deletions wait for all running snapshots in their repository to complete.
  */
 public class SnapshotsService extends AbstractLifecycleComponent implements ClusterStateApplier {
 
@@ -126,6 +136,23 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
 
     public static final Version OLD_SNAPSHOT_FORMAT = Version.V_7_5_0;
 
+    /**
+     * Minimum node version that supports running more than one snapshot operation at a time, see {@link ShardState#QUEUED}.
+     */
+    public static final Version CONCURRENT_OPERATIONS_VERSION = Version.V_8_0_0;
+
+    /**
+     * Minimum repository metadata version that supports content addressed data blobs, see
+     * {@link BlobStoreRepository#CONTENT_ADDRESSED_FILES_SETTING}.
+     */
+    public static final Version CONTENT_ADDRESSED_FILES_VERSION = Version.V_8_0_0;
+
+    /**
+     * The maximum number of snapshot creations and deletions that may be in progress in the cluster at the same time.
+     */
+    public static final Setting<Integer> MAX_CONCURRENT_SNAPSHOT_OPERATIONS_SETTING =
+        Setting.intSetting("snapshot.max_concurrent_operations", 1000, 1, Setting.Property.NodeScope, Setting.Property.Dynamic);
+
     private static final Logger logger = LogManager.getLogger(SnapshotsService.class);
 
     private final ClusterService clusterService;
@@ -144,6 +171,19 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
     // Set of snapshots that are currently being ended by this node
     private final Set<Snapshot> endingSnapshots = Collections.synchronizedSet(new HashSet<>());
 
+    // Finalizations to start on the SNAPSHOT thread pool in the order in which #endSnapshot was called for them, guarded by itself
+    private final Deque<AbstractRunnable> queuedFinalizations = new ArrayDeque<>();
+
+    // Whether a task on the SNAPSHOT thread pool is currently starting the finalizations in #queuedFinalizations
+    private boolean startingFinalizations;
+
+    private final Map<Snapshot, List<ActionListener<Void>>> snapshotDeletionListeners = new ConcurrentHashMap<>();
+
+    // Set of snapshot deletions that are currently being executed by this node
+    private final Set<Snapshot> runningDeletions = Collections.synchronizedSet(new HashSet<>());
+
+    private volatile int maxConcurrentOperations;
+
     public SnapshotsService(Settings settings, ClusterService clusterService, IndexNameExpressionResolver indexNameExpressionResolver,
                             RepositoriesService repositoriesService, ThreadPool threadPool) {
         this.clusterService = clusterService;
@@ -154,6 +194,9 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
         if (DiscoveryNode.isMasterNode(settings)) {
             // addLowPriorityApplier to make sure that Repository will be created before snapshot
             clusterService.addLowPriorityApplier(this);
+            maxConcurrentOperations = MAX_CONCURRENT_SNAPSHOT_OPERATIONS_SETTING.get(settings);
+            clusterService.getClusterSettings().addSettingsUpdateConsumer(MAX_CONCURRENT_SNAPSHOT_OPERATIONS_SETTING,
+                i -> maxConcurrentOperations = i);
         }
     }
 
@@ -286,8 +329,10 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
             @Override
             public ClusterState execute(ClusterState currentState) {
                 validate(repositoryName, snapshotName, currentState);
+                final boolean concurrentOperations = concurrentOperationsSupported(currentState);
                 SnapshotDeletionsInProgress deletionsInProgress = currentState.custom(SnapshotDeletionsInProgress.TYPE);
-                if (deletionsInProgress != null && deletionsInProgress.hasDeletionsInProgress()) {
+                if (deletionsInProgress != null && deletionsInProgress.getEntries().stream().anyMatch(
+                    entry -> concurrentOperations == false || entry.repository().equals(repositoryName))) {
                     throw new ConcurrentSnapshotExecutionException(repositoryName, snapshotName,
                         "cannot snapshot while a snapshot deletion is in-progress in [" + deletionsInProgress + "]");
                 }
@@ -297,8 +342,18 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
                         "cannot snapshot while a repository cleanup is in-progress in [" + repositoryCleanupInProgress + "]");
                 }
                 SnapshotsInProgress snapshots = currentState.custom(SnapshotsInProgress.TYPE);
-                if (snapshots != null && snapshots.entries().isEmpty() == false) {
-                    throw new ConcurrentSnapshotExecutionException(repositoryName, snapshotName, " a snapshot is already running");
+                final List<SnapshotsInProgress.Entry> runningSnapshots =
+                    snapshots == null ? Collections.emptyList() : snapshots.entries();
+                if (runningSnapshots.isEmpty() == false) {
+                    if (concurrentOperations == false) {
+                        throw new ConcurrentSnapshotExecutionException(repositoryName, snapshotName, " a snapshot is already running");
+                    }
+                    ensureBelowConcurrencyLimit(repositoryName, snapshotName, snapshots, deletionsInProgress);
+                    if (runningSnapshots.stream().anyMatch(entry -> entry.repository().equals(repositoryName)
+                        && entry.snapshot().getSnapshotId().getName().equals(snapshotName))) {
+                        throw new InvalidSnapshotNameException(repositoryName, snapshotName,
+                            "snapshot with the same name is already in-progress");
+                    }
                 }
                 // Store newSnapshot here to be processed in clusterStateProcessed
                 indices = Arrays.asList(indexNameExpressionResolver.concreteIndexNames(currentState,
@@ -315,7 +370,9 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
                     userMeta, Version.CURRENT
                 );
                 initializingSnapshots.add(newSnapshot.snapshot());
-                snapshots = new SnapshotsInProgress(newSnapshot);
+                final List<SnapshotsInProgress.Entry> entries = new ArrayList<>(runningSnapshots);
+                entries.add(newSnapshot);
+                snapshots = new SnapshotsInProgress(unmodifiableList(entries));
                 return ClusterState.builder(currentState).putCustom(SnapshotsInProgress.TYPE, snapshots).build();
             }
 
@@ -358,6 +415,40 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
         });
     }
 
+    /**
+     * Checks whether all nodes in the cluster support running more than one snapshot operation at a time.
+     */
+    private static boolean concurrentOperationsSupported(ClusterState state) {
+        return state.nodes().getMinNodeVersion().onOrAfter(CONCURRENT_OPERATIONS_VERSION);
+    }
+
+    private void ensureBelowConcurrencyLimit(String repositoryName, String snapshotName, @Nullable SnapshotsInProgress snapshots,
+                                             @Nullable SnapshotDeletionsInProgress deletionsInProgress) {
+        final int inProgressOperations = (snapshots == null ? 0 : snapshots.entries().size())
+            + (deletionsInProgress == null ? 0 : deletionsInProgress.getEntries().size());
+        final int maxOps = maxConcurrentOperations;
+        if (inProgressOperations >= maxOps) {
+            throw new ConcurrentSnapshotExecutionException(repositoryName, snapshotName, "Cannot start another operation, already running ["
+                + inProgressOperations + "] operations and the current limit for concurrent snapshot operations is set to [" + maxOps
+                + "]");
+        }
+    }
+
+    /**
+     * Checks whether the repository generation tracked in the cluster state moved past the given repository data, i.e. whether the
+     * repository data is missing snapshots that were finalized after it was loaded. Always returns {@code false} if the cluster state
+     * does not track the repository generation yet, which can only be the case while snapshots cannot run concurrently anyway.
+     */
+    private static boolean isStale(ClusterState state, String repositoryName, RepositoryData repositoryData) {
+        if (concurrentOperationsSupported(state) == false) {
+            return false;
+        }
+        final RepositoriesMetaData repositoriesMetaData = state.metaData().custom(RepositoriesMetaData.TYPE);
+        final RepositoryMetaData repositoryMetaData = repositoriesMetaData == null ? null : repositoriesMetaData.repository(repositoryName);
+        return repositoryMetaData != null && repositoryMetaData.generation() != RepositoryData.UNKNOWN_REPO_GEN
+            && repositoryMetaData.generation() != repositoryData.getGenId();
+    }
+
     /**
      * Validates snapshot request
      *
@@ -421,6 +512,9 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
 
             boolean hadAbortedInitializations;
 
+            // set if another snapshot into the same repository was finalized after the repository data was loaded
+            boolean staleRepositoryData;
+
             @Override
             protected void doRun() {
                 assert initializingSnapshots.contains(snapshot.snapshot());
@@ -439,10 +533,10 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
 
                     snapshotCreated = true;
 
-                    logger.info("snapshot [{}] started", snapshot.snapshot());
                     final Version version =
                         minCompatibleVersion(clusterState.nodes().getMinNodeVersion(), snapshot.repository(), repositoryData, null);
                     if (indices.isEmpty()) {
+                        logger.info("snapshot [{}] started", snapshot.snapshot());
                         // No indices in this snapshot - we are done
                         userCreateSnapshotListener.onResponse(snapshot.snapshot());
                         endSnapshot(new SnapshotsInProgress.Entry(
@@ -454,8 +548,15 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
 
                         @Override
                         public ClusterState execute(ClusterState currentState) {
+                            staleRepositoryData = isStale(currentState, snapshot.repository(), repositoryData);
+                            if (staleRepositoryData) {
+                                // The shard generations of the snapshots finalized since the repository data was loaded are not part
+                                // of it, and the shard generations it contains instead may already have been cleaned up
+                                return currentState;
+                            }
                             SnapshotsInProgress snapshots = currentState.custom(SnapshotsInProgress.TYPE);
                             List<SnapshotsInProgress.Entry> entries = new ArrayList<>();
+                            SnapshotsInProgress.Entry startedEntry = null;
                             for (SnapshotsInProgress.Entry entry : snapshots.entries()) {
                                 if (entry.snapshot().equals(snapshot.snapshot()) == false) {
                                     entries.add(entry);
@@ -494,10 +595,16 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
                                             continue;
                                         }
                                     }
-                                    entries.add(new SnapshotsInProgress.Entry(entry, State.STARTED, indexIds, repositoryData.getGenId(),
-                                        shards, version, null));
+                                    startedEntry = new SnapshotsInProgress.Entry(entry, State.STARTED, indexIds, repositoryData.getGenId(),
+                                        shards, version, null);
                                 }
                             }
+                            if (startedEntry != null) {
+                                // The started snapshot goes to the end of the list, behind all snapshots that started before it,
+                                // and queues the shards that these are still snapshotting
+                                entries.add(new SnapshotsInProgress.Entry(startedEntry,
+                                    queueShardSnapshots(entries, startedEntry.repository(), startedEntry.shards())));
+                            }
                             return ClusterState.builder(currentState)
                                 .putCustom(SnapshotsInProgress.TYPE, new SnapshotsInProgress(unmodifiableList(entries)))
                                 .build();
@@ -522,6 +629,12 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
 
                         @Override
                         public void clusterStateProcessed(String source, ClusterState oldState, ClusterState newState) {
+                            if (staleRepositoryData) {
+                                logger.debug("[{}] repository data changed while starting snapshot, retrying", snapshot.snapshot());
+                                retry();
+                                return;
+                            }
+                            logger.info("snapshot [{}] started", snapshot.snapshot());
                             // The userCreateSnapshotListener.onResponse() notifies caller that the snapshot was accepted
                             // for processing. If client wants to wait for the snapshot completion, it can register snapshot
                             // completion listener in this method. For the snapshot completion to work properly, the snapshot
@@ -540,6 +653,10 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
                 }, this::onFailure);
             }
 
+            private void retry() {
+                threadPool.executor(ThreadPool.Names.SNAPSHOT).execute(this);
+            }
+
             @Override
             public void onFailure(Exception e) {
                 logger.warn(() -> new ParameterizedMessage("failed to create snapshot [{}]",
@@ -780,15 +897,26 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
                     // 1. Completed snapshots
                     // 2. Snapshots in state INIT that the previous master failed to start
                     // 3. Snapshots in any other state that have all their shard tasks completed
-                    snapshotsInProgress.entries().stream().filter(
-                        entry -> entry.state().completed()
+                    // Snapshots with shards are finalized in the order in which they started, see #endSnapshot
+                    final Set<String> repositoriesWithRunningSnapshots = new HashSet<>();
+                    for (SnapshotsInProgress.Entry entry : snapshotsInProgress.entries()) {
+                        final boolean noMoreWork = entry.state().completed()
                             || initializingSnapshots.contains(entry.snapshot()) == false
-                               && (entry.state() == State.INIT || completed(entry.shards().values()))
-                    ).forEach(entry -> endSnapshot(entry, event.state().metaData()));
-                }
-                if (newMaster) {
-                    finalizeSnapshotDeletionFromPreviousMaster(event.state());
+                               && (entry.state() == State.INIT || completed(entry.shards().values()));
+                        if (entry.shards().isEmpty()) {
+                            if (noMoreWork) {
+                                endSnapshot(entry, event.state().metaData());
+                            }
+                        } else if (repositoriesWithRunningSnapshots.contains(entry.repository()) == false) {
+                            if (noMoreWork) {
+                                endSnapshot(entry, event.state().metaData());
+                            } else {
+                                repositoriesWithRunningSnapshots.add(entry.repository());
+                            }
+                        }
+                    }
                 }
+                startReadyDeletions(event.state());
             }
         } catch (Exception e) {
             logger.warn("Failed to update snapshot state ", e);
@@ -796,22 +924,29 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
     }
 
     /**
-     * Finalizes a snapshot deletion in progress if the current node is the master but it
-     * was not master in the previous cluster state and there is still a lingering snapshot
-     * deletion in progress in the cluster state.  This means that the old master failed
-     * before it could clean up an in-progress snapshot deletion.  We attempt to delete the
-     * snapshot files and remove the deletion from the cluster state.  It is possible that the
-     * old master was in a state of long GC and then it resumes and tries to delete the snapshot
-     * that has already been deleted by the current master.  This is acceptable however, since
-     * the old master's snapshot deletion will just respond with an error but in actuality, the
-     * snapshot was deleted and a call to GET snapshots would reveal that the snapshot no longer exists.
+     * Starts the first snapshot deletion of each repository that has no snapshots in progress, unless this node is already executing
+     * it. On a newly elected master this picks up any deletion that the previous master failed to complete. It is possible that the
+     * old master was in a state of long GC and then it resumes and tries to delete the snapshot that has already been deleted by the
+     * current master.  This is acceptable however, since the old master's snapshot deletion will just respond with an error but in
+     * actuality, the snapshot was deleted and a call to GET snapshots would reveal that the snapshot no longer exists.
      */
-    private void finalizeSnapshotDeletionFromPreviousMaster(ClusterState state) {
-        SnapshotDeletionsInProgress deletionsInProgress = state.custom(SnapshotDeletionsInProgress.TYPE);
-        if (deletionsInProgress != null && deletionsInProgress.hasDeletionsInProgress()) {
-            assert deletionsInProgress.getEntries().size() == 1 : "only one in-progress deletion allowed per cluster";
-            SnapshotDeletionsInProgress.Entry entry = deletionsInProgress.getEntries().get(0);
-            deleteSnapshotFromRepository(entry.getSnapshot(), null, entry.repositoryStateId(), state.nodes().getMinNodeVersion());
+    private void startReadyDeletions(ClusterState state) {
+        final SnapshotDeletionsInProgress deletionsInProgress = state.custom(SnapshotDeletionsInProgress.TYPE);
+        if (deletionsInProgress == null || deletionsInProgress.hasDeletionsInProgress() == false) {
+            return;
+        }
+        final SnapshotsInProgress snapshotsInProgress = state.custom(SnapshotsInProgress.TYPE);
+        final Set<String> busyRepositories = new HashSet<>();
+        if (snapshotsInProgress != null) {
+            for (SnapshotsInProgress.Entry entry : snapshotsInProgress.entries()) {
+                busyRepositories.add(entry.repository());
+            }
+        }
+        for (SnapshotDeletionsInProgress.Entry entry : deletionsInProgress.getEntries()) {
+            // deletions of the same repository run one after the other
+            if (busyRepositories.add(entry.repository()) && runningDeletions.add(entry.getSnapshot())) {
+                deleteSnapshotFromRepository(entry.getSnapshot(), state.nodes().getMinNodeVersion());
+            }
         }
     }
 
@@ -881,13 +1016,15 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
                                 logger.warn("failed to clean up abandoned snapshot {} in INIT state", snapshot.snapshot());
                             }
                         }, updatedSnapshot.repositoryStateId(), false);
+                    } else {
+                        entries.add(snapshot);
                     }
                     assert updatedSnapshot.shards().size() == snapshot.shards().size()
                         : "Shard count changed during snapshot status update from [" + snapshot + "] to [" + updatedSnapshot + "]";
                 }
                 if (changed) {
-                    return ClusterState.builder(currentState)
-                        .putCustom(SnapshotsInProgress.TYPE, new SnapshotsInProgress(unmodifiableList(entries))).build();
+                    return ClusterState.builder(currentState).putCustom(SnapshotsInProgress.TYPE,
+                        new SnapshotsInProgress(startQueuedShardSnapshots(unmodifiableList(entries), currentState.routingTable()))).build();
                 }
                 return currentState;
             }
@@ -921,12 +1058,12 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
                                     updatedSnapshot = new SnapshotsInProgress.Entry(snapshot, shards);
                                 }
                             }
-                            entries.add(updatedSnapshot);
                         }
+                        entries.add(updatedSnapshot);
                     }
                     if (changed) {
-                        return ClusterState.builder(currentState)
-                            .putCustom(SnapshotsInProgress.TYPE, new SnapshotsInProgress(unmodifiableList(entries))).build();
+                        return ClusterState.builder(currentState).putCustom(SnapshotsInProgress.TYPE,
+                            new SnapshotsInProgress(startQueuedShardSnapshots(unmodifiableList(entries), routingTable))).build();
                     }
                 }
                 return currentState;
@@ -1035,7 +1172,9 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
     /**
      * Finalizes the shard in repository and then removes it from cluster state
      * <p>
-     * This is non-blocking method that runs on a thread from SNAPSHOT thread pool
+     * This is a non-blocking method that runs the finalization on a thread from the SNAPSHOT thread pool. Finalizations are started
+     * one after another in the order in which this method is called for them, so that the repository sees the finalizations of
+     * snapshots that snapshot the same shards in that order and updates the shard generations in the repository in that order.
      *
      * @param entry snapshot
      */
@@ -1043,7 +1182,7 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
         if (endingSnapshots.add(entry.snapshot()) == false) {
             return;
         }
-        threadPool.executor(ThreadPool.Names.SNAPSHOT).execute(new AbstractRunnable() {
+        final AbstractRunnable finalization = new AbstractRunnable() {
             @Override
             protected void doRun() {
                 final Snapshot snapshot = entry.snapshot();
@@ -1096,7 +1235,33 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
                     removeSnapshotFromClusterState(snapshot, null, e);
                 }
             }
-        });
+        };
+        synchronized (queuedFinalizations) {
+            queuedFinalizations.add(finalization);
+            if (startingFinalizations) {
+                return;
+            }
+            startingFinalizations = true;
+        }
+        threadPool.executor(ThreadPool.Names.SNAPSHOT).execute(this::startQueuedFinalizations);
+    }
+
+    /**
+     * Starts all queued finalizations in order. Starting a finalization does not block on the repository, so that this only runs
+     * for as long as it takes to hand the finalizations to their repositories.
+     */
+    private void startQueuedFinalizations() {
+        while (true) {
+            final AbstractRunnable finalization;
+            synchronized (queuedFinalizations) {
+                finalization = queuedFinalizations.poll();
+                if (finalization == null) {
+                    startingFinalizations = false;
+                    return;
+                }
+            }
+            finalization.run();
+        }
     }
 
     /**
@@ -1233,10 +1398,14 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
 
             boolean waitForSnapshot = false;
 
+            boolean listenerRegistered = false;
+
             @Override
             public ClusterState execute(ClusterState currentState) {
+                final boolean concurrentOperations = concurrentOperationsSupported(currentState);
                 SnapshotDeletionsInProgress deletionsInProgress = currentState.custom(SnapshotDeletionsInProgress.TYPE);
-                if (deletionsInProgress != null && deletionsInProgress.hasDeletionsInProgress()) {
+                if (deletionsInProgress != null && deletionsInProgress.getEntries().stream().anyMatch(
+                    entry -> concurrentOperations == false || entry.getSnapshot().equals(snapshot))) {
                     throw new ConcurrentSnapshotExecutionException(snapshot,
                         "cannot delete - another snapshot is currently being deleted in [" + deletionsInProgress + "]");
                 }
@@ -1263,9 +1432,17 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
                 SnapshotsInProgress.Entry snapshotEntry = snapshots != null ? snapshots.snapshot(snapshot) : null;
                 if (snapshotEntry == null) {
                     // This snapshot is not running - delete
-                    if (snapshots != null && !snapshots.entries().isEmpty()) {
-                        // However other snapshots are running - cannot continue
-                        throw new ConcurrentSnapshotExecutionException(snapshot, "another snapshot is currently running cannot delete");
+                    if (snapshots != null && snapshots.entries().isEmpty() == false) {
+                        if (concurrentOperations == false) {
+                            // However other snapshots are running - cannot continue
+                            throw new ConcurrentSnapshotExecutionException(snapshot,
+                                "another snapshot is currently running cannot delete");
+                        }
+                        // the deletion waits for the snapshots of its repository to complete, see #startReadyDeletions
+                    }
+                    if (concurrentOperations) {
+                        ensureBelowConcurrencyLimit(snapshot.getRepository(), snapshot.getSnapshotId().getName(), snapshots,
+                            deletionsInProgress);
                     }
                     // add the snapshot deletion to the cluster state
                     SnapshotDeletionsInProgress.Entry entry = new SnapshotDeletionsInProgress.Entry(
@@ -1279,6 +1456,9 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
                         deletionsInProgress = SnapshotDeletionsInProgress.newInstance(entry);
                     }
                     clusterStateBuilder.putCustom(SnapshotDeletionsInProgress.TYPE, deletionsInProgress);
+                    // registered before the deletion can be started by applying the new cluster state
+                    snapshotDeletionListeners.computeIfAbsent(snapshot, k -> new CopyOnWriteArrayList<>()).add(listener);
+                    listenerRegistered = true;
                 } else {
                     // This snapshot is currently running - stopping shards first
                     waitForSnapshot = true;
@@ -1297,7 +1477,11 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
                         final ImmutableOpenMap.Builder<ShardId, ShardSnapshotStatus> shardsBuilder = ImmutableOpenMap.builder();
                         for (ObjectObjectCursor<ShardId, ShardSnapshotStatus> shardEntry : snapshotEntry.shards()) {
                             ShardSnapshotStatus status = shardEntry.value;
-                            if (status.state().completed() == false) {
+                            if (status.state() == ShardState.QUEUED) {
+                                // not assigned to any node yet, so there is nothing to wait for
+                                status = new ShardSnapshotStatus(
+                                    null, ShardState.FAILED, "aborted by snapshot deletion", status.generation());
+                            } else if (status.state().completed() == false) {
                                 status = new ShardSnapshotStatus(
                                     status.nodeId(), ShardState.ABORTED, "aborted by snapshot deletion", status.generation());
                             }
@@ -1329,13 +1513,23 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
                         failure = snapshotEntry.failure();
                     }
                     SnapshotsInProgress.Entry newSnapshot = new SnapshotsInProgress.Entry(snapshotEntry, State.ABORTED, shards, failure);
-                    clusterStateBuilder.putCustom(SnapshotsInProgress.TYPE, new SnapshotsInProgress(newSnapshot));
+                    final List<SnapshotsInProgress.Entry> entries = new ArrayList<>(snapshots.entries().size());
+                    for (SnapshotsInProgress.Entry entry : snapshots.entries()) {
+                        entries.add(entry == snapshotEntry ? newSnapshot : entry);
+                    }
+                    clusterStateBuilder.putCustom(SnapshotsInProgress.TYPE, new SnapshotsInProgress(unmodifiableList(entries)));
                 }
                 return clusterStateBuilder.build();
             }
 
             @Override
             public void onFailure(String source, Exception e) {
+                if (listenerRegistered) {
+                    final List<ActionListener<Void>> listeners = snapshotDeletionListeners.get(snapshot);
+                    if (listeners != null) {
+                        listeners.remove(listener);
+                    }
+                }
                 listener.onFailure(e);
             }
 
@@ -1372,8 +1566,8 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
                         }
                     ));
                 } else {
-                    logger.debug("deleted snapshot is not running - deleting files");
-                    deleteSnapshotFromRepository(snapshot, listener, repositoryStateId, newState.nodes().getMinNodeVersion());
+                    logger.debug("deleted snapshot is not running - deleting files once no snapshot of its repository is running");
+                    startReadyDeletions(newState);
                 }
             }
         });
@@ -1471,45 +1665,48 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
     /**
      * Deletes snapshot from repository
      *
-     * @param snapshot   snapshot
-     * @param listener   listener
-     * @param repositoryStateId the unique id representing the state of the repository at the time the deletion began
+     * @param snapshot       snapshot
      * @param minNodeVersion minimum node version in the cluster
      */
-    private void deleteSnapshotFromRepository(Snapshot snapshot, @Nullable ActionListener<Void> listener, long repositoryStateId,
-                                              Version minNodeVersion) {
+    private void deleteSnapshotFromRepository(Snapshot snapshot, Version minNodeVersion) {
+        final ActionListener<Void> listener = new ActionListener<>() {
+            @Override
+            public void onResponse(Void aVoid) {
+                logger.info("snapshot [{}] deleted", snapshot);
+                removeSnapshotDeletionFromClusterState(snapshot, null);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                removeSnapshotDeletionFromClusterState(snapshot, e);
+            }
+        };
         threadPool.executor(ThreadPool.Names.SNAPSHOT).execute(ActionRunnable.wrap(listener, l -> {
             Repository repository = repositoriesService.repository(snapshot.getRepository());
+            // snapshots that completed while this deletion waited for them have moved the repository to a newer generation than the one
+            // it was requested at, so the deletion is executed against the repository's current generation
             repository.getRepositoryData(ActionListener.wrap(repositoryData -> repository.deleteSnapshot(snapshot.getSnapshotId(),
-                repositoryStateId,
+                repositoryData.getGenId(),
                 minCompatibleVersion(minNodeVersion, snapshot.getRepository(), repositoryData, snapshot.getSnapshotId()),
-                ActionListener.wrap(v -> {
-                        logger.info("snapshot [{}] deleted", snapshot);
-                        removeSnapshotDeletionFromClusterState(snapshot, null, l);
-                    }, ex -> removeSnapshotDeletionFromClusterState(snapshot, ex, l)
-                )), ex -> removeSnapshotDeletionFromClusterState(snapshot, ex, l)));
+                l), l::onFailure));
         }));
     }
 
     /**
-     * Removes the snapshot deletion from {@link SnapshotDeletionsInProgress} in the cluster state.
+     * Removes the snapshot deletion from {@link SnapshotDeletionsInProgress} in the cluster state and notifies the listeners waiting
+     * for the deletion.
      */
-    private void removeSnapshotDeletionFromClusterState(final Snapshot snapshot, @Nullable final Exception failure,
-                                                        @Nullable final ActionListener<Void> listener) {
+    private void removeSnapshotDeletionFromClusterState(final Snapshot snapshot, @Nullable final Exception failure) {
         clusterService.submitStateUpdateTask("remove snapshot deletion metadata", new ClusterStateUpdateTask() {
             @Override
             public ClusterState execute(ClusterState currentState) {
                 SnapshotDeletionsInProgress deletions = currentState.custom(SnapshotDeletionsInProgress.TYPE);
                 if (deletions != null) {
-                    boolean changed = false;
-                    if (deletions.hasDeletionsInProgress()) {
-                        assert deletions.getEntries().size() == 1 : "should have exactly one deletion in progress";
-                        SnapshotDeletionsInProgress.Entry entry = deletions.getEntries().get(0);
-                        deletions = deletions.withRemovedEntry(entry);
-                        changed = true;
-                    }
-                    if (changed) {
-                        return ClusterState.builder(currentState).putCustom(SnapshotDeletionsInProgress.TYPE, deletions).build();
+                    for (SnapshotDeletionsInProgress.Entry entry : deletions.getEntries()) {
+                        if (entry.getSnapshot().equals(snapshot)) {
+                            return ClusterState.builder(currentState)
+                                .putCustom(SnapshotDeletionsInProgress.TYPE, deletions.withRemovedEntry(entry)).build();
+                        }
                     }
                 }
                 return currentState;
@@ -1518,20 +1715,37 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
             @Override
             public void onFailure(String source, Exception e) {
                 logger.warn(() -> new ParameterizedMessage("[{}] failed to remove snapshot deletion metadata", snapshot), e);
-                if (listener != null) {
-                    listener.onFailure(e);
+                runningDeletions.remove(snapshot);
+                final List<ActionListener<Void>> listeners = snapshotDeletionListeners.remove(snapshot);
+                if (listeners != null) {
+                    ActionListener.onFailure(listeners, e);
+                }
+            }
+
+            @Override
+            public void onNoLongerMaster(String source) {
+                // the new master will complete the deletion
+                runningDeletions.remove(snapshot);
+                final List<ActionListener<Void>> listeners = snapshotDeletionListeners.remove(snapshot);
+                if (listeners != null) {
+                    ActionListener.onFailure(listeners,
+                        new SnapshotException(snapshot, "no longer master while removing the deletion from the cluster state"));
                 }
             }
 
             @Override
             public void clusterStateProcessed(String source, ClusterState oldState, ClusterState newState) {
-                if (listener != null) {
+                runningDeletions.remove(snapshot);
+                final List<ActionListener<Void>> listeners = snapshotDeletionListeners.remove(snapshot);
+                if (listeners != null) {
                     if (failure != null) {
-                        listener.onFailure(failure);
+                        ActionListener.onFailure(listeners, failure);
                     } else {
-                        listener.onResponse(null);
+                        ActionListener.onResponse(listeners, null);
                     }
                 }
+                // start the next deletion of the same repository, if any
+                startReadyDeletions(newState);
             }
         });
     }
@@ -1560,7 +1774,6 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
                 builder.put(new ShardId(indexName, IndexMetaData.INDEX_UUID_NA_VALUE, 0),
                     new SnapshotsInProgress.ShardSnapshotStatus(null, ShardState.MISSING, "missing index", null));
             } else {
-                IndexRoutingTable indexRoutingTable = clusterState.getRoutingTable().index(indexName);
                 for (int i = 0; i < indexMetaData.getNumberOfShards(); i++) {
                     ShardId shardId = new ShardId(indexMetaData.getIndex(), i);
                     final String shardRepoGeneration;
@@ -1575,32 +1788,172 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
                     } else {
                         shardRepoGeneration = null;
                     }
-                    if (indexRoutingTable != null) {
-                        ShardRouting primary = indexRoutingTable.shard(i).primaryShard();
-                        if (primary == null || !primary.assignedToNode()) {
-                            builder.put(shardId,
-                                new SnapshotsInProgress.ShardSnapshotStatus(null, ShardState.MISSING, "primary shard is not allocated",
-                                    shardRepoGeneration));
-                        } else if (primary.relocating() || primary.initializing()) {
-                            builder.put(shardId, new SnapshotsInProgress.ShardSnapshotStatus(
-                                primary.currentNodeId(), ShardState.WAITING, shardRepoGeneration));
-                        } else if (!primary.started()) {
-                            builder.put(shardId,
-                                new SnapshotsInProgress.ShardSnapshotStatus(primary.currentNodeId(), ShardState.MISSING,
-                                    "primary shard hasn't been started yet", shardRepoGeneration));
-                        } else {
-                            builder.put(shardId,
-                                new SnapshotsInProgress.ShardSnapshotStatus(primary.currentNodeId(), shardRepoGeneration));
-                        }
+                    builder.put(shardId, initShardSnapshotStatus(clusterState.getRoutingTable(), shardId, shardRepoGeneration));
+                }
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Creates the status of a shard snapshot that is about to start, depending on the state of the shard's primary.
+     */
+    private static ShardSnapshotStatus initShardSnapshotStatus(RoutingTable routingTable, ShardId shardId,
+                                                               @Nullable String shardRepoGeneration) {
+        final IndexRoutingTable indexRoutingTable = routingTable.index(shardId.getIndex());
+        if (indexRoutingTable == null) {
+            return new ShardSnapshotStatus(null, ShardState.MISSING, "missing routing table", shardRepoGeneration);
+        }
+        final ShardRouting primary = indexRoutingTable.shard(shardId.id()).primaryShard();
+        if (primary == null || !primary.assignedToNode()) {
+            return new ShardSnapshotStatus(null, ShardState.MISSING, "primary shard is not allocated", shardRepoGeneration);
+        } else if (primary.relocating() || primary.initializing()) {
+            return new ShardSnapshotStatus(primary.currentNodeId(), ShardState.WAITING, shardRepoGeneration);
+        } else if (!primary.started()) {
+            return new ShardSnapshotStatus(primary.currentNodeId(), ShardState.MISSING, "primary shard hasn't been started yet",
+                shardRepoGeneration);
+        } else {
+            return new ShardSnapshotStatus(primary.currentNodeId(), shardRepoGeneration);
+        }
+    }
+
+    /**
+     * Queues the shard snapshots of a snapshot that is about to start behind the snapshots of the same shards into the same repository
+     * that are still running. Shard snapshots that can start right away build on the shard generation produced by an earlier snapshot
+     * of the same shard that has completed but is not finalized yet.
+     *
+     * @param entries    all other snapshots in progress
+     * @param repository repository of the snapshot that is about to start
+     * @param shards     shard snapshots of the snapshot that is about to start
+     * @return updated shard snapshots
+     */
+    private static ImmutableOpenMap<ShardId, ShardSnapshotStatus> queueShardSnapshots(
+        List<SnapshotsInProgress.Entry> entries, String repository, ImmutableOpenMap<ShardId, ShardSnapshotStatus> shards) {
+        final ShardSnapshotQueue queue = new ShardSnapshotQueue();
+        for (SnapshotsInProgress.Entry entry : entries) {
+            if (entry.repository().equals(repository)) {
+                queue.add(entry);
+            }
+        }
+        if (queue.isEmpty()) {
+            return shards;
+        }
+        final ImmutableOpenMap.Builder<ShardId, ShardSnapshotStatus> builder = ImmutableOpenMap.builder(shards.size());
+        for (ObjectObjectCursor<ShardId, ShardSnapshotStatus> shard : shards) {
+            final ShardSnapshotStatus status = shard.value;
+            if (status.state() == ShardState.INIT || status.state() == ShardState.WAITING) {
+                final String generation = queue.generation(shard.key, status.generation());
+                if (queue.isRunning(shard.key)) {
+                    builder.put(shard.key, new ShardSnapshotStatus(null, ShardState.QUEUED, generation));
+                } else {
+                    builder.put(shard.key, new ShardSnapshotStatus(status.nodeId(), status.state(), generation));
+                }
+            } else {
+                builder.put(shard.key, status);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Starts the {@link ShardState#QUEUED} shard snapshots that no earlier snapshot into the same repository is snapshotting the same
+     * shard for any longer. A started shard snapshot builds on the shard generation produced by the earlier snapshot of the shard if
+     * that one was successful, or on the generation that the earlier one started from otherwise.
+     *
+     * @param entries      snapshots in progress, in the order in which they were started
+     * @param routingTable current routing table
+     * @return updated snapshots in progress or the given list if no queued shard snapshot changed
+     */
+    static List<SnapshotsInProgress.Entry> startQueuedShardSnapshots(List<SnapshotsInProgress.Entry> entries, RoutingTable routingTable) {
+        final Map<String, ShardSnapshotQueue> queues = new HashMap<>();
+        List<SnapshotsInProgress.Entry> updatedEntries = null;
+        for (int i = 0; i < entries.size(); i++) {
+            final SnapshotsInProgress.Entry entry = entries.get(i);
+            final ShardSnapshotQueue queue = queues.computeIfAbsent(entry.repository(), repository -> new ShardSnapshotQueue());
+            ImmutableOpenMap.Builder<ShardId, ShardSnapshotStatus> shards = null;
+            if (entry.state() == State.STARTED) {
+                for (ObjectObjectCursor<ShardId, ShardSnapshotStatus> shard : entry.shards()) {
+                    final ShardSnapshotStatus status = shard.value;
+                    if (status.state() != ShardState.QUEUED) {
+                        continue;
+                    }
+                    final String generation = queue.generation(shard.key, status.generation());
+                    final ShardSnapshotStatus updatedStatus;
+                    if (queue.isRunning(shard.key)) {
+                        // still queued, but keep track of the latest generation in case the shard snapshots ahead of it fail
+                        updatedStatus = Objects.equals(generation, status.generation())
+                            ? status : new ShardSnapshotStatus(null, ShardState.QUEUED, generation);
                     } else {
-                        builder.put(shardId, new SnapshotsInProgress.ShardSnapshotStatus(null, ShardState.MISSING,
-                            "missing routing table", shardRepoGeneration));
+                        logger.trace("starting queued snapshot of shard [{}] for snapshot [{}]", shard.key, entry.snapshot());
+                        updatedStatus = initShardSnapshotStatus(routingTable, shard.key, generation);
                     }
+                    if (updatedStatus != status) {
+                        if (shards == null) {
+                            shards = ImmutableOpenMap.builder(entry.shards());
+                        }
+                        shards.put(shard.key, updatedStatus);
+                    }
+                }
+            }
+            SnapshotsInProgress.Entry updatedEntry = entry;
+            if (shards != null) {
+                final ImmutableOpenMap<ShardId, ShardSnapshotStatus> updatedShards = shards.build();
+                updatedEntry = completed(updatedShards.values())
+                    ? new SnapshotsInProgress.Entry(entry, State.SUCCESS, updatedShards)
+                    : new SnapshotsInProgress.Entry(entry, updatedShards);
+                if (updatedEntries == null) {
+                    updatedEntries = new ArrayList<>(entries.subList(0, i));
                 }
             }
+            if (updatedEntries != null) {
+                updatedEntries.add(updatedEntry);
+            }
+            queue.add(updatedEntry);
         }
+        return updatedEntries == null ? entries : unmodifiableList(updatedEntries);
+    }
 
-        return builder.build();
+    /**
+     * The state of the snapshots of the shards of a single repository, built up from the snapshots in progress in the order in which
+     * they were started.
+     */
+    private static final class ShardSnapshotQueue {
+
+        // shards that have a shard snapshot that is running or queued
+        private final Set<ShardId> running = new HashSet<>();
+
+        // latest known generation of each shard
+        private final Map<ShardId, String> generations = new HashMap<>();
+
+        void add(SnapshotsInProgress.Entry entry) {
+            if (entry.state() == State.INIT || entry.state() == State.FAILED) {
+                // snapshots in these states never snapshot any of their shards
+                return;
+            }
+            for (ObjectObjectCursor<ShardId, ShardSnapshotStatus> shard : entry.shards()) {
+                final ShardState state = shard.value.state();
+                if (state.completed() == false) {
+                    running.add(shard.key);
+                    generations.put(shard.key, shard.value.generation());
+                } else if (state == ShardState.SUCCESS) {
+                    generations.put(shard.key, shard.value.generation());
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return running.isEmpty() && generations.isEmpty();
+        }
+
+        boolean isRunning(ShardId shardId) {
+            return running.contains(shardId);
+        }
+
+        @Nullable
+        String generation(ShardId shardId, @Nullable String defaultGeneration) {
+            return generations.containsKey(shardId) ? generations.get(shardId) : defaultGeneration;
+        }
     }
 
     /**
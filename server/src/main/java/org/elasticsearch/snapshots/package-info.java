@@ -47,7 +47,9 @@
  * healthy copy of the shard are marked as being in state {@code INIT} in this map. If the primary for a shard is unassigned, it is marked
  * as {@code MISSING} in this map. In case the primary is initializing at this point, it is marked as in state {@code WAITING}. In case a
  * shard's primary is relocated at any point after its {@code SnapshotsInProgress.Entry} has moved to state {@code STARTED} and thus been
- * assigned to a specific cluster node, that shard's snapshot will fail and move to state {@code FAILED}.</li>
+ * assigned to a specific cluster node, that shard's snapshot will fail and move to state {@code FAILED}. If another snapshot into the
+ * same repository that started earlier is still snapshotting a shard, the shard is marked as {@code QUEUED} instead and only assigned
+ * to its primary's node once the earlier shard snapshot has completed, building on the shard generation that the earlier one wrote.</li>
  *
  * <li>The new {@code SnapshotsInProgress.Entry} is then observed by
  * {@link org.elasticsearch.snapshots.SnapshotShardsService#clusterChanged} on all nodes and since the entry is in state {@code STARTED}
@@ -63,6 +65,9 @@
  * itself and mark it as {@code SUCCESS}. At the same time {@link org.elasticsearch.snapshots.SnapshotsService#endSnapshot} is executed,
  * writing the metadata necessary to finalize the snapshot in the repository to the repository.</li>
  *
+ * <li>Snapshots into the same repository are finalized in the order in which they were started. The repository writes the
+ * {@link org.elasticsearch.repositories.RepositoryData} updates of snapshots that are finalized concurrently in a single write.</li>
+ *
  * <li>After writing the final metadata to the repository, a cluster state update to remove the snapshot from the cluster state is
  * submitted and the removal of the snapshot's {@code SnapshotsInProgress.Entry} from the cluster state completes the snapshot process.
  * </li>
@@ -92,13 +97,14 @@
  * <h2>Deleting a Snapshot from a Repository</h2>
  *
  * <ol>
- * <li>Assuming there are no entries in the cluster state's {@code SnapshotsInProgress}, deleting a snapshot starts by the
- * {@code SnapshotsService} creating an entry for deleting the snapshot in the cluster state's
- * {@link org.elasticsearch.cluster.SnapshotDeletionsInProgress}.</li>
+ * <li>Deleting a snapshot that is not in the cluster state's {@code SnapshotsInProgress} starts by the {@code SnapshotsService} creating
+ * an entry for deleting the snapshot in the cluster state's {@link org.elasticsearch.cluster.SnapshotDeletionsInProgress}.</li>
  *
- * <li>Once the cluster state contains the deletion entry in {@code SnapshotDeletionsInProgress} the {@code SnapshotsService} will invoke
+ * <li>Once the cluster state contains the deletion entry in {@code SnapshotDeletionsInProgress} and there are neither entries in
+ * {@code SnapshotsInProgress} nor earlier deletions for the same repository, the {@code SnapshotsService} will invoke
  * {@link org.elasticsearch.repositories.Repository#deleteSnapshot} for the given snapshot, which will remove files associated with the
- * snapshot from the repository as well as update its meta-data to reflect the deletion of the snapshot.</li>
+ * snapshot from the repository as well as update its meta-data to reflect the deletion of the snapshot. No new snapshots of the
+ * repository can be started while the deletion is waiting or running.</li>
  *
  * <li>After the deletion of the snapshot's data from the repository finishes, the {@code SnapshotsService} will submit a cluster state
  * update to remove the deletion's entry in {@code SnapshotDeletionsInProgress} which concludes the process of deleting a snapshot.</li>
@@ -37,7 +37,8 @@ public class BytesTransportRequest extends TransportRequest {
 
     public BytesTransportRequest(StreamInput in) throws IOException {
         super(in);
-        bytes = in.readBytesReference();
+        // the bytes are only read while handling the request, so they don't need to be copied off the network buffer
+        bytes = in.readReleasableBytesReference();
         version = in.getVersion();
     }
 
@@ -19,9 +19,9 @@
 
 package org.elasticsearch.transport;
 
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.common.bytes.BytesReference;
-import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.io.stream.BytesStream;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -41,23 +41,70 @@ import java.util.zip.DeflaterOutputStream;
  *
  * {@link CompressibleBytesOutputStream#close()} will NOT close the underlying stream. The byte stream passed
  * in the constructor must be closed individually.
+ *
+ * The number of bytes written to this stream before compression is available from {@link #getUncompressedBytes()}.
+ *
+ * Compression can be deferred until a minimum number of bytes has been written, so that small messages are not compressed. The
+ * bytes are written uncompressed to the underlying stream until this threshold is reached, at which point they are read back and
+ * written again through the compressing stream. {@link #isCompressed()} tells whether the written bytes ended up compressed.
  */
 final class CompressibleBytesOutputStream extends StreamOutput {
 
-    private final StreamOutput stream;
     private final BytesStream bytesStreamOutput;
-    private final boolean shouldCompress;
+    private final Compression.Scheme compressionScheme;
+    private final long minCompressedSize;
+    private final long startPosition;
+    private StreamOutput stream;
+    private long uncompressedBytes;
+
+    /**
+     * @param compressionScheme the scheme to compress the written bytes with, or {@code null} to not compress them
+     */
+    CompressibleBytesOutputStream(BytesStream bytesStreamOutput, @Nullable Compression.Scheme compressionScheme) throws IOException {
+        this(bytesStreamOutput, compressionScheme, 0);
+    }
 
-    CompressibleBytesOutputStream(BytesStream bytesStreamOutput, boolean shouldCompress) throws IOException {
+    /**
+     * @param compressionScheme the scheme to compress the written bytes with, or {@code null} to not compress them
+     * @param minCompressedSize the number of bytes from which on the written bytes are compressed
+     */
+    CompressibleBytesOutputStream(BytesStream bytesStreamOutput, @Nullable Compression.Scheme compressionScheme,
+                                  long minCompressedSize) throws IOException {
         this.bytesStreamOutput = bytesStreamOutput;
-        this.shouldCompress = shouldCompress;
-        if (shouldCompress) {
-            this.stream = CompressorFactory.COMPRESSOR.streamOutput(Streams.flushOnCloseStream(bytesStreamOutput));
+        this.compressionScheme = compressionScheme;
+        this.minCompressedSize = minCompressedSize;
+        this.stream = bytesStreamOutput;
+        if (compressionScheme != null && minCompressedSize > 0) {
+            this.startPosition = bytesStreamOutput.position();
         } else {
-            this.stream = bytesStreamOutput;
+            this.startPosition = -1;
+            if (compressionScheme != null) {
+                this.stream = compressionScheme.compressor().streamOutput(Streams.flushOnCloseStream(bytesStreamOutput));
+            }
         }
     }
 
+    /**
+     * Switches to compression if the given number of bytes is about to be written and makes the written bytes reach the threshold.
+     */
+    private void maybeStartCompression(int length) throws IOException {
+        if (stream == bytesStreamOutput && compressionScheme != null && uncompressedBytes + length >= minCompressedSize) {
+            assert startPosition >= 0 : "compression should have started when the stream was created";
+            final byte[] written = BytesReference.toBytes(
+                bytesStreamOutput.bytes().slice(Math.toIntExact(startPosition), Math.toIntExact(uncompressedBytes)));
+            bytesStreamOutput.seek(startPosition);
+            stream = compressionScheme.compressor().streamOutput(Streams.flushOnCloseStream(bytesStreamOutput));
+            stream.writeBytes(written);
+        }
+    }
+
+    /**
+     * Returns whether the bytes written to this stream are compressed.
+     */
+    boolean isCompressed() {
+        return stream != bytesStreamOutput;
+    }
+
     /**
      * This method ensures that compression is complete and returns the underlying bytes.
      *
@@ -68,21 +115,32 @@ final class CompressibleBytesOutputStream extends StreamOutput {
         // If we are using compression the stream needs to be closed to ensure that EOS marker bytes are written.
         // The actual ReleasableBytesStreamOutput will not be closed yet as it is wrapped in flushOnCloseStream when
         // passed to the deflater stream.
-        if (shouldCompress) {
+        if (isCompressed()) {
             stream.close();
         }
 
         return bytesStreamOutput.bytes();
     }
 
+    /**
+     * Returns the number of bytes that have been written to this stream, before compression.
+     */
+    long getUncompressedBytes() {
+        return uncompressedBytes;
+    }
+
     @Override
     public void writeByte(byte b) throws IOException {
+        maybeStartCompression(1);
         stream.write(b);
+        uncompressedBytes++;
     }
 
     @Override
     public void writeBytes(byte[] b, int offset, int length) throws IOException {
+        maybeStartCompression(length);
         stream.writeBytes(b, offset, length);
+        uncompressedBytes += length;
     }
 
     @Override
@@ -92,8 +150,7 @@ final class CompressibleBytesOutputStream extends StreamOutput {
 
     @Override
     public void close() throws IOException {
-        if (stream != bytesStreamOutput) {
-            assert shouldCompress : "If the streams are different we should be compressing";
+        if (isCompressed()) {
             IOUtils.close(stream);
         }
     }
@@ -0,0 +1,107 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
+
+import java.util.Locale;
+
+/**
+ * The compression schemes that can be used to compress transport messages. The scheme of a compressed message is identified by
+ * the header of its compressed content so that the receiving node doesn't need to know which scheme the sender is configured with.
+ */
+public final class Compression {
+
+    private static final Compressor LZ4_COMPRESSOR = new Lz4TransportCompressor();
+
+    private Compression() {
+    }
+
+    public enum Scheme {
+        DEFLATE,
+        LZ4;
+
+        // the version from which on nodes can read LZ4-compressed messages
+        static final Version LZ4_VERSION = Version.V_8_0_0;
+
+        public Compressor compressor() {
+            switch (this) {
+                case DEFLATE:
+                    return CompressorFactory.COMPRESSOR;
+                case LZ4:
+                    return LZ4_COMPRESSOR;
+                default:
+                    throw new AssertionError("unknown compression scheme [" + this + "]");
+            }
+        }
+
+        /**
+         * Returns the scheme to compress messages with when sending them over a connection whose version has been negotiated by the
+         * handshake, falling back to {@link #DEFLATE} if the remote node can't read messages compressed with this scheme.
+         */
+        public Scheme forVersion(Version version) {
+            if (this == LZ4 && version.before(LZ4_VERSION)) {
+                return DEFLATE;
+            }
+            return this;
+        }
+
+        public static Scheme parse(String scheme) {
+            switch (scheme) {
+                case "deflate":
+                    return DEFLATE;
+                case "lz4":
+                    return LZ4;
+                default:
+                    throw new IllegalArgumentException("unknown compression scheme [" + scheme + "], must be one of [deflate, lz4]");
+            }
+        }
+
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Returns the scheme that the given compressed message content has been compressed with.
+     */
+    static Scheme schemeOf(BytesReference compressed) {
+        if (LZ4_COMPRESSOR.isCompressed(compressed)) {
+            return Scheme.LZ4;
+        }
+        return Scheme.DEFLATE;
+    }
+
+    /**
+     * Returns the compressor that the given bytes have been compressed with, or {@code null} if they are uncompressed xcontent.
+     */
+    @Nullable
+    public static Compressor compressor(BytesReference bytes) {
+        if (LZ4_COMPRESSOR.isCompressed(bytes)) {
+            return LZ4_COMPRESSOR;
+        }
+        return CompressorFactory.compressor(bytes);
+    }
+}
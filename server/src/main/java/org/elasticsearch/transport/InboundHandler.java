@@ -26,6 +26,7 @@ import org.elasticsearch.Version;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.transport.TransportAddress;
 import org.elasticsearch.common.util.Maps;
@@ -154,7 +155,7 @@ public class InboundHandler {
         final long requestId = message.getRequestId();
         final StreamInput stream = message.getStreamInput();
         final Version version = message.getVersion();
-        TransportChannel transportChannel = null;
+        TcpTransportChannel transportChannel = null;
         try {
             messageListener.onRequestReceived(requestId, action);
             if (message.isHandshake()) {
@@ -171,7 +172,7 @@ public class InboundHandler {
                     breaker.addWithoutBreaking(messageLengthBytes);
                 }
                 transportChannel = new TcpTransportChannel(outboundHandler, channel, action, requestId, version,
-                    circuitBreakerService, messageLengthBytes, message.isCompress());
+                    circuitBreakerService, messageLengthBytes, message.getCompressionScheme());
                 final T request = reg.newRequest(stream);
                 request.remoteAddress(new TransportAddress(channel.getRemoteAddress()));
                 // in case we throw an exception, i.e. when the limit is hit, we don't want to verify
@@ -181,13 +182,18 @@ public class InboundHandler {
                     throw new IllegalStateException("Message not fully read (request) for requestId [" + requestId + "], action [" + action
                         + "], available [" + stream.available() + "]; resetting");
                 }
+                // the request may hold slices of the network buffer rather than copies, which must stay valid until it is handled
+                final Releasable sharedBytes = message.retainSharedBytes();
+                if (sharedBytes != null) {
+                    transportChannel.releaseOnResponse(sharedBytes);
+                }
                 threadPool.executor(reg.getExecutor()).execute(new RequestHandler<>(reg, request, transportChannel));
             }
         } catch (Exception e) {
             // the circuit breaker tripped
             if (transportChannel == null) {
                 transportChannel = new TcpTransportChannel(outboundHandler, channel, action, requestId, version,
-                    circuitBreakerService, 0, message.isCompress());
+                    circuitBreakerService, 0, message.getCompressionScheme());
             }
             try {
                 transportChannel.sendResponse(e);
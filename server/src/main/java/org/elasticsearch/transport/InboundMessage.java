@@ -19,30 +19,46 @@
 package org.elasticsearch.transport;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
-import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.stream.FilterStreamInput;
 import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.core.internal.io.IOUtils;
 
 import java.io.Closeable;
+import java.io.EOFException;
 import java.io.IOException;
 
 public abstract class InboundMessage extends NetworkMessage implements Closeable {
 
     private final StreamInput streamInput;
+    private final Compression.Scheme compressionScheme;
 
-    InboundMessage(ThreadContext threadContext, Version version, byte status, long requestId, StreamInput streamInput) {
+    InboundMessage(ThreadContext threadContext, Version version, byte status, long requestId, StreamInput streamInput,
+                   @Nullable Compression.Scheme compressionScheme) {
         super(threadContext, version, status, requestId);
         this.streamInput = streamInput;
+        this.compressionScheme = compressionScheme;
     }
 
     StreamInput getStreamInput() {
         return streamInput;
     }
 
+    /**
+     * Returns the scheme the content of this message was compressed with, or {@code null} if it isn't compressed.
+     */
+    @Nullable
+    Compression.Scheme getCompressionScheme() {
+        return compressionScheme;
+    }
+
     static class Reader {
 
         private final Version version;
@@ -56,7 +72,8 @@ public abstract class InboundMessage extends NetworkMessage implements Closeable
         }
 
         InboundMessage deserialize(BytesReference reference) throws IOException {
-            StreamInput streamInput = reference.streamInput();
+            final NetworkBytesStreamInput networkStream = networkStreamInput(reference);
+            StreamInput streamInput = networkStream == null ? reference.streamInput() : networkStream;
             boolean success = false;
             try (ThreadContext.StoredContext existing = threadContext.stashContext()) {
                 long requestId = streamInput.readLong();
@@ -65,10 +82,13 @@ public abstract class InboundMessage extends NetworkMessage implements Closeable
                 final boolean isHandshake = TransportStatus.isHandshake(status);
                 ensureVersionCompatibility(remoteVersion, version, isHandshake);
 
+                final Compression.Scheme compressionScheme;
                 if (remoteVersion.onOrAfter(TcpHeader.VERSION_WITH_HEADER_SIZE)) {
-                    // Consume the variable header size
-                    streamInput.readInt();
+                    final int variableHeaderSize = streamInput.readInt();
+                    compressionScheme = compressionScheme(status, reference, variableHeaderSize);
                 } else {
+                    // nodes that don't send the variable header size only support DEFLATE
+                    compressionScheme = TransportStatus.isCompress(status) ? Compression.Scheme.DEFLATE : null;
                     streamInput = decompressingStream(status, remoteVersion, streamInput);
                 }
 
@@ -83,16 +103,17 @@ public abstract class InboundMessage extends NetworkMessage implements Closeable
                     final String action = streamInput.readString();
 
                     if (remoteVersion.onOrAfter(TcpHeader.VERSION_WITH_HEADER_SIZE)) {
-                        streamInput = decompressingStream(status, remoteVersion, streamInput);
+                        streamInput = decompressingStream(status, remoteVersion, streamInput, compressionScheme);
                     }
                     streamInput = namedWriteableStream(streamInput, remoteVersion);
-                    message = new Request(threadContext, remoteVersion, status, requestId, action, streamInput);
+                    message = new Request(threadContext, remoteVersion, status, requestId, action, streamInput, compressionScheme,
+                        networkStream);
                 } else {
                     if (remoteVersion.onOrAfter(TcpHeader.VERSION_WITH_HEADER_SIZE)) {
-                        streamInput = decompressingStream(status, remoteVersion, streamInput);
+                        streamInput = decompressingStream(status, remoteVersion, streamInput, compressionScheme);
                     }
                     streamInput = namedWriteableStream(streamInput, remoteVersion);
-                    message = new Response(threadContext, remoteVersion, status, requestId, streamInput);
+                    message = new Response(threadContext, remoteVersion, status, requestId, streamInput, compressionScheme);
                 }
                 success = true;
                 return message;
@@ -103,14 +124,52 @@ public abstract class InboundMessage extends NetworkMessage implements Closeable
             }
         }
 
+        /**
+         * Returns a stream that reads the given request off its network buffer without copying the bytes that are read as
+         * {@link StreamInput#readReleasableBytesReference() releasable bytes references}, or {@code null} if the given message isn't
+         * a request that is read off a releasable network buffer. Responses are always copied since they are handled without any
+         * way to know when their handler is done with them.
+         */
+        @Nullable
+        private static NetworkBytesStreamInput networkStreamInput(BytesReference reference) throws IOException {
+            if (reference instanceof ReleasableBytesReference && reference.length() > TcpHeader.REQUEST_ID_SIZE) {
+                final byte status = reference.get(TcpHeader.REQUEST_ID_SIZE);
+                if (TransportStatus.isRequest(status) && TransportStatus.isHandshake(status) == false) {
+                    return new NetworkBytesStreamInput((ReleasableBytesReference) reference);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns the scheme the content of the given message is compressed with, which directly follows the variable header.
+         */
+        @Nullable
+        private static Compression.Scheme compressionScheme(byte status, BytesReference reference, int variableHeaderSize) {
+            if (TransportStatus.isCompress(status) == false) {
+                return null;
+            }
+            final int contentOffset = TcpHeader.REQUEST_ID_SIZE + TcpHeader.STATUS_SIZE + TcpHeader.VERSION_ID_SIZE
+                + TcpHeader.VARIABLE_HEADER_SIZE + variableHeaderSize;
+            if (contentOffset >= reference.length()) {
+                return Compression.Scheme.DEFLATE;
+            }
+            return Compression.schemeOf(reference.slice(contentOffset, reference.length() - contentOffset));
+        }
+
         static StreamInput decompressingStream(byte status, Version remoteVersion, StreamInput streamInput) throws IOException {
+            return decompressingStream(status, remoteVersion, streamInput, Compression.Scheme.DEFLATE);
+        }
+
+        static StreamInput decompressingStream(byte status, Version remoteVersion, StreamInput streamInput,
+                                               Compression.Scheme compressionScheme) throws IOException {
             if (TransportStatus.isCompress(status) && streamInput.available() > 0) {
                 try {
-                    StreamInput decompressor = CompressorFactory.COMPRESSOR.streamInput(streamInput);
+                    StreamInput decompressor = compressionScheme.compressor().streamInput(streamInput);
                     decompressor.setVersion(remoteVersion);
                     return decompressor;
                 } catch (IllegalArgumentException e) {
-                    throw new IllegalStateException("stream marked as compressed, but is missing deflate header");
+                    throw new IllegalStateException("stream marked as compressed, but is missing " + compressionScheme + " header");
                 }
             } else {
                 return streamInput;
@@ -145,23 +204,73 @@ public abstract class InboundMessage extends NetworkMessage implements Closeable
     public static class Request extends InboundMessage {
 
         private final String actionName;
+        private final NetworkBytesStreamInput networkStream;
 
         Request(ThreadContext threadContext, Version version, byte status, long requestId, String actionName,
-                StreamInput streamInput) {
-            super(threadContext, version, status, requestId, streamInput);
+                StreamInput streamInput, @Nullable Compression.Scheme compressionScheme, @Nullable NetworkBytesStreamInput networkStream) {
+            super(threadContext, version, status, requestId, streamInput, compressionScheme);
             this.actionName = actionName;
+            this.networkStream = networkStream;
         }
 
         String getActionName() {
             return actionName;
         }
 
+        /**
+         * Retains the network buffer this request has been read from if the deserialized request shares bytes with it, and returns the
+         * releasable that releases the buffer once the request has been handled. Returns {@code null} if the request doesn't hold on to
+         * the network buffer.
+         */
+        @Nullable
+        Releasable retainSharedBytes() {
+            if (networkStream != null && networkStream.sharesBytes) {
+                return networkStream.reference.retain();
+            }
+            return null;
+        }
     }
 
     public static class Response extends InboundMessage {
 
-        Response(ThreadContext threadContext, Version version, byte status, long requestId, StreamInput streamInput) {
-            super(threadContext, version, status, requestId, streamInput);
+        Response(ThreadContext threadContext, Version version, byte status, long requestId, StreamInput streamInput,
+                 @Nullable Compression.Scheme compressionScheme) {
+            super(threadContext, version, status, requestId, streamInput, compressionScheme);
+        }
+    }
+
+    /**
+     * A stream over a network buffer that returns slices of the buffer from {@link #readReleasableBytesReference()} rather than copies.
+     * These slices share the reference count of the buffer, which needs to be retained for as long as the slices are in use.
+     */
+    static final class NetworkBytesStreamInput extends FilterStreamInput {
+
+        private final ReleasableBytesReference reference;
+        private boolean sharesBytes;
+
+        NetworkBytesStreamInput(ReleasableBytesReference reference) throws IOException {
+            super(reference.streamInput());
+            this.reference = reference;
+        }
+
+        @Override
+        public ReleasableBytesReference readReleasableBytesReference() throws IOException {
+            final int length = readArraySize();
+            if (length == 0) {
+                return ReleasableBytesReference.wrap(BytesArray.EMPTY);
+            }
+            final int offset = reference.length() - available();
+            final ReleasableBytesReference slice = reference.sharedSlice(offset, length);
+            long remaining = length;
+            while (remaining > 0) {
+                final long skipped = delegate.skip(remaining);
+                if (skipped <= 0) {
+                    throw new EOFException("tried to skip [" + length + "] bytes but only skipped [" + (length - remaining) + "]");
+                }
+                remaining -= skipped;
+            }
+            sharesBytes = true;
+            return slice;
         }
     }
 }
@@ -27,35 +27,65 @@ import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.NotifyOnceListener;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.network.CloseableChannel;
+import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.transport.NetworkExceptionHelper;
 import org.elasticsearch.common.transport.TransportAddress;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
 final class OutboundHandler {
 
     private static final Logger logger = LogManager.getLogger(OutboundHandler.class);
 
     private final MeanMetric transmittedBytesMetric = new MeanMetric();
+    private final CounterMetric compressedMessages = new CounterMetric();
+    private final CounterMetric uncompressedBytes = new CounterMetric();
+    private final CounterMetric compressedBytes = new CounterMetric();
+    private final CounterMetric compressionTimeInNanos = new CounterMetric();
+    private final CounterMetric writeTimeInNanos = new CounterMetric();
 
     private final String nodeName;
     private final Version version;
+    private final Compression.Scheme actionCompressionScheme;
+    private final String[] compressedActions;
+    private final long minCompressedSize;
     private final ThreadPool threadPool;
     private final BigArrays bigArrays;
     private volatile TransportMessageListener messageListener = TransportMessageListener.NOOP_LISTENER;
 
     OutboundHandler(String nodeName, Version version, ThreadPool threadPool, BigArrays bigArrays) {
+        this(nodeName, version, Compression.Scheme.DEFLATE, Collections.emptyList(), ByteSizeValue.ZERO, threadPool, bigArrays);
+    }
+
+    /**
+     * @param actionCompressionScheme the scheme to compress requests of the given actions with
+     * @param compressedActions       patterns of the actions whose requests are compressed regardless of whether compression is
+     *                                enabled on the connection they are sent over
+     * @param minCompressedSize       the size from which on requests of the given actions are compressed, smaller requests of these
+     *                                actions are sent uncompressed unless compression is enabled on the connection
+     */
+    OutboundHandler(String nodeName, Version version, Compression.Scheme actionCompressionScheme, List<String> compressedActions,
+                    ByteSizeValue minCompressedSize, ThreadPool threadPool, BigArrays bigArrays) {
         this.nodeName = nodeName;
         this.version = version;
+        this.actionCompressionScheme = actionCompressionScheme;
+        this.compressedActions = compressedActions.toArray(Strings.EMPTY_ARRAY);
+        this.minCompressedSize = minCompressedSize.getBytes();
         this.threadPool = threadPool;
         this.bigArrays = bigArrays;
     }
@@ -76,10 +106,14 @@ final class OutboundHandler {
      */
     void sendRequest(final DiscoveryNode node, final TcpChannel channel, final long requestId, final String action,
                      final TransportRequest request, final TransportRequestOptions options, final Version channelVersion,
-                     final boolean compressRequest, final boolean isHandshake) throws IOException, TransportException {
+                     final @Nullable Compression.Scheme compressionScheme, final boolean isHandshake)
+        throws IOException, TransportException {
         Version version = Version.min(this.version, channelVersion);
-        OutboundMessage.Request message =
-            new OutboundMessage.Request(threadPool.getThreadContext(), request, version, action, requestId, isHandshake, compressRequest);
+        Compression.Scheme scheme = requestCompressionScheme(action, version, compressionScheme, isHandshake);
+        // the minimum size only applies to compression chosen by action, messages over compressed connections are always compressed
+        long minSize = compressionScheme == null && scheme != null ? minCompressedSize : 0;
+        OutboundMessage.Request message = new OutboundMessage.Request(threadPool.getThreadContext(), request, version, action,
+            requestId, isHandshake, scheme, minSize);
         ActionListener<Void> listener = ActionListener.wrap(() ->
             messageListener.onRequestSent(node, requestId, action, request, options));
         sendMessage(channel, message, listener);
@@ -92,10 +126,11 @@ final class OutboundHandler {
      * @see #sendErrorResponse(Version, TcpChannel, long, String, Exception) for sending error responses
      */
     void sendResponse(final Version nodeVersion, final TcpChannel channel, final long requestId, final String action,
-                      final TransportResponse response, final boolean compress, final boolean isHandshake) throws IOException {
+                      final TransportResponse response, final @Nullable Compression.Scheme compressionScheme,
+                      final boolean isHandshake) throws IOException {
         Version version = Version.min(this.version, nodeVersion);
         OutboundMessage.Response message = new OutboundMessage.Response(threadPool.getThreadContext(), response, version,
-            requestId, isHandshake, compress);
+            requestId, isHandshake, compressionScheme);
         ActionListener<Void> listener = ActionListener.wrap(() -> messageListener.onResponseSent(requestId, action, response));
         sendMessage(channel, message, listener);
     }
@@ -109,11 +144,25 @@ final class OutboundHandler {
         TransportAddress address = new TransportAddress(channel.getLocalAddress());
         RemoteTransportException tx = new RemoteTransportException(nodeName, address, action, error);
         OutboundMessage.Response message = new OutboundMessage.Response(threadPool.getThreadContext(), tx, version, requestId,
-            false, false);
+            false, null);
         ActionListener<Void> listener = ActionListener.wrap(() -> messageListener.onResponseSent(requestId, action, error));
         sendMessage(channel, message, listener);
     }
 
+    /**
+     * Returns the scheme to compress a request of the given action with. Requests sent over connections that don't enable compression
+     * are still compressed if their action matches one of the configured patterns, which allows compressing large indexing and
+     * recovery payloads without paying for compressing small latency-sensitive requests.
+     */
+    @Nullable
+    Compression.Scheme requestCompressionScheme(String action, Version version, @Nullable Compression.Scheme connectionScheme,
+                                                boolean isHandshake) {
+        if (connectionScheme != null || isHandshake || compressedActions.length == 0) {
+            return connectionScheme;
+        }
+        return Regex.simpleMatch(compressedActions, action) ? actionCompressionScheme.forVersion(version) : null;
+    }
+
     private void sendMessage(TcpChannel channel, OutboundMessage networkMessage, ActionListener<Void> listener) throws IOException {
         MessageSerializer serializer = new MessageSerializer(networkMessage, bigArrays);
         SendContext sendContext = new SendContext(channel, serializer, listener, serializer);
@@ -123,6 +172,7 @@ final class OutboundHandler {
     private void internalSend(TcpChannel channel, SendContext sendContext) throws IOException {
         channel.getChannelStats().markAccessed(threadPool.relativeTimeInMillis());
         BytesReference reference = sendContext.get();
+        sendContext.markSendStarted();
         try {
             channel.sendMessage(reference, sendContext);
         } catch (RuntimeException ex) {
@@ -137,6 +187,26 @@ final class OutboundHandler {
         return transmittedBytesMetric;
     }
 
+    long getCompressedMessages() {
+        return compressedMessages.count();
+    }
+
+    long getUncompressedBytes() {
+        return uncompressedBytes.count();
+    }
+
+    long getCompressedBytes() {
+        return compressedBytes.count();
+    }
+
+    long getCompressionTimeInNanos() {
+        return compressionTimeInNanos.count();
+    }
+
+    long getWriteTimeInNanos() {
+        return writeTimeInNanos.count();
+    }
+
     void setMessageListener(TransportMessageListener listener) {
         if (messageListener == TransportMessageListener.NOOP_LISTENER) {
             messageListener = listener;
@@ -145,7 +215,7 @@ final class OutboundHandler {
         }
     }
 
-    private static class MessageSerializer implements CheckedSupplier<BytesReference, IOException>, Releasable {
+    private class MessageSerializer implements CheckedSupplier<BytesReference, IOException>, Releasable {
 
         private final OutboundMessage message;
         private final BigArrays bigArrays;
@@ -159,7 +229,20 @@ final class OutboundHandler {
         @Override
         public BytesReference get() throws IOException {
             bytesStreamOutput = new ReleasableBytesStreamOutput(bigArrays);
-            return message.serialize(bytesStreamOutput);
+            if (message.getCompressionScheme() == null) {
+                return message.serialize(bytesStreamOutput);
+            }
+            final long startTimeInNanos = System.nanoTime();
+            final BytesReference reference = message.serialize(bytesStreamOutput);
+            if (message.getCompressionScheme() == null) {
+                // the message turned out to be too small to be compressed
+                return reference;
+            }
+            compressionTimeInNanos.inc(System.nanoTime() - startTimeInNanos);
+            compressedMessages.inc();
+            uncompressedBytes.inc(message.getUncompressedContentSize());
+            compressedBytes.inc(message.getCompressedContentSize());
+            return reference;
         }
 
         @Override
@@ -175,6 +258,7 @@ final class OutboundHandler {
         private final ActionListener<Void> listener;
         private final Releasable optionalReleasable;
         private long messageSize = -1;
+        private long sendStartNanos = -1;
 
         private SendContext(TcpChannel channel, CheckedSupplier<BytesReference, IOException> messageSupplier,
                             ActionListener<Void> listener) {
@@ -202,15 +286,31 @@ final class OutboundHandler {
             }
         }
 
+        /**
+         * Marks the message as pending on its channel until it has been written to the network or failed to be.
+         */
+        void markSendStarted() {
+            assert messageSize != -1 : "the message must be serialized before it is sent";
+            channel.getChannelStats().markSendStarted(messageSize);
+            sendStartNanos = System.nanoTime();
+        }
+
         @Override
         protected void innerOnResponse(Void v) {
             assert messageSize != -1 : "If onResponse is being called, the message should have been serialized";
             transmittedBytesMetric.inc(messageSize);
+            if (sendStartNanos != -1) {
+                writeTimeInNanos.inc(System.nanoTime() - sendStartNanos);
+                channel.getChannelStats().markSendCompleted(messageSize);
+            }
             closeAndCallback(() -> listener.onResponse(v));
         }
 
         @Override
         protected void innerOnFailure(Exception e) {
+            if (sendStartNanos != -1) {
+                channel.getChannelStats().markSendCompleted(messageSize);
+            }
             if (NetworkExceptionHelper.isCloseConnectionException(e)) {
                 logger.debug(() -> new ParameterizedMessage("send message failed [channel: {}]", channel), e);
             } else {
@@ -19,6 +19,7 @@
 package org.elasticsearch.transport;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
@@ -33,10 +34,17 @@ import java.io.IOException;
 abstract class OutboundMessage extends NetworkMessage {
 
     private final Writeable message;
+    private final long minCompressedSize;
+    private Compression.Scheme compressionScheme;
+    private long uncompressedContentSize = -1;
+    private long compressedContentSize = -1;
 
-    OutboundMessage(ThreadContext threadContext, Version version, byte status, long requestId, Writeable message) {
+    OutboundMessage(ThreadContext threadContext, Version version, byte status, long requestId, Writeable message,
+                    @Nullable Compression.Scheme compressionScheme, long minCompressedSize) {
         super(threadContext, version, status, requestId);
         this.message = message;
+        this.compressionScheme = TransportStatus.isCompress(status) ? compressionScheme : null;
+        this.minCompressedSize = minCompressedSize;
     }
 
     BytesReference serialize(BytesStreamOutput bytesStream) throws IOException {
@@ -54,12 +62,23 @@ abstract class OutboundMessage extends NetworkMessage {
             variableHeaderLength = Math.toIntExact(bytesStream.position() - preHeaderPosition);
         }
 
-        try (CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bytesStream, TransportStatus.isCompress(status))) {
+        final long preCompressionPosition = bytesStream.position();
+        byte status = this.status;
+        try (CompressibleBytesOutputStream stream =
+                 new CompressibleBytesOutputStream(bytesStream, compressionScheme, minCompressedSize)) {
             stream.setVersion(version);
             if (variableHeaderLength == -1) {
                 writeVariableHeader(stream);
             }
             reference = writeMessage(stream);
+            if (stream.isCompressed()) {
+                uncompressedContentSize = stream.getUncompressedBytes();
+                compressedContentSize = bytesStream.position() - preCompressionPosition;
+            } else if (compressionScheme != null) {
+                // the message is too small to be worth compressing
+                compressionScheme = null;
+                status = TransportStatus.setUncompressed(status);
+            }
         }
 
         bytesStream.seek(0);
@@ -72,6 +91,29 @@ abstract class OutboundMessage extends NetworkMessage {
         threadContext.writeTo(stream);
     }
 
+    /**
+     * Returns the scheme the content of this message is compressed with, or {@code null} if it isn't compressed. Messages that are
+     * smaller than the minimum compressed size are only known not to be compressed once they have been serialized.
+     */
+    @Nullable
+    Compression.Scheme getCompressionScheme() {
+        return compressionScheme;
+    }
+
+    /**
+     * Returns the size of the compressed part of this message before compression, or -1 if it isn't compressed or not serialized yet.
+     */
+    long getUncompressedContentSize() {
+        return uncompressedContentSize;
+    }
+
+    /**
+     * Returns the size of the compressed part of this message after compression, or -1 if it isn't compressed or not serialized yet.
+     */
+    long getCompressedContentSize() {
+        return compressedContentSize;
+    }
+
     protected BytesReference writeMessage(CompressibleBytesOutputStream stream) throws IOException {
         final BytesReference zeroCopyBuffer;
         if (message instanceof BytesTransportRequest) {
@@ -103,8 +145,14 @@ abstract class OutboundMessage extends NetworkMessage {
         private final String action;
 
         Request(ThreadContext threadContext, Writeable message, Version version, String action, long requestId,
-                boolean isHandshake, boolean compress) {
-            super(threadContext, version, setStatus(compress, isHandshake, message), requestId, message);
+                boolean isHandshake, @Nullable Compression.Scheme compressionScheme) {
+            this(threadContext, message, version, action, requestId, isHandshake, compressionScheme, 0);
+        }
+
+        Request(ThreadContext threadContext, Writeable message, Version version, String action, long requestId,
+                boolean isHandshake, @Nullable Compression.Scheme compressionScheme, long minCompressedSize) {
+            super(threadContext, version, setStatus(compressionScheme != null, isHandshake, message), requestId, message,
+                compressionScheme, minCompressedSize);
             this.action = action;
         }
 
@@ -134,8 +182,10 @@ abstract class OutboundMessage extends NetworkMessage {
 
     static class Response extends OutboundMessage {
 
-        Response(ThreadContext threadContext, Writeable message, Version version, long requestId, boolean isHandshake, boolean compress) {
-            super(threadContext, version, setStatus(compress, isHandshake, message), requestId, message);
+        Response(ThreadContext threadContext, Writeable message, Version version, long requestId, boolean isHandshake,
+                 @Nullable Compression.Scheme compressionScheme) {
+            super(threadContext, version, setStatus(compressionScheme != null, isHandshake, message), requestId, message,
+                compressionScheme, 0);
         }
 
         private static byte setStatus(boolean compress, boolean isHandshake, Writeable message) {
@@ -114,6 +114,13 @@ public final class RemoteClusterService extends RemoteClusterAware implements Cl
         key -> boolSetting(key, TransportSettings.TRANSPORT_COMPRESS, Setting.Property.Dynamic, Setting.Property.NodeScope),
         () -> SniffConnectionStrategy.REMOTE_CLUSTER_SEEDS);
 
+    public static final Setting.AffixSetting<Compression.Scheme> REMOTE_CLUSTER_COMPRESSION_SCHEME = Setting.affixKeySetting(
+        "cluster.remote.",
+        "transport.compression_scheme",
+        key -> new Setting<>(key, TransportSettings.TRANSPORT_COMPRESSION_SCHEME, Compression.Scheme::parse,
+            Setting.Property.Dynamic, Setting.Property.NodeScope),
+        () -> SniffConnectionStrategy.REMOTE_CLUSTER_SEEDS);
+
     private final TransportService transportService;
     private final Map<String, RemoteClusterConnection> remoteClusters = ConcurrentCollections.newConcurrentMap();
 
@@ -25,6 +25,7 @@ import org.elasticsearch.common.network.CloseableChannel;
 import org.elasticsearch.common.unit.TimeValue;
 
 import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
@@ -85,6 +86,8 @@ public interface TcpChannel extends CloseableChannel {
     class ChannelStats {
 
         private volatile long lastAccessedTime;
+        private final AtomicLong pendingMessages = new AtomicLong();
+        private final AtomicLong pendingBytes = new AtomicLong();
 
         public ChannelStats() {
             lastAccessedTime = TimeValue.nsecToMSec(System.nanoTime());
@@ -97,5 +100,29 @@ public interface TcpChannel extends CloseableChannel {
         long lastAccessedTime() {
             return lastAccessedTime;
         }
+
+        void markSendStarted(long messageBytes) {
+            pendingMessages.incrementAndGet();
+            pendingBytes.addAndGet(messageBytes);
+        }
+
+        void markSendCompleted(long messageBytes) {
+            pendingMessages.decrementAndGet();
+            pendingBytes.addAndGet(-messageBytes);
+        }
+
+        /**
+         * Returns the number of messages that have been handed to the channel but haven't been written to the network yet.
+         */
+        long pendingMessages() {
+            return pendingMessages.get();
+        }
+
+        /**
+         * Returns the size of the messages that have been handed to the channel but haven't been written to the network yet.
+         */
+        long pendingBytes() {
+            return pendingBytes.get();
+        }
     }
 }
@@ -115,6 +115,7 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
     private final ConcurrentMap<String, BoundTransportAddress> profileBoundAddresses = newConcurrentMap();
     private final Map<String, List<TcpServerChannel>> serverChannels = newConcurrentMap();
     private final Set<TcpChannel> acceptedChannels = ConcurrentCollections.newConcurrentSet();
+    private final Set<TcpChannel> outboundChannels = ConcurrentCollections.newConcurrentSet();
 
     // this lock is here to make sure we close this transport and disconnect all the client nodes
     // connections while no connect operations is going on
@@ -137,13 +138,15 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         String nodeName = Node.NODE_NAME_SETTING.get(settings);
         BigArrays bigArrays = new BigArrays(pageCacheRecycler, circuitBreakerService, CircuitBreaker.IN_FLIGHT_REQUESTS);
 
-        this.outboundHandler = new OutboundHandler(nodeName, version, threadPool, bigArrays);
+        this.outboundHandler = new OutboundHandler(nodeName, version, TransportSettings.TRANSPORT_COMPRESSION_SCHEME.get(settings),
+            TransportSettings.TRANSPORT_COMPRESSION_ACTIONS.get(settings), TransportSettings.TRANSPORT_COMPRESSION_MIN_SIZE.get(settings),
+            threadPool, bigArrays);
         this.handshaker = new TransportHandshaker(ClusterName.CLUSTER_NAME_SETTING.get(settings), version, threadPool,
             (node, channel, requestId, v) -> outboundHandler.sendRequest(node, channel, requestId,
                 TransportHandshaker.HANDSHAKE_ACTION_NAME, new TransportHandshaker.HandshakeRequest(version),
-                TransportRequestOptions.EMPTY, v, false, true),
+                TransportRequestOptions.EMPTY, v, null, true),
             (v, channel, response, requestId) -> outboundHandler.sendResponse(v, channel, requestId,
-                TransportHandshaker.HANDSHAKE_ACTION_NAME, response, false, true));
+                TransportHandshaker.HANDSHAKE_ACTION_NAME, response, null, true));
         InboundMessage.Reader reader = new InboundMessage.Reader(version, namedWriteableRegistry, threadPool.getThreadContext());
         this.keepAlive = new TransportKeepAlive(threadPool, this.outboundHandler::sendBytes);
         this.inboundHandler = new InboundHandler(threadPool, outboundHandler, reader, circuitBreakerService, handshaker,
@@ -175,7 +178,7 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         private final List<TcpChannel> channels;
         private final DiscoveryNode node;
         private final Version version;
-        private final boolean compress;
+        private final Compression.Scheme compressionScheme;
         private final AtomicBoolean isClosing = new AtomicBoolean(false);
 
         NodeChannels(DiscoveryNode node, List<TcpChannel> channels, ConnectionProfile connectionProfile, Version handshakeVersion) {
@@ -189,7 +192,7 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
                     typeMapping.put(type, handle);
             }
             version = handshakeVersion;
-            compress = connectionProfile.getCompressionEnabled();
+            compressionScheme = compressionScheme(connectionProfile, handshakeVersion);
         }
 
         @Override
@@ -234,10 +237,23 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
                 throw new NodeNotConnectedException(node, "connection already closed");
             }
             TcpChannel channel = channel(options.type());
-            outboundHandler.sendRequest(node, channel, requestId, action, request, options, getVersion(), compress, false);
+            outboundHandler.sendRequest(node, channel, requestId, action, request, options, getVersion(), compressionScheme, false);
         }
     }
 
+    /**
+     * Returns the scheme to compress requests sent over a connection with the given profile with, or {@code null} if they shouldn't
+     * be compressed. Schemes that the remote node doesn't support according to the version it reported in the handshake fall back to
+     * DEFLATE.
+     */
+    static Compression.Scheme compressionScheme(ConnectionProfile connectionProfile, Version handshakeVersion) {
+        if (connectionProfile.getCompressionEnabled() == false) {
+            return null;
+        }
+        final Compression.Scheme scheme = connectionProfile.getCompressionScheme();
+        return scheme == null ? Compression.Scheme.DEFLATE : scheme.forVersion(handshakeVersion);
+    }
+
     // This allows transport implementations to potentially override specific connection profiles. This
     // primarily exists for the test implementations.
     protected ConnectionProfile maybeOverrideConnectionProfile(ConnectionProfile connectionProfile) {
@@ -273,6 +289,8 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
                 TcpChannel channel = initiateChannel(node);
                 logger.trace(() -> new ParameterizedMessage("Tcp transport channel opened: {}", channel));
                 channels.add(channel);
+                outboundChannels.add(channel);
+                channel.addCloseListener(ActionListener.wrap(() -> outboundChannels.remove(channel)));
             } catch (ConnectTransportException e) {
                 CloseableChannel.closeChannels(channels, false);
                 listener.onFailure(e);
@@ -867,8 +885,22 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
     public final TransportStats getStats() {
         MeanMetric transmittedBytes = outboundHandler.getTransmittedBytes();
         MeanMetric readBytes = inboundHandler.getReadBytes();
+        long pendingMessages = 0;
+        long pendingBytes = 0;
+        long maxChannelPendingBytes = 0;
+        for (Set<TcpChannel> channels : Arrays.asList(acceptedChannels, outboundChannels)) {
+            for (TcpChannel channel : channels) {
+                final TcpChannel.ChannelStats channelStats = channel.getChannelStats();
+                final long channelPendingBytes = channelStats.pendingBytes();
+                pendingMessages += channelStats.pendingMessages();
+                pendingBytes += channelPendingBytes;
+                maxChannelPendingBytes = Math.max(maxChannelPendingBytes, channelPendingBytes);
+            }
+        }
         return new TransportStats(acceptedChannels.size(), readBytes.count(), readBytes.sum(), transmittedBytes.count(),
-            transmittedBytes.sum());
+            transmittedBytes.sum(), outboundHandler.getCompressedMessages(), outboundHandler.getUncompressedBytes(),
+            outboundHandler.getCompressedBytes(), outboundHandler.getCompressionTimeInNanos(), pendingMessages, pendingBytes,
+            maxChannelPendingBytes, outboundHandler.getWriteTimeInNanos());
     }
 
     /**
@@ -20,7 +20,10 @@
 package org.elasticsearch.transport;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 
 import java.io.IOException;
@@ -36,10 +39,12 @@ public final class TcpTransportChannel implements TransportChannel {
     private final Version version;
     private final CircuitBreakerService breakerService;
     private final long reservedBytes;
-    private final boolean compressResponse;
+    private final Compression.Scheme compressionScheme;
+    // the network buffer that the request shares bytes with, released together with the reserved bytes
+    private Releasable retainedBytes;
 
     TcpTransportChannel(OutboundHandler outboundHandler, TcpChannel channel, String action, long requestId, Version version,
-                        CircuitBreakerService breakerService, long reservedBytes, boolean compressResponse) {
+                        CircuitBreakerService breakerService, long reservedBytes, @Nullable Compression.Scheme compressionScheme) {
         this.version = version;
         this.channel = channel;
         this.outboundHandler = outboundHandler;
@@ -47,7 +52,25 @@ public final class TcpTransportChannel implements TransportChannel {
         this.requestId = requestId;
         this.breakerService = breakerService;
         this.reservedBytes = reservedBytes;
-        this.compressResponse = compressResponse;
+        this.compressionScheme = compressionScheme;
+    }
+
+    /**
+     * Releases the given releasable once the response has been sent, which is when the handler is done with the request.
+     */
+    void releaseOnResponse(Releasable releasable) {
+        assert retainedBytes == null : "already holding on to retained bytes";
+        retainedBytes = releasable;
+    }
+
+    /**
+     * Returns a channel to respond to a request that has been received as part of the batch request this channel responds to. Its
+     * response is sent over the same network channel under the ID of the batched request as soon as it is ready, independently of the
+     * responses to the other requests of the batch.
+     */
+    TcpTransportChannel newBatchedRequestChannel(String batchedAction, long batchedRequestId) {
+        return new TcpTransportChannel(outboundHandler, channel, batchedAction, batchedRequestId, version, breakerService, 0,
+            compressionScheme);
     }
 
     @Override
@@ -58,7 +81,7 @@ public final class TcpTransportChannel implements TransportChannel {
     @Override
     public void sendResponse(TransportResponse response) throws IOException {
         try {
-            outboundHandler.sendResponse(version, channel, requestId, action, response, compressResponse, false);
+            outboundHandler.sendResponse(version, channel, requestId, action, response, compressionScheme, false);
         } finally {
             release(false);
         }
@@ -78,7 +101,11 @@ public final class TcpTransportChannel implements TransportChannel {
     private void release(boolean isExceptionResponse) {
         if (released.compareAndSet(false, true)) {
             assert (releaseBy = new Exception()) != null; // easier to debug if it's already closed
-            breakerService.getBreaker(CircuitBreaker.IN_FLIGHT_REQUESTS).addWithoutBreaking(-reservedBytes);
+            try {
+                breakerService.getBreaker(CircuitBreaker.IN_FLIGHT_REQUESTS).addWithoutBreaking(-reservedBytes);
+            } finally {
+                Releasables.close(retainedBytes);
+            }
         } else if (isExceptionResponse == false) {
             // only fail if we are not sending an error - we might send the error triggered by the previous
             // sendResponse call
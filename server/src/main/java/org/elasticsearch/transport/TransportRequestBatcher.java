@@ -0,0 +1,454 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.regex.Regex;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.tasks.TaskManager;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Coalesces requests that are sent to the same node for the same action within a short window into a single batch request, which the
+ * receiving node unpacks and handles as if the requests had been sent one by one. This saves the per-message overhead of actions that
+ * send many tiny requests to the same node at once, like global checkpoint syncs.
+ *
+ * Batched requests keep their own request IDs and response handlers, so timeouts, node disconnections and responses are tracked per
+ * request as usual. Each batched request carries the headers of the thread context it has been sent in. The receiving node responds to
+ * each batched request on its own as soon as it has been handled, so a slow request doesn't hold back the responses to the others, and
+ * responds to the batch itself once all of its requests have been responded to.
+ */
+final class TransportRequestBatcher {
+
+    private static final Logger logger = LogManager.getLogger(TransportRequestBatcher.class);
+
+    static final String BATCH_ACTION_NAME = "internal:transport/batch";
+    static final Version BATCH_VERSION = Version.V_8_0_0;
+
+    private final ThreadPool threadPool;
+    private final Transport transport;
+    private final TransportMessageListener messageListener;
+    private final String[] actions;
+    private final TimeValue window;
+    private final int maxRequests;
+    private final ConcurrentMap<BatchKey, PendingBatch> pendingBatches = ConcurrentCollections.newConcurrentMap();
+
+    TransportRequestBatcher(Settings settings, ThreadPool threadPool, Transport transport, TransportMessageListener messageListener) {
+        this.threadPool = threadPool;
+        this.transport = transport;
+        this.messageListener = messageListener;
+        this.actions = TransportSettings.TRANSPORT_BATCH_ACTIONS.get(settings).toArray(Strings.EMPTY_ARRAY);
+        this.window = TransportSettings.TRANSPORT_BATCH_WINDOW.get(settings);
+        this.maxRequests = TransportSettings.TRANSPORT_BATCH_MAX_REQUESTS.get(settings);
+    }
+
+    /**
+     * Returns the handler for batch requests, which dispatches every batched request to the handler of its action.
+     */
+    RequestHandlerRegistry<BatchRequest> newBatchRequestHandler(TaskManager taskManager) {
+        return new RequestHandlerRegistry<>(BATCH_ACTION_NAME, BatchRequest::new, taskManager,
+            (request, channel, task) -> handleBatch(request, channel), ThreadPool.Names.SAME, false, false);
+    }
+
+    /**
+     * Returns whether requests of the given action that are sent over the given connection are batched.
+     */
+    boolean isBatched(Transport.Connection connection, String action) {
+        return window.nanos() > 0 && actions.length > 0 && connection.getVersion().onOrAfter(BATCH_VERSION)
+            && Regex.simpleMatch(actions, action);
+    }
+
+    /**
+     * Adds the given request to the batch of requests that are sent to the node of the given connection. The request must have been
+     * registered with the response handlers under the given request ID already, and is failed through its response handler if the
+     * batch can't be sent.
+     */
+    void add(Transport.Connection connection, long requestId, String action, TransportRequest request,
+             TransportRequestOptions options) throws IOException {
+        final BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(connection.getVersion());
+        threadPool.getThreadContext().writeTo(out);
+        request.writeTo(out);
+        final BatchedRequest batchedRequest = new BatchedRequest(requestId, out.bytes(), request, options);
+        final BatchKey key = new BatchKey(connection, action, options.type());
+        while (true) {
+            final PendingBatch batch = pendingBatches.computeIfAbsent(key, PendingBatch::new);
+            if (batch.add(batchedRequest)) {
+                return;
+            }
+            // the batch has been sent concurrently, start a new one
+        }
+    }
+
+    private void sendBatch(BatchKey key, List<BatchedRequest> requests) {
+        final Transport.Connection connection = key.connection;
+        final DiscoveryNode node = connection.getNode();
+        final long batchRequestId = transport.getResponseHandlers().add(
+            new Transport.ResponseContext<>(new BatchResponseHandler(requests), connection, BATCH_ACTION_NAME));
+        // the batched requests carry their own headers, the batch itself is sent without any
+        try (ThreadContext.StoredContext ignored = threadPool.getThreadContext().stashContext()) {
+            connection.sendRequest(batchRequestId, BATCH_ACTION_NAME, new BatchRequest(key.action, requests),
+                TransportRequestOptions.builder().withType(key.type).build());
+        } catch (Exception e) {
+            if (transport.getResponseHandlers().remove(batchRequestId) != null) {
+                failRequests(requests, request -> new SendRequestTransportException(node, key.action, e));
+            }
+            return;
+        }
+        for (BatchedRequest request : requests) {
+            messageListener.onRequestSent(node, request.requestId, key.action, request.request, request.options);
+        }
+    }
+
+    /**
+     * Fails the given requests that are still waiting for a response. This happens on the generic thread pool since the requests may
+     * have been sent from the thread that fails them, and their handlers don't expect to be called back from within the sending call.
+     */
+    private void failRequests(List<BatchedRequest> requests, Function<BatchedRequest, TransportException> failure) {
+        for (BatchedRequest request : requests) {
+            final Transport.ResponseContext<?> context = transport.getResponseHandlers().remove(request.requestId);
+            if (context != null) {
+                final TransportException exception = failure.apply(request);
+                threadPool.generic().execute(new AbstractRunnable() {
+                    @Override
+                    public void onRejection(Exception e) {
+                        // if we get rejected during node shutdown we don't wanna bubble it up
+                        logger.debug(() -> new ParameterizedMessage(
+                            "failed to notify response handler on rejection, action: {}", context.action()), e);
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        logger.warn(() -> new ParameterizedMessage(
+                            "failed to notify response handler on exception, action: {}", context.action()), e);
+                    }
+
+                    @Override
+                    protected void doRun() {
+                        context.handler().handleException(exception);
+                    }
+                });
+            }
+        }
+    }
+
+    private void handleBatch(BatchRequest batch, TransportChannel channel) {
+        final RequestHandlerRegistry<? extends TransportRequest> reg = transport.getRequestHandler(batch.action);
+        if (reg == null) {
+            throw new ActionNotFoundTransportException(batch.action);
+        }
+        // batched requests are responded to over the network channel of the batch through channels of their own, which lets security
+        // filters inspect the network channel of every batched request just like the one of any other request
+        final TransportChannel networkChannel =
+            channel instanceof TaskTransportChannel ? ((TaskTransportChannel) channel).getChannel() : channel;
+        if (networkChannel instanceof TcpTransportChannel == false) {
+            throw new IllegalStateException("batch requests must be received over a transport channel, but got [" + networkChannel + "]");
+        }
+        // the batch is responded to once all of its requests have been responded to, which releases the network buffer it was read from
+        final CountDown countDown = new CountDown(batch.requests.size());
+        for (BatchedRequest request : batch.requests) {
+            final TcpTransportChannel batchedRequestChannel =
+                ((TcpTransportChannel) networkChannel).newBatchedRequestChannel(batch.action, request.requestId);
+            batchedRequestChannel.releaseOnResponse(() -> {
+                if (countDown.countDown()) {
+                    sendBatchResponse(channel, batch);
+                }
+            });
+            handleBatchedRequest(reg, batch, request, batchedRequestChannel);
+        }
+    }
+
+    private void sendBatchResponse(TransportChannel channel, BatchRequest batch) {
+        try (ThreadContext.StoredContext ignored = threadPool.getThreadContext().stashContext()) {
+            channel.sendResponse(TransportResponse.Empty.INSTANCE);
+        } catch (Exception e) {
+            logger.warn(() -> new ParameterizedMessage("failed to send response to [{}]", batch), e);
+        }
+    }
+
+    private <T extends TransportRequest> void handleBatchedRequest(RequestHandlerRegistry<T> reg, BatchRequest batch,
+                                                                   BatchedRequest batchedRequest, TransportChannel channel) {
+        final ThreadContext threadContext = threadPool.getThreadContext();
+        final Object remoteAddress = threadContext.getTransient("_remote_address");
+        try (ThreadContext.StoredContext ignored = threadContext.stashContext()) {
+            final T request;
+            try {
+                final StreamInput in = batch.streamInput(batchedRequest.payload);
+                threadContext.putHeader(ThreadContext.readHeadersFromStream(in).v1());
+                if (remoteAddress != null) {
+                    threadContext.putTransient("_remote_address", remoteAddress);
+                }
+                request = reg.newRequest(in);
+                request.remoteAddress(batch.remoteAddress());
+                if (in.read() != -1) {
+                    throw new IllegalStateException("batched request [" + batchedRequest.requestId + "] not fully read");
+                }
+            } catch (Exception e) {
+                sendFailure(channel, batch.action, new TransportSerializationException(
+                    "Failed to deserialize batched request of action [" + batch.action + "]", e));
+                return;
+            }
+            if (ThreadPool.Names.SAME.equals(reg.getExecutor())) {
+                try {
+                    reg.processMessageReceived(request, channel);
+                } catch (Exception e) {
+                    sendFailure(channel, batch.action, e);
+                }
+            } else {
+                threadPool.executor(reg.getExecutor()).execute(new AbstractRunnable() {
+                    @Override
+                    protected void doRun() throws Exception {
+                        reg.processMessageReceived(request, channel);
+                    }
+
+                    @Override
+                    public boolean isForceExecution() {
+                        return reg.isForceExecution();
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        sendFailure(channel, batch.action, e);
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "processing of batched [" + batchedRequest.requestId + "][" + batch.action + "]: " + request;
+                    }
+                });
+            }
+        }
+    }
+
+    private static void sendFailure(TransportChannel channel, String action, Exception e) {
+        try {
+            channel.sendResponse(e);
+        } catch (Exception inner) {
+            inner.addSuppressed(e);
+            logger.warn(() -> new ParameterizedMessage("failed to notify channel of error message for action [{}]", action), inner);
+        }
+    }
+
+    private static final class BatchKey {
+        private final Transport.Connection connection;
+        private final String action;
+        private final TransportRequestOptions.Type type;
+
+        BatchKey(Transport.Connection connection, String action, TransportRequestOptions.Type type) {
+            this.connection = connection;
+            this.action = action;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final BatchKey that = (BatchKey) o;
+            return connection == that.connection && action.equals(that.action) && type == that.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(connection), action, type);
+        }
+    }
+
+    private final class PendingBatch {
+        private final BatchKey key;
+        private final List<BatchedRequest> requests = new ArrayList<>();
+        private boolean sent;
+
+        PendingBatch(BatchKey key) {
+            this.key = key;
+        }
+
+        /**
+         * Adds the given request to this batch, and returns {@code false} if the batch has been sent already.
+         */
+        boolean add(BatchedRequest request) {
+            final boolean first;
+            final boolean full;
+            synchronized (this) {
+                if (sent) {
+                    return false;
+                }
+                requests.add(request);
+                first = requests.size() == 1;
+                full = requests.size() >= maxRequests;
+            }
+            if (full) {
+                send();
+            } else if (first) {
+                try {
+                    threadPool.schedule(this::send, window, ThreadPool.Names.SAME);
+                } catch (EsRejectedExecutionException e) {
+                    // the scheduler is shutting down, sending the batch fails its requests
+                    send();
+                }
+            }
+            return true;
+        }
+
+        void send() {
+            synchronized (this) {
+                if (sent) {
+                    return;
+                }
+                sent = true;
+            }
+            pendingBatches.remove(key, this);
+            sendBatch(key, requests);
+        }
+    }
+
+    private final class BatchResponseHandler implements TransportResponseHandler<TransportResponse.Empty> {
+
+        private final List<BatchedRequest> requests;
+
+        BatchResponseHandler(List<BatchedRequest> requests) {
+            this.requests = requests;
+        }
+
+        @Override
+        public TransportResponse.Empty read(StreamInput in) {
+            return TransportResponse.Empty.INSTANCE;
+        }
+
+        @Override
+        public void handleResponse(TransportResponse.Empty response) {
+            // the batched requests have been responded to over the same channel before the batch, so none of them should be left
+            failRequests(requests, request -> new TransportException("no response received for batched request [" + request.requestId
+                + "]"));
+        }
+
+        @Override
+        public void handleException(TransportException exp) {
+            failRequests(requests, request -> exp);
+        }
+
+        @Override
+        public String executor() {
+            return ThreadPool.Names.SAME;
+        }
+    }
+
+    static final class BatchRequest extends TransportRequest {
+
+        private final String action;
+        private final List<BatchedRequest> requests;
+        private final Version version;
+        private final NamedWriteableRegistry namedWriteableRegistry;
+
+        BatchRequest(String action, List<BatchedRequest> requests) {
+            this.action = action;
+            this.requests = requests;
+            this.version = null;
+            this.namedWriteableRegistry = null;
+        }
+
+        BatchRequest(StreamInput in) throws IOException {
+            super(in);
+            action = in.readString();
+            requests = in.readList(BatchedRequest::new);
+            version = in.getVersion();
+            namedWriteableRegistry = in.namedWriteableRegistry();
+        }
+
+        StreamInput streamInput(BytesReference payload) throws IOException {
+            final StreamInput in = namedWriteableRegistry == null ? payload.streamInput()
+                : new NamedWriteableAwareStreamInput(payload.streamInput(), namedWriteableRegistry);
+            in.setVersion(version);
+            return in;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeString(action);
+            out.writeList(requests);
+        }
+
+        @Override
+        public String toString() {
+            return "batch of [" + requests.size() + "][" + action + "] requests";
+        }
+    }
+
+    static final class BatchedRequest implements Writeable {
+
+        private final long requestId;
+        // the headers of the thread context the request has been sent in, followed by the request
+        private final BytesReference payload;
+        // the request itself and the options it has been sent with, only available on the sending node
+        private final TransportRequest request;
+        private final TransportRequestOptions options;
+
+        BatchedRequest(long requestId, BytesReference payload, TransportRequest request, TransportRequestOptions options) {
+            this.requestId = requestId;
+            this.payload = payload;
+            this.request = request;
+            this.options = options;
+        }
+
+        BatchedRequest(StreamInput in) throws IOException {
+            requestId = in.readLong();
+            // the payload is released along with the batch once all of its requests have been handled
+            payload = in.readReleasableBytesReference();
+            request = null;
+            options = null;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeLong(requestId);
+            out.writeBytesReference(payload);
+        }
+    }
+}
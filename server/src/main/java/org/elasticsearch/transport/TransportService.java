@@ -85,6 +85,7 @@ public class TransportService extends AbstractLifecycleComponent implements Tran
     private final boolean connectToRemoteCluster;
     private final Transport.ResponseHandlers responseHandlers;
     private final TransportInterceptor interceptor;
+    private final TransportRequestBatcher requestBatcher;
 
     // An LRU (don't really care about concurrency here) that holds the latest timed out requests so if they
     // do show up, we can print more descriptive information about them
@@ -165,6 +166,7 @@ public class TransportService extends AbstractLifecycleComponent implements Tran
         this.connectToRemoteCluster = RemoteClusterService.ENABLE_REMOTE_CLUSTERS.get(settings);
         remoteClusterService = new RemoteClusterService(settings, this);
         responseHandlers = transport.getResponseHandlers();
+        requestBatcher = new TransportRequestBatcher(settings, threadPool, transport, this);
         if (clusterSettings != null) {
             clusterSettings.addSettingsUpdateConsumer(TransportSettings.TRACE_LOG_INCLUDE_SETTING, this::setTracerLogInclude);
             clusterSettings.addSettingsUpdateConsumer(TransportSettings.TRACE_LOG_EXCLUDE_SETTING, this::setTracerLogExclude);
@@ -179,6 +181,8 @@ public class TransportService extends AbstractLifecycleComponent implements Tran
             HandshakeRequest::new,
             (request, channel, task) -> channel.sendResponse(
                 new HandshakeResponse(localNode, clusterName, localNode.getVersion())));
+        // batched requests are intercepted individually when they are unpacked, so the batch handler itself isn't intercepted
+        transport.registerRequestHandler(requestBatcher.newBatchRequestHandler(taskManager));
     }
 
     public RemoteClusterService getRemoteClusterService() {
@@ -633,7 +637,11 @@ public class TransportService extends AbstractLifecycleComponent implements Tran
                 assert options.timeout() != null;
                 timeoutHandler.scheduleTimeout(options.timeout());
             }
-            connection.sendRequest(requestId, action, request, options); // local node optimization happens upstream
+            if (connection != localNodeConnection && requestBatcher.isBatched(connection, action)) {
+                requestBatcher.add(connection, requestId, action, request, options);
+            } else {
+                connection.sendRequest(requestId, action, request, options); // local node optimization happens upstream
+            }
         } catch (final Exception e) {
             // usually happen either because we failed to connect to the node
             // or because we failed serializing the message
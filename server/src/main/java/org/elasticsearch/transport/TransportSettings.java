@@ -21,10 +21,12 @@ package org.elasticsearch.transport;
 import org.elasticsearch.common.network.NetworkService;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
@@ -32,6 +34,7 @@ import java.util.function.Function;
 import static java.util.Collections.emptyList;
 import static org.elasticsearch.common.settings.Setting.affixKeySetting;
 import static org.elasticsearch.common.settings.Setting.boolSetting;
+import static org.elasticsearch.common.settings.Setting.byteSizeSetting;
 import static org.elasticsearch.common.settings.Setting.intSetting;
 import static org.elasticsearch.common.settings.Setting.listSetting;
 import static org.elasticsearch.common.settings.Setting.timeSetting;
@@ -62,6 +65,24 @@ public final class TransportSettings {
         key -> intSetting(key, -1, -1, Setting.Property.NodeScope));
     public static final Setting<Boolean> TRANSPORT_COMPRESS =
         boolSetting("transport.compress", false, Setting.Property.NodeScope);
+    public static final Setting<Compression.Scheme> TRANSPORT_COMPRESSION_SCHEME =
+        new Setting<>("transport.compression_scheme", Compression.Scheme.DEFLATE.toString(), Compression.Scheme::parse,
+            Setting.Property.NodeScope);
+    // requests of these actions are compressed even if transport.compress is disabled, none by default
+    public static final Setting<List<String>> TRANSPORT_COMPRESSION_ACTIONS =
+        listSetting("transport.compression_actions", Collections.emptyList(), Function.identity(), Setting.Property.NodeScope);
+    // requests of transport.compression_actions smaller than this are sent uncompressed
+    public static final Setting<ByteSizeValue> TRANSPORT_COMPRESSION_MIN_SIZE =
+        byteSizeSetting("transport.compression_min_size", new ByteSizeValue(1, ByteSizeUnit.KB), Setting.Property.NodeScope);
+    // requests of these actions are small and sent in bursts to the same node, so they are coalesced into batches
+    public static final Setting<List<String>> TRANSPORT_BATCH_ACTIONS =
+        listSetting("transport.batch.actions", Arrays.asList("indices:admin/seq_no/global_checkpoint_sync*",
+            "indices:admin/seq_no/retention_lease_background_sync*"), Function.identity(), Setting.Property.NodeScope);
+    // how long a batch waits for more requests before it is sent, a zero window disables batching
+    public static final Setting<TimeValue> TRANSPORT_BATCH_WINDOW =
+        timeSetting("transport.batch.window", new TimeValue(100, TimeUnit.MICROSECONDS), TimeValue.ZERO, Setting.Property.NodeScope);
+    public static final Setting<Integer> TRANSPORT_BATCH_MAX_REQUESTS =
+        intSetting("transport.batch.max_requests", 128, 1, Setting.Property.NodeScope);
     // the scheduled internal ping interval setting, defaults to disabled (-1)
     public static final Setting<TimeValue> PING_SCHEDULE =
         timeSetting("transport.ping_schedule", TimeValue.timeValueSeconds(-1), Setting.Property.NodeScope);
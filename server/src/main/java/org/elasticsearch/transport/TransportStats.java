@@ -19,15 +19,18 @@
 
 package org.elasticsearch.transport;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContent.Params;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 public class TransportStats implements Writeable, ToXContentFragment {
 
@@ -36,13 +39,41 @@ public class TransportStats implements Writeable, ToXContentFragment {
     private final long rxSize;
     private final long txCount;
     private final long txSize;
+    private final long txCompressedCount;
+    private final long txUncompressedSize;
+    private final long txCompressedSize;
+    private final long txCompressionTimeInNanos;
+    private final long txPendingCount;
+    private final long txPendingSize;
+    private final long txMaxChannelPendingSize;
+    private final long txWriteTimeInNanos;
 
     public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize) {
+        this(serverOpen, rxCount, rxSize, txCount, txSize, 0, 0, 0, 0);
+    }
+
+    public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize, long txCompressedCount,
+                          long txUncompressedSize, long txCompressedSize, long txCompressionTimeInNanos) {
+        this(serverOpen, rxCount, rxSize, txCount, txSize, txCompressedCount, txUncompressedSize, txCompressedSize,
+            txCompressionTimeInNanos, 0, 0, 0, 0);
+    }
+
+    public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize, long txCompressedCount,
+                          long txUncompressedSize, long txCompressedSize, long txCompressionTimeInNanos, long txPendingCount,
+                          long txPendingSize, long txMaxChannelPendingSize, long txWriteTimeInNanos) {
         this.serverOpen = serverOpen;
         this.rxCount = rxCount;
         this.rxSize = rxSize;
         this.txCount = txCount;
         this.txSize = txSize;
+        this.txCompressedCount = txCompressedCount;
+        this.txUncompressedSize = txUncompressedSize;
+        this.txCompressedSize = txCompressedSize;
+        this.txCompressionTimeInNanos = txCompressionTimeInNanos;
+        this.txPendingCount = txPendingCount;
+        this.txPendingSize = txPendingSize;
+        this.txMaxChannelPendingSize = txMaxChannelPendingSize;
+        this.txWriteTimeInNanos = txWriteTimeInNanos;
     }
 
     public TransportStats(StreamInput in) throws IOException {
@@ -51,6 +82,25 @@ public class TransportStats implements Writeable, ToXContentFragment {
         rxSize = in.readVLong();
         txCount = in.readVLong();
         txSize = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            txCompressedCount = in.readVLong();
+            txUncompressedSize = in.readVLong();
+            txCompressedSize = in.readVLong();
+            txCompressionTimeInNanos = in.readVLong();
+            txPendingCount = in.readVLong();
+            txPendingSize = in.readVLong();
+            txMaxChannelPendingSize = in.readVLong();
+            txWriteTimeInNanos = in.readVLong();
+        } else {
+            txCompressedCount = 0;
+            txUncompressedSize = 0;
+            txCompressedSize = 0;
+            txCompressionTimeInNanos = 0;
+            txPendingCount = 0;
+            txPendingSize = 0;
+            txMaxChannelPendingSize = 0;
+            txWriteTimeInNanos = 0;
+        }
     }
 
     @Override
@@ -60,6 +110,16 @@ public class TransportStats implements Writeable, ToXContentFragment {
         out.writeVLong(rxSize);
         out.writeVLong(txCount);
         out.writeVLong(txSize);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeVLong(txCompressedCount);
+            out.writeVLong(txUncompressedSize);
+            out.writeVLong(txCompressedSize);
+            out.writeVLong(txCompressionTimeInNanos);
+            out.writeVLong(txPendingCount);
+            out.writeVLong(txPendingSize);
+            out.writeVLong(txMaxChannelPendingSize);
+            out.writeVLong(txWriteTimeInNanos);
+        }
     }
 
     public long serverOpen() {
@@ -102,6 +162,63 @@ public class TransportStats implements Writeable, ToXContentFragment {
         return txSize();
     }
 
+    /**
+     * Returns the number of sent messages whose content was compressed.
+     */
+    public long getTxCompressedCount() {
+        return txCompressedCount;
+    }
+
+    /**
+     * Returns the size of the compressed content of sent messages before compression.
+     */
+    public ByteSizeValue getTxUncompressedSize() {
+        return new ByteSizeValue(txUncompressedSize);
+    }
+
+    /**
+     * Returns the size of the compressed content of sent messages after compression.
+     */
+    public ByteSizeValue getTxCompressedSize() {
+        return new ByteSizeValue(txCompressedSize);
+    }
+
+    /**
+     * Returns the time spent serializing and compressing the content of sent messages that were compressed.
+     */
+    public TimeValue getTxCompressionTime() {
+        return new TimeValue(txCompressionTimeInNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the number of messages that have been handed to a channel but haven't been written to the network yet.
+     */
+    public long getTxPendingCount() {
+        return txPendingCount;
+    }
+
+    /**
+     * Returns the size of the messages that have been handed to a channel but haven't been written to the network yet.
+     */
+    public ByteSizeValue getTxPendingSize() {
+        return new ByteSizeValue(txPendingSize);
+    }
+
+    /**
+     * Returns the size of the messages that are pending on the channel with the most pending bytes, which shows whether the
+     * pending messages pile up on a single slow connection.
+     */
+    public ByteSizeValue getTxMaxChannelPendingSize() {
+        return new ByteSizeValue(txMaxChannelPendingSize);
+    }
+
+    /**
+     * Returns the total time sent messages spent between being handed to their channel and being written to the network.
+     */
+    public TimeValue getTxWriteTime() {
+        return new TimeValue(txWriteTimeInNanos, TimeUnit.NANOSECONDS);
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(Fields.TRANSPORT);
@@ -110,6 +227,19 @@ public class TransportStats implements Writeable, ToXContentFragment {
         builder.humanReadableField(Fields.RX_SIZE_IN_BYTES, Fields.RX_SIZE, new ByteSizeValue(rxSize));
         builder.field(Fields.TX_COUNT, txCount);
         builder.humanReadableField(Fields.TX_SIZE_IN_BYTES, Fields.TX_SIZE, new ByteSizeValue(txSize));
+        builder.startObject(Fields.COMPRESSION);
+        builder.field(Fields.TX_COUNT, txCompressedCount);
+        builder.humanReadableField(Fields.TX_UNCOMPRESSED_SIZE_IN_BYTES, Fields.TX_UNCOMPRESSED_SIZE, getTxUncompressedSize());
+        builder.humanReadableField(Fields.TX_COMPRESSED_SIZE_IN_BYTES, Fields.TX_COMPRESSED_SIZE, getTxCompressedSize());
+        builder.humanReadableField(Fields.TX_TIME_IN_MILLIS, Fields.TX_TIME, getTxCompressionTime());
+        builder.endObject();
+        builder.startObject(Fields.TX_QUEUE);
+        builder.field(Fields.PENDING_COUNT, txPendingCount);
+        builder.humanReadableField(Fields.PENDING_SIZE_IN_BYTES, Fields.PENDING_SIZE, getTxPendingSize());
+        builder.humanReadableField(Fields.MAX_CHANNEL_PENDING_SIZE_IN_BYTES, Fields.MAX_CHANNEL_PENDING_SIZE,
+            getTxMaxChannelPendingSize());
+        builder.humanReadableField(Fields.WRITE_TIME_IN_MILLIS, Fields.WRITE_TIME, getTxWriteTime());
+        builder.endObject();
         builder.endObject();
         return builder;
     }
@@ -123,5 +253,20 @@ public class TransportStats implements Writeable, ToXContentFragment {
         static final String TX_COUNT = "tx_count";
         static final String TX_SIZE = "tx_size";
         static final String TX_SIZE_IN_BYTES = "tx_size_in_bytes";
+        static final String COMPRESSION = "compression";
+        static final String TX_UNCOMPRESSED_SIZE = "tx_uncompressed_size";
+        static final String TX_UNCOMPRESSED_SIZE_IN_BYTES = "tx_uncompressed_size_in_bytes";
+        static final String TX_COMPRESSED_SIZE = "tx_compressed_size";
+        static final String TX_COMPRESSED_SIZE_IN_BYTES = "tx_compressed_size_in_bytes";
+        static final String TX_TIME = "tx_time";
+        static final String TX_TIME_IN_MILLIS = "tx_time_in_millis";
+        static final String TX_QUEUE = "tx_queue";
+        static final String PENDING_COUNT = "pending_count";
+        static final String PENDING_SIZE = "pending_size";
+        static final String PENDING_SIZE_IN_BYTES = "pending_size_in_bytes";
+        static final String MAX_CHANNEL_PENDING_SIZE = "max_channel_pending_size";
+        static final String MAX_CHANNEL_PENDING_SIZE_IN_BYTES = "max_channel_pending_size_in_bytes";
+        static final String WRITE_TIME = "write_time";
+        static final String WRITE_TIME_IN_MILLIS = "write_time_in_millis";
     }
 }
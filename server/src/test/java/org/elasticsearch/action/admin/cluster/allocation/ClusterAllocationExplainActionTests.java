@@ -28,9 +28,13 @@ import org.elasticsearch.cluster.routing.UnassignedInfo;
 import org.elasticsearch.cluster.routing.allocation.AllocationDecision;
 import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
 import org.elasticsearch.cluster.routing.allocation.ShardAllocationDecision;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator;
 import org.elasticsearch.cluster.routing.allocation.allocator.ShardsAllocator;
 import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
+import org.elasticsearch.cluster.routing.allocation.decider.SameShardAllocationDecider;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
@@ -42,6 +46,7 @@ import java.util.Collections;
 import java.util.Locale;
 
 import static org.elasticsearch.action.admin.cluster.allocation.TransportClusterAllocationExplainAction.findShardToExplain;
+import static org.hamcrest.Matchers.greaterThan;
 
 /**
  * Tests for the {@link TransportClusterAllocationExplainAction} class.
@@ -57,7 +62,7 @@ public class ClusterAllocationExplainActionTests extends ESTestCase {
         RoutingAllocation allocation = new RoutingAllocation(new AllocationDeciders(Collections.emptyList()),
             clusterState.getRoutingNodes(), clusterState, null, System.nanoTime());
         ClusterAllocationExplanation cae = TransportClusterAllocationExplainAction.explainShard(shard, allocation, null, randomBoolean(),
-            new TestGatewayAllocator(), new ShardsAllocator() {
+            false, new TestGatewayAllocator(), new ShardsAllocator() {
                 @Override
                 public void allocate(RoutingAllocation allocation) {
                     // no-op
@@ -103,6 +108,27 @@ public class ClusterAllocationExplainActionTests extends ESTestCase {
                          "\"},\"explanation\":\"" + explanation + "\"}", Strings.toString(builder));
     }
 
+    public void testExplanationIncludesDeciderStats() {
+        ClusterState clusterState = ClusterStateCreationUtils.state("idx", randomBoolean(), ShardRoutingState.STARTED);
+        ShardRouting shard = clusterState.getRoutingTable().index("idx").shard(0).primaryShard();
+        AllocationDeciders deciders = new AllocationDeciders(Collections.singletonList(new SameShardAllocationDecider(Settings.EMPTY,
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS))));
+        boolean includeDeciderStats = randomBoolean();
+        RoutingAllocation allocation = new RoutingAllocation(deciders, clusterState.getRoutingNodes(), clusterState, null,
+            System.nanoTime());
+        ClusterAllocationExplanation cae = TransportClusterAllocationExplainAction.explainShard(shard, allocation, null, randomBoolean(),
+            includeDeciderStats, new TestGatewayAllocator(), new BalancedShardsAllocator(Settings.EMPTY));
+
+        assertTrue(cae.getShardAllocationDecision().getMoveDecision().isDecisionTaken());
+        if (includeDeciderStats) {
+            assertNotNull(cae.getDeciderStats());
+            assertThat(cae.getDeciderStats().getCalls("SameShardAllocationDecider"), greaterThan(0L));
+            assertEquals(0L, cae.getDeciderStats().getCalls("AwarenessAllocationDecider"));
+        } else {
+            assertNull(cae.getDeciderStats());
+        }
+    }
+
     public void testFindAnyUnassignedShardToExplain() {
         // find unassigned primary
         ClusterState clusterState = ClusterStateCreationUtils.state("idx", randomBoolean(), ShardRoutingState.UNASSIGNED);
@@ -26,6 +26,7 @@ import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.cluster.routing.TestShardRouting;
 import org.elasticsearch.cluster.routing.UnassignedInfo;
 import org.elasticsearch.cluster.routing.allocation.AllocateUnassignedDecision;
+import org.elasticsearch.cluster.routing.allocation.AllocationDeciderStats;
 import org.elasticsearch.cluster.routing.allocation.AllocationDecision;
 import org.elasticsearch.cluster.routing.allocation.MoveDecision;
 import org.elasticsearch.cluster.routing.allocation.ShardAllocationDecision;
@@ -39,9 +40,11 @@ import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.VersionUtils;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
+import static org.hamcrest.Matchers.endsWith;
 
 /**
  * Tests for the cluster allocation explanation
@@ -61,7 +64,7 @@ public final class ClusterAllocationExplanationTests extends ESTestCase {
     }
 
     public void testExplanationSerialization() throws Exception {
-        ClusterAllocationExplanation cae = randomClusterAllocationExplanation(randomBoolean());
+        ClusterAllocationExplanation cae = randomClusterAllocationExplanation(randomBoolean(), randomDeciderStats());
         BytesStreamOutput out = new BytesStreamOutput();
         cae.writeTo(out);
         StreamInput in = out.bytes().streamInput();
@@ -81,6 +84,22 @@ public final class ClusterAllocationExplanationTests extends ESTestCase {
         }
         assertEquals(cae.getShardAllocationDecision().getAllocateDecision(), cae2.getShardAllocationDecision().getAllocateDecision());
         assertEquals(cae.getShardAllocationDecision().getMoveDecision(), cae2.getShardAllocationDecision().getMoveDecision());
+        assertEquals(cae.getDeciderStats(), cae2.getDeciderStats());
+    }
+
+    public void testDeciderStatsNotSerializedToOlderVersions() throws Exception {
+        AllocationDeciderStats deciderStats = new AllocationDeciderStats();
+        deciderStats.add("SameShardAllocationDecider", randomNonNegativeLong());
+        ClusterAllocationExplanation cae = randomClusterAllocationExplanation(randomBoolean(), deciderStats);
+        BytesStreamOutput out = new BytesStreamOutput();
+        Version version = VersionUtils.randomPreviousCompatibleVersion(random(), Version.V_8_0_0);
+        out.setVersion(version);
+        cae.writeTo(out);
+        StreamInput in = out.bytes().streamInput();
+        in.setVersion(version);
+        ClusterAllocationExplanation cae2 = new ClusterAllocationExplanation(in);
+        assertEquals(cae.getShard(), cae2.getShard());
+        assertNull(cae2.getDeciderStats());
     }
 
     public void testExplanationToXContent() throws Exception {
@@ -94,7 +113,36 @@ public final class ClusterAllocationExplanationTests extends ESTestCase {
                          "that can both allocate this shard and improve the cluster balance\"}", Strings.toString(builder));
     }
 
+    public void testDeciderStatsToXContent() throws Exception {
+        AllocationDeciderStats deciderStats = new AllocationDeciderStats();
+        deciderStats.add("SameShardAllocationDecider", 10);
+        deciderStats.add("SameShardAllocationDecider", 5);
+        deciderStats.add("AwarenessAllocationDecider", 7);
+        ClusterAllocationExplanation cae = randomClusterAllocationExplanation(false, deciderStats);
+        XContentBuilder builder = XContentFactory.jsonBuilder();
+        cae.toXContent(builder, ToXContent.EMPTY_PARAMS);
+        assertThat(Strings.toString(builder), endsWith(",\"decider_stats\":{" +
+                         "\"AwarenessAllocationDecider\":{\"calls\":1,\"time_in_nanos\":7}," +
+                         "\"SameShardAllocationDecider\":{\"calls\":2,\"time_in_nanos\":15}}}"));
+    }
+
+    private static AllocationDeciderStats randomDeciderStats() {
+        if (randomBoolean()) {
+            return null;
+        }
+        AllocationDeciderStats deciderStats = new AllocationDeciderStats();
+        for (int i = randomInt(5); i >= 0; i--) {
+            deciderStats.add(randomAlphaOfLength(10), randomNonNegativeLong() / 10);
+        }
+        return deciderStats;
+    }
+
     private static ClusterAllocationExplanation randomClusterAllocationExplanation(boolean assignedShard) {
+        return randomClusterAllocationExplanation(assignedShard, null);
+    }
+
+    private static ClusterAllocationExplanation randomClusterAllocationExplanation(boolean assignedShard,
+                                                                                   AllocationDeciderStats deciderStats) {
         ShardRouting shardRouting = TestShardRouting.newShardRouting(new ShardId(new Index("idx", "123"), 0),
             assignedShard ? "node-0" : null, true, assignedShard ? ShardRoutingState.STARTED : ShardRoutingState.UNASSIGNED);
         DiscoveryNode node = assignedShard ? new DiscoveryNode("node-0", buildNewFakeTransportAddress(), emptyMap(), emptySet(),
@@ -108,6 +156,6 @@ public final class ClusterAllocationExplanationTests extends ESTestCase {
             AllocateUnassignedDecision allocateDecision = AllocateUnassignedDecision.no(UnassignedInfo.AllocationStatus.DECIDERS_NO, null);
             shardAllocationDecision = new ShardAllocationDecision(allocateDecision, MoveDecision.NOT_TAKEN);
         }
-        return new ClusterAllocationExplanation(shardRouting, node, null, null, shardAllocationDecision);
+        return new ClusterAllocationExplanation(shardRouting, node, null, null, shardAllocationDecision, deciderStats);
     }
 }
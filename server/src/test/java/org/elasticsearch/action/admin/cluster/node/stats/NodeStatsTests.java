@@ -24,6 +24,7 @@ import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.discovery.DiscoveryStats;
 import org.elasticsearch.cluster.coordination.PendingClusterStateStats;
+import org.elasticsearch.cluster.coordination.ClusterStateSerializationStats;
 import org.elasticsearch.cluster.coordination.PublishClusterStateStats;
 import org.elasticsearch.http.HttpStats;
 import org.elasticsearch.indices.breaker.AllCircuitBreakerStats;
@@ -35,6 +36,7 @@ import org.elasticsearch.monitor.os.OsStats;
 import org.elasticsearch.monitor.process.ProcessStats;
 import org.elasticsearch.node.AdaptiveSelectionStats;
 import org.elasticsearch.node.ResponseCollectorService;
+import org.elasticsearch.repositories.RepositoriesStats;
 import org.elasticsearch.script.ScriptStats;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.VersionUtils;
@@ -218,12 +220,22 @@ public class NodeStatsTests extends ESTestCase {
                     assertEquals(nodeStats.getTransport().getServerOpen(), deserializedNodeStats.getTransport().getServerOpen());
                     assertEquals(nodeStats.getTransport().getTxCount(), deserializedNodeStats.getTransport().getTxCount());
                     assertEquals(nodeStats.getTransport().getTxSize(), deserializedNodeStats.getTransport().getTxSize());
+                    assertEquals(nodeStats.getTransport().getTxPendingCount(), deserializedNodeStats.getTransport().getTxPendingCount());
+                    assertEquals(nodeStats.getTransport().getTxPendingSize(), deserializedNodeStats.getTransport().getTxPendingSize());
+                    assertEquals(nodeStats.getTransport().getTxMaxChannelPendingSize(),
+                        deserializedNodeStats.getTransport().getTxMaxChannelPendingSize());
+                    assertEquals(nodeStats.getTransport().getTxWriteTime(), deserializedNodeStats.getTransport().getTxWriteTime());
                 }
                 if (nodeStats.getHttp() == null) {
                     assertNull(deserializedNodeStats.getHttp());
                 } else {
                     assertEquals(nodeStats.getHttp().getServerOpen(), deserializedNodeStats.getHttp().getServerOpen());
                     assertEquals(nodeStats.getHttp().getTotalOpen(), deserializedNodeStats.getHttp().getTotalOpen());
+                    assertEquals(nodeStats.getHttp().getInFlightRequests(), deserializedNodeStats.getHttp().getInFlightRequests());
+                    assertEquals(nodeStats.getHttp().getMaxChannelInFlightRequests(),
+                        deserializedNodeStats.getHttp().getMaxChannelInFlightRequests());
+                    assertEquals(nodeStats.getHttp().getTotalResponses(), deserializedNodeStats.getHttp().getTotalResponses());
+                    assertEquals(nodeStats.getHttp().getResponseTime(), deserializedNodeStats.getHttp().getResponseTime());
                 }
                 if (nodeStats.getBreaker() == null) {
                     assertNull(deserializedNodeStats.getBreaker());
@@ -259,6 +271,32 @@ public class NodeStatsTests extends ESTestCase {
                         assertEquals(queueStats.getTotal(), deserializedDiscoveryStats.getQueueStats().getTotal());
                         assertEquals(queueStats.getPending(), deserializedDiscoveryStats.getQueueStats().getPending());
                     }
+                    PublishClusterStateStats publishStats = discoveryStats.getPublishStats();
+                    if (publishStats == null) {
+                        assertNull(deserializedDiscoveryStats.getPublishStats());
+                    } else {
+                        PublishClusterStateStats deserializedPublishStats = deserializedDiscoveryStats.getPublishStats();
+                        assertEquals(publishStats.getFullClusterStateReceivedCount(),
+                            deserializedPublishStats.getFullClusterStateReceivedCount());
+                        assertEquals(publishStats.getCompatibleClusterStateDiffReceivedCount(),
+                            deserializedPublishStats.getCompatibleClusterStateDiffReceivedCount());
+                        assertEquals(publishStats.getIncompatibleClusterStateDiffReceivedCount(),
+                            deserializedPublishStats.getIncompatibleClusterStateDiffReceivedCount());
+                        assertEquals(publishStats.getReceivedClusterStateDeserializationTimeMillis(),
+                            deserializedPublishStats.getReceivedClusterStateDeserializationTimeMillis());
+                        ClusterStateSerializationStats serializationStats = publishStats.getSerializationStats();
+                        ClusterStateSerializationStats deserializedSerializationStats = deserializedPublishStats.getSerializationStats();
+                        assertEquals(serializationStats.getFullStateCount(), deserializedSerializationStats.getFullStateCount());
+                        assertEquals(serializationStats.getTotalFullStateSerializedBytes(),
+                            deserializedSerializationStats.getTotalFullStateSerializedBytes());
+                        assertEquals(serializationStats.getFullStateSerializationTimeMillis(),
+                            deserializedSerializationStats.getFullStateSerializationTimeMillis());
+                        assertEquals(serializationStats.getDiffCount(), deserializedSerializationStats.getDiffCount());
+                        assertEquals(serializationStats.getTotalDiffSerializedBytes(),
+                            deserializedSerializationStats.getTotalDiffSerializedBytes());
+                        assertEquals(serializationStats.getDiffSerializationTimeMillis(),
+                            deserializedSerializationStats.getDiffSerializationTimeMillis());
+                    }
                 }
                 IngestStats ingestStats = nodeStats.getIngestStats();
                 IngestStats deserializedIngestStats = deserializedNodeStats.getIngestStats();
@@ -311,6 +349,7 @@ public class NodeStatsTests extends ESTestCase {
                         assertEquals(aStats.responseTime, bStats.responseTime, 0.01);
                     });
                 }
+                assertEquals(nodeStats.getRepositoriesStats(), deserializedNodeStats.getRepositoriesStats());
             }
         }
     }
@@ -413,8 +452,11 @@ public class NodeStatsTests extends ESTestCase {
             fsInfo = new FsInfo(randomNonNegativeLong(), ioStats, paths);
         }
         TransportStats transportStats = frequently() ? new TransportStats(randomNonNegativeLong(), randomNonNegativeLong(),
+                randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+                randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+                randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong()) : null;
+        HttpStats httpStats = frequently() ? new HttpStats(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
                 randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong()) : null;
-        HttpStats httpStats = frequently() ? new HttpStats(randomNonNegativeLong(), randomNonNegativeLong()) : null;
         AllCircuitBreakerStats allCircuitBreakerStats = null;
         if (frequently()) {
             int numCircuitBreakerStats = randomIntBetween(0, 10);
@@ -436,7 +478,15 @@ public class NodeStatsTests extends ESTestCase {
                 ? new PublishClusterStateStats(
                     randomNonNegativeLong(),
                     randomNonNegativeLong(),
-                    randomNonNegativeLong())
+                    randomNonNegativeLong(),
+                    randomNonNegativeLong(),
+                    new ClusterStateSerializationStats(
+                        randomNonNegativeLong(),
+                        randomNonNegativeLong(),
+                        randomNonNegativeLong(),
+                        randomNonNegativeLong(),
+                        randomNonNegativeLong(),
+                        randomNonNegativeLong()))
                 : null)
             : null;
         IngestStats ingestStats = null;
@@ -485,10 +535,20 @@ public class NodeStatsTests extends ESTestCase {
             }
             adaptiveSelectionStats = new AdaptiveSelectionStats(nodeConnections, nodeStats);
         }
+        RepositoriesStats repositoriesStats = null;
+        if (frequently()) {
+            int numRepositories = randomIntBetween(0, 10);
+            Map<String, RepositoriesStats.Stats> repositoryStats = new HashMap<>(numRepositories);
+            for (int i = 0; i < numRepositories; i++) {
+                repositoryStats.put(randomAlphaOfLengthBetween(3, 10), new RepositoriesStats.Stats(randomAlphaOfLengthBetween(2, 5),
+                    randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong()));
+            }
+            repositoriesStats = new RepositoriesStats(repositoryStats);
+        }
         //TODO NodeIndicesStats are not tested here, way too complicated to create, also they need to be migrated to Writeable yet
         return new NodeStats(node, randomNonNegativeLong(), null, osStats, processStats, jvmStats, threadPoolStats,
                 fsInfo, transportStats, httpStats, allCircuitBreakerStats, scriptStats, discoveryStats,
-                ingestStats, adaptiveSelectionStats);
+                ingestStats, adaptiveSelectionStats, repositoriesStats);
     }
 
     private IngestStats.Stats getPipelineStats(List<IngestStats.PipelineStat> pipelineStats, String id) {
@@ -24,8 +24,14 @@ import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.test.ESTestCase;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.startsWith;
+
 public class BulkRequestParserTests extends ESTestCase {
 
     public void testIndexRequest() throws IOException {
@@ -74,6 +80,73 @@ public class BulkRequestParserTests extends ESTestCase {
         assertTrue(parsed.get());
     }
 
+    public void testIncrementalParsing() throws IOException {
+        final StringBuilder body = new StringBuilder();
+        final List<String> expectedIds = new ArrayList<>();
+        for (int i = between(1, 20); i > 0; i--) {
+            final String id = Integer.toString(expectedIds.size());
+            expectedIds.add(id);
+            if (randomBoolean()) {
+                body.append("{ \"delete\":{ \"_id\": \"").append(id).append("\" } }\n");
+            } else {
+                body.append("{ \"index\":{ \"_id\": \"").append(id).append("\" } }\n");
+                body.append("{ \"field\": \"").append(randomAlphaOfLength(between(0, 10))).append("\" }\n");
+            }
+        }
+        final BytesArray data = new BytesArray(body.toString());
+
+        final List<String> ids = new ArrayList<>();
+        final BulkRequestParser.IncrementalParser parser = new BulkRequestParser(randomBoolean()).incrementalParser(
+            "foo", null, null, null, false, XContentType.JSON,
+            (indexRequest, type) -> ids.add(indexRequest.id()), req -> fail(), deleteRequest -> ids.add(deleteRequest.id()));
+        int parsed = 0;
+        int received = 0;
+        while (received < data.length()) {
+            received = randomIntBetween(received + 1, data.length());
+            final int consumed = parser.parse(data.slice(parsed, received - parsed), received == data.length());
+            assertThat(consumed, lessThanOrEqualTo(received - parsed));
+            parsed += consumed;
+            // only complete items are parsed, so the consumed data always ends on a line break
+            assertTrue(parsed == 0 || data.get(parsed - 1) == '\n');
+        }
+        assertEquals(data.length(), parsed);
+        assertEquals(expectedIds, ids);
+    }
+
+    public void testIncrementalParsingReportsLineNumbersAcrossCalls() throws IOException {
+        final BulkRequestParser.IncrementalParser parser = new BulkRequestParser(randomBoolean()).incrementalParser(
+            "foo", null, null, null, false, XContentType.JSON, (req, type) -> {}, req -> fail(), req -> fail());
+        final BytesArray first = new BytesArray("{ \"index\":{ \"_id\": \"bar\" } }\n{}\n{ \"index\":{ } }\n");
+        // the last action line is left unparsed since its source hasn't been received yet
+        assertEquals(first.length() - "{ \"index\":{ } }\n".length(), parser.parse(first, false));
+        final IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> parser.parse(new BytesArray("{ \"index\":{ } }\n{}\n[]\n"), true));
+        assertThat(e.getMessage(), startsWith("Malformed action/metadata line [5]"));
+    }
+
+    public void testIncrementalParsingDoesNotParseActionLinesAgain() throws IOException {
+        final List<String> ids = new ArrayList<>();
+        final BulkRequestParser.IncrementalParser parser = new BulkRequestParser(randomBoolean()).incrementalParser(
+            "foo", null, null, null, false, XContentType.JSON, (indexRequest, type) -> ids.add(indexRequest.id()), req -> fail(),
+            req -> fail());
+        final String actionLine = "{ \"index\":{ \"_id\": \"bar\" } }\n";
+        assertEquals(0, parser.parse(new BytesArray(actionLine + "{ \"field\":"), false));
+        assertEquals(0, parser.parse(new BytesArray(actionLine + "{ \"field\": \"val"), false));
+        // the action line has been parsed by the first call, so its bytes are skipped rather than parsed again
+        final String remainder = " ".repeat(actionLine.length() - 1) + "\n{ \"field\": \"value\" }\n";
+        assertEquals(remainder.length(), parser.parse(new BytesArray(remainder), true));
+        assertEquals(Collections.singletonList("bar"), ids);
+    }
+
+    public void testIncrementalParsingOnlyRequiresTrailingNewlineAtTheEnd() throws IOException {
+        final BulkRequestParser.IncrementalParser parser = new BulkRequestParser(randomBoolean()).incrementalParser(
+            "foo", null, null, null, false, XContentType.JSON, (req, type) -> {}, req -> fail(), req -> fail());
+        assertEquals(0, parser.parse(new BytesArray("{ \"index\":{ \"_id\": \"bar\" } }\n{}"), false));
+        final IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> parser.parse(new BytesArray("{ \"index\":{ \"_id\": \"bar\" } }\n{}"), true));
+        assertEquals("The bulk request must be terminated by a newline [\\n]", e.getMessage());
+    }
+
     public void testBarfOnLackOfTrailingNewline() throws IOException {
         BytesArray request = new BytesArray("{ \"index\":{ \"_id\": \"bar\" } }\n{}");
         BulkRequestParser parser = new BulkRequestParser(randomBoolean());
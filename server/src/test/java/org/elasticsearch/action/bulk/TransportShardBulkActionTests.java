@@ -38,17 +38,22 @@ import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.action.update.UpdateResponse;
 import org.elasticsearch.client.Requests;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.VersionConflictEngineException;
+import org.elasticsearch.index.mapper.MapperParsingException;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.Mapping;
 import org.elasticsearch.index.mapper.MetadataFieldMapper;
 import org.elasticsearch.index.mapper.RootObjectMapper;
+import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardTestCase;
 import org.elasticsearch.index.shard.ShardId;
@@ -58,7 +63,11 @@ import org.elasticsearch.threadpool.TestThreadPool;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
@@ -70,6 +79,7 @@ import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.Matchers.arrayWithSize;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
@@ -230,6 +240,113 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         latch.await();
     }
 
+    public void testParallelParsing() throws Exception {
+        IndexShard shard = newStartedShard(true, Settings.builder()
+            .put(IndexSettings.BULK_PARSING_PARALLELISM_SETTING.getKey(), randomIntBetween(2, 8))
+            .build());
+        updateMappings(shard, IndexMetaData.builder(shard.indexSettings().getIndexMetaData())
+            .putMapping("{\"properties\":{\"foo\":{\"type\":\"text\"}}}").build());
+
+        BulkItemRequest[] items = new BulkItemRequest[randomIntBetween(2, 100)];
+        Map<String, Long> expectedVersions = new HashMap<>();
+        boolean[] expectFailure = new boolean[items.length];
+        long[] expectedVersion = new long[items.length];
+        for (int i = 0; i < items.length; i++) {
+            final String id = "id_" + randomIntBetween(0, 9);
+            final IndexRequest writeRequest = new IndexRequest("index").id(id);
+            if (rarely()) {
+                // objects can't be indexed into a text field
+                writeRequest.source(Requests.INDEX_CONTENT_TYPE, "foo", Collections.singletonMap("bar", "baz"));
+                expectFailure[i] = true;
+            } else if (rarely()) {
+                // requires a dynamic mapping update
+                writeRequest.source(Requests.INDEX_CONTENT_TYPE, "field_" + i, "value");
+                expectedVersion[i] = expectedVersions.merge(id, 1L, Long::sum);
+            } else {
+                writeRequest.source(Requests.INDEX_CONTENT_TYPE, "foo", randomAlphaOfLength(10));
+                expectedVersion[i] = expectedVersions.merge(id, 1L, Long::sum);
+            }
+            items[i] = new BulkItemRequest(i, writeRequest);
+        }
+        BulkShardRequest bulkShardRequest = new BulkShardRequest(shardId, RefreshPolicy.NONE, items);
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        TransportShardBulkAction.performOnPrimary(
+            bulkShardRequest, shard, null, threadPool::absoluteTimeInMillis, (update, shardId, listener) -> {
+                // apply the mapping update right away, which invalidates the documents that have been parsed ahead of time
+                ActionListener.completeWith(listener, () -> {
+                    shard.mapperService().merge(MapperService.SINGLE_MAPPING_NAME,
+                        new CompressedXContent(update, XContentType.JSON, ToXContent.EMPTY_PARAMS),
+                        MapperService.MergeReason.MAPPING_UPDATE);
+                    return null;
+                });
+            },
+            listener -> listener.onResponse(null), new LatchedActionListener<>(
+                ActionTestUtils.assertNoFailureListener(result -> {
+                    assertThat(result.finalResponseIfSuccessful.getResponses(), arrayWithSize(items.length));
+                    long previousSeqNo = SequenceNumbers.NO_OPS_PERFORMED;
+                    for (int i = 0; i < items.length; i++) {
+                        BulkItemResponse response = result.finalResponseIfSuccessful.getResponses()[i];
+                        assertThat(response.getItemId(), equalTo(i));
+                        assertThat(response.getId(), equalTo(items[i].request().id()));
+                        if (expectFailure[i]) {
+                            assertTrue(response.isFailed());
+                            assertThat(response.getFailure().getCause(), instanceOf(MapperParsingException.class));
+                        } else {
+                            assertFalse(response.isFailed());
+                            // operations are executed in the order of the request
+                            assertThat(response.getResponse().getVersion(), equalTo(expectedVersion[i]));
+                            assertThat(response.getResponse().getSeqNo(), greaterThan(previousSeqNo));
+                            previousSeqNo = response.getResponse().getSeqNo();
+                        }
+                    }
+                }), latch), threadPool);
+
+        latch.await();
+        assertDocCount(shard, expectedVersions.size());
+        closeShards(shard);
+    }
+
+    public void testParsingStaysWithinWindowAheadOfExecution() throws Exception {
+        IndexShard shard = newStartedShard(true);
+        updateMappings(shard, IndexMetaData.builder(shard.indexSettings().getIndexMetaData())
+            .putMapping("{\"properties\":{\"foo\":{\"type\":\"text\"}}}").build());
+        final int parallelism = randomIntBetween(2, 4);
+        final int window = (parallelism - 1) * BulkItemParser.ITEMS_AHEAD_PER_THREAD;
+        BulkItemRequest[] items = new BulkItemRequest[randomIntBetween(window * 3, 100)];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = new BulkItemRequest(i,
+                new IndexRequest("index").id("id_" + i).source(Requests.INDEX_CONTENT_TYPE, "foo", randomAlphaOfLength(10)));
+        }
+        BulkShardRequest bulkShardRequest = new BulkShardRequest(shardId, RefreshPolicy.NONE, items);
+
+        Deque<Runnable> tasks = new ArrayDeque<>();
+        BulkItemParser parser = BulkItemParser.start(bulkShardRequest, shard.mapperService(), parallelism, tasks::add);
+        assertNotNull(parser);
+        assertThat(tasks.size(), equalTo(parallelism - 1));
+        runAll(tasks);
+        // the item right after the window has not been parsed ahead of time
+        assertNull(parser.take(window));
+        runAll(tasks);
+        for (int i = 0; i < items.length; i++) {
+            if (i != window) {
+                BulkItemParser.PreParsedDocument document = parser.take(i);
+                assertNotNull("item [" + i + "] should have been parsed ahead of time", document);
+                assertThat(document.document().id(), equalTo("id_" + i));
+                runAll(tasks);
+            }
+        }
+        assertThat(tasks.size(), equalTo(0));
+        closeShards(shard);
+    }
+
+    private static void runAll(Deque<Runnable> tasks) {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
     public void testExecuteBulkIndexRequestWithMappingUpdates() throws Exception {
 
         BulkItemRequest[] items = new BulkItemRequest[1];
@@ -859,6 +976,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
             when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean()))
                 .thenReturn(success1, mappingUpdate, success2);
             when(shard.getFailedIndexResult(any(EsRejectedExecutionException.class), anyLong())).thenCallRealMethod();
+            when(shard.indexSettings()).thenReturn(new IndexSettings(indexMetaData(), Settings.EMPTY));
             when(shard.mapperService()).thenReturn(mock(MapperService.class));
 
             randomlySetIgnoredPrimaryResponse(items[0]);
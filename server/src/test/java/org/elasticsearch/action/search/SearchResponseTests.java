@@ -28,6 +28,7 @@ import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentType;
@@ -51,12 +52,14 @@ import org.junit.Before;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonMap;
 import static org.elasticsearch.test.XContentTestUtils.insertRandomFields;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertToXContentEquivalent;
+import static org.hamcrest.Matchers.greaterThan;
 
 public class SearchResponseTests extends ESTestCase {
 
@@ -205,6 +208,25 @@ public class SearchResponseTests extends ESTestCase {
         }
     }
 
+    public void testToXContentChunked() throws IOException {
+        final SearchResponse response = createTestItem();
+        final XContentType xContentType = randomFrom(XContentType.values());
+        final ToXContent.Params params = randomBoolean() ? ToXContent.EMPTY_PARAMS
+            : new ToXContent.MapParams(singletonMap(RestSearchAction.TOTAL_HITS_AS_INT_PARAM, "true"));
+        try (XContentBuilder builder = XContentBuilder.builder(xContentType.xContent())) {
+            final Iterator<? extends ToXContent> chunks = response.toXContentChunked(params);
+            int chunkCount = 0;
+            while (chunks.hasNext()) {
+                chunks.next().toXContent(builder, params);
+                chunkCount++;
+            }
+            // the hits are serialized in chunks of their own
+            assertThat(chunkCount, greaterThan(response.getHits().getHits().length));
+            assertToXContentEquivalent(XContentHelper.toXContent(response, xContentType, params, false), BytesReference.bytes(builder),
+                xContentType);
+        }
+    }
+
     public void testToXContent() {
         SearchHit hit = new SearchHit(1, "id1", Collections.emptyMap());
         hit.score(2.0f);
@@ -18,19 +18,22 @@
  */
 package org.elasticsearch.cluster;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.cluster.routing.TestShardRouting;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.VersionUtils;
 
 public class ClusterInfoTests extends ESTestCase {
 
     public void testSerialization() throws Exception {
         ClusterInfo clusterInfo = new ClusterInfo(
-                randomDiskUsage(), randomDiskUsage(), randomShardSizes(), randomRoutingToDataPath()
+                randomDiskUsage(), randomDiskUsage(), randomShardSizes(), randomRoutingToDataPath(), randomShardWriteLoads()
         );
         BytesStreamOutput output = new BytesStreamOutput();
         clusterInfo.writeTo(output);
@@ -40,6 +43,23 @@ public class ClusterInfoTests extends ESTestCase {
         assertEquals(clusterInfo.getNodeMostAvailableDiskUsages(), result.getNodeMostAvailableDiskUsages());
         assertEquals(clusterInfo.shardSizes, result.shardSizes);
         assertEquals(clusterInfo.routingToDataPath, result.routingToDataPath);
+        assertEquals(clusterInfo.shardWriteLoads, result.shardWriteLoads);
+    }
+
+    public void testShardWriteLoadsNotSerializedToOlderVersions() throws Exception {
+        ClusterInfo clusterInfo = new ClusterInfo(
+                randomDiskUsage(), randomDiskUsage(), randomShardSizes(), randomRoutingToDataPath(), randomShardWriteLoads()
+        );
+        BytesStreamOutput output = new BytesStreamOutput();
+        Version version = VersionUtils.randomPreviousCompatibleVersion(random(), Version.V_8_0_0);
+        output.setVersion(version);
+        clusterInfo.writeTo(output);
+
+        StreamInput input = output.bytes().streamInput();
+        input.setVersion(version);
+        ClusterInfo result = new ClusterInfo(input);
+        assertEquals(clusterInfo.shardSizes, result.shardSizes);
+        assertTrue(result.shardWriteLoads.isEmpty());
     }
 
     private static ImmutableOpenMap<String, DiskUsage> randomDiskUsage() {
@@ -78,4 +98,14 @@ public class ClusterInfoTests extends ESTestCase {
         return builder.build();
     }
 
+
+    private static ImmutableOpenMap<ShardId, Double> randomShardWriteLoads() {
+        int numEntries = randomIntBetween(0, 128);
+        ImmutableOpenMap.Builder<ShardId, Double> builder = ImmutableOpenMap.builder(numEntries);
+        for (int i = 0; i < numEntries; i++) {
+            ShardId shardId = new ShardId(randomAlphaOfLength(32), randomAlphaOfLength(32), randomIntBetween(0, Integer.MAX_VALUE));
+            builder.put(shardId, randomDoubleBetween(0.0, 10000.0, true));
+        }
+        return builder.build();
+    }
 }
@@ -24,12 +24,14 @@ import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
 import org.elasticsearch.action.admin.indices.stats.CommonStats;
 import org.elasticsearch.action.admin.indices.stats.ShardStats;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.RecoverySource;
 import org.elasticsearch.cluster.routing.RecoverySource.PeerRecoverySource;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.ShardRoutingHelper;
 import org.elasticsearch.cluster.routing.UnassignedInfo;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.index.shard.IndexingStats;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardPath;
 import org.elasticsearch.index.store.StoreStats;
@@ -38,7 +40,10 @@ import org.elasticsearch.test.ESTestCase;
 
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
@@ -133,6 +138,60 @@ public class DiskUsageTests extends ESTestCase {
         assertEquals(test1Path.getParent().getParent().getParent().toAbsolutePath().toString(), routingToPath.get(test_1));
     }
 
+    public void testBuildShardWriteLoads() {
+        final Index index = new Index("test", "0xdeadbeef");
+        final ShardRouting primary = startedShard(new ShardId(index, 0), true, "node1");
+        final ShardRouting replica = startedShard(new ShardId(index, 0), false, "node2");
+        final ShardRouting other = startedShard(new ShardId(index, 1), true, "node2");
+        final long second = TimeUnit.SECONDS.toNanos(1);
+
+        final Map<String, InternalClusterInfoService.IndexingSample> samples = new HashMap<>();
+        ImmutableOpenMap<ShardId, Double> writeLoads = InternalClusterInfoService.buildShardWriteLoads(logger,
+            new ShardStats[] { indexingStats(primary, 100), indexingStats(replica, 90), indexingStats(other, 0) },
+            10 * second, emptyMap(), ImmutableOpenMap.of(), samples);
+        assertEquals("the first sample does not tell the rate", 0, writeLoads.size());
+        assertEquals(3, samples.size());
+
+        Map<String, InternalClusterInfoService.IndexingSample> previousSamples = samples;
+        final Map<String, InternalClusterInfoService.IndexingSample> newSamples = new HashMap<>();
+        writeLoads = InternalClusterInfoService.buildShardWriteLoads(logger,
+            new ShardStats[] { indexingStats(primary, 300), indexingStats(replica, 250), indexingStats(other, 10) },
+            20 * second, previousSamples, writeLoads, newSamples);
+        assertEquals(2, writeLoads.size());
+        assertEquals("takes the highest rate of all copies", 20.0, writeLoads.get(primary.shardId()), 0.0);
+        assertEquals(1.0, writeLoads.get(other.shardId()), 0.0);
+
+        previousSamples = newSamples;
+        writeLoads = InternalClusterInfoService.buildShardWriteLoads(logger,
+            new ShardStats[] { indexingStats(primary, 400), indexingStats(replica, 400), indexingStats(other, 10) },
+            30 * second, previousSamples, writeLoads, new HashMap<>());
+        assertEquals("smooths the rate", 17.5, writeLoads.get(primary.shardId()), 0.0);
+        assertEquals(0.5, writeLoads.get(other.shardId()), 0.0);
+
+        // a relocated copy starts sampling afresh but keeps the write load of its shard
+        final ShardRouting relocated = startedShard(new ShardId(index, 1), true, "node3");
+        writeLoads = InternalClusterInfoService.buildShardWriteLoads(logger,
+            new ShardStats[] { indexingStats(relocated, 0) }, 40 * second, previousSamples, writeLoads, new HashMap<>());
+        assertEquals(1, writeLoads.size());
+        assertEquals(0.5, writeLoads.get(other.shardId()), 0.0);
+    }
+
+    private static ShardRouting startedShard(ShardId shardId, boolean primary, String nodeId) {
+        ShardRouting shardRouting = ShardRouting.newUnassigned(shardId, primary,
+            primary ? RecoverySource.EmptyStoreRecoverySource.INSTANCE : PeerRecoverySource.INSTANCE,
+            new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, "foo"));
+        shardRouting = ShardRoutingHelper.initialize(shardRouting, nodeId);
+        return ShardRoutingHelper.moveToStarted(shardRouting);
+    }
+
+    private ShardStats indexingStats(ShardRouting shardRouting, long indexCount) {
+        final CommonStats commonStats = new CommonStats();
+        commonStats.indexing = new IndexingStats(new IndexingStats.Stats(indexCount, 0, 0, 0, 0, 0, 0, 0, false, 0));
+        final Path path = createTempDir().resolve("indices").resolve(shardRouting.shardId().getIndex().getUUID())
+            .resolve(Integer.toString(shardRouting.id()));
+        return new ShardStats(shardRouting, new ShardPath(false, path, path, shardRouting.shardId()), commonStats, null, null, null);
+    }
+
     public void testFillDiskUsage() {
         ImmutableOpenMap.Builder<String, DiskUsage> newLeastAvaiableUsages = ImmutableOpenMap.builder();
         ImmutableOpenMap.Builder<String, DiskUsage> newMostAvaiableUsages = ImmutableOpenMap.builder();
@@ -151,11 +210,11 @@ public class DiskUsageTests extends ESTestCase {
         };
         List<NodeStats> nodeStats = Arrays.asList(
                 new NodeStats(new DiscoveryNode("node_1", buildNewFakeTransportAddress(), emptyMap(), emptySet(), Version.CURRENT), 0,
-                        null,null,null,null,null,new FsInfo(0, null, node1FSInfo), null,null,null,null,null, null, null),
+                        null,null,null,null,null,new FsInfo(0, null, node1FSInfo), null,null,null,null,null, null, null, null),
                 new NodeStats(new DiscoveryNode("node_2", buildNewFakeTransportAddress(), emptyMap(), emptySet(), Version.CURRENT), 0,
-                        null,null,null,null,null, new FsInfo(0, null, node2FSInfo), null,null,null,null,null, null, null),
+                        null,null,null,null,null, new FsInfo(0, null, node2FSInfo), null,null,null,null,null, null, null, null),
                 new NodeStats(new DiscoveryNode("node_3", buildNewFakeTransportAddress(), emptyMap(), emptySet(), Version.CURRENT), 0,
-                        null,null,null,null,null, new FsInfo(0, null, node3FSInfo), null,null,null,null,null, null, null)
+                        null,null,null,null,null, new FsInfo(0, null, node3FSInfo), null,null,null,null,null, null, null, null)
         );
         InternalClusterInfoService.fillDiskUsagePerNode(logger, nodeStats, newLeastAvaiableUsages, newMostAvaiableUsages);
         DiskUsage leastNode_1 = newLeastAvaiableUsages.get("node_1");
@@ -192,11 +251,11 @@ public class DiskUsageTests extends ESTestCase {
         };
         List<NodeStats> nodeStats = Arrays.asList(
                 new NodeStats(new DiscoveryNode("node_1", buildNewFakeTransportAddress(), emptyMap(), emptySet(), Version.CURRENT), 0,
-                        null,null,null,null,null,new FsInfo(0, null, node1FSInfo), null,null,null,null,null, null, null),
+                        null,null,null,null,null,new FsInfo(0, null, node1FSInfo), null,null,null,null,null, null, null, null),
                 new NodeStats(new DiscoveryNode("node_2", buildNewFakeTransportAddress(), emptyMap(), emptySet(), Version.CURRENT), 0,
-                        null,null,null,null,null, new FsInfo(0, null, node2FSInfo), null,null,null,null,null, null, null),
+                        null,null,null,null,null, new FsInfo(0, null, node2FSInfo), null,null,null,null,null, null, null, null),
                 new NodeStats(new DiscoveryNode("node_3", buildNewFakeTransportAddress(), emptyMap(), emptySet(), Version.CURRENT), 0,
-                        null,null,null,null,null, new FsInfo(0, null, node3FSInfo), null,null,null,null,null, null, null)
+                        null,null,null,null,null, new FsInfo(0, null, node3FSInfo), null,null,null,null,null, null, null, null)
         );
         InternalClusterInfoService.fillDiskUsagePerNode(logger, nodeStats, newLeastAvailableUsages, newMostAvailableUsages);
         DiskUsage leastNode_1 = newLeastAvailableUsages.get("node_1");
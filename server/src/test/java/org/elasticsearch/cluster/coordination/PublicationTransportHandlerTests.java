@@ -26,18 +26,23 @@ import org.elasticsearch.cluster.Diff;
 import org.elasticsearch.cluster.coordination.CoordinationMetaData.VotingConfiguration;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.node.Node;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.VersionUtils;
 import org.elasticsearch.test.transport.CapturingTransport;
+import org.elasticsearch.transport.Compression;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
 import java.util.Collections;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
 
 public class PublicationTransportHandlerTests extends ESTestCase {
@@ -87,4 +92,52 @@ public class PublicationTransportHandlerTests extends ESTestCase {
         assertThat(e.getCause(), instanceOf(IOException.class));
         assertThat(e.getCause().getMessage(), containsString("Simulated failure of diff serialization"));
     }
+
+    public void testSerializesStatesWithCompressionSupportedByNodeVersion() throws IOException {
+        final ClusterState clusterState = CoordinationStateTests.clusterState(2L, 1L,
+            DiscoveryNodes.builder().add(new DiscoveryNode("localNode", buildNewFakeTransportAddress(), Version.CURRENT)).build(),
+            VotingConfiguration.EMPTY_CONFIG, VotingConfiguration.EMPTY_CONFIG, 0L);
+
+        final BytesReference currentBytes = PublicationTransportHandler.serializeFullClusterState(clusterState, Version.CURRENT);
+        assertSame(Compression.Scheme.LZ4.compressor(), Compression.compressor(currentBytes));
+
+        final Version oldVersion = VersionUtils.getPreviousVersion(Version.V_8_0_0);
+        final BytesReference oldBytes = PublicationTransportHandler.serializeDiffClusterState(clusterState.diff(clusterState), oldVersion);
+        assertSame(CompressorFactory.COMPRESSOR, Compression.compressor(oldBytes));
+    }
+
+    public void testRecordsSerializationStats() {
+        DeterministicTaskQueue deterministicTaskQueue =
+            new DeterministicTaskQueue(Settings.builder().put(Node.NODE_NAME_SETTING.getKey(), "test").build(), random());
+        final ClusterSettings clusterSettings = new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+        final DiscoveryNode localNode = new DiscoveryNode("localNode", buildNewFakeTransportAddress(), Version.CURRENT);
+        final TransportService transportService = new CapturingTransport().createTransportService(Settings.EMPTY,
+            deterministicTaskQueue.getThreadPool(),
+            TransportService.NOOP_TRANSPORT_INTERCEPTOR,
+            x -> localNode,
+            clusterSettings, Collections.emptySet());
+        final PublicationTransportHandler handler = new PublicationTransportHandler(transportService,
+            writableRegistry(), pu -> null, (pu, l) -> {});
+        transportService.start();
+        transportService.acceptIncomingRequests();
+
+        final DiscoveryNode oldNode = new DiscoveryNode("oldNode", buildNewFakeTransportAddress(),
+            VersionUtils.getPreviousVersion(Version.V_8_0_0));
+        final DiscoveryNode newNode = new DiscoveryNode("newNode", buildNewFakeTransportAddress(), Version.CURRENT);
+        final ClusterState previousState = CoordinationStateTests.clusterState(1L, 1L,
+            DiscoveryNodes.builder().add(localNode).add(oldNode).localNodeId(localNode.getId()).build(),
+            VotingConfiguration.EMPTY_CONFIG, VotingConfiguration.EMPTY_CONFIG, 0L);
+        final ClusterState clusterState = CoordinationStateTests.clusterState(2L, 1L,
+            DiscoveryNodes.builder().add(localNode).add(oldNode).add(newNode).localNodeId(localNode.getId()).build(),
+            VotingConfiguration.EMPTY_CONFIG, VotingConfiguration.EMPTY_CONFIG, 0L);
+
+        handler.newPublicationContext(new ClusterChangedEvent("test", clusterState, previousState));
+
+        // a diff for each version of the existing nodes, and a full state for the version of the new node
+        final ClusterStateSerializationStats stats = handler.stats().getSerializationStats();
+        assertEquals(1L, stats.getFullStateCount());
+        assertThat(stats.getTotalFullStateSerializedBytes(), greaterThan(0L));
+        assertEquals(2L, stats.getDiffCount());
+        assertThat(stats.getTotalDiffSerializedBytes(), greaterThan(0L));
+    }
 }
@@ -21,6 +21,7 @@ package org.elasticsearch.cluster.routing;
 
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.Diff;
 import org.elasticsearch.cluster.ESAllocationTestCase;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
@@ -28,20 +29,31 @@ import org.elasticsearch.cluster.metadata.MetaDataIndexStateService;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.node.DiscoveryNodes.Builder;
 import org.elasticsearch.cluster.routing.allocation.AllocationService;
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.VersionUtils;
 import org.junit.Before;
 
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import static org.elasticsearch.cluster.routing.ShardRoutingState.INITIALIZING;
 import static org.elasticsearch.cluster.routing.ShardRoutingState.UNASSIGNED;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 
@@ -403,6 +415,92 @@ public class RoutingTableTests extends ESAllocationTestCase {
         }
     }
 
+    public void testRoutingTableDiffOnlyHoldsChangedShards() throws IOException {
+        initPrimaries();
+        final RoutingTable before = clusterState.routingTable();
+        final ShardRouting startedShard = randomFrom(clusterState.getRoutingNodes().shardsWithState(TEST_INDEX_1, INITIALIZING));
+        final RoutingTable after = ALLOCATION_SERVICE.applyStartedShards(clusterState, Collections.singletonList(startedShard))
+            .routingTable();
+        final Diff<RoutingTable> diff = after.diff(before);
+
+        final BytesReference shardLevelDiff = serializeDiff(diff, Version.CURRENT);
+        assertThat(readDiff(shardLevelDiff, Version.CURRENT).apply(before).indicesRouting(), equalTo(after.indicesRouting()));
+
+        final Version oldVersion = Version.CURRENT.minimumCompatibilityVersion();
+        assertTrue(oldVersion.before(IndexRoutingTable.SHARD_LEVEL_DIFF_VERSION));
+        final BytesReference indexLevelDiff = serializeDiff(diff, oldVersion);
+        assertThat(readDiff(indexLevelDiff, oldVersion).apply(before).indicesRouting(), equalTo(after.indicesRouting()));
+
+        if (numberOfShards > 1) {
+            // the other shards of the index are left out of the diff
+            assertThat(shardLevelDiff.length(), lessThan(indexLevelDiff.length()));
+        }
+    }
+
+    public void testRoutingTableDiffOfReplacedIndex() throws IOException {
+        initPrimaries();
+        final RoutingTable before = clusterState.routingTable();
+        final IndexMetaData replacedIndex = createIndexMetaData(TEST_INDEX_1)
+            .settings(Settings.builder().put(DEFAULT_SETTINGS).put(IndexMetaData.SETTING_INDEX_UUID, UUIDs.randomBase64UUID()))
+            .numberOfShards(numberOfShards)
+            .numberOfReplicas(numberOfReplicas)
+            .build();
+        final RoutingTable after = RoutingTable.builder(before).remove(TEST_INDEX_1).addAsNew(replacedIndex).build();
+        assertThat(after.index(TEST_INDEX_1).getIndex(), not(equalTo(before.index(TEST_INDEX_1).getIndex())));
+
+        final Version version = VersionUtils.randomVersionBetween(random(), Version.CURRENT.minimumCompatibilityVersion(),
+            Version.CURRENT);
+        final RoutingTable applied = readDiff(serializeDiff(after.diff(before), version), version).apply(before);
+        assertThat(applied.indicesRouting(), equalTo(after.indicesRouting()));
+    }
+
+    public void testRoutingNodesAreCarriedOverToResultingState() {
+        initPrimaries();
+        startInitializingShards(TEST_INDEX_1);
+        if (randomBoolean()) {
+            clusterState = ClusterState.builder(clusterState).metaData(MetaData.builder(clusterState.metaData())
+                .persistentSettings(Settings.builder().put("setting", randomAlphaOfLength(5)).build())).build();
+        }
+        final RoutingNodes routingNodes = clusterState.getRoutingNodes();
+        assertTrue(routingNodes.isReadOnly());
+        final RoutingNodes builtRoutingNodes = new RoutingNodes(clusterState);
+        assertThat(routingNodes.size(), equalTo(builtRoutingNodes.size()));
+        for (RoutingNode routingNode : builtRoutingNodes) {
+            final RoutingNode carriedOverNode = routingNodes.node(routingNode.nodeId());
+            assertThat(new HashSet<>(carriedOverNode.copyShards()), equalTo(new HashSet<>(routingNode.copyShards())));
+            assertThat(routingNodes.getIncomingRecoveries(routingNode.nodeId()),
+                equalTo(builtRoutingNodes.getIncomingRecoveries(routingNode.nodeId())));
+            assertThat(routingNodes.getOutgoingRecoveries(routingNode.nodeId()),
+                equalTo(builtRoutingNodes.getOutgoingRecoveries(routingNode.nodeId())));
+        }
+        assertThat(routingNodes.unassigned().size(), equalTo(builtRoutingNodes.unassigned().size()));
+        assertThat(routingNodes.unassigned().ignored(), empty());
+        assertThat(routingNodes.unassigned().getNumPrimaries(), equalTo(builtRoutingNodes.unassigned().getNumPrimaries()));
+        assertThat(routingNodes.hasInactiveShards(), equalTo(builtRoutingNodes.hasInactiveShards()));
+        assertThat(routingNodes.hasInactivePrimaries(), equalTo(builtRoutingNodes.hasInactivePrimaries()));
+
+        assertSame(routingNodes, ClusterState.builder(clusterState).incrementVersion().build().getRoutingNodes());
+
+        // a new routing table drops the routing nodes
+        final ClusterState newState = ClusterState.builder(clusterState)
+            .routingTable(RoutingTable.builder(clusterState.routingTable()).remove(TEST_INDEX_2).build()).build();
+        assertNotSame(routingNodes, newState.getRoutingNodes());
+        assertTrue(newState.getRoutingNodes().isReadOnly());
+    }
+
+    private static BytesReference serializeDiff(Diff<RoutingTable> diff, Version version) throws IOException {
+        final BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(version);
+        diff.writeTo(out);
+        return out.bytes();
+    }
+
+    private static Diff<RoutingTable> readDiff(BytesReference bytes, Version version) throws IOException {
+        final StreamInput in = bytes.streamInput();
+        in.setVersion(version);
+        return RoutingTable.readDiffFrom(in);
+    }
+
     /** reverse engineer the in sync aid based on the given indexRoutingTable **/
     public static IndexMetaData updateActiveAllocations(IndexRoutingTable indexRoutingTable, IndexMetaData indexMetaData) {
         IndexMetaData.Builder imdBuilder = IndexMetaData.builder(indexMetaData);
@@ -0,0 +1,189 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing.allocation;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.ESAllocationTestCase;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.RoutingNode;
+import org.elasticsearch.cluster.routing.RoutingNodes;
+import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDecider;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
+import org.elasticsearch.cluster.routing.allocation.decider.Decision;
+import org.elasticsearch.common.settings.Settings;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.elasticsearch.cluster.routing.ShardRoutingState.INITIALIZING;
+
+public class AllocationDecisionCacheTests extends ESAllocationTestCase {
+
+    private final AtomicInteger canAllocateCalls = new AtomicInteger();
+    private final AtomicInteger canRemainCalls = new AtomicInteger();
+    private final AllocationDeciders deciders = new AllocationDeciders(Collections.singletonList(new CountingDecider()));
+
+    public void testDecisionsAreCachedUntilTheNodeChanges() {
+        final RoutingAllocation allocation = createAllocation();
+        final RoutingNodes routingNodes = allocation.routingNodes();
+        final ShardRouting primary = findUnassigned(routingNodes, "idx");
+        final RoutingNode node1 = routingNodes.node("node1");
+
+        assertEquals(Decision.Type.YES, deciders.canAllocate(primary, node1, allocation).type());
+        assertEquals(Decision.Type.YES, deciders.canAllocate(primary, node1, allocation).type());
+        assertEquals(1, canAllocateCalls.get());
+
+        assertEquals(Decision.Type.YES, deciders.canAllocate(primary, routingNodes.node("node2"), allocation).type());
+        assertEquals(2, canAllocateCalls.get());
+
+        // assigning another shard to the node changes what the deciders may decide about it
+        initialize(allocation, "other", "node1");
+        assertEquals(Decision.Type.YES, deciders.canAllocate(primary, node1, allocation).type());
+        assertEquals(3, canAllocateCalls.get());
+        assertEquals(Decision.Type.YES, deciders.canAllocate(primary, node1, allocation).type());
+        assertEquals(3, canAllocateCalls.get());
+    }
+
+    public void testDecisionsAreInvalidatedWhenAnotherCopyChanges() {
+        final RoutingAllocation allocation = createAllocation();
+        final RoutingNodes routingNodes = allocation.routingNodes();
+        final ShardRouting initializingPrimary = initialize(allocation, "idx", "node1");
+        final ShardRouting replica = findUnassigned(routingNodes, "idx");
+        assertFalse(replica.primary());
+        final RoutingNode node2 = routingNodes.node("node2");
+
+        assertEquals(Decision.Type.YES, deciders.canAllocate(replica, node2, allocation).type());
+        assertEquals(Decision.Type.YES, deciders.canAllocate(replica, node2, allocation).type());
+        assertEquals(1, canAllocateCalls.get());
+
+        // starting the primary does not change node2 but it changes whether the replica can recover from the primary
+        routingNodes.startShard(logger, initializingPrimary, allocation.changes());
+        assertEquals(Decision.Type.YES, deciders.canAllocate(replica, node2, allocation).type());
+        assertEquals(2, canAllocateCalls.get());
+
+        // so does another shard arriving on the node of the primary
+        initialize(allocation, "other", "node1");
+        assertEquals(Decision.Type.YES, deciders.canAllocate(replica, node2, allocation).type());
+        assertEquals(3, canAllocateCalls.get());
+    }
+
+    public void testCanRemainIsCached() {
+        final RoutingAllocation allocation = createAllocation();
+        final RoutingNodes routingNodes = allocation.routingNodes();
+        final ShardRouting shard = initialize(allocation, "idx", "node1");
+        final RoutingNode node1 = routingNodes.node("node1");
+
+        assertEquals(Decision.Type.YES, deciders.canRemain(shard, node1, allocation).type());
+        assertEquals(Decision.Type.YES, deciders.canRemain(shard, node1, allocation).type());
+        assertEquals(1, canRemainCalls.get());
+        assertEquals(0, canAllocateCalls.get());
+    }
+
+    public void testCacheIsBypassedInDebugMode() {
+        final RoutingAllocation allocation = createAllocation();
+        final ShardRouting primary = findUnassigned(allocation.routingNodes(), "idx");
+        final RoutingNode node1 = allocation.routingNodes().node("node1");
+        allocation.setDebugMode(randomFrom(RoutingAllocation.DebugMode.ON, RoutingAllocation.DebugMode.EXCLUDE_YES_DECISIONS));
+
+        deciders.canAllocate(primary, node1, allocation);
+        deciders.canAllocate(primary, node1, allocation);
+        assertEquals(2, canAllocateCalls.get());
+        assertEquals(0, allocation.decisionCache().size());
+        assertEquals(2L, allocation.deciderStats().getCalls("CountingDecider"));
+    }
+
+    public void testCacheIsClearedWhenIgnoringDisabledAllocation() {
+        final RoutingAllocation allocation = createAllocation();
+        final ShardRouting primary = findUnassigned(allocation.routingNodes(), "idx");
+        final RoutingNode node1 = allocation.routingNodes().node("node1");
+
+        deciders.canAllocate(primary, node1, allocation);
+        assertEquals(1, allocation.decisionCache().size());
+        allocation.ignoreDisable(false);
+        assertEquals(1, allocation.decisionCache().size());
+        allocation.ignoreDisable(true);
+        assertEquals(0, allocation.decisionCache().size());
+        deciders.canAllocate(primary, node1, allocation);
+        assertEquals(2, canAllocateCalls.get());
+    }
+
+    /**
+     * Returns the unassigned primary of the given index, or its unassigned replica once the primary is assigned.
+     */
+    private static ShardRouting findUnassigned(RoutingNodes routingNodes, String index) {
+        ShardRouting replica = null;
+        for (ShardRouting shardRouting : routingNodes.unassigned()) {
+            if (shardRouting.getIndexName().equals(index)) {
+                if (shardRouting.primary()) {
+                    return shardRouting;
+                }
+                replica = shardRouting;
+            }
+        }
+        assertNotNull("no unassigned shard of [" + index + "]", replica);
+        return replica;
+    }
+
+    private static ShardRouting initialize(RoutingAllocation allocation, String index, String nodeId) {
+        final ShardRouting shardRouting = findUnassigned(allocation.routingNodes(), index);
+        final RoutingNodes.UnassignedShards.UnassignedIterator iterator = allocation.routingNodes().unassigned().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() == shardRouting) {
+                return iterator.initialize(nodeId, null, 0L, allocation.changes());
+            }
+        }
+        throw new AssertionError("shard " + shardRouting + " is not unassigned");
+    }
+
+    private RoutingAllocation createAllocation() {
+        final MetaData metaData = MetaData.builder()
+            .put(IndexMetaData.builder("idx").settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(1))
+            .put(IndexMetaData.builder("other").settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(0))
+            .build();
+        final ClusterState clusterState = ClusterState.builder(ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY))
+            .metaData(metaData)
+            .routingTable(RoutingTable.builder().addAsNew(metaData.index("idx")).addAsNew(metaData.index("other")).build())
+            .nodes(DiscoveryNodes.builder().add(newNode("node1")).add(newNode("node2")))
+            .build();
+        final RoutingNodes routingNodes = new RoutingNodes(clusterState, false);
+        assertTrue(routingNodes.shardsWithState(INITIALIZING).isEmpty());
+        return new RoutingAllocation(deciders, routingNodes, clusterState, null, System.nanoTime());
+    }
+
+    private class CountingDecider extends AllocationDecider {
+        @Override
+        public Decision canAllocate(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
+            canAllocateCalls.incrementAndGet();
+            return allocation.decision(Decision.YES, "counting", "counting decider");
+        }
+
+        @Override
+        public Decision canRemain(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
+            canRemainCalls.incrementAndGet();
+            return allocation.decision(Decision.YES, "counting", "counting decider");
+        }
+    }
+}
@@ -24,27 +24,37 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.util.ArrayUtil;
 import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterInfo;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.ESAllocationTestCase;
 import org.elasticsearch.cluster.EmptyClusterInfoService;
+import org.elasticsearch.cluster.metadata.AliasMetaData;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
 import org.elasticsearch.cluster.routing.RoutingNode;
 import org.elasticsearch.cluster.routing.RoutingNodes;
 import org.elasticsearch.cluster.routing.RoutingTable;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.ShardRoutingState;
+import org.elasticsearch.cluster.routing.TestShardRouting;
 import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator;
 import org.elasticsearch.cluster.routing.allocation.allocator.ShardsAllocator;
 import org.elasticsearch.cluster.routing.allocation.decider.ClusterRebalanceAllocationDecider;
+import org.elasticsearch.cluster.routing.allocation.decider.ConcurrentRebalanceAllocationDecider;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.test.gateway.TestGatewayAllocator;
 import org.hamcrest.Matchers;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.cluster.routing.ShardRoutingState.STARTED;
 import static org.elasticsearch.cluster.routing.ShardRoutingState.UNASSIGNED;
@@ -114,6 +124,138 @@ public class BalanceConfigurationTests extends ESAllocationTestCase {
             numberOfNodes + 1 - (numberOfNodes + 1) / 2, numberOfIndices, numberOfReplicas, numberOfShards, balanceThreshold);
     }
 
+    public void testBalanceAfterAddingManyNodes() {
+        /* Tests that a cluster is balanced again after doubling its size, which takes many relocations per reroute */
+        final float balanceThreshold = 1.0f;
+
+        Settings.Builder settings = Settings.builder();
+        settings.put(ClusterRebalanceAllocationDecider.CLUSTER_ROUTING_ALLOCATION_ALLOW_REBALANCE_SETTING.getKey(),
+            ClusterRebalanceAllocationDecider.ClusterRebalanceType.ALWAYS.toString());
+        settings.put(BalancedShardsAllocator.INDEX_BALANCE_FACTOR_SETTING.getKey(), 0.0f);
+        settings.put(BalancedShardsAllocator.SHARD_BALANCE_FACTOR_SETTING.getKey(), 1.0f);
+        settings.put(BalancedShardsAllocator.THRESHOLD_SETTING.getKey(), balanceThreshold);
+        settings.put(ConcurrentRebalanceAllocationDecider.CLUSTER_ROUTING_ALLOCATION_CLUSTER_CONCURRENT_REBALANCE_SETTING.getKey(), -1);
+
+        AllocationService strategy = createAllocationService(settings.build(), new TestGatewayAllocator());
+
+        ClusterState clusterState = initCluster(strategy);
+        DiscoveryNodes.Builder nodes = DiscoveryNodes.builder(clusterState.nodes());
+        for (int i = numberOfNodes; i < 2 * numberOfNodes; i++) {
+            nodes.add(newNode("node" + i));
+        }
+        clusterState = ClusterState.builder(clusterState).nodes(nodes).build();
+        clusterState = strategy.reroute(clusterState, "reroute");
+        clusterState = applyStartedShardsUntilNoChange(clusterState, strategy);
+        assertReplicaBalance(clusterState.getRoutingNodes(), 2 * numberOfNodes, numberOfIndices, numberOfReplicas, numberOfShards,
+            balanceThreshold);
+    }
+
+    public void testWriteLoadBalance() {
+        final MetaData.Builder metaDataBuilder = MetaData.builder();
+        for (int i = 0; i < 6; i++) {
+            metaDataBuilder.put(IndexMetaData.builder("idx" + i).settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(0));
+        }
+        final MetaData metaData = metaDataBuilder.build();
+        // only the first three indices are written to, and two of them start out on the same node
+        final ImmutableOpenMap.Builder<ShardId, Double> shardWriteLoads = ImmutableOpenMap.builder();
+        for (int i = 0; i < 3; i++) {
+            shardWriteLoads.put(new ShardId(metaData.index("idx" + i).getIndex(), 0), 100.0);
+        }
+        final ImmutableOpenMap<ShardId, Double> writeLoads = shardWriteLoads.build();
+        final ClusterState clusterState = balanceByWriteLoad(metaData, writeLoads,
+            Map.of("idx0", "node0", "idx1", "node0", "idx2", "node1", "idx3", "node1", "idx4", "node2", "idx5", "node2"));
+
+        for (RoutingNode routingNode : clusterState.getRoutingNodes()) {
+            assertThat(routingNode.numberOfShardsWithState(STARTED), Matchers.equalTo(2));
+            final long hotShards = StreamSupport.stream(routingNode.spliterator(), false)
+                .filter(shardRouting -> writeLoads.containsKey(shardRouting.shardId())).count();
+            assertThat("node " + routingNode.nodeId() + " holds " + routingNode, hotShards, Matchers.equalTo(1L));
+        }
+    }
+
+    public void testWriteLoadBalanceDoesNotSwapHotShards() {
+        final MetaData metaData = MetaData.builder()
+            .put(IndexMetaData.builder("hot").settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(0))
+            .put(IndexMetaData.builder("cold").settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(0))
+            .build();
+        final ImmutableOpenMap<ShardId, Double> shardWriteLoads = ImmutableOpenMap.<ShardId, Double>builder()
+            .fPut(new ShardId(metaData.index("hot").getIndex(), 0), 100.0)
+            .build();
+        // moving the hot shard to the other node would only move the imbalance along with it
+        final ClusterState clusterState = balanceByWriteLoad(metaData, shardWriteLoads, Map.of("hot", "node0", "cold", "node1"));
+
+        final RoutingTable routingTable = clusterState.routingTable();
+        assertThat(routingTable.index("hot").shard(0).primaryShard().currentNodeId(), Matchers.equalTo("node0"));
+        assertThat(routingTable.index("cold").shard(0).primaryShard().currentNodeId(), Matchers.equalTo("node1"));
+    }
+
+    public void testWriteLoadOfRolledOverIndexIsForecast() {
+        final MetaData metaData = MetaData.builder()
+            .put(IndexMetaData.builder("logs-1").settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(0)
+                .creationDate(1L).putAlias(AliasMetaData.builder("logs")))
+            .put(IndexMetaData.builder("logs-2").settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(0)
+                .creationDate(2L).putAlias(AliasMetaData.builder("logs")))
+            .put(IndexMetaData.builder("busy").settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(0))
+            .put(IndexMetaData.builder("cold").settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(0))
+            .build();
+        final ImmutableOpenMap<ShardId, Double> shardWriteLoads = ImmutableOpenMap.<ShardId, Double>builder()
+            .fPut(new ShardId(metaData.index("logs-1").getIndex(), 0), 100.0)
+            .fPut(new ShardId(metaData.index("busy").getIndex(), 0), 100.0)
+            .build();
+        final ClusterState clusterState = balanceByWriteLoad(metaData, shardWriteLoads,
+            Map.of("logs-2", "node0", "busy", "node0", "logs-1", "node1", "cold", "node1"));
+
+        // logs-2 has not been written to yet but is expected to take over the write load of logs-1, which is no longer written to
+        for (RoutingNode routingNode : clusterState.getRoutingNodes()) {
+            assertThat(routingNode.numberOfShardsWithState(STARTED), Matchers.equalTo(2));
+        }
+        final RoutingTable routingTable = clusterState.routingTable();
+        assertThat(routingTable.index("logs-2").shard(0).primaryShard().currentNodeId(),
+            Matchers.not(Matchers.equalTo(routingTable.index("busy").shard(0).primaryShard().currentNodeId())));
+    }
+
+    /**
+     * Starts the single shard of each of the given indices on the given node and then rebalances them until the cluster is balanced,
+     * taking the given write loads into account. Checks that further reroutes do not relocate any shards once the cluster is balanced.
+     */
+    private ClusterState balanceByWriteLoad(MetaData metaData, ImmutableOpenMap<ShardId, Double> shardWriteLoads,
+                                            Map<String, String> initialNodes) {
+        final Settings settings = Settings.builder()
+            .put(ClusterRebalanceAllocationDecider.CLUSTER_ROUTING_ALLOCATION_ALLOW_REBALANCE_SETTING.getKey(),
+                ClusterRebalanceAllocationDecider.ClusterRebalanceType.ALWAYS.toString())
+            .put(BalancedShardsAllocator.WRITE_LOAD_BALANCE_FACTOR_SETTING.getKey(), 1.0f)
+            .build();
+        final ClusterInfo clusterInfo = new ClusterInfo(ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of(),
+            ImmutableOpenMap.of(), shardWriteLoads);
+        final AllocationService strategy = createAllocationService(settings, () -> clusterInfo);
+
+        final MetaData.Builder metaDataBuilder = MetaData.builder(metaData);
+        final RoutingTable.Builder routingTable = RoutingTable.builder();
+        for (Map.Entry<String, String> entry : initialNodes.entrySet()) {
+            final IndexMetaData indexMetaData = metaData.index(entry.getKey());
+            final ShardRouting shardRouting =
+                TestShardRouting.newShardRouting(new ShardId(indexMetaData.getIndex(), 0), entry.getValue(), true, STARTED);
+            metaDataBuilder.put(IndexMetaData.builder(indexMetaData)
+                .putInSyncAllocationIds(0, Collections.singleton(shardRouting.allocationId().getId())));
+            routingTable.add(IndexRoutingTable.builder(indexMetaData.getIndex()).addShard(shardRouting));
+        }
+        final DiscoveryNodes.Builder nodes = DiscoveryNodes.builder();
+        initialNodes.values().stream().distinct().forEach(nodeId -> nodes.add(newNode(nodeId)));
+        ClusterState clusterState = ClusterState.builder(org.elasticsearch.cluster.ClusterName.CLUSTER_NAME_SETTING
+            .getDefault(Settings.EMPTY)).nodes(nodes).metaData(metaDataBuilder).routingTable(routingTable.build()).build();
+        clusterState = strategy.reroute(clusterState, "reroute");
+        for (int i = 0; i < 10 && clusterState.getRoutingNodes().shardsWithState(ShardRoutingState.INITIALIZING).isEmpty() == false; i++) {
+            clusterState = startInitializingShardsAndReroute(strategy, clusterState);
+        }
+        assertThat(clusterState.getRoutingNodes().shardsWithState(ShardRoutingState.INITIALIZING), Matchers.empty());
+        for (int i = 0; i < 3; i++) {
+            final ClusterState rerouted = strategy.reroute(clusterState, "reroute");
+            assertThat(rerouted.getRoutingNodes().shardsWithState(ShardRoutingState.RELOCATING), Matchers.empty());
+            assertSame(clusterState.routingTable(), rerouted.routingTable());
+        }
+        return clusterState;
+    }
+
     private ClusterState initCluster(AllocationService strategy) {
         MetaData.Builder metaDataBuilder = MetaData.builder();
         RoutingTable.Builder routingTableBuilder = RoutingTable.builder();
@@ -264,11 +406,20 @@ public class BalanceConfigurationTests extends ESAllocationTestCase {
         settings = Settings.builder();
         settings.put(BalancedShardsAllocator.INDEX_BALANCE_FACTOR_SETTING.getKey(), 0.5);
         settings.put(BalancedShardsAllocator.SHARD_BALANCE_FACTOR_SETTING.getKey(), 0.1);
+        settings.put(BalancedShardsAllocator.WRITE_LOAD_BALANCE_FACTOR_SETTING.getKey(), 0.4);
         settings.put(BalancedShardsAllocator.THRESHOLD_SETTING.getKey(), 3.0);
         service.applySettings(settings.build());
         assertThat(allocator.getIndexBalance(), Matchers.equalTo(0.5f));
         assertThat(allocator.getShardBalance(), Matchers.equalTo(0.1f));
+        assertThat(allocator.getWriteLoadBalance(), Matchers.equalTo(0.4f));
         assertThat(allocator.getThreshold(), Matchers.equalTo(3.0f));
+
+        settings = Settings.builder();
+        settings.put(BalancedShardsAllocator.INDEX_BALANCE_FACTOR_SETTING.getKey(), 0.3);
+        service.applySettings(settings.build());
+        assertThat(allocator.getIndexBalance(), Matchers.equalTo(0.3f));
+        assertThat(allocator.getShardBalance(), Matchers.equalTo(0.45f));
+        assertThat(allocator.getWriteLoadBalance(), Matchers.equalTo(0.0f));
     }
 
     public void testNoRebalanceOnPrimaryOverload() {
@@ -27,6 +27,7 @@ import org.hamcrest.Matchers;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 
@@ -99,4 +100,30 @@ public class ReleasableBytesReferenceTests extends AbstractBytesReferenceTestCas
     public void testSliceToBytesRef() throws IOException {
         // CompositeBytesReference shifts offsets
     }
+
+    public void testReleasedOnceAllReferencesAreClosed() {
+        final AtomicInteger released = new AtomicInteger();
+        final BytesArray bytes = new BytesArray(randomByteArrayOfLength(randomIntBetween(1, 100)));
+        final ReleasableBytesReference reference = new ReleasableBytesReference(bytes, released::incrementAndGet);
+        final int retained = randomIntBetween(0, 5);
+        for (int i = 0; i < retained; i++) {
+            assertSame(reference, reference.retain());
+        }
+        final int from = randomIntBetween(0, bytes.length() - 1);
+        final ReleasableBytesReference slice = reference.sharedSlice(from, randomIntBetween(0, bytes.length() - from));
+        assertEquals(bytes.slice(from, slice.length()), slice);
+        reference.close();
+        for (int i = 0; i < retained; i++) {
+            assertEquals(0, released.get());
+            // slices share the reference count of the reference they've been sliced from
+            if (randomBoolean()) {
+                slice.close();
+            } else {
+                reference.close();
+            }
+        }
+        assertEquals(1, released.get());
+        assertFalse(reference.tryIncRef());
+        assertFalse(slice.tryIncRef());
+    }
 }
@@ -0,0 +1,63 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.hash;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.zip.CRC32;
+
+public class ChecksumsTests extends ESTestCase {
+
+    public void testCombineCrc32() {
+        final byte[] bytes = randomByteArrayOfLength(randomIntBetween(0, 10_000));
+        final int split = randomIntBetween(0, bytes.length);
+
+        final CRC32 whole = new CRC32();
+        whole.update(bytes, 0, bytes.length);
+        final CRC32 first = new CRC32();
+        first.update(bytes, 0, split);
+        final CRC32 second = new CRC32();
+        second.update(bytes, split, bytes.length - split);
+
+        assertEquals(whole.getValue(), Checksums.combineCrc32(first.getValue(), second.getValue(), bytes.length - split));
+    }
+
+    public void testCombineCrc32OfManyBlocks() {
+        final byte[] bytes = randomByteArrayOfLength(randomIntBetween(1, 100_000));
+        final CRC32 whole = new CRC32();
+        whole.update(bytes, 0, bytes.length);
+
+        long combined = 0L;
+        int offset = 0;
+        while (offset < bytes.length) {
+            final int length = randomIntBetween(1, bytes.length - offset);
+            final CRC32 block = new CRC32();
+            block.update(bytes, offset, length);
+            combined = Checksums.combineCrc32(combined, block.getValue(), length);
+            offset += length;
+        }
+        assertEquals(whole.getValue(), combined);
+    }
+
+    public void testCombineWithEmptyBlock() {
+        final long crc = randomLongBetween(0L, 0xFFFFFFFFL);
+        assertEquals(crc, Checksums.combineCrc32(crc, 0L, 0L));
+    }
+}
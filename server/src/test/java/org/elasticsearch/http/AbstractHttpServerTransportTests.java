@@ -21,6 +21,7 @@ package org.elasticsearch.http;
 
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
@@ -49,6 +50,7 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.junit.After;
 import org.junit.Before;
 
+import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
@@ -285,6 +287,104 @@ public class AbstractHttpServerTransportTests extends ESTestCase {
         }
     }
 
+    public void testStatsTrackInFlightRequestsPerChannel() {
+        final HttpServerTransport.Dispatcher dispatcher = new HttpServerTransport.Dispatcher() {
+            @Override
+            public void dispatchRequest(RestRequest request, RestChannel channel, ThreadContext threadContext) {
+                channel.sendResponse(emptyResponse(RestStatus.OK));
+            }
+
+            @Override
+            public void dispatchBadRequest(RestChannel channel, ThreadContext threadContext, Throwable cause) {
+                channel.sendResponse(emptyResponse(RestStatus.BAD_REQUEST));
+            }
+        };
+
+        try (AbstractHttpServerTransport transport =
+                 new AbstractHttpServerTransport(Settings.EMPTY, networkService, bigArrays, threadPool, xContentRegistry(), dispatcher,
+                     new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS)) {
+
+                     @Override
+                     protected HttpServerChannel bind(InetSocketAddress hostAddress) {
+                         return null;
+                     }
+
+                     @Override
+                     protected void doStart() {
+
+                     }
+
+                     @Override
+                     protected void stopInternal() {
+
+                     }
+                 }) {
+            final ResponseCapturingHttpChannel busyChannel = new ResponseCapturingHttpChannel();
+            final ResponseCapturingHttpChannel otherChannel = new ResponseCapturingHttpChannel();
+            transport.serverAcceptedChannel(busyChannel);
+            transport.serverAcceptedChannel(otherChannel);
+
+            final int busyRequests = randomIntBetween(2, 5);
+            for (int i = 0; i < busyRequests; i++) {
+                transport.incomingRequest(new FakeRestRequest.Builder(NamedXContentRegistry.EMPTY).build().getHttpRequest(), busyChannel);
+            }
+            transport.incomingRequest(new FakeRestRequest.Builder(NamedXContentRegistry.EMPTY).build().getHttpRequest(), otherChannel);
+
+            HttpStats stats = transport.stats();
+            assertEquals(2, stats.getServerOpen());
+            assertEquals(busyRequests + 1, stats.getInFlightRequests());
+            assertEquals(busyRequests, stats.getMaxChannelInFlightRequests());
+            assertEquals(0, stats.getTotalResponses());
+
+            busyChannel.listeners.forEach(l -> l.onResponse(null));
+            stats = transport.stats();
+            assertEquals(1, stats.getInFlightRequests());
+            assertEquals(1, stats.getMaxChannelInFlightRequests());
+            assertEquals(busyRequests, stats.getTotalResponses());
+
+            otherChannel.listeners.forEach(l -> l.onFailure(new IOException("failed")));
+            stats = transport.stats();
+            assertEquals(0, stats.getInFlightRequests());
+            assertEquals(0, stats.getMaxChannelInFlightRequests());
+            assertEquals(busyRequests + 1, stats.getTotalResponses());
+        }
+    }
+
+    private static class ResponseCapturingHttpChannel implements HttpChannel {
+
+        private final List<ActionListener<Void>> listeners = new ArrayList<>();
+
+        @Override
+        public void sendResponse(HttpResponse response, ActionListener<Void> listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public void addCloseListener(ActionListener<Void> listener) {
+
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+
+        }
+    }
+
     private static RestResponse emptyResponse(RestStatus status) {
         return new RestResponse() {
             @Override
@@ -20,6 +20,7 @@
 package org.elasticsearch.http;
 
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.CheckedConsumer;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.PagedBytesReference;
@@ -36,6 +37,8 @@ import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.rest.BytesRestResponse;
+import org.elasticsearch.rest.ChunkedRestResponse;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.RestChannel;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestResponse;
@@ -49,12 +52,14 @@ import org.junit.Before;
 import org.mockito.ArgumentCaptor;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -63,6 +68,8 @@ import java.util.function.Supplier;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.not;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.atLeastOnce;
@@ -270,6 +277,70 @@ public class DefaultRestChannelTests extends ESTestCase {
         // ESTestCase#after will invoke ensureAllArraysAreReleased which will fail if the response content was not released
     }
 
+    public void testChunkedResponseIsStreamed() throws IOException {
+        final TestRequest httpRequest = new TestRequest(HttpRequest.HttpVersion.HTTP_1_1, RestRequest.Method.GET, "/");
+        final RestRequest request = RestRequest.request(xContentRegistry(), httpRequest, httpChannel);
+        final DefaultRestChannel channel = new DefaultRestChannel(httpChannel, httpRequest, request, bigArrays,
+            HttpHandlingSettings.fromSettings(Settings.EMPTY), threadPool.getThreadContext(), null);
+
+        final List<String> lines = new ArrayList<>();
+        for (int i = between(1, 100); i > 0; i--) {
+            lines.add(randomAlphaOfLengthBetween(1, 20) + "\n");
+        }
+        final Iterator<CheckedConsumer<Writer, IOException>> lineChunks =
+            lines.stream().<CheckedConsumer<Writer, IOException>>map(l -> w -> w.write(l)).iterator();
+        channel.sendResponse(new ChunkedRestResponse(RestStatus.OK,
+            ChunkedRestResponseBody.fromTextChunks(BytesRestResponse.TEXT_CONTENT_TYPE, lineChunks)));
+
+        final ArgumentCaptor<TestResponse> responseCaptor = ArgumentCaptor.forClass(TestResponse.class);
+        verify(httpChannel).sendResponse(responseCaptor.capture(), any());
+        final TestResponse httpResponse = responseCaptor.getValue();
+        assertNull(httpResponse.content);
+        assertNotNull(httpResponse.chunkedContent);
+        assertFalse(httpResponse.containsHeader(DefaultRestChannel.CONTENT_LENGTH));
+        assertEquals(BytesRestResponse.TEXT_CONTENT_TYPE, httpResponse.headers.get(DefaultRestChannel.CONTENT_TYPE).get(0));
+
+        // the body is only serialized as the http layer asks for it, in chunks of roughly the requested size
+        final int sizeHint = between(1, 100);
+        final BytesStreamOutput received = new BytesStreamOutput();
+        int chunks = 0;
+        while (httpResponse.chunkedContent.isDone() == false) {
+            try (ReleasableBytesReference chunk = httpResponse.chunkedContent.encodeChunk(sizeHint, bigArrays)) {
+                assertThat(chunk.length(), lessThan(sizeHint + 21));
+                chunk.writeTo(received);
+            }
+            chunks++;
+        }
+        assertThat(chunks, lessThanOrEqualTo(lines.size()));
+        assertEquals(String.join("", lines), received.bytes().utf8ToString());
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testChunkedResponseIsSentInFullIfItCannotBeStreamed() throws IOException {
+        final boolean head = randomBoolean();
+        final TestRequest httpRequest = new TestRequest(head ? HttpRequest.HttpVersion.HTTP_1_1 : HttpRequest.HttpVersion.HTTP_1_0,
+            head ? RestRequest.Method.HEAD : RestRequest.Method.GET, "/");
+        final RestRequest request = RestRequest.request(xContentRegistry(), httpRequest, httpChannel);
+        final DefaultRestChannel channel = new DefaultRestChannel(httpChannel, httpRequest, request, bigArrays,
+            HttpHandlingSettings.fromSettings(Settings.EMPTY), threadPool.getThreadContext(), null);
+
+        final String content = randomAlphaOfLengthBetween(1, 100);
+        channel.sendResponse(new ChunkedRestResponse(RestStatus.OK, ChunkedRestResponseBody.fromTextChunks(
+            BytesRestResponse.TEXT_CONTENT_TYPE, Collections.<CheckedConsumer<Writer, IOException>>singletonList(w -> w.write(content))
+                .iterator())));
+
+        final ArgumentCaptor<TestResponse> responseCaptor = ArgumentCaptor.forClass(TestResponse.class);
+        final ArgumentCaptor<ActionListener<Void>> listenerCaptor =
+            ArgumentCaptor.forClass((Class<ActionListener<Void>>) (Class) ActionListener.class);
+        verify(httpChannel).sendResponse(responseCaptor.capture(), listenerCaptor.capture());
+        final TestResponse httpResponse = responseCaptor.getValue();
+        assertNull(httpResponse.chunkedContent);
+        assertEquals(head ? "" : content, httpResponse.content.utf8ToString());
+        assertEquals(Integer.toString(content.length()), httpResponse.headers.get(DefaultRestChannel.CONTENT_LENGTH).get(0));
+        // releases the serialized content, which ESTestCase#after checks
+        listenerCaptor.getValue().onResponse(null);
+    }
+
     @SuppressWarnings("unchecked")
     public void testConnectionClose() throws Exception {
         final Settings settings = Settings.builder().build();
@@ -461,6 +532,11 @@ public class DefaultRestChannelTests extends ESTestCase {
             return new TestResponse(status, content);
         }
 
+        @Override
+        public HttpResponse createResponse(RestStatus status, ChunkedRestResponseBody content) {
+            return new TestResponse(status, content);
+        }
+
         @Override
         public void release() {
         }
@@ -475,11 +551,19 @@ public class DefaultRestChannelTests extends ESTestCase {
 
         private final RestStatus status;
         private final BytesReference content;
+        private final ChunkedRestResponseBody chunkedContent;
         private final Map<String, List<String>> headers = new HashMap<>();
 
         TestResponse(RestStatus status, BytesReference content) {
             this.status = status;
             this.content = content;
+            this.chunkedContent = null;
+        }
+
+        TestResponse(RestStatus status, ChunkedRestResponseBody chunkedContent) {
+            this.status = status;
+            this.content = null;
+            this.chunkedContent = chunkedContent;
         }
 
         public String contentType() {
@@ -0,0 +1,176 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.LogByteSizeMergePolicy;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+public class EsTimeSeriesMergePolicyTests extends ESTestCase {
+
+    private static final String FIELD = "@timestamp";
+
+    public void testDefaults() {
+        EsTimeSeriesMergePolicy policy = new EsTimeSeriesMergePolicy(FIELD);
+        LogByteSizeMergePolicy logMergePolicy = new LogByteSizeMergePolicy();
+        assertEquals(FIELD, policy.getTimestampField());
+        assertEquals(-1, policy.getMaxAgeInMillis());
+        assertEquals(logMergePolicy.getMinMergeMB(), policy.getFloorSegmentMB(), 0d);
+        assertEquals(logMergePolicy.getMaxMergeMB(), policy.getMaxMergedSegmentMB(), 0d);
+        assertEquals(logMergePolicy.getMergeFactor(), policy.getMaxMergeAtOnce());
+    }
+
+    public void testSetters() {
+        EsTimeSeriesMergePolicy policy = new EsTimeSeriesMergePolicy(FIELD);
+        policy.setFloorSegmentMB(42);
+        policy.setMaxMergedSegmentMB(1024);
+        policy.setMaxMergeAtOnce(7);
+        policy.setMaxAgeInMillis(1000);
+        assertEquals(42, policy.getFloorSegmentMB(), 0d);
+        assertEquals(1024, policy.getMaxMergedSegmentMB(), 0d);
+        assertEquals(7, policy.getMaxMergeAtOnce());
+        assertEquals(1000, policy.getMaxAgeInMillis());
+    }
+
+    public void testSortByTimestamp() throws IOException {
+        try (Directory dir = newDirectory()) {
+            IndexWriterConfig iwc = new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+            try (IndexWriter writer = new IndexWriter(dir, iwc)) {
+                addSegment(writer, 300, 399);
+                addSegment(writer, 0, 99);
+                writer.addDocument(new Document()); // no timestamp
+                writer.flush();
+                addSegment(writer, 200, 299);
+                addSegment(writer, 100, 199);
+                writer.commit();
+            }
+            SegmentInfos infos = SegmentInfos.readLatestCommit(dir);
+            assertEquals(5, infos.size());
+
+            EsTimeSeriesMergePolicy policy = new EsTimeSeriesMergePolicy(FIELD, () -> 1000L);
+            SegmentInfos sorted = policy.sortByTimestamp(infos, true);
+            assertEquals(5, sorted.size());
+            assertSame(infos.info(1), sorted.info(0));
+            assertSame(infos.info(4), sorted.info(1));
+            assertSame(infos.info(3), sorted.info(2));
+            assertSame(infos.info(0), sorted.info(3));
+            assertSame(infos.info(2), sorted.info(4));
+
+            // segments whose timestamps are all older than 1000 - 750 = 250 are left out, unless they are small
+            policy.setMaxAgeInMillis(750);
+            policy.setFloorSegmentMB(0);
+            sorted = policy.sortByTimestamp(infos, true);
+            assertEquals(3, sorted.size());
+            assertSame(infos.info(3), sorted.info(0));
+            assertSame(infos.info(0), sorted.info(1));
+            assertSame(infos.info(2), sorted.info(2));
+
+            // but are still considered for forced merges
+            assertEquals(5, policy.sortByTimestamp(infos, false).size());
+
+            policy.setFloorSegmentMB(1);
+            assertEquals(5, policy.sortByTimestamp(infos, true).size());
+        }
+    }
+
+    public void testMergesAdjacentSegments() throws IOException {
+        try (Directory dir = newDirectory()) {
+            EsTimeSeriesMergePolicy policy = new EsTimeSeriesMergePolicy(FIELD);
+            policy.setNoCFSRatio(random().nextBoolean() ? 0 : 1);
+            IndexWriterConfig iwc = new IndexWriterConfig().setMergePolicy(policy);
+            // interleave the time ranges of the segments in the order in which they are written
+            int numSegments = randomIntBetween(4, 12);
+            List<Integer> order = new ArrayList<>();
+            for (int i = 0; i < numSegments; i++) {
+                order.add(i);
+            }
+            Collections.shuffle(order, random());
+            try (IndexWriter writer = new IndexWriter(dir, iwc)) {
+                for (int i : order) {
+                    addSegment(writer, i * 100, i * 100 + 99);
+                }
+                writer.forceMerge(randomIntBetween(1, 3));
+                try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                    List<long[]> ranges = new ArrayList<>();
+                    for (LeafReaderContext context : reader.leaves()) {
+                        PointValues values = context.reader().getPointValues(FIELD);
+                        ranges.add(new long[] {
+                            LongPoint.decodeDimension(values.getMinPackedValue(), 0),
+                            LongPoint.decodeDimension(values.getMaxPackedValue(), 0) });
+                        assertEquals(values.size(), context.reader().maxDoc());
+                    }
+                    ranges.sort(Comparator.comparingLong(range -> range[0]));
+                    for (int i = 1; i < ranges.size(); i++) {
+                        assertEquals("merged segments must not overlap", ranges.get(i - 1)[1] + 1, ranges.get(i)[0]);
+                    }
+                }
+            }
+        }
+    }
+
+    public void testUnreadableSegmentsAreOrderedLast() throws IOException {
+        try (Directory dir = newDirectory()) {
+            IndexWriterConfig iwc = new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+            try (IndexWriter writer = new IndexWriter(dir, iwc)) {
+                addSegment(writer, 100, 199);
+                Document document = new Document();
+                document.add(new StringField(FIELD, "not a long", Field.Store.NO));
+                writer.addDocument(document);
+                writer.flush();
+                addSegment(writer, 0, 99);
+                writer.commit();
+            }
+            SegmentInfos infos = SegmentInfos.readLatestCommit(dir);
+            SegmentInfos sorted = new EsTimeSeriesMergePolicy(FIELD).sortByTimestamp(infos, true);
+            List<SegmentCommitInfo> expected = new ArrayList<>();
+            expected.add(infos.info(2));
+            expected.add(infos.info(0));
+            expected.add(infos.info(1));
+            assertEquals(expected, sorted.asList());
+        }
+    }
+
+    private static void addSegment(IndexWriter writer, long minTimestamp, long maxTimestamp) throws IOException {
+        for (long timestamp = minTimestamp; timestamp <= maxTimestamp; timestamp++) {
+            Document document = new Document();
+            document.add(new LongPoint(FIELD, timestamp));
+            writer.addDocument(document);
+        }
+        writer.flush();
+    }
+}
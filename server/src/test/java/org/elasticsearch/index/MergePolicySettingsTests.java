@@ -22,6 +22,7 @@ import org.apache.lucene.index.NoMergePolicy;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.test.ESTestCase;
 
@@ -64,6 +65,40 @@ public class MergePolicySettingsTests extends ESTestCase {
         assertTrue(mp.getMergePolicy() instanceof NoMergePolicy);
     }
 
+    public void testTimeSeriesMergePolicySettings() {
+        Settings timeSeries = Settings.builder()
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.getKey(), "time_series")
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_TIME_SERIES_FIELD_SETTING.getKey(), "timestamp")
+            .build();
+        IndexSettings indexSettings = indexSettings(timeSeries);
+        EsTimeSeriesMergePolicy mergePolicy = (EsTimeSeriesMergePolicy) indexSettings.getMergePolicy();
+        assertEquals("timestamp", mergePolicy.getTimestampField());
+        assertEquals(MergePolicyConfig.DEFAULT_TIME_SERIES_MAX_AGE.millis(), mergePolicy.getMaxAgeInMillis());
+        assertEquals(MergePolicyConfig.DEFAULT_FLOOR_SEGMENT.getMbFrac(), mergePolicy.getFloorSegmentMB(), 0.001);
+        assertEquals(MergePolicyConfig.DEFAULT_MAX_MERGE_AT_ONCE, mergePolicy.getMaxMergeAtOnce());
+        assertEquals(MergePolicyConfig.DEFAULT_MAX_MERGED_SEGMENT.getMbFrac(), mergePolicy.getMaxMergedSegmentMB(), 0.001);
+        assertEquals(0.1, mergePolicy.getNoCFSRatio(), 0.0d);
+
+        indexSettings.updateIndexMetaData(newIndexMeta("index", Settings.builder().put(timeSeries)
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_TIME_SERIES_MAX_AGE_SETTING.getKey(), "1d")
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_FLOOR_SEGMENT_SETTING.getKey(), "10mb")
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_MAX_MERGE_AT_ONCE_SETTING.getKey(), 5)
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_MAX_MERGED_SEGMENT_SETTING.getKey(), "1gb")
+            .put(MergePolicyConfig.INDEX_COMPOUND_FORMAT_SETTING.getKey(), false)
+            .build()));
+        assertSame(mergePolicy, indexSettings.getMergePolicy());
+        assertEquals(TimeValue.timeValueDays(1).millis(), mergePolicy.getMaxAgeInMillis());
+        assertEquals(10, mergePolicy.getFloorSegmentMB(), 0.001);
+        assertEquals(5, mergePolicy.getMaxMergeAtOnce());
+        assertEquals(1024, mergePolicy.getMaxMergedSegmentMB(), 0.001);
+        assertEquals(0.0, mergePolicy.getNoCFSRatio(), 0.0d);
+
+        assertTrue(indexSettings(Settings.EMPTY).getMergePolicy() instanceof EsTieredMergePolicy);
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> indexSettings(Settings.builder()
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.getKey(), "log").build()));
+        assertThat(e.getMessage(), containsString("unknown merge policy type [log]"));
+    }
+
     public void testUpdateSettings() throws IOException {
         IndexSettings indexSettings = indexSettings(EMPTY_SETTINGS);
         assertThat(indexSettings.getMergePolicy().getNoCFSRatio(), equalTo(0.1));
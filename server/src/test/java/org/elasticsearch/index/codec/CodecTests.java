@@ -20,6 +20,7 @@
 package org.elasticsearch.index.codec;
 
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
 
 import java.io.IOException;
 import java.util.Collections;
@@ -40,6 +41,8 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.analysis.IndexAnalyzers;
+import org.elasticsearch.index.codec.bloomfilter.ES85BloomFilterPostingsFormat;
+import org.elasticsearch.index.mapper.IdFieldMapper;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.similarity.SimilarityService;
 import org.elasticsearch.indices.mapper.MapperRegistry;
@@ -67,6 +70,19 @@ public class CodecTests extends ESTestCase {
         assertCompressionEquals(Mode.BEST_COMPRESSION, codec);
     }
 
+    public void testIdBloomFilter() throws Exception {
+        Codec codec = createCodecService(Settings.EMPTY).codec("default");
+        assertThat(((PerFieldMappingPostingFormatCodec) codec).getPostingsFormatForField(IdFieldMapper.NAME),
+            not(instanceOf(ES85BloomFilterPostingsFormat.class)));
+
+        codec = createCodecService(Settings.builder()
+            .put(IndexSettings.INDEX_BLOOM_FILTER_ID_FIELD_ENABLED_SETTING.getKey(), true).build()).codec("default");
+        assertThat(((PerFieldMappingPostingFormatCodec) codec).getPostingsFormatForField(IdFieldMapper.NAME),
+            instanceOf(ES85BloomFilterPostingsFormat.class));
+        assertThat(((PerFieldMappingPostingFormatCodec) codec).getPostingsFormatForField("field"),
+            not(instanceOf(ES85BloomFilterPostingsFormat.class)));
+    }
+
     // write some docs with it, inspect .si to see this was the used compression
     private void assertCompressionEquals(Mode expected, Codec actual) throws Exception {
         Directory dir = newDirectory();
@@ -86,10 +102,17 @@ public class CodecTests extends ESTestCase {
     }
 
     private CodecService createCodecService() throws IOException {
+        return createCodecService(Settings.EMPTY);
+    }
+
+    private CodecService createCodecService(Settings indexSettings) throws IOException {
         Settings nodeSettings = Settings.builder()
                 .put(Environment.PATH_HOME_SETTING.getKey(), createTempDir())
                 .build();
-        IndexSettings settings = IndexSettingsModule.newIndexSettings("_na", nodeSettings);
+        IndexSettings settings = IndexSettingsModule.newIndexSettings("_na", Settings.builder()
+                .put(nodeSettings)
+                .put(indexSettings)
+                .build());
         SimilarityService similarityService = new SimilarityService(settings, null, Collections.emptyMap());
         IndexAnalyzers indexAnalyzers = createTestAnalysis(settings, nodeSettings).indexAnalyzers;
         MapperRegistry mapperRegistry = new MapperRegistry(Collections.emptyMap(), Collections.emptyMap(), MapperPlugin.NOOP_FIELD_FILTER);
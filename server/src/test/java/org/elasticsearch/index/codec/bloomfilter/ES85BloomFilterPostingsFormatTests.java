@@ -0,0 +1,148 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.codec.bloomfilter;
+
+import org.apache.lucene.codecs.PostingsFormat;
+import org.apache.lucene.codecs.lucene84.Lucene84Codec;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LuceneTestCase.SuppressCodecs;
+import org.elasticsearch.common.hash.MurmurHash3;
+import org.elasticsearch.index.mapper.IdFieldMapper;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+
+@SuppressCodecs("*") // we test against our own codec
+public class ES85BloomFilterPostingsFormatTests extends ESTestCase {
+
+    public void testNumBits() {
+        assertThat(ES85BloomFilterPostingsFormat.numBits(0), equalTo(Byte.SIZE));
+        assertThat(ES85BloomFilterPostingsFormat.numBits(1), equalTo(16));
+        assertThat(ES85BloomFilterPostingsFormat.numBits(1000), equalTo(10000));
+        assertThat(ES85BloomFilterPostingsFormat.numBits(Integer.MAX_VALUE), equalTo(ES85BloomFilterPostingsFormat.MAX_NUM_BITS));
+        final int maxDoc = randomIntBetween(0, Integer.MAX_VALUE);
+        final int numBits = ES85BloomFilterPostingsFormat.numBits(maxDoc);
+        assertThat(numBits % Byte.SIZE, equalTo(0));
+        final int numHashFunctions = ES85BloomFilterPostingsFormat.numHashFunctions(maxDoc, numBits);
+        assertThat(numHashFunctions, greaterThanOrEqualTo(1));
+        assertThat(numHashFunctions, lessThan(ES85BloomFilterPostingsFormat.MAX_NUM_HASH_FUNCTIONS + 1));
+    }
+
+    public void testBitPosition() {
+        final MurmurHash3.Hash128 hash = new MurmurHash3.Hash128();
+        final int numBits = ES85BloomFilterPostingsFormat.numBits(randomIntBetween(1, 1000));
+        ES85BloomFilterPostingsFormat.hash(new BytesRef(randomAlphaOfLength(20)), hash);
+        for (int i = 0; i < ES85BloomFilterPostingsFormat.MAX_NUM_HASH_FUNCTIONS; i++) {
+            final long bit = ES85BloomFilterPostingsFormat.bitPosition(hash, i, numBits);
+            assertThat(bit, greaterThanOrEqualTo(0L));
+            assertThat(bit, lessThan((long) numBits));
+        }
+    }
+
+    public void testIdLookups() throws IOException {
+        final Set<String> ids = new HashSet<>();
+        try (Directory dir = newDirectory()) {
+            final IndexWriterConfig iwc = newIndexWriterConfig(null);
+            iwc.setCodec(new BloomFilterCodec());
+            // we check that the bloom filter files are written
+            iwc.setUseCompoundFile(false);
+            iwc.getMergePolicy().setNoCFSRatio(0.0);
+            try (IndexWriter writer = new IndexWriter(dir, iwc)) {
+                final int numDocs = randomIntBetween(1, 1000);
+                for (int i = 0; i < numDocs; i++) {
+                    final String id = randomAlphaOfLength(10);
+                    ids.add(id);
+                    final Document doc = new Document();
+                    doc.add(new StringField(IdFieldMapper.NAME, id, Field.Store.NO));
+                    doc.add(new StringField("field", randomAlphaOfLength(5), Field.Store.NO));
+                    writer.updateDocument(new Term(IdFieldMapper.NAME, id), doc);
+                    if (rarely()) {
+                        writer.flush();
+                    }
+                }
+                if (randomBoolean()) {
+                    writer.forceMerge(1);
+                }
+                writer.commit();
+            }
+            final Set<String> files = new HashSet<>(Arrays.asList(dir.listAll()));
+            assertTrue(files.toString(), files.stream().anyMatch(f -> f.endsWith(ES85BloomFilterPostingsFormat.BLOOM_FILTER_INDEX_FILE)));
+            assertTrue(files.toString(), files.stream().anyMatch(f -> f.endsWith(ES85BloomFilterPostingsFormat.BLOOM_FILTER_META_FILE)));
+
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                for (String id : ids) {
+                    assertTrue(id, containsTerm(reader, IdFieldMapper.NAME, new BytesRef(id)));
+                }
+                for (int i = 0; i < 100; i++) {
+                    final String id = randomAlphaOfLength(11);
+                    assertFalse(id, containsTerm(reader, IdFieldMapper.NAME, new BytesRef(id)));
+                }
+                for (LeafReaderContext leaf : reader.leaves()) {
+                    // fields without bloom filter are still readable
+                    assertNotNull(leaf.reader().terms("field"));
+                }
+            }
+        }
+    }
+
+    private static boolean containsTerm(DirectoryReader reader, String field, BytesRef term) throws IOException {
+        for (LeafReaderContext leaf : reader.leaves()) {
+            final Terms terms = leaf.reader().terms(field);
+            if (terms != null) {
+                final TermsEnum termsEnum = terms.iterator();
+                if (termsEnum.seekExact(term)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static class BloomFilterCodec extends Lucene84Codec {
+        private final PostingsFormat bloomFilterPostingsFormat =
+            new ES85BloomFilterPostingsFormat(super.getPostingsFormatForField(IdFieldMapper.NAME));
+
+        @Override
+        public PostingsFormat getPostingsFormatForField(String field) {
+            if (IdFieldMapper.NAME.equals(field)) {
+                return bloomFilterPostingsFormat;
+            }
+            return super.getPostingsFormatForField(field);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.elasticsearch.test.ESTestCase;
+
+public class ContentPathTests extends ESTestCase {
+
+    public void testRootField() {
+        ContentPath path = new ContentPath();
+        assertEquals(0, path.length());
+        assertEquals("foo", path.pathAsText("foo"));
+        assertEquals("foo.bar", path.pathAsText("foo.bar"));
+    }
+
+    public void testObjectFields() {
+        ContentPath path = new ContentPath();
+        path.add("foo");
+        assertEquals("foo.bar", path.pathAsText("bar"));
+        path.add("bar");
+        assertEquals(2, path.length());
+        assertEquals("foo.bar.baz", path.pathAsText("baz"));
+        path.remove();
+        assertEquals("foo.baz", path.pathAsText("baz"));
+        path.remove();
+        assertEquals(0, path.length());
+        assertEquals("baz", path.pathAsText("baz"));
+    }
+
+    public void testDeepPath() {
+        ContentPath path = new ContentPath();
+        StringBuilder expected = new StringBuilder();
+        int depth = randomIntBetween(10, 30);
+        for (int i = 0; i < depth; i++) {
+            path.add("f" + i);
+            expected.append("f").append(i).append('.');
+        }
+        assertEquals(expected + "leaf", path.pathAsText("leaf"));
+    }
+
+    public void testOffset() {
+        ContentPath path = new ContentPath(1);
+        assertEquals("foo", path.pathAsText("foo"));
+        path.add("root");
+        // the first element is left out of the path
+        assertEquals("foo", path.pathAsText("foo"));
+        path.add("bar");
+        assertEquals("bar.foo", path.pathAsText("foo"));
+    }
+}
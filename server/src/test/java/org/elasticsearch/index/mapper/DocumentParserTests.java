@@ -161,6 +161,60 @@ public class DocumentParserTests extends ESSingleNodeTestCase {
         assertEquals("789", values[2]);
     }
 
+    public void testFullPathsOfObjectNestedAndDottedFields() throws Exception {
+        DocumentMapperParser mapperParser = createIndex("test").mapperService().documentMapperParser();
+        String mapping = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type").startObject("properties")
+            .startObject("obj").startObject("properties")
+                .startObject("inner").field("type", "text").endObject()
+                .startObject("num").field("type", "integer").field("ignore_malformed", true).endObject()
+            .endObject().endObject()
+            .startObject("nested").field("type", "nested").startObject("properties")
+                .startObject("leaf").field("type", "text").endObject()
+                .startObject("num").field("type", "integer").field("ignore_malformed", true).endObject()
+            .endObject().endObject()
+            .endObject().endObject().endObject());
+        DocumentMapper mapper = mapperParser.parse("type", new CompressedXContent(mapping));
+
+        BytesReference bytes = BytesReference.bytes(XContentFactory.jsonBuilder()
+            .startObject()
+            .field("obj.inner", "dotted")
+            .startObject("obj")
+            .field("inner", "object")
+            .field("num", "not_a_number")
+            .endObject()
+            .startArray("nested")
+            .startObject().field("leaf", "first").field("num", "not_a_number").endObject()
+            .startObject().field("leaf", "second").endObject()
+            .endArray()
+            .endObject());
+        ParsedDocument doc = mapper.parse(new SourceToParse("test", "1", bytes, XContentType.JSON));
+        assertNull(doc.dynamicMappingsUpdate());
+
+        assertEquals(3, doc.docs().size());
+        assertArrayEquals(new String[] { "first" }, doc.docs().get(0).getValues("nested.leaf"));
+        assertArrayEquals(new String[] { "second" }, doc.docs().get(1).getValues("nested.leaf"));
+        Document rootDoc = doc.rootDoc();
+        assertEquals(0, rootDoc.getFields("nested.leaf").length);
+        assertArrayEquals(new String[] { "dotted", "object" }, rootDoc.getValues("obj.inner"));
+        assertEquals(0, rootDoc.getFields("inner").length);
+
+        // malformed values are recorded with the full path of their field
+        List<String> ignored = new ArrayList<>();
+        for (IndexableField field : rootDoc.getFields(IgnoredFieldMapper.NAME)) {
+            ignored.add(field.stringValue());
+        }
+        Collections.sort(ignored);
+        assertEquals(List.of("nested.num", "obj.num"), ignored);
+
+        BytesReference noIgnoredFields = BytesReference.bytes(XContentFactory.jsonBuilder()
+            .startObject()
+            .startObject("obj").field("num", 1).endObject()
+            .endObject());
+        doc = mapper.parse(new SourceToParse("test", "2", noIgnoredFields, XContentType.JSON));
+        assertEquals(0, doc.rootDoc().getFields(IgnoredFieldMapper.NAME).length);
+        assertNotNull(doc.rootDoc().getField("obj.num"));
+    }
+
     public void testDotsWithExistingNestedMapper() throws Exception {
         DocumentMapperParser mapperParser = createIndex("test").mapperService().documentMapperParser();
         String mapping = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type").startObject("properties")
@@ -1152,6 +1206,10 @@ public class DocumentParserTests extends ESSingleNodeTestCase {
         BytesReference bytes2 = BytesReference.bytes(XContentFactory.jsonBuilder().startObject()
             .field("foo._ttl", 0).endObject());
         mapper.parse(new SourceToParse("test", "1", bytes2, XContentType.JSON)); // parses without error
+
+        BytesReference bytes3 = BytesReference.bytes(XContentFactory.jsonBuilder().startObject()
+            .startObject("foo").field("_ttl", 0).endObject().endObject());
+        mapper.parse(new SourceToParse("test", "1", bytes3, XContentType.JSON)); // parses without error
     }
 
     public void testSimpleMapper() throws Exception {
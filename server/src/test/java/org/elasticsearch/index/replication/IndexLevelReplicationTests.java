@@ -52,6 +52,7 @@ import org.elasticsearch.index.shard.IndexShardTests;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.translog.SnapshotMatchers;
 import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.indices.recovery.RecoveryState;
 import org.elasticsearch.indices.recovery.RecoveryTarget;
 import org.elasticsearch.threadpool.TestThreadPool;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -206,13 +207,13 @@ public class IndexLevelReplicationTests extends ESIndexLevelReplicationTestCase
             Future<Void> fut = shards.asyncRecoverReplica(replica,
                 (shard, node) -> new RecoveryTarget(shard, node, recoveryListener) {
                     @Override
-                    public void prepareForTranslogOperations(int totalTranslogOps, ActionListener<Void> listener) {
+                    public void prepareForTranslogOperations(int totalTranslogOps, RecoveryState.Plan plan, ActionListener<Void> listener) {
                         try {
                             indexedOnPrimary.await();
                         } catch (InterruptedException e) {
                             throw new AssertionError(e);
                         }
-                        super.prepareForTranslogOperations(totalTranslogOps, listener);
+                        super.prepareForTranslogOperations(totalTranslogOps, plan, listener);
                     }
                 });
             fut.get();
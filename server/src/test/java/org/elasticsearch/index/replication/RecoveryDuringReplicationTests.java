@@ -163,7 +163,9 @@ public class RecoveryDuringReplicationTests extends ESIndexLevelReplicationTestC
     }
 
     public void testRecoveryAfterPrimaryPromotion() throws Exception {
-        try (ReplicationGroup shards = createGroup(2)) {
+        // never prefer copying files over replaying history, so that only the retained history decides the kind of recovery
+        final Settings settings = Settings.builder().put(IndexSettings.FILE_BASED_RECOVERY_THRESHOLD_SETTING.getKey(), 100.0d).build();
+        try (ReplicationGroup shards = createGroup(2, settings)) {
             shards.startAll();
             int totalDocs = shards.indexDocs(randomInt(10));
             shards.syncGlobalCheckpoint();
@@ -0,0 +1,75 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.test.ESTestCase;
+
+public class AdaptiveRefreshPolicyTests extends ESTestCase {
+
+    private static final TimeValue MIN = TimeValue.timeValueSeconds(1);
+    private static final TimeValue MAX = TimeValue.timeValueSeconds(8);
+
+    public void testIntervalGrowsWithoutSearches() {
+        final AdaptiveRefreshPolicy policy = new AdaptiveRefreshPolicy();
+        final long lastSearcherAccess = 0;
+        long now = 1;
+        // the shard was searched before the first refresh
+        assertFalse(policy.deferRefresh(now, lastSearcherAccess, false, MIN, MAX));
+        assertEquals(1000, policy.getIntervalInMillis());
+        for (long expectedInterval : new long[] { 2000, 4000, 8000, 8000 }) {
+            final long lastRefresh = now;
+            for (now += MIN.millis(); now - lastRefresh < policy.getIntervalInMillis(); now += MIN.millis()) {
+                assertTrue(policy.deferRefresh(now, lastSearcherAccess, false, MIN, MAX));
+            }
+            assertFalse(policy.deferRefresh(now, lastSearcherAccess, false, MIN, MAX));
+            assertEquals(expectedInterval, policy.getIntervalInMillis());
+        }
+        assertEquals(1 + 3 + 7, policy.getDeferredCount());
+    }
+
+    public void testSearchesAndListenersResetInterval() {
+        final AdaptiveRefreshPolicy policy = new AdaptiveRefreshPolicy();
+        long now = 1;
+        assertFalse(policy.deferRefresh(now, 0, false, MIN, MAX));
+        now += MIN.millis();
+        assertFalse(policy.deferRefresh(now, 0, false, MIN, MAX));
+        assertEquals(2000, policy.getIntervalInMillis());
+        now += MIN.millis();
+        assertTrue(policy.deferRefresh(now, 0, false, MIN, MAX));
+
+        final boolean searched = randomBoolean();
+        assertFalse(policy.deferRefresh(now, searched ? now - 1 : 0, searched == false, MIN, MAX));
+        assertEquals(1000, policy.getIntervalInMillis());
+        assertEquals(1, policy.getDeferredCount());
+    }
+
+    public void testMaxIntervalBelowRefreshInterval() {
+        final AdaptiveRefreshPolicy policy = new AdaptiveRefreshPolicy();
+        final TimeValue max = TimeValue.timeValueMillis(randomLongBetween(0, MIN.millis()));
+        long now = 1;
+        for (int i = 0; i < 5; i++) {
+            assertFalse(policy.deferRefresh(now, 0, false, MIN, max));
+            assertEquals(MIN.millis(), policy.getIntervalInMillis());
+            now += MIN.millis();
+        }
+        assertEquals(0, policy.getDeferredCount());
+    }
+}
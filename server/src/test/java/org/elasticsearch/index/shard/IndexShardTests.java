@@ -2727,8 +2727,8 @@ public class IndexShardTests extends IndexShardTestCase {
             new RecoveryTarget(shard, discoveryNode, recoveryListener) {
             // we're only checking that listeners are called when the engine is open, before there is no point
                 @Override
-                public void prepareForTranslogOperations(int totalTranslogOps, ActionListener<Void> listener) {
-                    super.prepareForTranslogOperations(totalTranslogOps,
+                public void prepareForTranslogOperations(int totalTranslogOps, RecoveryState.Plan plan, ActionListener<Void> listener) {
+                    super.prepareForTranslogOperations(totalTranslogOps, plan,
                         ActionListener.wrap(
                             r -> {
                                 assertListenerCalled.accept(replica);
@@ -3423,6 +3423,55 @@ public class IndexShardTests extends IndexShardTestCase {
         closeShards(primary);
     }
 
+    public void testAdaptiveScheduledRefresh() throws Exception {
+        Settings settings = Settings.builder().put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
+            .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 1)
+            .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(IndexSettings.INDEX_REFRESH_INTERVAL_SETTING.getKey(), TimeValue.timeValueHours(1))
+            .put(IndexSettings.INDEX_REFRESH_ADAPTIVE_ENABLED_SETTING.getKey(), true)
+            .put(IndexSettings.INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING.getKey(), TimeValue.timeValueHours(2))
+            .build();
+        IndexMetaData metaData = IndexMetaData.builder("test")
+            .putMapping("{ \"properties\": { \"foo\":  { \"type\": \"text\"}}}")
+            .settings(settings)
+            .primaryTerm(0, 1).build();
+        IndexShard primary = newShard(new ShardId(metaData.getIndex(), 0), true, "n1", metaData, null);
+        recoverShardFromStore(primary);
+        final long lastSearchAccess = primary.getLastSearcherAccess();
+        // wait until the thread-pool has moved the timestamp so that the next refresh happens after the last search
+        assertBusy(() -> assertThat(primary.getThreadPool().relativeTimeInMillis(), greaterThan(lastSearchAccess)));
+        indexDoc(primary, "_doc", "0", "{\"foo\" : \"bar\"}");
+        assertTrue(primary.scheduledRefresh());
+
+        // indexed into without searches since the last refresh
+        indexDoc(primary, "_doc", "1", "{\"foo\" : \"bar\"}");
+        assertFalse(primary.scheduledRefresh());
+        assertTrue(primary.getEngine().refreshNeeded());
+        assertThat(primary.refreshStats().getDeferredTotal(), equalTo(1L));
+        assertThat(primary.refreshStats().getAdaptiveInterval(), equalTo(TimeValue.timeValueHours(1)));
+
+        if (randomBoolean()) {
+            try (Engine.Searcher searcher = primary.acquireSearcher("test")) {
+                assertEquals(1, searcher.getIndexReader().numDocs());
+            }
+            assertTrue(primary.scheduledRefresh());
+        } else {
+            PlainActionFuture<Boolean> listener = new PlainActionFuture<>();
+            primary.addRefreshListener(primary.getEngine().getTranslogLastWriteLocation(), listener::onResponse);
+            assertTrue(primary.scheduledRefresh());
+            assertFalse(listener.get());
+        }
+        assertFalse(primary.getEngine().refreshNeeded());
+        assertThat(primary.refreshStats().getDeferredTotal(), equalTo(1L));
+
+        primary.indexSettings().getScopedSettings().applySettings(Settings.builder().put(settings)
+            .put(IndexSettings.INDEX_REFRESH_ADAPTIVE_ENABLED_SETTING.getKey(), false).build());
+        indexDoc(primary, "_doc", "2", "{\"foo\" : \"bar\"}");
+        assertTrue(primary.scheduledRefresh());
+        assertThat(primary.refreshStats().getAdaptiveInterval(), equalTo(TimeValue.ZERO));
+        closeShards(primary);
+    }
+
     public void testRefreshIsNeededWithRefreshListeners() throws IOException, InterruptedException {
         Settings settings = Settings.builder().put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
             .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 1)
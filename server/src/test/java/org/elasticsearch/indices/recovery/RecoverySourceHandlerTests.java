@@ -53,6 +53,7 @@ import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.CancellableThreads;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.IndexSettings;
@@ -72,9 +73,12 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardRelocatedException;
 import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.snapshots.SnapshotId;
 import org.elasticsearch.test.CorruptionUtils;
 import org.elasticsearch.test.DummyShardLock;
 import org.elasticsearch.test.ESTestCase;
@@ -96,6 +100,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
@@ -108,9 +113,11 @@ import java.util.zip.CRC32;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyObject;
@@ -472,9 +479,9 @@ public class RecoverySourceHandlerTests extends ESTestCase {
             }
 
             @Override
-            void prepareTargetForTranslog(int totalTranslogOps, ActionListener<TimeValue> listener) {
+            void prepareTargetForTranslog(int totalTranslogOps, RecoveryState.Plan plan, ActionListener<TimeValue> listener) {
                 prepareTargetForTranslogCalled.set(true);
-                super.prepareTargetForTranslog(totalTranslogOps, listener);
+                super.prepareTargetForTranslog(totalTranslogOps, plan, listener);
             }
 
             @Override
@@ -629,6 +636,52 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         store.close();
     }
 
+    public void testRestoreFilesFromSnapshotFallsBackToPrimaryOnFailure() throws Exception {
+        final int maxConcurrentFiles = between(1, 4);
+        final AtomicInteger inFlightRestores = new AtomicInteger();
+        final Set<String> failedFiles = ConcurrentCollections.newConcurrentSet();
+        final Set<String> requestedFiles = ConcurrentCollections.newConcurrentSet();
+        final TestRecoveryTargetHandler recoveryTarget = new TestRecoveryTargetHandler() {
+            @Override
+            public void restoreFileFromSnapshot(String repository, IndexId indexId, BlobStoreIndexShardSnapshot.FileInfo snapshotFile,
+                                                ActionListener<Void> listener) {
+                assertThat(repository, equalTo("repo"));
+                assertThat(inFlightRestores.incrementAndGet(), lessThanOrEqualTo(maxConcurrentFiles));
+                assertTrue(requestedFiles.add(snapshotFile.physicalName()));
+                recoveryExecutor.execute(() -> {
+                    inFlightRestores.decrementAndGet();
+                    if (randomBoolean()) {
+                        failedFiles.add(snapshotFile.physicalName());
+                        listener.onFailure(new IOException("simulated"));
+                    } else {
+                        listener.onResponse(null);
+                    }
+                });
+            }
+        };
+        final RecoverySourceHandler handler = new RecoverySourceHandler(null, recoveryTarget, threadPool, getStartRecoveryRequest(),
+            between(1, 16), maxConcurrentFiles);
+        final List<BlobStoreIndexShardSnapshot.FileInfo> snapshotFiles = new ArrayList<>();
+        final int numFiles = between(1, 20);
+        for (int i = 0; i < numFiles; i++) {
+            final StoreFileMetaData md = new StoreFileMetaData("_" + i + ".cfs", between(1, 1024), Integer.toString(i),
+                org.apache.lucene.util.Version.LATEST);
+            snapshotFiles.add(new BlobStoreIndexShardSnapshot.FileInfo("__" + i, md, null));
+        }
+        final PlainActionFuture<Set<String>> future = new PlainActionFuture<>();
+        handler.restoreFilesFromSnapshot(new ShardSnapshotsService.SnapshotFilesToRecover("repo",
+            new IndexId("index", UUIDs.randomBase64UUID()), new SnapshotId("snapshot", UUIDs.randomBase64UUID()), snapshotFiles), future);
+        final Set<String> restoredFiles = future.actionGet();
+        assertThat(requestedFiles, hasSize(numFiles));
+        for (BlobStoreIndexShardSnapshot.FileInfo file : snapshotFiles) {
+            assertThat(restoredFiles.contains(file.physicalName()), equalTo(failedFiles.contains(file.physicalName()) == false));
+        }
+
+        final PlainActionFuture<Set<String>> noSnapshotFuture = new PlainActionFuture<>();
+        handler.restoreFilesFromSnapshot(null, noSnapshotFuture);
+        assertThat(noSnapshotFuture.actionGet(), empty());
+    }
+
     public void testCancelRecoveryDuringPhase1() throws Exception {
         Store store = newStore(createTempDir("source"), false);
         IndexShard shard = mock(IndexShard.class);
@@ -783,7 +836,7 @@ public class RecoverySourceHandlerTests extends ESTestCase {
 
     class TestRecoveryTargetHandler implements RecoveryTargetHandler {
         @Override
-        public void prepareForTranslogOperations(int totalTranslogOps, ActionListener<Void> listener) {
+        public void prepareForTranslogOperations(int totalTranslogOps, RecoveryState.Plan plan, ActionListener<Void> listener) {
         }
 
         @Override
@@ -820,6 +873,11 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         public void writeFileChunk(StoreFileMetaData fileMetaData, long position, BytesReference content, boolean lastChunk,
                                    int totalTranslogOps, ActionListener<Void> listener) {
         }
+
+        @Override
+        public void restoreFileFromSnapshot(String repository, IndexId indexId, BlobStoreIndexShardSnapshot.FileInfo snapshotFile,
+                                            ActionListener<Void> listener) {
+        }
     }
 
     private Translog.Snapshot newTranslogSnapshot(List<Translog.Operation> operations, List<Translog.Operation> operationsToSkip) {
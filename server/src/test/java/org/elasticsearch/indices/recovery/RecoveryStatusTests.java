@@ -19,17 +19,28 @@
 package org.elasticsearch.indices.recovery;
 
 import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
 import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.test.ESSingleNodeTestCase;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.Set;
 import java.util.regex.Pattern;
 
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
 public class RecoveryStatusTests extends ESSingleNodeTestCase {
     private static final org.apache.lucene.util.Version MIN_SUPPORTED_LUCENE_VERSION = org.elasticsearch.Version.CURRENT
         .minimumIndexCompatibilityVersion().luceneVersion;
@@ -73,4 +84,42 @@ public class RecoveryStatusTests extends ESSingleNodeTestCase {
         assertFalse(strings.toString(), strings.contains(expectedFile));
         multiFileWriter.close();
     }
+
+    public void testWriteFileFromSnapshot() throws IOException {
+        IndexService service = createIndex("foo");
+        IndexShard indexShard = service.getShardOrNull(0);
+        final byte[] contents;
+        final String checksum;
+        try (Directory directory = new ByteBuffersDirectory()) {
+            try (IndexOutput output = directory.createOutput("foo.bar", IOContext.DEFAULT)) {
+                output.writeInt(randomInt());
+                output.writeInt(randomInt());
+                CodecUtil.writeFooter(output);
+            }
+            try (IndexInput input = directory.openInput("foo.bar", IOContext.DEFAULT)) {
+                contents = new byte[Math.toIntExact(input.length())];
+                input.readBytes(contents, 0, contents.length);
+                checksum = Store.digestToString(CodecUtil.retrieveChecksum(input));
+            }
+        }
+        final StoreFileMetaData metaData = new StoreFileMetaData("foo.bar", contents.length, checksum, MIN_SUPPORTED_LUCENE_VERSION);
+        final RecoveryState.Index indexState = new RecoveryState.Index();
+        indexState.addFileDetail("foo.bar", contents.length, false);
+        MultiFileWriter multiFileWriter = new MultiFileWriter(indexShard.store(), indexState, "recovery.test.", logger, () -> {});
+
+        final byte[] corrupted = contents.clone();
+        corrupted[0] ^= 1;
+        expectThrows(CorruptIndexException.class,
+            () -> multiFileWriter.writeFileFromSnapshot(metaData, new ByteArrayInputStream(corrupted)));
+        assertThat(multiFileWriter.tempFileNames.keySet(), empty());
+        assertThat(indexState.recoveredFromSnapshotBytes(), equalTo(0L));
+
+        multiFileWriter.writeFileFromSnapshot(metaData, new ByteArrayInputStream(contents));
+        assertThat(multiFileWriter.tempFileNames.values(), contains("foo.bar"));
+        assertThat(indexState.recoveredFromSnapshotBytes(), equalTo((long) contents.length));
+        indexShard.close("foo", false);
+        multiFileWriter.renameAllTempFiles();
+        assertTrue(Sets.newHashSet(indexShard.store().directory().listAll()).contains("foo.bar"));
+        multiFileWriter.close();
+    }
 }
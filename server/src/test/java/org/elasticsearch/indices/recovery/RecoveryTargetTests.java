@@ -31,6 +31,7 @@ import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.recovery.RecoveryState.File;
 import org.elasticsearch.indices.recovery.RecoveryState.Index;
+import org.elasticsearch.indices.recovery.RecoveryState.Plan;
 import org.elasticsearch.indices.recovery.RecoveryState.Stage;
 import org.elasticsearch.indices.recovery.RecoveryState.Timer;
 import org.elasticsearch.indices.recovery.RecoveryState.Translog;
@@ -374,6 +375,37 @@ public class RecoveryTargetTests extends ESTestCase {
         assertThat(state.getStage(), equalTo(Stage.DONE));
     }
 
+    public void testPlan() throws IOException {
+        final DiscoveryNode discoveryNode = new DiscoveryNode("1", buildNewFakeTransportAddress(), emptyMap(), emptySet(),
+            Version.CURRENT);
+        final ShardRouting shardRouting = TestShardRouting.newShardRouting(new ShardId("bla", "_na_", 0), discoveryNode.getId(),
+            false, ShardRoutingState.INITIALIZING);
+        final RecoveryState state = new RecoveryState(shardRouting, discoveryNode, discoveryNode);
+        assertNull(state.getPlan());
+        final Plan plan = new Plan(randomFrom(Plan.Type.values()), randomAlphaOfLength(10),
+            randomFrom(Plan.UNKNOWN, randomNonNegativeLong()), randomFrom(Plan.UNKNOWN, randomNonNegativeLong()));
+        state.setPlan(plan);
+
+        final BytesStreamOutput out = new BytesStreamOutput();
+        final Version version = randomVersion(random());
+        out.setVersion(version);
+        state.writeTo(out);
+        final StreamInput in = out.bytes().streamInput();
+        in.setVersion(version);
+        final Plan readPlan = new RecoveryState(in).getPlan();
+        if (version.onOrAfter(Version.V_8_0_0)) {
+            assertThat(readPlan.type(), equalTo(plan.type()));
+            assertThat(readPlan.reason(), equalTo(plan.reason()));
+            assertThat(readPlan.operationsCost(), equalTo(plan.operationsCost()));
+            assertThat(readPlan.filesCost(), equalTo(plan.filesCost()));
+        } else {
+            assertNull(readPlan);
+        }
+
+        state.setStage(Stage.INIT);
+        assertNull(state.getPlan());
+    }
+
     public void testTranslog() throws Throwable {
         final Translog translog = new Translog();
         AtomicBoolean stop = new AtomicBoolean();
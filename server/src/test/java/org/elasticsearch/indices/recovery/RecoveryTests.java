@@ -66,6 +66,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.not;
 
@@ -266,8 +267,8 @@ public class RecoveryTests extends ESIndexLevelReplicationTestCase {
         updateMappings(replicaShard, primaryShard.indexSettings().getIndexMetaData());
         recoverReplica(replicaShard, primaryShard, (r, sourceNode) -> new RecoveryTarget(r, sourceNode, recoveryListener) {
             @Override
-            public void prepareForTranslogOperations(int totalTranslogOps, ActionListener<Void> listener) {
-                super.prepareForTranslogOperations(totalTranslogOps, listener);
+            public void prepareForTranslogOperations(int totalTranslogOps, RecoveryState.Plan plan, ActionListener<Void> listener) {
+                super.prepareForTranslogOperations(totalTranslogOps, plan, listener);
                 assertThat(replicaShard.getLastKnownGlobalCheckpoint(), equalTo(primaryShard.getLastKnownGlobalCheckpoint()));
             }
             @Override
@@ -284,7 +285,9 @@ public class RecoveryTests extends ESIndexLevelReplicationTestCase {
     }
 
     public void testSequenceBasedRecoveryKeepsTranslog() throws Exception {
-        try (ReplicationGroup shards = createGroup(1)) {
+        // never prefer copying files over replaying history, however far behind the replica falls
+        final Settings settings = Settings.builder().put(IndexSettings.FILE_BASED_RECOVERY_THRESHOLD_SETTING.getKey(), 100.0d).build();
+        try (ReplicationGroup shards = createGroup(1, settings)) {
             shards.startAll();
             final IndexShard replica = shards.getReplicas().get(0);
             final int initDocs = scaledRandomIntBetween(0, 20);
@@ -321,6 +324,44 @@ public class RecoveryTests extends ESIndexLevelReplicationTestCase {
         }
     }
 
+    public void testRecoveryPlanWeighsMissingHistoryAgainstSafeCommit() throws Exception {
+        try (ReplicationGroup shards = createGroup(1)) {
+            shards.startAll();
+            final int initDocs = shards.indexDocs(between(10, 20));
+            int numDocs = initDocs;
+            shards.syncGlobalCheckpoint();
+            shards.flush();
+            final IndexShard replica = shards.getReplicas().get(0);
+            shards.removeReplica(replica);
+            final boolean farBehind = randomBoolean();
+            if (farBehind) {
+                // the target misses more operations below the safe commit than the 10% of its docs that copying the files is worth
+                numDocs += shards.indexDocs(between(initDocs, 2 * initDocs));
+                shards.syncGlobalCheckpoint();
+                shards.flush();
+            } else {
+                numDocs += shards.indexDocs(between(0, 10));
+            }
+            replica.close("test", randomBoolean());
+            replica.store().close();
+            final IndexShard newReplica = shards.addReplicaWithExistingPath(replica.shardPath(), replica.routingEntry().currentNodeId());
+            shards.recoverReplica(newReplica);
+
+            final RecoveryState.Plan plan = newReplica.recoveryState().getPlan();
+            assertNotNull(plan);
+            assertThat(plan.operationsCost(), not(equalTo(RecoveryState.Plan.UNKNOWN)));
+            if (farBehind) {
+                assertThat(plan.type(), equalTo(RecoveryState.Plan.Type.FILES));
+                assertThat(plan.filesCost(), lessThan(plan.operationsCost()));
+                assertThat(newReplica.recoveryState().getIndex().fileDetails(), not(empty()));
+            } else {
+                assertThat(plan.type(), equalTo(RecoveryState.Plan.Type.OPERATIONS));
+                assertThat(newReplica.recoveryState().getIndex().fileDetails(), empty());
+            }
+            shards.assertAllEqual(numDocs);
+        }
+    }
+
     /**
      * This test makes sure that there is no infinite loop of flushing (the condition `shouldPeriodicallyFlush` eventually is false)
      * in peer-recovery if a primary sends a fully-baked index commit.
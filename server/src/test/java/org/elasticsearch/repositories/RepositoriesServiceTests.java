@@ -23,9 +23,12 @@ import org.apache.lucene.index.IndexCommit;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.admin.cluster.repositories.put.PutRepositoryRequest;
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.metadata.RepositoriesMetaData;
 import org.elasticsearch.cluster.metadata.RepositoryMetaData;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.service.ClusterService;
@@ -66,8 +69,9 @@ public class RepositoriesServiceTests extends ESTestCase {
             TransportService.NOOP_TRANSPORT_INTERCEPTOR,
             boundAddress -> DiscoveryNode.createLocal(Settings.EMPTY, boundAddress.publishAddress(), UUIDs.randomBase64UUID()), null,
             Collections.emptySet());
+        final Map<String, Repository.Factory> typesRegistry = Collections.singletonMap(TestRepository.TYPE, TestRepository::new);
         repositoriesService = new RepositoriesService(Settings.EMPTY, mock(ClusterService.class),
-            transportService, Collections.emptyMap(), Collections.singletonMap(TestRepository.TYPE, TestRepository::new), threadPool);
+            transportService, typesRegistry, typesRegistry, threadPool);
         repositoriesService.start();
     }
 
@@ -105,6 +109,21 @@ public class RepositoriesServiceTests extends ESTestCase {
         assertSame(repository, repository2);
     }
 
+    public void testStatsReportsRegisteredRepositories() {
+        repositoriesService.registerInternalRepository("internal", TestRepository.TYPE);
+        final ClusterState previousState = ClusterState.builder(new ClusterName("test")).build();
+        final ClusterState state = ClusterState.builder(previousState)
+            .metaData(MetaData.builder().putCustom(RepositoriesMetaData.TYPE,
+                new RepositoriesMetaData(Collections.singletonList(new RepositoryMetaData("repo", TestRepository.TYPE, Settings.EMPTY)))))
+            .build();
+        repositoriesService.applyClusterState(new ClusterChangedEvent("test", state, previousState));
+
+        final Map<String, RepositoriesStats.Stats> stats = repositoriesService.stats().getRepositoryStats();
+        assertEquals(Collections.singleton("repo"), stats.keySet());
+        assertEquals(TestRepository.TYPE, stats.get("repo").getType());
+        assertEquals(0L, stats.get("repo").getSnapshotUploadedBytes());
+    }
+
     public void testRegisterRejectsInvalidRepositoryNames() {
         assertThrowsOnRegister("");
         assertThrowsOnRegister("contains#InvalidCharacter");
@@ -179,6 +198,16 @@ public class RepositoriesServiceTests extends ESTestCase {
             return 0;
         }
 
+        @Override
+        public long getSnapshotUploadedBytes() {
+            return 0;
+        }
+
+        @Override
+        public long getSnapshotUploadTimeInNanos() {
+            return 0;
+        }
+
         @Override
         public String startVerification() {
             return null;
@@ -19,21 +19,28 @@
 
 package org.elasticsearch.repositories.blobstore;
 
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.admin.cluster.snapshots.create.CreateSnapshotResponse;
+import org.elasticsearch.action.admin.cluster.snapshots.status.SnapshotStats;
 import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.action.support.master.AcknowledgedResponse;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.blobstore.BlobMetaData;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.env.Environment;
+import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.plugins.Plugin;
 import org.elasticsearch.plugins.RepositoryPlugin;
 import org.elasticsearch.repositories.IndexId;
 import org.elasticsearch.repositories.RepositoriesService;
+import org.elasticsearch.repositories.RepositoryCleanupResult;
 import org.elasticsearch.repositories.Repository;
 import org.elasticsearch.repositories.RepositoryData;
 import org.elasticsearch.repositories.RepositoryException;
@@ -44,16 +51,30 @@ import org.elasticsearch.snapshots.SnapshotState;
 import org.elasticsearch.test.ESIntegTestCase;
 import org.elasticsearch.test.ESSingleNodeTestCase;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.elasticsearch.repositories.RepositoryDataTests.generateRandomRepoData;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 
 /**
@@ -219,6 +240,201 @@ public class BlobStoreRepositoryTests extends ESSingleNodeTestCase {
                 .get());
     }
 
+    public void testContentAddressedFilesAreSharedAcrossShards() throws Exception {
+        final Client client = client();
+        final Path location = ESIntegTestCase.randomRepoPath(node().settings());
+        final String repositoryName = "test-repo";
+        assertAcked(client.admin().cluster().preparePutRepository(repositoryName)
+            .setType(REPO_TYPE)
+            .setSettings(Settings.builder().put(node().settings())
+                .put("location", location)
+                .put(BlobStoreRepository.CONTENT_ADDRESSED_FILES_SETTING.getKey(), true)));
+        final BlobStoreRepository repository =
+            (BlobStoreRepository) getInstanceFromNode(RepositoriesService.class).repository(repositoryName);
+
+        createIndex("test-idx-1", Settings.builder().put("index.number_of_shards", 1).put("index.number_of_replicas", 0).build());
+        final int numDocs = randomIntBetween(10, 100);
+        for (int i = 0; i < numDocs; i++) {
+            client.prepareIndex("test-idx-1").setId(Integer.toString(i)).setSource("text", randomAlphaOfLength(10)).get();
+        }
+        client.admin().indices().prepareFlush("test-idx-1").get();
+        createSnapshot(repositoryName, "test-snap-1", "test-idx-1");
+        final Set<String> firstContents = contentDataBlobs(repository);
+        assertThat(firstContents, not(empty()));
+
+        logger.info("--> restore the index under another name, which copies its files verbatim, and snapshot the copy");
+        client.admin().cluster().prepareRestoreSnapshot(repositoryName, "test-snap-1")
+            .setRenamePattern("test-idx-1").setRenameReplacement("test-idx-2").setWaitForCompletion(true).get();
+        ensureGreen("test-idx-2");
+        createSnapshot(repositoryName, "test-snap-2", "test-idx-2");
+        final SnapshotStats stats = client.admin().cluster().prepareSnapshotStatus(repositoryName).setSnapshots("test-snap-2").get()
+            .getSnapshots().get(0).getStats();
+        assertThat(stats.getIncrementalFileCount(), lessThan(stats.getTotalFileCount()));
+        final Set<String> secondContents = contentDataBlobs(repository);
+        assertThat(secondContents, hasItems(firstContents.toArray(new String[0])));
+
+        logger.info("--> delete the first snapshot, the contents still referenced by the second snapshot are kept");
+        assertAcked(client.admin().cluster().prepareDeleteSnapshot(repositoryName, "test-snap-1").get());
+        final Set<String> remainingContents = contentDataBlobs(repository);
+        assertThat(remainingContents, not(empty()));
+        assertThat(secondContents, hasItems(remainingContents.toArray(new String[0])));
+        assertAcked(client.admin().indices().prepareDelete("test-idx-2"));
+        client.admin().cluster().prepareRestoreSnapshot(repositoryName, "test-snap-2").setWaitForCompletion(true).get();
+        ensureGreen("test-idx-2");
+        assertHitCount(client.prepareSearch("test-idx-2").setSize(0).get(), numDocs);
+
+        logger.info("--> delete the second snapshot, no contents are referenced any more");
+        assertAcked(client.admin().cluster().prepareDeleteSnapshot(repositoryName, "test-snap-2").get());
+        assertThat(repository.blobStore().blobContainer(repository.basePath().add(BlobStoreRepository.CONTENT_PATH)).listBlobs(),
+            anEmptyMap());
+    }
+
+    public void testContentAddressedFilesAreSharedWithShrunkIndex() throws Exception {
+        final Client client = client();
+        final Path location = ESIntegTestCase.randomRepoPath(node().settings());
+        final String repositoryName = "test-repo";
+        assertAcked(client.admin().cluster().preparePutRepository(repositoryName)
+            .setType(REPO_TYPE)
+            .setSettings(Settings.builder().put(node().settings())
+                .put("location", location)
+                .put(BlobStoreRepository.CONTENT_ADDRESSED_FILES_SETTING.getKey(), true)));
+        final BlobStoreRepository repository =
+            (BlobStoreRepository) getInstanceFromNode(RepositoriesService.class).repository(repositoryName);
+
+        createIndex("source", Settings.builder().put("index.number_of_shards", 2).put("index.number_of_replicas", 0).build());
+        final int numDocs = randomIntBetween(10, 100);
+        for (int i = 0; i < numDocs; i++) {
+            client.prepareIndex("source").setId(Integer.toString(i)).setSource("text", randomAlphaOfLength(10)).get();
+        }
+        client.admin().indices().prepareFlush("source").get();
+        createSnapshot(repositoryName, "test-snap-1", "source");
+        final Set<String> sourceContents = contentDataBlobs(repository);
+        assertThat(sourceContents, not(empty()));
+
+        logger.info("--> shrink the index, which copies the segment files of the second shard under new segment names");
+        assertAcked(client.admin().indices().prepareUpdateSettings("source")
+            .setSettings(Settings.builder().put(IndexMetaData.SETTING_BLOCKS_WRITE, true)));
+        assertAcked(client.admin().indices().prepareResizeIndex("source", "target")
+            .setSettings(Settings.builder().put("index.number_of_shards", 1).put("index.number_of_replicas", 0).build()));
+        ensureGreen("target");
+        createSnapshot(repositoryName, "test-snap-2", "target");
+        assertThat(contentDataBlobs(repository), equalTo(sourceContents));
+
+        assertAcked(client.admin().indices().prepareDelete("target"));
+        client.admin().cluster().prepareRestoreSnapshot(repositoryName, "test-snap-2").setWaitForCompletion(true).get();
+        ensureGreen("target");
+        assertHitCount(client.prepareSearch("target").setSize(0).get(), numDocs);
+    }
+
+    public void testCorruptedContentIsNotLeftBehind() throws Exception {
+        final Client client = client();
+        final Path location = ESIntegTestCase.randomRepoPath(node().settings());
+        final String repositoryName = "test-repo";
+        final Settings.Builder repoSettings = Settings.builder().put(node().settings())
+            .put("location", location)
+            .put(BlobStoreRepository.CONTENT_ADDRESSED_FILES_SETTING.getKey(), true);
+        if (randomBoolean()) {
+            // upload the parts of the corrupted file concurrently
+            repoSettings.put("chunk_size", randomIntBetween(100, 1000), ByteSizeUnit.BYTES);
+        }
+        assertAcked(client.admin().cluster().preparePutRepository(repositoryName).setType(REPO_TYPE).setSettings(repoSettings));
+        final BlobStoreRepository repository =
+            (BlobStoreRepository) getInstanceFromNode(RepositoriesService.class).repository(repositoryName);
+
+        createIndex("test-idx", Settings.builder().put("index.number_of_shards", 1).put("index.number_of_replicas", 0).build());
+        final int numDocs = randomIntBetween(100, 200);
+        for (int i = 0; i < numDocs; i++) {
+            client.prepareIndex("test-idx").setId(Integer.toString(i)).setSource("text", randomAlphaOfLength(100)).get();
+        }
+        client.admin().indices().prepareFlush("test-idx").get();
+
+        logger.info("--> corrupt a byte in the middle of the largest file of the shard, keeping its header and footer intact");
+        final Path indexPath = getInstanceFromNode(IndicesService.class).indexServiceSafe(resolveIndex("test-idx")).getShard(0)
+            .shardPath().resolveIndex();
+        final Path largestFile;
+        try (Stream<Path> files = Files.list(indexPath)) {
+            largestFile = files.filter(file -> file.getFileName().toString().startsWith("_"))
+                .max(Comparator.comparingLong(file -> {
+                    try {
+                        return Files.size(file);
+                    } catch (IOException e) {
+                        throw new AssertionError(e);
+                    }
+                })).get();
+        }
+        final byte[] bytes = Files.readAllBytes(largestFile);
+        bytes[bytes.length / 2] ^= 0xff;
+        Files.write(largestFile, bytes);
+
+        final CreateSnapshotResponse response = client.admin().cluster().prepareCreateSnapshot(repositoryName, "test-snap")
+            .setWaitForCompletion(true).setIndices("test-idx").get();
+        assertThat(response.getSnapshotInfo().failedShards(), equalTo(1));
+        final Map<String, Long> contentLengths =
+            repository.blobStore().blobContainer(repository.basePath().add(BlobStoreRepository.CONTENT_PATH)).listBlobs().values()
+                .stream().collect(Collectors.groupingBy(blob -> blob.name().replaceFirst("\\.part\\d+$", ""),
+                    Collectors.summingLong(BlobMetaData::length)));
+        assertThat("corrupted contents were left behind in " + contentLengths, contentLengths.values(),
+            not(hasItem((long) bytes.length)));
+    }
+
+    public void testRepositoryCleanupDeletesStaleContents() throws Exception {
+        final Client client = client();
+        final Path location = ESIntegTestCase.randomRepoPath(node().settings());
+        final String repositoryName = "test-repo";
+        assertAcked(client.admin().cluster().preparePutRepository(repositoryName)
+            .setType(REPO_TYPE)
+            .setSettings(Settings.builder().put(node().settings())
+                .put("location", location)
+                .put(BlobStoreRepository.CONTENT_ADDRESSED_FILES_SETTING.getKey(), true)));
+        final BlobStoreRepository repository =
+            (BlobStoreRepository) getInstanceFromNode(RepositoriesService.class).repository(repositoryName);
+
+        createIndex("test-idx", Settings.builder().put("index.number_of_shards", 1).put("index.number_of_replicas", 0).build());
+        final int numDocs = randomIntBetween(10, 100);
+        for (int i = 0; i < numDocs; i++) {
+            client.prepareIndex("test-idx").setId(Integer.toString(i)).setSource("text", randomAlphaOfLength(10)).get();
+        }
+        client.admin().indices().prepareFlush("test-idx").get();
+        createSnapshot(repositoryName, "test-snap", "test-idx");
+        final Set<String> contents = contentDataBlobs(repository);
+        assertThat(contents, not(empty()));
+
+        logger.info("--> leave behind a content referenced by a removed index only, a content referenced by a failed shard snapshot "
+            + "only, and a content that isn't referenced at all");
+        final BlobContainer contentContainer =
+            repository.blobStore().blobContainer(repository.basePath().add(BlobStoreRepository.CONTENT_PATH));
+        final byte[] data = randomByteArrayOfLength(randomIntBetween(1, 100));
+        contentContainer.writeBlob("c__removed-index-content", new ByteArrayInputStream(data), data.length, true);
+        contentContainer.writeBlob("c__removed-index-content.ref." + UUIDs.randomBase64UUID() + ".0",
+            new ByteArrayInputStream(BytesRef.EMPTY_BYTES), 0L, true);
+        final String indexUUID = ESBlobStoreRepositoryIntegTestCase.getRepositoryData(repository).resolveIndexId("test-idx").getId();
+        contentContainer.writeBlob("c__failed-shard-snapshot-content", new ByteArrayInputStream(data), data.length, true);
+        contentContainer.writeBlob("c__failed-shard-snapshot-content.ref." + indexUUID + ".0",
+            new ByteArrayInputStream(BytesRef.EMPTY_BYTES), 0L, true);
+        contentContainer.writeBlob("c__unreferenced-content", new ByteArrayInputStream(data), data.length, true);
+
+        final RepositoryCleanupResult result = client.admin().cluster().prepareCleanupRepository(repositoryName).get().result();
+        assertThat(result.blobs(), equalTo(5L));
+        assertThat(result.bytes(), equalTo(3L * data.length));
+        assertThat(contentContainer.listBlobsByPrefix("c__failed-shard-snapshot-content"), anEmptyMap());
+        assertThat(contentDataBlobs(repository), equalTo(contents));
+        assertAcked(client.admin().indices().prepareDelete("test-idx"));
+        client.admin().cluster().prepareRestoreSnapshot(repositoryName, "test-snap").setWaitForCompletion(true).get();
+        ensureGreen("test-idx");
+        assertHitCount(client.prepareSearch("test-idx").setSize(0).get(), numDocs);
+    }
+
+    private void createSnapshot(String repositoryName, String snapshotName, String indexName) {
+        final CreateSnapshotResponse response = client().admin().cluster().prepareCreateSnapshot(repositoryName, snapshotName)
+            .setWaitForCompletion(true).setIndices(indexName).get();
+        assertThat(response.getSnapshotInfo().state(), equalTo(SnapshotState.SUCCESS));
+    }
+
+    private static Set<String> contentDataBlobs(BlobStoreRepository repository) throws IOException {
+        return repository.blobStore().blobContainer(repository.basePath().add(BlobStoreRepository.CONTENT_PATH)).listBlobs().keySet()
+            .stream().filter(blob -> blob.contains(".ref.") == false).collect(Collectors.toSet());
+    }
+
     private static void writeIndexGen(BlobStoreRepository repository, RepositoryData repositoryData, long generation) {
         final PlainActionFuture<Void> future = PlainActionFuture.newFuture();
         repository.writeIndexGen(repositoryData, generation, true, future);
@@ -0,0 +1,129 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.repositories.blobstore;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.Version;
+import org.elasticsearch.common.lucene.store.ByteArrayIndexInput;
+import org.elasticsearch.common.lucene.store.InputStreamIndexInput;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
+import org.elasticsearch.index.store.Store;
+import org.elasticsearch.index.store.StoreFileMetaData;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class MultiPartFileVerifierTests extends ESTestCase {
+
+    public void testVerifyParts() throws IOException {
+        final byte[] content = randomLuceneFile();
+        final MultiPartFileVerifier verifier = new MultiPartFileVerifier(fileInfo(content));
+        readAllParts(verifier, content);
+        verifier.verify();
+    }
+
+    public void testDetectsCorruption() throws IOException {
+        final byte[] content = randomLuceneFile();
+        final BlobStoreIndexShardSnapshot.FileInfo fileInfo = fileInfo(content);
+        // corrupt any byte but the footer magic and algorithm id, which are not covered by the checksum verification
+        final int corrupted = randomValueOtherThanMany(i -> i >= content.length - CodecUtil.footerLength() && i < content.length - 8,
+            () -> randomIntBetween(0, content.length - 1));
+        content[corrupted] = (byte) (content[corrupted] + randomIntBetween(1, 255));
+        final MultiPartFileVerifier verifier = new MultiPartFileVerifier(fileInfo);
+        readAllParts(verifier, content);
+        expectThrows(CorruptIndexException.class, verifier::verify);
+    }
+
+    private static byte[] randomLuceneFile() throws IOException {
+        try (Directory directory = new ByteBuffersDirectory()) {
+            try (IndexOutput output = directory.createOutput("file", IOContext.DEFAULT)) {
+                CodecUtil.writeHeader(output, "test", 0);
+                final int length = randomIntBetween(0, 10_000);
+                output.writeBytes(randomByteArrayOfLength(length), length);
+                CodecUtil.writeFooter(output);
+            }
+            try (IndexInput input = directory.openInput("file", IOContext.DEFAULT)) {
+                final byte[] bytes = new byte[Math.toIntExact(input.length())];
+                input.readBytes(bytes, 0, bytes.length);
+                return bytes;
+            }
+        }
+    }
+
+    private static BlobStoreIndexShardSnapshot.FileInfo fileInfo(byte[] content) throws IOException {
+        final long checksum = CodecUtil.retrieveChecksum(new ByteArrayIndexInput("file", content));
+        final StoreFileMetaData metaData =
+            new StoreFileMetaData("file", content.length, Store.digestToString(checksum), Version.LATEST);
+        return new BlobStoreIndexShardSnapshot.FileInfo("_file", metaData, new ByteSizeValue(randomIntBetween(1, content.length)));
+    }
+
+    /**
+     * Reads all parts in a random order, sometimes re-reading some bytes after a reset like a retried upload does.
+     */
+    private static void readAllParts(MultiPartFileVerifier verifier, byte[] content) throws IOException {
+        final BlobStoreIndexShardSnapshot.FileInfo fileInfo = verifier.fileInfo();
+        final List<Integer> parts = new ArrayList<>();
+        for (int part = 0; part < fileInfo.numberOfParts(); part++) {
+            parts.add(part);
+        }
+        Collections.shuffle(parts, random());
+        for (int i = 0; i < parts.size(); i++) {
+            final int part = parts.get(i);
+            final IndexInput input = new ByteArrayIndexInput("file", content);
+            input.seek(part * fileInfo.partBytes(0));
+            final long partBytes = fileInfo.partBytes(part);
+            final MultiPartFileVerifier.PartInputStream stream = verifier.wrapPart(part, new InputStreamIndexInput(input, partBytes));
+            if (randomBoolean()) {
+                stream.mark(Math.toIntExact(partBytes));
+                readFully(stream, randomIntBetween(0, Math.toIntExact(partBytes)));
+                stream.reset();
+            }
+            readFully(stream, Math.toIntExact(partBytes));
+            assertEquals(-1, stream.read());
+            assertEquals(i == parts.size() - 1, verifier.onPartRead(stream));
+        }
+    }
+
+    private static void readFully(InputStream stream, int length) throws IOException {
+        final byte[] buffer = new byte[randomIntBetween(1, 64)];
+        int read = 0;
+        while (read < length) {
+            if (randomBoolean()) {
+                assertNotEquals(-1, stream.read());
+                read++;
+            } else {
+                final int bytes = stream.read(buffer, 0, Math.min(buffer.length, length - read));
+                assertNotEquals(-1, bytes);
+                read += bytes;
+            }
+        }
+    }
+}
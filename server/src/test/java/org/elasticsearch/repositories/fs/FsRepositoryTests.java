@@ -110,6 +110,9 @@ public class FsRepositoryTests extends ESTestCase {
                 future1.actionGet();
                 IndexShardSnapshotStatus.Copy copy = snapshotStatus.asCopy();
                 assertEquals(copy.getTotalFileCount(), copy.getIncrementalFileCount());
+                assertTrue(repository.getSnapshotUploadedBytes() > 0);
+                assertTrue(repository.getSnapshotUploadedBytes() <= copy.getIncrementalSize());
+                assertTrue(repository.getSnapshotUploadTimeInNanos() > 0);
             });
             final String shardGeneration = future1.actionGet();
             Lucene.cleanLuceneIndex(directory);
@@ -34,6 +34,7 @@ import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.common.xcontent.yaml.YamlXContent;
+import org.elasticsearch.http.HttpBodyStream;
 import org.elasticsearch.http.HttpInfo;
 import org.elasticsearch.http.HttpRequest;
 import org.elasticsearch.http.HttpResponse;
@@ -372,6 +373,48 @@ public class RestControllerTests extends ESTestCase {
         assertTrue(channel.getSendResponseCalled());
     }
 
+    public void testSupportsStreamedBody() {
+        restController.registerHandler(RestRequest.Method.POST, "/{index}/_streamed", new RestHandler() {
+            @Override
+            public void handleRequest(RestRequest request, RestChannel channel, NodeClient client) {
+                channel.sendResponse(new BytesRestResponse(RestStatus.OK, BytesRestResponse.TEXT_CONTENT_TYPE, BytesArray.EMPTY));
+            }
+
+            @Override
+            public boolean supportsStreamedBody() {
+                return true;
+            }
+        });
+        restController.registerHandler(RestRequest.Method.PUT, "/{index}/_streamed", (request, channel, client) ->
+            channel.sendResponse(new BytesRestResponse(RestStatus.OK, BytesRestResponse.TEXT_CONTENT_TYPE, BytesArray.EMPTY)));
+
+        assertTrue(restController.supportsStreamedBody(RestRequest.Method.POST, "/index/_streamed"));
+        assertTrue(restController.supportsStreamedBody(RestRequest.Method.POST, "/index/_streamed?refresh=true"));
+        assertFalse(restController.supportsStreamedBody(RestRequest.Method.PUT, "/index/_streamed"));
+        assertFalse(restController.supportsStreamedBody(RestRequest.Method.GET, "/index/_streamed"));
+        assertFalse(restController.supportsStreamedBody(RestRequest.Method.POST, "/index/_other"));
+    }
+
+    public void testDispatchRequiresContentTypeForRequestsWithStreamedBody() {
+        restController.registerHandler(RestRequest.Method.POST, "/streamed", new RestHandler() {
+            @Override
+            public void handleRequest(RestRequest request, RestChannel channel, NodeClient client) {
+                fail("should not be dispatched without a content type");
+            }
+
+            @Override
+            public boolean supportsStreamedBody() {
+                return true;
+            }
+        });
+        final HttpBodyStream bodyStream = mock(HttpBodyStream.class);
+        final FakeRestRequest fakeRestRequest = new FakeRestRequest.Builder(NamedXContentRegistry.EMPTY)
+            .withBodyStream(bodyStream, null).withPath("/streamed").withMethod(RestRequest.Method.POST).build();
+        final AssertingChannel channel = new AssertingChannel(fakeRestRequest, true, RestStatus.NOT_ACCEPTABLE);
+        restController.dispatchRequest(fakeRestRequest, channel, new ThreadContext(Settings.EMPTY));
+        assertTrue(channel.getSendResponseCalled());
+    }
+
     public void testDispatchWithContentStream() {
         final String mimeType = randomFrom("application/json", "application/smile");
         String content = randomAlphaOfLength((int) Math.round(BREAKER_LIMIT.getBytes() / inFlightRequestsBreaker.getOverhead()));
@@ -20,21 +20,53 @@
 package org.elasticsearch.rest.action.document;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.ActionType;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkAction;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.http.HttpBodyStream;
+import org.elasticsearch.http.HttpTransportSettings;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.rest.RestChannel;
 import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.rest.FakeRestChannel;
 import org.elasticsearch.test.rest.FakeRestRequest;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.hamcrest.CustomMatcher;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.mock;
@@ -48,7 +80,7 @@ public class RestBulkActionTests extends ESTestCase {
         final NodeClient mockClient = mock(NodeClient.class);
         final Map<String, String> params = new HashMap<>();
         params.put("pipeline", "timestamps");
-        new RestBulkAction(settings(Version.CURRENT).build())
+        new RestBulkAction(settings(Version.CURRENT).build(), new NoneCircuitBreakerService())
             .handleRequest(
                 new FakeRestRequest.Builder(
                     xContentRegistry()).withPath("my_index/_bulk").withParams(params)
@@ -73,4 +105,234 @@ public class RestBulkActionTests extends ESTestCase {
                 }
             }), any());
     }
+
+    public void testStreamedBulkRequestIsExecutedInOrderedBatches() throws Exception {
+        final int numberOfItems = between(1, 50);
+        final StringBuilder body = new StringBuilder();
+        for (int i = 0; i < numberOfItems; i++) {
+            if (randomBoolean()) {
+                body.append("{\"delete\":{\"_id\":\"").append(i).append("\"}}\n");
+            } else {
+                body.append("{\"index\":{\"_id\":\"").append(i).append("\"}}\n");
+                body.append("{\"field\":\"").append(randomAlphaOfLength(between(1, 100))).append("\"}\n");
+            }
+        }
+        final BytesArray content = new BytesArray(body.toString());
+        final TestThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            final BatchCapturingClient client = new BatchCapturingClient(threadPool);
+            final TestBodyStream bodyStream = new TestBodyStream(content);
+            final FakeRestRequest request = new FakeRestRequest.Builder(xContentRegistry()).withPath("my_index/_bulk")
+                .withParams(new HashMap<>(Map.of("index", "my_index"))).withBodyStream(bodyStream, XContentType.JSON)
+                .withMethod(RestRequest.Method.POST).build();
+            final FakeRestChannel channel = new FakeRestChannel(request, true, 1);
+            final Settings settings = Settings.builder().put(RestBulkAction.STREAMED_BATCH_SIZE_SETTING.getKey(), between(1, 500) + "b")
+                .build();
+            final CircuitBreakerService circuitBreakerService = newCircuitBreakerService(Settings.EMPTY);
+            final CircuitBreaker inFlightRequestsBreaker = circuitBreakerService.getBreaker(CircuitBreaker.IN_FLIGHT_REQUESTS);
+            new RestBulkAction(settings, circuitBreakerService).handleRequest(request, channel, client);
+
+            final List<String> executedIds = new ArrayList<>();
+            while (channel.responses().get() == 0) {
+                assertThat("batches must be executed one at a time", client.executing.size(), lessThanOrEqualTo(1));
+                assertThat(inFlightRequestsBreaker.getUsed(), lessThanOrEqualTo((long) content.length()));
+                if (bodyStream.requested > 0) {
+                    bodyStream.sendChunk();
+                } else {
+                    // the next chunk is only requested once the executing batch completes
+                    assertThat(client.executing.size(), equalTo(1));
+                    final Tuple<BulkRequest, ActionListener<BulkResponse>> batch = client.executing.remove(0);
+                    final BulkItemResponse[] items = new BulkItemResponse[batch.v1().requests().size()];
+                    for (int i = 0; i < items.length; i++) {
+                        final DocWriteRequest<?> item = batch.v1().requests().get(i);
+                        executedIds.add(item.id());
+                        items[i] = new BulkItemResponse(i, item.opType(), new BulkItemResponse.Failure(item.index(), item.id(),
+                            new IllegalArgumentException("failed [" + item.id() + "]")));
+                    }
+                    batch.v2().onResponse(new BulkResponse(items, 1L));
+                }
+            }
+
+            assertFalse(bodyStream.hasRemaining());
+            assertThat(executedIds, equalTo(IntStream.range(0, numberOfItems).mapToObj(Integer::toString).collect(Collectors.toList())));
+            assertThat(channel.capturedResponse().status(), equalTo(RestStatus.OK));
+            final String response = channel.capturedResponse().content().utf8ToString();
+            for (int i = 0; i < numberOfItems; i++) {
+                assertThat(response, containsString("failed [" + i + "]"));
+            }
+            assertEquals("all chunks must be released", bodyStream.sentChunks, bodyStream.releasedChunks.get());
+            assertEquals(0L, inFlightRequestsBreaker.getUsed());
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
+    public void testStreamedBulkRequestFailsOnMalformedLine() throws Exception {
+        final BytesArray content = new BytesArray("{\"index\":{\"_id\":\"1\"}}\n{\"field\":\"value\"}\n"
+            + "{\"index\":{\"_id\":\"2\"}}\n{\"field\":\"value\"}\n[]\n{\"delete\":{\"_id\":\"3\"}}\n");
+        final TestThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            final BatchCapturingClient client = new BatchCapturingClient(threadPool);
+            final TestBodyStream bodyStream = new TestBodyStream(content);
+            final FakeRestRequest request = new FakeRestRequest.Builder(xContentRegistry()).withPath("my_index/_bulk")
+                .withParams(new HashMap<>(Map.of("index", "my_index"))).withBodyStream(bodyStream, XContentType.JSON)
+                .withMethod(RestRequest.Method.POST).build();
+            final FakeRestChannel channel = new FakeRestChannel(request, true, 1);
+            new RestBulkAction(Settings.EMPTY, new NoneCircuitBreakerService()).handleRequest(request, channel, client);
+
+            while (bodyStream.requested > 0 && bodyStream.hasRemaining()) {
+                bodyStream.sendChunk();
+            }
+            assertTrue(bodyStream.closed);
+            assertThat(client.executing, empty());
+            assertThat(channel.capturedResponse().status(), equalTo(RestStatus.BAD_REQUEST));
+            assertThat(channel.capturedResponse().content().utf8ToString(), containsString("Malformed action/metadata line [5]"));
+            assertEquals("all chunks must be released", bodyStream.sentChunks, bodyStream.releasedChunks.get());
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
+    public void testStreamedBulkRequestFailsOnTooLongLine() throws Exception {
+        final BytesArray content = new BytesArray("{\"index\":{\"_id\":\"1\"}}\n{\"field\":\"" + randomAlphaOfLength(500) + "\"}\n");
+        final TestThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            final BatchCapturingClient client = new BatchCapturingClient(threadPool);
+            final TestBodyStream bodyStream = new TestBodyStream(content, 50);
+            final FakeRestRequest request = new FakeRestRequest.Builder(xContentRegistry()).withPath("my_index/_bulk")
+                .withParams(new HashMap<>(Map.of("index", "my_index"))).withBodyStream(bodyStream, XContentType.JSON)
+                .withMethod(RestRequest.Method.POST).build();
+            final FakeRestChannel channel = new FakeRestChannel(request, true, 1);
+            final Settings settings = Settings.builder()
+                .put(HttpTransportSettings.SETTING_HTTP_MAX_CONTENT_LENGTH.getKey(), "100b")
+                .build();
+            final CircuitBreakerService circuitBreakerService = newCircuitBreakerService(Settings.EMPTY);
+            new RestBulkAction(settings, circuitBreakerService).handleRequest(request, channel, client);
+
+            while (bodyStream.requested > 0 && bodyStream.hasRemaining()) {
+                bodyStream.sendChunk();
+            }
+            assertTrue(bodyStream.closed);
+            assertTrue(bodyStream.hasRemaining());
+            assertThat(client.executing, empty());
+            assertThat(channel.capturedResponse().status(), equalTo(RestStatus.REQUEST_ENTITY_TOO_LARGE));
+            assertEquals("all chunks must be released", bodyStream.sentChunks, bodyStream.releasedChunks.get());
+            assertEquals(0L, circuitBreakerService.getBreaker(CircuitBreaker.IN_FLIGHT_REQUESTS).getUsed());
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
+    public void testStreamedBulkRequestTripsInFlightRequestsBreaker() throws Exception {
+        final StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            body.append("{\"index\":{\"_id\":\"").append(i).append("\"}}\n{\"field\":\"").append(randomAlphaOfLength(20)).append("\"}\n");
+        }
+        final BytesArray content = new BytesArray(body.toString());
+        final TestThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            final BatchCapturingClient client = new BatchCapturingClient(threadPool);
+            final TestBodyStream bodyStream = new TestBodyStream(content, 50);
+            final FakeRestRequest request = new FakeRestRequest.Builder(xContentRegistry()).withPath("my_index/_bulk")
+                .withParams(new HashMap<>(Map.of("index", "my_index"))).withBodyStream(bodyStream, XContentType.JSON)
+                .withMethod(RestRequest.Method.POST).build();
+            final FakeRestChannel channel = new FakeRestChannel(request, true, 1);
+            // the whole body would fit into a single batch, but not into the breaker
+            final CircuitBreakerService circuitBreakerService = newCircuitBreakerService(Settings.builder()
+                .put(HierarchyCircuitBreakerService.IN_FLIGHT_REQUESTS_CIRCUIT_BREAKER_LIMIT_SETTING.getKey(), "200b").build());
+            new RestBulkAction(Settings.EMPTY, circuitBreakerService).handleRequest(request, channel, client);
+
+            while (bodyStream.requested > 0 && bodyStream.hasRemaining()) {
+                bodyStream.sendChunk();
+            }
+            assertTrue(bodyStream.closed);
+            assertThat(client.executing, empty());
+            assertThat(channel.capturedResponse().status(), equalTo(RestStatus.TOO_MANY_REQUESTS));
+            assertEquals("all chunks must be released", bodyStream.sentChunks, bodyStream.releasedChunks.get());
+            assertEquals(0L, circuitBreakerService.getBreaker(CircuitBreaker.IN_FLIGHT_REQUESTS).getUsed());
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
+    private static CircuitBreakerService newCircuitBreakerService(Settings settings) {
+        return new HierarchyCircuitBreakerService(
+            Settings.builder().put(HierarchyCircuitBreakerService.USE_REAL_MEMORY_USAGE_SETTING.getKey(), false).put(settings).build(),
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
+    }
+
+    /**
+     * Sends a body in chunks of random size, one chunk per request for the next chunk.
+     */
+    private static class TestBodyStream implements HttpBodyStream {
+
+        private final BytesReference content;
+        private final int maxChunkSize;
+        private final AtomicInteger releasedChunks = new AtomicInteger();
+        private HttpBodyStream.ChunkHandler handler;
+        private int offset;
+        private int requested;
+        private int sentChunks;
+        private boolean closed;
+
+        TestBodyStream(BytesReference content) {
+            this(content, Integer.MAX_VALUE);
+        }
+
+        TestBodyStream(BytesReference content, int maxChunkSize) {
+            this.content = content;
+            this.maxChunkSize = maxChunkSize;
+        }
+
+        @Override
+        public void setHandler(ChunkHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void next() {
+            assertNotNull(handler);
+            assertThat("only one chunk may be requested at a time", requested, equalTo(0));
+            requested++;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        boolean hasRemaining() {
+            return offset < content.length();
+        }
+
+        void sendChunk() {
+            assertThat(requested, equalTo(1));
+            requested--;
+            final int length = randomIntBetween(0, Math.min(maxChunkSize, content.length() - offset));
+            final BytesReference chunk = content.slice(offset, length);
+            offset += length;
+            sentChunks++;
+            handler.onNext(new ReleasableBytesReference(chunk, releasedChunks::incrementAndGet), hasRemaining() == false);
+        }
+    }
+
+    /**
+     * Captures the bulk requests that are executed rather than executing them.
+     */
+    private static class BatchCapturingClient extends NodeClient {
+
+        private final List<Tuple<BulkRequest, ActionListener<BulkResponse>>> executing = new ArrayList<>();
+
+        BatchCapturingClient(ThreadPool threadPool) {
+            super(Settings.EMPTY, threadPool);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <Request extends ActionRequest, Response extends ActionResponse>
+        void doExecute(ActionType<Response> action, Request request, ActionListener<Response> listener) {
+            assertSame(BulkAction.INSTANCE, action);
+            executing.add(new Tuple<>((BulkRequest) request, (ActionListener<BulkResponse>) listener));
+        }
+    }
 }
@@ -27,6 +27,8 @@ import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
@@ -267,6 +269,44 @@ public class SearchHitTests extends AbstractWireSerializingTestCase<SearchHit> {
         assertThat(results.getAt(1).getShard(), equalTo(target));
     }
 
+    public void testSerializeWithoutDecodingDetails() throws IOException {
+        SearchHit original = createTestItem(randomFrom(XContentType.values()), true, true);
+        BytesReference serialized = serialize(original, Version.CURRENT);
+        SearchHit deserialized = new SearchHit(serialized.streamInput());
+        // a hit that is passed on as it was received is written back byte for byte
+        assertEquals(serialized, serialize(deserialized, Version.CURRENT));
+        assertEquals(original, deserialized);
+
+        // older nodes don't understand the serialized details and need them to be decoded and written in the old format
+        Version version = VersionUtils.randomPreviousCompatibleVersion(random(), Version.V_8_0_0);
+        deserialized = new SearchHit(serialized.streamInput());
+        StreamInput in = serialize(deserialized, version).streamInput();
+        in.setVersion(version);
+        assertEquals(original, new SearchHit(in));
+    }
+
+    public void testShardTargetIsSetOnInnerHitsDecodedLater() throws IOException {
+        SearchShardTarget target = new SearchShardTarget("_node_id", new ShardId(new Index("_index", "_na_"), 0),
+            null, OriginalIndices.NONE);
+        SearchHit innerHit = new SearchHit(0, "_inner_id", null);
+        SearchHit hit = new SearchHit(0, "_id", null);
+        hit.setInnerHits(Collections.singletonMap("inner",
+            new SearchHits(new SearchHit[]{innerHit}, new TotalHits(1, TotalHits.Relation.EQUAL_TO), 1f)));
+
+        SearchHit deserialized = new SearchHit(serialize(hit, Version.CURRENT).streamInput());
+        deserialized.shard(target);
+        assertThat(deserialized.getInnerHits().get("inner").getAt(0).getShard(), equalTo(target));
+        assertThat(deserialized.getInnerHits().get("inner").getAt(0).getIndex(), equalTo("_index"));
+    }
+
+    private static BytesReference serialize(SearchHit hit, Version version) throws IOException {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(version);
+            hit.writeTo(out);
+            return out.bytes();
+        }
+    }
+
     public void testNullSource() {
         SearchHit searchHit = new SearchHit(0, "_id", null);
 
@@ -94,6 +94,7 @@ import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.ESAllocationTestCase;
 import org.elasticsearch.cluster.NodeConnectionsService;
+import org.elasticsearch.cluster.SnapshotDeletionsInProgress;
 import org.elasticsearch.cluster.SnapshotsInProgress;
 import org.elasticsearch.cluster.action.index.MappingUpdatedAction;
 import org.elasticsearch.cluster.action.index.NodeMappingRefreshAction;
@@ -158,6 +159,8 @@ import org.elasticsearch.indices.mapper.MapperRegistry;
 import org.elasticsearch.indices.recovery.PeerRecoverySourceService;
 import org.elasticsearch.indices.recovery.PeerRecoveryTargetService;
 import org.elasticsearch.indices.recovery.RecoverySettings;
+import org.elasticsearch.indices.recovery.ShardSnapshotsService;
+import org.elasticsearch.indices.recovery.SnapshotFilesProvider;
 import org.elasticsearch.ingest.IngestService;
 import org.elasticsearch.node.ResponseCollectorService;
 import org.elasticsearch.plugins.PluginsService;
@@ -518,6 +521,63 @@ public class SnapshotResiliencyTests extends ESTestCase {
         }
     }
 
+    public void testConcurrentSnapshotsAndDeleteInSameRepository() {
+        setupTestCluster(randomFrom(1, 3, 5), randomIntBetween(2, 10));
+
+        String repoName = "repo";
+        final String index = "test";
+        final int shards = randomIntBetween(1, 10);
+        final int snapshotCount = randomIntBetween(2, 5);
+
+        TestClusterNodes.TestClusterNode masterNode =
+            testClusterNodes.currentMaster(testClusterNodes.nodes.values().iterator().next().clusterService.state());
+
+        final StepListener<CreateSnapshotResponse> createFirstSnapshotResponseStepListener = new StepListener<>();
+
+        continueOrDie(createRepoAndIndex(repoName, index, shards),
+            createIndexResponse -> client().admin().cluster().prepareCreateSnapshot(repoName, "snapshot-0")
+                .setWaitForCompletion(true).execute(createFirstSnapshotResponseStepListener));
+
+        final StepListener<Collection<CreateSnapshotResponse>> createSnapshotsStepListener = new StepListener<>();
+
+        continueOrDie(createFirstSnapshotResponseStepListener, createSnapshotResponse -> {
+            // start several snapshots of the same shards at once
+            final ActionListener<CreateSnapshotResponse> listener =
+                new GroupedActionListener<>(createSnapshotsStepListener, snapshotCount);
+            for (int i = 1; i <= snapshotCount; i++) {
+                client().admin().cluster().prepareCreateSnapshot(repoName, "snapshot-" + i).execute(listener);
+            }
+        });
+
+        final StepListener<Boolean> deleteSnapshotStepListener = new StepListener<>();
+
+        // delete the first snapshot while the others are running, which waits for them to complete
+        continueOrDie(createSnapshotsStepListener, createSnapshotResponses -> client().admin().cluster().deleteSnapshot(
+            new DeleteSnapshotRequest(repoName, "snapshot-0"),
+            ActionListener.wrap(resp -> deleteSnapshotStepListener.onResponse(true), deleteSnapshotStepListener::onFailure)));
+
+        deterministicTaskQueue.runAllRunnableTasks();
+
+        assertTrue(deleteSnapshotStepListener.result());
+        SnapshotsInProgress finalSnapshotsInProgress = masterNode.clusterService.state().custom(SnapshotsInProgress.TYPE);
+        assertThat(finalSnapshotsInProgress.entries(), empty());
+        SnapshotDeletionsInProgress finalDeletionsInProgress = masterNode.clusterService.state().custom(SnapshotDeletionsInProgress.TYPE);
+        assertFalse(finalDeletionsInProgress.hasDeletionsInProgress());
+        final Repository repository = masterNode.repositoriesService.repository(repoName);
+        final RepositoryData repositoryData = getRepositoryData(repository);
+        Collection<SnapshotId> snapshotIds = repositoryData.getSnapshotIds();
+        assertThat(snapshotIds, hasSize(snapshotCount));
+
+        for (SnapshotId snapshotId : snapshotIds) {
+            assertNotEquals("snapshot-0", snapshotId.getName());
+            final SnapshotInfo snapshotInfo = repository.getSnapshotInfo(snapshotId);
+            assertEquals(SnapshotState.SUCCESS, snapshotInfo.state());
+            assertThat(snapshotInfo.indices(), containsInAnyOrder(index));
+            assertEquals(shards, snapshotInfo.successfulShards());
+            assertEquals(0, snapshotInfo.failedShards());
+        }
+    }
+
     public void testConcurrentSnapshotRestoreAndDeleteOther() {
         setupTestCluster(randomFrom(1, 3, 5), randomIntBetween(2, 10));
 
@@ -848,7 +908,9 @@ public class SnapshotResiliencyTests extends ESTestCase {
         final StepListener<AcknowledgedResponse> createRepositoryListener = new StepListener<>();
 
         client().admin().cluster().preparePutRepository(repoName).setType(FsRepository.TYPE)
-            .setSettings(Settings.builder().put("location", randomAlphaOfLength(10))).execute(createRepositoryListener);
+            .setSettings(Settings.builder().put("location", randomAlphaOfLength(10))
+                .put(BlobStoreRepository.CONTENT_ADDRESSED_FILES_SETTING.getKey(), randomBoolean()))
+            .execute(createRepositoryListener);
 
         final StepListener<CreateIndexResponse> createIndexResponseStepListener = new StepListener<>();
 
@@ -1295,12 +1357,14 @@ public class SnapshotResiliencyTests extends ESTestCase {
                     indicesService,
                     clusterService,
                     threadPool,
-                    new PeerRecoveryTargetService(threadPool, transportService, recoverySettings, clusterService),
+                    new PeerRecoveryTargetService(threadPool, transportService, recoverySettings, clusterService,
+                        new SnapshotFilesProvider(repositoriesService)),
                     shardStateAction,
                     new NodeMappingRefreshAction(transportService, metaDataMappingService),
                     repositoriesService,
                     mock(SearchService.class),
-                    new PeerRecoverySourceService(transportService, indicesService, recoverySettings),
+                    new PeerRecoverySourceService(transportService, indicesService, recoverySettings,
+                        new ShardSnapshotsService(repositoriesService, clusterService, threadPool)),
                     snapshotShardsService,
                     new PrimaryReplicaSyncer(
                         transportService,
@@ -30,6 +30,7 @@ import org.elasticsearch.common.blobstore.BlobStore;
 import org.elasticsearch.common.blobstore.DeleteResult;
 import org.elasticsearch.common.blobstore.support.PlainBlobMetaData;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.util.Maps;
 import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
@@ -302,7 +303,7 @@ public class MockEventuallyConsistentRepository extends BlobStoreRepository {
                 ensureNotClosed();
                 assert blobSize < Integer.MAX_VALUE;
                 final byte[] data = new byte[(int) blobSize];
-                final int read = inputStream.read(data);
+                final int read = Streams.readFully(inputStream, data);
                 assert read == data.length;
                 final String blobPath = path.buildAsString() + blobName;
                 synchronized (context.actions) {
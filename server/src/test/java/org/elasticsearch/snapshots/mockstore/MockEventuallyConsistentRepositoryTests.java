@@ -29,6 +29,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.repositories.ShardGenerations;
 import org.elasticsearch.repositories.blobstore.BlobStoreRepository;
 import org.elasticsearch.repositories.blobstore.BlobStoreTestUtil;
+import org.elasticsearch.snapshots.SnapshotException;
 import org.elasticsearch.snapshots.SnapshotId;
 import org.elasticsearch.snapshots.SnapshotInfo;
 import org.elasticsearch.test.ESTestCase;
@@ -40,6 +41,7 @@ import java.nio.file.NoSuchFileException;
 import java.util.Arrays;
 import java.util.Collections;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.startsWith;
 
@@ -173,6 +175,38 @@ public class MockEventuallyConsistentRepositoryTests extends ESTestCase {
         }
     }
 
+    public void testFinalizeSnapshotValidatesRepositoryGeneration() {
+        MockEventuallyConsistentRepository.Context blobStoreContext = new MockEventuallyConsistentRepository.Context();
+        final RepositoryMetaData metaData = new RepositoryMetaData("testRepo", "mockEventuallyConsistent", Settings.EMPTY);
+        final ClusterService clusterService = BlobStoreTestUtil.mockClusterService(metaData);
+        try (BlobStoreRepository repository =
+                 new MockEventuallyConsistentRepository(metaData, xContentRegistry(), clusterService, blobStoreContext, random())) {
+            clusterService.addStateApplier(event -> repository.updateState(event.state()));
+            // Apply state once to initialize repo properly like RepositoriesService would
+            repository.updateState(clusterService.state());
+            repository.start();
+
+            final PlainActionFuture<SnapshotInfo> future = PlainActionFuture.newFuture();
+            repository.finalizeSnapshot(new SnapshotId("foo", UUIDs.randomBase64UUID()), ShardGenerations.EMPTY, 1L, null, 5,
+                Collections.emptyList(), -1L, false, MetaData.EMPTY_META_DATA, Collections.emptyMap(), Version.CURRENT, future);
+            future.actionGet();
+
+            // A snapshot that started at the same generation as "foo" may be finalized after it
+            final PlainActionFuture<SnapshotInfo> future2 = PlainActionFuture.newFuture();
+            repository.finalizeSnapshot(new SnapshotId("bar", UUIDs.randomBase64UUID()), ShardGenerations.EMPTY, 1L, null, 5,
+                Collections.emptyList(), -1L, false, MetaData.EMPTY_META_DATA, Collections.emptyMap(), Version.CURRENT, future2);
+            future2.actionGet();
+
+            // A snapshot that started at a generation the repository never went through must not be finalized
+            final PlainActionFuture<SnapshotInfo> future3 = PlainActionFuture.newFuture();
+            repository.finalizeSnapshot(new SnapshotId("baz", UUIDs.randomBase64UUID()), ShardGenerations.EMPTY, 1L, null, 5,
+                Collections.emptyList(), 5L, false, MetaData.EMPTY_META_DATA, Collections.emptyMap(), Version.CURRENT, future3);
+            final SnapshotException e = expectThrows(SnapshotException.class, future3::actionGet);
+            assertThat(e.getCause().getMessage(), containsString(
+                "concurrent modification of the index-N file, expected current generation [5], actual current generation [1]"));
+        }
+    }
+
     private static void assertThrowsOnInconsistentRead(BlobContainer blobContainer, String blobName) {
         final AssertionError assertionError = expectThrows(AssertionError.class, () -> blobContainer.readBlob(blobName));
         assertThat(assertionError.getMessage(), equalTo("Inconsistent read on [" + blobName + ']'));
@@ -33,7 +33,7 @@ public class CompressibleBytesOutputStreamTests extends ESTestCase {
 
     public void testStreamWithoutCompression() throws IOException {
         BytesStream bStream = new ZeroOutOnCloseStream();
-        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, false);
+        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, null);
 
         byte[] expectedBytes = randomBytes(randomInt(30));
         stream.write(expectedBytes);
@@ -61,17 +61,20 @@ public class CompressibleBytesOutputStreamTests extends ESTestCase {
 
     public void testStreamWithCompression() throws IOException {
         BytesStream bStream = new ZeroOutOnCloseStream();
-        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, true);
+        Compression.Scheme scheme = randomFrom(Compression.Scheme.values());
+        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, scheme);
 
-        byte[] expectedBytes = randomBytes(randomInt(30));
+        byte[] expectedBytes = randomBytes(randomFrom(randomInt(30), randomIntBetween(1, 200_000)));
         stream.write(expectedBytes);
+        assertEquals(expectedBytes.length, stream.getUncompressedBytes());
 
         BytesReference bytesRef = stream.materializeBytes();
         stream.close();
 
-        assertTrue(CompressorFactory.COMPRESSOR.isCompressed(bytesRef));
+        assertTrue(scheme.compressor().isCompressed(bytesRef));
+        assertEquals(scheme, Compression.schemeOf(bytesRef));
 
-        StreamInput streamInput = CompressorFactory.COMPRESSOR.streamInput(bytesRef.streamInput());
+        StreamInput streamInput = scheme.compressor().streamInput(bytesRef.streamInput());
         byte[] actualBytes = new byte[expectedBytes.length];
         streamInput.readBytes(actualBytes, 0, expectedBytes.length);
 
@@ -86,9 +89,54 @@ public class CompressibleBytesOutputStreamTests extends ESTestCase {
         }
     }
 
+    public void testStreamWithMinCompressedSize() throws IOException {
+        BytesStream bStream = new ZeroOutOnCloseStream();
+        // bytes that were written before the compressible part, like the header of a message
+        byte[] prefix = randomBytes(randomInt(30));
+        bStream.write(prefix);
+        Compression.Scheme scheme = randomFrom(Compression.Scheme.values());
+        int minCompressedSize = randomIntBetween(1, 1000);
+        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, scheme, minCompressedSize);
+
+        byte[] expectedBytes = randomBytes(randomIntBetween(0, 2000));
+        int offset = 0;
+        while (offset < expectedBytes.length) {
+            if (randomBoolean()) {
+                stream.writeByte(expectedBytes[offset++]);
+            } else {
+                int length = randomIntBetween(1, expectedBytes.length - offset);
+                stream.writeBytes(expectedBytes, offset, length);
+                offset += length;
+            }
+        }
+        assertEquals(expectedBytes.length, stream.getUncompressedBytes());
+        assertEquals(expectedBytes.length >= minCompressedSize, stream.isCompressed());
+
+        BytesReference bytesRef = stream.materializeBytes();
+        stream.close();
+
+        assertArrayEquals(prefix, BytesReference.toBytes(bytesRef.slice(0, prefix.length)));
+        BytesReference content = bytesRef.slice(prefix.length, bytesRef.length() - prefix.length);
+        StreamInput streamInput;
+        if (stream.isCompressed()) {
+            assertEquals(scheme, Compression.schemeOf(content));
+            streamInput = scheme.compressor().streamInput(content.streamInput());
+        } else {
+            assertFalse(scheme.compressor().isCompressed(content));
+            streamInput = content.streamInput();
+        }
+        byte[] actualBytes = new byte[expectedBytes.length];
+        streamInput.readBytes(actualBytes, 0, expectedBytes.length);
+
+        assertEquals(-1, streamInput.read());
+        assertArrayEquals(expectedBytes, actualBytes);
+
+        bStream.close();
+    }
+
     public void testCompressionWithCallingMaterializeFails() throws IOException {
         BytesStream bStream = new ZeroOutOnCloseStream();
-        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, true);
+        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, Compression.Scheme.DEFLATE);
 
         byte[] expectedBytes = randomBytes(between(1, 30));
         stream.write(expectedBytes);
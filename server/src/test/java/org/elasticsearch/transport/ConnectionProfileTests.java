@@ -38,6 +38,7 @@ public class ConnectionProfileTests extends ESTestCase {
         TimeValue handshakeTimeout = TimeValue.timeValueMillis(randomIntBetween(1, 10));
         TimeValue pingInterval = TimeValue.timeValueMillis(randomIntBetween(1, 10));
         boolean compressionEnabled = randomBoolean();
+        Compression.Scheme compressionScheme = randomFrom(Compression.Scheme.values());
         final boolean setConnectTimeout = randomBoolean();
         if (setConnectTimeout) {
             builder.setConnectTimeout(connectTimeout);
@@ -50,6 +51,10 @@ public class ConnectionProfileTests extends ESTestCase {
         if (setCompress) {
             builder.setCompressionEnabled(compressionEnabled);
         }
+        final boolean setCompressionScheme = randomBoolean();
+        if (setCompressionScheme) {
+            builder.setCompressionScheme(compressionScheme);
+        }
         final boolean setPingInterval = randomBoolean();
         if (setPingInterval) {
             builder.setPingInterval(pingInterval);
@@ -87,6 +92,12 @@ public class ConnectionProfileTests extends ESTestCase {
             assertNull(build.getCompressionEnabled());
         }
 
+        if (setCompressionScheme) {
+            assertEquals(compressionScheme, build.getCompressionScheme());
+        } else {
+            assertNull(build.getCompressionScheme());
+        }
+
         if (setPingInterval) {
             assertEquals(pingInterval, build.getPingInterval());
         } else {
@@ -179,6 +190,10 @@ public class ConnectionProfileTests extends ESTestCase {
         if (connectionCompressSet) {
             builder.setCompressionEnabled(randomBoolean());
         }
+        final boolean connectionCompressionSchemeSet = randomBoolean();
+        if (connectionCompressionSchemeSet) {
+            builder.setCompressionScheme(randomFrom(Compression.Scheme.values()));
+        }
 
         final ConnectionProfile profile = builder.build();
         final ConnectionProfile resolved = ConnectionProfile.resolveConnectionProfile(profile, defaultProfile);
@@ -194,6 +209,8 @@ public class ConnectionProfileTests extends ESTestCase {
             equalTo(pingIntervalSet ? profile.getPingInterval() : defaultProfile.getPingInterval()));
         assertThat(resolved.getCompressionEnabled(),
             equalTo(connectionCompressSet ? profile.getCompressionEnabled() : defaultProfile.getCompressionEnabled()));
+        assertThat(resolved.getCompressionScheme(),
+            equalTo(connectionCompressionSchemeSet ? profile.getCompressionScheme() : defaultProfile.getCompressionScheme()));
     }
 
     public void testDefaultConnectionProfile() {
@@ -207,8 +224,13 @@ public class ConnectionProfileTests extends ESTestCase {
         assertEquals(TransportSettings.CONNECT_TIMEOUT.get(Settings.EMPTY), profile.getConnectTimeout());
         assertEquals(TransportSettings.CONNECT_TIMEOUT.get(Settings.EMPTY), profile.getHandshakeTimeout());
         assertEquals(TransportSettings.TRANSPORT_COMPRESS.get(Settings.EMPTY), profile.getCompressionEnabled());
+        assertEquals(Compression.Scheme.DEFLATE, profile.getCompressionScheme());
         assertEquals(TransportSettings.PING_SCHEDULE.get(Settings.EMPTY), profile.getPingInterval());
 
+        profile = ConnectionProfile.buildDefaultConnectionProfile(Settings.builder()
+            .put(TransportSettings.TRANSPORT_COMPRESSION_SCHEME.getKey(), "lz4").build());
+        assertEquals(Compression.Scheme.LZ4, profile.getCompressionScheme());
+
         profile = ConnectionProfile.buildDefaultConnectionProfile(Settings.builder().put("node.master", false).build());
         assertEquals(12, profile.getNumConnections());
         assertEquals(1, profile.getNumConnectionsPerType(TransportRequestOptions.Type.PING));
@@ -90,7 +90,7 @@ public class InboundHandlerTests extends ESTestCase {
 
     public void testRequestAndResponse() throws Exception {
         String action = "test-request";
-        boolean isCompressed = randomBoolean();
+        Compression.Scheme compressionScheme = randomBoolean() ? randomFrom(Compression.Scheme.values()) : null;
         boolean isError = randomBoolean();
         AtomicReference<TestRequest> requestCaptor = new AtomicReference<>();
         AtomicReference<TestResponse> responseCaptor = new AtomicReference<>();
@@ -126,7 +126,7 @@ public class InboundHandlerTests extends ESTestCase {
         handler.registerRequestHandler(registry);
         String requestValue = randomAlphaOfLength(10);
         OutboundMessage.Request request = new OutboundMessage.Request(threadPool.getThreadContext(),
-            new TestRequest(requestValue), version, action, requestId, false, isCompressed);
+            new TestRequest(requestValue), version, action, requestId, false, compressionScheme);
 
         BytesReference bytes = request.serialize(new BytesStreamOutput());
         handler.inboundMessage(channel, bytes.slice(6, bytes.length() - 6));
@@ -21,10 +21,12 @@ package org.elasticsearch.transport;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.test.ESTestCase;
@@ -33,6 +35,7 @@ import org.hamcrest.Matchers;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class InboundMessageTests extends ESTestCase {
 
@@ -46,10 +49,11 @@ public class InboundMessageTests extends ESTestCase {
         long requestId = randomLong();
         boolean isHandshake = randomBoolean();
         boolean compress = randomBoolean();
+        Compression.Scheme compressionScheme = compress ? randomFrom(Compression.Scheme.values()) : null;
         threadContext.putHeader("header", "header_value");
         Version version = randomFrom(Version.CURRENT, Version.CURRENT.minimumCompatibilityVersion());
         OutboundMessage.Request request = new OutboundMessage.Request(threadContext, message, version, action, requestId,
-            isHandshake, compress);
+            isHandshake, compressionScheme);
         BytesReference reference;
         try (BytesStreamOutput streamOutput = new BytesStreamOutput()) {
             reference = request.serialize(streamOutput);
@@ -69,6 +73,7 @@ public class InboundMessageTests extends ESTestCase {
         assertEquals("header_value", threadContext.getHeader("header"));
         assertEquals(isHandshake, inboundMessage.isHandshake());
         assertEquals(compress, inboundMessage.isCompress());
+        assertEquals(compressionScheme, inboundMessage.getCompressionScheme());
         assertEquals(version, inboundMessage.getVersion());
         assertEquals(action, inboundMessage.getActionName());
         assertTrue(inboundMessage.isRequest());
@@ -77,16 +82,53 @@ public class InboundMessageTests extends ESTestCase {
         assertEquals(value, new Message(inboundMessage.getStreamInput()).value);
     }
 
+    public void testReadRequestSharesNetworkBytes() throws IOException {
+        final BytesReference payload = new BytesArray(randomByteArrayOfLength(randomIntBetween(0, 1 << 16)));
+        final String action = randomAlphaOfLength(10);
+        final boolean compress = randomBoolean();
+        final Compression.Scheme compressionScheme = compress ? randomFrom(Compression.Scheme.values()) : null;
+        final OutboundMessage.Request request = new OutboundMessage.Request(threadContext, new PayloadMessage(payload), Version.CURRENT,
+            action, randomLong(), false, compressionScheme);
+        final BytesReference reference;
+        try (BytesStreamOutput streamOutput = new BytesStreamOutput()) {
+            reference = request.serialize(streamOutput);
+        }
+
+        final AtomicBoolean released = new AtomicBoolean();
+        final ReleasableBytesReference networkBytes = new ReleasableBytesReference(reference.slice(6, reference.length() - 6),
+            () -> assertTrue(released.compareAndSet(false, true)));
+        final InboundMessage.Reader reader = new InboundMessage.Reader(Version.CURRENT, registry, threadContext);
+        final InboundMessage.Request inboundMessage = (InboundMessage.Request) reader.deserialize(networkBytes);
+        final PayloadMessage message = new PayloadMessage(inboundMessage.getStreamInput());
+        assertEquals(payload, message.payload);
+
+        final Releasable sharedBytes = inboundMessage.retainSharedBytes();
+        if (compress || payload.length() == 0) {
+            // decompressed bytes are copied, there is nothing to retain
+            assertNull(sharedBytes);
+            networkBytes.close();
+            assertTrue(released.get());
+        } else {
+            assertNotNull(sharedBytes);
+            networkBytes.close();
+            assertFalse(released.get());
+            assertEquals(payload, message.payload);
+            sharedBytes.close();
+            assertTrue(released.get());
+        }
+    }
+
     public void testReadResponse() throws IOException {
         String value = randomAlphaOfLength(10);
         Message message = new Message(value);
         long requestId = randomLong();
         boolean isHandshake = randomBoolean();
         boolean compress = randomBoolean();
+        Compression.Scheme compressionScheme = compress ? randomFrom(Compression.Scheme.values()) : null;
         threadContext.putHeader("header", "header_value");
         Version version = randomFrom(Version.CURRENT, Version.CURRENT.minimumCompatibilityVersion());
         OutboundMessage.Response request = new OutboundMessage.Response(threadContext, message, version, requestId, isHandshake,
-            compress);
+            compressionScheme);
         BytesReference reference;
         try (BytesStreamOutput streamOutput = new BytesStreamOutput()) {
             reference = request.serialize(streamOutput);
@@ -106,6 +148,7 @@ public class InboundMessageTests extends ESTestCase {
         assertEquals("header_value", threadContext.getHeader("header"));
         assertEquals(isHandshake, inboundMessage.isHandshake());
         assertEquals(compress, inboundMessage.isCompress());
+        assertEquals(compressionScheme, inboundMessage.getCompressionScheme());
         assertEquals(version, inboundMessage.getVersion());
         assertTrue(inboundMessage.isResponse());
         assertFalse(inboundMessage.isRequest());
@@ -118,10 +161,11 @@ public class InboundMessageTests extends ESTestCase {
         long requestId = randomLong();
         boolean isHandshake = randomBoolean();
         boolean compress = randomBoolean();
+        Compression.Scheme compressionScheme = compress ? randomFrom(Compression.Scheme.values()) : null;
         threadContext.putHeader("header", "header_value");
         Version version = randomFrom(Version.CURRENT, Version.CURRENT.minimumCompatibilityVersion());
         OutboundMessage.Response request = new OutboundMessage.Response(threadContext, exception, version, requestId,
-            isHandshake, compress);
+            isHandshake, compressionScheme);
         BytesReference reference;
         try (BytesStreamOutput streamOutput = new BytesStreamOutput()) {
             reference = request.serialize(streamOutput);
@@ -141,6 +185,7 @@ public class InboundMessageTests extends ESTestCase {
         assertEquals("header_value", threadContext.getHeader("header"));
         assertEquals(isHandshake, inboundMessage.isHandshake());
         assertEquals(compress, inboundMessage.isCompress());
+        assertEquals(compressionScheme, inboundMessage.getCompressionScheme());
         assertEquals(version, inboundMessage.getVersion());
         assertTrue(inboundMessage.isResponse());
         assertFalse(inboundMessage.isRequest());
@@ -179,7 +224,7 @@ public class InboundMessageTests extends ESTestCase {
 
     public void testThrowOnNotCompressed() throws Exception {
         OutboundMessage.Response request = new OutboundMessage.Response(
-            threadContext, new Message(randomAlphaOfLength(10)), Version.CURRENT, randomLong(), false, false);
+            threadContext, new Message(randomAlphaOfLength(10)), Version.CURRENT, randomLong(), false, null);
         BytesReference reference;
         try (BytesStreamOutput streamOutput = new BytesStreamOutput()) {
             reference = request.serialize(streamOutput);
@@ -200,9 +245,10 @@ public class InboundMessageTests extends ESTestCase {
         Message message = new Message(value);
         String action = randomAlphaOfLength(10);
         long requestId = randomLong();
-        boolean compress = randomBoolean();
+        // nodes negotiate a scheme that the remote node supports
+        Compression.Scheme compressionScheme = randomBoolean() ? randomFrom(Compression.Scheme.values()).forVersion(version) : null;
         OutboundMessage.Request request = new OutboundMessage.Request(threadContext, message, version, action, requestId,
-            isHandshake, compress);
+            isHandshake, compressionScheme);
         BytesReference reference;
         try (BytesStreamOutput streamOutput = new BytesStreamOutput()) {
             reference = request.serialize(streamOutput);
@@ -213,6 +259,24 @@ public class InboundMessageTests extends ESTestCase {
         reader.deserialize(sliced);
     }
 
+    private static final class PayloadMessage extends TransportMessage {
+
+        private final BytesReference payload;
+
+        private PayloadMessage(StreamInput in) throws IOException {
+            payload = in.readReleasableBytesReference();
+        }
+
+        private PayloadMessage(BytesReference payload) {
+            this.payload = payload;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeBytesReference(payload);
+        }
+    }
+
     private static final class Message extends TransportMessage {
 
         public String value;
@@ -0,0 +1,126 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+public class Lz4TransportCompressorTests extends ESTestCase {
+
+    private final Lz4TransportCompressor compressor = new Lz4TransportCompressor();
+
+    public void testRandomBytes() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            byte[] bytes = randomByteArrayOfLength(randomIntBetween(1, 3 * Lz4TransportCompressor.BLOCK_SIZE));
+            assertRoundTrip(bytes);
+        }
+    }
+
+    public void testRepetitiveBytes() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        int numTokens = randomIntBetween(1, 50_000);
+        for (int i = 0; i < numTokens; i++) {
+            builder.append("{\"field\":\"value-").append(i % 17).append("\"}");
+        }
+        byte[] bytes = builder.toString().getBytes(StandardCharsets.UTF_8);
+        BytesReference compressed = compress(bytes);
+        if (bytes.length > 1024) {
+            assertThat(compressed.length(), lessThan(bytes.length));
+        }
+        assertRoundTrip(bytes);
+    }
+
+    public void testEmptyStream() throws IOException {
+        BytesReference compressed = compress(new byte[0]);
+        assertTrue(compressor.isCompressed(compressed));
+        try (StreamInput in = compressor.streamInput(compressed.streamInput())) {
+            assertEquals(-1, in.read());
+            assertEquals(-1, in.read(new byte[1], 0, 1));
+            expectThrows(EOFException.class, in::readByte);
+        }
+    }
+
+    public void testIsCompressed() throws IOException {
+        assertTrue(compressor.isCompressed(compress(randomByteArrayOfLength(randomIntBetween(0, 100)))));
+        assertFalse(compressor.isCompressed(new BytesArray(new byte[] {'L', 'Z'})));
+        assertFalse(compressor.isCompressed(new BytesArray(randomAlphaOfLength(10))));
+        assertEquals(Compression.Scheme.LZ4, Compression.schemeOf(compress(new byte[] {1, 2, 3})));
+        expectThrows(IllegalArgumentException.class, () -> compressor.streamInput(new BytesArray(randomAlphaOfLength(10)).streamInput()));
+    }
+
+    public void testSchemeForVersion() {
+        assertEquals(Compression.Scheme.LZ4, Compression.Scheme.LZ4.forVersion(Compression.Scheme.LZ4_VERSION));
+        assertEquals(Compression.Scheme.DEFLATE, Compression.Scheme.LZ4.forVersion(
+            Compression.Scheme.LZ4_VERSION.minimumCompatibilityVersion()));
+        assertEquals(Compression.Scheme.DEFLATE, Compression.Scheme.DEFLATE.forVersion(Compression.Scheme.LZ4_VERSION));
+        for (Compression.Scheme scheme : Compression.Scheme.values()) {
+            assertEquals(scheme, Compression.Scheme.parse(scheme.toString()));
+        }
+        expectThrows(IllegalArgumentException.class, () -> Compression.Scheme.parse("snappy"));
+    }
+
+    private BytesReference compress(byte[] bytes) throws IOException {
+        BytesStreamOutput bytesStreamOutput = new BytesStreamOutput();
+        try (StreamOutput out = compressor.streamOutput(bytesStreamOutput)) {
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (randomBoolean()) {
+                    out.writeByte(bytes[offset++]);
+                } else {
+                    int length = Math.min(bytes.length - offset, randomIntBetween(1, 2 * Lz4TransportCompressor.BLOCK_SIZE));
+                    out.writeBytes(bytes, offset, length);
+                    offset += length;
+                }
+            }
+        }
+        return bytesStreamOutput.bytes();
+    }
+
+    private void assertRoundTrip(byte[] bytes) throws IOException {
+        BytesReference compressed = compress(bytes);
+        assertTrue(compressor.isCompressed(compressed));
+        byte[] decompressed = new byte[bytes.length];
+        try (StreamInput in = compressor.streamInput(compressed.streamInput())) {
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (randomBoolean()) {
+                    decompressed[offset++] = in.readByte();
+                } else {
+                    int read = in.read(decompressed, offset, randomIntBetween(1, bytes.length - offset));
+                    assertThat(read, greaterThan(0));
+                    offset += read;
+                }
+            }
+            assertEquals(-1, in.read());
+        }
+        assertArrayEquals(bytes, decompressed);
+    }
+}
@@ -22,15 +22,26 @@ package org.elasticsearch.transport;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkItemRequest;
+import org.elasticsearch.action.bulk.BulkShardRequest;
+import org.elasticsearch.action.bulk.TransportShardBulkAction;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.support.WriteRequest;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.TransportAddress;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.threadpool.TestThreadPool;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -39,7 +50,9 @@ import org.junit.Before;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -95,6 +108,30 @@ public class OutboundHandlerTests extends ESTestCase {
         assertEquals(bytesArray, reference);
     }
 
+    public void testPendingMessagesAreTrackedUntilWritten() {
+        final int messageCount = randomIntBetween(1, 5);
+        final List<ActionListener<Void>> sendListeners = new ArrayList<>();
+        long totalBytes = 0;
+        for (int i = 0; i < messageCount; i++) {
+            final BytesArray bytes = new BytesArray(randomByteArrayOfLength(between(1, 100)));
+            totalBytes += bytes.length();
+            handler.sendBytes(channel, bytes, ActionListener.wrap(() -> {}));
+            sendListeners.add(channel.getListenerCaptor().get());
+        }
+        assertEquals(messageCount, channel.getChannelStats().pendingMessages());
+        assertEquals(totalBytes, channel.getChannelStats().pendingBytes());
+
+        for (ActionListener<Void> sendListener : sendListeners) {
+            if (randomBoolean()) {
+                sendListener.onResponse(null);
+            } else {
+                sendListener.onFailure(new IOException("failed"));
+            }
+        }
+        assertEquals(0, channel.getChannelStats().pendingMessages());
+        assertEquals(0, channel.getChannelStats().pendingBytes());
+    }
+
     public void testSendRequest() throws IOException {
         ThreadContext threadContext = threadPool.getThreadContext();
         Version version = randomFrom(Version.CURRENT, Version.CURRENT.minimumCompatibilityVersion());
@@ -102,6 +139,7 @@ public class OutboundHandlerTests extends ESTestCase {
         long requestId = randomLongBetween(0, 300);
         boolean isHandshake = randomBoolean();
         boolean compress = randomBoolean();
+        Compression.Scheme compressionScheme = compress ? randomFrom(Compression.Scheme.values()) : null;
         String value = "message";
         threadContext.putHeader("header", "header_value");
         Request request = new Request(value);
@@ -120,7 +158,7 @@ public class OutboundHandlerTests extends ESTestCase {
                 requestRef.set(request);
             }
         });
-        handler.sendRequest(node, channel, requestId, action, request, options, version, compress, isHandshake);
+        handler.sendRequest(node, channel, requestId, action, request, options, version, compressionScheme, isHandshake);
 
         BytesReference reference = channel.getMessageCaptor().get();
         ActionListener<Void> sendListener  = channel.getListenerCaptor().get();
@@ -150,6 +188,7 @@ public class OutboundHandlerTests extends ESTestCase {
             } else {
                 assertFalse(inboundMessage.isCompress());
             }
+            assertEquals(compressionScheme, inboundMessage.getCompressionScheme());
             InboundMessage.Request inboundRequest = (InboundMessage.Request) inboundMessage;
 
             Request readMessage = new Request(inboundMessage.getStreamInput());
@@ -171,6 +210,7 @@ public class OutboundHandlerTests extends ESTestCase {
         long requestId = randomLongBetween(0, 300);
         boolean isHandshake = randomBoolean();
         boolean compress = randomBoolean();
+        Compression.Scheme compressionScheme = compress ? randomFrom(Compression.Scheme.values()) : null;
         String value = "message";
         threadContext.putHeader("header", "header_value");
         Response response = new Response(value);
@@ -186,7 +226,7 @@ public class OutboundHandlerTests extends ESTestCase {
                 responseRef.set(response);
             }
         });
-        handler.sendResponse(version, channel, requestId, action, response, compress, isHandshake);
+        handler.sendResponse(version, channel, requestId, action, response, compressionScheme, isHandshake);
 
         BytesReference reference = channel.getMessageCaptor().get();
         ActionListener<Void> sendListener  = channel.getListenerCaptor().get();
@@ -215,6 +255,7 @@ public class OutboundHandlerTests extends ESTestCase {
             } else {
                 assertFalse(inboundMessage.isCompress());
             }
+            assertEquals(compressionScheme, inboundMessage.getCompressionScheme());
 
             InboundMessage.Response inboundResponse = (InboundMessage.Response) inboundMessage;
             assertFalse(inboundResponse.isError());
@@ -290,6 +331,110 @@ public class OutboundHandlerTests extends ESTestCase {
         }
     }
 
+    public void testCompressedActions() throws IOException {
+        Compression.Scheme actionScheme = randomFrom(Compression.Scheme.values());
+        int minCompressedSize = randomIntBetween(100, 1000);
+        OutboundHandler handler = new OutboundHandler("node", Version.CURRENT, actionScheme,
+            Collections.singletonList("internal:compressed/*"), new ByteSizeValue(minCompressedSize), threadPool,
+            BigArrays.NON_RECYCLING_INSTANCE);
+        Version version = randomFrom(Version.CURRENT, Version.CURRENT.minimumCompatibilityVersion());
+        Compression.Scheme expectedActionScheme = actionScheme.forVersion(version);
+
+        assertEquals(expectedActionScheme, handler.requestCompressionScheme("internal:compressed/action", version, null, false));
+        assertNull(handler.requestCompressionScheme("internal:compressed/action", version, null, true));
+        assertNull(handler.requestCompressionScheme("internal:uncompressed", version, null, false));
+        Compression.Scheme connectionScheme = randomFrom(Compression.Scheme.values());
+        assertEquals(connectionScheme, handler.requestCompressionScheme("internal:uncompressed", version, connectionScheme, false));
+
+        boolean compressedAction = randomBoolean();
+        String action = compressedAction ? "internal:compressed/action" : "internal:uncompressed";
+        boolean large = randomBoolean();
+        String value = randomAlphaOfLength(large ? minCompressedSize : randomIntBetween(0, minCompressedSize - 50));
+        handler.sendRequest(node, channel, randomNonNegativeLong(), action, new Request(value), options, version, null, false);
+
+        BytesReference reference = channel.getMessageCaptor().get();
+        channel.getListenerCaptor().get().onResponse(null);
+        InboundMessage.Reader reader = new InboundMessage.Reader(Version.CURRENT, namedWriteableRegistry, threadPool.getThreadContext());
+        try (InboundMessage inboundMessage = reader.deserialize(reference.slice(6, reference.length() - 6))) {
+            if (compressedAction && large) {
+                assertTrue(inboundMessage.isCompress());
+                assertEquals(expectedActionScheme, inboundMessage.getCompressionScheme());
+                assertEquals(1L, handler.getCompressedMessages());
+            } else {
+                assertFalse(inboundMessage.isCompress());
+                assertNull(inboundMessage.getCompressionScheme());
+                assertEquals(0L, handler.getCompressedMessages());
+            }
+            assertEquals(value, new Request(inboundMessage.getStreamInput()).value);
+        }
+    }
+
+    public void testBulkShardRequestsShareNetworkBytesByDefault() throws IOException {
+        Settings settings = Settings.EMPTY;
+        OutboundHandler handler = new OutboundHandler("node", Version.CURRENT, TransportSettings.TRANSPORT_COMPRESSION_SCHEME.get(settings),
+            TransportSettings.TRANSPORT_COMPRESSION_ACTIONS.get(settings), TransportSettings.TRANSPORT_COMPRESSION_MIN_SIZE.get(settings),
+            threadPool, BigArrays.NON_RECYCLING_INSTANCE);
+        Compression.Scheme connectionScheme =
+            TcpTransport.compressionScheme(ConnectionProfile.buildDefaultConnectionProfile(settings), Version.CURRENT);
+        String source = "{\"field\":\"" + randomAlphaOfLength(randomIntBetween(2048, 8192)) + "\"}";
+        BulkItemRequest[] items = new BulkItemRequest[] {
+            new BulkItemRequest(0, new IndexRequest("index").id("id").source(source, XContentType.JSON))
+        };
+        BulkShardRequest request = new BulkShardRequest(new ShardId("index", "_na_", 0), WriteRequest.RefreshPolicy.NONE, items);
+        handler.sendRequest(node, channel, randomNonNegativeLong(), TransportShardBulkAction.ACTION_NAME + "[p]", request, options,
+            Version.CURRENT, connectionScheme, false);
+
+        BytesReference reference = channel.getMessageCaptor().get();
+        channel.getListenerCaptor().get().onResponse(null);
+        AtomicBoolean released = new AtomicBoolean();
+        ReleasableBytesReference networkBytes = new ReleasableBytesReference(reference.slice(6, reference.length() - 6),
+            () -> assertTrue(released.compareAndSet(false, true)));
+        InboundMessage.Reader reader = new InboundMessage.Reader(Version.CURRENT, namedWriteableRegistry, threadPool.getThreadContext());
+        try (InboundMessage.Request inboundMessage = (InboundMessage.Request) reader.deserialize(networkBytes)) {
+            assertFalse(inboundMessage.isCompress());
+            assertEquals(0L, handler.getCompressedMessages());
+            BulkShardRequest inboundRequest = new BulkShardRequest(inboundMessage.getStreamInput());
+            Releasable sharedBytes = inboundMessage.retainSharedBytes();
+            assertNotNull("the source of the index request should share the network buffer", sharedBytes);
+            networkBytes.close();
+            assertFalse(released.get());
+            assertEquals(new BytesArray(source), ((IndexRequest) inboundRequest.items()[0].request()).source());
+            sharedBytes.close();
+            assertTrue(released.get());
+        }
+    }
+
+    public void testMinCompressedSizeDoesNotApplyToCompressedConnections() throws IOException {
+        int minCompressedSize = randomIntBetween(100, 1000);
+        OutboundHandler handler = new OutboundHandler("node", Version.CURRENT, Compression.Scheme.DEFLATE,
+            Collections.singletonList("internal:compressed/*"), new ByteSizeValue(minCompressedSize), threadPool,
+            BigArrays.NON_RECYCLING_INSTANCE);
+        Compression.Scheme compressionScheme = randomFrom(Compression.Scheme.values());
+        String value = randomAlphaOfLength(randomIntBetween(0, minCompressedSize - 50));
+        boolean request = randomBoolean();
+        if (request) {
+            String action = randomFrom("internal:compressed/action", "internal:uncompressed");
+            handler.sendRequest(node, channel, randomNonNegativeLong(), action, new Request(value), options, Version.CURRENT,
+                compressionScheme, false);
+        } else {
+            handler.sendResponse(Version.CURRENT, channel, randomNonNegativeLong(), "action", new Response(value), compressionScheme,
+                false);
+        }
+
+        BytesReference reference = channel.getMessageCaptor().get();
+        channel.getListenerCaptor().get().onResponse(null);
+        InboundMessage.Reader reader = new InboundMessage.Reader(Version.CURRENT, namedWriteableRegistry, threadPool.getThreadContext());
+        try (InboundMessage inboundMessage = reader.deserialize(reference.slice(6, reference.length() - 6))) {
+            assertTrue(inboundMessage.isCompress());
+            assertEquals(compressionScheme, inboundMessage.getCompressionScheme());
+            if (request) {
+                assertEquals(value, new Request(inboundMessage.getStreamInput()).value);
+            } else {
+                assertEquals(value, new Response(inboundMessage.getStreamInput()).value);
+            }
+        }
+    }
+
     private static final class Request extends TransportRequest {
 
         public String value;
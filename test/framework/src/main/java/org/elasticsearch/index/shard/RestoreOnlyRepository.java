@@ -117,6 +117,16 @@ public abstract class RestoreOnlyRepository extends AbstractLifecycleComponent i
         return 0;
     }
 
+    @Override
+    public long getSnapshotUploadedBytes() {
+        return 0;
+    }
+
+    @Override
+    public long getSnapshotUploadTimeInNanos() {
+        return 0;
+    }
+
     @Override
     public String startVerification() {
         return null;
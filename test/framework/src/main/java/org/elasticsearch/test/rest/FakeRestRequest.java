@@ -24,6 +24,7 @@ import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.http.HttpBodyStream;
 import org.elasticsearch.http.HttpChannel;
 import org.elasticsearch.http.HttpRequest;
 import org.elasticsearch.http.HttpResponse;
@@ -39,8 +40,8 @@ import java.util.Map;
 public class FakeRestRequest extends RestRequest {
 
     public FakeRestRequest() {
-        this(NamedXContentRegistry.EMPTY, new FakeHttpRequest(Method.GET, "", BytesArray.EMPTY, new HashMap<>()), new HashMap<>(),
-            new FakeHttpChannel(null));
+        this(NamedXContentRegistry.EMPTY, new FakeHttpRequest(Method.GET, "", BytesArray.EMPTY, null, new HashMap<>()),
+            new HashMap<>(), new FakeHttpChannel(null));
     }
 
     private FakeRestRequest(NamedXContentRegistry xContentRegistry, HttpRequest httpRequest, Map<String, String> params,
@@ -53,12 +54,15 @@ public class FakeRestRequest extends RestRequest {
         private final Method method;
         private final String uri;
         private final BytesReference content;
+        private final HttpBodyStream bodyStream;
         private final Map<String, List<String>> headers;
 
-        private FakeHttpRequest(Method method, String uri, BytesReference content, Map<String, List<String>> headers) {
+        private FakeHttpRequest(Method method, String uri, BytesReference content, HttpBodyStream bodyStream,
+                                Map<String, List<String>> headers) {
             this.method = method;
             this.uri = uri;
             this.content = content;
+            this.bodyStream = bodyStream;
             this.headers = headers;
         }
 
@@ -77,6 +81,11 @@ public class FakeRestRequest extends RestRequest {
             return content;
         }
 
+        @Override
+        public HttpBodyStream bodyStream() {
+            return bodyStream;
+        }
+
         @Override
         public Map<String, List<String>> getHeaders() {
             return headers;
@@ -172,6 +181,8 @@ public class FakeRestRequest extends RestRequest {
 
         private BytesReference content = BytesArray.EMPTY;
 
+        private HttpBodyStream bodyStream = null;
+
         private String path = "/";
 
         private Method method = Method.GET;
@@ -200,6 +211,14 @@ public class FakeRestRequest extends RestRequest {
             return this;
         }
 
+        public Builder withBodyStream(HttpBodyStream bodyStream, XContentType xContentType) {
+            this.bodyStream = bodyStream;
+            if (xContentType != null) {
+                headers.put("Content-Type", Collections.singletonList(xContentType.mediaType()));
+            }
+            return this;
+        }
+
         public Builder withPath(String path) {
             this.path = path;
             return this;
@@ -216,7 +235,7 @@ public class FakeRestRequest extends RestRequest {
         }
 
         public FakeRestRequest build() {
-            FakeHttpRequest fakeHttpRequest = new FakeHttpRequest(method, path, content, headers);
+            FakeHttpRequest fakeHttpRequest = new FakeHttpRequest(method, path, content, bodyStream, headers);
             return new FakeRestRequest(xContentRegistry, fakeHttpRequest, params, new FakeHttpChannel(address));
         }
     }
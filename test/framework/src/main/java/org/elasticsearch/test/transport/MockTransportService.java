@@ -159,11 +159,21 @@ public final class MockTransportService extends TransportService {
     private MockTransportService(Settings settings, StubbableTransport transport, ThreadPool threadPool, TransportInterceptor interceptor,
                                  Function<BoundTransportAddress, DiscoveryNode> localNodeFactory,
                                  @Nullable ClusterSettings clusterSettings, Set<String> taskHeaders) {
-        super(settings, transport, threadPool, interceptor, localNodeFactory, clusterSettings, taskHeaders,
+        super(disableBatchingByDefault(settings), transport, threadPool, interceptor, localNodeFactory, clusterSettings, taskHeaders,
             new StubbableConnectionManager(new ClusterConnectionManager(settings, transport)));
         this.original = transport.getDelegate();
     }
 
+    /**
+     * Send behaviors and request tracing see requests by their action, so requests are only batched if a test asks for it.
+     */
+    private static Settings disableBatchingByDefault(Settings settings) {
+        if (TransportSettings.TRANSPORT_BATCH_WINDOW.exists(settings)) {
+            return settings;
+        }
+        return Settings.builder().put(settings).put(TransportSettings.TRANSPORT_BATCH_WINDOW.getKey(), TimeValue.ZERO).build();
+    }
+
     private static TransportAddress[] extractTransportAddresses(TransportService transportService) {
         HashSet<TransportAddress> transportAddresses = new HashSet<>();
         BoundTransportAddress boundTransportAddress = transportService.boundAddress();
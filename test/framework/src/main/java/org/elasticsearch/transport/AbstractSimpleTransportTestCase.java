@@ -49,6 +49,7 @@ import org.elasticsearch.common.transport.TransportAddress;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.mocksocket.MockServerSocket;
 import org.elasticsearch.node.Node;
@@ -97,8 +98,10 @@ import static java.util.Collections.emptySet;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasToString;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.startsWith;
 
@@ -555,7 +558,10 @@ public abstract class AbstractSimpleTransportTestCase extends ESTestCase {
                     }
                 });
 
-            Settings settingsWithCompress = Settings.builder().put(TransportSettings.TRANSPORT_COMPRESS.getKey(), true).build();
+            Settings settingsWithCompress = Settings.builder()
+                .put(TransportSettings.TRANSPORT_COMPRESS.getKey(), true)
+                .put(TransportSettings.TRANSPORT_COMPRESSION_SCHEME.getKey(), randomFrom(Compression.Scheme.values()))
+                .build();
             ConnectionProfile connectionProfile = ConnectionProfile.buildDefaultConnectionProfile(settingsWithCompress);
             connectToNode(serviceC, serviceA.getLocalDiscoNode(), connectionProfile);
 
@@ -607,7 +613,10 @@ public abstract class AbstractSimpleTransportTestCase extends ESTestCase {
                     }
                 });
 
-            Settings settingsWithCompress = Settings.builder().put(TransportSettings.TRANSPORT_COMPRESS.getKey(), true).build();
+            Settings settingsWithCompress = Settings.builder()
+                .put(TransportSettings.TRANSPORT_COMPRESS.getKey(), true)
+                .put(TransportSettings.TRANSPORT_COMPRESSION_SCHEME.getKey(), randomFrom(Compression.Scheme.values()))
+                .build();
             ConnectionProfile connectionProfile = ConnectionProfile.buildDefaultConnectionProfile(settingsWithCompress);
             connectToNode(serviceC, serviceA.getLocalDiscoNode(), connectionProfile);
 
@@ -644,6 +653,118 @@ public abstract class AbstractSimpleTransportTestCase extends ESTestCase {
         }
     }
 
+    public void testBatchedRequests() throws Exception {
+        final int maxRequests = randomIntBetween(1, 10);
+        final Settings batchSettings = Settings.builder()
+            .put(TransportSettings.TRANSPORT_BATCH_ACTIONS.getKey(), "internal:batched*")
+            .put(TransportSettings.TRANSPORT_BATCH_WINDOW.getKey(), TimeValue.timeValueMillis(randomIntBetween(1, 50)))
+            .put(TransportSettings.TRANSPORT_BATCH_MAX_REQUESTS.getKey(), maxRequests)
+            .build();
+        try (MockTransportService serviceC = buildService("TS_C", CURRENT_VERSION, batchSettings)) {
+            serviceC.start();
+            serviceC.acceptIncomingRequests();
+            // only nodes that support batching receive batches, which serviceA doesn't
+            connectToNode(serviceC, serviceB.getLocalDiscoNode());
+
+            serviceB.registerRequestHandler("internal:batched", randomFrom(ThreadPool.Names.SAME, ThreadPool.Names.GENERIC),
+                StringMessageRequest::new, (request, channel, task) -> {
+                    // every batched request is handled with the headers it has been sent with
+                    assertEquals(request.message, threadPool.getThreadContext().getHeader("test.user"));
+                    // and responded to over a channel of its own, which security filters can inspect like any other
+                    assertThat(((TaskTransportChannel) channel).getChannel(), instanceOf(TcpTransportChannel.class));
+                    if (request.message.startsWith("fail")) {
+                        throw new ElasticsearchException("failed [" + request.message + "]");
+                    }
+                    channel.sendResponse(new StringMessageResponse("hello " + request.message));
+                });
+            final AtomicInteger batches = new AtomicInteger();
+            final AtomicInteger unbatchedRequests = new AtomicInteger();
+            serviceB.addMessageListener(new TransportMessageListener() {
+                @Override
+                public void onRequestReceived(long requestId, String action) {
+                    if (TransportRequestBatcher.BATCH_ACTION_NAME.equals(action)) {
+                        batches.incrementAndGet();
+                    } else if (action.equals("internal:batched")) {
+                        unbatchedRequests.incrementAndGet();
+                    }
+                }
+            });
+
+            final int numRequests = randomIntBetween(1, 50);
+            final List<PlainActionFuture<StringMessageResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < numRequests; i++) {
+                final String message = (randomBoolean() ? "fail-" : "ok-") + i;
+                final PlainActionFuture<StringMessageResponse> future = PlainActionFuture.newFuture();
+                try (ThreadContext.StoredContext ignored = threadPool.getThreadContext().stashContext()) {
+                    threadPool.getThreadContext().putHeader("test.user", message);
+                    serviceC.sendRequest(nodeB, "internal:batched", new StringMessageRequest(message),
+                        new ActionListenerResponseHandler<>(future, StringMessageResponse::new));
+                }
+                futures.add(future);
+            }
+            for (int i = 0; i < numRequests; i++) {
+                final PlainActionFuture<StringMessageResponse> future = futures.get(i);
+                try {
+                    assertEquals("hello ok-" + i, future.actionGet().message);
+                } catch (Exception e) {
+                    assertEquals("failed [fail-" + i + "]", ExceptionsHelper.unwrapCause(e).getMessage());
+                }
+            }
+            assertEquals(0, unbatchedRequests.get());
+            assertThat(batches.get(), greaterThanOrEqualTo((numRequests + maxRequests - 1) / maxRequests));
+            assertThat(batches.get(), lessThanOrEqualTo(numRequests));
+        }
+    }
+
+    public void testBatchedRequestsAreRespondedToIndividually() throws Exception {
+        // a batch is sent as soon as it holds two requests, so both requests end up in the same batch
+        final Settings batchSettings = Settings.builder()
+            .put(TransportSettings.TRANSPORT_BATCH_ACTIONS.getKey(), "internal:batched*")
+            .put(TransportSettings.TRANSPORT_BATCH_WINDOW.getKey(), TimeValue.timeValueSeconds(30))
+            .put(TransportSettings.TRANSPORT_BATCH_MAX_REQUESTS.getKey(), 2)
+            .build();
+        final CountDownLatch blockSlowRequest = new CountDownLatch(1);
+        try (MockTransportService serviceC = buildService("TS_C", CURRENT_VERSION, batchSettings)) {
+            serviceC.start();
+            serviceC.acceptIncomingRequests();
+            connectToNode(serviceC, serviceB.getLocalDiscoNode());
+
+            serviceB.registerRequestHandler("internal:batched", ThreadPool.Names.GENERIC, StringMessageRequest::new,
+                (request, channel, task) -> {
+                    if (request.message.equals("slow")) {
+                        assertTrue(blockSlowRequest.await(30, TimeUnit.SECONDS));
+                    }
+                    channel.sendResponse(new StringMessageResponse("hello " + request.message));
+                });
+            final AtomicInteger batches = new AtomicInteger();
+            serviceB.addMessageListener(new TransportMessageListener() {
+                @Override
+                public void onRequestReceived(long requestId, String action) {
+                    if (TransportRequestBatcher.BATCH_ACTION_NAME.equals(action)) {
+                        batches.incrementAndGet();
+                    }
+                }
+            });
+
+            final PlainActionFuture<StringMessageResponse> slowFuture = PlainActionFuture.newFuture();
+            serviceC.sendRequest(nodeB, "internal:batched", new StringMessageRequest("slow"),
+                new ActionListenerResponseHandler<>(slowFuture, StringMessageResponse::new));
+            final PlainActionFuture<StringMessageResponse> fastFuture = PlainActionFuture.newFuture();
+            serviceC.sendRequest(nodeB, "internal:batched", new StringMessageRequest("fast"),
+                new ActionListenerResponseHandler<>(fastFuture, StringMessageResponse::new));
+
+            // the response to the fast request doesn't wait for the slow request of the same batch
+            assertEquals("hello fast", fastFuture.actionGet(TimeValue.timeValueSeconds(30)).message);
+            assertFalse(slowFuture.isDone());
+            assertEquals(1, batches.get());
+
+            blockSlowRequest.countDown();
+            assertEquals("hello slow", slowFuture.actionGet(TimeValue.timeValueSeconds(30)).message);
+        } finally {
+            blockSlowRequest.countDown();
+        }
+    }
+
     public void testErrorMessage() {
         serviceA.registerRequestHandler("internal:sayHelloException", ThreadPool.Names.GENERIC, StringMessageRequest::new,
             (request, channel, task) -> {
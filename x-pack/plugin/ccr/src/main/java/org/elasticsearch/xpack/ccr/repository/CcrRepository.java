@@ -273,6 +273,16 @@ public class CcrRepository extends AbstractLifecycleComponent implements Reposit
         return throttledTime.count();
     }
 
+    @Override
+    public long getSnapshotUploadedBytes() {
+        throw new UnsupportedOperationException("Unsupported for repository of type: " + TYPE);
+    }
+
+    @Override
+    public long getSnapshotUploadTimeInNanos() {
+        throw new UnsupportedOperationException("Unsupported for repository of type: " + TYPE);
+    }
+
     @Override
     public String startVerification() {
         throw new UnsupportedOperationException("Unsupported for repository of type: " + TYPE);
@@ -0,0 +1,250 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.index.store;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.FilterDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.core.internal.io.IOUtils;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Overlays a local directory on a {@link SearchableSnapshotDirectory}, so that the shard can write new files, such as the commits that
+ * bootstrap its history after it is restored, while the files of the snapshot are still read from the repository. Files in the local
+ * directory take precedence, and deleting a file of the snapshot only hides it.
+ * <p>
+ * The files of the snapshot can also be copied to the local directory in the background, see {@link #hydrate()}, after which the shard
+ * does not depend on the repository anymore. The shard is still a read-only searchable snapshot shard afterwards.
+ */
+public class LocalOverlayDirectory extends FilterDirectory {
+
+    private static final Logger logger = LogManager.getLogger(LocalOverlayDirectory.class);
+
+    // suffix of the local files that files of the snapshot are copied to before they replace the file of the snapshot
+    private static final String HYDRATING_FILE_SUFFIX = ".hydrating";
+
+    private final FSDirectory localDirectory;
+    private final SearchableSnapshotDirectory snapshotDirectory;
+    private final Set<String> deletedSnapshotFiles = ConcurrentCollections.newConcurrentSet();
+    // files of the snapshot that were opened, which are copied to the local directory before the others
+    private final Set<String> openedSnapshotFiles = ConcurrentCollections.newConcurrentSet();
+    private final AtomicBoolean hydrationStarted = new AtomicBoolean();
+
+    public LocalOverlayDirectory(FSDirectory localDirectory, SearchableSnapshotDirectory snapshotDirectory) {
+        super(localDirectory);
+        this.localDirectory = localDirectory;
+        this.snapshotDirectory = snapshotDirectory;
+    }
+
+    public SearchableSnapshotDirectory getSnapshotDirectory() {
+        return snapshotDirectory;
+    }
+
+    private boolean isLocalFile(String name) {
+        return Files.exists(localDirectory.getDirectory().resolve(name));
+    }
+
+    private boolean isSnapshotFile(String name) {
+        return deletedSnapshotFiles.contains(name) == false && snapshotDirectory.containsFile(name) && isLocalFile(name) == false;
+    }
+
+    @Override
+    public String[] listAll() throws IOException {
+        final Set<String> files = new TreeSet<>(List.of(localDirectory.listAll()));
+        files.removeIf(file -> file.endsWith(HYDRATING_FILE_SUFFIX));
+        for (String file : snapshotDirectory.listAll()) {
+            if (deletedSnapshotFiles.contains(file) == false) {
+                files.add(file);
+            }
+        }
+        return files.toArray(new String[0]);
+    }
+
+    @Override
+    public void deleteFile(String name) throws IOException {
+        if (isSnapshotFile(name)) {
+            deletedSnapshotFiles.add(name);
+        } else {
+            localDirectory.deleteFile(name);
+            if (snapshotDirectory.containsFile(name)) {
+                // the deleted file was copied from the snapshot, which must not be visible again
+                deletedSnapshotFiles.add(name);
+            }
+        }
+    }
+
+    @Override
+    public long fileLength(String name) throws IOException {
+        return isSnapshotFile(name) ? snapshotDirectory.fileLength(name) : localDirectory.fileLength(name);
+    }
+
+    @Override
+    public IndexInput openInput(String name, IOContext context) throws IOException {
+        if (isSnapshotFile(name)) {
+            openedSnapshotFiles.add(name);
+            return snapshotDirectory.openInput(name, context);
+        }
+        return localDirectory.openInput(name, context);
+    }
+
+    @Override
+    public IndexOutput createOutput(String name, IOContext context) throws IOException {
+        if (isSnapshotFile(name)) {
+            throw new FileAlreadyExistsException("file [" + name + "] already exists in snapshot");
+        }
+        return localDirectory.createOutput(name, context);
+    }
+
+    @Override
+    public void sync(Collection<String> names) throws IOException {
+        // the files of the snapshot are durable already
+        localDirectory.sync(names.stream().filter(name -> isSnapshotFile(name) == false).collect(Collectors.toList()));
+    }
+
+    @Override
+    public void rename(String source, String dest) throws IOException {
+        if (isSnapshotFile(source)) {
+            throw new UnsupportedOperationException("cannot rename file [" + source + "] of snapshot");
+        }
+        if (isSnapshotFile(dest)) {
+            // the renamed file replaces the file of the snapshot
+            deletedSnapshotFiles.add(dest);
+        }
+        localDirectory.rename(source, dest);
+    }
+
+    /**
+     * Copies all files of the snapshot that are still read from the repository to the local directory, one file at a time. The files
+     * that were opened already are copied first, followed by the remaining files from the smallest to the largest, so that the small
+     * metadata files and the files that searches use are read from local disk as early as possible. Searches do not wait for the files
+     * they use to be copied, the ranges of the files that they read in the meantime are fetched from the repository on demand.
+     * <p>
+     * Each file is copied to a temporary file first, verified against its checksum and then atomically renamed, so that the file of the
+     * snapshot is replaced by a complete local copy or not at all. Copying stops with an exception when the directory is closed.
+     * Subsequent calls return immediately.
+     */
+    public void hydrate() throws IOException {
+        if (hydrationStarted.compareAndSet(false, true) == false) {
+            return;
+        }
+        final long startTimeNanos = System.nanoTime();
+        // files that were being copied when the shard was closed previously
+        for (String file : localDirectory.listAll()) {
+            if (file.endsWith(HYDRATING_FILE_SUFFIX)) {
+                localDirectory.deleteFile(file);
+            }
+        }
+        long hydratedBytes = 0L;
+        String file;
+        while ((file = nextFileToHydrate()) != null) {
+            hydratedBytes += hydrateFile(file);
+        }
+        // nothing is read through the cache anymore
+        snapshotDirectory.clearCache();
+        logger.debug("hydrated [{}] of snapshot [{}] with [{}] in [{}]", localDirectory.getDirectory(), snapshotDirectory,
+            new ByteSizeValue(hydratedBytes), TimeValue.timeValueNanos(System.nanoTime() - startTimeNanos));
+    }
+
+    /**
+     * @return whether all files of the snapshot were either copied to the local directory or deleted
+     */
+    public boolean isHydrated() throws IOException {
+        return nextFileToHydrate() == null;
+    }
+
+    private String nextFileToHydrate() throws IOException {
+        String next = null;
+        boolean nextOpened = false;
+        long nextLength = 0L;
+        for (String file : snapshotDirectory.listAll()) {
+            if (isSnapshotFile(file) == false) {
+                continue;
+            }
+            final boolean opened = openedSnapshotFiles.contains(file);
+            final long length = snapshotDirectory.fileLength(file);
+            if (next == null || (opened && nextOpened == false) || (opened == nextOpened && length < nextLength)) {
+                next = file;
+                nextOpened = opened;
+                nextLength = length;
+            }
+        }
+        return next;
+    }
+
+    private long hydrateFile(String name) throws IOException {
+        final long startTimeNanos = System.nanoTime();
+        final String tempName = name + HYDRATING_FILE_SUFFIX;
+        boolean success = false;
+        try {
+            final String checksum;
+            try (IndexOutput output = localDirectory.createOutput(tempName, IOContext.DEFAULT)) {
+                checksum = snapshotDirectory.copyFile(name, output);
+            }
+            verifyChecksum(tempName, checksum);
+            localDirectory.sync(List.of(tempName));
+            // mounted shards do not write files once they started, so the file of the snapshot can only have been deleted meanwhile
+            if (isSnapshotFile(name) == false) {
+                return 0L;
+            }
+            localDirectory.rename(tempName, name);
+            localDirectory.syncMetaData();
+            success = true;
+        } finally {
+            if (success == false) {
+                IOUtils.deleteFilesIgnoringExceptions(localDirectory.getDirectory().resolve(tempName));
+            }
+        }
+        final long length = localDirectory.fileLength(name);
+        logger.trace("hydrated file [{}] of [{}] with [{}] in [{}ms]", name, localDirectory.getDirectory(), new ByteSizeValue(length),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTimeNanos));
+        return length;
+    }
+
+    private void verifyChecksum(String name, String expectedChecksum) throws IOException {
+        try (IndexInput input = localDirectory.openInput(name, IOContext.READONCE)) {
+            if (input.length() < CodecUtil.footerLength()) {
+                // the file has no footer to verify
+                return;
+            }
+            // also verifies the checksum against the one in the footer of the file
+            final String checksum = Store.digestToString(CodecUtil.checksumEntireFile(input));
+            if (checksum.equals(expectedChecksum) == false) {
+                throw new CorruptIndexException("checksum of copy [" + checksum + "] does not match checksum of snapshot file ["
+                    + expectedChecksum + "]", input);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOUtils.close(localDirectory, snapshotDirectory);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(local=" + localDirectory + ", snapshot=" + snapshotDirectory + ')';
+    }
+}
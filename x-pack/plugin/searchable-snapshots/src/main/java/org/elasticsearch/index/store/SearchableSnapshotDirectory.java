@@ -0,0 +1,356 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.index.store;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.store.BaseDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.NoLockFactory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.lucene.store.ByteArrayIndexInput;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+import org.elasticsearch.index.snapshots.blobstore.SlicedInputStream;
+import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.snapshots.SnapshotId;
+import org.elasticsearch.xpack.searchablesnapshots.cache.CacheKey;
+import org.elasticsearch.xpack.searchablesnapshots.cache.CacheService;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * A read-only {@link org.apache.lucene.store.Directory} over the files of a shard snapshot, which reads the files lazily from the
+ * repository instead of copying them to local disk first. When a {@link CacheService} is given, the files are read through it so that
+ * each range of a file is only fetched from the repository once. The shard snapshot is only loaded the first time a file is accessed.
+ */
+public class SearchableSnapshotDirectory extends BaseDirectory {
+
+    private static final Logger logger = LogManager.getLogger(SearchableSnapshotDirectory.class);
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final Function<FileInfo, BlobContainer> blobContainer;
+    private final Supplier<BlobStoreIndexShardSnapshot> snapshot;
+    private final SnapshotId snapshotId;
+    private final IndexId indexId;
+    private final ShardId shardId;
+    private final CacheService cacheService;
+    private final Path cacheDir;
+    private final Set<String> prefetchExtensions;
+    private final Executor prefetchExecutor;
+    private final AtomicBoolean prefetchStarted = new AtomicBoolean();
+
+    private volatile Map<String, FileInfo> files;
+
+    /**
+     * @param blobContainer      returns the container in the repository that holds the data of the given file of the shard snapshot
+     * @param snapshot           supplies the metadata of the shard snapshot
+     * @param cacheService       the cache to read the files through, or {@code null} to read them from the repository on every access
+     * @param cacheDir           the directory to store the cached ranges of the files of this shard in
+     * @param prefetchExtensions the extensions of the files to populate the cache with as soon as the shard snapshot is loaded
+     * @param prefetchExecutor   the executor to populate the cache on
+     */
+    public SearchableSnapshotDirectory(Function<FileInfo, BlobContainer> blobContainer, Supplier<BlobStoreIndexShardSnapshot> snapshot,
+                                       SnapshotId snapshotId, IndexId indexId, ShardId shardId, CacheService cacheService, Path cacheDir,
+                                       Set<String> prefetchExtensions, Executor prefetchExecutor) {
+        super(NoLockFactory.INSTANCE);
+        this.blobContainer = blobContainer;
+        this.snapshot = snapshot;
+        this.snapshotId = snapshotId;
+        this.indexId = indexId;
+        this.shardId = shardId;
+        this.cacheService = cacheService;
+        this.cacheDir = cacheDir;
+        this.prefetchExtensions = prefetchExtensions;
+        this.prefetchExecutor = prefetchExecutor;
+    }
+
+    private Map<String, FileInfo> files() {
+        Map<String, FileInfo> files = this.files;
+        if (files == null) {
+            synchronized (this) {
+                files = this.files;
+                if (files == null) {
+                    files = snapshot.get().indexFiles().stream()
+                        .collect(Collectors.toUnmodifiableMap(FileInfo::physicalName, fileInfo -> fileInfo));
+                    this.files = files;
+                }
+            }
+            maybePrefetch(files.values());
+        }
+        return files;
+    }
+
+    private FileInfo fileInfo(String name) throws NoSuchFileException {
+        final FileInfo fileInfo = files().get(name);
+        if (fileInfo == null) {
+            throw new NoSuchFileException("file [" + name + "] not found in snapshot [" + snapshotId + "] of shard " + shardId);
+        }
+        return fileInfo;
+    }
+
+    /**
+     * @return whether the shard snapshot contains the given file
+     */
+    public boolean containsFile(String name) {
+        ensureOpen();
+        return files().containsKey(name);
+    }
+
+    @Override
+    public String[] listAll() {
+        ensureOpen();
+        return files().keySet().stream().sorted().toArray(String[]::new);
+    }
+
+    @Override
+    public long fileLength(String name) throws IOException {
+        ensureOpen();
+        return fileInfo(name).length();
+    }
+
+    @Override
+    public IndexInput openInput(String name, IOContext context) throws IOException {
+        ensureOpen();
+        final FileInfo fileInfo = fileInfo(name);
+        if (fileInfo.metadata().hashEqualsContents()) {
+            // the file was not uploaded since its contents are stored in its metadata
+            final BytesRef content = fileInfo.metadata().hash();
+            return new ByteArrayIndexInput("ByteArrayIndexInput(" + name + ')', content.bytes, content.offset, content.length);
+        }
+        return new SearchableSnapshotIndexInput("SearchableSnapshotIndexInput(" + name + ')', this, fileInfo, context);
+    }
+
+    /**
+     * Reads bytes of the given file, through the cache if there is one.
+     */
+    void readBytes(FileInfo fileInfo, long position, byte[] b, int offset, int length) throws IOException {
+        ensureOpen();
+        if (position + length > fileInfo.length()) {
+            throw new EOFException("read past EOF of [" + fileInfo.physicalName() + "], position [" + position + "], length [" + length
+                + "], file length [" + fileInfo.length() + "]");
+        }
+        if (readFooter(fileInfo, position, b, offset, length)) {
+            return;
+        }
+        if (cacheService == null) {
+            try (InputStream stream = openBlobRange(fileInfo, position, length)) {
+                final int read = Streams.readFully(stream, b, offset, length);
+                if (read != length) {
+                    throw new EOFException("unexpected end of [" + fileInfo.physicalName() + "] after reading [" + read + "] bytes at ["
+                        + position + "] out of [" + length + "] bytes");
+                }
+            }
+            return;
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(b, offset, length);
+        final long rangeSize = cacheService.getRangeSize();
+        while (buffer.hasRemaining()) {
+            final long currentPosition = position + buffer.position() - offset;
+            final long rangeIndex = currentPosition / rangeSize;
+            final long rangeStart = rangeIndex * rangeSize;
+            final long rangeLength = Math.min(rangeSize, fileInfo.length() - rangeStart);
+            cacheService.read(cacheKey(fileInfo, rangeIndex), cacheFile(fileInfo, rangeIndex), rangeStart, rangeLength,
+                (start, len) -> openBlobRange(fileInfo, start, len), buffer, currentPosition - rangeStart);
+        }
+    }
+
+    /**
+     * Copies the given file from the repository to the given output, bypassing the cache so that copying a whole file does not evict
+     * the ranges that searches need from it.
+     *
+     * @return the checksum of the file
+     */
+    String copyFile(String name, IndexOutput output) throws IOException {
+        ensureOpen();
+        final FileInfo fileInfo = fileInfo(name);
+        if (fileInfo.metadata().hashEqualsContents()) {
+            final BytesRef content = fileInfo.metadata().hash();
+            output.writeBytes(content.bytes, content.offset, content.length);
+        } else if (fileInfo.length() > 0L) {
+            try (InputStream stream = openBlobRange(fileInfo, 0L, fileInfo.length())) {
+                final byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                int read;
+                while ((read = stream.read(buffer)) > 0) {
+                    // stop copying as soon as the shard is closed
+                    ensureOpen();
+                    output.writeBytes(buffer, 0, read);
+                }
+            }
+        }
+        if (output.getFilePointer() != fileInfo.length()) {
+            throw new EOFException("unexpected end of [" + name + "] after copying [" + output.getFilePointer() + "] bytes out of ["
+                + fileInfo.length() + "] bytes");
+        }
+        return fileInfo.checksum();
+    }
+
+    /**
+     * Serves reads of the footer of a Lucene file, which are frequent as they are used to verify the checksum of the file, from the
+     * checksum in the metadata of the file rather than from the repository.
+     *
+     * @return whether the bytes were read
+     */
+    private static boolean readFooter(FileInfo fileInfo, long position, byte[] b, int offset, int length) {
+        final long footerStart = fileInfo.length() - CodecUtil.footerLength();
+        if (footerStart < 0L || position < footerStart) {
+            return false;
+        }
+        final long checksum;
+        try {
+            checksum = Long.parseLong(fileInfo.checksum(), Character.MAX_RADIX);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        final ByteBuffer footer = ByteBuffer.allocate(CodecUtil.footerLength());
+        footer.putInt(CodecUtil.FOOTER_MAGIC).putInt(0).putLong(checksum);
+        System.arraycopy(footer.array(), Math.toIntExact(position - footerStart), b, offset, length);
+        return true;
+    }
+
+    /**
+     * Opens a stream over a range of the given file, which spans as many parts of the file in the repository as needed.
+     */
+    private InputStream openBlobRange(FileInfo fileInfo, long position, long length) throws IOException {
+        final BlobContainer container = blobContainer.apply(fileInfo);
+        final long partSize = fileInfo.partBytes(0);
+        final int firstPart = Math.toIntExact(position / partSize);
+        final int lastPart = Math.toIntExact((position + length - 1) / partSize);
+        if (firstPart == lastPart) {
+            return container.readBlob(fileInfo.partName(firstPart), position - firstPart * partSize, length);
+        }
+        return new SlicedInputStream(lastPart - firstPart + 1) {
+            @Override
+            protected InputStream openSlice(long slice) throws IOException {
+                final int part = Math.toIntExact(firstPart + slice);
+                final long partStart = part * partSize;
+                final long start = Math.max(position, partStart);
+                final long end = Math.min(position + length, partStart + fileInfo.partBytes(part));
+                return container.readBlob(fileInfo.partName(part), start - partStart, end - start);
+            }
+        };
+    }
+
+    private CacheKey cacheKey(FileInfo fileInfo, long rangeIndex) {
+        return new CacheKey(snapshotId, indexId, shardId, fileInfo.physicalName(), rangeIndex);
+    }
+
+    private Path cacheFile(FileInfo fileInfo, long rangeIndex) {
+        return cacheDir.resolve(fileInfo.name() + '.' + rangeIndex);
+    }
+
+    /**
+     * Populates the cache with the files whose extension is one of {@link #prefetchExtensions}, which are read when the shard is
+     * opened or on every search, so that the first searches do not have to wait for them to be fetched from the repository.
+     */
+    private void maybePrefetch(Collection<FileInfo> fileInfos) {
+        if (cacheService == null || prefetchExtensions.isEmpty() || prefetchStarted.compareAndSet(false, true) == false) {
+            return;
+        }
+        for (FileInfo fileInfo : fileInfos) {
+            if (fileInfo.metadata().hashEqualsContents()
+                || prefetchExtensions.contains(IndexFileNames.getExtension(fileInfo.physicalName())) == false) {
+                continue;
+            }
+            prefetchExecutor.execute(() -> {
+                final long rangeSize = cacheService.getRangeSize();
+                for (long rangeIndex = 0L; rangeIndex * rangeSize < fileInfo.length() && isOpen; rangeIndex++) {
+                    final long rangeStart = rangeIndex * rangeSize;
+                    try {
+                        cacheService.populate(cacheKey(fileInfo, rangeIndex), cacheFile(fileInfo, rangeIndex), rangeStart,
+                            Math.min(rangeSize, fileInfo.length() - rangeStart), (start, len) -> openBlobRange(fileInfo, start, len));
+                    } catch (Exception e) {
+                        logger.debug(new ParameterizedMessage("{} failed to prefetch file [{}] of snapshot [{}]",
+                            shardId, fileInfo.physicalName(), snapshotId), e);
+                        return;
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    public void deleteFile(String name) {
+        throw unsupportedException();
+    }
+
+    @Override
+    public IndexOutput createOutput(String name, IOContext context) {
+        throw unsupportedException();
+    }
+
+    @Override
+    public IndexOutput createTempOutput(String prefix, String suffix, IOContext context) {
+        throw unsupportedException();
+    }
+
+    @Override
+    public void sync(Collection<String> names) {
+        throw unsupportedException();
+    }
+
+    @Override
+    public void syncMetaData() {
+        throw unsupportedException();
+    }
+
+    @Override
+    public void rename(String source, String dest) {
+        throw unsupportedException();
+    }
+
+    @Override
+    public Set<String> getPendingDeletions() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * Removes the cached ranges of the files of this shard from the cache.
+     */
+    void clearCache() {
+        if (cacheService != null) {
+            cacheService.removeFromCache(key -> key.belongsTo(snapshotId, indexId, shardId));
+        }
+    }
+
+    @Override
+    public void close() {
+        isOpen = false;
+        clearCache();
+    }
+
+    private UnsupportedOperationException unsupportedException() {
+        return new UnsupportedOperationException("searchable snapshot directory of " + shardId + " is read-only");
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(snapshot=" + snapshotId + ", index=" + indexId + ", shard=" + shardId + ')';
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.index.store;
+
+import org.apache.lucene.store.BufferedIndexInput;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * An {@link IndexInput} over a file of a shard snapshot, which reads the file through its {@link SearchableSnapshotDirectory}.
+ */
+public class SearchableSnapshotIndexInput extends BufferedIndexInput {
+
+    private final SearchableSnapshotDirectory directory;
+    private final FileInfo fileInfo;
+    private final long offset;
+    private final long length;
+
+    SearchableSnapshotIndexInput(String resourceDesc, SearchableSnapshotDirectory directory, FileInfo fileInfo, IOContext context) {
+        this(resourceDesc, directory, fileInfo, 0L, fileInfo.length(), bufferSize(context));
+    }
+
+    private SearchableSnapshotIndexInput(String resourceDesc, SearchableSnapshotDirectory directory, FileInfo fileInfo,
+                                         long offset, long length, int bufferSize) {
+        super(resourceDesc, bufferSize);
+        this.directory = directory;
+        this.fileInfo = fileInfo;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    protected void readInternal(byte[] b, int off, int len) throws IOException {
+        final long position = getFilePointer();
+        if (position + len > length) {
+            throw new EOFException("read past EOF: " + this);
+        }
+        directory.readBytes(fileInfo, offset + position, b, off, len);
+    }
+
+    @Override
+    protected void seekInternal(long pos) throws IOException {
+        if (pos > length) {
+            throw new EOFException("seek past EOF: " + this);
+        }
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public IndexInput slice(String sliceDescription, long sliceOffset, long sliceLength) throws IOException {
+        if (sliceOffset < 0 || sliceLength < 0 || sliceOffset + sliceLength > length) {
+            throw new IllegalArgumentException("slice() " + sliceDescription + " out of bounds: offset=" + sliceOffset + ",length="
+                + sliceLength + ",fileLength=" + length + ": " + this);
+        }
+        return new SearchableSnapshotIndexInput(getFullSliceDescription(sliceDescription), directory, fileInfo, offset + sliceOffset,
+            sliceLength, getBufferSize());
+    }
+
+    @Override
+    public void close() {
+        // nothing to release, the files of the snapshot are only read on demand
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.searchablesnapshots;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FilterDirectory;
+import org.apache.lucene.store.NIOFSDirectory;
+import org.apache.lucene.util.SetOnce;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.IndexScopedSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.settings.SettingsFilter;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.CachedSupplier;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.env.Environment;
+import org.elasticsearch.env.NodeEnvironment;
+import org.elasticsearch.index.IndexModule;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.engine.EngineFactory;
+import org.elasticsearch.index.engine.ReadOnlyEngine;
+import org.elasticsearch.index.shard.IndexEventListener;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardPath;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
+import org.elasticsearch.index.store.FsDirectoryFactory;
+import org.elasticsearch.index.store.LocalOverlayDirectory;
+import org.elasticsearch.index.store.SearchableSnapshotDirectory;
+import org.elasticsearch.plugins.ActionPlugin;
+import org.elasticsearch.plugins.EnginePlugin;
+import org.elasticsearch.plugins.IndexStorePlugin;
+import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.repositories.RepositoriesService;
+import org.elasticsearch.repositories.Repository;
+import org.elasticsearch.repositories.blobstore.BlobStoreRepository;
+import org.elasticsearch.rest.RestController;
+import org.elasticsearch.rest.RestHandler;
+import org.elasticsearch.script.ScriptService;
+import org.elasticsearch.snapshots.SnapshotId;
+import org.elasticsearch.threadpool.ExecutorBuilder;
+import org.elasticsearch.threadpool.ScalingExecutorBuilder;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.watcher.ResourceWatcherService;
+import org.elasticsearch.xpack.searchablesnapshots.action.MountSearchableSnapshotAction;
+import org.elasticsearch.xpack.searchablesnapshots.action.SearchableSnapshotsStatsAction;
+import org.elasticsearch.xpack.searchablesnapshots.action.TransportMountSearchableSnapshotAction;
+import org.elasticsearch.xpack.searchablesnapshots.action.TransportSearchableSnapshotsStatsAction;
+import org.elasticsearch.xpack.searchablesnapshots.cache.CacheService;
+import org.elasticsearch.xpack.searchablesnapshots.rest.RestMountSearchableSnapshotAction;
+import org.elasticsearch.xpack.searchablesnapshots.rest.RestSearchableSnapshotsStatsAction;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Plugin for searchable snapshots: indices that are mounted from a snapshot and whose files are read from the repository on demand,
+ * through a node-level cache on local disk, rather than restored to the nodes first.
+ */
+public class SearchableSnapshots extends Plugin implements IndexStorePlugin, EnginePlugin, ActionPlugin {
+
+    public static final String SNAPSHOT_DIRECTORY_FACTORY_KEY = "snapshot";
+
+    public static final Setting<String> SNAPSHOT_REPOSITORY_SETTING =
+        Setting.simpleString("index.store.snapshot.repository_name", Setting.Property.IndexScope, Setting.Property.PrivateIndex);
+    public static final Setting<String> SNAPSHOT_SNAPSHOT_NAME_SETTING =
+        Setting.simpleString("index.store.snapshot.snapshot_name", Setting.Property.IndexScope, Setting.Property.PrivateIndex);
+    public static final Setting<String> SNAPSHOT_SNAPSHOT_ID_SETTING =
+        Setting.simpleString("index.store.snapshot.snapshot_uuid", Setting.Property.IndexScope, Setting.Property.PrivateIndex);
+    public static final Setting<String> SNAPSHOT_INDEX_ID_SETTING =
+        Setting.simpleString("index.store.snapshot.index_uuid", Setting.Property.IndexScope, Setting.Property.PrivateIndex);
+    public static final Setting<Boolean> SNAPSHOT_CACHE_ENABLED_SETTING =
+        Setting.boolSetting("index.store.snapshot.cache.enabled", true, Setting.Property.IndexScope);
+    // segment infos, terms indices and points indices are read when opening the shard or on every search
+    public static final Setting<List<String>> SNAPSHOT_CACHE_PREFETCH_EXTENSIONS_SETTING =
+        Setting.listSetting("index.store.snapshot.cache.prefetch_extensions", List.of("si", "tip", "kdi"), Function.identity(),
+            Setting.Property.IndexScope);
+
+    // copy all files of the snapshot to local disk in the background after the shard started, see LocalOverlayDirectory#hydrate;
+    // this only removes the dependency on the repository for searches, the index stays read-only once all files are local
+    public static final Setting<Boolean> SNAPSHOT_HYDRATE_SETTING =
+        Setting.boolSetting("index.store.snapshot.hydrate", false, Setting.Property.IndexScope);
+
+    public static final String PREFETCH_THREAD_POOL_NAME = "searchable_snapshots_prefetch";
+    public static final String HYDRATE_THREAD_POOL_NAME = "searchable_snapshots_hydrate";
+
+    private static final Logger logger = LogManager.getLogger(SearchableSnapshots.class);
+
+    private static final String CACHE_DIRECTORY_NAME = "snapshot_cache";
+
+    private final Settings settings;
+    private final SetOnce<Supplier<RepositoriesService>> repositoriesService = new SetOnce<>();
+    private final SetOnce<CacheService> cacheService = new SetOnce<>();
+    private final SetOnce<ThreadPool> threadPool = new SetOnce<>();
+
+    public SearchableSnapshots(Settings settings) {
+        this.settings = settings;
+    }
+
+    @Override
+    public List<Setting<?>> getSettings() {
+        return List.of(
+            SNAPSHOT_REPOSITORY_SETTING,
+            SNAPSHOT_SNAPSHOT_NAME_SETTING,
+            SNAPSHOT_SNAPSHOT_ID_SETTING,
+            SNAPSHOT_INDEX_ID_SETTING,
+            SNAPSHOT_CACHE_ENABLED_SETTING,
+            SNAPSHOT_CACHE_PREFETCH_EXTENSIONS_SETTING,
+            SNAPSHOT_HYDRATE_SETTING,
+            CacheService.SNAPSHOT_CACHE_SIZE_SETTING,
+            CacheService.SNAPSHOT_CACHE_RANGE_SIZE_SETTING);
+    }
+
+    @Override
+    public Collection<Object> createComponents(Client client, ClusterService clusterService, ThreadPool threadPool,
+                                               ResourceWatcherService resourceWatcherService, ScriptService scriptService,
+                                               NamedXContentRegistry xContentRegistry, Environment environment,
+                                               NodeEnvironment nodeEnvironment, NamedWriteableRegistry namedWriteableRegistry,
+                                               Supplier<RepositoriesService> repositoriesServiceSupplier) {
+        final CacheService cacheService = new CacheService(settings);
+        this.cacheService.set(cacheService);
+        this.repositoriesService.set(repositoriesServiceSupplier);
+        this.threadPool.set(threadPool);
+        return List.of(cacheService);
+    }
+
+    @Override
+    public Map<String, DirectoryFactory> getDirectoryFactories() {
+        return Map.of(SNAPSHOT_DIRECTORY_FACTORY_KEY, this::newDirectory);
+    }
+
+    private LocalOverlayDirectory newDirectory(IndexSettings indexSettings, ShardPath shardPath) throws IOException {
+        final RepositoriesService repositories = repositoriesService.get().get();
+        assert repositories != null : "repositories service must be set before creating searchable snapshot directories";
+        final Repository repository = repositories.repository(SNAPSHOT_REPOSITORY_SETTING.get(indexSettings.getSettings()));
+        if (repository instanceof BlobStoreRepository == false) {
+            throw new IllegalArgumentException("repository [" + repository.getMetadata().name() + "] of type ["
+                + repository.getMetadata().type() + "] does not support searchable snapshots");
+        }
+        final BlobStoreRepository blobStoreRepository = (BlobStoreRepository) repository;
+        // only the uuid of the index is used to locate the files of the shard in the repository
+        final IndexId indexId =
+            new IndexId(indexSettings.getIndex().getName(), SNAPSHOT_INDEX_ID_SETTING.get(indexSettings.getSettings()));
+        final SnapshotId snapshotId = new SnapshotId(SNAPSHOT_SNAPSHOT_NAME_SETTING.get(indexSettings.getSettings()),
+            SNAPSHOT_SNAPSHOT_ID_SETTING.get(indexSettings.getSettings()));
+        final int shardId = shardPath.getShardId().id();
+        final CachedSupplier<BlobContainer> blobContainer =
+            new CachedSupplier<>(() -> blobStoreRepository.shardContainer(indexId, shardId));
+        final CachedSupplier<BlobStoreIndexShardSnapshot> snapshot =
+            new CachedSupplier<>(() -> blobStoreRepository.loadShardSnapshot(blobContainer.get(), snapshotId));
+
+        // ranges cached by a previous instance of the shard on this node are not tracked by the cache anymore
+        final Path cacheDir = shardPath.getDataPath().resolve(CACHE_DIRECTORY_NAME);
+        IOUtils.rm(cacheDir);
+        final SearchableSnapshotDirectory snapshotDirectory = new SearchableSnapshotDirectory(
+            fileInfo -> blobStoreRepository.dataBlobContainer(blobContainer.get(), fileInfo), snapshot, snapshotId, indexId,
+            shardPath.getShardId(), indexSettings.getValue(SNAPSHOT_CACHE_ENABLED_SETTING) ? cacheService.get() : null, cacheDir,
+            Set.copyOf(indexSettings.getValue(SNAPSHOT_CACHE_PREFETCH_EXTENSIONS_SETTING)),
+            threadPool.get().executor(PREFETCH_THREAD_POOL_NAME));
+
+        final Path location = shardPath.resolveIndex();
+        Files.createDirectories(location);
+        return new LocalOverlayDirectory(
+            new NIOFSDirectory(location, indexSettings.getValue(FsDirectoryFactory.INDEX_LOCK_FACTOR_SETTING)), snapshotDirectory);
+    }
+
+    @Override
+    public void onIndexModule(IndexModule indexModule) {
+        if (SNAPSHOT_DIRECTORY_FACTORY_KEY.equals(IndexModule.INDEX_STORE_TYPE_SETTING.get(indexModule.getSettings()))
+            && SNAPSHOT_HYDRATE_SETTING.get(indexModule.getSettings())) {
+            indexModule.addIndexEventListener(new IndexEventListener() {
+                @Override
+                public void afterIndexShardStarted(IndexShard indexShard) {
+                    hydrate(indexShard);
+                }
+            });
+        }
+    }
+
+    /**
+     * Copies the files of the snapshot of a started shard to local disk in the background. The shard serves searches in the meantime.
+     * A fully hydrated shard keeps its read-only engine and the index keeps its write block, it does not become a regular index.
+     */
+    private void hydrate(IndexShard indexShard) {
+        Directory directory = indexShard.store().directory();
+        while (directory instanceof LocalOverlayDirectory == false) {
+            if (directory instanceof FilterDirectory == false) {
+                assert false : "no searchable snapshot directory found for " + indexShard.shardId();
+                return;
+            }
+            directory = ((FilterDirectory) directory).getDelegate();
+        }
+        final LocalOverlayDirectory overlayDirectory = (LocalOverlayDirectory) directory;
+        threadPool.get().executor(HYDRATE_THREAD_POOL_NAME).execute(new AbstractRunnable() {
+            @Override
+            protected void doRun() throws Exception {
+                overlayDirectory.hydrate();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                if (e instanceof AlreadyClosedException) {
+                    logger.debug(new ParameterizedMessage("{} stopped hydrating shard as it was closed", indexShard.shardId()), e);
+                } else {
+                    // the files that were not copied are still read from the repository on demand
+                    logger.warn(new ParameterizedMessage("{} failed to hydrate shard", indexShard.shardId()), e);
+                }
+            }
+        });
+    }
+
+    @Override
+    public Optional<EngineFactory> getEngineFactory(IndexSettings indexSettings) {
+        if (SNAPSHOT_DIRECTORY_FACTORY_KEY.equals(IndexModule.INDEX_STORE_TYPE_SETTING.get(indexSettings.getSettings()))) {
+            return Optional.of(engineConfig -> new ReadOnlyEngine(engineConfig, null, null, true, Function.identity()));
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public List<ExecutorBuilder<?>> getExecutorBuilders(Settings settings) {
+        return List.of(
+            new ScalingExecutorBuilder(PREFETCH_THREAD_POOL_NAME, 0, 16, TimeValue.timeValueSeconds(30L)),
+            new ScalingExecutorBuilder(HYDRATE_THREAD_POOL_NAME, 0, 4, TimeValue.timeValueSeconds(30L)));
+    }
+
+    @Override
+    public List<ActionHandler<? extends ActionRequest, ? extends ActionResponse>> getActions() {
+        return List.of(
+            new ActionHandler<>(MountSearchableSnapshotAction.INSTANCE, TransportMountSearchableSnapshotAction.class),
+            new ActionHandler<>(SearchableSnapshotsStatsAction.INSTANCE, TransportSearchableSnapshotsStatsAction.class));
+    }
+
+    @Override
+    public List<RestHandler> getRestHandlers(Settings settings, RestController restController, ClusterSettings clusterSettings,
+                                             IndexScopedSettings indexScopedSettings, SettingsFilter settingsFilter,
+                                             IndexNameExpressionResolver indexNameExpressionResolver,
+                                             Supplier<DiscoveryNodes> nodesInCluster) {
+        return List.of(new RestMountSearchableSnapshotAction(), new RestSearchableSnapshotsStatsAction());
+    }
+}
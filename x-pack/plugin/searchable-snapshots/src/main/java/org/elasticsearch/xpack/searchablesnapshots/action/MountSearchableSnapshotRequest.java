@@ -0,0 +1,156 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.searchablesnapshots.action;
+
+import org.elasticsearch.action.ActionRequestValidationException;
+import org.elasticsearch.action.support.master.MasterNodeRequest;
+import org.elasticsearch.common.ParseField;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.ConstructingObjectParser;
+import org.elasticsearch.common.xcontent.ObjectParser;
+import org.elasticsearch.rest.RestRequest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+
+import static org.elasticsearch.action.ValidateActions.addValidationError;
+import static org.elasticsearch.common.xcontent.ConstructingObjectParser.constructorArg;
+import static org.elasticsearch.common.xcontent.ConstructingObjectParser.optionalConstructorArg;
+
+/**
+ * Request to mount an index of a snapshot as a searchable snapshot index, whose files are read from the repository on demand.
+ */
+public class MountSearchableSnapshotRequest extends MasterNodeRequest<MountSearchableSnapshotRequest> {
+
+    private static final ParseField INDEX_FIELD = new ParseField("index");
+    private static final ParseField RENAMED_INDEX_FIELD = new ParseField("renamed_index");
+    private static final ParseField INDEX_SETTINGS_FIELD = new ParseField("index_settings");
+    private static final ParseField IGNORE_INDEX_SETTINGS_FIELD = new ParseField("ignore_index_settings");
+
+    @SuppressWarnings("unchecked")
+    public static final ConstructingObjectParser<MountSearchableSnapshotRequest, RestRequest> PARSER = new ConstructingObjectParser<>(
+        "mount_searchable_snapshot", true,
+        (a, request) -> new MountSearchableSnapshotRequest(
+            Objects.requireNonNullElse((String) a[1], (String) a[0]),
+            request.param("repository"),
+            request.param("snapshot"),
+            (String) a[0],
+            Objects.requireNonNullElse((Settings) a[2], Settings.EMPTY),
+            a[3] == null ? Strings.EMPTY_ARRAY : ((List<String>) a[3]).toArray(Strings.EMPTY_ARRAY),
+            request.paramAsBoolean("wait_for_completion", false)));
+
+    static {
+        PARSER.declareString(constructorArg(), INDEX_FIELD);
+        PARSER.declareString(optionalConstructorArg(), RENAMED_INDEX_FIELD);
+        PARSER.declareField(optionalConstructorArg(), Settings::fromXContent, INDEX_SETTINGS_FIELD, ObjectParser.ValueType.OBJECT);
+        PARSER.declareStringArray(optionalConstructorArg(), IGNORE_INDEX_SETTINGS_FIELD);
+    }
+
+    private final String mountedIndexName;
+    private final String repositoryName;
+    private final String snapshotName;
+    private final String snapshotIndexName;
+    private final Settings indexSettings;
+    private final String[] ignoredIndexSettings;
+    private final boolean waitForCompletion;
+
+    /**
+     * @param mountedIndexName     the name of the index to create
+     * @param repositoryName       the repository that contains the snapshot
+     * @param snapshotName         the name of the snapshot
+     * @param snapshotIndexName    the name of the index in the snapshot
+     * @param indexSettings        settings to apply to the mounted index on top of the settings of the snapshotted index
+     * @param ignoredIndexSettings settings of the snapshotted index not to apply to the mounted index
+     * @param waitForCompletion    whether to wait for the primaries of the mounted index to be started before responding
+     */
+    public MountSearchableSnapshotRequest(String mountedIndexName, String repositoryName, String snapshotName, String snapshotIndexName,
+                                          Settings indexSettings, String[] ignoredIndexSettings, boolean waitForCompletion) {
+        this.mountedIndexName = Objects.requireNonNull(mountedIndexName);
+        this.repositoryName = Objects.requireNonNull(repositoryName);
+        this.snapshotName = Objects.requireNonNull(snapshotName);
+        this.snapshotIndexName = Objects.requireNonNull(snapshotIndexName);
+        this.indexSettings = Objects.requireNonNull(indexSettings);
+        this.ignoredIndexSettings = Objects.requireNonNull(ignoredIndexSettings);
+        this.waitForCompletion = waitForCompletion;
+    }
+
+    public MountSearchableSnapshotRequest(StreamInput in) throws IOException {
+        super(in);
+        this.mountedIndexName = in.readString();
+        this.repositoryName = in.readString();
+        this.snapshotName = in.readString();
+        this.snapshotIndexName = in.readString();
+        this.indexSettings = Settings.readSettingsFromStream(in);
+        this.ignoredIndexSettings = in.readStringArray();
+        this.waitForCompletion = in.readBoolean();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeString(mountedIndexName);
+        out.writeString(repositoryName);
+        out.writeString(snapshotName);
+        out.writeString(snapshotIndexName);
+        Settings.writeSettingsToStream(indexSettings, out);
+        out.writeStringArray(ignoredIndexSettings);
+        out.writeBoolean(waitForCompletion);
+    }
+
+    @Override
+    public ActionRequestValidationException validate() {
+        ActionRequestValidationException validationException = null;
+        if (Strings.hasText(mountedIndexName) == false) {
+            validationException = addValidationError("mounted index name is missing", validationException);
+        }
+        if (Strings.hasText(snapshotIndexName) == false) {
+            validationException = addValidationError("index name is missing", validationException);
+        }
+        return validationException;
+    }
+
+    public String mountedIndexName() {
+        return mountedIndexName;
+    }
+
+    public String repositoryName() {
+        return repositoryName;
+    }
+
+    public String snapshotName() {
+        return snapshotName;
+    }
+
+    public String snapshotIndexName() {
+        return snapshotIndexName;
+    }
+
+    public Settings indexSettings() {
+        return indexSettings;
+    }
+
+    public String[] ignoredIndexSettings() {
+        return ignoredIndexSettings;
+    }
+
+    public boolean waitForCompletion() {
+        return waitForCompletion;
+    }
+
+    @Override
+    public String getDescription() {
+        return "mount snapshot [" + repositoryName + ":" + snapshotName + ":" + snapshotIndexName + "] as [" + mountedIndexName + "]";
+    }
+
+    @Override
+    public String toString() {
+        return getDescription();
+    }
+}
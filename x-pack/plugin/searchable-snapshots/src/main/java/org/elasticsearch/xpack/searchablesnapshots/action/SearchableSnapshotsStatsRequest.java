@@ -0,0 +1,41 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.searchablesnapshots.action;
+
+import org.elasticsearch.action.support.nodes.BaseNodeRequest;
+import org.elasticsearch.action.support.nodes.BaseNodesRequest;
+import org.elasticsearch.common.io.stream.StreamInput;
+
+import java.io.IOException;
+
+/**
+ * Request to gather the searchable snapshots cache statistics of nodes.
+ */
+public class SearchableSnapshotsStatsRequest extends BaseNodesRequest<SearchableSnapshotsStatsRequest> {
+
+    public SearchableSnapshotsStatsRequest(String... nodesIds) {
+        super(nodesIds);
+    }
+
+    public SearchableSnapshotsStatsRequest(StreamInput in) throws IOException {
+        super(in);
+    }
+
+    @Override
+    public String toString() {
+        return "searchable_snapshots_stats";
+    }
+
+    static class NodeStatsRequest extends BaseNodeRequest {
+
+        NodeStatsRequest() {
+        }
+
+        NodeStatsRequest(StreamInput in) throws IOException {
+            super(in);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.searchablesnapshots.action;
+
+import org.elasticsearch.action.FailedNodeException;
+import org.elasticsearch.action.support.nodes.BaseNodeResponse;
+import org.elasticsearch.action.support.nodes.BaseNodesResponse;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.xpack.searchablesnapshots.cache.SearchableSnapshotCacheStats;
+
+import java.io.IOException;
+import java.util.List;
+
+public class SearchableSnapshotsStatsResponse extends BaseNodesResponse<SearchableSnapshotsStatsResponse.NodeStatsResponse>
+    implements ToXContentFragment {
+
+    public SearchableSnapshotsStatsResponse(StreamInput in) throws IOException {
+        super(in);
+    }
+
+    public SearchableSnapshotsStatsResponse(ClusterName clusterName, List<NodeStatsResponse> nodes, List<FailedNodeException> failures) {
+        super(clusterName, nodes, failures);
+    }
+
+    @Override
+    protected List<NodeStatsResponse> readNodesFrom(StreamInput in) throws IOException {
+        return in.readList(NodeStatsResponse::new);
+    }
+
+    @Override
+    protected void writeNodesTo(StreamOutput out, List<NodeStatsResponse> nodes) throws IOException {
+        out.writeList(nodes);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("nodes");
+        for (NodeStatsResponse node : getNodes()) {
+            builder.startObject(node.getNode().getId());
+            node.getStats().toXContent(builder, params);
+            builder.endObject();
+        }
+        builder.endObject();
+        return builder;
+    }
+
+    public static class NodeStatsResponse extends BaseNodeResponse {
+
+        private final SearchableSnapshotCacheStats stats;
+
+        public NodeStatsResponse(StreamInput in) throws IOException {
+            super(in);
+            stats = new SearchableSnapshotCacheStats(in);
+        }
+
+        public NodeStatsResponse(DiscoveryNode node, SearchableSnapshotCacheStats stats) {
+            super(node);
+            this.stats = stats;
+        }
+
+        public SearchableSnapshotCacheStats getStats() {
+            return stats;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            stats.writeTo(out);
+        }
+    }
+}
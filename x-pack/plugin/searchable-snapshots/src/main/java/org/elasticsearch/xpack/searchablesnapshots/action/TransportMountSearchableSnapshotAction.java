@@ -0,0 +1,114 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.searchablesnapshots.action;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreSnapshotRequest;
+import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreSnapshotResponse;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.master.TransportMasterNodeAction;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.block.ClusterBlockException;
+import org.elasticsearch.cluster.block.ClusterBlockLevel;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexModule;
+import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.repositories.RepositoriesService;
+import org.elasticsearch.repositories.Repository;
+import org.elasticsearch.snapshots.SnapshotId;
+import org.elasticsearch.snapshots.SnapshotRestoreException;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+import org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Mounts an index of a snapshot by restoring it with the searchable snapshot store type, so that none of its files are copied to the
+ * nodes that allocate its shards.
+ */
+public class TransportMountSearchableSnapshotAction
+    extends TransportMasterNodeAction<MountSearchableSnapshotRequest, RestoreSnapshotResponse> {
+
+    private final Client client;
+    private final RepositoriesService repositoriesService;
+
+    @Inject
+    public TransportMountSearchableSnapshotAction(TransportService transportService, ClusterService clusterService, Client client,
+                                                  ThreadPool threadPool, RepositoriesService repositoriesService,
+                                                  ActionFilters actionFilters, IndexNameExpressionResolver indexNameExpressionResolver) {
+        super(MountSearchableSnapshotAction.NAME, transportService, clusterService, threadPool, actionFilters,
+            MountSearchableSnapshotRequest::new, indexNameExpressionResolver);
+        this.client = client;
+        this.repositoriesService = repositoriesService;
+    }
+
+    @Override
+    protected String executor() {
+        // like restores, use the generic thread pool as the snapshot thread pool might be busy with long running tasks
+        return ThreadPool.Names.GENERIC;
+    }
+
+    @Override
+    protected RestoreSnapshotResponse read(StreamInput in) throws IOException {
+        return new RestoreSnapshotResponse(in);
+    }
+
+    @Override
+    protected ClusterBlockException checkBlock(MountSearchableSnapshotRequest request, ClusterState state) {
+        // mounting a snapshot creates an index
+        return state.blocks().globalBlockedException(ClusterBlockLevel.METADATA_WRITE);
+    }
+
+    @Override
+    protected void masterOperation(Task task, MountSearchableSnapshotRequest request, ClusterState state,
+                                   ActionListener<RestoreSnapshotResponse> listener) {
+        final String repositoryName = request.repositoryName();
+        final Repository repository = repositoriesService.repository(repositoryName);
+        repository.getRepositoryData(ActionListener.delegateFailure(listener, (delegate, repositoryData) -> {
+            final String snapshotName = request.snapshotName();
+            final Optional<SnapshotId> snapshotId = repositoryData.getSnapshotIds().stream()
+                .filter(id -> id.getName().equals(snapshotName))
+                .findFirst();
+            if (snapshotId.isPresent() == false) {
+                delegate.onFailure(new SnapshotRestoreException(repositoryName, snapshotName, "snapshot does not exist"));
+                return;
+            }
+            final String indexName = request.snapshotIndexName();
+            if (repositoryData.getIndices().containsKey(indexName) == false) {
+                delegate.onFailure(
+                    new SnapshotRestoreException(repositoryName, snapshotName, "index [" + indexName + "] not found in repository"));
+                return;
+            }
+            final IndexId indexId = repositoryData.resolveIndexId(indexName);
+            client.admin().cluster().restoreSnapshot(new RestoreSnapshotRequest(repositoryName, snapshotName)
+                .indices(indexName)
+                .renamePattern(".+")
+                .renameReplacement(request.mountedIndexName())
+                .indexSettings(Settings.builder()
+                    .put(request.indexSettings())
+                    .put(IndexModule.INDEX_STORE_TYPE_SETTING.getKey(), SearchableSnapshots.SNAPSHOT_DIRECTORY_FACTORY_KEY)
+                    .put(SearchableSnapshots.SNAPSHOT_REPOSITORY_SETTING.getKey(), repositoryName)
+                    .put(SearchableSnapshots.SNAPSHOT_SNAPSHOT_NAME_SETTING.getKey(), snapshotName)
+                    .put(SearchableSnapshots.SNAPSHOT_SNAPSHOT_ID_SETTING.getKey(), snapshotId.get().getUUID())
+                    .put(SearchableSnapshots.SNAPSHOT_INDEX_ID_SETTING.getKey(), indexId.getId())
+                    .put(IndexMetaData.SETTING_BLOCKS_WRITE, true))
+                .ignoreIndexSettings(request.ignoredIndexSettings())
+                .includeGlobalState(false)
+                .includeAliases(false)
+                .waitForCompletion(request.waitForCompletion())
+                .masterNodeTimeout(request.masterNodeTimeout()), delegate);
+        }));
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.searchablesnapshots.action;
+
+import org.elasticsearch.action.FailedNodeException;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.nodes.TransportNodesAction;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+import org.elasticsearch.xpack.searchablesnapshots.cache.CacheService;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Gathers the statistics of the searchable snapshots cache of each node.
+ */
+public class TransportSearchableSnapshotsStatsAction extends TransportNodesAction<SearchableSnapshotsStatsRequest,
+    SearchableSnapshotsStatsResponse, SearchableSnapshotsStatsRequest.NodeStatsRequest,
+    SearchableSnapshotsStatsResponse.NodeStatsResponse> {
+
+    private final CacheService cacheService;
+
+    @Inject
+    public TransportSearchableSnapshotsStatsAction(TransportService transportService, ClusterService clusterService,
+                                                   ThreadPool threadPool, ActionFilters actionFilters, CacheService cacheService) {
+        super(SearchableSnapshotsStatsAction.NAME, threadPool, clusterService, transportService, actionFilters,
+            SearchableSnapshotsStatsRequest::new, SearchableSnapshotsStatsRequest.NodeStatsRequest::new, ThreadPool.Names.MANAGEMENT,
+            SearchableSnapshotsStatsResponse.NodeStatsResponse.class);
+        this.cacheService = cacheService;
+    }
+
+    @Override
+    protected SearchableSnapshotsStatsResponse newResponse(SearchableSnapshotsStatsRequest request,
+                                                           List<SearchableSnapshotsStatsResponse.NodeStatsResponse> nodes,
+                                                           List<FailedNodeException> failures) {
+        return new SearchableSnapshotsStatsResponse(clusterService.getClusterName(), nodes, failures);
+    }
+
+    @Override
+    protected SearchableSnapshotsStatsRequest.NodeStatsRequest newNodeRequest(SearchableSnapshotsStatsRequest request) {
+        return new SearchableSnapshotsStatsRequest.NodeStatsRequest();
+    }
+
+    @Override
+    protected SearchableSnapshotsStatsResponse.NodeStatsResponse newNodeResponse(StreamInput in) throws IOException {
+        return new SearchableSnapshotsStatsResponse.NodeStatsResponse(in);
+    }
+
+    @Override
+    protected SearchableSnapshotsStatsResponse.NodeStatsResponse nodeOperation(SearchableSnapshotsStatsRequest.NodeStatsRequest request,
+                                                                               Task task) {
+        return new SearchableSnapshotsStatsResponse.NodeStatsResponse(clusterService.localNode(), cacheService.stats());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.searchablesnapshots.cache;
+
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.snapshots.SnapshotId;
+
+import java.util.Objects;
+
+/**
+ * Identifies a cached range of a file of a shard snapshot.
+ */
+public final class CacheKey {
+
+    private final SnapshotId snapshotId;
+    private final IndexId indexId;
+    private final ShardId shardId;
+    private final String fileName;
+    private final long rangeIndex;
+
+    public CacheKey(SnapshotId snapshotId, IndexId indexId, ShardId shardId, String fileName, long rangeIndex) {
+        this.snapshotId = Objects.requireNonNull(snapshotId);
+        this.indexId = Objects.requireNonNull(indexId);
+        this.shardId = Objects.requireNonNull(shardId);
+        this.fileName = Objects.requireNonNull(fileName);
+        this.rangeIndex = rangeIndex;
+    }
+
+    public SnapshotId getSnapshotId() {
+        return snapshotId;
+    }
+
+    public IndexId getIndexId() {
+        return indexId;
+    }
+
+    public ShardId getShardId() {
+        return shardId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getRangeIndex() {
+        return rangeIndex;
+    }
+
+    /**
+     * @return whether this key belongs to the given shard snapshot
+     */
+    public boolean belongsTo(SnapshotId snapshotId, IndexId indexId, ShardId shardId) {
+        return this.snapshotId.equals(snapshotId) && this.indexId.equals(indexId) && this.shardId.equals(shardId);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final CacheKey cacheKey = (CacheKey) o;
+        return rangeIndex == cacheKey.rangeIndex
+            && snapshotId.equals(cacheKey.snapshotId)
+            && indexId.equals(cacheKey.indexId)
+            && shardId.equals(cacheKey.shardId)
+            && fileName.equals(cacheKey.fileName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(snapshotId, indexId, shardId, fileName, rangeIndex);
+    }
+
+    @Override
+    public String toString() {
+        return "[snapshotId=" + snapshotId + ", indexId=" + indexId + ", shardId=" + shardId + ", fileName='" + fileName
+            + "', rangeIndex=" + rangeIndex + ']';
+    }
+}
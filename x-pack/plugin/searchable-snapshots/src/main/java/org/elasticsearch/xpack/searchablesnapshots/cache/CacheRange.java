@@ -0,0 +1,180 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.searchablesnapshots.cache;
+
+import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
+import org.elasticsearch.common.util.concurrent.FutureUtils;
+import org.elasticsearch.core.internal.io.IOUtils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A fixed-size range of a file of a shard snapshot, stored in its own file on local disk. The range is populated by the first reader
+ * that needs it, concurrent readers wait for it to be populated, and all later readers read it from disk. Once the range is evicted from
+ * the {@link CacheService} its file is deleted as soon as the last reader releases it.
+ */
+public class CacheRange extends AbstractRefCounted {
+
+    /**
+     * Opens a stream over a range of the snapshotted file.
+     */
+    @FunctionalInterface
+    public interface RangeFetcher {
+        InputStream open(long position, long length) throws IOException;
+    }
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+    private final long position;
+    private final long length;
+    private final AtomicReference<CompletableFuture<Void>> population = new AtomicReference<>();
+    private volatile FileChannel channel;
+
+    CacheRange(Path file, long position, long length) {
+        super("cache_range");
+        this.file = file;
+        this.position = position;
+        this.length = length;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Populates this range with the given fetcher, unless it is already populated or another reader is populating it, in which case
+     * this waits for the other reader to complete.
+     *
+     * @return the number of bytes fetched by this call, which is zero if the range was populated by another reader
+     */
+    long populate(RangeFetcher fetcher) throws IOException {
+        while (true) {
+            final CompletableFuture<Void> existing = population.get();
+            if (existing != null) {
+                try {
+                    FutureUtils.get(existing);
+                    return 0L;
+                } catch (Exception e) {
+                    // the reader that populated the range failed, and reset the range so that the next reader can try again
+                    if (population.get() == existing) {
+                        throw new IOException("failed to populate cached range of [" + file + "]", e);
+                    }
+                    continue;
+                }
+            }
+            final CompletableFuture<Void> future = new CompletableFuture<>();
+            if (population.compareAndSet(null, future) == false) {
+                continue;
+            }
+            FileChannel fileChannel = null;
+            try {
+                ensureOpen();
+                Files.createDirectories(file.getParent());
+                fileChannel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                copy(fetcher, fileChannel);
+                channel = fileChannel;
+                future.complete(null);
+                return length;
+            } catch (Exception e) {
+                IOUtils.closeWhileHandlingException(fileChannel);
+                population.set(null);
+                future.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    private void copy(RangeFetcher fetcher, FileChannel fileChannel) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(COPY_BUFFER_SIZE, length));
+        long copied = 0L;
+        try (InputStream stream = fetcher.open(position, length)) {
+            while (copied < length) {
+                final int read = stream.read(buffer.array(), 0, (int) Math.min(buffer.capacity(), length - copied));
+                if (read == -1) {
+                    throw new EOFException("unexpected end of stream after [" + copied + "] of [" + length + "] bytes of [" + file + "]");
+                }
+                buffer.position(0).limit(read);
+                while (buffer.hasRemaining()) {
+                    copied += fileChannel.write(buffer, copied);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads bytes of this range, which must have been populated, into the given buffer.
+     *
+     * @param positionInRange the position in this range to read from
+     * @return the number of bytes read
+     */
+    int read(ByteBuffer dst, long positionInRange) throws IOException {
+        final FileChannel fileChannel = channel;
+        assert fileChannel != null : "range [" + file + "] is not populated";
+        final int toRead = (int) Math.min(dst.remaining(), length - positionInRange);
+        final int limit = dst.limit();
+        dst.limit(dst.position() + toRead);
+        try {
+            int read = 0;
+            while (read < toRead) {
+                final int bytes = fileChannel.read(dst, positionInRange + read);
+                if (bytes == -1) {
+                    throw new EOFException("unexpected end of cached range [" + file + "]");
+                }
+                read += bytes;
+            }
+            return read;
+        } finally {
+            dst.limit(limit);
+        }
+    }
+
+    private void ensureOpen() {
+        if (refCount() <= 0) {
+            throw new IllegalStateException("cached range [" + file + "] has been evicted");
+        }
+    }
+
+    @Override
+    protected void closeInternal() {
+        final CompletableFuture<Void> future = population.get();
+        if (future != null && future.isDone() == false) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // the range is discarded anyway
+            }
+        }
+        IOUtils.closeWhileHandlingException(channel);
+        IOUtils.deleteFilesIgnoringExceptions(file);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheRange{file=" + file + ", position=" + position + ", length=" + length + '}';
+    }
+}
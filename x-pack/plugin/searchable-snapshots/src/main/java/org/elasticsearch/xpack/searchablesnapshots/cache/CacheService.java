@@ -0,0 +1,167 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.searchablesnapshots.cache;
+
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.RemovalNotification;
+import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
+
+/**
+ * Node-level cache of the files of searchable snapshot shards. Files are split into ranges of a fixed size, each of which is fetched
+ * from the repository at most once and then stored on local disk until it is evicted, least recently used first, to keep the total size
+ * of the cached ranges under {@link #SNAPSHOT_CACHE_SIZE_SETTING}.
+ */
+public class CacheService extends AbstractLifecycleComponent {
+
+    public static final Setting<ByteSizeValue> SNAPSHOT_CACHE_SIZE_SETTING = Setting.byteSizeSetting("xpack.searchable.snapshot.cache.size",
+        new ByteSizeValue(1, ByteSizeUnit.GB), Setting.Property.NodeScope);
+
+    public static final Setting<ByteSizeValue> SNAPSHOT_CACHE_RANGE_SIZE_SETTING = Setting.byteSizeSetting(
+        "xpack.searchable.snapshot.cache.range_size", new ByteSizeValue(32, ByteSizeUnit.MB),
+        new ByteSizeValue(4, ByteSizeUnit.KB), new ByteSizeValue(1, ByteSizeUnit.GB), Setting.Property.NodeScope);
+
+    private final Cache<CacheKey, CacheRange> cache;
+    private final ByteSizeValue cacheSize;
+    private final int rangeSize;
+
+    private final CounterMetric hits = new CounterMetric();
+    private final CounterMetric misses = new CounterMetric();
+    private final CounterMetric evictions = new CounterMetric();
+    private final CounterMetric cachedBytesRead = new CounterMetric();
+    private final CounterMetric fetchedBytes = new CounterMetric();
+
+    public CacheService(Settings settings) {
+        this.cacheSize = SNAPSHOT_CACHE_SIZE_SETTING.get(settings);
+        this.rangeSize = Math.toIntExact(SNAPSHOT_CACHE_RANGE_SIZE_SETTING.get(settings).getBytes());
+        this.cache = CacheBuilder.<CacheKey, CacheRange>builder()
+            .setMaximumWeight(cacheSize.getBytes())
+            .weigher((key, range) -> range.getLength())
+            .removalListener(this::onRemoval)
+            .build();
+    }
+
+    @Override
+    protected void doStart() {
+    }
+
+    @Override
+    protected void doStop() {
+    }
+
+    @Override
+    protected void doClose() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return the size of the ranges that files are split into
+     */
+    public int getRangeSize() {
+        return rangeSize;
+    }
+
+    private void onRemoval(RemovalNotification<CacheKey, CacheRange> notification) {
+        if (notification.getRemovalReason() == RemovalNotification.RemovalReason.EVICTED) {
+            evictions.inc();
+        }
+        notification.getValue().decRef();
+    }
+
+    /**
+     * Returns the cached range for the given key, creating it if needed, and increments its reference count. The caller must release
+     * the range once done with it.
+     */
+    private CacheRange acquire(CacheKey key, Path file, long position, long length) throws IOException {
+        while (true) {
+            final CacheRange range;
+            try {
+                range = cache.computeIfAbsent(key, k -> new CacheRange(file, position, length));
+            } catch (ExecutionException e) {
+                throw new IOException("failed to create cached range [" + key + "]", e.getCause());
+            }
+            assert range.getPosition() == position && range.getLength() == length : range + " does not match " + key;
+            if (range.tryIncRef()) {
+                return range;
+            }
+            // the range was evicted between the lookup and now, which means it is no longer in the cache either
+        }
+    }
+
+    /**
+     * Populates the given range of a file in the cache if it is not populated already.
+     *
+     * @param key      the key of the range
+     * @param file     the local file to store the range in
+     * @param position the position of the range in the snapshotted file
+     * @param length   the length of the range
+     * @param fetcher  reads the range from the repository if it is not cached
+     */
+    public void populate(CacheKey key, Path file, long position, long length, CacheRange.RangeFetcher fetcher) throws IOException {
+        final CacheRange range = acquire(key, file, position, length);
+        try {
+            populate(range, fetcher);
+        } finally {
+            range.decRef();
+        }
+    }
+
+    /**
+     * Reads bytes from the given range of a file, populating the range from the repository first if it is not cached.
+     *
+     * @param positionInRange the position to read from, relative to the start of the range
+     * @return the number of bytes read into the buffer
+     */
+    public int read(CacheKey key, Path file, long position, long length, CacheRange.RangeFetcher fetcher,
+                    ByteBuffer dst, long positionInRange) throws IOException {
+        final CacheRange range = acquire(key, file, position, length);
+        try {
+            populate(range, fetcher);
+            final int read = range.read(dst, positionInRange);
+            cachedBytesRead.inc(read);
+            return read;
+        } finally {
+            range.decRef();
+        }
+    }
+
+    private void populate(CacheRange range, CacheRange.RangeFetcher fetcher) throws IOException {
+        final long fetched = range.populate(fetcher);
+        if (fetched > 0L) {
+            misses.inc();
+            fetchedBytes.inc(fetched);
+        } else {
+            hits.inc();
+        }
+    }
+
+    /**
+     * Removes all the ranges whose key matches the given predicate from the cache, deleting their files once they are no longer read.
+     */
+    public void removeFromCache(Predicate<CacheKey> predicate) {
+        for (CacheKey key : cache.keys()) {
+            if (predicate.test(key)) {
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    public SearchableSnapshotCacheStats stats() {
+        return new SearchableSnapshotCacheStats(cache.count(), cache.weight(), cacheSize.getBytes(), hits.count(), misses.count(),
+            evictions.count(), cachedBytesRead.count(), fetchedBytes.count());
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.searchablesnapshots.cache;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Statistics of the searchable snapshots cache of a node.
+ */
+public class SearchableSnapshotCacheStats implements Writeable, ToXContentFragment {
+
+    private final long count;
+    private final long sizeInBytes;
+    private final long maxSizeInBytes;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long cachedBytesRead;
+    private final long fetchedBytes;
+
+    public SearchableSnapshotCacheStats(long count, long sizeInBytes, long maxSizeInBytes, long hits, long misses, long evictions,
+                                        long cachedBytesRead, long fetchedBytes) {
+        this.count = count;
+        this.sizeInBytes = sizeInBytes;
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.cachedBytesRead = cachedBytesRead;
+        this.fetchedBytes = fetchedBytes;
+    }
+
+    public SearchableSnapshotCacheStats(StreamInput in) throws IOException {
+        this.count = in.readVLong();
+        this.sizeInBytes = in.readVLong();
+        this.maxSizeInBytes = in.readVLong();
+        this.hits = in.readVLong();
+        this.misses = in.readVLong();
+        this.evictions = in.readVLong();
+        this.cachedBytesRead = in.readVLong();
+        this.fetchedBytes = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(count);
+        out.writeVLong(sizeInBytes);
+        out.writeVLong(maxSizeInBytes);
+        out.writeVLong(hits);
+        out.writeVLong(misses);
+        out.writeVLong(evictions);
+        out.writeVLong(cachedBytesRead);
+        out.writeVLong(fetchedBytes);
+    }
+
+    /**
+     * @return the number of ranges in the cache
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    public long getMaxSizeInBytes() {
+        return maxSizeInBytes;
+    }
+
+    /**
+     * @return the number of range accesses that did not need to fetch the range from the repository
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of range accesses that fetched the range from the repository
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getCachedBytesRead() {
+        return cachedBytesRead;
+    }
+
+    public long getFetchedBytes() {
+        return fetchedBytes;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("cache");
+        builder.field("count", count);
+        builder.humanReadableField("size_in_bytes", "size", new ByteSizeValue(sizeInBytes));
+        builder.humanReadableField("max_size_in_bytes", "max_size", new ByteSizeValue(maxSizeInBytes));
+        builder.field("hit_count", hits);
+        builder.field("miss_count", misses);
+        builder.field("evictions", evictions);
+        builder.humanReadableField("cached_bytes_read_in_bytes", "cached_bytes_read", new ByteSizeValue(cachedBytesRead));
+        builder.humanReadableField("fetched_bytes_in_bytes", "fetched_bytes", new ByteSizeValue(fetchedBytes));
+        builder.endObject();
+        return builder;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SearchableSnapshotCacheStats that = (SearchableSnapshotCacheStats) o;
+        return count == that.count
+            && sizeInBytes == that.sizeInBytes
+            && maxSizeInBytes == that.maxSizeInBytes
+            && hits == that.hits
+            && misses == that.misses
+            && evictions == that.evictions
+            && cachedBytesRead == that.cachedBytesRead
+            && fetchedBytes == that.fetchedBytes;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(count, sizeInBytes, maxSizeInBytes, hits, misses, evictions, cachedBytesRead, fetchedBytes);
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.searchablesnapshots.rest;
+
+import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.action.RestToXContentListener;
+import org.elasticsearch.xpack.searchablesnapshots.action.MountSearchableSnapshotAction;
+import org.elasticsearch.xpack.searchablesnapshots.action.MountSearchableSnapshotRequest;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.elasticsearch.rest.RestRequest.Method.POST;
+
+/**
+ * Mounts an index of a snapshot as a searchable snapshot index
+ */
+public class RestMountSearchableSnapshotAction extends BaseRestHandler {
+
+    @Override
+    public List<Route> routes() {
+        return List.of(new Route(POST, "/_snapshot/{repository}/{snapshot}/_mount"));
+    }
+
+    @Override
+    public String getName() {
+        return "mount_snapshot_action";
+    }
+
+    @Override
+    protected RestChannelConsumer prepareRequest(RestRequest request, NodeClient client) throws IOException {
+        final MountSearchableSnapshotRequest mountRequest = MountSearchableSnapshotRequest.PARSER.apply(request.contentParser(), request);
+        mountRequest.masterNodeTimeout(request.paramAsTime("master_timeout", mountRequest.masterNodeTimeout()));
+        return channel -> client.execute(MountSearchableSnapshotAction.INSTANCE, mountRequest, new RestToXContentListener<>(channel));
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.index.store;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.NIOFSDirectory;
+import org.apache.lucene.util.LuceneTestCase;
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.blobstore.BlobPath;
+import org.elasticsearch.common.blobstore.fs.FsBlobStore;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.snapshots.SnapshotId;
+import org.elasticsearch.test.DummyShardLock;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.IndexSettingsModule;
+import org.elasticsearch.xpack.searchablesnapshots.cache.CacheService;
+import org.elasticsearch.xpack.searchablesnapshots.cache.SearchableSnapshotCacheStats;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItemInArray;
+import static org.hamcrest.Matchers.not;
+
+@LuceneTestCase.SuppressFileSystems("ExtrasFS") // the test compares the files of plain and snapshot directories
+public class SearchableSnapshotDirectoryTests extends ESTestCase {
+
+    private final ShardId shardId = new ShardId("_index", "_uuid", 0);
+
+    public void testReadFilesWithAndWithoutCache() throws Exception {
+        final int numDocs = scaledRandomIntBetween(10, 1_000);
+        try (Directory source = newFSDirectory(createTempDir())) {
+            writeDocs(source, numDocs);
+            final BlobStoreIndexShardSnapshot snapshot = uploadSnapshot(source);
+            final boolean useCache = randomBoolean();
+            final CacheService cacheService = newCacheService();
+            try (SearchableSnapshotDirectory directory = newSnapshotDirectory(snapshot, useCache ? cacheService : null)) {
+                final String[] sourceFiles = Arrays.stream(source.listAll()).filter(file -> file.equals("write.lock") == false)
+                    .toArray(String[]::new);
+                assertThat(directory.listAll(), equalTo(sourceFiles));
+                for (String file : sourceFiles) {
+                    assertThat(directory.fileLength(file), equalTo(source.fileLength(file)));
+                    assertSameContent(file, source, directory);
+                    try (IndexInput input = directory.openInput(file, IOContext.READ)) {
+                        if (input.length() >= CodecUtil.footerLength()) {
+                            assertThat(CodecUtil.retrieveChecksum(input), equalTo(Long.parseLong(
+                                snapshot.indexFiles().stream().filter(f -> f.physicalName().equals(file)).findFirst().get().checksum(),
+                                Character.MAX_RADIX)));
+                        }
+                    }
+                }
+                expectThrows(NoSuchFileException.class, () -> directory.openInput("missing", IOContext.READ));
+                expectThrows(UnsupportedOperationException.class, () -> directory.createOutput("new", IOContext.DEFAULT));
+                expectThrows(UnsupportedOperationException.class, () -> directory.deleteFile(sourceFiles[0]));
+
+                try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                    assertThat(reader.numDocs(), equalTo(numDocs));
+                    final IndexSearcher searcher = new IndexSearcher(reader);
+                    assertThat(searcher.count(new TermQuery(new Term("id", "0"))), equalTo(1));
+                    assertThat(searcher.count(LongPoint.newRangeQuery("value", 0L, numDocs - 1L)), equalTo(numDocs));
+                }
+
+                final SearchableSnapshotCacheStats stats = cacheService.stats();
+                if (useCache) {
+                    assertThat(stats.getMisses(), greaterThan(0L));
+                    assertThat(stats.getHits(), greaterThan(0L));
+                    assertThat(stats.getFetchedBytes(), greaterThan(0L));
+                    assertThat(stats.getCachedBytesRead(), greaterThan(0L));
+                } else {
+                    assertThat(stats.getMisses(), equalTo(0L));
+                    assertThat(stats.getHits(), equalTo(0L));
+                }
+            }
+            assertThat(cacheService.stats().getCount(), equalTo(0L));
+            cacheService.close();
+        }
+    }
+
+    public void testWritesGoToLocalOverlay() throws Exception {
+        final int numDocs = scaledRandomIntBetween(10, 100);
+        try (Directory source = newFSDirectory(createTempDir())) {
+            writeDocs(source, numDocs);
+            final BlobStoreIndexShardSnapshot snapshot = uploadSnapshot(source);
+            final CacheService cacheService = newCacheService();
+            final Path localPath = createTempDir();
+            final String segmentsFile = Lucene.readSegmentInfos(source).getSegmentsFileName();
+            try (LocalOverlayDirectory directory =
+                     new LocalOverlayDirectory(new NIOFSDirectory(localPath), newSnapshotDirectory(snapshot, cacheService))) {
+                try (IndexWriter writer = new IndexWriter(directory,
+                    new IndexWriterConfig(Lucene.STANDARD_ANALYZER).setOpenMode(IndexWriterConfig.OpenMode.APPEND))) {
+                    addDoc(writer, numDocs);
+                    writer.commit();
+                }
+                // the previous commit of the snapshot was deleted by the writer, but only hidden from the directory
+                assertThat(directory.listAll(), not(hasItemInArray(segmentsFile)));
+                assertThat(directory.getSnapshotDirectory().listAll(), hasItemInArray(segmentsFile));
+                final String newSegmentsFile = Lucene.readSegmentInfos(directory).getSegmentsFileName();
+                try (Directory localDirectory = new NIOFSDirectory(localPath)) {
+                    assertThat(localDirectory.listAll(), hasItemInArray(newSegmentsFile));
+                }
+                try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                    assertThat(reader.numDocs(), equalTo(numDocs + 1));
+                }
+                expectThrows(UnsupportedOperationException.class, () -> directory.rename(
+                    Arrays.stream(directory.getSnapshotDirectory().listAll()).filter(f -> f.startsWith("segments") == false)
+                        .findFirst().get(), "renamed"));
+            }
+            cacheService.close();
+        }
+    }
+
+    public void testHydrate() throws Exception {
+        final int numDocs = scaledRandomIntBetween(10, 1_000);
+        try (Directory source = newFSDirectory(createTempDir())) {
+            writeDocs(source, numDocs);
+            final BlobStoreIndexShardSnapshot snapshot = uploadSnapshot(source);
+            final CacheService cacheService = newCacheService();
+            final Path localPath = createTempDir();
+            try (LocalOverlayDirectory directory =
+                     new LocalOverlayDirectory(new NIOFSDirectory(localPath), newSnapshotDirectory(snapshot, cacheService))) {
+                final String[] files = directory.listAll();
+                final DirectoryReader reader = DirectoryReader.open(directory);
+                assertThat(directory.isHydrated(), equalTo(false));
+                assertThat(cacheService.stats().getCount(), greaterThan(0L));
+
+                directory.hydrate();
+                assertThat(directory.isHydrated(), equalTo(true));
+                assertThat(directory.listAll(), equalTo(files));
+                assertThat(cacheService.stats().getCount(), equalTo(0L));
+                try (Directory localDirectory = new NIOFSDirectory(localPath)) {
+                    assertThat(localDirectory.listAll(), equalTo(files));
+                }
+
+                // the files are read from local disk only, including by the reader that was opened before they were copied
+                blobContainer.delete();
+                for (String file : files) {
+                    assertSameContent(file, source, directory);
+                }
+                try (reader) {
+                    assertThat(reader.numDocs(), equalTo(numDocs));
+                    assertThat(new IndexSearcher(reader).count(LongPoint.newRangeQuery("value", 0L, numDocs - 1L)), equalTo(numDocs));
+                }
+                try (DirectoryReader newReader = DirectoryReader.open(directory)) {
+                    assertThat(newReader.numDocs(), equalTo(numDocs));
+                }
+            }
+            cacheService.close();
+        }
+    }
+
+    public void testHydrateVerifiesChecksums() throws Exception {
+        try (Directory source = newFSDirectory(createTempDir())) {
+            writeDocs(source, scaledRandomIntBetween(10, 100));
+            final BlobStoreIndexShardSnapshot snapshot = uploadSnapshot(source);
+            // corrupt the first part of a file in the repository
+            final FileInfo corruptedFile = randomFrom(snapshot.indexFiles().stream()
+                .filter(fileInfo -> fileInfo.metadata().hashEqualsContents() == false)
+                .filter(fileInfo -> fileInfo.partBytes(0) >= CodecUtil.footerLength())
+                .toArray(FileInfo[]::new));
+            final byte[] part = new byte[Math.toIntExact(corruptedFile.partBytes(0))];
+            try (InputStream stream = blobContainer.readBlob(corruptedFile.partName(0))) {
+                assertThat(Streams.readFully(stream, part, 0, part.length), equalTo(part.length));
+            }
+            part[randomIntBetween(0, part.length - 1)] ^= 0x01;
+            blobContainer.writeBlob(corruptedFile.partName(0), new ByteArrayInputStream(part), part.length, false);
+
+            final Path localPath = createTempDir();
+            try (LocalOverlayDirectory directory = new LocalOverlayDirectory(new NIOFSDirectory(localPath),
+                newSnapshotDirectory(snapshot, null))) {
+                expectThrows(CorruptIndexException.class, directory::hydrate);
+                assertThat(directory.isHydrated(), equalTo(false));
+                try (Directory localDirectory = new NIOFSDirectory(localPath)) {
+                    assertThat(localDirectory.listAll(), not(hasItemInArray(corruptedFile.physicalName())));
+                    for (String file : localDirectory.listAll()) {
+                        assertThat(file, not(endsWith(".hydrating")));
+                    }
+                }
+            }
+        }
+    }
+
+    public void testCacheEvictions() throws Exception {
+        try (Directory source = newFSDirectory(createTempDir())) {
+            writeDocs(source, scaledRandomIntBetween(500, 1_000));
+            final BlobStoreIndexShardSnapshot snapshot = uploadSnapshot(source);
+            final CacheService cacheService = new CacheService(Settings.builder()
+                .put(CacheService.SNAPSHOT_CACHE_SIZE_SETTING.getKey(), new ByteSizeValue(16, ByteSizeUnit.KB))
+                .put(CacheService.SNAPSHOT_CACHE_RANGE_SIZE_SETTING.getKey(), new ByteSizeValue(4, ByteSizeUnit.KB))
+                .build());
+            try (SearchableSnapshotDirectory directory = newSnapshotDirectory(snapshot, cacheService)) {
+                for (int i = 0; i < 3; i++) {
+                    for (String file : source.listAll()) {
+                        if (file.equals("write.lock") == false) {
+                            assertSameContent(file, source, directory);
+                        }
+                    }
+                }
+                final SearchableSnapshotCacheStats stats = cacheService.stats();
+                assertThat(stats.getEvictions(), greaterThan(0L));
+                assertThat(stats.getSizeInBytes() <= stats.getMaxSizeInBytes(), equalTo(true));
+            }
+            cacheService.close();
+        }
+    }
+
+    private static void writeDocs(Directory directory, int numDocs) throws IOException {
+        final IndexWriterConfig config = new IndexWriterConfig(Lucene.STANDARD_ANALYZER).setUseCompoundFile(randomBoolean());
+        try (IndexWriter writer = new IndexWriter(directory, config)) {
+            for (int i = 0; i < numDocs; i++) {
+                addDoc(writer, i);
+                if (rarely()) {
+                    writer.commit();
+                }
+            }
+            writer.commit();
+        }
+    }
+
+    private static void addDoc(IndexWriter writer, int id) throws IOException {
+        final Document document = new Document();
+        document.add(new StringField("id", Integer.toString(id), Field.Store.YES));
+        document.add(new TextField("text", randomRealisticUnicodeOfLengthBetween(10, 200), Field.Store.YES));
+        document.add(new LongPoint("value", id));
+        writer.addDocument(document);
+    }
+
+    private BlobContainer blobContainer;
+
+    /**
+     * Uploads the files of the last commit of the given directory to a blob container like a snapshot would, split in parts of a
+     * random size.
+     */
+    private BlobStoreIndexShardSnapshot uploadSnapshot(Directory source) throws IOException {
+        blobContainer = new FsBlobStore(Settings.EMPTY, createTempDir(), false).blobContainer(BlobPath.cleanPath());
+        final ByteSizeValue partSize = randomBoolean() ? null : new ByteSizeValue(randomIntBetween(1, 16), ByteSizeUnit.KB);
+        final List<FileInfo> files = new ArrayList<>();
+        try (Store store = new Store(shardId, IndexSettingsModule.newIndexSettings("_index", Settings.EMPTY), source,
+            new DummyShardLock(shardId)) {
+            @Override
+            public void close() {
+                // the directory is closed by the test
+            }
+        }) {
+            for (StoreFileMetaData md : store.getMetadata(null)) {
+                final FileInfo fileInfo = new FileInfo((md.hashEqualsContents() ? "v__" : "__") + UUIDs.randomBase64UUID(), md, partSize);
+                if (md.hashEqualsContents() == false) {
+                    final byte[] content = readAll(source, md.name());
+                    for (int part = 0; part < fileInfo.numberOfParts(); part++) {
+                        final int start = Math.toIntExact(part * fileInfo.partBytes(0));
+                        final int length = Math.toIntExact(fileInfo.partBytes(part));
+                        blobContainer.writeBlob(fileInfo.partName(part), new ByteArrayInputStream(content, start, length), length, true);
+                    }
+                }
+                files.add(fileInfo);
+            }
+        }
+        return new BlobStoreIndexShardSnapshot("_snapshot", 0L, files, 0L, 0L, 0, 0L);
+    }
+
+    private SearchableSnapshotDirectory newSnapshotDirectory(BlobStoreIndexShardSnapshot snapshot, CacheService cacheService) {
+        final BlobContainer container = blobContainer;
+        return new SearchableSnapshotDirectory(fileInfo -> container, () -> snapshot, new SnapshotId("_snapshot", "_snapshot_uuid"),
+            new IndexId("_index", "_index_uuid"), shardId, cacheService, createTempDir(), Set.of("si", "tip"),
+            EsExecutors.newDirectExecutorService());
+    }
+
+    private CacheService newCacheService() {
+        return new CacheService(Settings.builder()
+            .put(CacheService.SNAPSHOT_CACHE_RANGE_SIZE_SETTING.getKey(), new ByteSizeValue(randomIntBetween(4, 64), ByteSizeUnit.KB))
+            .build());
+    }
+
+    private static byte[] readAll(Directory directory, String file) throws IOException {
+        try (IndexInput input = directory.openInput(file, IOContext.READONCE)) {
+            final byte[] bytes = new byte[Math.toIntExact(input.length())];
+            input.readBytes(bytes, 0, bytes.length);
+            return bytes;
+        }
+    }
+
+    private static void assertSameContent(String file, Directory expected, Directory actual) throws IOException {
+        final byte[] expectedBytes = readAll(expected, file);
+        assertArrayEquals("content of [" + file + "]", expectedBytes, readAll(actual, file));
+        try (IndexInput input = actual.openInput(file, IOContext.DEFAULT)) {
+            for (int i = 0; i < 10 && expectedBytes.length > 0; i++) {
+                final int start = randomIntBetween(0, expectedBytes.length - 1);
+                final int length = randomIntBetween(0, expectedBytes.length - start);
+                final IndexInput slice;
+                if (randomBoolean()) {
+                    slice = input.slice("slice", start, length);
+                } else {
+                    slice = input.clone();
+                    slice.seek(start);
+                }
+                final byte[] bytes = new byte[length];
+                slice.readBytes(bytes, 0, length);
+                assertArrayEquals(Arrays.copyOfRange(expectedBytes, start, start + length), bytes);
+            }
+        }
+    }
+}
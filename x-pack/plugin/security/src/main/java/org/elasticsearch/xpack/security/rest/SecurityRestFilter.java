@@ -87,6 +87,11 @@ public class SecurityRestFilter implements RestHandler {
         return restHandler.supportsContentStream();
     }
 
+    @Override
+    public boolean supportsStreamedBody() {
+        return restHandler.supportsStreamedBody();
+    }
+
     @Override
     public boolean allowsUnsafeBuffers() {
         return restHandler.allowsUnsafeBuffers();